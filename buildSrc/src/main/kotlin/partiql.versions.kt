@@ -25,6 +25,7 @@ object Versions {
 
     // Dependencies
     const val antlr = "4.10.1"
+    const val asm = "9.6"
     const val awsSdk = "1.12.344"
     const val csv = "1.8"
     const val dotlin = "1.0.2"
@@ -70,6 +71,7 @@ object Deps {
     // Dependencies
     const val antlr = "org.antlr:antlr4:${Versions.antlr}"
     const val antlrRuntime = "org.antlr:antlr4-runtime:${Versions.antlr}"
+    const val asm = "org.ow2.asm:asm:${Versions.asm}"
     const val awsSdkBom = "com.amazonaws:aws-java-sdk-bom:${Versions.awsSdk}"
     const val awsSdkDynamodb = "com.amazonaws:aws-java-sdk-dynamodb:${Versions.awsSdk}"
     const val awsSdkS3 = "com.amazonaws:aws-java-sdk-s3:${Versions.awsSdk}"
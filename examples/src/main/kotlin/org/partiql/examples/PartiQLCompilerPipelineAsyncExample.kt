@@ -79,6 +79,7 @@ class PartiQLCompilerPipelineAsyncExample(out: PrintStream) : Example(out) {
             is PartiQLResult.Value -> result.value
             is PartiQLResult.Delete,
             is PartiQLResult.Explain.Domain,
+            is PartiQLResult.Explain.Profile,
             is PartiQLResult.Insert,
             is PartiQLResult.Replace -> TODO("DML and Explain not covered in this example")
         }
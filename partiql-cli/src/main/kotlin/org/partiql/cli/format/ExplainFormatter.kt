@@ -24,6 +24,15 @@ internal object ExplainFormatter {
         return formatOption.formatter.format(result.value)
     }
 
+    internal fun format(result: PartiQLResult.Explain.Profile): String {
+        val format = result.format?.toUpperCase() ?: ExplainFormats.TREE.name
+        return when (ExplainFormats.valueOf(format)) {
+            ExplainFormats.ION_SEXP, ExplainFormats.TREE -> ProfileFormatter.formatTree(result.profile)
+            ExplainFormats.DOT -> ProfileFormatter.formatDot(result.profile)
+            ExplainFormats.DOT_URL -> ProfileFormatter.formatDotUrl(result.profile)
+        }
+    }
+
     private enum class ExplainFormats(val formatter: NodeFormatter) {
         ION_SEXP(SexpFormatter),
         TREE(TreeFormatter),
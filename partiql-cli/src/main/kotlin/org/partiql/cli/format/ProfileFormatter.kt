@@ -0,0 +1,99 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates.  All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at:
+ *
+ *      http://aws.amazon.com/apache2.0/
+ *
+ * or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific
+ * language governing permissions and limitations under the License.
+ */
+
+package org.partiql.cli.format
+
+import com.google.common.net.PercentEscaper
+import org.partiql.cli.format.dot.DotGraph
+import org.partiql.cli.format.dot.DotNodeShape
+import org.partiql.cli.format.dot.digraph
+import org.partiql.lang.eval.OperatorProfile
+import org.partiql.lang.eval.QueryProfile
+
+/**
+ * Formats the [QueryProfile] reported by `EXPLAIN (TYPE analyze) <query>`, as a tree of the relational operators with
+ * their runtime statistics.
+ */
+internal object ProfileFormatter {
+
+    private const val URL_PREFIX = "https://dreampuf.github.io/GraphvizOnline/#"
+    private val EOL = System.lineSeparator()
+    private const val INDENT_ROOT = "⚬"
+    private const val INDENT_T = "├──"
+    private const val INDENT_I = "│  "
+    private const val INDENT_ELBOW = "└──"
+    private const val INDENTS = "   "
+
+    internal fun formatTree(profile: QueryProfile): String = buildString {
+        profile.operators.forEach { appendTree(it, "", null) }
+    }
+
+    internal fun formatDot(profile: QueryProfile): String {
+        var count = 0
+        fun DotGraph.addOperator(operator: OperatorProfile): String {
+            val name = "operator_${count++}"
+            +name + {
+                label = operator.summary().joinToString("\\n")
+            }
+            operator.inputs.forEach { name - addOperator(it) + { color = "blue" } }
+            operator.subqueries.forEach { name - addOperator(it) + { label = "subquery" } }
+            return name
+        }
+        val graph = digraph("QueryProfile") {
+            node {
+                shape = DotNodeShape.RECTANGLE
+            }
+            profile.operators.forEach { addOperator(it) }
+        }
+        return graph.dot() + EOL
+    }
+
+    internal fun formatDotUrl(profile: QueryProfile): String {
+        val escaper = PercentEscaper("", false)
+        return "$URL_PREFIX${escaper.escape(formatDot(profile))}$EOL"
+    }
+
+    /**
+     * Appends [operator] as the root of a tree when [isLast] is `null`, or else as a child prefixed by [lead], followed
+     * by its inputs and sub-queries.
+     */
+    private fun StringBuilder.appendTree(operator: OperatorProfile, lead: String, isLast: Boolean?) {
+        append(
+            when (isLast) {
+                null -> INDENT_ROOT
+                true -> lead + INDENT_ELBOW
+                false -> lead + INDENT_T
+            }
+        )
+        append(' ')
+        append(operator.summary().joinToString(", "))
+        append(EOL)
+        val childLead = when (isLast) {
+            null -> ""
+            true -> lead + INDENTS
+            false -> lead + INDENT_I
+        }
+        val children = operator.inputs + operator.subqueries
+        children.forEachIndexed { index, child -> appendTree(child, childLead, index == children.size - 1) }
+    }
+
+    private fun OperatorProfile.summary(): List<String> = listOfNotNull(
+        "$name ($implementation)",
+        "invocations: $invocations",
+        "rows in: $rowsIn",
+        "rows out: $rowsOut",
+        "time: %.3f ms (self: %.3f ms)".format(elapsedNanos / 1e6, selfNanos / 1e6),
+        if (peakMaterializedRows > 0) "peak rows: $peakMaterializedRows" else null
+    )
+}
@@ -158,6 +158,11 @@ internal class Cli(
                     it.append(ExplainFormatter.format(result))
                 }
             }
+            is PartiQLResult.Explain.Profile -> {
+                OutputStreamWriter(output).use {
+                    it.append(ExplainFormatter.format(result))
+                }
+            }
         }
     }
 }
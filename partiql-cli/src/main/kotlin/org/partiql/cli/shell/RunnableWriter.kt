@@ -72,6 +72,11 @@ internal class RunnableWriter(
                 out.println(explain)
                 out.success("OK!")
             }
+            is PartiQLResult.Explain.Profile -> {
+                val explain = ExplainFormatter.format(result)
+                out.println(explain)
+                out.success("OK!")
+            }
             is PartiQLResult.Insert,
             is PartiQLResult.Replace,
             is PartiQLResult.Delete -> {
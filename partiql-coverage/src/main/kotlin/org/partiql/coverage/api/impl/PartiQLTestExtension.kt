@@ -124,7 +124,8 @@ internal class PartiQLTestExtension : TestTemplateInvocationContextProvider {
                 val str = when (result) {
                     is PartiQLResult.Value -> ConfigurableExprValueFormatter.standard.format(result.value)
                     is PartiQLResult.Delete -> TODO("@PartiQLTest does not yet support unit testing of Delete.")
-                    is PartiQLResult.Explain.Domain -> TODO("@PartiQLTest does not yet support unit testing of Explain.")
+                    is PartiQLResult.Explain.Domain,
+                    is PartiQLResult.Explain.Profile -> TODO("@PartiQLTest does not yet support unit testing of Explain.")
                     is PartiQLResult.Insert -> TODO("@PartiQLTest does not yet support unit testing of Insert.")
                     is PartiQLResult.Replace -> TODO("@PartiQLTest does not yet support unit testing of Replace.")
                 }
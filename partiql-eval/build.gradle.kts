@@ -0,0 +1,37 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License").
+ * You may not use this file except in compliance with the License.
+ * A copy of the License is located at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * or in the "license" file accompanying this file. This file is distributed
+ * on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language governing
+ * permissions and limitations under the License.
+ *
+ */
+
+plugins {
+    id(Plugins.conventions)
+    id(Plugins.library)
+    id(Plugins.publish)
+}
+
+dependencies {
+    api(project(":partiql-plan"))
+    api(project(":partiql-spi"))
+    api(project(":partiql-types"))
+    // Test
+    testImplementation(project(":partiql-parser"))
+    testImplementation(project(":partiql-planner"))
+    testImplementation(project(":plugins:partiql-memory"))
+}
+
+publish {
+    artifactId = "partiql-eval"
+    name = "PartiQL Eval"
+    description = "PartiQL's Experimental Evaluator for the PartiQL Plan."
+}
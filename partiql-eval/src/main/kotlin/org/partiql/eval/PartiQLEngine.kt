@@ -0,0 +1,61 @@
+package org.partiql.eval
+
+import org.partiql.plan.PartiQLPlan
+import org.partiql.spi.connector.Connector
+import org.partiql.spi.function.PartiQLFunction
+import org.partiql.spi.function.PartiQLFunctionExperimental
+
+/**
+ * PartiQLEngine is responsible for executing a [PartiQLPlan], which has been typed and resolved by the planner.
+ *
+ * Preparing a plan compiles it into a tree of operators over [org.partiql.value.PartiQLValue]s once. Since the plan
+ * resolves each function call to a function signature, each operator is bound to the implementation of this
+ * signature while compiling, and no function is dispatched on the types of its arguments while executing.
+ */
+public interface PartiQLEngine {
+
+    /**
+     * Compiles the [plan] to a [PartiQLStatement], which may be executed several times.
+     *
+     * @param plan
+     * @param session
+     * @return
+     * @throws UnsupportedOperationException if the plan contains an operator or a function call which is not
+     * supported by this engine.
+     */
+    public fun prepare(plan: PartiQLPlan, session: Session): PartiQLStatement<*>
+
+    /**
+     * Executes the [statement].
+     *
+     * @param statement
+     * @return
+     */
+    public fun execute(statement: PartiQLStatement<*>): PartiQLResult
+
+    /**
+     * The execution environment of a statement.
+     *
+     * @property queryId
+     * @property userId
+     * @property catalogs   The connectors of the catalogs of the plan, keyed by the names of the catalogs.
+     * @property functions  The implementations of the functions of the catalogs, which take precedence over the
+     * builtin implementations with the same signature.
+     */
+    @OptIn(PartiQLFunctionExperimental::class)
+    public class Session @JvmOverloads constructor(
+        public val queryId: String,
+        public val userId: String,
+        public val catalogs: Map<String, Connector> = emptyMap(),
+        public val functions: List<PartiQLFunction> = emptyList(),
+    )
+
+    public companion object {
+
+        @JvmStatic
+        public fun builder(): PartiQLEngineBuilder = PartiQLEngineBuilder()
+
+        @JvmStatic
+        public fun default(): PartiQLEngine = PartiQLEngineBuilder().build()
+    }
+}
@@ -0,0 +1,17 @@
+package org.partiql.eval
+
+/**
+ * PartiQLEngineBuilder is used to programmatically construct a [PartiQLEngine] implementation.
+ *
+ * Usage:
+ *      PartiQLEngine.builder().build()
+ */
+public class PartiQLEngineBuilder {
+
+    /**
+     * Build the builder, return an implementation of a [PartiQLEngine].
+     *
+     * @return
+     */
+    public fun build(): PartiQLEngine = PartiQLEngineDefault()
+}
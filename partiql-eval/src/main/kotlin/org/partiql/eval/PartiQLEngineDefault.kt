@@ -0,0 +1,38 @@
+package org.partiql.eval
+
+import org.partiql.eval.internal.Compiler
+import org.partiql.eval.internal.Record
+import org.partiql.eval.internal.Symbols
+import org.partiql.plan.PartiQLPlan
+import org.partiql.plan.Statement
+import org.partiql.value.PartiQLValue
+import org.partiql.value.PartiQLValueExperimental
+
+internal class PartiQLEngineDefault : PartiQLEngine {
+
+    override fun prepare(plan: PartiQLPlan, session: PartiQLEngine.Session): PartiQLStatement<*> {
+        // 1. Bind the functions and catalog objects of the plan
+        val symbols = Symbols(plan, session)
+        val compiler = Compiler(symbols)
+
+        // 2. Compile the statement to operators
+        return when (val statement = plan.statement) {
+            is Statement.Query -> {
+                val root = compiler.compile(statement)
+                object : PartiQLStatement.Query {
+                    @OptIn(PartiQLValueExperimental::class)
+                    override fun execute(): PartiQLValue = root.eval(Record.EMPTY)
+                }
+            }
+        }
+    }
+
+    @OptIn(PartiQLValueExperimental::class)
+    override fun execute(statement: PartiQLStatement<*>): PartiQLResult = try {
+        when (statement) {
+            is PartiQLStatement.Query -> PartiQLResult.Value(statement.execute())
+        }
+    } catch (e: Exception) {
+        PartiQLResult.Error(e)
+    }
+}
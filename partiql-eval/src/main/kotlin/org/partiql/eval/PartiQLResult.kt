@@ -0,0 +1,25 @@
+package org.partiql.eval
+
+import org.partiql.value.PartiQLValue
+import org.partiql.value.PartiQLValueExperimental
+
+/**
+ * The result of the execution of a [PartiQLStatement].
+ */
+public sealed interface PartiQLResult {
+
+    /**
+     * The value of a query.
+     *
+     * @property value
+     */
+    @OptIn(PartiQLValueExperimental::class)
+    public class Value(public val value: PartiQLValue) : PartiQLResult
+
+    /**
+     * An error raised while executing the statement.
+     *
+     * @property cause
+     */
+    public class Error(public val cause: Throwable) : PartiQLResult
+}
@@ -0,0 +1,25 @@
+package org.partiql.eval
+
+import org.partiql.value.PartiQLValue
+import org.partiql.value.PartiQLValueExperimental
+
+/**
+ * A compiled [org.partiql.plan.Statement], prepared by a [PartiQLEngine].
+ *
+ * @param T The type of the result of the statement.
+ */
+public sealed interface PartiQLStatement<T> {
+
+    /**
+     * Executes the statement.
+     *
+     * @return
+     */
+    public fun execute(): T
+
+    /**
+     * A query statement, whose result is a value.
+     */
+    @OptIn(PartiQLValueExperimental::class)
+    public interface Query : PartiQLStatement<PartiQLValue>
+}
@@ -0,0 +1,207 @@
+package org.partiql.eval.internal
+
+import org.partiql.eval.internal.operator.Operator
+import org.partiql.eval.internal.operator.rel.RelAggregate
+import org.partiql.eval.internal.operator.rel.RelDistinct
+import org.partiql.eval.internal.operator.rel.RelExclude
+import org.partiql.eval.internal.operator.rel.RelFilter
+import org.partiql.eval.internal.operator.rel.RelJoin
+import org.partiql.eval.internal.operator.rel.RelLimit
+import org.partiql.eval.internal.operator.rel.RelOffset
+import org.partiql.eval.internal.operator.rel.RelProject
+import org.partiql.eval.internal.operator.rel.RelScan
+import org.partiql.eval.internal.operator.rel.RelScanGlobal
+import org.partiql.eval.internal.operator.rel.RelScanIndexed
+import org.partiql.eval.internal.operator.rel.RelSort
+import org.partiql.eval.internal.operator.rel.RelUnpivot
+import org.partiql.eval.internal.operator.rex.ExprCallDynamic
+import org.partiql.eval.internal.operator.rex.ExprCallStatic
+import org.partiql.eval.internal.operator.rex.ExprCase
+import org.partiql.eval.internal.operator.rex.ExprCoalesce
+import org.partiql.eval.internal.operator.rex.ExprCollection
+import org.partiql.eval.internal.operator.rex.ExprErr
+import org.partiql.eval.internal.operator.rex.ExprGlobal
+import org.partiql.eval.internal.operator.rex.ExprLiteral
+import org.partiql.eval.internal.operator.rex.ExprNullif
+import org.partiql.eval.internal.operator.rex.ExprPathIndex
+import org.partiql.eval.internal.operator.rex.ExprPathKey
+import org.partiql.eval.internal.operator.rex.ExprPathSymbol
+import org.partiql.eval.internal.operator.rex.ExprPivot
+import org.partiql.eval.internal.operator.rex.ExprSelect
+import org.partiql.eval.internal.operator.rex.ExprStruct
+import org.partiql.eval.internal.operator.rex.ExprSubquery
+import org.partiql.eval.internal.operator.rex.ExprTupleUnion
+import org.partiql.eval.internal.operator.rex.ExprVar
+import org.partiql.plan.PlanNode
+import org.partiql.plan.Rel
+import org.partiql.plan.Rex
+import org.partiql.plan.Statement
+import org.partiql.plan.visitor.PlanBaseVisitor
+import org.partiql.types.CollectionType
+import org.partiql.types.ListType
+import org.partiql.types.SexpType
+import org.partiql.types.StaticType
+import org.partiql.value.PartiQLValueExperimental
+import org.partiql.value.PartiQLValueType
+
+/**
+ * Compiles the nodes of a plan to [Operator]s, where the context is the type of the expression being compiled.
+ *
+ * Each call is bound to the implementation of the function its signature was resolved to by the planner, and each
+ * variable to the index of its binding, thus the operators do not look anything up while evaluating.
+ */
+@OptIn(PartiQLValueExperimental::class)
+internal class Compiler(private val symbols: Symbols) : PlanBaseVisitor<Operator, StaticType?>() {
+
+    fun compile(statement: Statement.Query): Operator.Expr = compile(statement.root)
+
+    override fun defaultReturn(node: PlanNode, ctx: StaticType?): Operator =
+        throw UnsupportedOperationException("${node::class.simpleName} is not supported by the evaluator")
+
+    // EXPRESSIONS
+
+    override fun visitRex(node: Rex, ctx: StaticType?): Operator = visitRexOp(node.op, node.type)
+
+    override fun visitRexOpLit(node: Rex.Op.Lit, ctx: StaticType?) = ExprLiteral(node.value)
+
+    override fun visitRexOpVar(node: Rex.Op.Var, ctx: StaticType?) = ExprVar(node.ref)
+
+    override fun visitRexOpGlobal(node: Rex.Op.Global, ctx: StaticType?) = ExprGlobal(symbols.getGlobal(node.ref))
+
+    override fun visitRexOpPathIndex(node: Rex.Op.Path.Index, ctx: StaticType?) =
+        ExprPathIndex(compile(node.root), compile(node.key))
+
+    override fun visitRexOpPathKey(node: Rex.Op.Path.Key, ctx: StaticType?) =
+        ExprPathKey(compile(node.root), compile(node.key))
+
+    override fun visitRexOpPathSymbol(node: Rex.Op.Path.Symbol, ctx: StaticType?) =
+        ExprPathSymbol(compile(node.root), node.key)
+
+    override fun visitRexOpCallStatic(node: Rex.Op.Call.Static, ctx: StaticType?) =
+        ExprCallStatic(symbols.getFn(node.fn), compile(node.args))
+
+    override fun visitRexOpCallDynamic(node: Rex.Op.Call.Dynamic, ctx: StaticType?): Operator {
+        val candidates = node.candidates.map { candidate ->
+            ExprCallDynamic.Candidate(
+                fn = symbols.getCandidateFn(candidate.fn),
+                coercions = candidate.coercions.map { it?.let(symbols::getCandidateFn) }.toTypedArray()
+            )
+        }
+        return ExprCallDynamic(candidates.toTypedArray(), compile(node.args))
+    }
+
+    override fun visitRexOpCase(node: Rex.Op.Case, ctx: StaticType?): Operator {
+        val branches = node.branches.map { compile(it.condition) to compile(it.rex) }
+        return ExprCase(branches.toTypedArray(), compile(node.default))
+    }
+
+    override fun visitRexOpNullif(node: Rex.Op.Nullif, ctx: StaticType?) =
+        ExprNullif(compile(node.value), compile(node.nullifier))
+
+    override fun visitRexOpCoalesce(node: Rex.Op.Coalesce, ctx: StaticType?) = ExprCoalesce(compile(node.args))
+
+    override fun visitRexOpCollection(node: Rex.Op.Collection, ctx: StaticType?): Operator {
+        val type = when (ctx) {
+            is ListType -> PartiQLValueType.LIST
+            is SexpType -> PartiQLValueType.SEXP
+            else -> PartiQLValueType.BAG
+        }
+        return ExprCollection(compile(node.values), type)
+    }
+
+    override fun visitRexOpStruct(node: Rex.Op.Struct, ctx: StaticType?): Operator {
+        val fields = node.fields.map { compile(it.k) to compile(it.v) }
+        return ExprStruct(fields.toTypedArray())
+    }
+
+    override fun visitRexOpPivot(node: Rex.Op.Pivot, ctx: StaticType?) =
+        ExprPivot(compile(node.rel), compile(node.key), compile(node.value))
+
+    override fun visitRexOpSubquery(node: Rex.Op.Subquery, ctx: StaticType?) =
+        ExprSubquery(visitRexOpSelect(node.select, ctx), node.coercion)
+
+    override fun visitRexOpSelect(node: Rex.Op.Select, ctx: StaticType?) = ExprSelect(
+        rel = compile(node.rel),
+        constructor = compile(node.constructor),
+        ordered = node.rel.type.props.contains(Rel.Prop.ORDERED),
+    )
+
+    override fun visitRexOpTupleUnion(node: Rex.Op.TupleUnion, ctx: StaticType?) = ExprTupleUnion(compile(node.args))
+
+    override fun visitRexOpErr(node: Rex.Op.Err, ctx: StaticType?) = ExprErr(node.message)
+
+    // RELATION OPERATORS
+
+    override fun visitRel(node: Rel, ctx: StaticType?): Operator = visitRelOp(node.op, ctx)
+
+    override fun visitRelOpScan(node: Rel.Op.Scan, ctx: StaticType?): Operator {
+        val rex = node.rex
+        val op = rex.op
+        // stream the records of a catalog collection rather than materializing them
+        if (op is Rex.Op.Global && rex.type is CollectionType) {
+            return RelScanGlobal(symbols.getGlobal(op.ref))
+        }
+        return RelScan(compile(rex))
+    }
+
+    override fun visitRelOpScanIndexed(node: Rel.Op.ScanIndexed, ctx: StaticType?) = RelScanIndexed(compile(node.rex))
+
+    override fun visitRelOpUnpivot(node: Rel.Op.Unpivot, ctx: StaticType?) = RelUnpivot(compile(node.rex))
+
+    override fun visitRelOpDistinct(node: Rel.Op.Distinct, ctx: StaticType?) = RelDistinct(compile(node.input))
+
+    override fun visitRelOpFilter(node: Rel.Op.Filter, ctx: StaticType?) =
+        RelFilter(compile(node.input), compile(node.predicate))
+
+    override fun visitRelOpSort(node: Rel.Op.Sort, ctx: StaticType?): Operator {
+        val specs = node.specs.map {
+            val comparator = when (it.order) {
+                Rel.Op.Sort.Order.ASC_NULLS_FIRST -> PartiQLValueComparator(nullsFirst = true)
+                Rel.Op.Sort.Order.ASC_NULLS_LAST -> PartiQLValueComparator(nullsFirst = false)
+                Rel.Op.Sort.Order.DESC_NULLS_FIRST -> PartiQLValueComparator(nullsFirst = false).reversed()
+                Rel.Op.Sort.Order.DESC_NULLS_LAST -> PartiQLValueComparator(nullsFirst = true).reversed()
+            }
+            compile(it.rex) to comparator
+        }
+        return RelSort(compile(node.input), specs.toTypedArray())
+    }
+
+    override fun visitRelOpLimit(node: Rel.Op.Limit, ctx: StaticType?) =
+        RelLimit(compile(node.input), compile(node.limit))
+
+    override fun visitRelOpOffset(node: Rel.Op.Offset, ctx: StaticType?) =
+        RelOffset(compile(node.input), compile(node.offset))
+
+    override fun visitRelOpProject(node: Rel.Op.Project, ctx: StaticType?) =
+        RelProject(compile(node.input), compile(node.projections))
+
+    override fun visitRelOpJoin(node: Rel.Op.Join, ctx: StaticType?) = RelJoin(
+        lhs = compile(node.lhs),
+        rhs = compile(node.rhs),
+        condition = compile(node.rex),
+        type = node.type,
+        lhsSize = node.lhs.type.schema.size,
+        rhsSize = node.rhs.type.schema.size,
+    )
+
+    override fun visitRelOpAggregate(node: Rel.Op.Aggregate, ctx: StaticType?): Operator {
+        if (node.strategy != Rel.Op.Aggregate.Strategy.FULL) {
+            val strategy = node.strategy
+            throw UnsupportedOperationException("Aggregation strategy $strategy is not supported by the evaluator")
+        }
+        val calls = node.calls.map { RelAggregate.Call(symbols.getAgg(it.agg), compile(it.args)) }
+        return RelAggregate(compile(node.input), calls.toTypedArray(), compile(node.groups))
+    }
+
+    override fun visitRelOpExclude(node: Rel.Op.Exclude, ctx: StaticType?) = RelExclude(compile(node.input), node.items)
+
+    override fun visitRelOpErr(node: Rel.Op.Err, ctx: StaticType?): Operator = throw IllegalStateException(node.message)
+
+    // HELPERS
+
+    private fun compile(rex: Rex): Operator.Expr = visitRex(rex, null) as Operator.Expr
+
+    private fun compile(rexs: List<Rex>): Array<Operator.Expr> = Array(rexs.size) { compile(rexs[it]) }
+
+    private fun compile(rel: Rel): Operator.Relation = visitRel(rel, null) as Operator.Relation
+}
@@ -0,0 +1,62 @@
+package org.partiql.eval.internal
+
+import org.partiql.spi.connector.ConnectorObjectHandle
+import org.partiql.spi.connector.ConnectorRecordCursor
+import org.partiql.spi.connector.ConnectorRecordSource
+import org.partiql.spi.connector.ConnectorSession
+import org.partiql.spi.connector.ConnectorSplit
+import org.partiql.types.BagType
+import org.partiql.types.ListType
+import org.partiql.types.SexpType
+import org.partiql.types.StaticType
+import org.partiql.value.PartiQLValue
+import org.partiql.value.PartiQLValueExperimental
+import org.partiql.value.bagValue
+import org.partiql.value.listValue
+import org.partiql.value.missingValue
+import org.partiql.value.sexpValue
+
+/**
+ * A catalog object referenced by a plan, whose records are read through the [ConnectorRecordSource] of its catalog.
+ *
+ * @property type   The type of the object, as typed by the planner.
+ */
+@OptIn(PartiQLValueExperimental::class)
+internal class Global(
+    private val session: ConnectorSession,
+    private val source: ConnectorRecordSource,
+    private val handle: ConnectorObjectHandle,
+    private val type: StaticType,
+) {
+
+    /**
+     * The splits of the records of the object, which are read lazily.
+     */
+    fun splits(): List<Split> = source.getSplits(session, handle).map { Split(it) }
+
+    /**
+     * The value of the object: the collection of its records if it is typed as a collection, and its single record
+     * otherwise.
+     */
+    fun value(): PartiQLValue {
+        val records = ArrayList<PartiQLValue>()
+        for (split in splits()) {
+            split.records().use { cursor -> cursor.forEach { records.add(it) } }
+        }
+        return when (type) {
+            is BagType -> bagValue(records)
+            is ListType -> listValue(records)
+            is SexpType -> sexpValue(records)
+            else -> when (records.size) {
+                0 -> missingValue()
+                1 -> records[0]
+                else -> bagValue(records)
+            }
+        }
+    }
+
+    inner class Split(private val split: ConnectorSplit) {
+
+        fun records(): ConnectorRecordCursor = source.getRecords(session, split)
+    }
+}
@@ -0,0 +1,178 @@
+package org.partiql.eval.internal
+
+import org.partiql.value.BagValue
+import org.partiql.value.BlobValue
+import org.partiql.value.BoolValue
+import org.partiql.value.ClobValue
+import org.partiql.value.CollectionValue
+import org.partiql.value.DateValue
+import org.partiql.value.Float32Value
+import org.partiql.value.Float64Value
+import org.partiql.value.MissingValue
+import org.partiql.value.NumericValue
+import org.partiql.value.PartiQLValue
+import org.partiql.value.PartiQLValueExperimental
+import org.partiql.value.PartiQLValueType
+import org.partiql.value.StructValue
+import org.partiql.value.TextValue
+import org.partiql.value.TimeValue
+import org.partiql.value.TimestampValue
+import java.math.BigDecimal
+import java.math.BigInteger
+
+/**
+ * Orders any two values as `ORDER BY` does, that is by the following classes of values, then by value within each
+ * class: unknowns (`NULL` and `MISSING`, first or last depending on [nullsFirst]), booleans, numbers, dates, times,
+ * timestamps, text, LOBs, lists, s-expressions, structs and bags.
+ *
+ * Numbers are compared by their numerical value whatever their type, and the elements of lists, structs and bags are
+ * compared recursively, where the unknowns are always ordered first.
+ */
+@OptIn(PartiQLValueExperimental::class)
+internal class PartiQLValueComparator(private val nullsFirst: Boolean) : Comparator<PartiQLValue> {
+
+    override fun compare(l: PartiQLValue, r: PartiQLValue): Int {
+        val lUnknown = l.isUnknown()
+        val rUnknown = r.isUnknown()
+        return when {
+            lUnknown && rUnknown -> 0
+            lUnknown -> if (nullsFirst) -1 else 1
+            rUnknown -> if (nullsFirst) 1 else -1
+            else -> compareKnown(l, r)
+        }
+    }
+
+    private fun compareKnown(l: PartiQLValue, r: PartiQLValue): Int {
+        val cmp = rank(l).compareTo(rank(r))
+        if (cmp != 0) {
+            return cmp
+        }
+        return when (l) {
+            is BoolValue -> l.value!!.compareTo((r as BoolValue).value!!)
+            is NumericValue<*> -> compareNumbers(l, r as NumericValue<*>)
+            is DateValue -> l.value!!.compareTo((r as DateValue).value!!)
+            is TimeValue -> l.value!!.compareTo((r as TimeValue).value!!)
+            is TimestampValue -> l.value!!.compareTo((r as TimestampValue).value!!)
+            is ClobValue, is BlobValue -> compareBytes(l.bytes(), r.bytes())
+            is TextValue<*> -> l.string!!.compareTo((r as TextValue<*>).string!!)
+            is BagValue<*> -> compareIterators(
+                l.sortedWith(NESTED).iterator(),
+                (r as BagValue<*>).sortedWith(NESTED).iterator()
+            )
+            is CollectionValue<*> -> compareIterators(l.iterator(), (r as CollectionValue<*>).iterator())
+            is StructValue<*> -> compareStructs(l, r as StructValue<*>)
+            else -> 0
+        }
+    }
+
+    private fun rank(v: PartiQLValue): Int = when (v.type) {
+        PartiQLValueType.BOOL -> 0
+        PartiQLValueType.INT8,
+        PartiQLValueType.INT16,
+        PartiQLValueType.INT32,
+        PartiQLValueType.INT64,
+        PartiQLValueType.INT,
+        PartiQLValueType.DECIMAL,
+        PartiQLValueType.DECIMAL_ARBITRARY,
+        PartiQLValueType.FLOAT32,
+        PartiQLValueType.FLOAT64 -> 1
+        PartiQLValueType.DATE -> 2
+        PartiQLValueType.TIME -> 3
+        PartiQLValueType.TIMESTAMP -> 4
+        PartiQLValueType.CHAR,
+        PartiQLValueType.STRING,
+        PartiQLValueType.SYMBOL -> 5
+        PartiQLValueType.CLOB,
+        PartiQLValueType.BLOB -> 6
+        PartiQLValueType.LIST -> 7
+        PartiQLValueType.SEXP -> 8
+        PartiQLValueType.STRUCT -> 9
+        PartiQLValueType.BAG -> 10
+        else -> 11
+    }
+
+    private fun compareNumbers(l: NumericValue<*>, r: NumericValue<*>): Int {
+        val lFloat = l is Float32Value || l is Float64Value
+        val rFloat = r is Float32Value || r is Float64Value
+        if (lFloat || rFloat) {
+            val lDouble = l.double!!
+            val rDouble = r.double!!
+            // NaN and the infinities have no decimal representation
+            if (!lDouble.isFinite() || !rDouble.isFinite()) {
+                return lDouble.compareTo(rDouble)
+            }
+        }
+        return l.decimal().compareTo(r.decimal())
+    }
+
+    private fun NumericValue<*>.decimal(): BigDecimal = when (val v = value!!) {
+        is BigDecimal -> v
+        is BigInteger -> BigDecimal(v)
+        is Float -> BigDecimal(v.toDouble())
+        is Double -> BigDecimal(v)
+        else -> BigDecimal.valueOf(v.toLong())
+    }
+
+    private fun PartiQLValue.bytes(): ByteArray = when (this) {
+        is ClobValue -> value!!
+        is BlobValue -> value!!
+        else -> error("Expected a LOB, found $type")
+    }
+
+    private fun compareBytes(l: ByteArray, r: ByteArray): Int {
+        for (i in 0 until minOf(l.size, r.size)) {
+            val cmp = (l[i].toInt() and 0xFF).compareTo(r[i].toInt() and 0xFF)
+            if (cmp != 0) {
+                return cmp
+            }
+        }
+        return l.size.compareTo(r.size)
+    }
+
+    private fun compareIterators(l: Iterator<PartiQLValue>, r: Iterator<PartiQLValue>): Int {
+        while (l.hasNext() && r.hasNext()) {
+            val cmp = NESTED.compare(l.next(), r.next())
+            if (cmp != 0) {
+                return cmp
+            }
+        }
+        return l.hasNext().compareTo(r.hasNext())
+    }
+
+    private fun compareStructs(l: StructValue<*>, r: StructValue<*>): Int {
+        val lFields = l.entries.sortedWith(FIELDS).iterator()
+        val rFields = r.entries.sortedWith(FIELDS).iterator()
+        while (lFields.hasNext() && rFields.hasNext()) {
+            val cmp = FIELDS.compare(lFields.next(), rFields.next())
+            if (cmp != 0) {
+                return cmp
+            }
+        }
+        return lFields.hasNext().compareTo(rFields.hasNext())
+    }
+
+    companion object {
+
+        /**
+         * Orders the values of collections and structs.
+         */
+        @JvmStatic
+        val NESTED = PartiQLValueComparator(nullsFirst = true)
+
+        private val FIELDS = compareBy<Pair<String, PartiQLValue>> { it.first }.thenComparator { l, r ->
+            NESTED.compare(l.second, r.second)
+        }
+    }
+}
+
+/**
+ * Returns true if this value is `NULL`, of any type, or `MISSING`.
+ */
+@OptIn(PartiQLValueExperimental::class)
+internal fun PartiQLValue.isUnknown(): Boolean = isNull || this is MissingValue
+
+/**
+ * Returns true if this value is the boolean `TRUE`, which is how predicates treat their condition.
+ */
+@OptIn(PartiQLValueExperimental::class)
+internal fun PartiQLValue.isTrue(): Boolean = this is BoolValue && value == true
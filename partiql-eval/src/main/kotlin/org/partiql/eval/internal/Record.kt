@@ -0,0 +1,54 @@
+package org.partiql.eval.internal
+
+import org.partiql.value.PartiQLValue
+import org.partiql.value.PartiQLValueExperimental
+import org.partiql.value.nullValue
+
+/**
+ * A row of a relation, whose values are the bindings of the schema of the relation in order. The variables of the
+ * plan reference these bindings by their index.
+ *
+ * @property values
+ */
+@OptIn(PartiQLValueExperimental::class)
+internal class Record(@JvmField val values: Array<PartiQLValue>) {
+
+    operator fun get(index: Int): PartiQLValue = values[index]
+
+    /**
+     * The record of the bindings of this record followed by those of [rhs], as joined by
+     * [org.partiql.plan.Rel.Op.Join].
+     */
+    fun concat(rhs: Record): Record = Record(arrayOf(*values, *rhs.values))
+
+    companion object {
+
+        /**
+         * The record of the environment of the root expression, which has no bindings.
+         */
+        @JvmField
+        val EMPTY = Record(emptyArray())
+
+        /**
+         * A record of [size] NULL values, which pads the side of an outer join without a match.
+         */
+        @JvmStatic
+        fun nulls(size: Int): Record = Record(Array(size) { nullValue() })
+
+        /**
+         * Orders records by their values, compared as the elements of lists. Records which compare equal have the
+         * same values as far as `DISTINCT` and `GROUP BY` are concerned: numbers are equal whatever their type, and
+         * `NULL` and `MISSING` are equal.
+         */
+        @JvmField
+        val COMPARATOR: Comparator<Record> = Comparator { l, r ->
+            for (i in 0 until minOf(l.values.size, r.values.size)) {
+                val cmp = PartiQLValueComparator.NESTED.compare(l.values[i], r.values[i])
+                if (cmp != 0) {
+                    return@Comparator cmp
+                }
+            }
+            l.values.size.compareTo(r.values.size)
+        }
+    }
+}
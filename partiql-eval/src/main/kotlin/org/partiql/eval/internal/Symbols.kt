@@ -0,0 +1,85 @@
+package org.partiql.eval.internal
+
+import org.partiql.eval.PartiQLEngine
+import org.partiql.eval.internal.builtins.Builtins
+import org.partiql.eval.internal.operator.rex.FnInvocation
+import org.partiql.plan.Agg
+import org.partiql.plan.Catalog
+import org.partiql.plan.Fn
+import org.partiql.plan.PartiQLPlan
+import org.partiql.spi.BindingCase
+import org.partiql.spi.BindingName
+import org.partiql.spi.BindingPath
+import org.partiql.spi.connector.ConnectorSession
+import org.partiql.spi.function.PartiQLFunction
+import org.partiql.spi.function.PartiQLFunctionExperimental
+import org.partiql.types.function.FunctionSignature
+import org.partiql.value.PartiQLValue
+import org.partiql.value.PartiQLValueExperimental
+
+/**
+ * Binds the functions and the catalog objects referenced by a [plan] to their implementations, once while compiling.
+ *
+ * The functions of the [session] take precedence over the [Builtins], and are matched by the specific name of their
+ * signature, which the planner resolved each call to.
+ */
+@OptIn(PartiQLFunctionExperimental::class)
+internal class Symbols(
+    private val plan: PartiQLPlan,
+    private val session: PartiQLEngine.Session,
+) {
+
+    private val connectorSession = object : ConnectorSession {
+        override fun getQueryId(): String = session.queryId
+        override fun getUserId(): String = session.userId
+    }
+
+    private val functions: Map<String, PartiQLFunction> = session.functions.associateBy { it.signature.specific }
+
+    private val globals = HashMap<Pair<Int, Int>, Global>()
+
+    fun getFn(fn: Fn): FnInvocation {
+        val signature = fn.signature
+        val function = scalar(signature)
+            ?: throw UnsupportedOperationException("No implementation of function ${signature.specific}")
+        return FnInvocation(function)
+    }
+
+    /**
+     * Binds a candidate of a dynamic call as [getFn], except that a function without implementation only fails when
+     * invoked, since the types of the arguments may never select it.
+     */
+    fun getCandidateFn(fn: Fn): FnInvocation = FnInvocation(scalar(fn.signature) ?: unimplemented(fn.signature))
+
+    fun getAgg(agg: Agg): PartiQLFunction.Aggregation {
+        val signature = agg.signature
+        return functions[signature.specific] as? PartiQLFunction.Aggregation
+            ?: Builtins.aggregation(signature)
+            ?: throw UnsupportedOperationException("No implementation of aggregation ${signature.specific}")
+    }
+
+    fun getGlobal(ref: Catalog.Symbol.Ref): Global = globals.getOrPut(ref.catalog to ref.symbol) {
+        val catalog = plan.catalogs[ref.catalog]
+        val symbol = catalog.symbols[ref.symbol]
+        val connector = session.catalogs[catalog.name]
+            ?: throw IllegalStateException("Catalog `${catalog.name}` is not registered in the session")
+        val path = BindingPath(symbol.path.map { BindingName(it, BindingCase.SENSITIVE) })
+        val handle = connector.getMetadata(connectorSession).getObjectHandle(connectorSession, path)
+            ?: throw IllegalStateException("Object ${symbol.path} does not exist in catalog `${catalog.name}`")
+        val source = connector.getRecordSource(connectorSession)
+            ?: throw UnsupportedOperationException("Catalog `${catalog.name}` does not provide records")
+        Global(connectorSession, source, handle, symbol.type)
+    }
+
+    private fun scalar(signature: FunctionSignature.Scalar): PartiQLFunction.Scalar? =
+        functions[signature.specific] as? PartiQLFunction.Scalar ?: Builtins.scalar(signature)
+
+    @OptIn(PartiQLValueExperimental::class)
+    private fun unimplemented(signature: FunctionSignature.Scalar) = object : PartiQLFunction.Scalar {
+
+        override val signature: FunctionSignature.Scalar = signature
+
+        override fun invoke(args: Array<PartiQLValue>): PartiQLValue =
+            throw UnsupportedOperationException("No implementation of function ${signature.specific}")
+    }
+}
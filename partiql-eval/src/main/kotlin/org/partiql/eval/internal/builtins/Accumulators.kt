@@ -0,0 +1,146 @@
+package org.partiql.eval.internal.builtins
+
+import org.partiql.eval.internal.builtins.Arithmetic.decimal
+import org.partiql.eval.internal.builtins.Arithmetic.double
+import org.partiql.spi.function.PartiQLFunction
+import org.partiql.spi.function.PartiQLFunctionExperimental
+import org.partiql.value.BoolValue
+import org.partiql.value.PartiQLValue
+import org.partiql.value.PartiQLValueExperimental
+import org.partiql.value.PartiQLValueType
+import org.partiql.value.boolValue
+import org.partiql.value.decimalValue
+import org.partiql.value.float32Value
+import org.partiql.value.float64Value
+import org.partiql.value.int64Value
+import org.partiql.value.intValue
+import org.partiql.value.missingValue
+import org.partiql.value.nullValue
+import java.math.BigDecimal
+import java.math.MathContext
+import java.math.RoundingMode
+
+/**
+ * An accumulator of the builtin aggregations, which are only given known arguments by
+ * [org.partiql.eval.internal.operator.rel.RelAggregate].
+ *
+ * Since the evaluator only reads the [value] of an accumulator once all the records are accumulated, [next] does not
+ * build the intermediate value, and returns `MISSING`.
+ */
+@OptIn(PartiQLFunctionExperimental::class, PartiQLValueExperimental::class)
+internal abstract class Accumulator : PartiQLFunction.Accumulator {
+
+    abstract fun accumulate(args: Array<PartiQLValue>)
+
+    override fun next(args: Array<PartiQLValue>): PartiQLValue {
+        accumulate(args)
+        return missingValue()
+    }
+}
+
+/**
+ * Counts the records, for both `COUNT(x)` and `COUNT(*)`.
+ */
+@OptIn(PartiQLValueExperimental::class)
+internal class AccumulatorCount : Accumulator() {
+
+    private var count = 0L
+
+    override fun accumulate(args: Array<PartiQLValue>) {
+        count++
+    }
+
+    override fun value(): PartiQLValue = int64Value(count)
+}
+
+/**
+ * `EVERY` if [every], otherwise `ANY` and `SOME`, which are `NULL` without input.
+ */
+@OptIn(PartiQLValueExperimental::class)
+internal class AccumulatorBool(private val every: Boolean) : Accumulator() {
+
+    private var result: Boolean? = null
+
+    override fun accumulate(args: Array<PartiQLValue>) {
+        val arg = (args[0] as BoolValue).value!!
+        result = if (every) (result ?: true) && arg else (result ?: false) || arg
+    }
+
+    override fun value(): PartiQLValue = boolValue(result)
+}
+
+/**
+ * `MIN` by the [comparator], which is reversed for `MAX`, and is `NULL` without input.
+ */
+@OptIn(PartiQLValueExperimental::class)
+internal class AccumulatorMin(private val comparator: Comparator<PartiQLValue>) : Accumulator() {
+
+    private var result: PartiQLValue? = null
+
+    override fun accumulate(args: Array<PartiQLValue>) {
+        val arg = args[0]
+        val current = result
+        if (current == null || comparator.compare(arg, current) < 0) {
+            result = arg
+        }
+    }
+
+    override fun value(): PartiQLValue = result ?: nullValue()
+}
+
+/**
+ * `SUM` of the numeric [type], which is computed as doubles for the float types and as a big decimal otherwise, so
+ * that an integer overflow is only raised if the sum does not fit its type. It is `NULL` without input.
+ */
+@OptIn(PartiQLValueExperimental::class)
+internal open class AccumulatorSum(protected val type: PartiQLValueType) : Accumulator() {
+
+    private val isFloat = type == PartiQLValueType.FLOAT32 || type == PartiQLValueType.FLOAT64
+
+    protected var count = 0L
+    protected var double = 0.0
+    protected var decimal: BigDecimal = BigDecimal.ZERO
+
+    override fun accumulate(args: Array<PartiQLValue>) {
+        if (isFloat) {
+            double += args[0].double()
+        } else {
+            decimal = decimal.add(args[0].decimal())
+        }
+        count++
+    }
+
+    override fun value(): PartiQLValue = when (count) {
+        0L -> nullValue()
+        else -> if (isFloat) float(double) else number(decimal)
+    }
+
+    protected fun float(value: Double): PartiQLValue = when (type) {
+        PartiQLValueType.FLOAT32 -> float32Value(value.toFloat())
+        else -> float64Value(value)
+    }
+
+    /**
+     * Returns the value of the exact numeric [type] of [value], which is truncated toward zero for the integer types.
+     */
+    protected fun number(value: BigDecimal): PartiQLValue = when (type) {
+        PartiQLValueType.DECIMAL, PartiQLValueType.DECIMAL_ARBITRARY -> decimalValue(value)
+        PartiQLValueType.INT -> intValue(value.setScale(0, RoundingMode.DOWN).toBigInteger())
+        else -> Arithmetic.integer(type, value.setScale(0, RoundingMode.DOWN).longValueExact())
+    }
+}
+
+/**
+ * `AVG` of the numeric [type], that is its [AccumulatorSum] divided by the number of records.
+ */
+@OptIn(PartiQLValueExperimental::class)
+internal class AccumulatorAvg(type: PartiQLValueType) : AccumulatorSum(type) {
+
+    override fun value(): PartiQLValue = when (count) {
+        0L -> nullValue()
+        else -> when (type) {
+            PartiQLValueType.FLOAT32, PartiQLValueType.FLOAT64 -> float(double / count)
+            else -> number(decimal.divide(BigDecimal.valueOf(count), MathContext.DECIMAL128))
+        }
+    }
+}
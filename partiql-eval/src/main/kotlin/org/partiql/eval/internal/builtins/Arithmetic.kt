@@ -0,0 +1,180 @@
+package org.partiql.eval.internal.builtins
+
+import org.partiql.eval.internal.PartiQLValueComparator
+import org.partiql.value.DecimalValue
+import org.partiql.value.IntValue
+import org.partiql.value.NumericValue
+import org.partiql.value.PartiQLValue
+import org.partiql.value.PartiQLValueExperimental
+import org.partiql.value.PartiQLValueType
+import org.partiql.value.TextValue
+import org.partiql.value.decimalValue
+import org.partiql.value.float32Value
+import org.partiql.value.float64Value
+import org.partiql.value.int16Value
+import org.partiql.value.int32Value
+import org.partiql.value.int64Value
+import org.partiql.value.int8Value
+import org.partiql.value.intValue
+import java.math.BigDecimal
+import java.math.BigInteger
+import java.math.MathContext
+
+/**
+ * The arithmetic operators and the orderings of each numeric type, where the operands of the integer types up to
+ * `INT64` are computed as longs, of `INT` as big integers, of the decimal types as big decimals, and of the float
+ * types as doubles. The result of an integer operator which does not fit its type is an [ArithmeticException].
+ */
+@OptIn(PartiQLValueExperimental::class)
+internal object Arithmetic {
+
+    val NUMERIC = setOf(
+        PartiQLValueType.INT8,
+        PartiQLValueType.INT16,
+        PartiQLValueType.INT32,
+        PartiQLValueType.INT64,
+        PartiQLValueType.INT,
+        PartiQLValueType.DECIMAL,
+        PartiQLValueType.DECIMAL_ARBITRARY,
+        PartiQLValueType.FLOAT32,
+        PartiQLValueType.FLOAT64,
+    )
+
+    /**
+     * Orders two values of [type], that is without comparing their classes as [PartiQLValueComparator] does.
+     */
+    fun ordering(type: PartiQLValueType): Comparator<PartiQLValue> = when (type) {
+        PartiQLValueType.INT8,
+        PartiQLValueType.INT16,
+        PartiQLValueType.INT32,
+        PartiQLValueType.INT64 -> Comparator { l, r -> l.long().compareTo(r.long()) }
+        PartiQLValueType.INT -> Comparator { l, r -> l.bigInteger().compareTo(r.bigInteger()) }
+        PartiQLValueType.DECIMAL,
+        PartiQLValueType.DECIMAL_ARBITRARY -> Comparator { l, r -> l.decimal().compareTo(r.decimal()) }
+        PartiQLValueType.FLOAT32,
+        PartiQLValueType.FLOAT64 -> Comparator { l, r ->
+            val lDouble = l.double()
+            val rDouble = r.double()
+            // -0.0 equals 0.0, while NaN is greater than any other float as in PartiQLValueComparator
+            if (lDouble == rDouble) 0 else lDouble.compareTo(rDouble)
+        }
+        PartiQLValueType.CHAR,
+        PartiQLValueType.STRING,
+        PartiQLValueType.SYMBOL -> Comparator { l, r ->
+            (l as TextValue<*>).string!!.compareTo((r as TextValue<*>).string!!)
+        }
+        else -> PartiQLValueComparator.NESTED
+    }
+
+    fun pos(type: PartiQLValueType): ((Array<PartiQLValue>) -> PartiQLValue)? = when (type) {
+        in NUMERIC -> { args -> args[0] }
+        else -> null
+    }
+
+    fun neg(type: PartiQLValueType): ((Array<PartiQLValue>) -> PartiQLValue)? = when (type) {
+        PartiQLValueType.INT8,
+        PartiQLValueType.INT16,
+        PartiQLValueType.INT32 -> { args -> integer(type, -args[0].long()) }
+        PartiQLValueType.INT64 -> { args -> int64Value(Math.negateExact(args[0].long())) }
+        PartiQLValueType.INT -> { args -> intValue(args[0].bigInteger().negate()) }
+        PartiQLValueType.DECIMAL,
+        PartiQLValueType.DECIMAL_ARBITRARY -> { args -> decimalValue(args[0].decimal().negate()) }
+        PartiQLValueType.FLOAT32 -> { args -> float32Value(-args[0].double().toFloat()) }
+        PartiQLValueType.FLOAT64 -> { args -> float64Value(-args[0].double()) }
+        else -> null
+    }
+
+    /**
+     * Returns the binary operator [name] over two operands of [type], or null if it is not defined for [type].
+     */
+    fun binary(name: String, type: PartiQLValueType): ((Array<PartiQLValue>) -> PartiQLValue)? {
+        val op = OPERATORS[name] ?: return null
+        return when (type) {
+            PartiQLValueType.INT8,
+            PartiQLValueType.INT16,
+            PartiQLValueType.INT32 -> { args -> integer(type, op.long(args[0].long(), args[1].long())) }
+            PartiQLValueType.INT64 -> { args -> int64Value(op.long(args[0].long(), args[1].long())) }
+            PartiQLValueType.INT -> { args -> intValue(op.bigInteger(args[0].bigInteger(), args[1].bigInteger())) }
+            PartiQLValueType.DECIMAL,
+            PartiQLValueType.DECIMAL_ARBITRARY -> op.decimal?.let { f ->
+                { args: Array<PartiQLValue> -> decimalValue(f(args[0].decimal(), args[1].decimal())) }
+            }
+            PartiQLValueType.FLOAT32 -> op.double?.let { f ->
+                { args: Array<PartiQLValue> -> float32Value(f(args[0].double(), args[1].double()).toFloat()) }
+            }
+            PartiQLValueType.FLOAT64 -> op.double?.let { f ->
+                { args: Array<PartiQLValue> -> float64Value(f(args[0].double(), args[1].double())) }
+            }
+            else -> null
+        }
+    }
+
+    /**
+     * Returns the value of the integer [type] up to `INT64` holding [value].
+     */
+    fun integer(type: PartiQLValueType, value: Long): PartiQLValue = when (type) {
+        PartiQLValueType.INT8 -> int8Value(checkRange(value, Byte.MIN_VALUE.toLong(), Byte.MAX_VALUE.toLong()).toByte())
+        PartiQLValueType.INT16 -> int16Value(
+            checkRange(value, Short.MIN_VALUE.toLong(), Short.MAX_VALUE.toLong()).toShort()
+        )
+        PartiQLValueType.INT32 -> int32Value(Math.toIntExact(value))
+        PartiQLValueType.INT64 -> int64Value(value)
+        else -> error("Expected an integer type, found $type")
+    }
+
+    private fun checkRange(value: Long, min: Long, max: Long): Long {
+        if (value < min || value > max) {
+            throw ArithmeticException("integer overflow")
+        }
+        return value
+    }
+
+    /**
+     * Divides as [Long.div], except that `Long.MIN_VALUE / -1` overflows rather than being `Long.MIN_VALUE`.
+     */
+    private fun divideExact(l: Long, r: Long): Long {
+        if (l == Long.MIN_VALUE && r == -1L) {
+            throw ArithmeticException("long overflow")
+        }
+        return l / r
+    }
+
+    fun PartiQLValue.long(): Long = (this as NumericValue<*>).long!!
+
+    fun PartiQLValue.double(): Double = (this as NumericValue<*>).double!!
+
+    fun PartiQLValue.bigInteger(): BigInteger = when (this) {
+        is IntValue -> value!!
+        else -> BigInteger.valueOf(long())
+    }
+
+    fun PartiQLValue.decimal(): BigDecimal = when (this) {
+        is DecimalValue -> value!!
+        is IntValue -> BigDecimal(value!!)
+        else -> BigDecimal.valueOf(long())
+    }
+
+    /**
+     * An operator over each representation of the numeric types, where null means the operator is not defined.
+     */
+    private class Operation(
+        val long: (Long, Long) -> Long,
+        val bigInteger: (BigInteger, BigInteger) -> BigInteger,
+        val decimal: ((BigDecimal, BigDecimal) -> BigDecimal)?,
+        val double: ((Double, Double) -> Double)?,
+    )
+
+    private val OPERATORS = mapOf(
+        "plus" to Operation(Math::addExact, BigInteger::add, BigDecimal::add, Double::plus),
+        "minus" to Operation(Math::subtractExact, BigInteger::subtract, BigDecimal::subtract, Double::minus),
+        "times" to Operation(Math::multiplyExact, BigInteger::multiply, BigDecimal::multiply, Double::times),
+        "divide" to Operation(
+            long = ::divideExact,
+            bigInteger = BigInteger::divide,
+            decimal = { l, r -> l.divide(r, MathContext.DECIMAL128) },
+            double = Double::div,
+        ),
+        "modulo" to Operation(Long::rem, BigInteger::rem, BigDecimal::rem, Double::rem),
+        "bitwise_and" to Operation(Long::and, BigInteger::and, null, null),
+    )
+}
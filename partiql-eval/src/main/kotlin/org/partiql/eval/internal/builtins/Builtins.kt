@@ -0,0 +1,180 @@
+package org.partiql.eval.internal.builtins
+
+import org.partiql.eval.internal.PartiQLValueComparator
+import org.partiql.eval.internal.isTrue
+import org.partiql.eval.internal.isUnknown
+import org.partiql.spi.function.PartiQLFunction
+import org.partiql.spi.function.PartiQLFunctionExperimental
+import org.partiql.types.function.FunctionSignature
+import org.partiql.value.BoolValue
+import org.partiql.value.CollectionValue
+import org.partiql.value.MissingValue
+import org.partiql.value.PartiQLValue
+import org.partiql.value.PartiQLValueExperimental
+import org.partiql.value.PartiQLValueType
+import org.partiql.value.TextValue
+import org.partiql.value.boolValue
+import org.partiql.value.nullValue
+import org.partiql.value.stringValue
+import org.partiql.value.symbolValue
+
+/**
+ * The implementations of the builtin functions of the planner's header, which are selected by the types of the
+ * parameters of a resolved signature so that each implementation only handles the types of its signature.
+ *
+ * The arguments are never unknown, unless the function does not return `NULL` on `NULL` input or `MISSING` on `MISSING`
+ * input (e.g. `and` and `is_null`), since calls are guarded by [org.partiql.eval.internal.operator.rex.FnInvocation].
+ */
+@OptIn(PartiQLFunctionExperimental::class, PartiQLValueExperimental::class)
+internal object Builtins {
+
+    /**
+     * Returns the implementation of the scalar function [signature], or null if it has no builtin implementation.
+     */
+    fun scalar(signature: FunctionSignature.Scalar): PartiQLFunction.Scalar? {
+        val types = signature.parameters.map { it.type }
+        val impl: ((Array<PartiQLValue>) -> PartiQLValue)? = when (val name = signature.name) {
+            "not" -> not()
+            "and" -> and()
+            "or" -> or()
+            "is_null" -> { args -> boolValue(args[0].isUnknown()) }
+            "is_missing" -> { args -> boolValue(args[0] is MissingValue) }
+            "eq" -> { args -> boolValue(PartiQLValueComparator.NESTED.compare(args[0], args[1]) == 0) }
+            "lt" -> compare(types[0]) { it < 0 }
+            "lte" -> compare(types[0]) { it <= 0 }
+            "gt" -> compare(types[0]) { it > 0 }
+            "gte" -> compare(types[0]) { it >= 0 }
+            "between" -> between(types[0])
+            "in_collection" -> inCollection()
+            "pos" -> Arithmetic.pos(types[0])
+            "neg" -> Arithmetic.neg(types[0])
+            "plus", "minus", "times", "divide", "modulo", "bitwise_and" -> Arithmetic.binary(name, types[0])
+            "concat" -> text(types[0]) { args -> args.string(0) + args.string(1) }
+            "upper" -> text(types[0]) { args -> args.string(0).uppercase() }
+            "lower" -> text(types[0]) { args -> args.string(0).lowercase() }
+            else -> when {
+                name.startsWith("cast_") && types.size == 1 -> Casts.cast(types[0], signature.returns)
+                name.startsWith("is_") && types.size == 1 -> isType(name.removePrefix("is_"))
+                else -> null
+            }
+        }
+        return impl?.let { Scalar(signature, it) }
+    }
+
+    /**
+     * Returns the implementation of the aggregation [signature], or null if it has no builtin implementation.
+     */
+    fun aggregation(signature: FunctionSignature.Aggregation): PartiQLFunction.Aggregation? {
+        val type = signature.parameters.firstOrNull()?.type
+        val accumulator: (() -> PartiQLFunction.Accumulator)? = when (signature.name) {
+            "count", "count_star" -> ::AccumulatorCount
+            "every" -> { -> AccumulatorBool(every = true) }
+            "any", "some" -> { -> AccumulatorBool(every = false) }
+            "min" -> { -> AccumulatorMin(PartiQLValueComparator.NESTED) }
+            "max" -> { -> AccumulatorMin(PartiQLValueComparator.NESTED.reversed()) }
+            "sum" -> type?.takeIf { it in Arithmetic.NUMERIC }?.let { t -> { AccumulatorSum(t) } }
+            "avg" -> type?.takeIf { it in Arithmetic.NUMERIC }?.let { t -> { AccumulatorAvg(t) } }
+            else -> null
+        }
+        return accumulator?.let { Aggregation(signature, it) }
+    }
+
+    private class Scalar(
+        override val signature: FunctionSignature.Scalar,
+        private val impl: (Array<PartiQLValue>) -> PartiQLValue,
+    ) : PartiQLFunction.Scalar {
+
+        override fun invoke(args: Array<PartiQLValue>): PartiQLValue = impl(args)
+    }
+
+    private class Aggregation(
+        override val signature: FunctionSignature.Aggregation,
+        private val accumulator: () -> PartiQLFunction.Accumulator,
+    ) : PartiQLFunction.Aggregation {
+
+        override fun accumulator(): PartiQLFunction.Accumulator = accumulator.invoke()
+    }
+
+    // LOGICAL OPERATORS, where MISSING is treated as NULL
+
+    private fun not(): (Array<PartiQLValue>) -> PartiQLValue = { args ->
+        val arg = args[0]
+        if (arg is BoolValue && arg.value != null) boolValue(!arg.value!!) else nullValue()
+    }
+
+    private fun and(): (Array<PartiQLValue>) -> PartiQLValue = { args ->
+        val l = args[0]
+        val r = args[1]
+        when {
+            l.isFalse() || r.isFalse() -> boolValue(false)
+            l.isTrue() && r.isTrue() -> boolValue(true)
+            else -> nullValue()
+        }
+    }
+
+    private fun or(): (Array<PartiQLValue>) -> PartiQLValue = { args ->
+        val l = args[0]
+        val r = args[1]
+        when {
+            l.isTrue() || r.isTrue() -> boolValue(true)
+            l.isFalse() && r.isFalse() -> boolValue(false)
+            else -> nullValue()
+        }
+    }
+
+    private fun PartiQLValue.isFalse(): Boolean = this is BoolValue && value == false
+
+    // COMPARISONS
+
+    private fun compare(type: PartiQLValueType, predicate: (Int) -> Boolean): (Array<PartiQLValue>) -> PartiQLValue {
+        val ordering = Arithmetic.ordering(type)
+        return { args -> boolValue(predicate(ordering.compare(args[0], args[1]))) }
+    }
+
+    private fun between(type: PartiQLValueType): (Array<PartiQLValue>) -> PartiQLValue {
+        val ordering = Arithmetic.ordering(type)
+        return { args -> boolValue(ordering.compare(args[1], args[0]) <= 0 && ordering.compare(args[0], args[2]) <= 0) }
+    }
+
+    /**
+     * Returns TRUE if the collection contains the value, otherwise NULL if it contains an unknown, otherwise FALSE.
+     */
+    private fun inCollection(): (Array<PartiQLValue>) -> PartiQLValue = { args ->
+        val value = args[0]
+        var unknown = false
+        var found = false
+        for (element in args[1] as CollectionValue<*>) {
+            if (element.isUnknown()) {
+                unknown = true
+            } else if (PartiQLValueComparator.NESTED.compare(value, element) == 0) {
+                found = true
+                break
+            }
+        }
+        when {
+            found -> boolValue(true)
+            unknown -> nullValue()
+            else -> boolValue(false)
+        }
+    }
+
+    // TEXT
+
+    private fun text(
+        type: PartiQLValueType,
+        op: (Array<PartiQLValue>) -> String,
+    ): ((Array<PartiQLValue>) -> PartiQLValue)? = when (type) {
+        PartiQLValueType.STRING -> { args -> stringValue(op(args)) }
+        PartiQLValueType.SYMBOL -> { args -> symbolValue(op(args)) }
+        else -> null
+    }
+
+    private fun Array<PartiQLValue>.string(i: Int): String = (this[i] as TextValue<*>).string!!
+
+    // TYPE PREDICATES
+
+    private fun isType(name: String): ((Array<PartiQLValue>) -> PartiQLValue)? {
+        val type = PartiQLValueType.values().find { it.name.lowercase() == name } ?: return null
+        return { args -> boolValue(!args[0].isUnknown() && args[0].type == type) }
+    }
+}
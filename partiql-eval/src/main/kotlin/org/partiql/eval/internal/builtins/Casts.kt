@@ -0,0 +1,131 @@
+package org.partiql.eval.internal.builtins
+
+import org.partiql.eval.internal.builtins.Arithmetic.bigInteger
+import org.partiql.eval.internal.builtins.Arithmetic.decimal
+import org.partiql.eval.internal.builtins.Arithmetic.double
+import org.partiql.eval.internal.builtins.Arithmetic.long
+import org.partiql.value.BoolValue
+import org.partiql.value.NumericValue
+import org.partiql.value.PartiQLValue
+import org.partiql.value.PartiQLValueExperimental
+import org.partiql.value.PartiQLValueType
+import org.partiql.value.TextValue
+import org.partiql.value.boolValue
+import org.partiql.value.decimalValue
+import org.partiql.value.float32Value
+import org.partiql.value.float64Value
+import org.partiql.value.intValue
+import org.partiql.value.stringValue
+import org.partiql.value.symbolValue
+import java.math.BigDecimal
+import java.math.BigInteger
+import java.math.RoundingMode
+
+/**
+ * The casts between the boolean, numeric and text types, where each cast reads its operand as the representation of
+ * the target type once. Numbers are truncated toward zero when cast to an integer type, and a value which cannot be
+ * represented by the target type raises an [ArithmeticException], a [NumberFormatException] or an
+ * [IllegalArgumentException].
+ */
+@OptIn(PartiQLValueExperimental::class)
+internal object Casts {
+
+    private val TEXT = setOf(PartiQLValueType.CHAR, PartiQLValueType.STRING, PartiQLValueType.SYMBOL)
+
+    private val LONGS = setOf(
+        PartiQLValueType.INT8,
+        PartiQLValueType.INT16,
+        PartiQLValueType.INT32,
+        PartiQLValueType.INT64,
+    )
+
+    private val FLOATS = setOf(PartiQLValueType.FLOAT32, PartiQLValueType.FLOAT64)
+
+    /**
+     * Returns the cast of an [operand] to a [target], or null if it has no builtin implementation.
+     */
+    fun cast(operand: PartiQLValueType, target: PartiQLValueType): ((Array<PartiQLValue>) -> PartiQLValue)? {
+        if (operand == target) {
+            return { args -> args[0] }
+        }
+        val cast: ((PartiQLValue) -> PartiQLValue)? = when (target) {
+            PartiQLValueType.BOOL -> toBool(operand).then { boolValue(it) }
+            in LONGS -> when (operand) {
+                in LONGS -> { v -> Arithmetic.integer(target, v.long()) }
+                else -> toBigInteger(operand).then { Arithmetic.integer(target, it.longValueExact()) }
+            }
+            PartiQLValueType.INT -> toBigInteger(operand).then { intValue(it) }
+            PartiQLValueType.DECIMAL,
+            PartiQLValueType.DECIMAL_ARBITRARY -> toDecimal(operand).then { decimalValue(it) }
+            PartiQLValueType.FLOAT32 -> toDouble(operand).then { float32Value(it.toFloat()) }
+            PartiQLValueType.FLOAT64 -> toDouble(operand).then { float64Value(it) }
+            PartiQLValueType.STRING -> toText(operand).then { stringValue(it) }
+            PartiQLValueType.SYMBOL -> toText(operand).then { symbolValue(it) }
+            else -> null
+        }
+        if (cast == null) {
+            return null
+        }
+        return { args -> cast(args[0]) }
+    }
+
+    /**
+     * Returns the cast which reads its operand as this function does, then builds the value of the target type.
+     */
+    private fun <T> ((PartiQLValue) -> T)?.then(value: (T) -> PartiQLValue): ((PartiQLValue) -> PartiQLValue)? {
+        val read = this ?: return null
+        return { v -> value(read(v)) }
+    }
+
+    private fun toBigInteger(operand: PartiQLValueType): ((PartiQLValue) -> BigInteger)? {
+        if (operand in LONGS || operand == PartiQLValueType.INT) {
+            return { v -> v.bigInteger() }
+        }
+        val decimal = toDecimal(operand) ?: return null
+        return { v -> decimal(v).setScale(0, RoundingMode.DOWN).toBigIntegerExact() }
+    }
+
+    private fun toDecimal(operand: PartiQLValueType): ((PartiQLValue) -> BigDecimal)? = when (operand) {
+        PartiQLValueType.BOOL -> { v -> if ((v as BoolValue).value!!) BigDecimal.ONE else BigDecimal.ZERO }
+        in FLOATS -> { v -> BigDecimal(v.number().toString()) }
+        in Arithmetic.NUMERIC -> { v -> v.decimal() }
+        in TEXT -> { v -> BigDecimal(v.text().trim()) }
+        else -> null
+    }
+
+    private fun toDouble(operand: PartiQLValueType): ((PartiQLValue) -> Double)? = when (operand) {
+        PartiQLValueType.BOOL -> { v -> if ((v as BoolValue).value!!) 1.0 else 0.0 }
+        in Arithmetic.NUMERIC -> { v -> v.double() }
+        in TEXT -> { v -> v.text().trim().toDouble() }
+        else -> null
+    }
+
+    private fun toText(operand: PartiQLValueType): ((PartiQLValue) -> String)? = when (operand) {
+        PartiQLValueType.BOOL -> { v -> (v as BoolValue).value!!.toString() }
+        in FLOATS -> { v -> v.number().toString() }
+        in Arithmetic.NUMERIC -> { v -> v.decimal().toPlainString() }
+        in TEXT -> { v -> v.text() }
+        else -> null
+    }
+
+    private fun toBool(operand: PartiQLValueType): ((PartiQLValue) -> Boolean)? = when (operand) {
+        in FLOATS -> { v -> v.double() != 0.0 }
+        in Arithmetic.NUMERIC -> { v -> v.decimal().signum() != 0 }
+        in TEXT -> { v ->
+            when (v.text().trim().lowercase()) {
+                "true" -> true
+                "false" -> false
+                else -> throw IllegalArgumentException("Cannot cast '${v.text()}' to BOOL")
+            }
+        }
+        else -> null
+    }
+
+    /**
+     * Returns the number of a float, whose string is its shortest decimal representation, except for NaN and the
+     * infinities which have none, thus raise a [NumberFormatException] when read as a decimal.
+     */
+    private fun PartiQLValue.number(): Number = (this as NumericValue<*>).value!!
+
+    private fun PartiQLValue.text(): String = (this as TextValue<*>).string!!
+}
@@ -0,0 +1,45 @@
+package org.partiql.eval.internal.operator
+
+import org.partiql.eval.internal.Record
+import org.partiql.value.PartiQLValue
+import org.partiql.value.PartiQLValueExperimental
+
+/**
+ * The executable operators compiled from the nodes of a [org.partiql.plan.PartiQLPlan].
+ */
+internal sealed interface Operator {
+
+    /**
+     * An operator compiled from a [org.partiql.plan.Rex], which evaluates to a value.
+     */
+    interface Expr : Operator {
+
+        /**
+         * Evaluates this expression, whose variables reference the bindings of [record].
+         */
+        @OptIn(PartiQLValueExperimental::class)
+        fun eval(record: Record): PartiQLValue
+    }
+
+    /**
+     * An operator compiled from a [org.partiql.plan.Rel], which produces records one at a time.
+     */
+    interface Relation : Operator, AutoCloseable {
+
+        /**
+         * Prepares this relation for producing its records, where [env] is the record of the expression which
+         * contains the relation, i.e. the record referenced by the variables of the scanned expressions.
+         */
+        fun open(env: Record)
+
+        /**
+         * Returns the next record of this relation, or null when the relation is exhausted.
+         */
+        fun next(): Record?
+
+        /**
+         * Releases the resources of this relation; it may be opened again afterwards.
+         */
+        override fun close()
+    }
+}
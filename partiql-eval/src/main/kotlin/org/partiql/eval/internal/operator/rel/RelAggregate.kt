@@ -0,0 +1,67 @@
+package org.partiql.eval.internal.operator.rel
+
+import org.partiql.eval.internal.Record
+import org.partiql.eval.internal.isUnknown
+import org.partiql.eval.internal.operator.Operator
+import org.partiql.spi.function.PartiQLFunction
+import org.partiql.spi.function.PartiQLFunctionExperimental
+import org.partiql.value.PartiQLValue
+import org.partiql.value.PartiQLValueExperimental
+import java.util.TreeMap
+
+/**
+ * Groups the records of the [input] by the values of the [groups], and produces a record per group of the values of
+ * the [calls] followed by the values of the [groups]. Without groups, a single record is produced even if the input
+ * is empty.
+ *
+ * As in SQL, the records for which an argument of a call is `NULL` or `MISSING` are not accumulated by the call.
+ */
+@OptIn(PartiQLValueExperimental::class, PartiQLFunctionExperimental::class)
+internal class RelAggregate(
+    private val input: Operator.Relation,
+    private val calls: Array<Call>,
+    private val groups: Array<Operator.Expr>,
+) : Operator.Relation {
+
+    private var records: Iterator<Record> = emptyList<Record>().iterator()
+
+    /**
+     * An aggregation and its arguments.
+     */
+    class Call(val agg: PartiQLFunction.Aggregation, val args: Array<Operator.Expr>)
+
+    override fun open(env: Record) {
+        val accumulators = TreeMap<Record, Array<PartiQLFunction.Accumulator>>(Record.COMPARATOR)
+        input.open(env)
+        input.use {
+            while (true) {
+                val record = it.next() ?: break
+                val key = Record(Array(groups.size) { i -> groups[i].eval(record) })
+                val group = accumulators.getOrPut(key) { accumulators() }
+                for (i in calls.indices) {
+                    val args = Array(calls[i].args.size) { j -> calls[i].args[j].eval(record) }
+                    if (args.none { arg -> arg.isUnknown() }) {
+                        group[i].next(args)
+                    }
+                }
+            }
+        }
+        if (groups.isEmpty() && accumulators.isEmpty()) {
+            accumulators[Record.EMPTY] = accumulators()
+        }
+        records = accumulators.entries.map { (key, group) ->
+            Record(Array<PartiQLValue>(group.size) { group[it].value() }).concat(key)
+        }.iterator()
+    }
+
+    private fun accumulators() = Array(calls.size) { calls[it].agg.accumulator() }
+
+    override fun next(): Record? = when {
+        records.hasNext() -> records.next()
+        else -> null
+    }
+
+    override fun close() {
+        records = emptyList<Record>().iterator()
+    }
+}
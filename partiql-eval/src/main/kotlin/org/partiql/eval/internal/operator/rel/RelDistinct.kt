@@ -0,0 +1,31 @@
+package org.partiql.eval.internal.operator.rel
+
+import org.partiql.eval.internal.Record
+import org.partiql.eval.internal.operator.Operator
+import java.util.TreeSet
+
+/**
+ * Produces the first of the records of the [input] with the same values, see [Record.COMPARATOR].
+ */
+internal class RelDistinct(private val input: Operator.Relation) : Operator.Relation {
+
+    private val seen = TreeSet(Record.COMPARATOR)
+
+    override fun open(env: Record) {
+        input.open(env)
+    }
+
+    override fun next(): Record? {
+        while (true) {
+            val record = input.next() ?: return null
+            if (seen.add(record)) {
+                return record
+            }
+        }
+    }
+
+    override fun close() {
+        seen.clear()
+        input.close()
+    }
+}
@@ -0,0 +1,96 @@
+package org.partiql.eval.internal.operator.rel
+
+import org.partiql.eval.internal.Record
+import org.partiql.eval.internal.operator.Operator
+import org.partiql.plan.Identifier
+import org.partiql.plan.Rel
+import org.partiql.value.BagValue
+import org.partiql.value.ListValue
+import org.partiql.value.PartiQLValue
+import org.partiql.value.PartiQLValueExperimental
+import org.partiql.value.SexpValue
+import org.partiql.value.StructValue
+import org.partiql.value.bagValue
+import org.partiql.value.listValue
+import org.partiql.value.sexpValue
+import org.partiql.value.structValue
+
+/**
+ * Removes the struct fields and collection elements designated by the [items] from the bindings of each record of the
+ * [input], e.g. for `SELECT t.* EXCLUDE t.a[*].b FROM t`. Steps which do not match a value leave it unchanged.
+ */
+@OptIn(PartiQLValueExperimental::class)
+internal class RelExclude(
+    private val input: Operator.Relation,
+    private val items: List<Rel.Op.Exclude.Item>,
+) : Operator.Relation {
+
+    override fun open(env: Record) {
+        input.open(env)
+    }
+
+    override fun next(): Record? {
+        val record = input.next() ?: return null
+        val values = record.values.copyOf()
+        for (item in items) {
+            val ref = item.root.ref
+            values[ref] = exclude(values[ref], item.steps)
+        }
+        return Record(values)
+    }
+
+    override fun close() {
+        input.close()
+    }
+
+    private fun exclude(value: PartiQLValue, steps: List<Rel.Op.Exclude.Step>): PartiQLValue {
+        if (steps.isEmpty() || value.isNull) {
+            return value
+        }
+        val step = steps.first()
+        val rest = steps.subList(1, steps.size)
+        return when (value) {
+            is StructValue<*> -> {
+                val fields = value.entries.mapNotNull { (name, v) ->
+                    when {
+                        !step.matches(name) -> name to v
+                        rest.isEmpty() -> null
+                        else -> name to exclude(v, rest)
+                    }
+                }
+                structValue(fields, value.annotations)
+            }
+            is ListValue<*> -> listValue(exclude(value, step, rest, ordered = true), value.annotations)
+            is SexpValue<*> -> sexpValue(exclude(value, step, rest, ordered = true), value.annotations)
+            is BagValue<*> -> bagValue(exclude(value, step, rest, ordered = false), value.annotations)
+            else -> value
+        }
+    }
+
+    private fun exclude(
+        elements: Iterable<PartiQLValue>,
+        step: Rel.Op.Exclude.Step,
+        rest: List<Rel.Op.Exclude.Step>,
+        ordered: Boolean,
+    ): List<PartiQLValue> = elements.mapIndexedNotNull { i, v ->
+        val matches = when (step) {
+            is Rel.Op.Exclude.Step.CollWildcard -> true
+            is Rel.Op.Exclude.Step.CollIndex -> ordered && step.index == i
+            else -> false
+        }
+        when {
+            !matches -> v
+            rest.isEmpty() -> null
+            else -> exclude(v, rest)
+        }
+    }
+
+    private fun Rel.Op.Exclude.Step.matches(name: String): Boolean = when (this) {
+        is Rel.Op.Exclude.Step.StructWildcard -> true
+        is Rel.Op.Exclude.Step.StructField -> when (symbol.caseSensitivity) {
+            Identifier.CaseSensitivity.SENSITIVE -> symbol.symbol == name
+            Identifier.CaseSensitivity.INSENSITIVE -> symbol.symbol.equals(name, ignoreCase = true)
+        }
+        else -> false
+    }
+}
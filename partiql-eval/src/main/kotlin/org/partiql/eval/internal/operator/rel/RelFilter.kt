@@ -0,0 +1,31 @@
+package org.partiql.eval.internal.operator.rel
+
+import org.partiql.eval.internal.Record
+import org.partiql.eval.internal.isTrue
+import org.partiql.eval.internal.operator.Operator
+
+/**
+ * Produces the records of the [input] for which the [predicate] is `TRUE`.
+ */
+internal class RelFilter(
+    private val input: Operator.Relation,
+    private val predicate: Operator.Expr,
+) : Operator.Relation {
+
+    override fun open(env: Record) {
+        input.open(env)
+    }
+
+    override fun next(): Record? {
+        while (true) {
+            val record = input.next() ?: return null
+            if (predicate.eval(record).isTrue()) {
+                return record
+            }
+        }
+    }
+
+    override fun close() {
+        input.close()
+    }
+}
@@ -0,0 +1,101 @@
+package org.partiql.eval.internal.operator.rel
+
+import org.partiql.eval.internal.Record
+import org.partiql.eval.internal.isTrue
+import org.partiql.eval.internal.operator.Operator
+import org.partiql.plan.Rel
+
+/**
+ * A nested loop join of the records of the [lhs] with those of the [rhs], on the [condition] which is evaluated on
+ * their concatenation.
+ *
+ * The records of the [rhs] are read once per opening, since the planner types the [rhs] in the environment of the
+ * join rather than in that of each record of the [lhs]. The outer joins pad the side without a match with `NULL`s,
+ * as many as the bindings of its schema.
+ */
+internal class RelJoin(
+    private val lhs: Operator.Relation,
+    private val rhs: Operator.Relation,
+    private val condition: Operator.Expr,
+    private val type: Rel.Op.Join.Type,
+    private val lhsSize: Int,
+    private val rhsSize: Int,
+) : Operator.Relation {
+
+    private var rhsRecords: List<Record> = emptyList()
+
+    /** Whether each record of the [rhs] matched, for the right and full joins. */
+    private var rhsMatched = BooleanArray(0)
+
+    private var lhsRecord: Record? = null
+    private var lhsMatched = false
+    private var rhsIndex = 0
+
+    /** The index of the next unmatched record of the [rhs] to produce, once the [lhs] is exhausted. */
+    private var unmatchedIndex = -1
+
+    override fun open(env: Record) {
+        val records = ArrayList<Record>()
+        rhs.open(env)
+        rhs.use {
+            while (true) {
+                records.add(it.next() ?: break)
+            }
+        }
+        rhsRecords = records
+        rhsMatched = BooleanArray(records.size)
+        lhsRecord = null
+        unmatchedIndex = -1
+        lhs.open(env)
+    }
+
+    override fun next(): Record? {
+        if (unmatchedIndex >= 0) {
+            return nextUnmatched()
+        }
+        while (true) {
+            val l = lhsRecord ?: lhs.next()?.also {
+                lhsRecord = it
+                lhsMatched = false
+                rhsIndex = 0
+            }
+            if (l == null) {
+                return when (type) {
+                    Rel.Op.Join.Type.RIGHT, Rel.Op.Join.Type.FULL -> {
+                        unmatchedIndex = 0
+                        nextUnmatched()
+                    }
+                    else -> null
+                }
+            }
+            while (rhsIndex < rhsRecords.size) {
+                val i = rhsIndex++
+                val record = l.concat(rhsRecords[i])
+                if (condition.eval(record).isTrue()) {
+                    lhsMatched = true
+                    rhsMatched[i] = true
+                    return record
+                }
+            }
+            lhsRecord = null
+            if (!lhsMatched && (type == Rel.Op.Join.Type.LEFT || type == Rel.Op.Join.Type.FULL)) {
+                return l.concat(Record.nulls(rhsSize))
+            }
+        }
+    }
+
+    private fun nextUnmatched(): Record? {
+        while (unmatchedIndex < rhsRecords.size) {
+            val i = unmatchedIndex++
+            if (!rhsMatched[i]) {
+                return Record.nulls(lhsSize).concat(rhsRecords[i])
+            }
+        }
+        return null
+    }
+
+    override fun close() {
+        lhs.close()
+        rhsRecords = emptyList()
+    }
+}
@@ -0,0 +1,76 @@
+package org.partiql.eval.internal.operator.rel
+
+import org.partiql.eval.internal.Record
+import org.partiql.eval.internal.operator.Operator
+import org.partiql.value.NumericValue
+import org.partiql.value.PartiQLValue
+import org.partiql.value.PartiQLValueExperimental
+
+/**
+ * Produces the first records of the [input], as many as the [limit], which is evaluated in the environment of the
+ * relation as the planner typed it.
+ */
+internal class RelLimit(
+    private val input: Operator.Relation,
+    private val limit: Operator.Expr,
+) : Operator.Relation {
+
+    private var remaining = 0L
+
+    override fun open(env: Record) {
+        remaining = limit.eval(env).count("LIMIT")
+        input.open(env)
+    }
+
+    override fun next(): Record? {
+        if (remaining <= 0) {
+            return null
+        }
+        remaining--
+        return input.next()
+    }
+
+    override fun close() {
+        input.close()
+    }
+}
+
+/**
+ * Skips the first records of the [input], as many as the [offset].
+ */
+internal class RelOffset(
+    private val input: Operator.Relation,
+    private val offset: Operator.Expr,
+) : Operator.Relation {
+
+    private var skip = 0L
+
+    override fun open(env: Record) {
+        skip = offset.eval(env).count("OFFSET")
+        input.open(env)
+    }
+
+    override fun next(): Record? {
+        while (skip > 0) {
+            skip--
+            input.next() ?: return null
+        }
+        return input.next()
+    }
+
+    override fun close() {
+        input.close()
+    }
+}
+
+/**
+ * The number of records of a `LIMIT` or an `OFFSET` [clause], which must be a non-negative integer.
+ */
+@OptIn(PartiQLValueExperimental::class)
+private fun PartiQLValue.count(clause: String): Long {
+    val count = (this as? NumericValue<*>)?.takeIf { !it.isNull }?.long
+    if (count == null || count < 0) {
+        throw IllegalArgumentException("$clause must be a non-negative integer, found $this")
+    }
+    return count
+}
@@ -0,0 +1,26 @@
+package org.partiql.eval.internal.operator.rel
+
+import org.partiql.eval.internal.Record
+import org.partiql.eval.internal.operator.Operator
+
+/**
+ * Produces the record of the [projections] of each record of the [input].
+ */
+internal class RelProject(
+    private val input: Operator.Relation,
+    private val projections: Array<Operator.Expr>,
+) : Operator.Relation {
+
+    override fun open(env: Record) {
+        input.open(env)
+    }
+
+    override fun next(): Record? {
+        val record = input.next() ?: return null
+        return Record(Array(projections.size) { projections[it].eval(record) })
+    }
+
+    override fun close() {
+        input.close()
+    }
+}
@@ -0,0 +1,131 @@
+package org.partiql.eval.internal.operator.rel
+
+import org.partiql.eval.internal.Global
+import org.partiql.eval.internal.Record
+import org.partiql.eval.internal.operator.Operator
+import org.partiql.spi.connector.ConnectorRecordCursor
+import org.partiql.value.CollectionValue
+import org.partiql.value.MissingValue
+import org.partiql.value.PartiQLValue
+import org.partiql.value.PartiQLValueExperimental
+import org.partiql.value.StructValue
+import org.partiql.value.int64Value
+import org.partiql.value.stringValue
+
+/**
+ * Scans the elements of the collection the [expr] evaluates to, where a value which is not a collection is scanned as
+ * a collection of one element.
+ */
+@OptIn(PartiQLValueExperimental::class)
+internal class RelScan(private val expr: Operator.Expr) : Operator.Relation {
+
+    private var elements: Iterator<PartiQLValue> = emptyList<PartiQLValue>().iterator()
+
+    override fun open(env: Record) {
+        elements = expr.eval(env).elements()
+    }
+
+    override fun next(): Record? = when {
+        elements.hasNext() -> Record(arrayOf(elements.next()))
+        else -> null
+    }
+
+    override fun close() {
+        elements = emptyList<PartiQLValue>().iterator()
+    }
+}
+
+/**
+ * Scans the elements of a collection, as [RelScan], along with their zero-based index.
+ */
+@OptIn(PartiQLValueExperimental::class)
+internal class RelScanIndexed(private val expr: Operator.Expr) : Operator.Relation {
+
+    private var elements: Iterator<PartiQLValue> = emptyList<PartiQLValue>().iterator()
+    private var index = 0L
+
+    override fun open(env: Record) {
+        elements = expr.eval(env).elements()
+        index = 0L
+    }
+
+    override fun next(): Record? = when {
+        elements.hasNext() -> Record(arrayOf(elements.next(), int64Value(index++)))
+        else -> null
+    }
+
+    override fun close() {
+        elements = emptyList<PartiQLValue>().iterator()
+    }
+}
+
+/**
+ * Scans the fields of the struct the [expr] evaluates to as records of their name and value. A value which is not a
+ * struct is scanned as a struct with the single field `_1`, and `MISSING` as an empty struct.
+ */
+@OptIn(PartiQLValueExperimental::class)
+internal class RelUnpivot(private val expr: Operator.Expr) : Operator.Relation {
+
+    private var fields: Iterator<Pair<String, PartiQLValue>> = emptyList<Pair<String, PartiQLValue>>().iterator()
+
+    override fun open(env: Record) {
+        fields = when (val value = expr.eval(env)) {
+            is MissingValue -> emptyList<Pair<String, PartiQLValue>>().iterator()
+            is StructValue<*> -> if (value.isNull) listOf("_1" to value).iterator() else value.entries.iterator()
+            else -> listOf("_1" to value).iterator()
+        }
+    }
+
+    override fun next(): Record? {
+        if (!fields.hasNext()) {
+            return null
+        }
+        val (name, value) = fields.next()
+        return Record(arrayOf(stringValue(name), value))
+    }
+
+    override fun close() {
+        fields = emptyList<Pair<String, PartiQLValue>>().iterator()
+    }
+}
+
+/**
+ * Scans the records of a catalog object split by split, without materializing them as [RelScan] would.
+ */
+@OptIn(PartiQLValueExperimental::class)
+internal class RelScanGlobal(private val global: Global) : Operator.Relation {
+
+    private var splits: Iterator<Global.Split> = emptyList<Global.Split>().iterator()
+    private var cursor: ConnectorRecordCursor? = null
+
+    override fun open(env: Record) {
+        splits = global.splits().iterator()
+    }
+
+    override fun next(): Record? {
+        while (true) {
+            val records = cursor
+            if (records != null && records.hasNext()) {
+                return Record(arrayOf(records.next()))
+            }
+            records?.close()
+            cursor = null
+            if (!splits.hasNext()) {
+                return null
+            }
+            cursor = splits.next().records()
+        }
+    }
+
+    override fun close() {
+        cursor?.close()
+        cursor = null
+        splits = emptyList<Global.Split>().iterator()
+    }
+}
+
+@OptIn(PartiQLValueExperimental::class)
+private fun PartiQLValue.elements(): Iterator<PartiQLValue> = when {
+    this is CollectionValue<*> && !isNull -> iterator()
+    else -> listOf(this).iterator()
+}
@@ -0,0 +1,51 @@
+package org.partiql.eval.internal.operator.rel
+
+import org.partiql.eval.internal.Record
+import org.partiql.eval.internal.operator.Operator
+import org.partiql.value.PartiQLValue
+import org.partiql.value.PartiQLValueExperimental
+
+/**
+ * Produces the records of the [input] ordered by the values of the [specs], each with its comparator. The records
+ * are sorted while opening the relation, and records with equal values keep their relative order.
+ */
+@OptIn(PartiQLValueExperimental::class)
+internal class RelSort(
+    private val input: Operator.Relation,
+    private val specs: Array<Pair<Operator.Expr, Comparator<PartiQLValue>>>,
+) : Operator.Relation {
+
+    private var records: Iterator<Record> = emptyList<Record>().iterator()
+
+    private val comparator = Comparator<Pair<Record, Array<PartiQLValue>>> { l, r ->
+        for (i in specs.indices) {
+            val cmp = specs[i].second.compare(l.second[i], r.second[i])
+            if (cmp != 0) {
+                return@Comparator cmp
+            }
+        }
+        0
+    }
+
+    override fun open(env: Record) {
+        val sorted = ArrayList<Pair<Record, Array<PartiQLValue>>>()
+        input.open(env)
+        input.use {
+            while (true) {
+                val record = it.next() ?: break
+                sorted.add(record to Array(specs.size) { i -> specs[i].first.eval(record) })
+            }
+        }
+        sorted.sortWith(comparator)
+        records = sorted.map { it.first }.iterator()
+    }
+
+    override fun next(): Record? = when {
+        records.hasNext() -> records.next()
+        else -> null
+    }
+
+    override fun close() {
+        records = emptyList<Record>().iterator()
+    }
+}
@@ -0,0 +1,126 @@
+package org.partiql.eval.internal.operator.rex
+
+import org.partiql.eval.internal.Record
+import org.partiql.eval.internal.operator.Operator
+import org.partiql.spi.function.PartiQLFunction
+import org.partiql.spi.function.PartiQLFunctionExperimental
+import org.partiql.types.function.FunctionSignature
+import org.partiql.value.MissingValue
+import org.partiql.value.PartiQLValue
+import org.partiql.value.PartiQLValueExperimental
+import org.partiql.value.PartiQLValueType
+import org.partiql.value.missingValue
+import org.partiql.value.nullValue
+
+/**
+ * The implementation of a function bound to the signature of a call, which handles the unknown arguments of the call
+ * as the planner typed it:
+ *
+ *  - an argument `MISSING` makes the call `MISSING` if the signature is [FunctionSignature.Scalar.isMissingCall], unless
+ *  the parameter is typed `ANY` or `MISSING`;
+ *  - otherwise, a `NULL` argument makes the call `NULL` if the function returns `NULL` on `NULL` input.
+ *
+ * Thus, the implementations of functions are only invoked with the values they declare.
+ */
+@OptIn(PartiQLValueExperimental::class, PartiQLFunctionExperimental::class)
+internal class FnInvocation(private val fn: PartiQLFunction.Scalar) {
+
+    val signature: FunctionSignature.Scalar = fn.signature
+
+    private val isNullCall = signature.isNullCall
+
+    private val propagatesMissing = BooleanArray(signature.parameters.size) {
+        val type = signature.parameters[it].type
+        val acceptsMissing = type == PartiQLValueType.ANY || type == PartiQLValueType.MISSING
+        signature.isMissingCall && !acceptsMissing
+    }
+
+    fun invoke(args: Array<PartiQLValue>): PartiQLValue {
+        var hasNull = false
+        for (i in args.indices) {
+            val arg = args[i]
+            if (arg.isNull) {
+                if (arg is MissingValue && propagatesMissing[i]) {
+                    return missingValue()
+                }
+                hasNull = true
+            }
+        }
+        if (hasNull && isNullCall) {
+            return nullValue()
+        }
+        return fn.invoke(args)
+    }
+}
+
+/**
+ * A call which the planner resolved to a single function, whose implementation is bound once while compiling.
+ */
+@OptIn(PartiQLValueExperimental::class)
+internal class ExprCallStatic(
+    private val fn: FnInvocation,
+    private val args: Array<Operator.Expr>,
+) : Operator.Expr {
+
+    override fun eval(record: Record): PartiQLValue {
+        val values = Array(args.size) { args[it].eval(record) }
+        return fn.invoke(values)
+    }
+}
+
+/**
+ * A call whose arguments may have several types, which the planner resolved to a function per combination of these
+ * types. The first candidate whose parameters match the types of the arguments is invoked, after coercing the
+ * arguments; if there is none, the call is `NULL` or `MISSING` if an argument is, and `MISSING` otherwise.
+ */
+@OptIn(PartiQLValueExperimental::class)
+internal class ExprCallDynamic(
+    private val candidates: Array<Candidate>,
+    private val args: Array<Operator.Expr>,
+) : Operator.Expr {
+
+    override fun eval(record: Record): PartiQLValue {
+        val values = Array(args.size) { args[it].eval(record) }
+        for (candidate in candidates) {
+            if (candidate.matches(values)) {
+                return candidate.invoke(values)
+            }
+        }
+        return when {
+            values.any { it is MissingValue } -> missingValue()
+            values.any { it.isNull } -> nullValue()
+            else -> missingValue()
+        }
+    }
+
+    /**
+     * A function and the coercions of its arguments, where a null coercion is the identity.
+     */
+    class Candidate(
+        private val fn: FnInvocation,
+        private val coercions: Array<FnInvocation?>,
+    ) {
+
+        /**
+         * The types of the arguments accepted by this candidate, before coercion.
+         */
+        private val types = Array(coercions.size) {
+            coercions[it]?.signature?.parameters?.get(0)?.type ?: fn.signature.parameters[it].type
+        }
+
+        fun matches(args: Array<PartiQLValue>): Boolean {
+            for (i in args.indices) {
+                val type = types[i]
+                if (type != PartiQLValueType.ANY && type != args[i].type) {
+                    return false
+                }
+            }
+            return true
+        }
+
+        fun invoke(args: Array<PartiQLValue>): PartiQLValue {
+            val coerced = Array(args.size) { coercions[it]?.invoke(arrayOf(args[it])) ?: args[it] }
+            return fn.invoke(coerced)
+        }
+    }
+}
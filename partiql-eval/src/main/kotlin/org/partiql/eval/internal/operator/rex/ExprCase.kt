@@ -0,0 +1,65 @@
+package org.partiql.eval.internal.operator.rex
+
+import org.partiql.eval.internal.PartiQLValueComparator
+import org.partiql.eval.internal.Record
+import org.partiql.eval.internal.isTrue
+import org.partiql.eval.internal.isUnknown
+import org.partiql.eval.internal.operator.Operator
+import org.partiql.value.PartiQLValue
+import org.partiql.value.PartiQLValueExperimental
+import org.partiql.value.nullValue
+
+/**
+ * Evaluates the expression of the first branch whose condition is `TRUE`, or the default expression.
+ */
+@OptIn(PartiQLValueExperimental::class)
+internal class ExprCase(
+    private val branches: Array<Pair<Operator.Expr, Operator.Expr>>,
+    private val default: Operator.Expr,
+) : Operator.Expr {
+
+    override fun eval(record: Record): PartiQLValue {
+        for ((condition, rex) in branches) {
+            if (condition.eval(record).isTrue()) {
+                return rex.eval(record)
+            }
+        }
+        return default.eval(record)
+    }
+}
+
+/**
+ * `NULLIF(value, nullifier)`, which is `NULL` if both values are known and equal, and the value otherwise.
+ */
+@OptIn(PartiQLValueExperimental::class)
+internal class ExprNullif(
+    private val value: Operator.Expr,
+    private val nullifier: Operator.Expr,
+) : Operator.Expr {
+
+    override fun eval(record: Record): PartiQLValue {
+        val v = value.eval(record)
+        val n = nullifier.eval(record)
+        if (!v.isUnknown() && !n.isUnknown() && PartiQLValueComparator.NESTED.compare(v, n) == 0) {
+            return nullValue()
+        }
+        return v
+    }
+}
+
+/**
+ * `COALESCE(args...)`, which is the first argument which is neither `NULL` nor `MISSING`, or `NULL`.
+ */
+@OptIn(PartiQLValueExperimental::class)
+internal class ExprCoalesce(private val args: Array<Operator.Expr>) : Operator.Expr {
+
+    override fun eval(record: Record): PartiQLValue {
+        for (arg in args) {
+            val v = arg.eval(record)
+            if (!v.isUnknown()) {
+                return v
+            }
+        }
+        return nullValue()
+    }
+}
@@ -0,0 +1,29 @@
+package org.partiql.eval.internal.operator.rex
+
+import org.partiql.eval.internal.Record
+import org.partiql.eval.internal.operator.Operator
+import org.partiql.value.PartiQLValue
+import org.partiql.value.PartiQLValueExperimental
+import org.partiql.value.PartiQLValueType
+import org.partiql.value.bagValue
+import org.partiql.value.listValue
+import org.partiql.value.sexpValue
+
+/**
+ * A collection constructor, e.g. `[a, b]`, whose [type] (`BAG`, `LIST` or `SEXP`) is the type inferred by the planner.
+ */
+@OptIn(PartiQLValueExperimental::class)
+internal class ExprCollection(
+    private val values: Array<Operator.Expr>,
+    private val type: PartiQLValueType,
+) : Operator.Expr {
+
+    override fun eval(record: Record): PartiQLValue {
+        val elements = values.map { it.eval(record) }
+        return when (type) {
+            PartiQLValueType.LIST -> listValue(elements)
+            PartiQLValueType.SEXP -> sexpValue(elements)
+            else -> bagValue(elements)
+        }
+    }
+}
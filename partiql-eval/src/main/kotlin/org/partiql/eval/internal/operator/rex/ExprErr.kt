@@ -0,0 +1,16 @@
+package org.partiql.eval.internal.operator.rex
+
+import org.partiql.eval.internal.Record
+import org.partiql.eval.internal.operator.Operator
+import org.partiql.value.PartiQLValue
+import org.partiql.value.PartiQLValueExperimental
+
+/**
+ * An expression which the planner could not type. The error is only raised if the expression is evaluated, since it
+ * may be in a branch which is never taken.
+ */
+@OptIn(PartiQLValueExperimental::class)
+internal class ExprErr(private val message: String) : Operator.Expr {
+
+    override fun eval(record: Record): PartiQLValue = throw IllegalStateException(message)
+}
@@ -0,0 +1,17 @@
+package org.partiql.eval.internal.operator.rex
+
+import org.partiql.eval.internal.Global
+import org.partiql.eval.internal.Record
+import org.partiql.eval.internal.operator.Operator
+import org.partiql.value.PartiQLValue
+import org.partiql.value.PartiQLValueExperimental
+
+/**
+ * Reads the value of a catalog object, see [org.partiql.eval.internal.operator.rel.RelScanGlobal] for scanning its
+ * records without materializing them.
+ */
+@OptIn(PartiQLValueExperimental::class)
+internal class ExprGlobal(private val global: Global) : Operator.Expr {
+
+    override fun eval(record: Record): PartiQLValue = global.value()
+}
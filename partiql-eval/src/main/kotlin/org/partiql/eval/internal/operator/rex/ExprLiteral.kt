@@ -0,0 +1,12 @@
+package org.partiql.eval.internal.operator.rex
+
+import org.partiql.eval.internal.Record
+import org.partiql.eval.internal.operator.Operator
+import org.partiql.value.PartiQLValue
+import org.partiql.value.PartiQLValueExperimental
+
+@OptIn(PartiQLValueExperimental::class)
+internal class ExprLiteral(private val value: PartiQLValue) : Operator.Expr {
+
+    override fun eval(record: Record): PartiQLValue = value
+}
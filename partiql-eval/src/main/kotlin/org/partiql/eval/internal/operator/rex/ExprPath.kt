@@ -0,0 +1,99 @@
+package org.partiql.eval.internal.operator.rex
+
+import org.partiql.eval.internal.Record
+import org.partiql.eval.internal.operator.Operator
+import org.partiql.value.Int16Value
+import org.partiql.value.Int32Value
+import org.partiql.value.Int64Value
+import org.partiql.value.Int8Value
+import org.partiql.value.IntValue
+import org.partiql.value.ListValue
+import org.partiql.value.PartiQLValue
+import org.partiql.value.PartiQLValueExperimental
+import org.partiql.value.SexpValue
+import org.partiql.value.StructValue
+import org.partiql.value.TextValue
+import org.partiql.value.missingValue
+
+/**
+ * Indexes a list or an s-expression, e.g. `x[0]`. Evaluates to `MISSING` if the root is not an ordered collection or
+ * if the key is not an integer within its bounds.
+ */
+@OptIn(PartiQLValueExperimental::class)
+internal class ExprPathIndex(
+    private val root: Operator.Expr,
+    private val key: Operator.Expr,
+) : Operator.Expr {
+
+    override fun eval(record: Record): PartiQLValue {
+        val collection = root.eval(record)
+        val index = key.eval(record).index() ?: return missingValue()
+        val elements = when {
+            collection.isNull -> return missingValue()
+            collection is ListValue<*> -> collection.iterator()
+            collection is SexpValue<*> -> collection.iterator()
+            else -> return missingValue()
+        }
+        var i = 0L
+        while (elements.hasNext()) {
+            val element = elements.next()
+            if (i++ == index) {
+                return element
+            }
+        }
+        return missingValue()
+    }
+
+    private fun PartiQLValue.index(): Long? = when {
+        isNull -> null
+        this is Int8Value -> long
+        this is Int16Value -> long
+        this is Int32Value -> long
+        this is Int64Value -> long
+        this is IntValue -> value!!.let { if (it.bitLength() < Long.SIZE_BITS) it.toLong() else null }
+        else -> null
+    }
+}
+
+/**
+ * Looks up a struct field by a case-sensitive name, e.g. `x['a']`. Evaluates to `MISSING` if the root is not a struct
+ * or if the key is not text.
+ */
+@OptIn(PartiQLValueExperimental::class)
+internal class ExprPathKey(
+    private val root: Operator.Expr,
+    private val key: Operator.Expr,
+) : Operator.Expr {
+
+    override fun eval(record: Record): PartiQLValue {
+        val struct = root.eval(record)
+        val name = key.eval(record)
+        if (struct !is StructValue<*> || struct.isNull || name !is TextValue<*> || name.isNull) {
+            return missingValue()
+        }
+        return struct[name.string!!] ?: missingValue()
+    }
+}
+
+/**
+ * Looks up a struct field by a case-insensitive name, e.g. `x.a`. Evaluates to `MISSING` if the root is not a struct.
+ */
+@OptIn(PartiQLValueExperimental::class)
+internal class ExprPathSymbol(
+    private val root: Operator.Expr,
+    private val key: String,
+) : Operator.Expr {
+
+    override fun eval(record: Record): PartiQLValue {
+        val struct = root.eval(record)
+        if (struct !is StructValue<*> || struct.isNull) {
+            return missingValue()
+        }
+        for ((name, value) in struct.entries) {
+            if (name.equals(key, ignoreCase = true)) {
+                return value
+            }
+        }
+        return missingValue()
+    }
+}
@@ -0,0 +1,97 @@
+package org.partiql.eval.internal.operator.rex
+
+import org.partiql.eval.internal.Record
+import org.partiql.eval.internal.operator.Operator
+import org.partiql.plan.Rex
+import org.partiql.value.CollectionValue
+import org.partiql.value.MissingValue
+import org.partiql.value.PartiQLValue
+import org.partiql.value.PartiQLValueExperimental
+import org.partiql.value.StructValue
+import org.partiql.value.TextValue
+import org.partiql.value.bagValue
+import org.partiql.value.listValue
+import org.partiql.value.missingValue
+import org.partiql.value.nullValue
+import org.partiql.value.structValue
+
+/**
+ * Collects the value of the [constructor] for each record of the [rel]ation, in a list if the relation is ordered
+ * and in a bag otherwise.
+ */
+@OptIn(PartiQLValueExperimental::class)
+internal class ExprSelect(
+    private val rel: Operator.Relation,
+    private val constructor: Operator.Expr,
+    private val ordered: Boolean,
+) : Operator.Expr {
+
+    override fun eval(record: Record): PartiQLValue {
+        val elements = ArrayList<PartiQLValue>()
+        rel.open(record)
+        rel.use {
+            while (true) {
+                val row = it.next() ?: break
+                elements.add(constructor.eval(row))
+            }
+        }
+        return if (ordered) listValue(elements) else bagValue(elements)
+    }
+}
+
+/**
+ * Collects the [key] and [value] of each record of the [rel]ation in a struct. Records whose key is not text, or
+ * whose value is `MISSING`, are skipped.
+ */
+@OptIn(PartiQLValueExperimental::class)
+internal class ExprPivot(
+    private val rel: Operator.Relation,
+    private val key: Operator.Expr,
+    private val value: Operator.Expr,
+) : Operator.Expr {
+
+    override fun eval(record: Record): PartiQLValue {
+        val entries = ArrayList<Pair<String, PartiQLValue>>()
+        rel.open(record)
+        rel.use {
+            while (true) {
+                val row = it.next() ?: break
+                val k = key.eval(row)
+                val v = value.eval(row)
+                if (k is TextValue<*> && !k.isNull && v !is MissingValue) {
+                    entries.add(k.string!! to v)
+                }
+            }
+        }
+        return structValue(entries)
+    }
+}
+
+/**
+ * Coerces the single row of a subquery to a scalar, i.e. the value of its single column, or to a row-value, i.e. the
+ * list of the values of its columns. A subquery without rows is `NULL`.
+ */
+@OptIn(PartiQLValueExperimental::class)
+internal class ExprSubquery(
+    private val select: ExprSelect,
+    private val coercion: Rex.Op.Subquery.Coercion,
+) : Operator.Expr {
+
+    override fun eval(record: Record): PartiQLValue {
+        val rows = (select.eval(record) as CollectionValue<*>).iterator()
+        if (!rows.hasNext()) {
+            return nullValue()
+        }
+        val row = rows.next()
+        if (rows.hasNext()) {
+            throw IllegalStateException("A ${coercion.name.lowercase()} subquery returned more than one row")
+        }
+        if (row !is StructValue<*> || row.isNull) {
+            return missingValue()
+        }
+        return when (coercion) {
+            Rex.Op.Subquery.Coercion.SCALAR -> row.values.firstOrNull() ?: nullValue()
+            Rex.Op.Subquery.Coercion.ROW -> listValue(row.values.toList())
+        }
+    }
+}
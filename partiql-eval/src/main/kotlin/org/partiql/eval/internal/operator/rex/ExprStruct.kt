@@ -0,0 +1,58 @@
+package org.partiql.eval.internal.operator.rex
+
+import org.partiql.eval.internal.Record
+import org.partiql.eval.internal.operator.Operator
+import org.partiql.value.MissingValue
+import org.partiql.value.PartiQLValue
+import org.partiql.value.PartiQLValueExperimental
+import org.partiql.value.StructValue
+import org.partiql.value.TextValue
+import org.partiql.value.missingValue
+import org.partiql.value.nullValue
+import org.partiql.value.structValue
+
+/**
+ * A struct constructor, e.g. `{ 'a': x }`. Fields whose value is `MISSING` are omitted, and the struct is `MISSING` if
+ * a key is not text.
+ */
+@OptIn(PartiQLValueExperimental::class)
+internal class ExprStruct(private val fields: Array<Pair<Operator.Expr, Operator.Expr>>) : Operator.Expr {
+
+    override fun eval(record: Record): PartiQLValue {
+        val entries = ArrayList<Pair<String, PartiQLValue>>(fields.size)
+        for ((k, v) in fields) {
+            val key = k.eval(record)
+            if (key !is TextValue<*> || key.isNull) {
+                return missingValue()
+            }
+            val value = v.eval(record)
+            if (value !is MissingValue) {
+                entries.add(key.string!! to value)
+            }
+        }
+        return structValue(entries)
+    }
+}
+
+/**
+ * Merges the fields of its arguments into one struct, e.g. for `SELECT x.*, y.* ...`. The union is `NULL` if an
+ * argument is `NULL`, and `MISSING` if an argument is not a struct.
+ */
+@OptIn(PartiQLValueExperimental::class)
+internal class ExprTupleUnion(private val args: Array<Operator.Expr>) : Operator.Expr {
+
+    override fun eval(record: Record): PartiQLValue {
+        val entries = ArrayList<Pair<String, PartiQLValue>>()
+        var hasNull = false
+        for (arg in args) {
+            val struct = arg.eval(record)
+            when {
+                struct is MissingValue -> return missingValue()
+                struct.isNull -> hasNull = true
+                struct !is StructValue<*> -> return missingValue()
+                else -> entries.addAll(struct.entries)
+            }
+        }
+        return if (hasNull) nullValue() else structValue(entries)
+    }
+}
@@ -0,0 +1,15 @@
+package org.partiql.eval.internal.operator.rex
+
+import org.partiql.eval.internal.Record
+import org.partiql.eval.internal.operator.Operator
+import org.partiql.value.PartiQLValue
+import org.partiql.value.PartiQLValueExperimental
+
+/**
+ * Reads the binding at index [ref] of the record, as resolved by the planner.
+ */
+@OptIn(PartiQLValueExperimental::class)
+internal class ExprVar(private val ref: Int) : Operator.Expr {
+
+    override fun eval(record: Record): PartiQLValue = record.values[ref]
+}
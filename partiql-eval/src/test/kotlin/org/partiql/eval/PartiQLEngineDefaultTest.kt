@@ -0,0 +1,294 @@
+package org.partiql.eval
+
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import org.partiql.eval.internal.operator.rex.FnInvocation
+import org.partiql.parser.PartiQLParser
+import org.partiql.planner.PartiQLPlanner
+import org.partiql.planner.PartiQLPlannerBuilder
+import org.partiql.plan.PartiQLPlan
+import org.partiql.plugins.memory.MemoryConnector
+import org.partiql.spi.connector.Connector
+import org.partiql.spi.function.PartiQLFunction
+import org.partiql.spi.function.PartiQLFunctionExperimental
+import org.partiql.types.BagType
+import org.partiql.types.StaticType
+import org.partiql.types.StructType
+import org.partiql.types.TupleConstraint
+import org.partiql.types.function.FunctionParameter
+import org.partiql.types.function.FunctionSignature
+import org.partiql.value.CollectionValue
+import org.partiql.value.Int32Value
+import org.partiql.value.Int64Value
+import org.partiql.value.MissingValue
+import org.partiql.value.PartiQLValue
+import org.partiql.value.PartiQLValueExperimental
+import org.partiql.value.PartiQLValueType
+import org.partiql.value.bagValue
+import org.partiql.value.boolValue
+import org.partiql.value.int32Value
+import org.partiql.value.int64Value
+import org.partiql.value.io.PartiQLValueTextWriter
+import org.partiql.value.listValue
+import org.partiql.value.missingValue
+import org.partiql.value.nullValue
+import org.partiql.value.stringValue
+import org.partiql.value.structValue
+import java.io.ByteArrayOutputStream
+import java.io.PrintStream
+import java.time.Instant
+import kotlin.test.assertEquals
+import kotlin.test.assertFalse
+import kotlin.test.assertTrue
+
+@OptIn(PartiQLValueExperimental::class, PartiQLFunctionExperimental::class)
+class PartiQLEngineDefaultTest {
+
+    companion object {
+
+        private val rows: List<PartiQLValue> = listOf(
+            structValue("a" to int32Value(1), "b" to stringValue("x")),
+            structValue("a" to int32Value(2), "b" to stringValue("y")),
+            structValue("a" to int32Value(3), "b" to stringValue("x")),
+            structValue("a" to int32Value(4), "b" to nullValue()),
+        )
+
+        // The rows of `u` which match `t` on `a` are 1 and 3, while 5 matches none
+        private val uRows: List<PartiQLValue> = listOf(
+            structValue("a" to int32Value(1), "c" to stringValue("one")),
+            structValue("a" to int32Value(3), "c" to stringValue("three")),
+            structValue("a" to int32Value(5), "c" to stringValue("five")),
+        )
+
+        // The field `x` of `v` is either an INT4 or an INT8, so that a call on it is resolved dynamically
+        private val vRows: List<PartiQLValue> = listOf(
+            structValue("x" to int32Value(2)),
+            structValue("x" to int64Value(5)),
+        )
+
+        private val metadata = MemoryConnector.Metadata.of(
+            "default.t" to table(
+                StructType.Field("a", StaticType.INT4),
+                StructType.Field("b", StaticType.unionOf(StaticType.STRING, StaticType.NULL)),
+            ),
+            "default.u" to table(
+                StructType.Field("a", StaticType.INT4),
+                StructType.Field("c", StaticType.STRING),
+            ),
+            "default.v" to table(
+                StructType.Field("x", StaticType.unionOf(StaticType.INT4, StaticType.INT8)),
+            ),
+        )
+
+        // Several splits, so that the scan of `t` moves from one split to the next
+        private val catalogs = mapOf(
+            "default" to MemoryConnector(
+                metadata,
+                records = mapOf("default.t" to rows, "default.u" to uRows, "default.v" to vRows),
+                splitSize = 3,
+            )
+        )
+
+        private fun table(vararg fields: StructType.Field) = BagType(
+            StructType(
+                fields.toList(),
+                contentClosed = true,
+                emptyList(),
+                setOf(TupleConstraint.Open(false)),
+                emptyMap()
+            )
+        )
+    }
+
+    private fun execute(query: String): PartiQLResult {
+        val engine = PartiQLEngine.default()
+        val statement = engine.prepare(plan(query), PartiQLEngine.Session("query_id", "user_id", catalogs))
+        return engine.execute(statement)
+    }
+
+    private fun plan(query: String): PartiQLPlan {
+        val ast = PartiQLParser.default().parse(query).root
+        val session = PartiQLPlanner.Session(
+            queryId = "query_id",
+            userId = "user_id",
+            currentCatalog = "default",
+            currentDirectory = listOf(),
+            catalogs = mapOf("default" to metadata),
+            instant = Instant.now(),
+        )
+        return PartiQLPlannerBuilder().build().plan(ast, session).plan
+    }
+
+    private fun prepare(query: String, catalogs: Map<String, Connector>) {
+        PartiQLEngine.default().prepare(plan(query), PartiQLEngine.Session("query_id", "user_id", catalogs))
+    }
+
+    private fun value(query: String): PartiQLValue = when (val result = execute(query)) {
+        is PartiQLResult.Value -> result.value
+        is PartiQLResult.Error -> throw result.cause
+    }
+
+    /** Structs and collections are equal by identity, thus the values are compared as text. */
+    private fun assertResult(expected: PartiQLValue, query: String) {
+        assertEquals(text(expected), text(value(query)))
+    }
+
+    private fun text(value: PartiQLValue): String {
+        val buffer = ByteArrayOutputStream()
+        PartiQLValueTextWriter(PrintStream(buffer), false).append(value)
+        return buffer.toString()
+    }
+
+    @Test
+    fun filterAndSort() {
+        val expected = listValue(
+            structValue("a" to int32Value(4)),
+            structValue("a" to int32Value(3)),
+            structValue("a" to int32Value(2)),
+        )
+        assertResult(expected, "SELECT t.a FROM t WHERE t.a > 1 ORDER BY t.a DESC")
+    }
+
+    @Test
+    fun arithmeticAndLimit() {
+        val expected = listValue(structValue("x" to int32Value(3)), structValue("x" to int32Value(5)))
+        assertResult(expected, "SELECT t.a * 2 + 1 AS x FROM t ORDER BY t.a LIMIT 2")
+    }
+
+    @Test
+    fun nullPropagation() {
+        val expected = listValue(stringValue("X"), stringValue("Y"), stringValue("X"), nullValue())
+        assertResult(expected, "SELECT VALUE UPPER(t.b) FROM t ORDER BY t.a")
+    }
+
+    @Test
+    fun aggregation() {
+        // COUNT(t.b) does not count the NULL of the last row
+        val expected = bagValue(
+            structValue("n" to int64Value(4), "m" to int64Value(3), "s" to int32Value(10)),
+        )
+        assertResult(expected, "SELECT COUNT(*) AS n, COUNT(t.b) AS m, SUM(t.a) AS s FROM t")
+    }
+
+    @Test
+    fun error() {
+        val result = execute("SELECT VALUE t.a / 0 FROM t") as PartiQLResult.Error
+        assertTrue(result.cause is ArithmeticException)
+    }
+
+    @Test
+    fun leftJoin() {
+        // The rows of `t` without a match have `u` padded with NULL, so that `u.c` is MISSING and omitted
+        val expected = listValue(
+            structValue("a" to int32Value(1), "c" to stringValue("one")),
+            structValue("a" to int32Value(2)),
+            structValue("a" to int32Value(3), "c" to stringValue("three")),
+            structValue("a" to int32Value(4)),
+        )
+        assertResult(expected, "SELECT t.a AS a, u.c AS c FROM t LEFT JOIN u ON t.a = u.a ORDER BY t.a")
+    }
+
+    @Test
+    fun rightJoin() {
+        val expected = listValue(
+            structValue("b" to stringValue("x"), "a" to int32Value(1)),
+            structValue("b" to stringValue("x"), "a" to int32Value(3)),
+            structValue("a" to int32Value(5)),
+        )
+        assertResult(expected, "SELECT t.b AS b, u.a AS a FROM t RIGHT JOIN u ON t.a = u.a ORDER BY u.a")
+    }
+
+    @Test
+    fun fullJoin() {
+        // The rows of `t` in order, padded where there is no match, then the row of `u` which matched none
+        val expected = bagValue(int32Value(11), int32Value(20), int32Value(33), int32Value(40), int32Value(5))
+        assertResult(expected, "SELECT VALUE COALESCE(t.a, 0) * 10 + COALESCE(u.a, 0) FROM t FULL JOIN u ON t.a = u.a")
+    }
+
+    @Test
+    fun offset() {
+        assertResult(listValue(int32Value(2), int32Value(3)), "SELECT VALUE t.a FROM t ORDER BY t.a LIMIT 2 OFFSET 1")
+        assertResult(listValue(int32Value(4)), "SELECT VALUE t.a FROM t ORDER BY t.a OFFSET 3")
+        assertResult(listValue<PartiQLValue>(), "SELECT VALUE t.a FROM t ORDER BY t.a OFFSET 10")
+    }
+
+    @Test
+    fun exclude() {
+        val fields = listValue(
+            structValue("a" to int32Value(1)),
+            structValue("a" to int32Value(2)),
+            structValue("a" to int32Value(3)),
+            structValue("a" to int32Value(4)),
+        )
+        assertResult(fields, "SELECT * EXCLUDE t.b FROM t ORDER BY t.a")
+        val elements = bagValue(structValue("l" to listValue(int32Value(2), int32Value(3))))
+        assertResult(elements, "SELECT * EXCLUDE x.l[0] FROM << { 'l': [1, 2, 3] } >> AS x")
+    }
+
+    @Test
+    fun pivot() {
+        // The row whose key is NULL is skipped, while the duplicate keys are kept
+        val expected = structValue("x" to int32Value(1), "y" to int32Value(2), "x" to int32Value(3))
+        assertResult(expected, "PIVOT t.a AT t.b FROM t")
+    }
+
+    @Test
+    fun dynamicCall() {
+        // `v.x + 1` is `plus(INT4, INT4)` for an INT4 and `plus(INT8, INT8)` for an INT8, the literal being coerced
+        val result = value("SELECT VALUE v.x + 1 FROM v") as CollectionValue<*>
+        val values = result.toList()
+        assertEquals(2, values.size)
+        assertEquals(3, (values.single { it is Int32Value } as Int32Value).value)
+        assertEquals(6L, (values.single { it is Int64Value } as Int64Value).value)
+    }
+
+    @Test
+    fun prepareWithoutImplementation() {
+        assertThrows<UnsupportedOperationException> { prepare("SELECT VALUE TRIM('a') FROM t", catalogs) }
+    }
+
+    @Test
+    fun prepareWithoutCatalog() {
+        assertThrows<IllegalStateException> { prepare("SELECT VALUE t.a FROM t", emptyMap()) }
+    }
+
+    @Test
+    fun missingCall() {
+        val args = arrayOf<PartiQLValue>(missingValue(), int32Value(1))
+        val propagates = Recorder(isNullCall = true, isMissingCall = true)
+        assertTrue(FnInvocation(propagates).invoke(args) is MissingValue)
+        assertFalse(propagates.invoked)
+        // Without the flag, MISSING is a NULL argument to a function which returns NULL on NULL input
+        val asNull = Recorder(isNullCall = true, isMissingCall = false)
+        assertEquals(text(nullValue()), text(FnInvocation(asNull).invoke(args)))
+        assertFalse(asNull.invoked)
+        // Otherwise, the function handles MISSING itself
+        val handles = Recorder(isNullCall = false, isMissingCall = false)
+        assertEquals(text(boolValue(true)), text(FnInvocation(handles).invoke(args)))
+        assertTrue(handles.invoked)
+    }
+
+    /**
+     * A function on two INT32 which records whether it is invoked, thus whether its unknown arguments reached it.
+     */
+    private class Recorder(isNullCall: Boolean, isMissingCall: Boolean) : PartiQLFunction.Scalar {
+
+        var invoked = false
+
+        override val signature = FunctionSignature.Scalar(
+            name = "recorder",
+            returns = PartiQLValueType.BOOL,
+            parameters = listOf(
+                FunctionParameter("l", PartiQLValueType.INT32),
+                FunctionParameter("r", PartiQLValueType.INT32),
+            ),
+            isNullCall = isNullCall,
+            isMissingCall = isMissingCall,
+        )
+
+        override fun invoke(args: Array<PartiQLValue>): PartiQLValue {
+            invoked = true
+            return boolValue(true)
+        }
+    }
+}
@@ -37,6 +37,7 @@ dependencies {
     api(Deps.ionJava)
     api(Deps.ionSchema)
     shadow(Deps.antlrRuntime)
+    shadow(Deps.asm)
     implementation(Deps.csv)
     implementation(Deps.kotlinReflect)
     implementation(Deps.kotlinxCoroutines)
@@ -53,7 +54,8 @@ dependencies {
 }
 
 val relocations = mapOf(
-    "org.antlr" to "org.partiql.lang.thirdparty.antlr"
+    "org.antlr" to "org.partiql.lang.thirdparty.antlr",
+    "org.objectweb.asm" to "org.partiql.lang.thirdparty.asm"
 )
 
 tasks.shadowJar {
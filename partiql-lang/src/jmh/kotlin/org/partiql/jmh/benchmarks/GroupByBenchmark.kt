@@ -0,0 +1,189 @@
+package org.partiql.jmh.benchmarks
+
+import kotlinx.coroutines.runBlocking
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Fork
+import org.openjdk.jmh.annotations.Measurement
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.annotations.Warmup
+import org.openjdk.jmh.infra.Blackhole
+import org.partiql.annotations.ExperimentalPartiQLCompilerPipeline
+import org.partiql.jmh.utils.FORK_VALUE_RECOMMENDED
+import org.partiql.jmh.utils.MEASUREMENT_ITERATION_VALUE_RECOMMENDED
+import org.partiql.jmh.utils.MEASUREMENT_TIME_VALUE_RECOMMENDED
+import org.partiql.jmh.utils.WARMUP_ITERATION_VALUE_RECOMMENDED
+import org.partiql.jmh.utils.WARMUP_TIME_VALUE_RECOMMENDED
+import org.partiql.lang.CompilerPipeline
+import org.partiql.lang.compiler.PartiQLCompilerPipelineAsync
+import org.partiql.lang.eval.Bindings
+import org.partiql.lang.eval.EvaluationSession
+import org.partiql.lang.eval.ExprValue
+import org.partiql.lang.eval.PartiQLResult
+import org.partiql.lang.eval.StructOrdering
+import org.partiql.lang.eval.namedValue
+import org.partiql.lang.planner.GlobalResolutionResult
+import java.util.concurrent.TimeUnit
+
+/**
+ * JMH micro-benchmark for the evaluation of high-cardinality `GROUP BY`, `SELECT DISTINCT` and bag operators, i.e. the
+ * operators that key hash tables on [ExprValue]s.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+open class GroupByBenchmark {
+
+    companion object {
+        private const val FORK_VALUE: Int = FORK_VALUE_RECOMMENDED
+        private const val MEASUREMENT_ITERATION_VALUE: Int = MEASUREMENT_ITERATION_VALUE_RECOMMENDED
+        private const val MEASUREMENT_TIME_VALUE: Int = MEASUREMENT_TIME_VALUE_RECOMMENDED
+        private const val WARMUP_ITERATION_VALUE: Int = WARMUP_ITERATION_VALUE_RECOMMENDED
+        private const val WARMUP_TIME_VALUE: Int = WARMUP_TIME_VALUE_RECOMMENDED
+
+        private const val NUM_ROWS = 100_000
+    }
+
+    @State(Scope.Thread)
+    @OptIn(ExperimentalPartiQLCompilerPipeline::class)
+    open class MyState {
+
+        /** Creates a bag of [NUM_ROWS] structs with `cardinality` distinct values of the `k` and `s` fields. */
+        private fun tableWithRows(cardinality: Int): ExprValue = ExprValue.newBag(
+            (0 until NUM_ROWS).map { index ->
+                val key = index % cardinality
+                ExprValue.newStruct(
+                    listOf(
+                        ExprValue.newInt(key).namedValue(ExprValue.newString("k")),
+                        ExprValue.newString("key $key").namedValue(ExprValue.newString("s")),
+                        ExprValue.newInt(index).namedValue(ExprValue.newString("v")),
+                    ),
+                    StructOrdering.ORDERED
+                )
+            }
+        )
+
+        private val bindings = Bindings.ofMap(
+            mapOf(
+                "low_cardinality" to tableWithRows(10),
+                "high_cardinality" to tableWithRows(NUM_ROWS / 2),
+            )
+        )
+
+        val session = EvaluationSession.build { globals(bindings) }
+
+        private val compilerPipeline = CompilerPipeline.standard()
+
+        private val compilerPipelineAsync = PartiQLCompilerPipelineAsync.build {
+            planner.globalVariableResolver {
+                val value = session.globals[it]
+                if (value != null) {
+                    GlobalResolutionResult.GlobalVariable(it.name)
+                } else {
+                    GlobalResolutionResult.Undefined
+                }
+            }
+        }
+
+        private val groupByLow = "SELECT t.k, t.s, SUM(t.v) AS total FROM low_cardinality AS t GROUP BY t.k, t.s"
+        private val groupByHigh = "SELECT t.k, t.s, SUM(t.v) AS total FROM high_cardinality AS t GROUP BY t.k, t.s"
+        private val distinctHigh = "SELECT DISTINCT t.k, t.s FROM high_cardinality AS t"
+        private val exceptHigh =
+            "(SELECT t.k FROM high_cardinality AS t) OUTER EXCEPT ALL (SELECT t.k FROM low_cardinality AS t)"
+
+        val expressionGroupByLow = compilerPipeline.compile(groupByLow)
+        val expressionGroupByHigh = compilerPipeline.compile(groupByHigh)
+        val expressionDistinctHigh = compilerPipeline.compile(distinctHigh)
+        val expressionExceptHigh = compilerPipeline.compile(exceptHigh)
+
+        val statementGroupByLow = runBlocking { compilerPipelineAsync.compile(groupByLow) }
+        val statementGroupByHigh = runBlocking { compilerPipelineAsync.compile(groupByHigh) }
+        val statementDistinctHigh = runBlocking { compilerPipelineAsync.compile(distinctHigh) }
+    }
+
+    /**
+     * Benchmarks a `GROUP BY` with 10 groups using the [CompilerPipeline].
+     */
+    @Benchmark
+    @Fork(value = FORK_VALUE)
+    @Measurement(iterations = MEASUREMENT_ITERATION_VALUE, time = MEASUREMENT_TIME_VALUE)
+    @Warmup(iterations = WARMUP_ITERATION_VALUE, time = WARMUP_TIME_VALUE)
+    fun testGroupByLowCardinality(state: MyState, blackhole: Blackhole) {
+        val exprValue = state.expressionGroupByLow.eval(state.session)
+        blackhole.consume(exprValue.count())
+    }
+
+    /**
+     * Benchmarks a `GROUP BY` with 50,000 groups using the [CompilerPipeline].
+     */
+    @Benchmark
+    @Fork(value = FORK_VALUE)
+    @Measurement(iterations = MEASUREMENT_ITERATION_VALUE, time = MEASUREMENT_TIME_VALUE)
+    @Warmup(iterations = WARMUP_ITERATION_VALUE, time = WARMUP_TIME_VALUE)
+    fun testGroupByHighCardinality(state: MyState, blackhole: Blackhole) {
+        val exprValue = state.expressionGroupByHigh.eval(state.session)
+        blackhole.consume(exprValue.count())
+    }
+
+    /**
+     * Benchmarks a `SELECT DISTINCT` with 50,000 distinct rows using the [CompilerPipeline].
+     */
+    @Benchmark
+    @Fork(value = FORK_VALUE)
+    @Measurement(iterations = MEASUREMENT_ITERATION_VALUE, time = MEASUREMENT_TIME_VALUE)
+    @Warmup(iterations = WARMUP_ITERATION_VALUE, time = WARMUP_TIME_VALUE)
+    fun testDistinctHighCardinality(state: MyState, blackhole: Blackhole) {
+        val exprValue = state.expressionDistinctHigh.eval(state.session)
+        blackhole.consume(exprValue.count())
+    }
+
+    /**
+     * Benchmarks an `OUTER EXCEPT ALL` with 50,000 distinct values using the [CompilerPipeline].
+     */
+    @Benchmark
+    @Fork(value = FORK_VALUE)
+    @Measurement(iterations = MEASUREMENT_ITERATION_VALUE, time = MEASUREMENT_TIME_VALUE)
+    @Warmup(iterations = WARMUP_ITERATION_VALUE, time = WARMUP_TIME_VALUE)
+    fun testExceptHighCardinality(state: MyState, blackhole: Blackhole) {
+        val exprValue = state.expressionExceptHigh.eval(state.session)
+        blackhole.consume(exprValue.count())
+    }
+
+    /**
+     * Benchmarks a `GROUP BY` with 10 groups using the [PartiQLCompilerPipelineAsync].
+     */
+    @Benchmark
+    @Fork(value = FORK_VALUE)
+    @Measurement(iterations = MEASUREMENT_ITERATION_VALUE, time = MEASUREMENT_TIME_VALUE)
+    @Warmup(iterations = WARMUP_ITERATION_VALUE, time = WARMUP_TIME_VALUE)
+    fun testPhysicalGroupByLowCardinality(state: MyState, blackhole: Blackhole) = runBlocking {
+        val result = state.statementGroupByLow.eval(state.session)
+        blackhole.consume((result as PartiQLResult.Value).value.count())
+    }
+
+    /**
+     * Benchmarks a `GROUP BY` with 50,000 groups using the [PartiQLCompilerPipelineAsync].
+     */
+    @Benchmark
+    @Fork(value = FORK_VALUE)
+    @Measurement(iterations = MEASUREMENT_ITERATION_VALUE, time = MEASUREMENT_TIME_VALUE)
+    @Warmup(iterations = WARMUP_ITERATION_VALUE, time = WARMUP_TIME_VALUE)
+    fun testPhysicalGroupByHighCardinality(state: MyState, blackhole: Blackhole) = runBlocking {
+        val result = state.statementGroupByHigh.eval(state.session)
+        blackhole.consume((result as PartiQLResult.Value).value.count())
+    }
+
+    /**
+     * Benchmarks a `SELECT DISTINCT` with 50,000 distinct rows using the [PartiQLCompilerPipelineAsync].
+     */
+    @Benchmark
+    @Fork(value = FORK_VALUE)
+    @Measurement(iterations = MEASUREMENT_ITERATION_VALUE, time = MEASUREMENT_TIME_VALUE)
+    @Warmup(iterations = WARMUP_ITERATION_VALUE, time = WARMUP_TIME_VALUE)
+    fun testPhysicalDistinctHighCardinality(state: MyState, blackhole: Blackhole) = runBlocking {
+        val result = state.statementDistinctHigh.eval(state.session)
+        blackhole.consume((result as PartiQLResult.Value).value.count())
+    }
+}
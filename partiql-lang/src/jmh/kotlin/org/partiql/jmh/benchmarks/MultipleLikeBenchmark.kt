@@ -36,6 +36,10 @@ import java.util.concurrent.TimeUnit
 
 /**
  * JMH micro-benchmark for parse/compile/eval of multiple `LIKE` expressions.
+ *
+ * To compare two revisions, run `./gradlew :partiql-lang:jmh -Pinclude=MultipleLikeBenchmark` on each of them with a
+ * distinct `-PresultsFile`, and compare the scores of the `testPartiQLCompiler*` and `testPartiQLEvaluator*`
+ * benchmarks.
  */
 @BenchmarkMode(Mode.AverageTime)
 @OutputTimeUnit(TimeUnit.MICROSECONDS)
@@ -342,6 +346,10 @@ open class MultipleLikeBenchmark {
             """
         val astStatement30 = parser.parseAstStatement(query30)
         val expression30 = pipeline.compile(astStatement30)
+
+        // The patterns are computed for each row, thus they cannot be compiled along with the query.
+        val queryDynamic15 = query15.replace(Regex("LIKE '%([a-z ]+)%'"), "LIKE '%' || '$1' || '%'")
+        val expressionDynamic15 = pipeline.compile(parser.parseAstStatement(queryDynamic15))
     }
 
     /**
@@ -433,4 +441,18 @@ open class MultipleLikeBenchmark {
         blackhole.consume(exprValue)
         blackhole.consume(exprValue.iterator().forEach { })
     }
+
+    /**
+     * Benchmarks evaluating a query containing 15 `OR`ed `LIKE` expressions whose patterns are not literals
+     * against 10,201 rows of strings each of which are ~20 to ~220 codepoints long
+     */
+    @Benchmark
+    @Fork(value = FORK_VALUE)
+    @Measurement(iterations = MEASUREMENT_ITERATION_VALUE, time = MEASUREMENT_TIME_VALUE)
+    @Warmup(iterations = WARMUP_ITERATION_VALUE, time = WARMUP_TIME_VALUE)
+    fun testPartiQLEvaluatorDynamic15(state: MyState, blackhole: Blackhole) {
+        val exprValue = state.expressionDynamic15.eval(state.session)
+        blackhole.consume(exprValue)
+        blackhole.consume(exprValue.iterator().forEach { })
+    }
 }
@@ -0,0 +1,171 @@
+package org.partiql.jmh.benchmarks
+
+import kotlinx.coroutines.runBlocking
+import org.openjdk.jmh.annotations.Benchmark
+import org.openjdk.jmh.annotations.BenchmarkMode
+import org.openjdk.jmh.annotations.Fork
+import org.openjdk.jmh.annotations.Measurement
+import org.openjdk.jmh.annotations.Mode
+import org.openjdk.jmh.annotations.OutputTimeUnit
+import org.openjdk.jmh.annotations.Scope
+import org.openjdk.jmh.annotations.State
+import org.openjdk.jmh.annotations.Warmup
+import org.openjdk.jmh.infra.Blackhole
+import org.partiql.annotations.ExperimentalPartiQLCompilerPipeline
+import org.partiql.jmh.utils.FORK_VALUE_RECOMMENDED
+import org.partiql.jmh.utils.MEASUREMENT_ITERATION_VALUE_RECOMMENDED
+import org.partiql.jmh.utils.MEASUREMENT_TIME_VALUE_RECOMMENDED
+import org.partiql.jmh.utils.WARMUP_ITERATION_VALUE_RECOMMENDED
+import org.partiql.jmh.utils.WARMUP_TIME_VALUE_RECOMMENDED
+import org.partiql.lang.CompilerPipeline
+import org.partiql.lang.compiler.PartiQLCompilerPipelineAsync
+import org.partiql.lang.eval.Bindings
+import org.partiql.lang.eval.EvaluationSession
+import org.partiql.lang.eval.ExprValue
+import org.partiql.lang.eval.PartiQLResult
+import org.partiql.lang.eval.StructOrdering
+import org.partiql.lang.eval.namedValue
+import org.partiql.lang.planner.GlobalResolutionResult
+import java.util.concurrent.TimeUnit
+
+/**
+ * JMH micro-benchmark for the evaluation of numeric-heavy projections and filters, i.e. of the arithmetic and
+ * comparison operators over `INT` and `FLOAT` values.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+open class NumericBenchmark {
+
+    companion object {
+        private const val FORK_VALUE: Int = FORK_VALUE_RECOMMENDED
+        private const val MEASUREMENT_ITERATION_VALUE: Int = MEASUREMENT_ITERATION_VALUE_RECOMMENDED
+        private const val MEASUREMENT_TIME_VALUE: Int = MEASUREMENT_TIME_VALUE_RECOMMENDED
+        private const val WARMUP_ITERATION_VALUE: Int = WARMUP_ITERATION_VALUE_RECOMMENDED
+        private const val WARMUP_TIME_VALUE: Int = WARMUP_TIME_VALUE_RECOMMENDED
+
+        private const val NUM_ROWS = 100_000
+    }
+
+    @State(Scope.Thread)
+    @OptIn(ExperimentalPartiQLCompilerPipeline::class)
+    open class MyState {
+
+        /** Creates a bag of [NUM_ROWS] structs with the `INT` fields `a` and `b` and the `FLOAT` fields `x` and `y`. */
+        private fun tableWithRows(): ExprValue = ExprValue.newBag(
+            (0 until NUM_ROWS).map { index ->
+                ExprValue.newStruct(
+                    listOf(
+                        ExprValue.newInt(index).namedValue(ExprValue.newString("a")),
+                        ExprValue.newInt(index % 100).namedValue(ExprValue.newString("b")),
+                        ExprValue.newFloat(index * 0.5).namedValue(ExprValue.newString("x")),
+                        ExprValue.newFloat(index % 100 + 0.25).namedValue(ExprValue.newString("y")),
+                    ),
+                    StructOrdering.ORDERED
+                )
+            }
+        )
+
+        private val bindings = Bindings.ofMap(mapOf("t" to tableWithRows()))
+
+        val session = EvaluationSession.build { globals(bindings) }
+
+        private val compilerPipeline = CompilerPipeline.standard()
+
+        private val compilerPipelineAsync = PartiQLCompilerPipelineAsync.build {
+            planner.globalVariableResolver {
+                val value = session.globals[it]
+                if (value != null) {
+                    GlobalResolutionResult.GlobalVariable(it.name)
+                } else {
+                    GlobalResolutionResult.Undefined
+                }
+            }
+        }
+
+        private val intProjection =
+            "SELECT r.a + r.b AS s, r.a - r.b AS d, r.a * 2 AS p, r.a / (r.b + 1) AS q, r.a % 7 AS m FROM t AS r"
+        private val floatProjection =
+            "SELECT r.x + r.y AS s, r.x - r.y AS d, r.x * r.y AS p, r.x / r.y AS q FROM t AS r"
+        private val filter = "SELECT r.a FROM t AS r WHERE r.b < 50 AND r.a >= 10 AND r.x <> r.y"
+
+        val expressionIntProjection = compilerPipeline.compile(intProjection)
+        val expressionFloatProjection = compilerPipeline.compile(floatProjection)
+        val expressionFilter = compilerPipeline.compile(filter)
+
+        val statementIntProjection = runBlocking { compilerPipelineAsync.compile(intProjection) }
+        val statementFloatProjection = runBlocking { compilerPipelineAsync.compile(floatProjection) }
+        val statementFilter = runBlocking { compilerPipelineAsync.compile(filter) }
+    }
+
+    /**
+     * Benchmarks a projection of `INT` arithmetic using the [CompilerPipeline].
+     */
+    @Benchmark
+    @Fork(value = FORK_VALUE)
+    @Measurement(iterations = MEASUREMENT_ITERATION_VALUE, time = MEASUREMENT_TIME_VALUE)
+    @Warmup(iterations = WARMUP_ITERATION_VALUE, time = WARMUP_TIME_VALUE)
+    fun testIntProjection(state: MyState, blackhole: Blackhole) {
+        val exprValue = state.expressionIntProjection.eval(state.session)
+        exprValue.forEach { blackhole.consume(it.toList()) }
+    }
+
+    /**
+     * Benchmarks a projection of `FLOAT` arithmetic using the [CompilerPipeline].
+     */
+    @Benchmark
+    @Fork(value = FORK_VALUE)
+    @Measurement(iterations = MEASUREMENT_ITERATION_VALUE, time = MEASUREMENT_TIME_VALUE)
+    @Warmup(iterations = WARMUP_ITERATION_VALUE, time = WARMUP_TIME_VALUE)
+    fun testFloatProjection(state: MyState, blackhole: Blackhole) {
+        val exprValue = state.expressionFloatProjection.eval(state.session)
+        exprValue.forEach { blackhole.consume(it.toList()) }
+    }
+
+    /**
+     * Benchmarks a filter of numeric comparisons using the [CompilerPipeline].
+     */
+    @Benchmark
+    @Fork(value = FORK_VALUE)
+    @Measurement(iterations = MEASUREMENT_ITERATION_VALUE, time = MEASUREMENT_TIME_VALUE)
+    @Warmup(iterations = WARMUP_ITERATION_VALUE, time = WARMUP_TIME_VALUE)
+    fun testFilter(state: MyState, blackhole: Blackhole) {
+        val exprValue = state.expressionFilter.eval(state.session)
+        blackhole.consume(exprValue.count())
+    }
+
+    /**
+     * Benchmarks a projection of `INT` arithmetic using the [PartiQLCompilerPipelineAsync].
+     */
+    @Benchmark
+    @Fork(value = FORK_VALUE)
+    @Measurement(iterations = MEASUREMENT_ITERATION_VALUE, time = MEASUREMENT_TIME_VALUE)
+    @Warmup(iterations = WARMUP_ITERATION_VALUE, time = WARMUP_TIME_VALUE)
+    fun testPhysicalIntProjection(state: MyState, blackhole: Blackhole) = runBlocking {
+        val result = state.statementIntProjection.eval(state.session)
+        (result as PartiQLResult.Value).value.forEach { blackhole.consume(it.toList()) }
+    }
+
+    /**
+     * Benchmarks a projection of `FLOAT` arithmetic using the [PartiQLCompilerPipelineAsync].
+     */
+    @Benchmark
+    @Fork(value = FORK_VALUE)
+    @Measurement(iterations = MEASUREMENT_ITERATION_VALUE, time = MEASUREMENT_TIME_VALUE)
+    @Warmup(iterations = WARMUP_ITERATION_VALUE, time = WARMUP_TIME_VALUE)
+    fun testPhysicalFloatProjection(state: MyState, blackhole: Blackhole) = runBlocking {
+        val result = state.statementFloatProjection.eval(state.session)
+        (result as PartiQLResult.Value).value.forEach { blackhole.consume(it.toList()) }
+    }
+
+    /**
+     * Benchmarks a filter of numeric comparisons using the [PartiQLCompilerPipelineAsync].
+     */
+    @Benchmark
+    @Fork(value = FORK_VALUE)
+    @Measurement(iterations = MEASUREMENT_ITERATION_VALUE, time = MEASUREMENT_TIME_VALUE)
+    @Warmup(iterations = WARMUP_ITERATION_VALUE, time = WARMUP_TIME_VALUE)
+    fun testPhysicalFilter(state: MyState, blackhole: Blackhole) = runBlocking {
+        val result = state.statementFilter.eval(state.session)
+        blackhole.consume((result as PartiQLResult.Value).value.count())
+    }
+}
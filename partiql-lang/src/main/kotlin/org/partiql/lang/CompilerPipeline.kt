@@ -30,6 +30,7 @@ import org.partiql.lang.eval.impl.CoverageCompiler
 import org.partiql.lang.eval.visitors.PipelinedVisitorTransform
 import org.partiql.lang.eval.visitors.StaticTypeInferenceVisitorTransform
 import org.partiql.lang.eval.visitors.StaticTypeVisitorTransform
+import org.partiql.lang.metrics.MetricsRecorder
 import org.partiql.lang.syntax.Parser
 import org.partiql.lang.syntax.PartiQLParserBuilder
 import org.partiql.lang.types.CustomType
@@ -136,6 +137,7 @@ interface CompilerPipeline {
         private val preProcessingSteps: MutableList<ProcessingStep> = ArrayList()
         private var globalTypeBindings: Bindings<StaticType>? = null
         private var withCoverageStatistics: Boolean = false
+        private var metrics: MetricsRecorder = MetricsRecorder.NONE
 
         /**
          * Specifies the [Parser] to be used to turn an PartiQL query into an instance of [PartiqlAst].
@@ -190,6 +192,12 @@ interface CompilerPipeline {
         /** Modifies [CompilerPipeline] to also emit coverage statistics of PartiQL statements. */
         fun withCoverageStatistics(value: Boolean): Builder = this.apply { this.withCoverageStatistics = value }
 
+        /**
+         * Reports the compile and evaluation metrics of the pipeline to [metrics], and the parse metrics too unless a
+         * parser is specified with [sqlParser].
+         */
+        fun metrics(metrics: MetricsRecorder): Builder = this.apply { this.metrics = metrics }
+
         /** Builds the actual implementation of [CompilerPipeline]. */
         fun build(): CompilerPipeline {
             val compileOptionsToUse = compileOptions ?: CompileOptions.standard()
@@ -219,7 +227,8 @@ interface CompilerPipeline {
                         }
                     }.flatten().toMap(),
                     customProcedures,
-                    compileOptionsToUse
+                    compileOptionsToUse,
+                    metrics
                 )
                 true -> CoverageCompiler(
                     allFunctions,
@@ -235,7 +244,7 @@ interface CompilerPipeline {
 
             return CompilerPipelineImpl(
                 ion = ion,
-                parser = parser ?: PartiQLParserBuilder().customTypes(customDataTypes).build(),
+                parser = parser ?: PartiQLParserBuilder().customTypes(customDataTypes).metrics(metrics).build(),
                 compileOptions = compileOptionsToUse,
                 functions = allFunctions.mapIndexed { idx, func -> idx to func }.associate { it.first.toString() to it.second },
                 customDataTypes = customDataTypes,
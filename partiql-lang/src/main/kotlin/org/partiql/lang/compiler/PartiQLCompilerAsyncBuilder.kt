@@ -14,6 +14,7 @@
 
 package org.partiql.lang.compiler
 
+import kotlinx.coroutines.CoroutineDispatcher
 import org.partiql.annotations.ExperimentalPartiQLCompilerPipeline
 import org.partiql.annotations.ExperimentalWindowFunctions
 import org.partiql.lang.eval.ExprFunction
@@ -25,13 +26,18 @@ import org.partiql.lang.eval.builtins.definitionalBuiltins
 import org.partiql.lang.eval.builtins.storedprocedure.StoredProcedure
 import org.partiql.lang.eval.physical.operators.AggregateOperatorFactoryDefaultAsync
 import org.partiql.lang.eval.physical.operators.FilterRelationalOperatorFactoryDefaultAsync
+import org.partiql.lang.eval.physical.operators.HashJoinRelationalOperatorFactoryAsync
 import org.partiql.lang.eval.physical.operators.JoinRelationalOperatorFactoryDefaultAsync
 import org.partiql.lang.eval.physical.operators.LetRelationalOperatorFactoryDefaultAsync
 import org.partiql.lang.eval.physical.operators.LimitRelationalOperatorFactoryDefaultAsync
+import org.partiql.lang.eval.physical.operators.MergeJoinRelationalOperatorFactoryAsync
 import org.partiql.lang.eval.physical.operators.OffsetRelationalOperatorFactoryDefaultAsync
+import org.partiql.lang.eval.physical.operators.PartitionedScanOperatorFactoryAsync
+import org.partiql.lang.eval.physical.operators.PrunedScanOperatorFactoryAsync
 import org.partiql.lang.eval.physical.operators.RelationalOperatorFactory
 import org.partiql.lang.eval.physical.operators.ScanRelationalOperatorFactoryDefaultAsync
 import org.partiql.lang.eval.physical.operators.SortOperatorFactoryDefaultAsync
+import org.partiql.lang.eval.physical.operators.TopNSortOperatorFactoryAsync
 import org.partiql.lang.eval.physical.operators.UnpivotOperatorFactoryDefaultAsync
 import org.partiql.lang.eval.physical.operators.WindowRelationalOperatorFactoryDefaultAsync
 import org.partiql.lang.planner.EvaluatorOptions
@@ -61,6 +67,7 @@ class PartiQLCompilerAsyncBuilder private constructor() {
     private var customFunctions: List<ExprFunction> = emptyList()
     private var customProcedures: List<StoredProcedure> = emptyList()
     private var customOperatorFactories: List<RelationalOperatorFactory> = emptyList()
+    private var dispatcher: CoroutineDispatcher? = null
 
     companion object {
 
@@ -77,10 +84,15 @@ class PartiQLCompilerAsyncBuilder private constructor() {
         private val DEFAULT_RELATIONAL_OPERATOR_FACTORIES = listOf(
             AggregateOperatorFactoryDefaultAsync,
             SortOperatorFactoryDefaultAsync,
+            TopNSortOperatorFactoryAsync,
             UnpivotOperatorFactoryDefaultAsync,
             FilterRelationalOperatorFactoryDefaultAsync,
             ScanRelationalOperatorFactoryDefaultAsync,
+            PartitionedScanOperatorFactoryAsync,
+            PrunedScanOperatorFactoryAsync,
             JoinRelationalOperatorFactoryDefaultAsync,
+            HashJoinRelationalOperatorFactoryAsync,
+            MergeJoinRelationalOperatorFactoryAsync,
             OffsetRelationalOperatorFactoryDefaultAsync,
             LimitRelationalOperatorFactoryDefaultAsync,
             LetRelationalOperatorFactoryDefaultAsync,
@@ -108,7 +120,8 @@ class PartiQLCompilerAsyncBuilder private constructor() {
                 keySelector = { it.signature.name },
                 valueTransform = { it }
             ),
-            operatorFactories = allOperatorFactories()
+            operatorFactories = allOperatorFactories(),
+            dispatcher = dispatcher
         )
     }
 
@@ -132,6 +145,25 @@ class PartiQLCompilerAsyncBuilder private constructor() {
         this.customOperatorFactories = customOperatorFactories
     }
 
+    /**
+     * Enables the concurrent evaluation of the independent subtrees of queries on [dispatcher], or disables it if
+     * [dispatcher] is `null` (the default).
+     *
+     * Independent subtrees which call functions or contain subqueries are evaluated concurrently: the operands of
+     * `UNION`, `INTERSECT` and `EXCEPT`, the arguments of function calls, the items of collection constructors, the
+     * values of the bindings of a `LET` which do not depend on each other, and the build side of hash joins.  This
+     * reduces the latency of queries whose functions or global variables block on I/O, e.g. over slow connectors; it
+     * does not benefit queries which are bound by computation on a single thread.
+     *
+     * The thread evaluating a query blocks while it waits for the subtrees evaluated concurrently, and only the
+     * outermost independent subtrees are evaluated concurrently.  The dispatcher should thus not be the one running
+     * the evaluation unless it has several threads; [org.partiql.lang.eval.physical.newVirtualThreadDispatcher]
+     * provides a dispatcher suited to blocking I/O on JDK 21 or later.
+     */
+    fun concurrentExecution(dispatcher: CoroutineDispatcher?) = this.apply {
+        this.dispatcher = dispatcher
+    }
+
     // --- Internal ----------------------------------
 
     private fun allFunctions(typingMode: TypingMode): List<ExprFunction> {
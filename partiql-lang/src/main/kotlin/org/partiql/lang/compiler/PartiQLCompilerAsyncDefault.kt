@@ -14,6 +14,7 @@
 
 package org.partiql.lang.compiler
 
+import kotlinx.coroutines.CoroutineDispatcher
 import org.partiql.annotations.ExperimentalPartiQLCompilerPipeline
 import org.partiql.lang.domains.PartiqlAst
 import org.partiql.lang.domains.PartiqlLogical
@@ -21,8 +22,11 @@ import org.partiql.lang.domains.PartiqlLogicalResolved
 import org.partiql.lang.domains.PartiqlPhysical
 import org.partiql.lang.errors.PartiQLException
 import org.partiql.lang.eval.ExprFunction
+import org.partiql.lang.eval.ExprValue
+import org.partiql.lang.eval.ExprValueType
 import org.partiql.lang.eval.PartiQLResult
 import org.partiql.lang.eval.PartiQLStatementAsync
+import org.partiql.lang.eval.QueryProfile
 import org.partiql.lang.eval.builtins.storedprocedure.StoredProcedure
 import org.partiql.lang.eval.physical.PhysicalBexprToThunkConverterAsync
 import org.partiql.lang.eval.physical.PhysicalPlanCompilerAsync
@@ -40,7 +44,8 @@ internal class PartiQLCompilerAsyncDefault(
     customTypedOpParameters: Map<String, TypedOpParameter>,
     functions: List<ExprFunction>,
     procedures: Map<String, StoredProcedure>,
-    operatorFactories: Map<RelationalOperatorFactoryKey, RelationalOperatorFactory>
+    operatorFactories: Map<RelationalOperatorFactoryKey, RelationalOperatorFactory>,
+    dispatcher: CoroutineDispatcher? = null
 ) : PartiQLCompilerAsync {
 
     private lateinit var exprConverter: PhysicalPlanCompilerAsyncImpl
@@ -57,7 +62,8 @@ internal class PartiQLCompilerAsyncDefault(
             customTypedOpParameters = customTypedOpParameters,
             procedures = procedures,
             evaluatorOptions = evaluatorOptions,
-            bexperConverter = bexprConverter
+            bexperConverter = bexprConverter,
+            dispatcher = dispatcher
         )
     }
 
@@ -78,12 +84,22 @@ internal class PartiQLCompilerAsyncDefault(
             is PartiqlPhysical.Statement.Dml -> compileDml(stmt, statement.locals.size)
             is PartiqlPhysical.Statement.Exec,
             is PartiqlPhysical.Statement.Query -> compile(statement)
-            is PartiqlPhysical.Statement.Explain -> PartiQLStatementAsync { compileExplain(stmt, details) }
+            is PartiqlPhysical.Statement.Explain -> when (val target = stmt.target) {
+                is PartiqlPhysical.ExplainTarget.Domain -> when {
+                    target.type?.text.equals(EXPLAIN_ANALYZE, ignoreCase = true) ->
+                        compileExplainAnalyze(statement.copy(stmt = target.statement), target.format?.text)
+                    else -> PartiQLStatementAsync { compileExplain(stmt, details) }
+                }
+            }
         }
     }
 
     // --- INTERNAL -------------------
 
+    private companion object {
+        const val EXPLAIN_ANALYZE = "ANALYZE"
+    }
+
     private enum class ExplainDomains {
         AST,
         AST_NORMALIZED,
@@ -105,6 +121,29 @@ internal class PartiQLCompilerAsyncDefault(
         }
     }
 
+    /**
+     * Compiles `EXPLAIN (TYPE analyze) <query>`, which evaluates the query with its operators profiled and reports the
+     * [QueryProfile] of the evaluation rather than its result.
+     */
+    private suspend fun compileExplainAnalyze(plan: PartiqlPhysical.Plan, format: String?): PartiQLStatementAsync {
+        if (plan.stmt !is PartiqlPhysical.Statement.Query) {
+            throw PartiQLException("Illegal argument: $EXPLAIN_ANALYZE is only supported for queries")
+        }
+        val expression = exprConverter.compile(plan, profiling = true)
+        return PartiQLStatementAsync { session ->
+            val result = expression.eval(session)
+            // The operators are only evaluated as the result is materialized.
+            (result as PartiQLResult.Value).value.materialize()
+            PartiQLResult.Explain.Profile(result.getProfile()!!, format)
+        }
+    }
+
+    private fun ExprValue.materialize() {
+        if (type.isSequence || type == ExprValueType.STRUCT) {
+            forEach { it.materialize() }
+        }
+    }
+
     private fun compileExplain(statement: PartiqlPhysical.Statement.Explain, details: PartiQLPlanner.PlanningDetails): PartiQLResult.Explain.Domain {
         return when (val target = statement.target) {
             is PartiqlPhysical.ExplainTarget.Domain -> compileExplainDomain(target, details)
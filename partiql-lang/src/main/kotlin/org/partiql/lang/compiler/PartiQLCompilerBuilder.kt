@@ -25,13 +25,18 @@ import org.partiql.lang.eval.builtins.definitionalBuiltins
 import org.partiql.lang.eval.builtins.storedprocedure.StoredProcedure
 import org.partiql.lang.eval.physical.operators.AggregateOperatorFactoryDefault
 import org.partiql.lang.eval.physical.operators.FilterRelationalOperatorFactoryDefault
+import org.partiql.lang.eval.physical.operators.HashJoinRelationalOperatorFactory
 import org.partiql.lang.eval.physical.operators.JoinRelationalOperatorFactoryDefault
 import org.partiql.lang.eval.physical.operators.LetRelationalOperatorFactoryDefault
 import org.partiql.lang.eval.physical.operators.LimitRelationalOperatorFactoryDefault
+import org.partiql.lang.eval.physical.operators.MergeJoinRelationalOperatorFactory
 import org.partiql.lang.eval.physical.operators.OffsetRelationalOperatorFactoryDefault
+import org.partiql.lang.eval.physical.operators.PartitionedScanOperatorFactory
+import org.partiql.lang.eval.physical.operators.PrunedScanOperatorFactory
 import org.partiql.lang.eval.physical.operators.RelationalOperatorFactory
 import org.partiql.lang.eval.physical.operators.ScanRelationalOperatorFactoryDefault
 import org.partiql.lang.eval.physical.operators.SortOperatorFactoryDefault
+import org.partiql.lang.eval.physical.operators.TopNSortOperatorFactory
 import org.partiql.lang.eval.physical.operators.UnpivotOperatorFactoryDefault
 import org.partiql.lang.eval.physical.operators.WindowRelationalOperatorFactoryDefault
 import org.partiql.lang.planner.EvaluatorOptions
@@ -78,10 +83,15 @@ class PartiQLCompilerBuilder private constructor() {
         private val DEFAULT_RELATIONAL_OPERATOR_FACTORIES = listOf(
             AggregateOperatorFactoryDefault,
             SortOperatorFactoryDefault,
+            TopNSortOperatorFactory,
             UnpivotOperatorFactoryDefault,
             FilterRelationalOperatorFactoryDefault,
             ScanRelationalOperatorFactoryDefault,
+            PartitionedScanOperatorFactory,
+            PrunedScanOperatorFactory,
             JoinRelationalOperatorFactoryDefault,
+            HashJoinRelationalOperatorFactory,
+            MergeJoinRelationalOperatorFactory,
             OffsetRelationalOperatorFactoryDefault,
             LimitRelationalOperatorFactoryDefault,
             LetRelationalOperatorFactoryDefault,
@@ -80,12 +80,19 @@ internal class PartiQLCompilerDefault(
             is PartiqlPhysical.Statement.Dml -> compileDml(stmt, statement.locals.size)
             is PartiqlPhysical.Statement.Exec,
             is PartiqlPhysical.Statement.Query -> compile(statement)
-            is PartiqlPhysical.Statement.Explain -> PartiQLStatement { compileExplain(stmt, details) }
+            is PartiqlPhysical.Statement.Explain -> {
+                checkExplainTarget(stmt)
+                PartiQLStatement { compileExplain(stmt, details) }
+            }
         }
     }
 
     // --- INTERNAL -------------------
 
+    private companion object {
+        const val EXPLAIN_ANALYZE = "ANALYZE"
+    }
+
     private enum class ExplainDomains {
         AST,
         AST_NORMALIZED,
@@ -107,6 +114,19 @@ internal class PartiQLCompilerDefault(
         }
     }
 
+    /**
+     * Rejects `EXPLAIN (TYPE analyze) <query>` when the statement is compiled, since only the operators of the
+     * asynchronous compiler are profiled.
+     */
+    private fun checkExplainTarget(statement: PartiqlPhysical.Statement.Explain) {
+        val type = when (val target = statement.target) {
+            is PartiqlPhysical.ExplainTarget.Domain -> target.type?.text
+        }
+        if (type.equals(EXPLAIN_ANALYZE, ignoreCase = true)) {
+            throw PartiQLException("EXPLAIN (TYPE $EXPLAIN_ANALYZE) is only supported by PartiQLCompilerPipelineAsync")
+        }
+    }
+
     private fun compileExplain(statement: PartiqlPhysical.Statement.Explain, details: PartiQLPlanner.PlanningDetails): PartiQLResult.Explain.Domain {
         return when (val target = statement.target) {
             is PartiqlPhysical.ExplainTarget.Domain -> compileExplainDomain(target, details)
@@ -43,12 +43,15 @@ import org.partiql.lang.syntax.PartiQLParserBuilder
  */
 @ExperimentalPartiQLCompilerPipeline
 @Deprecated("To be removed in the next major version.", replaceWith = ReplaceWith("PartiQLCompilerPipelineAsync"))
-class PartiQLCompilerPipeline(
+class PartiQLCompilerPipeline @JvmOverloads constructor(
     private val parser: Parser,
     private val planner: PartiQLPlanner,
-    private val compiler: PartiQLCompiler
+    private val compiler: PartiQLCompiler,
+    statementCacheOptions: StatementCacheOptions? = null
 ) {
 
+    private val statementCache = statementCacheOptions?.let { StatementCache<PartiQLStatement>(it) }
+
     companion object {
 
         /**
@@ -85,15 +88,30 @@ class PartiQLCompilerPipeline(
                 parser = builder.parser.build(),
                 planner = builder.planner.build(),
                 compiler = builder.compiler.build(),
+                statementCacheOptions = builder.statementCache,
             )
         }
     }
 
     /**
      * Compiles a PartiQL query into an executable [PartiQLStatement].
+     *
+     * If the compiled-statement cache is enabled (see [StatementCacheOptions]), the statement of a query which was
+     * compiled before is returned. The same statement may thus be evaluated by several callers concurrently.
      */
     @Deprecated("To be removed in the next major version.", replaceWith = ReplaceWith("PartiQLCompilerPipelineAsync.compile"))
     fun compile(statement: String): PartiQLStatement {
+        val cache = statementCache ?: return compileText(statement)
+        val key = cache.keyOf(statement)
+        return cache[key] ?: compileText(statement).also { cache[key] = it }
+    }
+
+    /**
+     * Returns the counters of the compiled-statement cache, or null if the cache is not enabled.
+     */
+    fun statementCacheStats(): StatementCacheStats? = statementCache?.stats()
+
+    private fun compileText(statement: String): PartiQLStatement {
         val ast = parser.parseAstStatement(statement)
         return compile(ast)
     }
@@ -125,5 +143,10 @@ class PartiQLCompilerPipeline(
         var parser = PartiQLParserBuilder.standard()
         var planner = PartiQLPlannerBuilder.standard()
         var compiler = PartiQLCompilerBuilder.standard()
+
+        /**
+         * Enables the compiled-statement cache of the pipeline when not null.
+         */
+        var statementCache: StatementCacheOptions? = null
     }
 }
@@ -18,7 +18,11 @@ import org.partiql.annotations.ExperimentalPartiQLCompilerPipeline
 import org.partiql.lang.domains.PartiqlAst
 import org.partiql.lang.domains.PartiqlPhysical
 import org.partiql.lang.errors.PartiQLException
+import org.partiql.lang.eval.PartiQLResult
 import org.partiql.lang.eval.PartiQLStatementAsync
+import org.partiql.lang.metrics.MetricsRecorder
+import org.partiql.lang.metrics.PartiQLMetrics
+import org.partiql.lang.metrics.measure
 import org.partiql.lang.planner.PartiQLPlanner
 import org.partiql.lang.planner.PartiQLPlannerBuilder
 import org.partiql.lang.syntax.Parser
@@ -43,12 +47,16 @@ import org.partiql.lang.syntax.PartiQLParserBuilder
  * ```
  */
 @ExperimentalPartiQLCompilerPipeline
-class PartiQLCompilerPipelineAsync(
+class PartiQLCompilerPipelineAsync @JvmOverloads constructor(
     private val parser: Parser,
     private val planner: PartiQLPlanner,
-    private val compiler: PartiQLCompilerAsync
+    private val compiler: PartiQLCompilerAsync,
+    statementCacheOptions: StatementCacheOptions? = null,
+    private val metrics: MetricsRecorder = MetricsRecorder.NONE
 ) {
 
+    private val statementCache = statementCacheOptions?.let { StatementCache<PartiQLStatementAsync>(it) }
+
     companion object {
 
         /**
@@ -80,17 +88,39 @@ class PartiQLCompilerPipelineAsync(
             val builder = Builder()
             block.invoke(builder)
             return PartiQLCompilerPipelineAsync(
-                parser = builder.parser.build(),
-                planner = builder.planner.build(),
+                parser = builder.parser.metrics(builder.metrics).build(),
+                planner = builder.planner.metrics(builder.metrics).build(),
                 compiler = builder.compiler.build(),
+                statementCacheOptions = builder.statementCache,
+                metrics = builder.metrics,
             )
         }
     }
 
     /**
      * Compiles a PartiQL query into an executable [PartiQLStatementAsync].
+     *
+     * If the compiled-statement cache is enabled (see [StatementCacheOptions]), the statement of a query which was
+     * compiled before is returned. The same statement may thus be evaluated by several callers concurrently.
      */
     suspend fun compile(statement: String): PartiQLStatementAsync {
+        val cache = statementCache ?: return compileText(statement)
+        val key = cache.keyOf(statement)
+        val cached = cache[key]
+        if (cached != null) {
+            metrics.increment(PartiQLMetrics.STATEMENT_CACHE_HITS, emptyMap(), 1)
+            return cached
+        }
+        metrics.increment(PartiQLMetrics.STATEMENT_CACHE_MISSES, emptyMap(), 1)
+        return compileText(statement).also { cache[key] = it }
+    }
+
+    /**
+     * Returns the counters of the compiled-statement cache, or null if the cache is not enabled.
+     */
+    fun statementCacheStats(): StatementCacheStats? = statementCache?.stats()
+
+    private suspend fun compileText(statement: String): PartiQLStatementAsync {
         val ast = parser.parseAstStatement(statement)
         return compile(ast)
     }
@@ -112,12 +142,35 @@ class PartiQLCompilerPipelineAsync(
      */
     @JvmOverloads
     suspend fun compile(statement: PartiqlPhysical.Plan, details: PartiQLPlanner.PlanningDetails = PartiQLPlanner.PlanningDetails()): PartiQLStatementAsync {
-        return compiler.compile(statement, details)
+        if (metrics === MetricsRecorder.NONE) {
+            return compiler.compile(statement, details)
+        }
+        val compiled = metrics.measure(PartiQLMetrics.PHASE_COMPILE, PartiQLMetrics.COMPILE_TIME) {
+            compiler.compile(statement, details)
+        }
+        return PartiQLStatementAsync { session ->
+            metrics.measure(PartiQLMetrics.PHASE_EVAL, PartiQLMetrics.EVAL_TIME) { compiled.eval(session) }.also {
+                val value = (it as? PartiQLResult.Value)?.value
+                if (value != null && value.type.isSequence) {
+                    metrics.record(PartiQLMetrics.ROWS_PRODUCED, emptyMap(), value.count().toLong())
+                }
+            }
+        }
     }
 
     class Builder internal constructor() {
         var parser = PartiQLParserBuilder.standard()
         var planner = PartiQLPlannerBuilder.standard()
         var compiler = PartiQLCompilerAsyncBuilder.standard()
+
+        /**
+         * Enables the compiled-statement cache of the pipeline when not null.
+         */
+        var statementCache: StatementCacheOptions? = null
+
+        /**
+         * Receives the metrics of the pipeline, and of its [parser] and [planner].
+         */
+        var metrics: MetricsRecorder = MetricsRecorder.NONE
     }
 }
@@ -0,0 +1,157 @@
+package org.partiql.lang.compiler
+
+import java.time.Duration
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Configures the compiled-statement cache of a [PartiQLCompilerPipelineAsync] (or [PartiQLCompilerPipeline]), which
+ * returns the same compiled statement when a query is compiled again, instead of parsing, planning and compiling it
+ * again.
+ *
+ * Statements are keyed by their text, with the whitespace outside of literals and quoted identifiers normalized, and by
+ * [catalogVersion].  A cache belongs to one pipeline, thus the parser, planner and compiler options are the same for
+ * all of its statements.  Parameters (`?`) are bound when a statement is evaluated, thus a parameterized statement is
+ * compiled once for all parameter values.
+ *
+ * @property maximumSize The maximum number of statements kept.  When it is reached, the least recently used statement
+ * is evicted.
+ * @property expireAfterWrite The time after which a statement is evicted, or null if statements do not expire.
+ * @property catalogVersion Returns the version of the global variables (and their types) which statements are compiled
+ * against.  A statement compiled for a version is not returned for another version, e.g. once a table is added or its
+ * schema changes.
+ */
+class StatementCacheOptions @JvmOverloads constructor(
+    val maximumSize: Int = DEFAULT_STATEMENT_CACHE_SIZE,
+    val expireAfterWrite: Duration? = null,
+    val catalogVersion: () -> Any? = { null }
+) {
+    init {
+        require(maximumSize > 0) { "maximumSize must be greater than zero" }
+        require(expireAfterWrite == null || !expireAfterWrite.isNegative) { "expireAfterWrite must not be negative" }
+    }
+
+    companion object {
+        const val DEFAULT_STATEMENT_CACHE_SIZE = 1000
+    }
+}
+
+/**
+ * The counters of a compiled-statement cache, since it was created.
+ *
+ * @property hits The number of compilations that returned a cached statement.
+ * @property misses The number of compilations that compiled the statement.
+ * @property evictions The number of statements evicted because the cache was full or they expired.
+ * @property size The number of statements in the cache.
+ */
+data class StatementCacheStats(
+    val hits: Long,
+    val misses: Long,
+    val evictions: Long,
+    val size: Int
+)
+
+/**
+ * A compiled-statement cache, see [StatementCacheOptions].  Instances are safe for use by multiple threads.
+ *
+ * The pipeline compiles the statement of a miss outside of the lock, thus concurrent misses of the same query may
+ * compile it more than once; the last compiled statement is kept.
+ *
+ * @param ticker Returns the current time in nanoseconds.
+ */
+internal class StatementCache<T : Any>(
+    private val options: StatementCacheOptions,
+    private val ticker: () -> Long = System::nanoTime
+) {
+    data class Key(val text: String, val catalogVersion: Any?)
+
+    private class Entry<T>(val statement: T, val writtenAt: Long)
+
+    private val hits = AtomicLong()
+    private val misses = AtomicLong()
+    private val evictions = AtomicLong()
+
+    private val entries = object : LinkedHashMap<Key, Entry<T>>(16, 0.75f, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<Key, Entry<T>>?): Boolean =
+            (size > options.maximumSize).also { if (it) evictions.incrementAndGet() }
+    }
+
+    private val expireAfterWriteNanos = options.expireAfterWrite?.toNanos()
+
+    /** Returns the key of the statement [text], for the current catalog version. */
+    fun keyOf(text: String): Key = Key(normalizeStatementText(text), options.catalogVersion())
+
+    /** Returns the statement of [key], or null if it is not cached or expired. */
+    operator fun get(key: Key): T? {
+        val statement = synchronized(entries) {
+            val entry = entries[key]
+            when {
+                entry == null -> null
+                expireAfterWriteNanos != null && ticker() - entry.writtenAt >= expireAfterWriteNanos -> {
+                    entries.remove(key)
+                    evictions.incrementAndGet()
+                    null
+                }
+                else -> entry.statement
+            }
+        }
+        when (statement) {
+            null -> misses.incrementAndGet()
+            else -> hits.incrementAndGet()
+        }
+        return statement
+    }
+
+    operator fun set(key: Key, statement: T) {
+        synchronized(entries) { entries[key] = Entry(statement, ticker()) }
+    }
+
+    fun stats(): StatementCacheStats =
+        StatementCacheStats(hits.get(), misses.get(), evictions.get(), synchronized(entries) { entries.size })
+}
+
+/**
+ * Collapses each run of whitespace outside of string literals and quoted identifiers to a single space, and removes
+ * leading and trailing whitespace, such that statements which differ only in their layout share a cache entry.
+ *
+ * The text that follows an Ion literal (`` ` ``) or a comment is kept as is, since an Ion literal may contain backticks
+ * and a line comment ends at the next line terminator.
+ */
+internal fun normalizeStatementText(text: String): String {
+    val normalized = StringBuilder(text.length)
+    var quote: Char? = null
+    var pendingSpace = false
+    val trimmed = text.trim()
+    for ((index, c) in trimmed.withIndex()) {
+        when {
+            quote != null -> {
+                normalized.append(c)
+                if (c == quote) {
+                    quote = null
+                }
+            }
+            c.isWhitespace() -> pendingSpace = true
+            else -> {
+                if (pendingSpace) {
+                    normalized.append(' ')
+                    pendingSpace = false
+                }
+                when (c) {
+                    '\'', '"' -> {
+                        quote = c
+                        normalized.append(c)
+                    }
+                    '`' -> return normalized.append(trimmed, index, trimmed.length).toString()
+                    '-', '/' -> {
+                        val next = trimmed.getOrNull(index + 1)
+                        if ((c == '-' && next == '-') || (c == '/' && next == '*')) {
+                            return normalized.append(trimmed, index, trimmed.length).toString()
+                        }
+                        normalized.append(c)
+                    }
+                    else -> normalized.append(c)
+                }
+            }
+        }
+    }
+    return normalized.toString()
+}
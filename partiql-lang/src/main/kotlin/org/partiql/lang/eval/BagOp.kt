@@ -74,44 +74,69 @@ internal fun ExprValue.coerceToBag(): Sequence<ExprValue> = when {
     else -> this.asSequence()
 }
 
-private val outerUnion = ExprValueBagOp { lhs, rhs ->
-    sequence {
-        val multiplicities = lhs.multiplicities()
-        yieldAll(lhs)
-        rhs.forEach {
-            val m = multiplicities.getOrDefault(it, 0)
-            if (m > 0) {
-                multiplicities[it] = m - 1
-            } else {
-                yield(it)
-            }
+/**
+ * An outer bag operator, which counts the occurrences of the values of one of its operands in a hash table.  The
+ * distinct values of the hash table are reserved in a [MemoryReservation] while the result is read.
+ */
+private class OuterBagOp(
+    private val op: suspend SequenceScope<ExprValue>.(
+        lhs: Sequence<ExprValue>,
+        rhs: Sequence<ExprValue>,
+        memory: MemoryReservation
+    ) -> Unit
+) : ExprValueBagOp {
+    override fun eval(lhs: Sequence<ExprValue>, rhs: Sequence<ExprValue>): Sequence<ExprValue> =
+        eval(lhs, rhs, MemoryReservation.NONE)
+
+    fun eval(lhs: Sequence<ExprValue>, rhs: Sequence<ExprValue>, memory: MemoryReservation): Sequence<ExprValue> =
+        sequence {
+            op(lhs, rhs, memory)
+            memory.release()
+        }
+}
+
+/** Evaluates this bag operator, reserving the hash table of the outer bag operators in [memory]. */
+internal fun ExprValueBagOp.eval(lhs: ExprValue, rhs: ExprValue, memory: MemoryReservation): Sequence<ExprValue> =
+    when (this) {
+        is OuterBagOp -> eval(lhs.coerceToBag(), rhs.coerceToBag(), memory)
+        else -> eval(lhs, rhs)
+    }
+
+private val outerUnion = OuterBagOp { lhs, rhs, memory ->
+    val multiplicities = lhs.countOccurrences(memory)
+    yieldAll(lhs)
+    rhs.forEach {
+        val key = ExprValueKey(it)
+        val m = multiplicities.getOrDefault(key, 0)
+        if (m > 0) {
+            multiplicities[key] = m - 1
+        } else {
+            yield(it)
         }
     }
 }
 
-private val outerIntersect = ExprValueBagOp { lhs, rhs ->
-    sequence {
-        val multiplicities = lhs.multiplicities()
-        rhs.forEach {
-            val m = multiplicities.getOrDefault(it, 0)
-            if (m > 0) {
-                yield(it)
-                multiplicities[it] = m - 1
-            }
+private val outerIntersect = OuterBagOp { lhs, rhs, memory ->
+    val multiplicities = lhs.countOccurrences(memory)
+    rhs.forEach {
+        val key = ExprValueKey(it)
+        val m = multiplicities.getOrDefault(key, 0)
+        if (m > 0) {
+            yield(it)
+            multiplicities[key] = m - 1
         }
     }
 }
 
-private val outerExcept = ExprValueBagOp { lhs, rhs ->
-    sequence {
-        val multiplicities = rhs.multiplicities()
-        lhs.forEach {
-            val m = multiplicities.getOrDefault(it, 0)
-            if (m > 0) {
-                multiplicities[it] = m - 1
-            } else {
-                yield(it)
-            }
+private val outerExcept = OuterBagOp { lhs, rhs, memory ->
+    val multiplicities = rhs.countOccurrences(memory)
+    lhs.forEach {
+        val key = ExprValueKey(it)
+        val m = multiplicities.getOrDefault(key, 0)
+        if (m > 0) {
+            multiplicities[key] = m - 1
+        } else {
+            yield(it)
         }
     }
 }
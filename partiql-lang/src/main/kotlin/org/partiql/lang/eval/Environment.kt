@@ -14,8 +14,6 @@
 
 package org.partiql.lang.eval
 
-import java.util.TreeMap
-
 /**
  * The environment for execution.
  *
@@ -24,21 +22,24 @@ import java.util.TreeMap
  *                `globals` or `locals` depending on the context.
  * @param session The evaluation session.
  * @param groups The map of [Group]s that is currently being built during query execution.
+ * @param memory The memory reserved by the operators buffering rows during this evaluation, or `null` if the session
+ *               has no [EvaluationSession.memoryBudget].
  */
 internal data class Environment(
     internal val locals: Bindings<ExprValue>,
     val current: Bindings<ExprValue> = locals,
     val session: EvaluationSession,
-    val groups: MutableMap<ExprValue, Group> = createGroupMap(),
+    val groups: MutableMap<ExprValueKey, Group> = createGroupMap(),
     val currentGroup: Group? = null,
     val branchCounts: MutableMap<String, Long>? = null,
-    val branchConditionCounts: MutableMap<String, Long>? = null
+    val branchConditionCounts: MutableMap<String, Long>? = null,
+    val memory: MemoryAccount? = MemoryAccount.of(session)
 ) {
 
     companion object {
         fun standard() = Environment(locals = Bindings.empty(), session = EvaluationSession.standard())
 
-        private fun createGroupMap() = TreeMap<ExprValue, Group>(DEFAULT_COMPARATOR)
+        private fun createGroupMap() = LinkedHashMap<ExprValueKey, Group>()
     }
 
     internal enum class CurrentMode {
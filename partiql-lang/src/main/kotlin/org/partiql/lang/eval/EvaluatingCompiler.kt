@@ -40,8 +40,10 @@ import org.partiql.lang.domains.toBindingCase
 import org.partiql.lang.eval.binding.Alias
 import org.partiql.lang.eval.binding.localsBinder
 import org.partiql.lang.eval.builtins.storedprocedure.StoredProcedure
+import org.partiql.lang.eval.impl.FunctionCallSite
 import org.partiql.lang.eval.impl.FunctionManager
-import org.partiql.lang.eval.like.parsePattern
+import org.partiql.lang.eval.like.LikePattern
+import org.partiql.lang.eval.like.LikePatternCache
 import org.partiql.lang.eval.time.Time
 import org.partiql.lang.eval.visitors.PartiqlAstSanityValidator
 import org.partiql.lang.graph.EdgeSpec
@@ -51,6 +53,9 @@ import org.partiql.lang.graph.GraphEngine
 import org.partiql.lang.graph.NodeSpec
 import org.partiql.lang.graph.Stride
 import org.partiql.lang.graph.StrideSpec
+import org.partiql.lang.metrics.MetricsRecorder
+import org.partiql.lang.metrics.PartiQLMetrics
+import org.partiql.lang.metrics.measure
 import org.partiql.lang.types.StaticTypeUtils.getRuntimeType
 import org.partiql.lang.types.StaticTypeUtils.isInstance
 import org.partiql.lang.types.StaticTypeUtils.staticTypeFromExprValue
@@ -69,9 +74,11 @@ import org.partiql.lang.util.isZero
 import org.partiql.lang.util.minus
 import org.partiql.lang.util.plus
 import org.partiql.lang.util.rem
+import org.partiql.lang.util.sortedTopN
 import org.partiql.lang.util.stringValue
 import org.partiql.lang.util.take
 import org.partiql.lang.util.times
+import org.partiql.lang.util.topNCount
 import org.partiql.lang.util.totalMinutes
 import org.partiql.lang.util.unaryMinus
 import org.partiql.pig.runtime.SymbolPrimitive
@@ -83,8 +90,6 @@ import org.partiql.types.StaticType
 import org.partiql.types.UnsupportedTypeCheckException
 import java.util.LinkedList
 import java.util.Stack
-import java.util.TreeSet
-import java.util.regex.Pattern
 
 /**
  * A thunk with no parameters other than the current environment.
@@ -125,12 +130,14 @@ private typealias ThunkEnvValue<T> = ThunkValue<Environment, T>
  *
  * @param functions A map of functions keyed by function name that will be available during compilation.
  * @param compileOptions Various options that effect how the source code is compiled.
+ * @param metrics Receives the compile and evaluation times, errors and interrupts.
  */
 internal open class EvaluatingCompiler(
     private val functions: List<ExprFunction>,
     private val customTypedOpParameters: Map<String, TypedOpParameter>,
     private val procedures: Map<String, StoredProcedure>,
-    internal val compileOptions: CompileOptions = CompileOptions.standard()
+    internal val compileOptions: CompileOptions = CompileOptions.standard(),
+    private val metrics: MetricsRecorder = MetricsRecorder.NONE
 ) {
 
     // TODO: remove this once we migrate from `IonValue` to `IonElement`.
@@ -369,14 +376,16 @@ internal open class EvaluatingCompiler(
      * hope that long-running compilations may be aborted by the caller.
      */
     open fun compile(originalAst: PartiqlAst.Statement): Expression {
-        val visitorTransform = compileOptions.visitorTransformMode.createVisitorTransform()
-        val transformedAst = visitorTransform.transformStatement(originalAst)
-        val partiqlAstSanityValidator = PartiqlAstSanityValidator()
+        val thunk = metrics.measure(PartiQLMetrics.PHASE_COMPILE, PartiQLMetrics.COMPILE_TIME) {
+            val visitorTransform = compileOptions.visitorTransformMode.createVisitorTransform()
+            val transformedAst = visitorTransform.transformStatement(originalAst)
+            val partiqlAstSanityValidator = PartiqlAstSanityValidator()
 
-        partiqlAstSanityValidator.validate(transformedAst, compileOptions)
+            partiqlAstSanityValidator.validate(transformedAst, compileOptions)
 
-        val thunk = nestCompilationContext(ExpressionContext.NORMAL, emptySet()) {
-            compileAstStatement(transformedAst)
+            nestCompilationContext(ExpressionContext.NORMAL, emptySet()) {
+                compileAstStatement(transformedAst)
+            }
         }
 
         return object : Expression {
@@ -388,7 +397,7 @@ internal open class EvaluatingCompiler(
                     locals = session.globals,
                     current = session.globals
                 )
-                return thunk(env)
+                return metrics.measure(PartiQLMetrics.PHASE_EVAL, PartiQLMetrics.EVAL_TIME) { thunk(env) }
             }
 
             override fun evaluate(session: EvaluationSession): PartiQLResult {
@@ -397,7 +406,7 @@ internal open class EvaluatingCompiler(
                     locals = session.globals,
                     current = session.globals
                 )
-                val value = thunk(env)
+                val value = metrics.measure(PartiQLMetrics.PHASE_EVAL, PartiQLMetrics.EVAL_TIME) { thunk(env) }
                 return PartiQLResult.Value(value = value)
             }
         }
@@ -504,6 +513,8 @@ internal open class EvaluatingCompiler(
 
     private fun compileAstExprs(args: List<PartiqlAst.Expr>) = args.map { compileAstExpr(it) }
 
+    private fun staticTypesOf(args: List<PartiqlAst.Expr>) = args.map { it.metas.staticType?.type }
+
     private fun compileNullIf(expr: PartiqlAst.Expr.NullIf, metas: MetaContainer): ThunkEnv {
         val expr1Thunk = compileAstExpr(expr.expr1)
         val expr2Thunk = compileAstExpr(expr.expr2)
@@ -646,9 +657,10 @@ internal open class EvaluatingCompiler(
 
         val argThunks = compileAstExprs(expr.operands)
 
-        val computeThunk = thunkFactory.thunkFold(metas, argThunks) { lValue, rValue ->
+        val plus = numericOperator(staticTypesOf(expr.operands), ::plusPrimitive) { lValue, rValue ->
             (lValue.numberValue() + rValue.numberValue()).exprValue()
         }
+        val computeThunk = thunkFactory.thunkFold(metas, argThunks, plus)
 
         return checkIntegerOverflow(computeThunk, metas)
     }
@@ -660,9 +672,10 @@ internal open class EvaluatingCompiler(
 
         val argThunks = compileAstExprs(expr.operands)
 
-        val computeThunk = thunkFactory.thunkFold(metas, argThunks) { lValue, rValue ->
+        val minus = numericOperator(staticTypesOf(expr.operands), ::minusPrimitive) { lValue, rValue ->
             (lValue.numberValue() - rValue.numberValue()).exprValue()
         }
+        val computeThunk = thunkFactory.thunkFold(metas, argThunks, minus)
 
         return checkIntegerOverflow(computeThunk, metas)
     }
@@ -693,9 +706,10 @@ internal open class EvaluatingCompiler(
     private fun compileTimes(expr: PartiqlAst.Expr.Times, metas: MetaContainer): ThunkEnv {
         val argThunks = compileAstExprs(expr.operands)
 
-        val computeThunk = thunkFactory.thunkFold(metas, argThunks) { lValue, rValue ->
+        val times = numericOperator(staticTypesOf(expr.operands), ::timesPrimitive) { lValue, rValue ->
             (lValue.numberValue() * rValue.numberValue()).exprValue()
         }
+        val computeThunk = thunkFactory.thunkFold(metas, argThunks, times)
 
         return checkIntegerOverflow(computeThunk, metas)
     }
@@ -703,7 +717,7 @@ internal open class EvaluatingCompiler(
     private fun compileDivide(expr: PartiqlAst.Expr.Divide, metas: MetaContainer): ThunkEnv {
         val argThunks = compileAstExprs(expr.operands)
 
-        val computeThunk = thunkFactory.thunkFold(metas, argThunks) { lValue, rValue ->
+        val divide = numericOperator(staticTypesOf(expr.operands), ::dividePrimitive) { lValue, rValue ->
             val denominator = rValue.numberValue()
 
             errorSignaler.errorIf(
@@ -725,6 +739,7 @@ internal open class EvaluatingCompiler(
                 }
             }
         }
+        val computeThunk = thunkFactory.thunkFold(metas, argThunks, divide)
 
         return checkIntegerOverflow(computeThunk, metas)
     }
@@ -732,7 +747,7 @@ internal open class EvaluatingCompiler(
     private fun compileModulo(expr: PartiqlAst.Expr.Modulo, metas: MetaContainer): ThunkEnv {
         val argThunks = compileAstExprs(expr.operands)
 
-        val computeThunk = thunkFactory.thunkFold(metas, argThunks) { lValue, rValue ->
+        val modulo = numericOperator(staticTypesOf(expr.operands), ::moduloPrimitive) { lValue, rValue ->
             val denominator = rValue.numberValue()
             if (denominator.isZero()) {
                 err("% by zero", ErrorCode.EVALUATOR_MODULO_BY_ZERO, errorContextFrom(metas), false)
@@ -740,6 +755,7 @@ internal open class EvaluatingCompiler(
 
             (lValue.numberValue() % denominator).exprValue()
         }
+        val computeThunk = thunkFactory.thunkFold(metas, argThunks, modulo)
 
         return checkIntegerOverflow(computeThunk, metas)
     }
@@ -756,41 +772,67 @@ internal open class EvaluatingCompiler(
     internal open fun compileEq(expr: PartiqlAst.Expr.Eq, metas: MetaContainer): ThunkEnv {
         val argThunks = compileAstExprs(expr.operands)
 
-        return thunkFactory.thunkAndMap(metas, argThunks) { lValue, rValue ->
-            (lValue.exprEquals(rValue))
-        }
+        val eq = numericOperator(
+            staticTypesOf(expr.operands),
+            { lValue, rValue -> comparePrimitive(lValue, rValue)?.let { it == 0 } }
+        ) { lValue, rValue -> lValue.exprEquals(rValue) }
+
+        return thunkFactory.thunkAndMap(metas, argThunks, eq)
     }
 
     internal open fun compileNe(expr: PartiqlAst.Expr.Ne, metas: MetaContainer): ThunkEnv {
         val argThunks = compileAstExprs(expr.operands)
 
-        return thunkFactory.thunkFold(metas, argThunks) { lValue, rValue ->
-            ((!lValue.exprEquals(rValue)).exprValue())
-        }
+        val ne = numericOperator(
+            staticTypesOf(expr.operands),
+            { lValue, rValue -> comparePrimitive(lValue, rValue)?.let { (it != 0).exprValue() } }
+        ) { lValue, rValue -> (!lValue.exprEquals(rValue)).exprValue() }
+
+        return thunkFactory.thunkFold(metas, argThunks, ne)
     }
 
     internal open fun compileLt(expr: PartiqlAst.Expr.Lt, metas: MetaContainer): ThunkEnv {
         val argThunks = compileAstExprs(expr.operands)
 
-        return thunkFactory.thunkAndMap(metas, argThunks) { lValue, rValue -> lValue < rValue }
+        val lt = numericOperator(
+            staticTypesOf(expr.operands),
+            { lValue, rValue -> comparePrimitive(lValue, rValue)?.let { it < 0 } }
+        ) { lValue, rValue -> lValue < rValue }
+
+        return thunkFactory.thunkAndMap(metas, argThunks, lt)
     }
 
     internal open fun compileLte(expr: PartiqlAst.Expr.Lte, metas: MetaContainer): ThunkEnv {
         val argThunks = compileAstExprs(expr.operands)
 
-        return thunkFactory.thunkAndMap(metas, argThunks) { lValue, rValue -> lValue <= rValue }
+        val lte = numericOperator(
+            staticTypesOf(expr.operands),
+            { lValue, rValue -> comparePrimitive(lValue, rValue)?.let { it <= 0 } }
+        ) { lValue, rValue -> lValue <= rValue }
+
+        return thunkFactory.thunkAndMap(metas, argThunks, lte)
     }
 
     internal open fun compileGt(expr: PartiqlAst.Expr.Gt, metas: MetaContainer): ThunkEnv {
         val argThunks = compileAstExprs(expr.operands)
 
-        return thunkFactory.thunkAndMap(metas, argThunks) { lValue, rValue -> lValue > rValue }
+        val gt = numericOperator(
+            staticTypesOf(expr.operands),
+            { lValue, rValue -> comparePrimitive(lValue, rValue)?.let { it > 0 } }
+        ) { lValue, rValue -> lValue > rValue }
+
+        return thunkFactory.thunkAndMap(metas, argThunks, gt)
     }
 
     internal open fun compileGte(expr: PartiqlAst.Expr.Gte, metas: MetaContainer): ThunkEnv {
         val argThunks = compileAstExprs(expr.operands)
 
-        return thunkFactory.thunkAndMap(metas, argThunks) { lValue, rValue -> lValue >= rValue }
+        val gte = numericOperator(
+            staticTypesOf(expr.operands),
+            { lValue, rValue -> comparePrimitive(lValue, rValue)?.let { it >= 0 } }
+        ) { lValue, rValue -> lValue >= rValue }
+
+        return thunkFactory.thunkAndMap(metas, argThunks, gte)
     }
 
     internal open fun compileBetween(expr: PartiqlAst.Expr.Between, metas: MetaContainer): ThunkEnv {
@@ -832,13 +874,13 @@ internal open class EvaluatingCompiler(
             // If the left-hand value is one of these we can short-circuit with a result of TRUE.
             // This is the fastest possible case and allows for hundreds of literal values (or more) in the
             // sequence without a huge performance penalty.
-            // NOTE: we cannot use a [HashSet<>] here because [ExprValue] does not implement [Object.hashCode] or
-            // [Object.equals].
             val precomputedLiteralsMap = values
                 .filterIsInstance<PartiqlAst.Expr.Lit>()
-                .mapTo(TreeSet<ExprValue>(DEFAULT_COMPARATOR)) {
-                    ExprValue.of(
-                        it.value.toIonValue(ion)
+                .mapTo(HashSet<ExprValueKey>()) {
+                    ExprValueKey(
+                        ExprValue.of(
+                            it.value.toIonValue(ion)
+                        )
                     )
                 }
 
@@ -846,7 +888,7 @@ internal open class EvaluatingCompiler(
             // thunkEnvOperands takes care of unknown propagation for the left side; for the right,
             // this unknown propagation does not apply since we've eliminated the possibility of unknowns above.
             return thunkFactory.thunkEnvOperands(metas, leftThunk) { _, leftValue ->
-                precomputedLiteralsMap.contains(leftValue).exprValue()
+                precomputedLiteralsMap.contains(ExprValueKey(leftValue)).exprValue()
             }
         }
 
@@ -1036,20 +1078,19 @@ internal open class EvaluatingCompiler(
         val funcArgThunks = compileAstExprs(expr.args)
         val arity = funcArgThunks.size
         val name = expr.funcName.text
-        return thunkFactory.thunkEnv(metas) { env ->
+        val callSite = FunctionCallSite(
+            functionManager,
+            name,
+            arity,
+            argStaticTypes = expr.args.map { it.metas.staticType?.type },
+            literals = expr.args.map { arg ->
+                (arg as? PartiqlAst.Expr.Lit)?.let { ExprValue.of(it.value.toIonValue(ion)) }
+            }
+        )
+        val computeThunk = thunkFactory.thunkEnv(metas) { env ->
             val args = funcArgThunks.map { thunk -> thunk(env) }
-            val argTypes = args.map { staticTypeFromExprValue(it) }
-            try {
-                val func = functionManager.get(name = name, arity = arity, args = argTypes)
-                val computeThunk = when (func.signature.unknownArguments) {
-                    UnknownArguments.PROPAGATE -> thunkFactory.thunkEnvOperands(metas, funcArgThunks) { env, values ->
-                        func.call(env.session, args)
-                    }
-                    UnknownArguments.PASS_THRU -> thunkFactory.thunkEnv(metas) { env ->
-                        func.call(env.session, args)
-                    }
-                }
-                checkIntegerOverflow(computeThunk, metas)(env)
+            val func = try {
+                callSite.resolve(args)
             } catch (e: FunctionNotFoundException) {
                 err(
                     "No such function: $name",
@@ -1074,7 +1115,15 @@ internal open class EvaluatingCompiler(
                     internal = false
                 )
             }
+            when (func.signature.unknownArguments) {
+                // The arguments are not evaluated again to propagate unknowns.
+                UnknownArguments.PROPAGATE -> thunkFactory.propagateUnknowns(args.asSequence()) { values ->
+                    func.call(env.session, values)
+                }
+                UnknownArguments.PASS_THRU -> func.call(env.session, args)
+            }
         }
+        return checkIntegerOverflow(computeThunk, metas)
     }
 
     internal open fun compileLit(expr: PartiqlAst.Expr.Lit, metas: MetaContainer): ThunkEnv {
@@ -1625,12 +1674,16 @@ internal open class EvaluatingCompiler(
         val lhs = compileAstExpr(node.operands[0])
         val rhs = compileAstExpr(node.operands[1])
         val op = ExprValueBagOp.create(node.op, metas)
+        // The owners of the reservations of the operator and of DISTINCT, see [MemoryAccount.reopen].
+        val opMemory = Any()
+        val distinctMemory = Any()
         return thunkFactory.thunkEnv(metas) { env ->
             val l = lhs(env)
             val r = rhs(env)
             val result = when (node.quantifier) {
-                is PartiqlAst.SetQuantifier.All -> op.eval(l, r)
-                is PartiqlAst.SetQuantifier.Distinct -> op.eval(l, r).distinct()
+                is PartiqlAst.SetQuantifier.All -> op.eval(l, r, MemoryReservation.of(env.memory, opMemory))
+                is PartiqlAst.SetQuantifier.Distinct -> op.eval(l, r, MemoryReservation.of(env.memory, opMemory))
+                    .distinct(MemoryReservation.of(env.memory, distinctMemory))
             }
             ExprValue.newBag(result)
         }
@@ -1832,17 +1885,33 @@ internal open class EvaluatingCompiler(
 
             val excludeExprs = selectExpr.excludeClause?.let { compileExcludeClause(it) }
 
-            fun <T> rowsWithOffsetAndLimit(rows: Sequence<T>, env: Environment): Sequence<T> {
-                val rowsWithOffset = when (offsetThunk) {
+            // The owners of the reservations of ORDER BY, DISTINCT and GROUP BY, see [MemoryAccount.reopen].
+            val orderByMemory = Any()
+            val distinctMemory = Any()
+            val groupByMemory = Any()
+
+            // Evaluates OFFSET and LIMIT, which are `null` when absent, once for each evaluation of the query, such
+            // that both ORDER BY and the final LIMIT step use the same values.
+            fun evalOffsetAndLimit(env: Environment): Pair<Long?, Long?> = Pair(
+                offsetThunk?.let { evalOffset(it, env, offsetLocationMeta) },
+                limitThunk?.let { evalLimit(it, env, limitLocationMeta) }
+            )
+
+            fun <T> rowsWithOffsetAndLimit(rows: Sequence<T>, offset: Long?, limit: Long?): Sequence<T> {
+                val rowsWithOffset = when (offset) {
                     null -> rows
-                    else -> rows.drop(evalOffset(offsetThunk, env, offsetLocationMeta))
+                    else -> rows.drop(offset)
                 }
-                return when (limitThunk) {
+                return when (limit) {
                     null -> rowsWithOffset
-                    else -> rowsWithOffset.take(evalLimit(limitThunk, env, limitLocationMeta))
+                    else -> rowsWithOffset.take(limit)
                 }
             }
 
+            // Returns the number of rows that ORDER BY must produce when it is followed by LIMIT (and OFFSET), so that
+            // only those rows are kept while sorting, or `null` if all the rows must be sorted.
+            fun orderByRowCount(offset: Long?, limit: Long?): Long? = limit?.let { topNCount(it, offset ?: 0L) }
+
             // Returns a thunk that invokes [sourceThunks], and invokes [projectionThunk] to perform the projection.
             fun getQueryThunk(selectProjectionThunk: ThunkEnvValue<List<ExprValue>>): ThunkEnv {
                 val groupByItems = selectExpr.group?.keyList?.keys ?: listOf()
@@ -1860,10 +1929,27 @@ internal open class EvaluatingCompiler(
                                 interruptionCheck()
                                 it
                             }
+                            val (offset, limit) = evalOffsetAndLimit(env)
 
                             val orderedRows = when (orderByThunk) {
                                 null -> sourcedRows
-                                else -> evalOrderBy(sourcedRows, orderByThunk, orderByLocationMeta)
+                                else -> when (selectExpr.setq) {
+                                    // DISTINCT is applied between ORDER BY and LIMIT, so all the rows must be sorted
+                                    is PartiqlAst.SetQuantifier.Distinct ->
+                                        evalOrderBy(
+                                            sourcedRows,
+                                            orderByThunk,
+                                            orderByLocationMeta,
+                                            memory = MemoryReservation.of(env.memory, orderByMemory)
+                                        )
+                                    else -> evalOrderBy(
+                                        sourcedRows,
+                                        orderByThunk,
+                                        orderByLocationMeta,
+                                        orderByRowCount(offset, limit),
+                                        MemoryReservation.of(env.memory, orderByMemory)
+                                    )
+                                }
                             }
 
                             val excludedBindings = when (excludeExprs) {
@@ -1881,9 +1967,10 @@ internal open class EvaluatingCompiler(
 
                             val quantifiedRows = when (selectExpr.setq ?: PartiqlAst.SetQuantifier.All()) {
                                 // wrap the ExprValue to use ExprValue.equals as the equality
-                                is PartiqlAst.SetQuantifier.Distinct -> projectedRows.distinct()
+                                is PartiqlAst.SetQuantifier.Distinct ->
+                                    projectedRows.distinct(MemoryReservation.of(env.memory, distinctMemory))
                                 is PartiqlAst.SetQuantifier.All -> projectedRows
-                            }.let { rowsWithOffsetAndLimit(it, env) }
+                            }.let { rowsWithOffsetAndLimit(it, offset, limit) }
 
                             // if order by is specified, return list otherwise bag
                             when (orderByThunk) {
@@ -1935,10 +2022,16 @@ internal open class EvaluatingCompiler(
                             groupByItems.isEmpty() -> { // There are aggregates but no group by items
                                 // Create a closure that groups all the rows in the FROM source into a single group.
                                 thunkFactory.thunkEnv(metas) { env ->
+                                    val (offset, limit) = evalOffsetAndLimit(env)
                                     // Evaluate the FROM clause
                                     val orderedRows = when (orderByThunk) {
                                         null -> sourceThunks(env)
-                                        else -> evalOrderBy(sourceThunks(env), orderByThunk, orderByLocationMeta)
+                                        else -> evalOrderBy(
+                                            sourceThunks(env),
+                                            orderByThunk,
+                                            orderByLocationMeta,
+                                            memory = MemoryReservation.of(env.memory, orderByMemory)
+                                        )
                                     }
 
                                     val excludedBindings = when (excludeExprs) {
@@ -1951,7 +2044,7 @@ internal open class EvaluatingCompiler(
                                     }
 
                                     val fromProductions: Sequence<FromProduction> =
-                                        rowsWithOffsetAndLimit(excludedBindings, env)
+                                        rowsWithOffsetAndLimit(excludedBindings, offset, limit)
                                     val registers = createRegisterBank()
 
                                     // note: the group key can be anything here because we only ever have a single
@@ -2004,6 +2097,7 @@ internal open class EvaluatingCompiler(
                                 thunkFactory.thunkEnv(metas) { env ->
                                     // Execute the FROM clause
                                     val fromProductions: Sequence<FromProduction> = sourceThunks(env)
+                                    val memory = MemoryReservation.of(env.memory, groupByMemory)
 
                                     // For each "row" in the output of the FROM clause
                                     fromProductions.forEach { fromProduction ->
@@ -2011,11 +2105,10 @@ internal open class EvaluatingCompiler(
                                         // Determine the group key for this value
                                         val groupKey = groupKeyThunk(fromProduction.env)
 
-                                        // look up existing group using group key (this is slow)
-                                        // We can't do that yet because ExprValue does not implement .hashCode()
-                                        // and .equals()
-                                        val group: Group = env.groups.getOrPut(groupKey) {
+                                        // look up existing group using group key
+                                        val group: Group = env.groups.getOrPut(ExprValueKey(groupKey)) {
                                             // An existing group was not found so create a new one
+                                            memory.add(groupKey)
                                             Group(groupKey, createRegisterBank())
                                         }
 
@@ -2034,14 +2127,26 @@ internal open class EvaluatingCompiler(
                                                     ).namedValue(pair.nameExprValue)
                                             }.asSequence()
 
-                                            group.groupValues.add(createStructExprValue(seq, StructOrdering.UNORDERED))
+                                            val groupValue = createStructExprValue(seq, StructOrdering.UNORDERED)
+                                            memory.add(groupValue)
+                                            group.groupValues.add(groupValue)
                                         }
                                     }
 
+                                    val (offset, limit) = evalOffsetAndLimit(env)
                                     val groupByEnvValuePairs = env.groups.mapNotNull { g -> getGroupEnv(env, g.value) to g.value }.asSequence()
                                     val orderedGroupEnvPairs = when (orderByThunk) {
                                         null -> groupByEnvValuePairs
-                                        else -> evalOrderBy(groupByEnvValuePairs, orderByThunk, orderByLocationMeta)
+                                        else -> when (havingThunk) {
+                                            // HAVING is applied between ORDER BY and LIMIT, so all the groups must be sorted
+                                            null -> evalOrderBy(
+                                                groupByEnvValuePairs,
+                                                orderByThunk,
+                                                orderByLocationMeta,
+                                                orderByRowCount(offset, limit)
+                                            )
+                                            else -> evalOrderBy(groupByEnvValuePairs, orderByThunk, orderByLocationMeta)
+                                        }
                                     }
 
                                     // apply HAVING row filter
@@ -2067,7 +2172,7 @@ internal open class EvaluatingCompiler(
                                     // generate the final group by projection
                                     val projectedRows = excludedBindings.map { (groupByEnv, currentGroup) ->
                                         selectProjectionThunk(groupByEnv, listOf(currentGroup.key))
-                                    }.let { rowsWithOffsetAndLimit(it, env) }
+                                    }.let { rowsWithOffsetAndLimit(it, offset, limit) }.releasing(memory)
 
                                     // if order by is specified, return list otherwise bag
                                     when (orderByThunk) {
@@ -2113,7 +2218,8 @@ internal open class EvaluatingCompiler(
                                     }
                                 }
                             }
-                            val sourceValue = rowsWithOffsetAndLimit(excludedBindings, env)
+                            val (offset, limit) = evalOffsetAndLimit(env)
+                            val sourceValue = rowsWithOffsetAndLimit(excludedBindings, offset, limit)
                             val seq = sourceValue
                                 .map { (_, env) -> Pair(asThunk(env), atThunk(env)) }
                                 .filter { (name, _) -> name.type.isText }
@@ -2571,10 +2677,17 @@ internal open class EvaluatingCompiler(
         return env.nest(newLocals = newBindings)
     }
 
+    /**
+     * Sorts [rows] according to [orderByItems].  If [rowCount] is specified, only the first [rowCount] sorted rows are
+     * returned, which are found without sorting (or keeping in memory) all of the [rows].  Otherwise the values of the
+     * [FromProduction]s being sorted are reserved in [memory] (groups are reserved as they are built).
+     */
     private fun <T> evalOrderBy(
         rows: Sequence<T>,
         orderByItems: List<CompiledOrderByItem>,
-        offsetLocationMeta: SourceLocationMeta?
+        offsetLocationMeta: SourceLocationMeta?,
+        rowCount: Long? = null,
+        memory: MemoryReservation = MemoryReservation.NONE
     ): Sequence<T> {
         val initialComparator: Comparator<T>? = null
         val resultComparator = orderByItems.interruptibleFold(initialComparator) { intermediateComparator, orderByItem ->
@@ -2595,7 +2708,13 @@ internal open class EvaluatingCompiler(
             internal = true
         )
 
-        return rows.sortedWith(resultComparator)
+        return when (rowCount) {
+            null -> rows
+                .onEach { row -> if (row is FromProduction) memory.addAll(row.values) }
+                .sortedWith(resultComparator)
+                .releasing(memory)
+            else -> rows.sortedTopN(resultComparator, rowCount)
+        }
     }
 
     private fun <T> resolveEnvironment(envWrapper: T, offsetLocationMeta: SourceLocationMeta?): Environment {
@@ -3100,6 +3219,7 @@ internal open class EvaluatingCompiler(
      * 1. All arguments are literals, then compile and run the pattern
      * 1. Search pattern and escape pattern are literals, compile the pattern. Running the pattern deferred to evaluation time.
      * 1. Pattern or escape (or both) are *not* literals, compile and running of pattern deferred to evaluation time.
+     * The compiled patterns are kept in a [LikePatternCache], such that recurring patterns are only compiled once.
      *
      * ```
      * <valueExpr> LIKE <patternExpr> [ESCAPE <escapeExpr>]
@@ -3116,7 +3236,7 @@ internal open class EvaluatingCompiler(
         val escapeLocationMeta = escapeExpr?.metas?.sourceLocation
 
         // This is so that null short-circuits can be supported.
-        fun getRegexPattern(pattern: ExprValue, escape: ExprValue?): (() -> Pattern)? {
+        fun getLikePattern(pattern: ExprValue, escape: ExprValue?, cache: LikePatternCache? = null): (() -> LikePattern)? {
             val patternArgs = listOfNotNull(pattern, escape)
             when {
                 patternArgs.any { it.type.isUnknown } -> return null
@@ -3132,18 +3252,18 @@ internal open class EvaluatingCompiler(
                     )
                 }
                 else -> {
-                    val (patternString: String, escapeChar: Int?) =
-                        checkPattern(pattern.stringValue(), patternLocationMeta, escape?.stringValue(), escapeLocationMeta)
-                    val likeRegexPattern = when {
-                        patternString.isEmpty() -> Pattern.compile("")
-                        else -> parsePattern(patternString, escapeChar)
+                    val compile = {
+                        val (patternString: String, escapeChar: Int?) =
+                            checkPattern(pattern.stringValue(), patternLocationMeta, escape?.stringValue(), escapeLocationMeta)
+                        LikePattern.compile(patternString, escapeChar)
                     }
-                    return { likeRegexPattern }
+                    val likePattern = cache?.getOrCompile(pattern.stringValue(), escape?.stringValue(), compile) ?: compile()
+                    return { likePattern }
                 }
             }
         }
 
-        fun matchRegexPattern(value: ExprValue, likePattern: (() -> Pattern)?): ExprValue {
+        fun matchLikePattern(value: ExprValue, likePattern: (() -> LikePattern)?): ExprValue {
             return when {
                 likePattern == null || value.type.isUnknown -> ExprValue.nullValue
                 !value.type.isText -> err(
@@ -3154,17 +3274,17 @@ internal open class EvaluatingCompiler(
                     },
                     internal = false
                 )
-                else -> ExprValue.newBoolean(likePattern().matcher(value.stringValue()).matches())
+                else -> ExprValue.newBoolean(likePattern().matches(value.stringValue()))
             }
         }
 
         val valueThunk = compileAstExpr(valueExpr)
 
         // If the pattern and escape expressions are literals then we can compile the pattern now and
-        // re-use it with every execution. Otherwise, we must re-compile the pattern every time.
+        // re-use it with every execution. Otherwise, we must compile the patterns as they are evaluated.
         return when {
             patternExpr is PartiqlAst.Expr.Lit && (escapeExpr == null || escapeExpr is PartiqlAst.Expr.Lit) -> {
-                val patternParts = getRegexPattern(
+                val patternParts = getLikePattern(
                     ExprValue.of(patternExpr.value.toIonValue(ion)),
                     (escapeExpr as? PartiqlAst.Expr.Lit)?.value?.toIonValue(ion)
                         ?.let { ExprValue.of(it) }
@@ -3172,29 +3292,30 @@ internal open class EvaluatingCompiler(
 
                 // If valueExpr is also a literal then we can evaluate this at compile time and return a constant.
                 if (valueExpr is PartiqlAst.Expr.Lit) {
-                    val resultValue = matchRegexPattern(
+                    val resultValue = matchLikePattern(
                         ExprValue.of(valueExpr.value.toIonValue(ion)),
                         patternParts
                     )
                     return thunkFactory.thunkEnv(metas) { resultValue }
                 } else {
                     thunkFactory.thunkEnvOperands(metas, valueThunk) { _, value ->
-                        matchRegexPattern(value, patternParts)
+                        matchLikePattern(value, patternParts)
                     }
                 }
             }
             else -> {
                 val patternThunk = compileAstExpr(patternExpr)
+                val patternCache = LikePatternCache()
                 when (escapeExpr) {
                     null -> {
-                        // thunk that re-compiles the DFA every evaluation without a custom escape sequence
+                        // thunk that compiles (or gets from the cache) the pattern every evaluation without a custom escape sequence
                         thunkFactory.thunkEnvOperands(metas, valueThunk, patternThunk) { _, value, pattern ->
-                            val pps = getRegexPattern(pattern, null)
-                            matchRegexPattern(value, pps)
+                            val pps = getLikePattern(pattern, null, patternCache)
+                            matchLikePattern(value, pps)
                         }
                     }
                     else -> {
-                        // thunk that re-compiles the pattern every evaluation but *with* a custom escape sequence
+                        // thunk that compiles (or gets from the cache) the pattern every evaluation but *with* a custom escape sequence
                         val escapeThunk = compileAstExpr(escapeExpr)
                         thunkFactory.thunkEnvOperands(
                             metas,
@@ -3202,8 +3323,8 @@ internal open class EvaluatingCompiler(
                             patternThunk,
                             escapeThunk
                         ) { _, value, pattern, escape ->
-                            val pps = getRegexPattern(pattern, escape)
-                            matchRegexPattern(value, pps)
+                            val pps = getLikePattern(pattern, escape, patternCache)
+                            matchLikePattern(value, pps)
                         }
                     }
                 }
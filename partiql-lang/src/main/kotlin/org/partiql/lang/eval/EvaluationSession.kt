@@ -26,12 +26,18 @@ import com.amazon.ion.Timestamp
  * provides a way to make custom session state such as current user and transaction details available to
  * custom [ExprFunction] implementations and custom physical operator implementations.
  * @property now Timestamp to consider as the current time, used by functions like `utcnow()` and `now()`. Defaults to [Timestamp.nowZ]
+ * @property memoryBudget The approximate number of bytes the operators buffering rows (e.g. `ORDER BY`, `GROUP BY`,
+ * `DISTINCT` or the bag operators) may hold in memory during one evaluation of a query, or `null` (the default) for no
+ * limit.  An evaluation exceeding it fails with [org.partiql.errors.ErrorCode.EVALUATOR_MEMORY_BUDGET_EXCEEDED],
+ * except for the operators which can spill their rows to disk, e.g.
+ * [org.partiql.lang.eval.physical.operators.ExternalSortOperatorFactoryAsync].
  */
 class EvaluationSession private constructor(
     val globals: Bindings<ExprValue>,
     val parameters: List<ExprValue>,
     val context: Map<String, Any>,
-    val now: Timestamp
+    val now: Timestamp,
+    val memoryBudget: Long?
 ) {
 
     companion object {
@@ -85,6 +91,13 @@ class EvaluationSession private constructor(
             return this
         }
 
+        private var memoryBudget: Long? = null
+        fun memoryBudget(bytes: Long): Builder {
+            require(bytes >= 0) { "memoryBudget must not be negative" }
+            memoryBudget = bytes
+            return this
+        }
+
         private val contextVariables = HashMap<String, Any>()
         fun withContextVariable(name: String, value: Any): Builder {
             contextVariables[name] = value
@@ -95,7 +108,8 @@ class EvaluationSession private constructor(
             now = now ?: Timestamp.nowZ(),
             parameters = parameters,
             context = contextVariables,
-            globals = globals
+            globals = globals,
+            memoryBudget = memoryBudget
         )
     }
 }
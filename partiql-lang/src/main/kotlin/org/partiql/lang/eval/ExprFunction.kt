@@ -61,6 +61,19 @@ interface ExprFunction {
         errNoContext("Invalid implementation for ${signature.name}#call", ErrorCode.INTERNAL_ERROR, true)
     }
 
+    /**
+     * Returns an implementation of this function specialized for the arguments of a call site which are literals, e.g.
+     * one which compiles a literal format pattern once instead of on every call, or `null` to invoke this function.
+     *
+     * The compilers call it once per call site and overload, and invoke the returned function in place of this one
+     * with all the arguments, including the literals.  Thus, it must have the same [signature] and behavior.  Errors
+     * (e.g. an invalid literal) must be raised when the function is invoked rather than by this method, which should
+     * return `null` instead.
+     *
+     * @param literals The value of each argument which is a literal, or `null` for the other arguments.
+     */
+    fun specialize(literals: List<ExprValue?>): ExprFunction? = null
+
     @Deprecated("Please define overloaded functions by providing each alternative in required parameter as its own ExprFunction; each function is invoked by callWithRequired() rather than callWithOptional().", level = DeprecationLevel.ERROR)
     fun callWithOptional(session: EvaluationSession, required: List<ExprValue>, opt: ExprValue): ExprValue {
         // Deriving ExprFunctions must implement this if they have a valid call form including required parameters and optional
@@ -109,12 +109,12 @@ interface ExprValue : Iterable<ExprValue>, Faceted {
             override fun stringValue() = value
         }
 
-        private class IntExprValue(val value: Long) : ScalarExprValue() {
+        private class IntExprValue(override val value: Long) : ScalarExprValue(), LongScalar {
             override val type = ExprValueType.INT
             override fun numberValue() = value
         }
 
-        private class FloatExprValue(val value: Double) : ScalarExprValue() {
+        private class FloatExprValue(override val value: Double) : ScalarExprValue(), DoubleScalar {
             override val type = ExprValueType.FLOAT
             override fun numberValue() = value
         }
@@ -190,6 +190,10 @@ interface ExprValue : Iterable<ExprValue>, Faceted {
         private val emptyString = StringExprValue("")
         private val emptySymbol = SymbolExprValue("")
 
+        private const val SMALL_INT_MIN = -128L
+        private const val SMALL_INT_MAX = 1024L
+        private val smallInts = Array((SMALL_INT_MAX - SMALL_INT_MIN + 1).toInt()) { IntExprValue(it + SMALL_INT_MIN) }
+
         // Public API
 
         /** A possibly memoized, immutable [ExprValue] representing the PartiQL missing value. */
@@ -233,15 +237,18 @@ interface ExprValue : Iterable<ExprValue>, Faceted {
                 else -> SymbolExprValue(value)
             }
 
-        /** Returns a PartiQL `INT` [ExprValue] instance representing the specified [Long]. */
+        /** Returns a possibly memoized PartiQL `INT` [ExprValue] instance representing the specified [Long]. */
         @JvmStatic
         fun newInt(value: Long): ExprValue =
-            IntExprValue(value)
+            when (value) {
+                in SMALL_INT_MIN..SMALL_INT_MAX -> smallInts[(value - SMALL_INT_MIN).toInt()]
+                else -> IntExprValue(value)
+            }
 
-        /** Returns a PartiQL `INT` ][ExprValue] instance representing the specified [Int]. */
+        /** Returns a possibly memoized PartiQL `INT` [ExprValue] instance representing the specified [Int]. */
         @JvmStatic
         fun newInt(value: Int): ExprValue =
-            IntExprValue(value.toLong())
+            newInt(value.toLong())
 
         /** Returns a PartiQL `FLOAT` [ExprValue] instance representing the specified [Float]. */
         @JvmStatic
@@ -372,6 +379,29 @@ interface ExprValue : Iterable<ExprValue>, Faceted {
         fun newFromIonReader(ion: IonSystem, reader: IonReader): ExprValue =
             of(ion.newValue(reader))
 
+        /**
+         * Creates a new [ExprValue] instance from the first value of the Ion data [bytes], preferably binary Ion, or
+         * `MISSING` if there is none.
+         *
+         * Unlike [of], containers are not materialized: they are read from [bytes] when they are accessed, and a field of
+         * a struct is looked up by skipping over the values of the other fields.
+         */
+        @JvmStatic
+        fun newFromIonBytes(ion: IonSystem, bytes: ByteArray): ExprValue =
+            LazyIonValues(ion, bytes).topLevelValue()
+
+        /**
+         * Creates a bag of the remaining top-level values of the specified [IonReader], which are read one at a time as
+         * the bag is iterated, such that an Ion stream larger than the heap can be scanned.  The containers are read
+         * lazily, as with [newFromIonBytes].
+         *
+         * The bag can be iterated only once.  Implementations should not close the [IonReader], but the caller must not
+         * close it before the bag is iterated.
+         */
+        @JvmStatic
+        fun newBagFromIonReader(ion: IonSystem, reader: IonReader): ExprValue =
+            streamIonValues(ion, reader)
+
         /**
          * Creates a new [ExprValue] instance from any Ion value.
          *
@@ -426,5 +456,8 @@ interface ExprValue : Iterable<ExprValue>, Faceted {
     ) {
         override val bindings: Bindings<ExprValue> =
             IonStructBindings(ionStruct)
+
+        // Fields are looked up in the Ion struct, and only the value of the field found is converted.
+        override fun prune(fieldNames: Set<String>): ExprValue = this
     }
 }
@@ -66,7 +66,6 @@ import java.time.ZoneOffset
 import java.time.format.DateTimeFormatter
 import java.time.format.DateTimeParseException
 import java.util.TreeMap
-import java.util.TreeSet
 import kotlin.math.round
 
 const val MISSING_ANNOTATION = "\$missing"
@@ -178,6 +177,67 @@ val DEFAULT_COMPARATOR = NaturalExprValueComparators.NULLS_FIRST_ASC
 /** Provides the default equality function. */
 fun ExprValue.exprEquals(other: ExprValue): Boolean = DEFAULT_COMPARATOR.compare(this, other) == 0
 
+/**
+ * Provides a hash code that is consistent with [exprEquals], i.e. any two values for which [exprEquals] returns `true`
+ * are guaranteed to have the same hash code.  In particular:
+ *
+ *  * `NULL` and `MISSING` (including Ion typed nulls) all have the same hash code.
+ *  * Numbers are hashed by their numeric value irrespective of their specific type, thus `1`, `1.0` and `1e0` collide.
+ *  * The hash codes of `STRUCT` fields and `BAG` elements are combined without regard to their order.
+ *  * Annotations and the names of non-`STRUCT` container elements are not considered.
+ */
+fun ExprValue.exprHashCode(): Int {
+    val type = this.type
+    return when {
+        type.isUnknown -> 0
+        type == ExprValueType.BOOL -> booleanValue().hashCode()
+        type.isNumber -> {
+            // Coercing to `Double` is consistent with the numeric coercions performed by [NaturalExprValueComparators]:
+            // numerically equivalent values always have the same `Double` representation.  Negative zero is
+            // normalized since it compares equal to positive zero.
+            val doubleValue = numberValue().toDouble()
+            if (doubleValue == 0.0) 0.0.hashCode() else doubleValue.hashCode()
+        }
+        type == ExprValueType.DATE -> dateValue().hashCode()
+        type == ExprValueType.TIME -> timeValue().let { it.localTime.hashCode() xor (it.zoneOffset?.hashCode() ?: 0) }
+        type == ExprValueType.TIMESTAMP -> timestampValue().millis.hashCode()
+        type.isText -> stringValue().hashCode()
+        type.isLob -> bytesValue().contentHashCode()
+        type == ExprValueType.LIST || type == ExprValueType.SEXP ->
+            fold(type.ordinal) { acc, element -> 31 * acc + element.exprHashCode() }
+        type == ExprValueType.STRUCT ->
+            fold(type.ordinal) { acc, field ->
+                val fieldName = field.name ?: errNoContext(
+                    "Internal error: struct field has no name",
+                    errorCode = ErrorCode.INTERNAL_ERROR,
+                    internal = true
+                )
+                acc + (31 * fieldName.exprHashCode() + field.exprHashCode())
+            }
+        type == ExprValueType.BAG -> fold(type.ordinal) { acc, element -> acc + element.exprHashCode() }
+        type == ExprValueType.GRAPH -> graphValue.hashCode()
+        else -> errNoContext("Cannot hash value of type $type", errorCode = ErrorCode.INTERNAL_ERROR, internal = true)
+    }
+}
+
+/**
+ * Wraps an [ExprValue] so that it can be used as the key of hash based collections such as [HashMap] and [HashSet].
+ *
+ * Two [ExprValueKey]s are equal when their values are equal according to [exprEquals] and the hash code of an
+ * [ExprValueKey] is the [exprHashCode] of its value, which is computed only once.
+ */
+internal class ExprValueKey(val value: ExprValue) {
+
+    private val hashCode = value.exprHashCode()
+
+    override fun hashCode(): Int = hashCode
+
+    override fun equals(other: Any?): Boolean =
+        other is ExprValueKey && other.hashCode == hashCode && value.exprEquals(other.value)
+
+    override fun toString(): String = value.toString()
+}
+
 /**
  * Provides the comparison predicate--which is not a total ordering.
  *
@@ -689,23 +749,32 @@ internal fun ExprValue.isNotUnknown(): Boolean = !this.type.isUnknown
  * @return false if the value was seen before
  */
 internal fun createUniqueExprValueFilter(): (ExprValue) -> Boolean {
-    val seen = TreeSet<ExprValue>(DEFAULT_COMPARATOR)
+    val seen = HashSet<ExprValueKey>()
 
-    return { exprValue -> seen.add(exprValue) }
+    return { exprValue -> seen.add(ExprValueKey(exprValue)) }
 }
 
-fun Sequence<ExprValue>.distinct(): Sequence<ExprValue> {
+fun Sequence<ExprValue>.distinct(): Sequence<ExprValue> = distinct(MemoryReservation.NONE)
+
+/**
+ * Returns the distinct values (according to [exprEquals]) of the receiving sequence, reserving the values it has seen
+ * in [memory] until the sequence is read to the end.
+ */
+internal fun Sequence<ExprValue>.distinct(memory: MemoryReservation): Sequence<ExprValue> {
     return sequence {
-        val seen = TreeSet(DEFAULT_COMPARATOR)
+        val seen = HashSet<ExprValueKey>()
         this@distinct.forEach {
-            if (!seen.contains(it)) {
-                seen.add(it.unnamedValue())
+            val value = it.unnamedValue()
+            if (seen.add(ExprValueKey(value))) {
+                memory.add(value)
                 yield(it)
             }
         }
+        memory.release()
     }
 }
 
+@Deprecated("To be removed in the next major version.")
 fun Sequence<ExprValue>.multiplicities(): TreeMap<ExprValue, Int> {
     val multiplicities: TreeMap<ExprValue, Int> = TreeMap(DEFAULT_COMPARATOR)
     this.forEach {
@@ -714,6 +783,24 @@ fun Sequence<ExprValue>.multiplicities(): TreeMap<ExprValue, Int> {
     return multiplicities
 }
 
+/**
+ * Counts the number of occurrences of each distinct value (according to [exprEquals]) of the receiving sequence,
+ * reserving the distinct values in [memory].
+ *
+ * Unlike [multiplicities], the occurrences are counted with a hash table.
+ */
+internal fun Sequence<ExprValue>.countOccurrences(
+    memory: MemoryReservation = MemoryReservation.NONE
+): HashMap<ExprValueKey, Int> {
+    val occurrences = HashMap<ExprValueKey, Int>()
+    this.forEach {
+        if (occurrences.merge(ExprValueKey(it), 1, Int::plus) == 1) {
+            memory.add(it)
+        }
+    }
+    return occurrences
+}
+
 /**
  * This method should only be used in case we want to get result from querying an Ion file or an [IonValue]
  */
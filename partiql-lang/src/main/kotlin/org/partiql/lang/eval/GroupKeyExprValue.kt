@@ -35,4 +35,7 @@ internal class GroupKeyExprValue(sequence: Sequence<ExprValue>, private val uniq
 
     override val bindings: Bindings<ExprValue>
         get() = keyBindings
+
+    // The unique names of the group keys must remain accessible.
+    override fun prune(fieldNames: Set<String>): ExprValue = this
 }
@@ -0,0 +1,176 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates.  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License").
+ *  You may not use this file except in compliance with the License.
+ *  A copy of the License is located at:
+ *
+ *       http://aws.amazon.com/apache2.0/
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific
+ *  language governing permissions and limitations under the License.
+ */
+
+package org.partiql.lang.eval
+
+import com.amazon.ion.IonReader
+import com.amazon.ion.IonSystem
+import com.amazon.ion.IonType
+import com.amazon.ion.SeekableReader
+import com.amazon.ion.Span
+import com.amazon.ion.SpanProvider
+import org.partiql.lang.util.errAmbiguousBinding
+import java.io.ByteArrayOutputStream
+
+/**
+ * Provides [ExprValue]s backed by an Ion buffer (preferably binary Ion) rather than by an Ion DOM.
+ *
+ * A container is represented by its [Span] in the buffer, and is read from the buffer each time it is accessed: its
+ * elements are read as it is iterated, and a field of a struct is looked up by skipping over the other fields, whose
+ * values are not read.  Thus, only the parts of the buffer that a query accesses are ever materialized, and they are not
+ * retained.  Scalars are read when their container is accessed.
+ *
+ * Containers annotated as `TIME` or `GRAPH` values, and all values if the Ion reader of the buffer does not provide
+ * spans, are read with [ExprValue.of].
+ */
+internal class LazyIonValues(private val ion: IonSystem, private val bytes: ByteArray) {
+
+    /** Returns the first top-level value of the buffer, or `MISSING` if it is empty. */
+    fun topLevelValue(): ExprValue {
+        val reader = open(null)
+        return when (reader.next()) {
+            null -> ExprValue.missingValue
+            else -> valueOf(reader)
+        }
+    }
+
+    /** Returns a reader positioned before the value of [span], or before the first top-level value if it is null. */
+    private fun open(span: Span?): IonReader {
+        val reader = ion.newReader(bytes)
+        if (span != null) {
+            reader.asFacet(SeekableReader::class.java).hoist(span)
+        }
+        return reader
+    }
+
+    /** Returns a reader stepped into the container of [span]. */
+    private fun stepIn(span: Span): IonReader = open(span).apply {
+        next()
+        stepIn()
+    }
+
+    /** Returns the value on which [reader] is positioned. */
+    private fun valueOf(reader: IonReader): ExprValue {
+        val spans = reader.asFacet(SpanProvider::class.java) ?: return readIonValue(ion, reader)
+        val annotations = reader.typeAnnotations
+        return when {
+            reader.isNullValue -> readIonValue(ion, reader)
+            reader.type == IonType.LIST && BAG_ANNOTATION in annotations -> ExprValue.newBag(elements(spans.currentSpan()))
+            reader.type == IonType.LIST -> ExprValue.newList(elements(spans.currentSpan()))
+            reader.type == IonType.SEXP -> ExprValue.newSexp(elements(spans.currentSpan()))
+            reader.type == IonType.STRUCT && TIME_ANNOTATION !in annotations && GRAPH_ANNOTATION !in annotations ->
+                LazyIonStructExprValue(spans.currentSpan())
+            else -> readIonValue(ion, reader)
+        }
+    }
+
+    /** Returns the elements of the container of [span], read each time the sequence is iterated. */
+    private fun elements(span: Span): Sequence<ExprValue> = Sequence {
+        iterator {
+            val reader = stepIn(span)
+            while (reader.next() != null) {
+                yield(valueOf(reader))
+            }
+        }
+    }
+
+    /** Returns the fields of the struct of [span], as named values. */
+    private fun fields(span: Span): Sequence<ExprValue> = Sequence {
+        iterator {
+            val reader = stepIn(span)
+            while (reader.next() != null) {
+                yield(valueOf(reader).namedValue(ExprValue.newString(reader.fieldName)))
+            }
+        }
+    }
+
+    private inner class LazyIonStructExprValue(
+        private val span: Span
+    ) : StructExprValue(StructOrdering.UNORDERED, fields(span)) {
+
+        override val bindings: Bindings<ExprValue> = Bindings.over { lookup(it) }
+
+        // The values of the fields which are not looked up are never read.
+        override fun prune(fieldNames: Set<String>): ExprValue = this
+
+        /**
+         * Looks up [bindingName] by comparing it with the field names only; the values of the other fields are skipped
+         * over.  As with [IonStructBindings], a name that matches more than one field is ambiguous.
+         */
+        private fun lookup(bindingName: BindingName): ExprValue? {
+            val reader = stepIn(span)
+            var match: ExprValue? = null
+            var matchName: String? = null
+            var matchNames: MutableList<String>? = null
+            while (reader.next() != null) {
+                val fieldName = reader.fieldName
+                if (!bindingName.isEquivalentTo(fieldName)) {
+                    continue
+                }
+                when (match) {
+                    null -> {
+                        match = valueOf(reader)
+                        matchName = fieldName
+                    }
+                    else -> (matchNames ?: mutableListOf(matchName!!).also { matchNames = it }).add(fieldName)
+                }
+            }
+            matchNames?.let { errAmbiguousBinding(bindingName.name, it) }
+            return match?.namedValue(ExprValue.newString(matchName!!))
+        }
+    }
+}
+
+/**
+ * Returns a bag of the remaining top-level values of [reader], which are read one at a time as the bag is iterated.
+ * Each container is copied to a binary Ion buffer, without an Ion DOM, and accessed as with [LazyIonValues].
+ *
+ * The bag can be iterated only once, and [reader] must not be used or closed before the bag is iterated.
+ */
+internal fun streamIonValues(ion: IonSystem, reader: IonReader): ExprValue = ExprValue.newBag(
+    Sequence {
+        iterator {
+            while (reader.next() != null) {
+                yield(
+                    when {
+                        IonType.isContainer(reader.type) && !reader.isNullValue -> {
+                            val buffer = ByteArrayOutputStream()
+                            ion.newBinaryWriter(buffer).use { it.writeValue(reader) }
+                            LazyIonValues(ion, buffer.toByteArray()).topLevelValue()
+                        }
+                        else -> readIonValue(ion, reader)
+                    }
+                )
+            }
+        }
+    }.constrainOnce()
+)
+
+/**
+ * Reads the value on which [reader] is positioned, as [ExprValue.of] does, without an Ion DOM for the most common
+ * scalars.
+ */
+private fun readIonValue(ion: IonSystem, reader: IonReader): ExprValue = when {
+    reader.isNullValue || reader.typeAnnotations.isNotEmpty() -> ExprValue.of(ion.newValue(reader))
+    else -> when (reader.type) {
+        IonType.BOOL -> ExprValue.newBoolean(reader.booleanValue())
+        IonType.INT -> ExprValue.newInt(reader.longValue())
+        IonType.FLOAT -> ExprValue.newFloat(reader.doubleValue())
+        IonType.DECIMAL -> ExprValue.newDecimal(reader.decimalValue())
+        IonType.TIMESTAMP -> ExprValue.newTimestamp(reader.timestampValue())
+        IonType.STRING -> ExprValue.newString(reader.stringValue())
+        IonType.SYMBOL -> ExprValue.newSymbol(reader.stringValue())
+        else -> ExprValue.of(ion.newValue(reader))
+    }
+}
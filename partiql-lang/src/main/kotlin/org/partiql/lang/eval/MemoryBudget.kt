@@ -0,0 +1,175 @@
+package org.partiql.lang.eval
+
+import org.partiql.errors.ErrorCode
+import org.partiql.errors.Property
+import org.partiql.lang.util.propertyValueMapOf
+import java.math.BigDecimal
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Accounts the memory held by the operators buffering rows during one evaluation of a query, such that the evaluation
+ * fails with [ErrorCode.EVALUATOR_MEMORY_BUDGET_EXCEEDED] instead of exhausting the heap when it holds more than
+ * [EvaluationSession.memoryBudget] bytes.
+ *
+ * The sizes are estimated by [estimateSize], and the operators reserve them through a [MemoryReservation].  An account
+ * may be shared by the copies of an [org.partiql.lang.eval.physical.EvaluatorState] evaluating on several threads.
+ */
+internal class MemoryAccount(val budget: Long) {
+    private val used = AtomicLong()
+
+    /** The last reservation of each owner, see [reopen]. */
+    private val reservations = ConcurrentHashMap<Any, MemoryReservation>()
+
+    /** The number of bytes currently reserved. */
+    val reserved: Long
+        get() = used.get()
+
+    /** Reserves [bytes] and returns `true`, or returns `false` without reserving them if they exceed the budget. */
+    fun tryReserve(bytes: Long): Boolean {
+        while (true) {
+            val current = used.get()
+            if (current + bytes > budget) {
+                return false
+            }
+            if (used.compareAndSet(current, current + bytes)) {
+                return true
+            }
+        }
+    }
+
+    /** Reserves [bytes], or throws [ErrorCode.EVALUATOR_MEMORY_BUDGET_EXCEEDED] if they exceed the budget. */
+    fun reserve(bytes: Long) {
+        if (!tryReserve(bytes)) {
+            throw EvaluationException(
+                message = "Query exceeded its memory budget of $budget bytes",
+                errorCode = ErrorCode.EVALUATOR_MEMORY_BUDGET_EXCEEDED,
+                errorContext = propertyValueMapOf(Property.MEMORY_BUDGET to budget),
+                internal = false
+            )
+        }
+    }
+
+    fun release(bytes: Long) {
+        used.addAndGet(-bytes)
+    }
+
+    /**
+     * Returns a new reservation of [owner] (e.g. an operator), after releasing the previous reservation of [owner].
+     *
+     * An operator which is not read to the end, e.g. below a `LIMIT`, in `EXISTS` or in a subquery whose result is
+     * only partially read, never releases its reservation.  Reopening it when the operator is evaluated again bounds
+     * the memory accounted for such operators to one reservation each, instead of one per evaluation.
+     */
+    fun reopen(owner: Any): MemoryReservation {
+        val reservation = MemoryReservation(this)
+        reservations.put(owner, reservation)?.release()
+        return reservation
+    }
+
+    companion object {
+        /** Returns the account of a new evaluation in [session], or `null` if the session has no budget. */
+        fun of(session: EvaluationSession): MemoryAccount? = session.memoryBudget?.let { MemoryAccount(it) }
+    }
+}
+
+/**
+ * The memory reserved by one invocation of an operator, e.g. the rows being sorted.  Does not estimate anything when
+ * there is no [account], such that operators can use it unconditionally.
+ *
+ * Must be [release]d once the operator drops its rows.  Since an operator which is not read to the end (e.g. below a
+ * `LIMIT`) never does, operators which may be evaluated more than once obtain their reservation with [of], which
+ * releases the reservation of their previous evaluation.
+ */
+internal class MemoryReservation(private val account: MemoryAccount?) {
+    private var bytes = 0L
+
+    /** Reserves the estimated size of [value]. */
+    fun add(value: ExprValue) {
+        account ?: return
+        reserve(value.estimateSize())
+    }
+
+    /** Reserves the estimated size of [values] and of the list holding them. */
+    fun addAll(values: List<ExprValue>) {
+        account ?: return
+        reserve(CONTAINER_SIZE + values.sumOf { REFERENCE_SIZE + it.estimateSize() })
+    }
+
+    /** Reserves the estimated size of a copy of the registers [row]. */
+    fun add(row: Array<ExprValue>) {
+        account ?: return
+        reserve(row.estimateSize())
+    }
+
+    /**
+     * Reserves the estimated size of a copy of the registers [row], or returns `false` without reserving it if it
+     * exceeds the budget, e.g. to spill the rows instead.
+     */
+    fun tryAdd(row: Array<ExprValue>): Boolean {
+        account ?: return true
+        val size = row.estimateSize()
+        if (!account.tryReserve(size)) {
+            return false
+        }
+        bytes += size
+        return true
+    }
+
+    /** Releases everything reserved so far. */
+    fun release() {
+        account?.release(bytes)
+        bytes = 0
+    }
+
+    private fun reserve(size: Long) {
+        account!!.reserve(size)
+        bytes += size
+    }
+
+    companion object {
+        /** A reservation without an account, which never reserves anything. */
+        val NONE = MemoryReservation(null)
+
+        /** Returns a new reservation of [owner] in [account], see [MemoryAccount.reopen]. */
+        fun of(account: MemoryAccount?, owner: Any): MemoryReservation = account?.reopen(owner) ?: NONE
+    }
+}
+
+/** Returns a sequence of the elements of this sequence which releases [memory] once it is read to the end. */
+internal fun <T> Sequence<T>.releasing(memory: MemoryReservation): Sequence<T> = sequence {
+    yieldAll(this@releasing)
+    memory.release()
+}
+
+private const val OBJECT_SIZE = 16L
+private const val REFERENCE_SIZE = 8L
+private const val CONTAINER_SIZE = 48L
+
+/**
+ * Returns the approximate number of bytes held by this value and its children on the heap, assuming that nothing is
+ * shared with other values.  Cheap rather than accurate: the sizes of the scalars are those of their usual
+ * representation, whatever the implementation of the [ExprValue].
+ */
+internal fun ExprValue.estimateSize(): Long = when (type) {
+    ExprValueType.MISSING, ExprValueType.NULL, ExprValueType.BOOL -> OBJECT_SIZE
+    ExprValueType.INT, ExprValueType.FLOAT -> OBJECT_SIZE + REFERENCE_SIZE + 24
+    ExprValueType.DECIMAL -> {
+        val value = scalar.numberValue() as? BigDecimal
+        OBJECT_SIZE + 40 + (value?.unscaledValue()?.bitLength() ?: 0) / 8
+    }
+    ExprValueType.DATE -> OBJECT_SIZE + 24
+    ExprValueType.TIME, ExprValueType.TIMESTAMP -> OBJECT_SIZE + 64
+    ExprValueType.SYMBOL, ExprValueType.STRING -> OBJECT_SIZE + 40 + 2L * (scalar.stringValue()?.length ?: 0)
+    ExprValueType.CLOB, ExprValueType.BLOB -> OBJECT_SIZE + 16 + (scalar.bytesValue()?.size ?: 0)
+    ExprValueType.LIST, ExprValueType.SEXP, ExprValueType.BAG ->
+        CONTAINER_SIZE + sumOf { REFERENCE_SIZE + it.estimateSize() }
+    ExprValueType.STRUCT -> CONTAINER_SIZE + sumOf { field ->
+        REFERENCE_SIZE + field.estimateSize() + (field.name?.estimateSize() ?: 0L)
+    }
+    ExprValueType.GRAPH -> CONTAINER_SIZE
+}
+
+/** Returns the approximate number of bytes held by a copy of these registers, see [estimateSize]. */
+internal fun Array<ExprValue>.estimateSize(): Long =
+    OBJECT_SIZE + sumOf { REFERENCE_SIZE + it.estimateSize() }
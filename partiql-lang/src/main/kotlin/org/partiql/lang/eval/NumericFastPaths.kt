@@ -0,0 +1,127 @@
+package org.partiql.lang.eval
+
+import org.partiql.lang.types.StaticTypeUtils
+import org.partiql.lang.util.checkOverflowDivision
+import org.partiql.lang.util.checkOverflowMinus
+import org.partiql.lang.util.checkOverflowPlus
+import org.partiql.lang.util.checkOverflowTimes
+import org.partiql.types.StaticType
+
+/** The [Scalar] of an `INT` [ExprValue] whose value is readable without boxing it as a [Number]. */
+internal interface LongScalar : Scalar {
+    val value: Long
+}
+
+/** The [Scalar] of a `FLOAT` [ExprValue] whose value is readable without boxing it as a [Number]. */
+internal interface DoubleScalar : Scalar {
+    val value: Double
+}
+
+/*
+ * Fast paths of the arithmetic and comparison operators for two `INT` or two `FLOAT` operands, which compute with
+ * primitives instead of coercing the operands as [Number]s.  Each returns `null` when the operands are of other
+ * types (including mixed `INT` and `FLOAT`), or when the operation must raise an error other than an overflow, in
+ * which case the operator falls back to its generic implementation.
+ */
+
+internal fun plusPrimitive(l: ExprValue, r: ExprValue): ExprValue? {
+    val ls = l.scalar
+    val rs = r.scalar
+    return when {
+        ls is LongScalar && rs is LongScalar -> ExprValue.newInt(ls.value.checkOverflowPlus(rs.value))
+        ls is DoubleScalar && rs is DoubleScalar -> ExprValue.newFloat(ls.value + rs.value)
+        else -> null
+    }
+}
+
+internal fun minusPrimitive(l: ExprValue, r: ExprValue): ExprValue? {
+    val ls = l.scalar
+    val rs = r.scalar
+    return when {
+        ls is LongScalar && rs is LongScalar -> ExprValue.newInt(ls.value.checkOverflowMinus(rs.value))
+        ls is DoubleScalar && rs is DoubleScalar -> ExprValue.newFloat(ls.value - rs.value)
+        else -> null
+    }
+}
+
+internal fun timesPrimitive(l: ExprValue, r: ExprValue): ExprValue? {
+    val ls = l.scalar
+    val rs = r.scalar
+    return when {
+        ls is LongScalar && rs is LongScalar -> ExprValue.newInt(ls.value.checkOverflowTimes(rs.value))
+        ls is DoubleScalar && rs is DoubleScalar -> ExprValue.newFloat(ls.value * rs.value)
+        else -> null
+    }
+}
+
+/** Returns `null` for a zero divisor, such that the division by zero is reported by the generic implementation. */
+internal fun dividePrimitive(l: ExprValue, r: ExprValue): ExprValue? {
+    val ls = l.scalar
+    val rs = r.scalar
+    return when {
+        ls is LongScalar && rs is LongScalar && rs.value != 0L ->
+            ExprValue.newInt(ls.value.checkOverflowDivision(rs.value))
+        // `0.0 == -0.0`
+        ls is DoubleScalar && rs is DoubleScalar && rs.value != 0.0 -> ExprValue.newFloat(ls.value / rs.value)
+        else -> null
+    }
+}
+
+/** Returns `null` for a zero divisor, such that the modulo by zero is reported by the generic implementation. */
+internal fun moduloPrimitive(l: ExprValue, r: ExprValue): ExprValue? {
+    val ls = l.scalar
+    val rs = r.scalar
+    return when {
+        ls is LongScalar && rs is LongScalar && rs.value != 0L -> ExprValue.newInt(ls.value % rs.value)
+        ls is DoubleScalar && rs is DoubleScalar && rs.value != 0.0 -> ExprValue.newFloat(ls.value % rs.value)
+        else -> null
+    }
+}
+
+/**
+ * Compares two `INT` or two `FLOAT` values as [DEFAULT_COMPARATOR] does.  Returns `null` for a `NaN` operand, which
+ * the comparator orders before all the other numbers.
+ */
+internal fun comparePrimitive(l: ExprValue, r: ExprValue): Int? {
+    val ls = l.scalar
+    val rs = r.scalar
+    return when {
+        ls is LongScalar && rs is LongScalar -> ls.value.compareTo(rs.value)
+        ls is DoubleScalar && rs is DoubleScalar -> {
+            val a = ls.value
+            val b = rs.value
+            when {
+                a.isNaN() || b.isNaN() -> null
+                a < b -> -1
+                a > b -> 1
+                // Including `0.0` and `-0.0`, which are equal.
+                else -> 0
+            }
+        }
+        else -> null
+    }
+}
+
+/**
+ * Returns the implementation of a binary operator for operands of the [operandTypes] statically inferred at compile
+ * time, where `null` stands for an unknown type.
+ *
+ * Unless the static types rule out `INT` and `FLOAT` operands, the [primitive] fast path is attempted first, guarded
+ * by the types of the operands at evaluation time, and the [generic] implementation is invoked when it returns `null`.
+ * Otherwise, the [generic] implementation is invoked directly.
+ */
+internal fun <R : Any> numericOperator(
+    operandTypes: List<StaticType?>,
+    primitive: (ExprValue, ExprValue) -> R?,
+    generic: (ExprValue, ExprValue) -> R
+): (ExprValue, ExprValue) -> R {
+    val mayBePrimitive = operandTypes.all { type ->
+        type == null || StaticTypeUtils.getTypeDomain(type).let {
+            ExprValueType.INT in it || ExprValueType.FLOAT in it
+        }
+    }
+    return when {
+        mayBePrimitive -> { l, r -> primitive(l, r) ?: generic(l, r) }
+        else -> generic
+    }
+}
@@ -33,13 +33,22 @@ sealed class PartiQLResult {
      */
     public abstract fun getCoverageStructure(): CoverageStructure?
 
+    /**
+     * @return the runtime statistics of the relational operators evaluated so far, when the query was compiled with
+     * [org.partiql.lang.planner.EvaluatorOptions.profiling]. As [ExprValue]s are lazily created, please materialize
+     * any relevant [ExprValue]s before accessing [getProfile].
+     */
+    public open fun getProfile(): QueryProfile? = null
+
     class Value(
         val value: ExprValue,
         private val coverageData: () -> CoverageData? = { null },
-        private val coverageStructure: () -> CoverageStructure? = { null }
+        private val coverageStructure: () -> CoverageStructure? = { null },
+        private val profile: () -> QueryProfile? = { null }
     ) : PartiQLResult() {
         override fun getCoverageData(): CoverageData? = coverageData.invoke()
         override fun getCoverageStructure(): CoverageStructure? = coverageStructure.invoke()
+        override fun getProfile(): QueryProfile? = profile.invoke()
     }
 
     class Insert(
@@ -77,5 +86,12 @@ sealed class PartiQLResult {
             override fun getCoverageData(): CoverageData? = null
             override fun getCoverageStructure(): CoverageStructure? = null
         }
+
+        /** The result of `EXPLAIN (TYPE analyze) <query>`: the [profile] of the evaluation of the query. */
+        data class Profile(val profile: QueryProfile, val format: String?) : Explain() {
+            override fun getCoverageData(): CoverageData? = null
+            override fun getCoverageStructure(): CoverageStructure? = null
+            override fun getProfile(): QueryProfile = profile
+        }
     }
 }
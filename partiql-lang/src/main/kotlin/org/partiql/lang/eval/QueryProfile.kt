@@ -0,0 +1,80 @@
+package org.partiql.lang.eval
+
+import org.partiql.lang.domains.PartiqlPhysical
+
+/**
+ * The runtime statistics of the relational operators of a query, collected when the query is compiled with
+ * [org.partiql.lang.planner.EvaluatorOptions.profiling] or evaluated by `EXPLAIN (TYPE analyze) <query>`.
+ *
+ * @param operators the relational operators which are not the input of another operator, nor within the expressions of
+ * another operator, e.g. the outermost operator of the query and those of the sub-queries of its `SELECT` list.
+ */
+class QueryProfile(val operators: List<OperatorProfile>)
+
+/**
+ * The runtime statistics of one relational operator of a physical plan.
+ *
+ * Since relational operators are evaluated lazily, an operator's statistics include the rows it has produced so far.
+ * The times are measured as the operator is evaluated and its rows are read, and include the time spent in its inputs
+ * and sub-queries; see [selfNanos] for the time spent in the operator itself.
+ *
+ * @param operator the operator of the physical plan.
+ * @param inputs the statistics of the operators whose rows are the input of [operator].
+ * @param subqueries the statistics of the outermost operators of the sub-queries within the expressions of [operator].
+ * @param invocations the number of times the operator was evaluated, e.g. once per row of the left side of a nested
+ * loop join for an operator on its right side.
+ * @param rowsOut the number of rows produced by the operator, over all of its invocations.
+ * @param elapsedNanos the time spent evaluating the operator and reading its rows, over all of its invocations.
+ * @param peakMaterializedRows the largest number of rows held in memory at once by the operator, e.g. the rows being
+ * sorted by a `sort`, the groups of an `aggregate` or the rows of the build side of a hash join.  Zero for the operators
+ * which do not hold rows in memory.
+ */
+class OperatorProfile internal constructor(
+    val operator: PartiqlPhysical.Bexpr,
+    val inputs: List<OperatorProfile>,
+    val subqueries: List<OperatorProfile>,
+    val invocations: Long,
+    val rowsOut: Long,
+    val elapsedNanos: Long,
+    val peakMaterializedRows: Long
+) {
+    /** The number of rows read by the operator from its [inputs]. */
+    val rowsIn: Long
+        get() = inputs.sumOf { it.rowsOut }
+
+    /** The time spent in the operator itself, excluding the time spent in its [inputs] and [subqueries]. */
+    val selfNanos: Long
+        get() = maxOf(0L, elapsedNanos - (inputs + subqueries).sumOf { it.elapsedNanos })
+
+    /** The name of the operator, e.g. `scan` or `join`. */
+    val name: String
+        get() = when (operator) {
+            is PartiqlPhysical.Bexpr.Project -> "project"
+            is PartiqlPhysical.Bexpr.Scan -> "scan"
+            is PartiqlPhysical.Bexpr.Unpivot -> "unpivot"
+            is PartiqlPhysical.Bexpr.Filter -> "filter"
+            is PartiqlPhysical.Bexpr.Join -> "join"
+            is PartiqlPhysical.Bexpr.Sort -> "sort"
+            is PartiqlPhysical.Bexpr.Aggregate -> "aggregate"
+            is PartiqlPhysical.Bexpr.Offset -> "offset"
+            is PartiqlPhysical.Bexpr.Limit -> "limit"
+            is PartiqlPhysical.Bexpr.Let -> "let"
+            is PartiqlPhysical.Bexpr.Window -> "window"
+        }
+
+    /** The name of the implementation of the operator, e.g. `default`. */
+    val implementation: String
+        get() = when (operator) {
+            is PartiqlPhysical.Bexpr.Project -> operator.i
+            is PartiqlPhysical.Bexpr.Scan -> operator.i
+            is PartiqlPhysical.Bexpr.Unpivot -> operator.i
+            is PartiqlPhysical.Bexpr.Filter -> operator.i
+            is PartiqlPhysical.Bexpr.Join -> operator.i
+            is PartiqlPhysical.Bexpr.Sort -> operator.i
+            is PartiqlPhysical.Bexpr.Aggregate -> operator.i
+            is PartiqlPhysical.Bexpr.Offset -> operator.i
+            is PartiqlPhysical.Bexpr.Limit -> operator.i
+            is PartiqlPhysical.Bexpr.Let -> operator.i
+            is PartiqlPhysical.Bexpr.Window -> operator.i
+        }.name.text
+}
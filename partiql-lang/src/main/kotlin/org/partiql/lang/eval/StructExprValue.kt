@@ -39,7 +39,7 @@ internal open class StructExprValue(
         val orderedBindNames: OrderedBindNames?
     )
 
-    private val materialized by lazy {
+    private val lazyMaterialized = lazy {
         val bindMap = HashMap<String, ExprValue>()
         val bindList = ArrayList<ExprValue>()
         val bindNames = ArrayList<String>()
@@ -64,6 +64,8 @@ internal open class StructExprValue(
         Materialized(bindings, ordinalBindings, orderedBindNames)
     }
 
+    private val materialized by lazyMaterialized
+
     override val bindings: Bindings<ExprValue>
         get() = materialized.bindings
 
@@ -80,4 +82,20 @@ internal open class StructExprValue(
     }
 
     override fun iterator() = sequence.iterator()
+
+    /**
+     * Returns a struct with the fields of this struct whose names are, ignoring case, in [fieldNames] (which must be
+     * lower case), for when the other fields are known not to be accessed.  Only those fields are materialized when
+     * the returned struct is first accessed by name or by ordinal.
+     *
+     * This struct is returned as it is if it has already been materialized, and subclasses whose fields are looked up
+     * without materializing the struct should return themselves.
+     */
+    internal open fun prune(fieldNames: Set<String>): ExprValue = when {
+        lazyMaterialized.isInitialized() -> this
+        else -> StructExprValue(
+            ordering,
+            sequence.filter { field -> field.name?.stringValue()?.lowercase()?.let { it in fieldNames } ?: true }
+        )
+    }
 }
@@ -18,17 +18,20 @@ import com.amazon.ion.Timestamp
 import org.partiql.errors.ErrorCode
 import org.partiql.errors.Property
 import org.partiql.errors.PropertyValueMap
-import org.partiql.lang.eval.DEFAULT_COMPARATOR
 import org.partiql.lang.eval.EvaluationException
 import org.partiql.lang.eval.EvaluationSession
 import org.partiql.lang.eval.ExprFunction
 import org.partiql.lang.eval.ExprValue
 import org.partiql.lang.eval.ExprValueType
+import org.partiql.lang.eval.MemoryAccount
+import org.partiql.lang.eval.MemoryReservation
 import org.partiql.lang.eval.bigDecimalValue
+import org.partiql.lang.eval.builtins.internal.FormatPatternCache
 import org.partiql.lang.eval.builtins.internal.TimestampParser
 import org.partiql.lang.eval.builtins.internal.adjustPrecisionTo
 import org.partiql.lang.eval.builtins.internal.toOffsetDateTime
 import org.partiql.lang.eval.builtins.timestamp.TimestampTemporalAccessor
+import org.partiql.lang.eval.distinct
 import org.partiql.lang.eval.err
 import org.partiql.lang.eval.errNoContext
 import org.partiql.lang.eval.intValue
@@ -36,7 +39,6 @@ import org.partiql.lang.eval.stringValue
 import org.partiql.lang.eval.time.NANOS_PER_SECOND
 import org.partiql.lang.eval.time.Time
 import org.partiql.lang.eval.timestampValue
-import org.partiql.lang.eval.unnamedValue
 import org.partiql.lang.syntax.impl.DateTimePart
 import org.partiql.lang.types.FunctionSignature
 import org.partiql.lang.types.UnknownArguments
@@ -49,7 +51,6 @@ import java.time.Duration
 import java.time.Period
 import java.time.format.DateTimeFormatter
 import java.time.temporal.UnsupportedTemporalTypeException
-import java.util.TreeSet
 
 /**
  * TODO replace this internal value once we have function libraries
@@ -123,16 +124,8 @@ internal object ExprFunctionFilterDistinct : ExprFunction {
 
     override fun callWithRequired(session: EvaluationSession, required: List<ExprValue>): ExprValue {
         val argument = required.first()
-        // We cannot use a [HashSet] here because [ExprValue] does not implement .equals() and .hashCode()
-        val encountered = TreeSet(DEFAULT_COMPARATOR)
-        val seq = sequence {
-            argument.asSequence().forEach {
-                if (!encountered.contains(it)) {
-                    encountered.add(it.unnamedValue())
-                    yield(it)
-                }
-            }
-        }
+        // Functions cannot reach the memory account of the evaluation, thus the values seen are accounted on their own.
+        val seq = argument.asSequence().distinct(MemoryReservation(MemoryAccount.of(session)))
         return when (argument.type) {
             ExprValueType.LIST -> ExprValue.newList(seq)
             else -> ExprValue.newBag(seq)
@@ -380,6 +373,22 @@ internal object ExprFunctionToTimestamp_2 : ExprFunctionToTimestamp() {
         val ts = TimestampParser.parseTimestamp(required[0].stringValue(), required[1].stringValue())
         return ExprValue.newTimestamp(ts)
     }
+
+    /** Compiles a literal format pattern once, unless it is invalid, which is reported when the function is called. */
+    override fun specialize(literals: List<ExprValue?>): ExprFunction? {
+        val pattern = literals[1]?.takeIf { it.type == ExprValueType.STRING } ?: return null
+        val parser = try {
+            TimestampParser.of(pattern.stringValue())
+        } catch (e: Exception) {
+            return null
+        }
+        return object : ExprFunction {
+            override val signature = this@ExprFunctionToTimestamp_2.signature
+
+            override fun callWithRequired(session: EvaluationSession, required: List<ExprValue>): ExprValue =
+                ExprValue.newTimestamp(parser.parse(required[0].stringValue()))
+        }
+    }
 }
 
 /**
@@ -500,16 +509,39 @@ internal object ExprFunctionToString : ExprFunction {
         returnType = StaticType.STRING
     )
 
+    private val formatters = FormatPatternCache<DateTimeFormatter>()
+
     override fun callWithRequired(session: EvaluationSession, required: List<ExprValue>): ExprValue {
         val pattern = required[1].stringValue()
+        val formatter = formatters.getOrCompile(pattern) { formatterOf(pattern) }
+        return format(required[0], pattern, formatter)
+    }
 
-        val formatter: DateTimeFormatter = try {
+    /** Compiles a literal format pattern once, unless it is invalid, which is reported when the function is called. */
+    override fun specialize(literals: List<ExprValue?>): ExprFunction? {
+        val pattern = literals[1]?.takeIf { it.type == ExprValueType.STRING }?.stringValue() ?: return null
+        val formatter = try {
+            formatterOf(pattern)
+        } catch (e: EvaluationException) {
+            return null
+        }
+        return object : ExprFunction {
+            override val signature = this@ExprFunctionToString.signature
+
+            override fun callWithRequired(session: EvaluationSession, required: List<ExprValue>): ExprValue =
+                format(required[0], pattern, formatter)
+        }
+    }
+
+    private fun formatterOf(pattern: String): DateTimeFormatter =
+        try {
             DateTimeFormatter.ofPattern(pattern)
         } catch (ex: IllegalArgumentException) {
             errInvalidFormatPattern(pattern, ex)
         }
 
-        val timestamp = required[0].timestampValue()
+    private fun format(value: ExprValue, pattern: String, formatter: DateTimeFormatter): ExprValue {
+        val timestamp = value.timestampValue()
         val temporalAccessor = TimestampTemporalAccessor(timestamp)
         try {
             return ExprValue.newString(formatter.format(temporalAccessor))
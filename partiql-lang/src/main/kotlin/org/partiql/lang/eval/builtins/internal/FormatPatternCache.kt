@@ -0,0 +1,29 @@
+package org.partiql.lang.eval.builtins.internal
+
+/** The default number of patterns kept by a [FormatPatternCache]. */
+internal const val DEFAULT_FORMAT_PATTERN_CACHE_SIZE = 256
+
+/**
+ * A bounded cache of the formatters or parsers compiled from the format patterns of the date and time functions (e.g.
+ * `to_timestamp` and `to_string`) when the pattern is not a literal, such that the patterns that are computed
+ * repeatedly are only compiled once.  When it is full, the least recently used pattern is evicted.
+ *
+ * Instances are safe for use by multiple threads.
+ */
+internal class FormatPatternCache<T : Any>(private val capacity: Int = DEFAULT_FORMAT_PATTERN_CACHE_SIZE) {
+    private val compiled = object : LinkedHashMap<String, T>(16, 0.75f, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<String, T>?): Boolean = size > capacity
+    }
+
+    /**
+     * Returns the cached value for [pattern], calling [compile] if there is none.  The exceptions thrown by [compile]
+     * (e.g. for an invalid pattern) are not cached.
+     */
+    fun getOrCompile(pattern: String, compile: () -> T): T {
+        synchronized(compiled) { compiled[pattern] }?.let { return it }
+        // Compiled outside of the lock: at worst, concurrent misses compile the same pattern more than once.
+        val value = compile()
+        synchronized(compiled) { compiled[pattern] = value }
+        return value
+    }
+}
@@ -10,6 +10,7 @@ import org.partiql.lang.eval.errNoContext
 import org.partiql.lang.util.propertyValueMapOf
 import java.math.BigDecimal
 import java.time.DateTimeException
+import java.time.format.DateTimeFormatter
 import java.time.format.DateTimeFormatterBuilder
 import java.time.temporal.ChronoField
 import java.time.temporal.TemporalAccessor
@@ -34,11 +35,145 @@ import java.time.temporal.TemporalAccessor
  *    to indicate minimum and maximum allowable values for offsets.  In practice this may not be an issue for systems
  *    that use Timestamps correctly because real-life offsets do not exceed +/- 12h.
  */
-internal class TimestampParser {
+internal class TimestampParser private constructor(private val formatPattern: String) {
+
+    private val pattern = FormatPattern.fromString(formatPattern).apply { validateForTimestampParsing() }
+
+    private val formatter: DateTimeFormatter = try {
+        DateTimeFormatterBuilder()
+            .parseCaseInsensitive()
+            .appendPattern(pattern.formatPatternString)
+            .toFormatter()
+    } catch (ex: IllegalArgumentException) {
+        throw EvaluationException(
+            ex, ErrorCode.EVALUATOR_INVALID_TIMESTAMP_FORMAT_PATTERN,
+            internal = false
+        )
+    }
+
+    /** Parses [timestampString] with the format pattern of this parser. */
+    fun parse(timestampString: String): Timestamp {
+        val accessor: TemporalAccessor by lazy { formatter.parse(timestampString) }
+        val year: Int by lazy {
+            val year = accessor.get(ChronoField.YEAR)
+            when {
+                !pattern.has2DigitYear || year < TWO_DIGIT_PIVOT_YEAR + 2000 -> year
+                else -> year - 100
+            }
+        }
+
+        return try {
+            when (pattern.leastSignificantField) {
+                TimestampField.FRACTION_OF_SECOND -> {
+                    val nanoSeconds = BigDecimal.valueOf(accessor.getLong(ChronoField.NANO_OF_SECOND))
+                    val secondsFraction = nanoSeconds.scaleByPowerOfTen(-9).stripTrailingZeros()
+                    // Note that this overload of Timestamp.forSecond(...) creates a timestamp with "fraction" precision.
+                    Timestamp.forSecond(
+                        year,
+                        accessor.get(ChronoField.MONTH_OF_YEAR),
+                        accessor.get(ChronoField.DAY_OF_MONTH),
+                        accessor.get(ChronoField.HOUR_OF_DAY),
+                        accessor.get(ChronoField.MINUTE_OF_HOUR),
+                        BigDecimal.valueOf(accessor.getLong(ChronoField.SECOND_OF_MINUTE)).add(
+                            secondsFraction
+                        ) as BigDecimal,
+                        accessor.getLocalOffset()
+                    )
+                }
+                TimestampField.SECOND_OF_MINUTE -> {
+                    // Note that this overload of Timestamp.forSecond(...) creates a timestamp with "second" precision.
+                    Timestamp.forSecond(
+                        year,
+                        accessor.get(ChronoField.MONTH_OF_YEAR),
+                        accessor.get(ChronoField.DAY_OF_MONTH),
+                        accessor.get(ChronoField.HOUR_OF_DAY),
+                        accessor.get(ChronoField.MINUTE_OF_HOUR),
+                        accessor.get(ChronoField.SECOND_OF_MINUTE),
+                        accessor.getLocalOffset()
+                    )
+                }
+                TimestampField.MINUTE_OF_HOUR -> {
+                    Timestamp.forMinute(
+                        year,
+                        accessor.get(ChronoField.MONTH_OF_YEAR),
+                        accessor.get(ChronoField.DAY_OF_MONTH),
+                        accessor.get(ChronoField.HOUR_OF_DAY),
+                        accessor.get(ChronoField.MINUTE_OF_HOUR),
+                        accessor.getLocalOffset()
+                    )
+                }
+                TimestampField.HOUR_OF_DAY -> {
+                    Timestamp.forMinute(
+                        year,
+                        accessor.get(ChronoField.MONTH_OF_YEAR),
+                        accessor.get(ChronoField.DAY_OF_MONTH),
+                        accessor.get(ChronoField.HOUR_OF_DAY),
+                        0, // Ion Timestamp has no HOUR precision -- default minutes to 0
+                        accessor.getLocalOffset()
+                    )
+                }
+                TimestampField.DAY_OF_MONTH -> {
+                    Timestamp.forDay(
+                        year,
+                        accessor.get(ChronoField.MONTH_OF_YEAR),
+                        accessor.get(ChronoField.DAY_OF_MONTH)
+                    )
+                }
+                TimestampField.MONTH_OF_YEAR -> {
+                    Timestamp.forMonth(year, accessor.get(ChronoField.MONTH_OF_YEAR))
+                }
+                TimestampField.YEAR -> {
+                    Timestamp.forYear(year)
+                }
+                TimestampField.AM_PM, TimestampField.OFFSET, null -> {
+                    errNoContext(
+                        "This code should be unreachable because AM_PM or OFFSET or null" +
+                            "should never the value of formatPattern.leastSignificantField by at this point",
+                        errorCode = ErrorCode.EVALUATOR_INVALID_TIMESTAMP_FORMAT_PATTERN,
+                        internal = true
+                    )
+                }
+            }
+        }
+        // Can be thrown by Timestamp.for*(...) methods.
+        catch (ex: IllegalArgumentException) {
+            throw EvaluationException(
+                ex,
+                ErrorCode.EVALUATOR_CUSTOM_TIMESTAMP_PARSE_FAILURE,
+                propertyValueMapOf(Property.TIMESTAMP_FORMAT_PATTERN to formatPattern),
+                internal = false
+            )
+        }
+        // Can be thrown by TemporalAccessor.get(ChronoField)
+        catch (ex: DateTimeException) {
+            throw EvaluationException(
+                ex,
+                ErrorCode.EVALUATOR_CUSTOM_TIMESTAMP_PARSE_FAILURE,
+                propertyValueMapOf(Property.TIMESTAMP_FORMAT_PATTERN to formatPattern),
+                internal = false
+            )
+        }
+    }
 
     companion object {
         val TWO_DIGIT_PIVOT_YEAR = 70
 
+        private val parsers = FormatPatternCache<TimestampParser>()
+
+        /**
+         * Returns the parser of [formatPattern], which is validated and compiled once.
+         *
+         * @throws EvaluationException if [formatPattern] is not a valid timestamp format pattern.
+         */
+        fun of(formatPattern: String): TimestampParser = TimestampParser(formatPattern)
+
+        /**
+         * Parses a string given the specified format pattern.  The parsers of the most recently used patterns are
+         * cached, such that a pattern is not compiled again for every string it parses.
+         */
+        fun parseTimestamp(timestampString: String, formatPattern: String): Timestamp =
+            parsers.getOrCompile(formatPattern) { of(formatPattern) }.parse(timestampString)
+
         /** Converts the offset seconds value returned from the TemporalAccessor into the minutes value.
          * @throws EvaluationException if the offset seconds value was not a multiple of 60.
          */
@@ -58,130 +193,5 @@ internal class TimestampParser {
                 }
                 offsetSeconds / 60
             }
-
-        /**
-         * Parses a string given the specified format pattern.
-         */
-        fun parseTimestamp(timestampString: String, formatPattern: String): Timestamp {
-            val pattern = FormatPattern.fromString(formatPattern)
-            // TODO: do this during compilation
-            pattern.validateForTimestampParsing()
-
-            val accessor: TemporalAccessor by lazy {
-                try {
-                    DateTimeFormatterBuilder()
-                        .parseCaseInsensitive()
-                        .appendPattern(pattern.formatPatternString)
-                        .toFormatter()
-                        .parse(timestampString)
-
-                    // DateTimeFormatter.ofPattern(formatPattern).parse(timestampString)
-                } catch (ex: IllegalArgumentException) {
-                    throw EvaluationException(
-                        ex, ErrorCode.EVALUATOR_INVALID_TIMESTAMP_FORMAT_PATTERN,
-                        internal = false
-                    )
-                }
-            }
-            val year: Int by lazy {
-                val year = accessor.get(ChronoField.YEAR)
-                when {
-                    !pattern.has2DigitYear || year < TWO_DIGIT_PIVOT_YEAR + 2000 -> year
-                    else -> year - 100
-                }
-            }
-
-            return try {
-                when (pattern.leastSignificantField) {
-                    TimestampField.FRACTION_OF_SECOND -> {
-                        val nanoSeconds = BigDecimal.valueOf(accessor.getLong(ChronoField.NANO_OF_SECOND))
-                        val secondsFraction = nanoSeconds.scaleByPowerOfTen(-9).stripTrailingZeros()
-                        // Note that this overload of Timestamp.forSecond(...) creates a timestamp with "fraction" precision.
-                        Timestamp.forSecond(
-                            year,
-                            accessor.get(ChronoField.MONTH_OF_YEAR),
-                            accessor.get(ChronoField.DAY_OF_MONTH),
-                            accessor.get(ChronoField.HOUR_OF_DAY),
-                            accessor.get(ChronoField.MINUTE_OF_HOUR),
-                            BigDecimal.valueOf(accessor.getLong(ChronoField.SECOND_OF_MINUTE)).add(
-                                secondsFraction
-                            ) as BigDecimal,
-                            accessor.getLocalOffset()
-                        )
-                    }
-                    TimestampField.SECOND_OF_MINUTE -> {
-                        // Note that this overload of Timestamp.forSecond(...) creates a timestamp with "second" precision.
-                        Timestamp.forSecond(
-                            year,
-                            accessor.get(ChronoField.MONTH_OF_YEAR),
-                            accessor.get(ChronoField.DAY_OF_MONTH),
-                            accessor.get(ChronoField.HOUR_OF_DAY),
-                            accessor.get(ChronoField.MINUTE_OF_HOUR),
-                            accessor.get(ChronoField.SECOND_OF_MINUTE),
-                            accessor.getLocalOffset()
-                        )
-                    }
-                    TimestampField.MINUTE_OF_HOUR -> {
-                        Timestamp.forMinute(
-                            year,
-                            accessor.get(ChronoField.MONTH_OF_YEAR),
-                            accessor.get(ChronoField.DAY_OF_MONTH),
-                            accessor.get(ChronoField.HOUR_OF_DAY),
-                            accessor.get(ChronoField.MINUTE_OF_HOUR),
-                            accessor.getLocalOffset()
-                        )
-                    }
-                    TimestampField.HOUR_OF_DAY -> {
-                        Timestamp.forMinute(
-                            year,
-                            accessor.get(ChronoField.MONTH_OF_YEAR),
-                            accessor.get(ChronoField.DAY_OF_MONTH),
-                            accessor.get(ChronoField.HOUR_OF_DAY),
-                            0, // Ion Timestamp has no HOUR precision -- default minutes to 0
-                            accessor.getLocalOffset()
-                        )
-                    }
-                    TimestampField.DAY_OF_MONTH -> {
-                        Timestamp.forDay(
-                            year,
-                            accessor.get(ChronoField.MONTH_OF_YEAR),
-                            accessor.get(ChronoField.DAY_OF_MONTH)
-                        )
-                    }
-                    TimestampField.MONTH_OF_YEAR -> {
-                        Timestamp.forMonth(year, accessor.get(ChronoField.MONTH_OF_YEAR))
-                    }
-                    TimestampField.YEAR -> {
-                        Timestamp.forYear(year)
-                    }
-                    TimestampField.AM_PM, TimestampField.OFFSET, null -> {
-                        errNoContext(
-                            "This code should be unreachable because AM_PM or OFFSET or null" +
-                                "should never the value of formatPattern.leastSignificantField by at this point",
-                            errorCode = ErrorCode.EVALUATOR_INVALID_TIMESTAMP_FORMAT_PATTERN,
-                            internal = true
-                        )
-                    }
-                }
-            }
-            // Can be thrown by Timestamp.for*(...) methods.
-            catch (ex: IllegalArgumentException) {
-                throw EvaluationException(
-                    ex,
-                    ErrorCode.EVALUATOR_CUSTOM_TIMESTAMP_PARSE_FAILURE,
-                    propertyValueMapOf(Property.TIMESTAMP_FORMAT_PATTERN to formatPattern),
-                    internal = false
-                )
-            }
-            // Can be thrown by TemporalAccessor.get(ChronoField)
-            catch (ex: DateTimeException) {
-                throw EvaluationException(
-                    ex,
-                    ErrorCode.EVALUATOR_CUSTOM_TIMESTAMP_PARSE_FAILURE,
-                    propertyValueMapOf(Property.TIMESTAMP_FORMAT_PATTERN to formatPattern),
-                    internal = false
-                )
-            }
-        }
     }
 }
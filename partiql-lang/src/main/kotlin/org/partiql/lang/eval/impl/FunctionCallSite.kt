@@ -0,0 +1,120 @@
+package org.partiql.lang.eval.impl
+
+import org.partiql.lang.eval.ArityMismatchException
+import org.partiql.lang.eval.ExprFunction
+import org.partiql.lang.eval.ExprValue
+import org.partiql.lang.eval.ExprValueType
+import org.partiql.lang.eval.FunctionNotFoundException
+import org.partiql.lang.types.StaticTypeUtils
+import org.partiql.types.StaticType
+
+/**
+ * Resolves the function invoked by one call site of a compiled expression, such that the overloads of [name] are not
+ * looked up by the [FunctionManager] for every evaluation of the call.
+ *
+ * The resolution only depends on the [ExprValueType]s of the arguments, thus the functions resolved are kept in a
+ * polymorphic inline cache keyed on those types, which holds at most [MAX_ENTRIES] entries: a call site seeing more
+ * combinations of argument types than that resolves the others on every evaluation.  When the static types of the
+ * arguments are known at compile time, the cache is populated with the functions of their combinations upfront.
+ *
+ * The functions are cached as [specialized][ExprFunction.specialize] for the [literals] of the call site.
+ *
+ * The cache may be read and populated concurrently by the evaluations of the compiled expression: entries are never
+ * modified once published, and an entry lost to a concurrent miss is merely resolved again.
+ */
+internal class FunctionCallSite(
+    private val functionManager: FunctionManager,
+    private val name: String,
+    private val arity: Int,
+    argStaticTypes: List<StaticType?>,
+    private val literals: List<ExprValue?> = List(arity) { null }
+) {
+    private class Entry(val types: Array<ExprValueType>, val resolved: ExprFunction, val function: ExprFunction) {
+        fun matches(args: List<ExprValue>): Boolean {
+            for (i in types.indices) {
+                if (types[i] != args[i].type) {
+                    return false
+                }
+            }
+            return true
+        }
+    }
+
+    @Volatile
+    private var entries: Array<Entry> = emptyArray()
+
+    init {
+        // The static type of a literal is the type of its value.
+        resolveStatically(
+            argStaticTypes.mapIndexed { i, type ->
+                literals[i]?.let { StaticTypeUtils.staticTypeFromExprValue(it) } ?: type
+            }
+        )
+    }
+
+    /**
+     * Returns the function to invoke with [args].
+     *
+     * @throws FunctionNotFoundException if no overload of the function accepts the types of [args].
+     * @throws ArityMismatchException if no overload of the function accepts as many arguments.
+     */
+    fun resolve(args: List<ExprValue>): ExprFunction {
+        for (entry in entries) {
+            if (entry.matches(args)) {
+                return entry.function
+            }
+        }
+        val types = Array(args.size) { args[it].type }
+        val function = functionManager.get(name, arity, args.map { StaticTypeUtils.staticTypeFromExprValue(it) })
+        return add(types, function)
+    }
+
+    /** Caches the [function] resolved for [types], unless the cache is full, and returns it as specialized. */
+    private fun add(types: Array<ExprValueType>, function: ExprFunction): ExprFunction {
+        val specialized = specialize(function)
+        val current = entries
+        if (current.size < MAX_ENTRIES) {
+            entries = current + Entry(types, function, specialized)
+        }
+        return specialized
+    }
+
+    private fun specialize(function: ExprFunction): ExprFunction {
+        if (literals.all { it == null }) {
+            return function
+        }
+        // Overloads are usually resolved again for the same function, e.g. when an argument is sometimes `NULL`.
+        entries.firstOrNull { it.resolved === function }?.let { return it.function }
+        return function.specialize(literals) ?: function
+    }
+
+    /**
+     * Resolves the function for each combination of the types in the domains of [argStaticTypes], unless a static type
+     * is unknown or there are more than [MAX_ENTRIES] combinations.  The combinations which cannot be resolved are left
+     * to [resolve], such that the call fails when it is evaluated as it would without static types.
+     */
+    private fun resolveStatically(argStaticTypes: List<StaticType?>) {
+        val domains = argStaticTypes.map { type ->
+            type?.let { StaticTypeUtils.getTypeDomain(it).toList() }?.takeIf { it.isNotEmpty() } ?: return
+        }
+        val combinations = domains.fold(1L) { count, domain -> count * domain.size }
+        if (combinations > MAX_ENTRIES) {
+            return
+        }
+        domains.fold(listOf(emptyList<ExprValueType>())) { prefixes, domain ->
+            prefixes.flatMap { prefix -> domain.map { prefix + it } }
+        }.forEach { types ->
+            val staticTypes = types.map { StaticTypeUtils.staticTypeFromExprValueType(it) }
+            try {
+                add(types.toTypedArray(), functionManager.get(name, arity, staticTypes))
+            } catch (e: Exception) {
+                // Left to [resolve], which reports the error if the call is evaluated with these types.
+            }
+        }
+    }
+
+    companion object {
+        /** The maximum number of combinations of argument types cached by a call site. */
+        const val MAX_ENTRIES = 8
+    }
+}
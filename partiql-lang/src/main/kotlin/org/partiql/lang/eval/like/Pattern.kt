@@ -1,117 +1,200 @@
 package org.partiql.lang.eval.like
 
-import java.util.regex.Pattern
-
 private const val ANY_MANY = '%'.toInt()
 private const val ANY_ONE = '_'.toInt()
 
-private const val PATTERN_ADDITIONAL_BUFFER = 8
+/** Stands for an unescaped `_` in the code points of a [Segment], since `-1` is not a valid code point. */
+private const val ANY_ONE_WILDCARD = -1
+
+/** The default number of patterns kept by a [LikePatternCache]. */
+internal const val DEFAULT_LIKE_PATTERN_CACHE_SIZE = 64
 
 /**
- * Translates a SQL-style `LIKE` pattern to a regular expression.
- *
- * Roughly the algorithm is to
- *   - call `Pattern.quote` on the literal parts of the pattern
- *   - translate a single `_` (with no contiguous `%`) to `.`
- *   - translate a consecutive <n> `_` (with no contiguous `%`) to `.{n,n}`
- *   - translate any number of consecutive `%` to `.*?`
- *   - translate any number of consecutive `%` with a `_` contiguous to `.+?`
- *   - translate any number of consecutive `%` with <n> `_` contiguous to `.{n,}?`
- *   - prefix the pattern translated via the above rule with '^' and suffix with '$'
+ * A compiled SQL-style `LIKE` pattern, i.e. a string where `%` means zero or more <any char> and `_` means 1 <any char>.
+ * A <char> is a Unicode code point, including line terminators.
  *
- * @param likePattern A `LIKE` match pattern (i.e. a string where '%' means zero or more <any char> and '_' means 1 <any char>).
- * @param escapeChar The escape character for the `LIKE` pattern.
+ * The pattern is split at its `%` wildcards into segments of literal characters and `_` wildcards:
+ * `<first>%<middle 1>%...%<middle n>%<last>`.  A value matches if `<first>` matches its start, `<last>` matches its end,
+ * and the middle segments match, in order, in between.  Each middle segment is matched at its leftmost position, which
+ * is always sufficient since the `%` that follows it absorbs any characters.  Thus, there is no backtracking and
+ * matching a value takes at most O(value length * pattern length) steps.
  *
- * @return a [Pattern] which is a regular expression corresponding to the specified `LIKE` pattern.
+ * Segments without `_` are matched with [String.startsWith], [String.endsWith] and [String.indexOf], which are the
+ * whole matching for the most common shapes of patterns: `abc`, `abc%`, `%abc` and `%abc%`.
  *
  * Examples:
  * ```
  *   val ESCAPE = '\\'.toInt()
  *
- *   assertEquals("^.*?\\Qfoo\\E$",                 parsePattern("%foo", ESCAPE).pattern())
- *   assertEquals("^\\Qfoo\\E.*?$",                 parsePattern("foo%", ESCAPE).pattern())
- *   assertEquals("^\\Qfoo\\E.*?\\Qbar\\E$",        parsePattern("foo%bar", ESCAPE).pattern())
- *   assertEquals("^\\Qfoo\\E.*?\\Qbar\\E$",        parsePattern("foo%%bar", ESCAPE).pattern())
- *   assertEquals("^\\Qfoo\\E.*?\\Qbar\\E$",        parsePattern("foo%%%bar", ESCAPE).pattern())
- *   assertEquals("^\\Qfoo\\E.*?\\Qbar\\E$",        parsePattern("foo%%%%bar", ESCAPE).pattern())
- *   assertEquals("^.*?\\Qfoo\\E.*?\\Qbar\\E.*?$",
- *                parsePattern("%foo%%%%bar%", ESCAPE).pattern())
- *   assertEquals("^\\Qfoo\\E.{2,}?\\Qbar\\E$",     parsePattern("foo_%_bar", ESCAPE).pattern())
- *   assertEquals("^\\Qfoo\\E.{2,}?\\Qbar\\E$",     parsePattern("foo_%_%bar", ESCAPE).pattern())
- *   assertEquals("^\\Qfoo\\E.{2,}?\\Qbar\\E$",     parsePattern("foo%_%%_%bar", ESCAPE).pattern())
+ *   assertTrue(LikePattern.compile("%foo%bar", ESCAPE).matches("a foo and a bar"))
+ *   assertTrue(LikePattern.compile("foo%%%%bar", ESCAPE).matches("foobar"))
+ *   assertTrue(LikePattern.compile("foo_%_bar", ESCAPE).matches("foo12bar"))
+ *   assertFalse(LikePattern.compile("foo_%_bar", ESCAPE).matches("foo1bar"))
+ *   assertTrue(LikePattern.compile("100\\%", ESCAPE).matches("100%"))
  * ```
- *
- *
- * @see java.util.regex.Pattern
  */
-internal fun parsePattern(likePattern: String, escapeChar: Int?): Pattern {
-    val buf = StringBuilder(likePattern.length + PATTERN_ADDITIONAL_BUFFER)
-    buf.append("^")
+internal class LikePattern private constructor(
+    private val first: Segment,
+    private val middle: List<Segment>,
+    /** The segment after the last `%`, or `null` if the pattern has no `%`. */
+    private val last: Segment?
+) {
+    /** Returns true if [value] matches this pattern. */
+    fun matches(value: String): Boolean {
+        val start = first.matchAt(value, 0)
+        if (start < 0) {
+            return false
+        }
+        if (last == null) {
+            return start == value.length
+        }
+        val end = last.matchEnd(value, start)
+        if (end < 0) {
+            return false
+        }
+        var position = start
+        for (segment in middle) {
+            position = segment.find(value, position, end)
+            if (position < 0) {
+                return false
+            }
+        }
+        return true
+    }
 
-    var isEscaped = false
-    var wildcardMin = -1
-    var wildcardUnbounded = false
-    val literal = StringBuilder()
+    companion object {
+        /**
+         * Compiles a `LIKE` pattern.
+         *
+         * @param likePattern A `LIKE` match pattern.
+         * @param escapeChar The escape character for the `LIKE` pattern.
+         */
+        fun compile(likePattern: String, escapeChar: Int?): LikePattern {
+            val segments = ArrayList<Segment>()
+            val codePoints = ArrayList<Int>()
+            var isEscaped = false
 
-    // If a wildcard (e.g. a sequence of '%' and '_') has been accumulated, write out the regex equivalent
-    val flushWildcard = {
-        if (wildcardMin != -1) {
-            if (wildcardUnbounded) {
-                when (wildcardMin) {
-                    0 -> buf.append(".*?")
-                    1 -> buf.append(".+?")
-                    else -> buf.append(".{$wildcardMin,}?")
-                }
-            } else {
-                when (wildcardMin) {
-                    1 -> buf.append(".")
-                    else -> buf.append(".{$wildcardMin,$wildcardMin}")
+            for (codepoint in likePattern.codePoints()) {
+                when {
+                    isEscaped -> {
+                        codePoints.add(codepoint)
+                        isEscaped = false
+                    }
+                    codepoint == escapeChar -> isEscaped = true
+                    codepoint == ANY_ONE -> codePoints.add(ANY_ONE_WILDCARD)
+                    codepoint == ANY_MANY -> {
+                        segments.add(Segment(codePoints.toIntArray()))
+                        codePoints.clear()
+                    }
+                    else -> codePoints.add(codepoint)
                 }
             }
-            wildcardMin = -1
-            wildcardUnbounded = false
+            segments.add(Segment(codePoints.toIntArray()))
+
+            return when (segments.size) {
+                1 -> LikePattern(segments.single(), emptyList(), null)
+                // Consecutive `%` are the same as one, i.e. the empty segments between them are dropped.
+                else -> LikePattern(
+                    first = segments.first(),
+                    middle = segments.subList(1, segments.size - 1).filter { it.isNotEmpty() },
+                    last = segments.last()
+                )
+            }
         }
     }
+}
+
+/**
+ * A part of a [LikePattern] without `%`: a sequence of code points, where [ANY_ONE_WILDCARD] matches any code point.
+ *
+ * The functions below return `-1` if the segment does not match.
+ */
+private class Segment(private val codePoints: IntArray) {
+    /** The segment as a string if it does not contain [ANY_ONE_WILDCARD]. */
+    private val literal: String? = when {
+        codePoints.contains(ANY_ONE_WILDCARD) -> null
+        else -> String(codePoints, 0, codePoints.size)
+    }
 
-    // if a literal has been accumulated, write it out, regex-quoted
-    val flushLiteral = {
-        if (literal.isNotEmpty()) {
-            buf.append(Pattern.quote(literal.toString()))
-            literal.clear()
+    fun isNotEmpty() = codePoints.isNotEmpty()
+
+    /** Returns the end of the match of this segment which starts at [start] in [value]. */
+    fun matchAt(value: String, start: Int): Int {
+        if (literal != null) {
+            return if (value.startsWith(literal, start)) start + literal.length else -1
         }
+        var index = start
+        for (expected in codePoints) {
+            if (index >= value.length) {
+                return -1
+            }
+            val actual = value.codePointAt(index)
+            if (expected != ANY_ONE_WILDCARD && expected != actual) {
+                return -1
+            }
+            index += Character.charCount(actual)
+        }
+        return index
     }
 
-    for (codepoint in likePattern.codePoints()) {
-        if (!isEscaped) {
-            if (codepoint == escapeChar) {
-                isEscaped = true
-                continue // skip to the next codepoint
+    /** Returns the start of the match of this segment which ends at the end of [value] and starts at or after [min]. */
+    fun matchEnd(value: String, min: Int): Int {
+        if (literal != null) {
+            val start = value.length - literal.length
+            return if (start >= min && value.startsWith(literal, start)) start else -1
+        }
+        // Each element of the segment matches exactly one code point.
+        var start = value.length
+        repeat(codePoints.size) {
+            if (start <= min) {
+                return -1
             }
-            when (codepoint) {
-                ANY_ONE -> {
-                    flushLiteral()
-                    wildcardMin = maxOf(wildcardMin, 0) + 1
-                }
-                ANY_MANY -> {
-                    flushLiteral()
-                    wildcardMin = maxOf(wildcardMin, 0)
-                    wildcardUnbounded = true
-                }
-                else -> {
-                    flushWildcard()
-                    literal.appendCodePoint(codepoint)
-                }
+            start = value.offsetByCodePoints(start, -1)
+        }
+        return if (matchAt(value, start) == value.length) start else -1
+    }
+
+    /** Returns the end of the leftmost match of this segment in [value] that starts at or after [from] and ends at or before [limit]. */
+    fun find(value: String, from: Int, limit: Int): Int {
+        if (literal != null) {
+            val start = value.indexOf(literal, from)
+            return if (start >= 0 && start + literal.length <= limit) start + literal.length else -1
+        }
+        var start = from
+        while (start < limit) {
+            val end = matchAt(value, start)
+            when {
+                // A match that starts further right also ends further right.
+                end > limit -> return -1
+                end >= 0 -> return end
             }
-        } else {
-            flushWildcard()
-            literal.appendCodePoint(codepoint)
-            isEscaped = false
+            start += Character.charCount(value.codePointAt(start))
         }
+        return -1
     }
+}
 
-    flushLiteral()
-    flushWildcard()
+/**
+ * A bounded cache of the [LikePattern]s of a `LIKE` predicate whose pattern or escape is not a literal, such that the
+ * patterns that are computed repeatedly are only compiled once.  When it is full, the least recently used pattern is
+ * evicted.
+ *
+ * Instances are safe for use by multiple threads.
+ */
+internal class LikePatternCache(private val capacity: Int = DEFAULT_LIKE_PATTERN_CACHE_SIZE) {
+    private data class Key(val pattern: String, val escape: String?)
+
+    private val patterns = object : LinkedHashMap<Key, LikePattern>(16, 0.75f, true) {
+        override fun removeEldestEntry(eldest: MutableMap.MutableEntry<Key, LikePattern>?): Boolean = size > capacity
+    }
 
-    buf.append("$")
-    return Pattern.compile(buf.toString())
+    /** Returns the cached pattern for [pattern] and [escape], calling [compile] if there is none. */
+    fun getOrCompile(pattern: String, escape: String?, compile: () -> LikePattern): LikePattern {
+        val key = Key(pattern, escape)
+        synchronized(patterns) { patterns[key] }?.let { return it }
+        // Compiled outside of the lock: at worst, concurrent misses compile the same pattern more than once.
+        val compiled = compile()
+        synchronized(patterns) { patterns[key] = compiled }
+        return compiled
+    }
 }
@@ -0,0 +1,28 @@
+package org.partiql.lang.eval.physical
+
+import org.partiql.lang.eval.ExprValue
+
+/**
+ * The local variables bound by a relational operator, i.e. all the variables declared by the operator and its
+ * children.
+ *
+ * Operators that buffer rows of one of their inputs (for instance, the build side of a hash join) use this to save the
+ * values of the variables of each buffered row and to restore them later, without requiring access to
+ * [EvaluatorState.registers].
+ */
+class BoundVariables internal constructor(private val registerIndexes: IntArray) {
+
+    /** Returns a copy of the current values of the variables. */
+    fun capture(state: EvaluatorState): Array<ExprValue> =
+        Array(registerIndexes.size) { state.registers[registerIndexes[it]] }
+
+    /** Sets the variables to [values], which must have been previously obtained from [capture]. */
+    fun restore(state: EvaluatorState, values: Array<ExprValue>) {
+        registerIndexes.forEachIndexed { i, registerIndex -> state.registers[registerIndex] = values[i] }
+    }
+
+    /** Sets all of the variables to `NULL`. */
+    fun setToNull(state: EvaluatorState) {
+        registerIndexes.forEach { state.registers[it] = ExprValue.nullValue }
+    }
+}
@@ -0,0 +1,115 @@
+package org.partiql.lang.eval.physical
+
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Deferred
+import kotlinx.coroutines.ExecutorCoroutineDispatcher
+import kotlinx.coroutines.asCoroutineDispatcher
+import kotlinx.coroutines.async
+import kotlinx.coroutines.awaitAll
+import kotlinx.coroutines.coroutineScope
+import org.partiql.lang.domains.PartiqlPhysical
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import kotlin.coroutines.ContinuationInterceptor
+import kotlin.coroutines.coroutineContext
+
+/**
+ * Returns a dispatcher which runs each coroutine on a new virtual thread, for use with
+ * [org.partiql.lang.compiler.PartiQLCompilerAsyncBuilder.concurrentExecution] when the functions or the global
+ * variables of queries block on I/O.  The dispatcher should be closed once it is no longer used.
+ *
+ * @throws UnsupportedOperationException if the JVM does not support virtual threads (JDK 21 or later).
+ */
+fun newVirtualThreadDispatcher(): ExecutorCoroutineDispatcher {
+    val factory = try {
+        Executors::class.java.getMethod("newVirtualThreadPerTaskExecutor")
+    } catch (e: NoSuchMethodException) {
+        throw UnsupportedOperationException("Virtual threads require JDK 21 or later", e)
+    }
+    return (factory.invoke(null) as ExecutorService).asCoroutineDispatcher()
+}
+
+/**
+ * Returns a copy of this state for the evaluation of a subtree concurrently with other subtrees.
+ *
+ * The copy has no [EvaluatorState.dispatcher], thus only the outermost independent subtrees are evaluated
+ * concurrently, and a task never blocks a thread of the dispatcher while waiting for other tasks.
+ */
+internal fun EvaluatorState.fork(): EvaluatorState =
+    EvaluatorState(session, registers.clone()).also {
+        it.partition = partition
+        it.profiler = profiler
+        it.profiledOperator = profiledOperator
+        it.memory = memory
+    }
+
+/**
+ * Evaluates each of [tasks] and returns their results in the same order.  When this state has a dispatcher, there are
+ * several tasks, and the calling coroutine may suspend (see [canSuspend]), they are launched on the dispatcher in the
+ * scope of the caller, each with its own copy of this state (see [fork]), and awaited; otherwise they are evaluated one
+ * after the other with this state.
+ *
+ * The tasks must be independent: a task evaluated concurrently must not rely on the variables set by another task, and
+ * the variables that it sets are not visible to the caller.  If a task throws, the other tasks are cancelled.
+ */
+internal suspend fun <T> EvaluatorState.evaluateAll(tasks: List<suspend (EvaluatorState) -> T>): List<T> {
+    val dispatcher = dispatcher
+    if (dispatcher == null || tasks.size < 2 || !canSuspend()) {
+        return tasks.map { it(this) }
+    }
+    return coroutineScope {
+        tasks.map { task ->
+            val taskState = fork()
+            async(dispatcher) { task(taskState) }
+        }.awaitAll()
+    }
+}
+
+/**
+ * Starts [task] on the dispatcher of this state with a copy of this state (see [fork]), as a child of the calling
+ * coroutine, or returns `null` if this state has no dispatcher or the calling coroutine cannot suspend (see
+ * [canSuspend]).  The result, or the error, of the task is only raised by [Result.getOrThrow], such that the caller
+ * decides whether the task was needed.
+ */
+internal suspend fun <T> EvaluatorState.start(task: suspend (EvaluatorState) -> T): Deferred<Result<T>>? {
+    val dispatcher = dispatcher ?: return null
+    if (!canSuspend()) {
+        return null
+    }
+    val taskState = fork()
+    return CoroutineScope(coroutineContext).async(dispatcher) { runCatching { task(taskState) } }
+}
+
+/**
+ * True if the calling coroutine may suspend, i.e. it is not one of the restricted coroutines of
+ * [org.partiql.lang.eval.relation.relation] evaluating the rows of a relational operator, which have no dispatcher and
+ * cannot suspend other than to yield a row.  Operators evaluating their input by batches (see
+ * [org.partiql.lang.eval.physical.operators.BatchRelationExpressionAsync]) are evaluated in coroutines that can.
+ */
+private suspend fun canSuspend(): Boolean = coroutineContext[ContinuationInterceptor] != null
+
+/**
+ * Returns true if these sibling expressions are worth evaluating concurrently, i.e. if at least two of them call a
+ * function or contain a subquery, which may block or suspend, e.g. on a slow connector.  The evaluation of other
+ * expressions is cheaper than launching a coroutine.
+ */
+internal fun List<PartiqlPhysical.Expr>.shouldEvaluateConcurrently(): Boolean = count { it.mayBlock() } > 1
+
+private fun PartiqlPhysical.Expr.mayBlock(): Boolean = object : PartiqlPhysical.VisitorFold<Boolean>() {
+    override fun visitExprCall(node: PartiqlPhysical.Expr.Call, accumulator: Boolean) = true
+    override fun visitExprBindingsToValues(node: PartiqlPhysical.Expr.BindingsToValues, accumulator: Boolean) = true
+}.walkExpr(this, false)
+
+/**
+ * Returns true if none of these expressions reference the variables in [decls], e.g. if the values of the bindings of
+ * a `LET` do not depend on each other.
+ */
+internal fun List<PartiqlPhysical.Expr>.areIndependentOf(decls: List<PartiqlPhysical.VarDecl>): Boolean {
+    val indexes = decls.map { it.index.value }.toSet()
+    return none { expr ->
+        object : PartiqlPhysical.VisitorFold<Boolean>() {
+            override fun visitExprLocalId(node: PartiqlPhysical.Expr.LocalId, accumulator: Boolean) =
+                accumulator || node.index.value in indexes
+        }.walkExpr(expr, false)
+    }
+}
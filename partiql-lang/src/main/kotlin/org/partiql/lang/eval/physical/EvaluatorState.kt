@@ -14,15 +14,19 @@
 
 package org.partiql.lang.eval.physical
 
+import kotlinx.coroutines.CoroutineDispatcher
 import org.partiql.lang.eval.EvaluationSession
 import org.partiql.lang.eval.ExprValue
+import org.partiql.lang.eval.MemoryAccount
+import org.partiql.lang.eval.MemoryReservation
 
 /**
  * Contains state needed during query evaluation such as an instance of [EvaluationSession] and an array of [registers]
  * for each local variable that is part of the query.
  *
- * Since the elements of [registers] are mutable, when/if we decide to make query execution multi-threaded, we'll have
- * to take care to not share [EvaluatorState] instances among different threads.
+ * Since the elements of [registers] are mutable, [EvaluatorState] instances must not be shared among different
+ * threads.  Operators evaluating their input on several threads (see
+ * [org.partiql.lang.eval.physical.operators.ParallelFilterOperatorFactoryAsync]) give each thread its own copy.
  *
  * @param session The evaluation session.
  */
@@ -40,6 +44,37 @@ class EvaluatorState(
      */
     internal val registers: Array<ExprValue>
 ) {
+    /**
+     * The partition of the input read by partitioned scans, when this state is the copy evaluating one of the
+     * partitions of a parallel operator, or `null` otherwise.
+     */
+    internal var partition: ScanPartition? = null
+
+    /**
+     * The dispatcher on which independent subtrees of the query are evaluated concurrently, or `null` if they are
+     * evaluated one after the other (see [evaluateAll]).  The copies of this state evaluating these subtrees have no
+     * dispatcher.
+     */
+    internal var dispatcher: CoroutineDispatcher? = null
+
+    /** The profiler recording the runtime statistics of the relational operators, or `null` if not profiling. */
+    internal var profiler: QueryProfiler? = null
+
+    /** The id of the profiled operator being evaluated, or -1, see [recordMaterializedRows]. */
+    internal var profiledOperator: Int = -1
+
+    /**
+     * The memory reserved by the operators buffering rows during this evaluation, or `null` if the session has no
+     * [EvaluationSession.memoryBudget].  Shared by the copies of this state.
+     */
+    internal var memory: MemoryAccount? = MemoryAccount.of(session)
+
+    /**
+     * Returns a new reservation of [memory] for the rows buffered by [operator], which releases the reservation of the
+     * previous evaluation of [operator] with this state (see [MemoryAccount.reopen]).
+     */
+    internal fun reserveMemory(operator: Any): MemoryReservation = MemoryReservation.of(memory, operator to this)
+
     internal fun load(registers: Array<ExprValue>) = registers.forEachIndexed { index, exprValue ->
         this.registers[index] = exprValue
     }
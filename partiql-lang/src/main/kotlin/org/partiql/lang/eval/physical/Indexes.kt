@@ -0,0 +1,181 @@
+package org.partiql.lang.eval.physical
+
+import org.partiql.lang.eval.BindingCase
+import org.partiql.lang.eval.BindingName
+import org.partiql.lang.eval.DEFAULT_COMPARATOR
+import org.partiql.lang.eval.ExprValue
+import org.partiql.lang.eval.isUnknown
+import org.partiql.lang.eval.physical.operators.HashJoinKey
+import org.partiql.types.StructType
+import java.util.concurrent.ConcurrentHashMap
+
+/** The key of the [StructType.metas] entry holding the [IndexDefinition]s of a table's rows. */
+const val INDEXES_META_KEY = "partiql.indexes"
+
+/** The kinds of secondary indexes of an [IndexRegistry]. */
+enum class IndexKind {
+    /** Finds the rows whose key fields are all equal to given values. */
+    HASH,
+
+    /**
+     * Finds the rows whose leading key fields are equal to given values (a prefix of the key), and whose next key field,
+     * if any, is within a range.  Keys are ordered by [DEFAULT_COMPARATOR].
+     */
+    SORTED
+}
+
+/**
+ * Declares a secondary index over the rows of a table, whose key is the values of [keyFields] (top-level fields of the
+ * rows, matched case-sensitively).  Indexes are declared on the [StructType] of the rows with [withIndexes], which makes
+ * them known to [org.partiql.lang.planner.transforms.optimizations.createFilterScanToIndexScanPass], and built with
+ * [IndexRegistry.register].  Since the key fields are matched case-sensitively, that pass only uses an index for
+ * case-insensitive references to its key fields if the row type is closed.
+ */
+data class IndexDefinition(
+    val name: String,
+    val keyFields: List<String>,
+    val kind: IndexKind
+) {
+    init {
+        require(keyFields.isNotEmpty()) { "An index must have at least one key field" }
+    }
+}
+
+/** The indexes declared on this row type, see [withIndexes]. */
+val StructType.indexes: List<IndexDefinition>
+    get() = (metas[INDEXES_META_KEY] as? List<*>)?.filterIsInstance<IndexDefinition>() ?: emptyList()
+
+/** Returns a copy of this row type which also declares [indexes]. */
+fun StructType.withIndexes(vararg indexes: IndexDefinition): StructType =
+    copy(metas = metas + (INDEXES_META_KEY to this.indexes + indexes))
+
+/**
+ * Holds the secondary indexes of global variables (tables), keyed by the unique id of the global variable and the name
+ * of the index.  Instances are safe for use by multiple threads.
+ *
+ * An index is a snapshot of the rows given to [register]; it must be registered again after the rows of the table
+ * change.
+ */
+class IndexRegistry {
+    private data class Key(val uniqueId: String, val name: String)
+
+    private val indexes = ConcurrentHashMap<Key, ExprValueIndex>()
+
+    /**
+     * Builds the index [definition] over the rows of [table], the value of the global variable [uniqueId], replacing any
+     * index of the same name.
+     */
+    fun register(uniqueId: String, definition: IndexDefinition, table: ExprValue) {
+        val index = when (definition.kind) {
+            IndexKind.HASH -> HashIndex(definition, table)
+            IndexKind.SORTED -> SortedIndex(definition, table)
+        }
+        indexes[Key(uniqueId, definition.name)] = index
+    }
+
+    /** Removes the index [name] of the global variable [uniqueId], returning true if it was registered. */
+    fun unregister(uniqueId: String, name: String): Boolean = indexes.remove(Key(uniqueId, name)) != null
+
+    internal operator fun get(uniqueId: String, name: String): ExprValueIndex? = indexes[Key(uniqueId, name)]
+}
+
+/** A bound of a range of keys. */
+internal class IndexBound(val value: ExprValue, val inclusive: Boolean)
+
+internal sealed class ExprValueIndex(val definition: IndexDefinition) {
+    /**
+     * Returns the rows whose key starts with [prefix] and whose next key field is within [lower] and [upper] (when not
+     * null).  Since a comparison with `NULL` or `MISSING` is never true, there are no such rows if any of these values
+     * is unknown.
+     */
+    abstract fun lookup(prefix: List<ExprValue>, lower: IndexBound?, upper: IndexBound?): List<ExprValue>
+
+    protected fun keyOf(row: ExprValue): Array<ExprValue> = Array(definition.keyFields.size) {
+        row.bindings[BindingName(definition.keyFields[it], BindingCase.SENSITIVE)] ?: ExprValue.missingValue
+    }
+}
+
+private class HashIndex(definition: IndexDefinition, table: ExprValue) : ExprValueIndex(definition) {
+    private val rows = HashMap<HashJoinKey, MutableList<ExprValue>>().apply {
+        for (row in table) {
+            val key = keyOf(row)
+            // A row with a NULL or MISSING key is never equal to a given key.
+            if (key.any { it.isUnknown() }) {
+                continue
+            }
+            getOrPut(HashJoinKey(key)) { ArrayList(1) }.add(row)
+        }
+    }
+
+    override fun lookup(prefix: List<ExprValue>, lower: IndexBound?, upper: IndexBound?): List<ExprValue> {
+        require(prefix.size == definition.keyFields.size && lower == null && upper == null) {
+            "A hash index only finds the rows of a whole key"
+        }
+        if (prefix.any { it.isUnknown() }) {
+            return emptyList()
+        }
+        return rows[HashJoinKey(prefix.toTypedArray())] ?: emptyList()
+    }
+}
+
+private class SortedIndex(definition: IndexDefinition, table: ExprValue) : ExprValueIndex(definition) {
+    private val keys: List<Array<ExprValue>>
+    private val rows: List<ExprValue>
+
+    init {
+        val entries = table.map { keyOf(it) to it }.sortedWith { a, b -> compareKeys(a.first, b.first) }
+        keys = entries.map { it.first }
+        rows = entries.map { it.second }
+    }
+
+    override fun lookup(prefix: List<ExprValue>, lower: IndexBound?, upper: IndexBound?): List<ExprValue> {
+        require(prefix.size < definition.keyFields.size || (lower == null && upper == null)) {
+            "A range requires a key field after the prefix"
+        }
+        if (prefix.any { it.isUnknown() } || lower?.value?.isUnknown() == true || upper?.value?.isUnknown() == true) {
+            return emptyList()
+        }
+        val from = search(prefix, lower?.value, strict = lower?.inclusive == false)
+        val to = search(prefix, upper?.value, strict = upper?.inclusive != false)
+        return if (from < to) rows.subList(from, to) else emptyList()
+    }
+
+    /**
+     * Returns the position of the first key that is greater than or equal to (greater than if [strict]) the bound made
+     * of [prefix] followed by [value], comparing only the fields of the bound.
+     */
+    private fun search(prefix: List<ExprValue>, value: ExprValue?, strict: Boolean): Int {
+        var low = 0
+        var high = keys.size
+        while (low < high) {
+            val mid = (low + high) ushr 1
+            val cmp = compareToBound(keys[mid], prefix, value)
+            if (cmp < 0 || (strict && cmp == 0)) {
+                low = mid + 1
+            } else {
+                high = mid
+            }
+        }
+        return low
+    }
+
+    private fun compareToBound(key: Array<ExprValue>, prefix: List<ExprValue>, value: ExprValue?): Int {
+        prefix.forEachIndexed { i, v ->
+            val cmp = DEFAULT_COMPARATOR.compare(key[i], v)
+            if (cmp != 0) {
+                return cmp
+            }
+        }
+        return if (value == null) 0 else DEFAULT_COMPARATOR.compare(key[prefix.size], value)
+    }
+
+    private fun compareKeys(a: Array<ExprValue>, b: Array<ExprValue>): Int {
+        a.indices.forEach { i ->
+            val cmp = DEFAULT_COMPARATOR.compare(a[i], b[i])
+            if (cmp != 0) {
+                return cmp
+            }
+        }
+        return 0
+    }
+}
@@ -0,0 +1,223 @@
+package org.partiql.lang.eval.physical
+
+import kotlinx.coroutines.CoroutineDispatcher
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.async
+import kotlinx.coroutines.awaitAll
+import kotlinx.coroutines.channels.Channel
+import kotlinx.coroutines.channels.ReceiveChannel
+import kotlinx.coroutines.channels.SendChannel
+import kotlinx.coroutines.coroutineScope
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.suspendCancellableCoroutine
+import org.partiql.lang.eval.ExprValue
+import org.partiql.lang.eval.ExprValueType
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.CompletionException
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.Executor
+import kotlin.coroutines.resume
+import kotlin.coroutines.resumeWithException
+
+/** The default number of partitions evaluated by the parallel operators: the number of available processors. */
+val DEFAULT_PARALLELISM: Int = Runtime.getRuntime().availableProcessors()
+
+/**
+ * Identifies the partition of its input read by a partitioned scan, i.e. partition [index] of [count] partitions.
+ *
+ * The value scanned by a partitioned scan is evaluated once, by the first partition reaching the scan (see [items]).
+ * Unless this value is a [SplittableExprValue], the partitions then read its items from a single iterator, in chunks of
+ * [SHARED_SCAN_CHUNK_SIZE] items, thus the items are distributed among the partitions as they read them.
+ */
+internal class ScanPartition(
+    val index: Int,
+    val count: Int,
+    private val sources: ConcurrentHashMap<Any, CompletableFuture<SharedSource>> = ConcurrentHashMap()
+) {
+    init {
+        require(index in 0 until count) { "index must be between 0 and ${count - 1}" }
+    }
+
+    /**
+     * Returns the items of this partition of the value scanned by [scan], which is evaluated by [evaluate] if this
+     * partition is the first to reach [scan], and is otherwise awaited.
+     */
+    fun items(scan: Any, evaluate: () -> ExprValue): Sequence<ExprValue> {
+        val future = CompletableFuture<SharedSource>()
+        val source = when (val existing = sources.putIfAbsent(scan, future)) {
+            null -> future.completeWith { SharedSource(evaluate()) }
+            else -> try {
+                existing.join()
+            } catch (e: CompletionException) {
+                throw e.cause ?: e
+            }
+        }
+        return source.items(this)
+    }
+
+    /** As [items], except that the scanned value is evaluated, or awaited, by suspending. */
+    suspend fun itemsAsync(scan: Any, evaluate: suspend () -> ExprValue): Sequence<ExprValue> {
+        val future = CompletableFuture<SharedSource>()
+        val source = when (val existing = sources.putIfAbsent(scan, future)) {
+            null -> future.completeWith { SharedSource(evaluate()) }
+            else -> existing.awaitSource()
+        }
+        return source.items(this)
+    }
+
+    private inline fun CompletableFuture<SharedSource>.completeWith(evaluate: () -> SharedSource): SharedSource {
+        val source = try {
+            evaluate()
+        } catch (e: Throwable) {
+            // The other partitions fail with the same error
+            completeExceptionally(e)
+            throw e
+        }
+        complete(source)
+        return source
+    }
+
+    private suspend fun CompletableFuture<SharedSource>.awaitSource(): SharedSource =
+        suspendCancellableCoroutine { continuation ->
+            whenComplete { source, e ->
+                when (e) {
+                    null -> continuation.resume(source)
+                    else -> continuation.resumeWithException((e as? CompletionException)?.cause ?: e)
+                }
+            }
+        }
+}
+
+/** The number of items read by a partition at once from a value scanned by several partitions. */
+internal const val SHARED_SCAN_CHUNK_SIZE = 64
+
+/**
+ * A value scanned by the partitions of a parallel operator, which is read once: the partitions either [split] it, if
+ * it is a [SplittableExprValue], or read chunks of its items from a single iterator.
+ */
+internal class SharedSource(private val value: ExprValue) {
+
+    private val iterator: Iterator<ExprValue> by lazy(LazyThreadSafetyMode.SYNCHRONIZED) {
+        when (value.type) {
+            ExprValueType.LIST, ExprValueType.BAG -> value.iterator()
+            // A scalar is scanned as a single row, which belongs to the first partition reading it.
+            else -> listOf(value).iterator()
+        }
+    }
+
+    fun items(partition: ScanPartition): Sequence<ExprValue> = when (value) {
+        is SplittableExprValue -> value.split(partition.index, partition.count)
+        else -> sequence {
+            while (true) {
+                val chunk = nextChunk()
+                if (chunk.isEmpty()) {
+                    break
+                }
+                yieldAll(chunk)
+            }
+        }
+    }
+
+    @Synchronized
+    private fun nextChunk(): List<ExprValue> {
+        val chunk = ArrayList<ExprValue>(SHARED_SCAN_CHUNK_SIZE)
+        while (chunk.size < SHARED_SCAN_CHUNK_SIZE && iterator.hasNext()) {
+            chunk.add(iterator.next())
+        }
+        return chunk
+    }
+}
+
+/**
+ * Returns a copy of this state for the evaluation of partition [index] of [count] partitions, whose scans share the
+ * values scanned with the other partitions through [sources].
+ */
+private fun EvaluatorState.forPartition(
+    index: Int,
+    count: Int,
+    sources: ConcurrentHashMap<Any, CompletableFuture<SharedSource>>
+): EvaluatorState =
+    EvaluatorState(session, registers.clone()).also {
+        it.partition = ScanPartition(index, count, sources)
+        it.profiler = profiler
+        it.profiledOperator = profiledOperator
+        it.memory = memory
+    }
+
+/**
+ * Evaluates [block] once for each of [parallelism] partitions on this [Executor], each with its own copy of [state],
+ * and returns the results in the order of the partitions.
+ *
+ * Exceptions thrown by [block] are rethrown as is.
+ */
+internal fun <T> Executor.mapPartitions(
+    state: EvaluatorState,
+    parallelism: Int,
+    block: (EvaluatorState) -> T
+): List<T> {
+    val sources = ConcurrentHashMap<Any, CompletableFuture<SharedSource>>()
+    val futures = (0 until parallelism).map { index ->
+        val partitionState = state.forPartition(index, parallelism, sources)
+        CompletableFuture.supplyAsync({ block(partitionState) }, this)
+    }
+    return try {
+        futures.map { it.join() }
+    } catch (e: CompletionException) {
+        futures.forEach { it.cancel(false) }
+        throw e.cause ?: e
+    }
+}
+
+/**
+ * Evaluates [block] once for each of [parallelism] partitions on this [CoroutineDispatcher], each with its own copy of
+ * [state], and returns the results in the order of the partitions.
+ *
+ * If [block] throws for any partition, the evaluation of the other partitions is cancelled.
+ */
+internal suspend fun <T> CoroutineDispatcher.mapPartitions(
+    state: EvaluatorState,
+    parallelism: Int,
+    block: suspend (EvaluatorState) -> T
+): List<T> = coroutineScope {
+    val sources = ConcurrentHashMap<Any, CompletableFuture<SharedSource>>()
+    (0 until parallelism).map { index ->
+        val partitionState = state.forPartition(index, parallelism, sources)
+        async(this@mapPartitions) { block(partitionState) }
+    }.awaitAll()
+}
+
+/** The number of rows sent at once by a partition streamed with [streamPartitions]. */
+internal const val PARTITION_CHUNK_SIZE = 256
+
+/**
+ * Evaluates [block] once for each of [parallelism] partitions on this [CoroutineDispatcher], each with its own copy of
+ * [state], and returns the chunks of rows that the partitions send, in the order they are sent, thus the rows are
+ * consumed while the partitions are evaluated.
+ *
+ * The partitions are launched in a scope of their own since they run after this function returns. The channel only
+ * buffers [parallelism] chunks, thus once the consumer stops reading (e.g. because of a `LIMIT`), the partitions
+ * suspend without holding a thread and are discarded with the channel. If [block] throws for any partition, the other
+ * partitions are cancelled and the exception is rethrown when the channel is read.
+ */
+internal fun CoroutineDispatcher.streamPartitions(
+    state: EvaluatorState,
+    parallelism: Int,
+    block: suspend (EvaluatorState, SendChannel<List<Array<ExprValue>>>) -> Unit
+): ReceiveChannel<List<Array<ExprValue>>> {
+    val chunks = Channel<List<Array<ExprValue>>>(capacity = parallelism)
+    val sources = ConcurrentHashMap<Any, CompletableFuture<SharedSource>>()
+    val partitionStates = (0 until parallelism).map { index -> state.forPartition(index, parallelism, sources) }
+    CoroutineScope(this).launch {
+        try {
+            coroutineScope {
+                partitionStates.forEach { partitionState ->
+                    launch { block(partitionState, chunks) }
+                }
+            }
+            chunks.close()
+        } catch (e: Throwable) {
+            chunks.close(e)
+        }
+    }
+    return chunks
+}
@@ -13,6 +13,7 @@ import org.partiql.lang.eval.physical.operators.CompiledAggregateFunction
 import org.partiql.lang.eval.physical.operators.CompiledGroupKey
 import org.partiql.lang.eval.physical.operators.CompiledSortKey
 import org.partiql.lang.eval.physical.operators.CompiledWindowFunction
+import org.partiql.lang.eval.physical.operators.EquiJoinRelationalOperatorFactory
 import org.partiql.lang.eval.physical.operators.FilterRelationalOperatorFactory
 import org.partiql.lang.eval.physical.operators.JoinRelationalOperatorFactory
 import org.partiql.lang.eval.physical.operators.LetRelationalOperatorFactory
@@ -29,6 +30,8 @@ import org.partiql.lang.eval.physical.operators.UnpivotOperatorFactory
 import org.partiql.lang.eval.physical.operators.WindowRelationalOperatorFactory
 import org.partiql.lang.eval.physical.operators.valueExpression
 import org.partiql.lang.eval.physical.window.createBuiltinWindowFunction
+import org.partiql.lang.planner.transforms.extractAccessibleVarDecls
+import org.partiql.lang.planner.transforms.toEquiJoinPredicate
 import org.partiql.lang.util.toIntExact
 
 /** A specialization of [Thunk] that we use for evaluation of physical plans. */
@@ -178,6 +181,27 @@ internal class PhysicalBexprToThunkConverter(
             rightVariableIndexes.forEach { state.registers[it] = ExprValue.nullValue }
         }
 
+        // Equi-join implementations (e.g. hash join) receive the join keys separately from the rest of the predicate.
+        val equiJoinPredicate = node.predicate?.toEquiJoinPredicate(
+            leftVariables = leftVariableIndexes.map { it.toLong() }.toSet(),
+            rightVariables = rightVariableIndexes.map { it.toLong() }.toSet()
+        )
+        if (factory is EquiJoinRelationalOperatorFactory && equiJoinPredicate != null) {
+            return factory.create(
+                impl = node.i,
+                joinType = node.joinType,
+                leftBexpr = leftBindingsExpr,
+                rightBexpr = rightBindingdExpr,
+                leftKeys = equiJoinPredicate.leftKeys.map { exprConverter.convert(it).toValueExpr(it.metas.sourceLocationMeta) },
+                rightKeys = equiJoinPredicate.rightKeys.map { exprConverter.convert(it).toValueExpr(it.metas.sourceLocationMeta) },
+                residualPredicateExpr = equiJoinPredicate.residual?.let { residual ->
+                    exprConverter.convert(residual).toValueExpr(residual.metas.sourceLocationMeta)
+                },
+                leftVariables = BoundVariables(leftVariableIndexes.toIntArray()),
+                rightVariables = BoundVariables(rightVariableIndexes.toIntArray())
+            ).toRelationThunk(node.metas)
+        }
+
         return factory.create(
             impl = node.i,
             joinType = node.joinType,
@@ -189,27 +213,6 @@ internal class PhysicalBexprToThunkConverter(
         ).toRelationThunk(node.metas)
     }
 
-    private fun PartiqlPhysical.Bexpr.extractAccessibleVarDecls(): List<PartiqlPhysical.VarDecl> =
-        // This fold traverses a [PartiqlPhysical.Bexpr] node and extracts all variable declarations within
-        // It avoids recursing into sub-queries.
-        object : PartiqlPhysical.VisitorFold<List<PartiqlPhysical.VarDecl>>() {
-            override fun visitVarDecl(
-                node: PartiqlPhysical.VarDecl,
-                accumulator: List<PartiqlPhysical.VarDecl>
-            ): List<PartiqlPhysical.VarDecl> = accumulator + node
-
-            /**
-             * Avoids recursion into expressions, since these may contain sub-queries with other var-decls that we don't
-             * care about here.
-             */
-            override fun walkExpr(
-                node: PartiqlPhysical.Expr,
-                accumulator: List<PartiqlPhysical.VarDecl>
-            ): List<PartiqlPhysical.VarDecl> {
-                return accumulator
-            }
-        }.walkBexpr(this, emptyList())
-
     override fun convertOffset(node: PartiqlPhysical.Bexpr.Offset): RelationThunkEnv {
         // recurse into children
         val rowCountExpr = exprConverter.convert(node.rowCount).toValueExpr(node.rowCount.metas.sourceLocationMeta)
@@ -246,7 +249,7 @@ internal class PhysicalBexprToThunkConverter(
 
         // Get Implementation
         val factory = findOperatorFactory<SortOperatorFactory>(RelationalOperatorKind.SORT, node.i.name.text)
-        val bindingsExpr = factory.create(sortKeys, source)
+        val bindingsExpr = factory.create(node.i, sortKeys, source)
         return bindingsExpr.toRelationThunk(node.metas)
     }
 
@@ -1,7 +1,6 @@
 package org.partiql.lang.eval.physical
 
 import com.amazon.ionelement.api.BoolElement
-import com.amazon.ionelement.api.MetaContainer
 import org.partiql.annotations.ExperimentalWindowFunctions
 import org.partiql.lang.ast.SourceLocationMeta
 import org.partiql.lang.domains.PartiqlPhysical
@@ -14,9 +13,11 @@ import org.partiql.lang.eval.physical.operators.CompiledAggregateFunctionAsync
 import org.partiql.lang.eval.physical.operators.CompiledGroupKeyAsync
 import org.partiql.lang.eval.physical.operators.CompiledSortKeyAsync
 import org.partiql.lang.eval.physical.operators.CompiledWindowFunctionAsync
+import org.partiql.lang.eval.physical.operators.EquiJoinRelationalOperatorFactoryAsync
 import org.partiql.lang.eval.physical.operators.FilterRelationalOperatorFactoryAsync
 import org.partiql.lang.eval.physical.operators.JoinRelationalOperatorFactoryAsync
 import org.partiql.lang.eval.physical.operators.LetRelationalOperatorFactoryAsync
+import org.partiql.lang.eval.physical.operators.LetRelationalOperatorFactoryDefaultAsync
 import org.partiql.lang.eval.physical.operators.LimitRelationalOperatorFactoryAsync
 import org.partiql.lang.eval.physical.operators.OffsetRelationalOperatorFactoryAsync
 import org.partiql.lang.eval.physical.operators.ProjectRelationalOperatorFactoryAsync
@@ -30,7 +31,10 @@ import org.partiql.lang.eval.physical.operators.UnpivotOperatorFactoryAsync
 import org.partiql.lang.eval.physical.operators.WindowRelationalOperatorFactoryAsync
 import org.partiql.lang.eval.physical.operators.valueExpressionAsync
 import org.partiql.lang.eval.physical.window.createBuiltinWindowFunctionAsync
+import org.partiql.lang.planner.transforms.extractAccessibleVarDecls
+import org.partiql.lang.planner.transforms.toEquiJoinPredicate
 import org.partiql.lang.util.toIntExact
+import kotlin.coroutines.coroutineContext
 
 /** Converts instances of [PartiqlPhysical.Bexpr] to any [T]. A `suspend` version of the physical plan converter
  * interface is added since PIG currently does not output async functions.
@@ -72,13 +76,21 @@ internal typealias PhysicalPlanThunkValueAsync<T> = ThunkValueAsync<EvaluatorSta
 internal class PhysicalBexprToThunkConverterAsync(
     private val exprConverter: PhysicalPlanCompilerAsync,
     private val relationalOperatorFactory: Map<RelationalOperatorFactoryKey, RelationalOperatorFactory>
-) : Converter<RelationThunkEnvAsync> {
+) : Converter<RelationExpressionAsync> {
 
     private fun PhysicalPlanThunkAsync.toValueExpr(sourceLocationMeta: SourceLocationMeta?) =
         valueExpressionAsync(sourceLocationMeta) { state -> this(state) }
 
-    private suspend fun RelationExpressionAsync.toRelationThunk(metas: MetaContainer) =
-        relationThunkAsync(metas) { state -> this.evaluate(state) }
+    /**
+     * Converts [node], and profiles the resulting operator when a [ProfiledPlan] is in the coroutine context.  The
+     * expressions of the operator are not profiled on their own: their evaluation is part of the operator's.
+     */
+    override suspend fun convert(node: PartiqlPhysical.Bexpr): RelationExpressionAsync {
+        val profiledPlan = coroutineContext[ProfiledPlan] ?: return super.convert(node)
+        profiledPlan.enter()
+        val expr = super.convert(node)
+        return expr.profiled(profiledPlan.exit(node))
+    }
 
     private inline fun <reified T : RelationalOperatorFactory> findOperatorFactory(
         operator: RelationalOperatorKind,
@@ -94,7 +106,7 @@ internal class PhysicalBexprToThunkConverterAsync(
             )
     }
 
-    override suspend fun convertProject(node: PartiqlPhysical.Bexpr.Project): RelationThunkEnvAsync {
+    override suspend fun convertProject(node: PartiqlPhysical.Bexpr.Project): RelationExpressionAsync {
         // recurse into children
         val argExprs = node.args.map { exprConverter.convert(it).toValueExpr(it.metas.sourceLocationMeta) }
 
@@ -105,10 +117,10 @@ internal class PhysicalBexprToThunkConverterAsync(
         val bindingsExpr = factory.create(node.i, node.binding.toSetVariableFunc(), argExprs)
 
         // wrap in thunk.
-        return bindingsExpr.toRelationThunk(node.metas)
+        return bindingsExpr.withErrorHandling(node.metas)
     }
 
-    override suspend fun convertAggregate(node: PartiqlPhysical.Bexpr.Aggregate): RelationThunkEnvAsync {
+    override suspend fun convertAggregate(node: PartiqlPhysical.Bexpr.Aggregate): RelationExpressionAsync {
         val source = this.convert(node.source)
 
         // Compile Arguments
@@ -125,11 +137,11 @@ internal class PhysicalBexprToThunkConverterAsync(
 
         // Get Implementation
         val factory = findOperatorFactory<AggregateOperatorFactoryAsync>(RelationalOperatorKind.AGGREGATE, node.i.name.text)
-        val relationExpression = factory.create({ state -> source.invoke(state) }, node.strategy, compiledKeys, compiledFunctions)
-        return relationExpression.toRelationThunk(node.metas)
+        val relationExpression = factory.create(source, node.strategy, compiledKeys, compiledFunctions)
+        return relationExpression.withErrorHandling(node.metas)
     }
 
-    override suspend fun convertScan(node: PartiqlPhysical.Bexpr.Scan): RelationThunkEnvAsync {
+    override suspend fun convertScan(node: PartiqlPhysical.Bexpr.Scan): RelationExpressionAsync {
         // recurse into children
         val valueExpr = exprConverter.convert(node.expr).toValueExpr(node.expr.metas.sourceLocationMeta)
         val asSetter = node.asDecl.toSetVariableFunc()
@@ -149,10 +161,10 @@ internal class PhysicalBexprToThunkConverterAsync(
         )
 
         // wrap in thunk
-        return bindingsExpr.toRelationThunk(node.metas)
+        return bindingsExpr.withErrorHandling(node.metas)
     }
 
-    override suspend fun convertUnpivot(node: PartiqlPhysical.Bexpr.Unpivot): RelationThunkEnvAsync {
+    override suspend fun convertUnpivot(node: PartiqlPhysical.Bexpr.Unpivot): RelationExpressionAsync {
         val valueExpr = exprConverter.convert(node.expr).toValueExpr(node.expr.metas.sourceLocationMeta)
         val asSetter = node.asDecl.toSetVariableFunc()
         val atSetter = node.atDecl?.toSetVariableFunc()
@@ -167,10 +179,10 @@ internal class PhysicalBexprToThunkConverterAsync(
             setByVar = bySetter
         )
 
-        return bindingsExpr.toRelationThunk(node.metas)
+        return bindingsExpr.withErrorHandling(node.metas)
     }
 
-    override suspend fun convertFilter(node: PartiqlPhysical.Bexpr.Filter): RelationThunkEnvAsync {
+    override suspend fun convertFilter(node: PartiqlPhysical.Bexpr.Filter): RelationExpressionAsync {
         // recurse into children
         val predicateValueExpr = exprConverter.convert(node.predicate).toValueExpr(node.predicate.metas.sourceLocationMeta)
         val sourceBindingsExpr = this.convert(node.source)
@@ -179,13 +191,13 @@ internal class PhysicalBexprToThunkConverterAsync(
         val factory = findOperatorFactory<FilterRelationalOperatorFactoryAsync>(RelationalOperatorKind.FILTER, node.i.name.text)
 
         // create operator implementation
-        val bindingsExpr = factory.create(node.i, predicateValueExpr) { state -> sourceBindingsExpr.invoke(state) }
+        val bindingsExpr = factory.create(node.i, predicateValueExpr, sourceBindingsExpr)
 
         // wrap in thunk
-        return bindingsExpr.toRelationThunk(node.metas)
+        return bindingsExpr.withErrorHandling(node.metas)
     }
 
-    override suspend fun convertJoin(node: PartiqlPhysical.Bexpr.Join): RelationThunkEnvAsync {
+    override suspend fun convertJoin(node: PartiqlPhysical.Bexpr.Join): RelationExpressionAsync {
         // recurse into children
         val leftBindingsExpr = this.convert(node.left)
         val rightBindingsExpr = this.convert(node.right)
@@ -211,39 +223,39 @@ internal class PhysicalBexprToThunkConverterAsync(
             rightVariableIndexes.forEach { state.registers[it] = ExprValue.nullValue }
         }
 
+        // Equi-join implementations (e.g. hash join) receive the join keys separately from the rest of the predicate.
+        val equiJoinPredicate = node.predicate?.toEquiJoinPredicate(
+            leftVariables = leftVariableIndexes.map { it.toLong() }.toSet(),
+            rightVariables = rightVariableIndexes.map { it.toLong() }.toSet()
+        )
+        if (factory is EquiJoinRelationalOperatorFactoryAsync && equiJoinPredicate != null) {
+            return factory.create(
+                impl = node.i,
+                joinType = node.joinType,
+                leftBexpr = leftBindingsExpr,
+                rightBexpr = rightBindingsExpr,
+                leftKeys = equiJoinPredicate.leftKeys.map { exprConverter.convert(it).toValueExpr(it.metas.sourceLocationMeta) },
+                rightKeys = equiJoinPredicate.rightKeys.map { exprConverter.convert(it).toValueExpr(it.metas.sourceLocationMeta) },
+                residualPredicateExpr = equiJoinPredicate.residual?.let { residual ->
+                    exprConverter.convert(residual).toValueExpr(residual.metas.sourceLocationMeta)
+                },
+                leftVariables = BoundVariables(leftVariableIndexes.toIntArray()),
+                rightVariables = BoundVariables(rightVariableIndexes.toIntArray())
+            ).withErrorHandling(node.metas)
+        }
+
         return factory.create(
             impl = node.i,
             joinType = node.joinType,
-            leftBexpr = { state -> leftBindingsExpr(state) },
-            rightBexpr = { state -> rightBindingsExpr(state) },
+            leftBexpr = leftBindingsExpr,
+            rightBexpr = rightBindingsExpr,
             predicateExpr = predicateValueExpr,
             setLeftSideVariablesToNull = setLeftSideVariablesToNull,
             setRightSideVariablesToNull = setRightSideVariablesToNull
-        ).toRelationThunk(node.metas)
+        ).withErrorHandling(node.metas)
     }
 
-    private fun PartiqlPhysical.Bexpr.extractAccessibleVarDecls(): List<PartiqlPhysical.VarDecl> =
-        // This fold traverses a [PartiqlPhysical.Bexpr] node and extracts all variable declarations within
-        // It avoids recursing into sub-queries.
-        object : PartiqlPhysical.VisitorFold<List<PartiqlPhysical.VarDecl>>() {
-            override fun visitVarDecl(
-                node: PartiqlPhysical.VarDecl,
-                accumulator: List<PartiqlPhysical.VarDecl>
-            ): List<PartiqlPhysical.VarDecl> = accumulator + node
-
-            /**
-             * Avoids recursion into expressions, since these may contain sub-queries with other var-decls that we don't
-             * care about here.
-             */
-            override fun walkExpr(
-                node: PartiqlPhysical.Expr,
-                accumulator: List<PartiqlPhysical.VarDecl>
-            ): List<PartiqlPhysical.VarDecl> {
-                return accumulator
-            }
-        }.walkBexpr(this, emptyList())
-
-    override suspend fun convertOffset(node: PartiqlPhysical.Bexpr.Offset): RelationThunkEnvAsync {
+    override suspend fun convertOffset(node: PartiqlPhysical.Bexpr.Offset): RelationExpressionAsync {
         // recurse into children
         val rowCountExpr = exprConverter.convert(node.rowCount).toValueExpr(node.rowCount.metas.sourceLocationMeta)
         val sourceBexpr = this.convert(node.source)
@@ -252,12 +264,12 @@ internal class PhysicalBexprToThunkConverterAsync(
         val factory = findOperatorFactory<OffsetRelationalOperatorFactoryAsync>(RelationalOperatorKind.OFFSET, node.i.name.text)
 
         // create operator implementation
-        val bindingsExpr = factory.create(node.i, rowCountExpr) { state -> sourceBexpr(state) }
+        val bindingsExpr = factory.create(node.i, rowCountExpr, sourceBexpr)
         // wrap in thunk
-        return bindingsExpr.toRelationThunk(node.metas)
+        return bindingsExpr.withErrorHandling(node.metas)
     }
 
-    override suspend fun convertLimit(node: PartiqlPhysical.Bexpr.Limit): RelationThunkEnvAsync {
+    override suspend fun convertLimit(node: PartiqlPhysical.Bexpr.Limit): RelationExpressionAsync {
         // recurse into children
         val rowCountExpr = exprConverter.convert(node.rowCount).toValueExpr(node.rowCount.metas.sourceLocationMeta)
         val sourceBexpr = this.convert(node.source)
@@ -266,24 +278,24 @@ internal class PhysicalBexprToThunkConverterAsync(
         val factory = findOperatorFactory<LimitRelationalOperatorFactoryAsync>(RelationalOperatorKind.LIMIT, node.i.name.text)
 
         // create operator implementation
-        val bindingsExpr = factory.create(node.i, rowCountExpr) { state -> sourceBexpr(state) }
+        val bindingsExpr = factory.create(node.i, rowCountExpr, sourceBexpr)
 
         // wrap in thunk
-        return bindingsExpr.toRelationThunk(node.metas)
+        return bindingsExpr.withErrorHandling(node.metas)
     }
 
-    override suspend fun convertSort(node: PartiqlPhysical.Bexpr.Sort): RelationThunkEnvAsync {
+    override suspend fun convertSort(node: PartiqlPhysical.Bexpr.Sort): RelationExpressionAsync {
         // Compile Arguments
         val source = this.convert(node.source)
         val sortKeys = compileSortSpecsAsync(node.sortSpecs)
 
         // Get Implementation
         val factory = findOperatorFactory<SortOperatorFactoryAsync>(RelationalOperatorKind.SORT, node.i.name.text)
-        val bindingsExpr = factory.create(sortKeys) { state -> source(state) }
-        return bindingsExpr.toRelationThunk(node.metas)
+        val bindingsExpr = factory.create(node.i, sortKeys, source)
+        return bindingsExpr.withErrorHandling(node.metas)
     }
 
-    override suspend fun convertLet(node: PartiqlPhysical.Bexpr.Let): RelationThunkEnvAsync {
+    override suspend fun convertLet(node: PartiqlPhysical.Bexpr.Let): RelationExpressionAsync {
         // recurse into children
         val sourceBexpr = this.convert(node.source)
         val compiledBindings = node.bindings.map {
@@ -295,11 +307,18 @@ internal class PhysicalBexprToThunkConverterAsync(
         // locate operator factory
         val factory = findOperatorFactory<LetRelationalOperatorFactoryAsync>(RelationalOperatorKind.LET, node.i.name.text)
 
-        // create operator implementation
-        val bindingsExpr = factory.create(node.i, { state -> sourceBexpr(state) }, compiledBindings)
+        // create operator implementation; the default implementation may evaluate independent bindings concurrently.
+        val values = node.bindings.map { it.value }
+        val bindingsExpr = when {
+            factory === LetRelationalOperatorFactoryDefaultAsync &&
+                values.shouldEvaluateConcurrently() &&
+                values.areIndependentOf(node.bindings.map { it.decl }) ->
+                LetRelationalOperatorFactoryDefaultAsync.createConcurrent(sourceBexpr, compiledBindings)
+            else -> factory.create(node.i, sourceBexpr, compiledBindings)
+        }
 
         // wrap in thunk
-        return bindingsExpr.toRelationThunk(node.metas)
+        return bindingsExpr.withErrorHandling(node.metas)
     }
 
     /**
@@ -327,7 +346,7 @@ internal class PhysicalBexprToThunkConverterAsync(
     }
 
     @OptIn(ExperimentalWindowFunctions::class)
-    override suspend fun convertWindow(node: PartiqlPhysical.Bexpr.Window): RelationThunkEnvAsync {
+    override suspend fun convertWindow(node: PartiqlPhysical.Bexpr.Window): RelationExpressionAsync {
         val source = this.convert(node.source)
 
         val windowPartitionList = node.windowSpecification.partitionBy
@@ -352,9 +371,9 @@ internal class PhysicalBexprToThunkConverterAsync(
         val factory = findOperatorFactory<WindowRelationalOperatorFactoryAsync>(RelationalOperatorKind.WINDOW, node.i.name.text)
 
         // create operator implementation
-        val bindingsExpr = factory.create({ state -> source(state) }, compiledPartitionBy, compiledOrderBy, compiledWindowFunctions)
+        val bindingsExpr = factory.create(source, compiledPartitionBy, compiledOrderBy, compiledWindowFunctions)
         // wrap in thunk
-        return bindingsExpr.toRelationThunk(node.metas)
+        return bindingsExpr.withErrorHandling(node.metas)
     }
 }
 
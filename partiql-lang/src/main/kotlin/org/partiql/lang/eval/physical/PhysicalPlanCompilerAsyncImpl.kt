@@ -21,12 +21,14 @@ import com.amazon.ion.system.IonSystemBuilder
 import com.amazon.ionelement.api.MetaContainer
 import com.amazon.ionelement.api.emptyMetaContainer
 import com.amazon.ionelement.api.toIonValue
+import kotlinx.coroutines.CoroutineDispatcher
 import kotlinx.coroutines.flow.Flow
 import kotlinx.coroutines.flow.asFlow
 import kotlinx.coroutines.flow.flow
 import kotlinx.coroutines.flow.map
 import kotlinx.coroutines.flow.toList
 import kotlinx.coroutines.flow.withIndex
+import kotlinx.coroutines.withContext
 import org.partiql.errors.ErrorCode
 import org.partiql.errors.Property
 import org.partiql.errors.PropertyValueMap
@@ -42,13 +44,13 @@ import org.partiql.lang.eval.BaseExprValue
 import org.partiql.lang.eval.BindingCase
 import org.partiql.lang.eval.BindingName
 import org.partiql.lang.eval.CastFunc
-import org.partiql.lang.eval.DEFAULT_COMPARATOR
 import org.partiql.lang.eval.ErrorDetails
 import org.partiql.lang.eval.EvaluationException
 import org.partiql.lang.eval.EvaluationSession
 import org.partiql.lang.eval.ExprFunction
 import org.partiql.lang.eval.ExprValue
 import org.partiql.lang.eval.ExprValueBagOp
+import org.partiql.lang.eval.ExprValueKey
 import org.partiql.lang.eval.ExprValueType
 import org.partiql.lang.eval.Expression
 import org.partiql.lang.eval.ExpressionAsync
@@ -64,28 +66,41 @@ import org.partiql.lang.eval.booleanValue
 import org.partiql.lang.eval.builtins.storedprocedure.StoredProcedure
 import org.partiql.lang.eval.call
 import org.partiql.lang.eval.cast
+import org.partiql.lang.eval.comparePrimitive
 import org.partiql.lang.eval.compareTo
 import org.partiql.lang.eval.createErrorSignaler
 import org.partiql.lang.eval.createThunkFactoryAsync
 import org.partiql.lang.eval.distinct
+import org.partiql.lang.eval.dividePrimitive
 import org.partiql.lang.eval.err
 import org.partiql.lang.eval.errorContextFrom
 import org.partiql.lang.eval.errorIf
+import org.partiql.lang.eval.eval
 import org.partiql.lang.eval.exprEquals
 import org.partiql.lang.eval.fillErrorContext
+import org.partiql.lang.eval.impl.FunctionCallSite
 import org.partiql.lang.eval.impl.FunctionManager
 import org.partiql.lang.eval.isNotUnknown
 import org.partiql.lang.eval.isUnknown
-import org.partiql.lang.eval.like.parsePattern
+import org.partiql.lang.eval.like.LikePattern
+import org.partiql.lang.eval.like.LikePatternCache
 import org.partiql.lang.eval.longValue
+import org.partiql.lang.eval.minusPrimitive
+import org.partiql.lang.eval.moduloPrimitive
 import org.partiql.lang.eval.namedValue
 import org.partiql.lang.eval.numberValue
+import org.partiql.lang.eval.numericOperator
+import org.partiql.lang.eval.physical.operators.BatchRelationExpressionAsync
+import org.partiql.lang.eval.physical.operators.RelationExpressionAsync
+import org.partiql.lang.eval.plusPrimitive
 import org.partiql.lang.eval.rangeOver
 import org.partiql.lang.eval.relation.RelationType
+import org.partiql.lang.eval.relation.RowBatch
 import org.partiql.lang.eval.sourceLocationMeta
 import org.partiql.lang.eval.stringValue
 import org.partiql.lang.eval.syntheticColumnName
 import org.partiql.lang.eval.time.Time
+import org.partiql.lang.eval.timesPrimitive
 import org.partiql.lang.eval.timestampValue
 import org.partiql.lang.eval.unnamedValue
 import org.partiql.lang.planner.EvaluatorOptions
@@ -115,8 +130,6 @@ import org.partiql.types.SingleType
 import org.partiql.types.StaticType
 import org.partiql.types.UnsupportedTypeCheckException
 import java.util.LinkedList
-import java.util.TreeSet
-import java.util.regex.Pattern
 
 /**
  * A basic "compiler" that converts an instance of [PartiqlPhysical.Expr] to an [Expression].
@@ -136,6 +149,10 @@ import java.util.regex.Pattern
  * interpretation and **not** the concurrency primitive. That is to say this code is NOT thread
  * safe.
  *
+ * When a [dispatcher] is given, independent operands which call functions or contain subqueries (the operands of bag
+ * operators, the arguments of function calls and the items of collection constructors) are evaluated concurrently on
+ * it, see [evaluateAll].
+ *
  * [1]: https://www.complang.tuwien.ac.at/anton/lvas/sem06w/fest.pdf
  */
 internal class PhysicalPlanCompilerAsyncImpl(
@@ -144,6 +161,7 @@ internal class PhysicalPlanCompilerAsyncImpl(
     private val procedures: Map<String, StoredProcedure>,
     private val evaluatorOptions: EvaluatorOptions = EvaluatorOptions.standard(),
     private val bexperConverter: PhysicalBexprToThunkConverterAsync,
+    private val dispatcher: CoroutineDispatcher? = null,
 ) : PhysicalPlanCompilerAsync {
     @Deprecated("Use constructor with List<ExprFunction> instead", level = DeprecationLevel.WARNING)
     constructor(
@@ -177,8 +195,17 @@ internal class PhysicalPlanCompilerAsyncImpl(
      * Checks [Thread.interrupted] before every expression and sub-expression is compiled
      * and throws [InterruptedException] if [Thread.interrupted] it has been set in the
      * hope that long-running compilations may be aborted by the caller.
+     *
+     * When [profiling], the relational operators of the plan are profiled and the [PartiQLResult.Value] of each
+     * evaluation reports their runtime statistics, see [PartiQLResult.getProfile].
      */
-    suspend fun compile(plan: PartiqlPhysical.Plan): ExpressionAsync {
+    suspend fun compile(
+        plan: PartiqlPhysical.Plan,
+        profiling: Boolean = evaluatorOptions.profiling
+    ): ExpressionAsync {
+        if (profiling) {
+            return compileProfiled(plan)
+        }
         val thunk = compileAstStatement(plan.stmt)
 
         return object : ExpressionAsync {
@@ -187,12 +214,32 @@ internal class PhysicalPlanCompilerAsyncImpl(
                     session = session,
                     registers = Array(plan.locals.size) { ExprValue.missingValue }
                 )
+                env.dispatcher = dispatcher
                 val value = thunk(env)
                 return PartiQLResult.Value(value = value)
             }
         }
     }
 
+    private suspend fun compileProfiled(plan: PartiqlPhysical.Plan): ExpressionAsync {
+        val profiledPlan = ProfiledPlan()
+        val thunk = withContext(profiledPlan) { compileAstStatement(plan.stmt) }
+
+        return object : ExpressionAsync {
+            override suspend fun eval(session: EvaluationSession): PartiQLResult {
+                val profiler = QueryProfiler(profiledPlan)
+                val env = EvaluatorState(
+                    session = session,
+                    registers = Array(plan.locals.size) { ExprValue.missingValue }
+                )
+                env.dispatcher = dispatcher
+                env.profiler = profiler
+                val value = thunk(env)
+                return PartiQLResult.Value(value = value, profile = { profiler.profile() })
+            }
+        }
+    }
+
     /**
      * Compiles a [PartiqlPhysical.Expr] tree to an [ExpressionAsync].
      *
@@ -209,6 +256,7 @@ internal class PhysicalPlanCompilerAsyncImpl(
                     session = session,
                     registers = Array(localsSize) { ExprValue.missingValue }
                 )
+                env.dispatcher = dispatcher
                 val value = thunk(env)
                 return PartiQLResult.Value(value = value)
             }
@@ -307,7 +355,7 @@ internal class PhysicalPlanCompilerAsyncImpl(
 
     private suspend fun compileBindingsToValues(expr: PartiqlPhysical.Expr.BindingsToValues): PhysicalPlanThunkAsync {
         val mapThunk = compileAstExpr(expr.exp)
-        val bexprThunk: RelationThunkEnvAsync = bexperConverter.convert(expr.query)
+        val bexpr: RelationExpressionAsync = bexperConverter.convert(expr.query)
 
         val relationType = when (expr.metas.containsKey(IsOrderedMeta.tag)) {
             true -> RelationType.LIST
@@ -320,9 +368,24 @@ internal class PhysicalPlanCompilerAsyncImpl(
             val currentRegister = env.registers.clone()
             val elements: Flow<ExprValue> = flow {
                 env.load(currentRegister)
-                val relItr = bexprThunk(env)
-                while (relItr.nextRow()) {
-                    emit(mapThunk(env))
+                when (bexpr) {
+                    // Evaluate the projection for each row of each batch.
+                    is BatchRelationExpressionAsync -> {
+                        val batches = bexpr.evaluateBatches(env)
+                        val batch = RowBatch()
+                        while (batches.nextBatch(batch)) {
+                            for (i in 0 until batch.size) {
+                                env.load(batch[i])
+                                emit(mapThunk(env))
+                            }
+                        }
+                    }
+                    else -> {
+                        val relItr = bexpr.evaluate(env)
+                        while (relItr.nextRow()) {
+                            emit(mapThunk(env))
+                        }
+                    }
                 }
             }
             when (relationType) {
@@ -334,6 +397,8 @@ internal class PhysicalPlanCompilerAsyncImpl(
 
     private suspend fun compileAstExprs(args: List<PartiqlPhysical.Expr>) = args.map { compileAstExpr(it) }
 
+    private fun staticTypesOf(args: List<PartiqlPhysical.Expr>) = args.map { it.metas.staticType?.type }
+
     private suspend fun compileNullIf(expr: PartiqlPhysical.Expr.NullIf, metas: MetaContainer): PhysicalPlanThunkAsync {
         val expr1Thunk = compileAstExpr(expr.expr1)
         val expr2Thunk = compileAstExpr(expr.expr2)
@@ -461,9 +526,10 @@ internal class PhysicalPlanCompilerAsyncImpl(
 
         val argThunks = compileAstExprs(expr.operands)
 
-        val computeThunk = thunkFactory.thunkFold(metas, argThunks) { lValue, rValue ->
+        val plus = numericOperator(staticTypesOf(expr.operands), ::plusPrimitive) { lValue, rValue ->
             (lValue.numberValue() + rValue.numberValue()).exprValue()
         }
+        val computeThunk = thunkFactory.thunkFold(metas, argThunks, plus)
 
         return checkIntegerOverflow(computeThunk, metas)
     }
@@ -475,9 +541,10 @@ internal class PhysicalPlanCompilerAsyncImpl(
 
         val argThunks = compileAstExprs(expr.operands)
 
-        val computeThunk = thunkFactory.thunkFold(metas, argThunks) { lValue, rValue ->
+        val minus = numericOperator(staticTypesOf(expr.operands), ::minusPrimitive) { lValue, rValue ->
             (lValue.numberValue() - rValue.numberValue()).exprValue()
         }
+        val computeThunk = thunkFactory.thunkFold(metas, argThunks, minus)
 
         return checkIntegerOverflow(computeThunk, metas)
     }
@@ -508,9 +575,10 @@ internal class PhysicalPlanCompilerAsyncImpl(
     private suspend fun compileTimes(expr: PartiqlPhysical.Expr.Times, metas: MetaContainer): PhysicalPlanThunkAsync {
         val argThunks = compileAstExprs(expr.operands)
 
-        val computeThunk = thunkFactory.thunkFold(metas, argThunks) { lValue, rValue ->
+        val times = numericOperator(staticTypesOf(expr.operands), ::timesPrimitive) { lValue, rValue ->
             (lValue.numberValue() * rValue.numberValue()).exprValue()
         }
+        val computeThunk = thunkFactory.thunkFold(metas, argThunks, times)
 
         return checkIntegerOverflow(computeThunk, metas)
     }
@@ -518,7 +586,7 @@ internal class PhysicalPlanCompilerAsyncImpl(
     private suspend fun compileDivide(expr: PartiqlPhysical.Expr.Divide, metas: MetaContainer): PhysicalPlanThunkAsync {
         val argThunks = compileAstExprs(expr.operands)
 
-        val computeThunk = thunkFactory.thunkFold(metas, argThunks) { lValue, rValue ->
+        val divide = numericOperator(staticTypesOf(expr.operands), ::dividePrimitive) { lValue, rValue ->
             val denominator = rValue.numberValue()
 
             errorSignaler.errorIf(
@@ -539,6 +607,7 @@ internal class PhysicalPlanCompilerAsyncImpl(
                 }
             }
         }
+        val computeThunk = thunkFactory.thunkFold(metas, argThunks, divide)
 
         return checkIntegerOverflow(computeThunk, metas)
     }
@@ -546,7 +615,7 @@ internal class PhysicalPlanCompilerAsyncImpl(
     private suspend fun compileModulo(expr: PartiqlPhysical.Expr.Modulo, metas: MetaContainer): PhysicalPlanThunkAsync {
         val argThunks = compileAstExprs(expr.operands)
 
-        val computeThunk = thunkFactory.thunkFold(metas, argThunks) { lValue, rValue ->
+        val modulo = numericOperator(staticTypesOf(expr.operands), ::moduloPrimitive) { lValue, rValue ->
             val denominator = rValue.numberValue()
             if (denominator.isZero()) {
                 err("% by zero", ErrorCode.EVALUATOR_MODULO_BY_ZERO, errorContextFrom(metas), internal = false)
@@ -554,6 +623,7 @@ internal class PhysicalPlanCompilerAsyncImpl(
 
             (lValue.numberValue() % denominator).exprValue()
         }
+        val computeThunk = thunkFactory.thunkFold(metas, argThunks, modulo)
 
         return checkIntegerOverflow(computeThunk, metas)
     }
@@ -569,41 +639,67 @@ internal class PhysicalPlanCompilerAsyncImpl(
     private suspend fun compileEq(expr: PartiqlPhysical.Expr.Eq, metas: MetaContainer): PhysicalPlanThunkAsync {
         val argThunks = compileAstExprs(expr.operands)
 
-        return thunkFactory.thunkAndMap(metas, argThunks) { lValue, rValue ->
-            (lValue.exprEquals(rValue))
-        }
+        val eq = numericOperator(
+            staticTypesOf(expr.operands),
+            { lValue, rValue -> comparePrimitive(lValue, rValue)?.let { it == 0 } }
+        ) { lValue, rValue -> lValue.exprEquals(rValue) }
+
+        return thunkFactory.thunkAndMap(metas, argThunks, eq)
     }
 
     private suspend fun compileNe(expr: PartiqlPhysical.Expr.Ne, metas: MetaContainer): PhysicalPlanThunkAsync {
         val argThunks = compileAstExprs(expr.operands)
 
-        return thunkFactory.thunkFold(metas, argThunks) { lValue, rValue ->
-            ((!lValue.exprEquals(rValue)).exprValue())
-        }
+        val ne = numericOperator(
+            staticTypesOf(expr.operands),
+            { lValue, rValue -> comparePrimitive(lValue, rValue)?.let { (it != 0).exprValue() } }
+        ) { lValue, rValue -> (!lValue.exprEquals(rValue)).exprValue() }
+
+        return thunkFactory.thunkFold(metas, argThunks, ne)
     }
 
     private suspend fun compileLt(expr: PartiqlPhysical.Expr.Lt, metas: MetaContainer): PhysicalPlanThunkAsync {
         val argThunks = compileAstExprs(expr.operands)
 
-        return thunkFactory.thunkAndMap(metas, argThunks) { lValue, rValue -> lValue < rValue }
+        val lt = numericOperator(
+            staticTypesOf(expr.operands),
+            { lValue, rValue -> comparePrimitive(lValue, rValue)?.let { it < 0 } }
+        ) { lValue, rValue -> lValue < rValue }
+
+        return thunkFactory.thunkAndMap(metas, argThunks, lt)
     }
 
     private suspend fun compileLte(expr: PartiqlPhysical.Expr.Lte, metas: MetaContainer): PhysicalPlanThunkAsync {
         val argThunks = compileAstExprs(expr.operands)
 
-        return thunkFactory.thunkAndMap(metas, argThunks) { lValue, rValue -> lValue <= rValue }
+        val lte = numericOperator(
+            staticTypesOf(expr.operands),
+            { lValue, rValue -> comparePrimitive(lValue, rValue)?.let { it <= 0 } }
+        ) { lValue, rValue -> lValue <= rValue }
+
+        return thunkFactory.thunkAndMap(metas, argThunks, lte)
     }
 
     private suspend fun compileGt(expr: PartiqlPhysical.Expr.Gt, metas: MetaContainer): PhysicalPlanThunkAsync {
         val argThunks = compileAstExprs(expr.operands)
 
-        return thunkFactory.thunkAndMap(metas, argThunks) { lValue, rValue -> lValue > rValue }
+        val gt = numericOperator(
+            staticTypesOf(expr.operands),
+            { lValue, rValue -> comparePrimitive(lValue, rValue)?.let { it > 0 } }
+        ) { lValue, rValue -> lValue > rValue }
+
+        return thunkFactory.thunkAndMap(metas, argThunks, gt)
     }
 
     private suspend fun compileGte(expr: PartiqlPhysical.Expr.Gte, metas: MetaContainer): PhysicalPlanThunkAsync {
         val argThunks = compileAstExprs(expr.operands)
 
-        return thunkFactory.thunkAndMap(metas, argThunks) { lValue, rValue -> lValue >= rValue }
+        val gte = numericOperator(
+            staticTypesOf(expr.operands),
+            { lValue, rValue -> comparePrimitive(lValue, rValue)?.let { it >= 0 } }
+        ) { lValue, rValue -> lValue >= rValue }
+
+        return thunkFactory.thunkAndMap(metas, argThunks, gte)
     }
 
     private suspend fun compileBetween(expr: PartiqlPhysical.Expr.Between, metas: MetaContainer): PhysicalPlanThunkAsync {
@@ -644,13 +740,13 @@ internal class PhysicalPlanCompilerAsyncImpl(
             // If the left-hand value is one of these we can short-circuit with a result of TRUE.
             // This is the fastest possible case and allows for hundreds of literal values (or more) in the
             // sequence without a huge performance penalty.
-            // NOTE: we cannot use a [HashSet<>] here because [ExprValue] does not implement [Object.hashCode] or
-            // [Object.equals].
             val precomputedLiteralsMap = values
                 .filterIsInstance<PartiqlPhysical.Expr.Lit>()
-                .mapTo(TreeSet<ExprValue>(DEFAULT_COMPARATOR)) {
-                    ExprValue.of(
-                        it.value.toIonValue(ion)
+                .mapTo(HashSet<ExprValueKey>()) {
+                    ExprValueKey(
+                        ExprValue.of(
+                            it.value.toIonValue(ion)
+                        )
                     )
                 }
 
@@ -658,7 +754,7 @@ internal class PhysicalPlanCompilerAsyncImpl(
             // thunkEnvOperands takes care of unknown propagation for the left side; for the right,
             // this unknown propagation does not apply since we've eliminated the possibility of unknowns above.
             return thunkFactory.thunkEnvOperands(metas, leftThunk) { _, leftValue ->
-                precomputedLiteralsMap.contains(leftValue).exprValue()
+                precomputedLiteralsMap.contains(ExprValueKey(leftValue)).exprValue()
             }
         }
 
@@ -846,22 +942,25 @@ internal class PhysicalPlanCompilerAsyncImpl(
 
     private suspend fun compileCall(expr: PartiqlPhysical.Expr.Call, metas: MetaContainer): PhysicalPlanThunkAsync {
         val funcArgThunks = compileAstExprs(expr.args)
+        val concurrent = expr.args.shouldEvaluateConcurrently()
         val arity = funcArgThunks.size
         val name = expr.funcName.text
-        return thunkFactory.thunkEnvAsync(metas) { env ->
-            val args = funcArgThunks.map { thunk -> thunk(env) }
-            val argTypes = args.map { staticTypeFromExprValue(it) }
-            try {
-                val func = functionManager.get(name = name, arity = arity, args = argTypes)
-                val computeThunk = when (func.signature.unknownArguments) {
-                    UnknownArguments.PROPAGATE -> thunkFactory.thunkEnvOperands(metas, funcArgThunks) { env, _ ->
-                        func.call(env.session, args)
-                    }
-                    UnknownArguments.PASS_THRU -> thunkFactory.thunkEnvAsync(metas) { env ->
-                        func.call(env.session, args)
-                    }
-                }
-                checkIntegerOverflow(computeThunk, metas)(env)
+        val callSite = FunctionCallSite(
+            functionManager,
+            name,
+            arity,
+            argStaticTypes = expr.args.map { it.metas.staticType?.type },
+            literals = expr.args.map { arg ->
+                (arg as? PartiqlPhysical.Expr.Lit)?.let { ExprValue.of(it.value.toIonValue(ion)) }
+            }
+        )
+        val computeThunk = thunkFactory.thunkEnvAsync(metas) { env ->
+            val args = when {
+                concurrent -> env.evaluateAll(funcArgThunks)
+                else -> funcArgThunks.map { thunk -> thunk(env) }
+            }
+            val func = try {
+                callSite.resolve(args)
             } catch (e: FunctionNotFoundException) {
                 err(
                     "No such function: $name",
@@ -886,7 +985,15 @@ internal class PhysicalPlanCompilerAsyncImpl(
                     internal = false
                 )
             }
+            when (func.signature.unknownArguments) {
+                // The arguments are not evaluated again to propagate unknowns.
+                UnknownArguments.PROPAGATE -> thunkFactory.propagateUnknowns(args.asSequence()) { values ->
+                    func.call(env.session, values)
+                }
+                UnknownArguments.PASS_THRU -> func.call(env.session, args)
+            }
         }
+        return checkIntegerOverflow(computeThunk, metas)
     }
 
     private suspend fun compileLit(expr: PartiqlPhysical.Expr.Lit, metas: MetaContainer): PhysicalPlanThunkAsync {
@@ -1362,17 +1469,18 @@ internal class PhysicalPlanCompilerAsyncImpl(
         require(seqType.isSequence) { "seqType must be a sequence!" }
 
         val itemThunks = compileAstExprs(itemExprs)
+        val concurrent = itemExprs.shouldEvaluateConcurrently()
 
         val makeItemThunkSequence = when (seqType) {
             ExprValueType.BAG -> { env: EvaluatorState ->
-                itemThunks.asFlow().map { itemThunk ->
+                env.items(itemThunks, concurrent).map { item ->
                     // call to unnamedValue() makes sure we don't expose any underlying value name/ordinal
-                    itemThunk(env).unnamedValue()
+                    item.unnamedValue()
                 }
             }
             else -> { env: EvaluatorState ->
-                itemThunks.asFlow().withIndex().map { indexedVal ->
-                    indexedVal.value(env).namedValue(indexedVal.index.exprValue())
+                env.items(itemThunks, concurrent).withIndex().map { indexedVal ->
+                    indexedVal.value.namedValue(indexedVal.index.exprValue())
                 }
             }
         }
@@ -1387,6 +1495,13 @@ internal class PhysicalPlanCompilerAsyncImpl(
         }
     }
 
+    /** Returns the values of [thunks], which are evaluated all at once if [concurrent], or one at a time. */
+    private fun EvaluatorState.items(thunks: List<PhysicalPlanThunkAsync>, concurrent: Boolean): Flow<ExprValue> =
+        when {
+            concurrent -> flow { evaluateAll(thunks).forEach { emit(it) } }
+            else -> thunks.asFlow().map { thunk -> thunk(this) }
+        }
+
     private suspend fun compilePath(expr: PartiqlPhysical.Expr.Path, metas: MetaContainer): PhysicalPlanThunkAsync {
         val rootThunk = compileAstExpr(expr.root)
         val remainingComponents = LinkedList<PartiqlPhysical.PathStep>()
@@ -1533,6 +1648,7 @@ internal class PhysicalPlanCompilerAsyncImpl(
      * 1. All arguments are literals, then compile and run the pattern
      * 1. Search pattern and escape pattern are literals, compile the pattern. Running the pattern deferred to evaluation time.
      * 1. Pattern or escape (or both) are *not* literals, compile and running of pattern deferred to evaluation time.
+     * The compiled patterns are kept in a [LikePatternCache], such that recurring patterns are only compiled once.
      *
      * ```
      * <valueExpr> LIKE <patternExpr> [ESCAPE <escapeExpr>]
@@ -1549,7 +1665,7 @@ internal class PhysicalPlanCompilerAsyncImpl(
         val escapeLocationMeta = escapeExpr?.metas?.sourceLocation
 
         // This is so that null short-circuits can be supported.
-        fun getRegexPattern(pattern: ExprValue, escape: ExprValue?): (() -> Pattern)? {
+        fun getLikePattern(pattern: ExprValue, escape: ExprValue?, cache: LikePatternCache? = null): (() -> LikePattern)? {
             val patternArgs = listOfNotNull(pattern, escape)
             when {
                 patternArgs.any { it.type.isUnknown } -> return null
@@ -1565,18 +1681,18 @@ internal class PhysicalPlanCompilerAsyncImpl(
                     )
                 }
                 else -> {
-                    val (patternString: String, escapeChar: Int?) =
-                        checkPattern(pattern.stringValue(), patternLocationMeta, escape?.stringValue(), escapeLocationMeta)
-                    val likeRegexPattern = when {
-                        patternString.isEmpty() -> Pattern.compile("")
-                        else -> parsePattern(patternString, escapeChar)
+                    val compile = {
+                        val (patternString: String, escapeChar: Int?) =
+                            checkPattern(pattern.stringValue(), patternLocationMeta, escape?.stringValue(), escapeLocationMeta)
+                        LikePattern.compile(patternString, escapeChar)
                     }
-                    return { likeRegexPattern }
+                    val likePattern = cache?.getOrCompile(pattern.stringValue(), escape?.stringValue(), compile) ?: compile()
+                    return { likePattern }
                 }
             }
         }
 
-        fun matchRegexPattern(value: ExprValue, likePattern: (() -> Pattern)?): ExprValue {
+        fun matchLikePattern(value: ExprValue, likePattern: (() -> LikePattern)?): ExprValue {
             return when {
                 likePattern == null || value.type.isUnknown -> ExprValue.nullValue
                 !value.type.isText -> err(
@@ -1587,17 +1703,17 @@ internal class PhysicalPlanCompilerAsyncImpl(
                     },
                     internal = false
                 )
-                else -> ExprValue.newBoolean(likePattern().matcher(value.stringValue()).matches())
+                else -> ExprValue.newBoolean(likePattern().matches(value.stringValue()))
             }
         }
 
         val valueThunk = compileAstExpr(valueExpr)
 
         // If the pattern and escape expressions are literals then we can compile the pattern now and
-        // re-use it with every execution. Otherwise, we must re-compile the pattern every time.
+        // re-use it with every execution. Otherwise, we must compile the patterns as they are evaluated.
         return when {
             patternExpr is PartiqlPhysical.Expr.Lit && (escapeExpr == null || escapeExpr is PartiqlPhysical.Expr.Lit) -> {
-                val patternParts = getRegexPattern(
+                val patternParts = getLikePattern(
                     ExprValue.of(patternExpr.value.toIonValue(ion)),
                     (escapeExpr as? PartiqlPhysical.Expr.Lit)?.value?.toIonValue(ion)
                         ?.let { ExprValue.of(it) }
@@ -1605,29 +1721,30 @@ internal class PhysicalPlanCompilerAsyncImpl(
 
                 // If valueExpr is also a literal then we can evaluate this at compile time and return a constant.
                 if (valueExpr is PartiqlPhysical.Expr.Lit) {
-                    val resultValue = matchRegexPattern(
+                    val resultValue = matchLikePattern(
                         ExprValue.of(valueExpr.value.toIonValue(ion)),
                         patternParts
                     )
                     return thunkFactory.thunkEnvAsync(metas) { resultValue }
                 } else {
                     thunkFactory.thunkEnvOperands(metas, valueThunk) { _, value ->
-                        matchRegexPattern(value, patternParts)
+                        matchLikePattern(value, patternParts)
                     }
                 }
             }
             else -> {
                 val patternThunk = compileAstExpr(patternExpr)
+                val patternCache = LikePatternCache()
                 when (escapeExpr) {
                     null -> {
-                        // thunk that re-compiles the DFA every evaluation without a custom escape sequence
+                        // thunk that compiles (or gets from the cache) the pattern every evaluation without a custom escape sequence
                         thunkFactory.thunkEnvOperands(metas, valueThunk, patternThunk) { _, value, pattern ->
-                            val pps = getRegexPattern(pattern, null)
-                            matchRegexPattern(value, pps)
+                            val pps = getLikePattern(pattern, null, patternCache)
+                            matchLikePattern(value, pps)
                         }
                     }
                     else -> {
-                        // thunk that re-compiles the pattern every evaluation but *with* a custom escape sequence
+                        // thunk that compiles (or gets from the cache) the pattern every evaluation but *with* a custom escape sequence
                         val escapeThunk = compileAstExpr(escapeExpr)
                         thunkFactory.thunkEnvOperands(
                             metas,
@@ -1635,8 +1752,8 @@ internal class PhysicalPlanCompilerAsyncImpl(
                             patternThunk,
                             escapeThunk
                         ) { _, value, pattern, escape ->
-                            val pps = getRegexPattern(pattern, escape)
-                            matchRegexPattern(value, pps)
+                            val pps = getLikePattern(pattern, escape, patternCache)
+                            matchLikePattern(value, pps)
                         }
                     }
                 }
@@ -1811,26 +1928,33 @@ internal class PhysicalPlanCompilerAsyncImpl(
     private suspend fun compileBagOp(node: PartiqlPhysical.Expr.BagOp, metas: MetaContainer): PhysicalPlanThunkAsync {
         val lhs = compileAstExpr(node.operands[0])
         val rhs = compileAstExpr(node.operands[1])
+        val concurrent = node.operands.take(2).shouldEvaluateConcurrently()
         val op = ExprValueBagOp.create(node.op, metas)
+        // The owners of the reservations of the operator and of DISTINCT, see [EvaluatorState.reserveMemory].
+        val opMemory = Any()
+        val distinctMemory = Any()
         return thunkFactory.thunkEnvAsync(metas) { env ->
-            val l = lhs(env)
-            val r = rhs(env)
+            val (l, r) = when {
+                concurrent -> env.evaluateAll(listOf(lhs, rhs))
+                else -> listOf(lhs(env), rhs(env))
+            }
             val result = when (node.quantifier) {
-                is PartiqlPhysical.SetQuantifier.All -> op.eval(l, r)
-                is PartiqlPhysical.SetQuantifier.Distinct -> op.eval(l, r).distinct()
+                is PartiqlPhysical.SetQuantifier.All -> op.eval(l, r, env.reserveMemory(opMemory))
+                is PartiqlPhysical.SetQuantifier.Distinct ->
+                    op.eval(l, r, env.reserveMemory(opMemory)).distinct(env.reserveMemory(distinctMemory))
             }
             ExprValue.newBag(result)
         }
     }
 
     private suspend fun compilePivot(expr: PartiqlPhysical.Expr.Pivot, metas: MetaContainer): PhysicalPlanThunkAsync {
-        val inputBExpr: RelationThunkEnvAsync = bexperConverter.convert(expr.input)
+        val inputBExpr: RelationExpressionAsync = bexperConverter.convert(expr.input)
         // The names are intentionally flipped for clarity; consider fixing this in the AST
         val valueExpr = compileAstExpr(expr.key)
         val keyExpr = compileAstExpr(expr.value)
         return thunkFactory.thunkEnvAsync(metas) { env ->
             val attributes: Flow<ExprValue> = flow {
-                val relation = inputBExpr(env)
+                val relation = inputBExpr.evaluate(env)
                 while (relation.nextRow()) {
                     val key = keyExpr.invoke(env)
                     if (key.type.isText) {
@@ -38,13 +38,13 @@ import org.partiql.lang.eval.BindingCase
 import org.partiql.lang.eval.BindingName
 import org.partiql.lang.eval.CastFunc
 import org.partiql.lang.eval.CoverageStructure
-import org.partiql.lang.eval.DEFAULT_COMPARATOR
 import org.partiql.lang.eval.ErrorDetails
 import org.partiql.lang.eval.EvaluationException
 import org.partiql.lang.eval.EvaluationSession
 import org.partiql.lang.eval.ExprFunction
 import org.partiql.lang.eval.ExprValue
 import org.partiql.lang.eval.ExprValueBagOp
+import org.partiql.lang.eval.ExprValueKey
 import org.partiql.lang.eval.ExprValueType
 import org.partiql.lang.eval.Expression
 import org.partiql.lang.eval.FunctionNotFoundException
@@ -52,6 +52,7 @@ import org.partiql.lang.eval.Named
 import org.partiql.lang.eval.PartiQLResult
 import org.partiql.lang.eval.ProjectionIterationBehavior
 import org.partiql.lang.eval.StructOrdering
+import org.partiql.lang.eval.ThunkReturnTypeAssertions
 import org.partiql.lang.eval.ThunkValue
 import org.partiql.lang.eval.TypedOpBehavior
 import org.partiql.lang.eval.TypingMode
@@ -59,28 +60,40 @@ import org.partiql.lang.eval.booleanValue
 import org.partiql.lang.eval.builtins.storedprocedure.StoredProcedure
 import org.partiql.lang.eval.call
 import org.partiql.lang.eval.cast
+import org.partiql.lang.eval.comparePrimitive
 import org.partiql.lang.eval.compareTo
 import org.partiql.lang.eval.createErrorSignaler
 import org.partiql.lang.eval.createThunkFactory
 import org.partiql.lang.eval.distinct
+import org.partiql.lang.eval.dividePrimitive
 import org.partiql.lang.eval.err
 import org.partiql.lang.eval.errorContextFrom
 import org.partiql.lang.eval.errorIf
+import org.partiql.lang.eval.eval
 import org.partiql.lang.eval.exprEquals
 import org.partiql.lang.eval.fillErrorContext
+import org.partiql.lang.eval.impl.FunctionCallSite
 import org.partiql.lang.eval.impl.FunctionManager
 import org.partiql.lang.eval.isNotUnknown
 import org.partiql.lang.eval.isUnknown
-import org.partiql.lang.eval.like.parsePattern
+import org.partiql.lang.eval.like.LikePattern
+import org.partiql.lang.eval.like.LikePatternCache
 import org.partiql.lang.eval.longValue
+import org.partiql.lang.eval.minusPrimitive
+import org.partiql.lang.eval.moduloPrimitive
 import org.partiql.lang.eval.namedValue
 import org.partiql.lang.eval.numberValue
+import org.partiql.lang.eval.numericOperator
+import org.partiql.lang.eval.physical.codegen.CodegenNode
+import org.partiql.lang.eval.physical.codegen.ExpressionCodegen
+import org.partiql.lang.eval.plusPrimitive
 import org.partiql.lang.eval.rangeOver
 import org.partiql.lang.eval.relation.RelationType
 import org.partiql.lang.eval.sourceLocationMeta
 import org.partiql.lang.eval.stringValue
 import org.partiql.lang.eval.syntheticColumnName
 import org.partiql.lang.eval.time.Time
+import org.partiql.lang.eval.timesPrimitive
 import org.partiql.lang.eval.timestampValue
 import org.partiql.lang.eval.unnamedValue
 import org.partiql.lang.planner.EvaluatorOptions
@@ -110,8 +123,6 @@ import org.partiql.types.SingleType
 import org.partiql.types.StaticType
 import org.partiql.types.UnsupportedTypeCheckException
 import java.util.LinkedList
-import java.util.TreeSet
-import java.util.regex.Pattern
 
 /**
  * A basic "compiler" that converts an instance of [PartiqlPhysical.Expr] to an [Expression].
@@ -163,6 +174,14 @@ internal class PhysicalPlanCompilerImpl(
 
     private val functionManager = FunctionManager(functions)
 
+    // The generated code does not assert the return types of the operators.
+    private val codegen = when {
+        evaluatorOptions.codegen &&
+            evaluatorOptions.thunkOptions.thunkReturnTypeAssertions == ThunkReturnTypeAssertions.DISABLED ->
+            ExpressionCodegen(evaluatorOptions.typingMode, thunkFactory)
+        else -> null
+    }
+
     private fun Boolean.exprValue(): ExprValue = ExprValue.newBoolean(this)
     private fun String.exprValue(): ExprValue = ExprValue.newString(this)
 
@@ -251,6 +270,11 @@ internal class PhysicalPlanCompilerImpl(
 
     private fun compileAstExpr(expr: PartiqlPhysical.Expr): PhysicalPlanThunk {
         checkThreadInterrupted()
+        codegen?.let { generator ->
+            lowerOperator(expr)?.let { operator ->
+                return generator.generate(operator) ?: compileLowered(expr, operator)
+            }
+        }
         val metas = expr.metas
 
         return when (expr) {
@@ -349,6 +373,97 @@ internal class PhysicalPlanCompilerImpl(
 
     private fun compileAstExprs(args: List<PartiqlPhysical.Expr>) = args.map { compileAstExpr(it) }
 
+    /**
+     * Lowers [expr] for the [ExpressionCodegen] if it is one of the operators supported by the code generator, with the
+     * same semantics as the thunk the compiler would create for it, or returns `null`.
+     *
+     * The arithmetic operators whose result may be an `INT` are not lowered, since their overflow is checked by an
+     * additional thunk, see [checkIntegerOverflow].
+     */
+    private fun lowerOperator(expr: PartiqlPhysical.Expr): CodegenNode.Operator? {
+        val location = expr.metas.sourceLocationMeta
+        fun lowerOperands(operands: List<PartiqlPhysical.Expr>) = operands.map { lowerOperand(it) }
+        fun isFoldable(operands: List<PartiqlPhysical.Expr>) = operands.size >= 2 &&
+            expr.metas.staticType?.type?.getTypes()?.none { it is IntType } ?: true
+
+        return when {
+            expr is PartiqlPhysical.Expr.Plus && isFoldable(expr.operands) ->
+                CodegenNode.Fold(lowerOperands(expr.operands), plusOperator(expr), location)
+            expr is PartiqlPhysical.Expr.Minus && isFoldable(expr.operands) ->
+                CodegenNode.Fold(lowerOperands(expr.operands), minusOperator(expr), location)
+            expr is PartiqlPhysical.Expr.Times && isFoldable(expr.operands) ->
+                CodegenNode.Fold(lowerOperands(expr.operands), timesOperator(expr), location)
+            expr is PartiqlPhysical.Expr.Divide && isFoldable(expr.operands) ->
+                CodegenNode.Fold(lowerOperands(expr.operands), divideOperator(expr, expr.metas), location)
+            expr is PartiqlPhysical.Expr.Modulo && isFoldable(expr.operands) ->
+                CodegenNode.Fold(lowerOperands(expr.operands), moduloOperator(expr, expr.metas), location)
+            expr is PartiqlPhysical.Expr.Ne && expr.operands.size >= 2 ->
+                CodegenNode.Fold(lowerOperands(expr.operands), neOperator(expr), location)
+            expr is PartiqlPhysical.Expr.Eq && expr.operands.size >= 2 ->
+                CodegenNode.AndMap(lowerOperands(expr.operands), eqOperator(expr), location)
+            expr is PartiqlPhysical.Expr.Lt && expr.operands.size >= 2 ->
+                CodegenNode.AndMap(lowerOperands(expr.operands), ltOperator(expr), location)
+            expr is PartiqlPhysical.Expr.Lte && expr.operands.size >= 2 ->
+                CodegenNode.AndMap(lowerOperands(expr.operands), lteOperator(expr), location)
+            expr is PartiqlPhysical.Expr.Gt && expr.operands.size >= 2 ->
+                CodegenNode.AndMap(lowerOperands(expr.operands), gtOperator(expr), location)
+            expr is PartiqlPhysical.Expr.Gte && expr.operands.size >= 2 ->
+                CodegenNode.AndMap(lowerOperands(expr.operands), gteOperator(expr), location)
+            expr is PartiqlPhysical.Expr.Not -> CodegenNode.Not(lowerOperand(expr.expr), location)
+            expr is PartiqlPhysical.Expr.And -> CodegenNode.And(lowerOperands(expr.operands), location)
+            expr is PartiqlPhysical.Expr.Or -> CodegenNode.Or(lowerOperands(expr.operands), location)
+            else -> null
+        }
+    }
+
+    /** Lowers an operand of a [CodegenNode.Operator], falling back to its thunk if it is not supported. */
+    private fun lowerOperand(expr: PartiqlPhysical.Expr): CodegenNode {
+        checkThreadInterrupted()
+        return when (expr) {
+            is PartiqlPhysical.Expr.Lit -> CodegenNode.Constant(ExprValue.of(expr.value.toIonValue(ion)))
+            is PartiqlPhysical.Expr.LocalId -> CodegenNode.Register(expr.index.value.toIntExact())
+            else -> lowerOperator(expr) ?: CodegenNode.Fallback(compileAstExpr(expr))
+        }
+    }
+
+    /**
+     * Compiles the thunk of [expr] when the class generated for its lowered [operator] cannot be defined, reusing the
+     * thunks of the operands which were compiled while lowering it rather than compiling them again.
+     */
+    private fun compileLowered(expr: PartiqlPhysical.Expr, operator: CodegenNode.Operator): PhysicalPlanThunk {
+        val metas = expr.metas
+        fun operandThunks(operands: List<PartiqlPhysical.Expr>) =
+            operator.operands.zip(operands) { node, operand -> loweredThunk(node, operand) }
+
+        return when (expr) {
+            is PartiqlPhysical.Expr.Plus -> compilePlus(expr, metas, operandThunks(expr.operands))
+            is PartiqlPhysical.Expr.Minus -> compileMinus(expr, metas, operandThunks(expr.operands))
+            is PartiqlPhysical.Expr.Times -> compileTimes(expr, metas, operandThunks(expr.operands))
+            is PartiqlPhysical.Expr.Divide -> compileDivide(expr, metas, operandThunks(expr.operands))
+            is PartiqlPhysical.Expr.Modulo -> compileModulo(expr, metas, operandThunks(expr.operands))
+            is PartiqlPhysical.Expr.Ne -> compileNe(expr, metas, operandThunks(expr.operands))
+            is PartiqlPhysical.Expr.Eq -> compileEq(expr, metas, operandThunks(expr.operands))
+            is PartiqlPhysical.Expr.Lt -> compileLt(expr, metas, operandThunks(expr.operands))
+            is PartiqlPhysical.Expr.Lte -> compileLte(expr, metas, operandThunks(expr.operands))
+            is PartiqlPhysical.Expr.Gt -> compileGt(expr, metas, operandThunks(expr.operands))
+            is PartiqlPhysical.Expr.Gte -> compileGte(expr, metas, operandThunks(expr.operands))
+            is PartiqlPhysical.Expr.Not -> compileNot(expr, metas, operandThunks(listOf(expr.expr)).single())
+            is PartiqlPhysical.Expr.And -> compileAnd(expr, metas, operandThunks(expr.operands))
+            is PartiqlPhysical.Expr.Or -> compileOr(expr, metas, operandThunks(expr.operands))
+            else -> error("Internal Error: ${expr.javaClass.simpleName} is not lowered by lowerOperator")
+        }
+    }
+
+    /** Returns the thunk of the operand [expr] lowered to [node], see [compileLowered]. */
+    private fun loweredThunk(node: CodegenNode, expr: PartiqlPhysical.Expr): PhysicalPlanThunk = when (node) {
+        is CodegenNode.Fallback -> node.thunk
+        is CodegenNode.Operator -> compileLowered(expr, node)
+        is CodegenNode.Constant,
+        is CodegenNode.Register -> compileAstExpr(expr)
+    }
+
+    private fun staticTypesOf(args: List<PartiqlPhysical.Expr>) = args.map { it.metas.staticType?.type }
+
     private fun compileNullIf(expr: PartiqlPhysical.Expr.NullIf, metas: MetaContainer): PhysicalPlanThunk {
         val expr1Thunk = compileAstExpr(expr.expr1)
         val expr2Thunk = compileAstExpr(expr.expr2)
@@ -469,30 +584,40 @@ internal class PhysicalPlanCompilerImpl(
             }
         }
 
-    private fun compilePlus(expr: PartiqlPhysical.Expr.Plus, metas: MetaContainer): PhysicalPlanThunk {
+    private fun plusOperator(expr: PartiqlPhysical.Expr.Plus) =
+        numericOperator(staticTypesOf(expr.operands), ::plusPrimitive) { lValue, rValue ->
+            (lValue.numberValue() + rValue.numberValue()).exprValue()
+        }
+
+    private fun compilePlus(
+        expr: PartiqlPhysical.Expr.Plus,
+        metas: MetaContainer,
+        argThunks: List<PhysicalPlanThunk> = compileAstExprs(expr.operands)
+    ): PhysicalPlanThunk {
         if (expr.operands.size < 2) {
             error("Internal Error: PartiqlPhysical.Expr.Plus must have at least 2 arguments")
         }
 
-        val argThunks = compileAstExprs(expr.operands)
-
-        val computeThunk = thunkFactory.thunkFold(metas, argThunks) { lValue, rValue ->
-            (lValue.numberValue() + rValue.numberValue()).exprValue()
-        }
+        val computeThunk = thunkFactory.thunkFold(metas, argThunks, plusOperator(expr))
 
         return checkIntegerOverflow(computeThunk, metas)
     }
 
-    private fun compileMinus(expr: PartiqlPhysical.Expr.Minus, metas: MetaContainer): PhysicalPlanThunk {
+    private fun minusOperator(expr: PartiqlPhysical.Expr.Minus) =
+        numericOperator(staticTypesOf(expr.operands), ::minusPrimitive) { lValue, rValue ->
+            (lValue.numberValue() - rValue.numberValue()).exprValue()
+        }
+
+    private fun compileMinus(
+        expr: PartiqlPhysical.Expr.Minus,
+        metas: MetaContainer,
+        argThunks: List<PhysicalPlanThunk> = compileAstExprs(expr.operands)
+    ): PhysicalPlanThunk {
         if (expr.operands.size < 2) {
             error("Internal Error: PartiqlPhysical.Expr.Minus must have at least 2 arguments")
         }
 
-        val argThunks = compileAstExprs(expr.operands)
-
-        val computeThunk = thunkFactory.thunkFold(metas, argThunks) { lValue, rValue ->
-            (lValue.numberValue() - rValue.numberValue()).exprValue()
-        }
+        val computeThunk = thunkFactory.thunkFold(metas, argThunks, minusOperator(expr))
 
         return checkIntegerOverflow(computeThunk, metas)
     }
@@ -520,20 +645,23 @@ internal class PhysicalPlanCompilerImpl(
         return checkIntegerOverflow(computeThunk, metas)
     }
 
-    private fun compileTimes(expr: PartiqlPhysical.Expr.Times, metas: MetaContainer): PhysicalPlanThunk {
-        val argThunks = compileAstExprs(expr.operands)
-
-        val computeThunk = thunkFactory.thunkFold(metas, argThunks) { lValue, rValue ->
+    private fun timesOperator(expr: PartiqlPhysical.Expr.Times) =
+        numericOperator(staticTypesOf(expr.operands), ::timesPrimitive) { lValue, rValue ->
             (lValue.numberValue() * rValue.numberValue()).exprValue()
         }
 
+    private fun compileTimes(
+        expr: PartiqlPhysical.Expr.Times,
+        metas: MetaContainer,
+        argThunks: List<PhysicalPlanThunk> = compileAstExprs(expr.operands)
+    ): PhysicalPlanThunk {
+        val computeThunk = thunkFactory.thunkFold(metas, argThunks, timesOperator(expr))
+
         return checkIntegerOverflow(computeThunk, metas)
     }
 
-    private fun compileDivide(expr: PartiqlPhysical.Expr.Divide, metas: MetaContainer): PhysicalPlanThunk {
-        val argThunks = compileAstExprs(expr.operands)
-
-        val computeThunk = thunkFactory.thunkFold(metas, argThunks) { lValue, rValue ->
+    private fun divideOperator(expr: PartiqlPhysical.Expr.Divide, metas: MetaContainer) =
+        numericOperator(staticTypesOf(expr.operands), ::dividePrimitive) { lValue, rValue ->
             val denominator = rValue.numberValue()
 
             errorSignaler.errorIf(
@@ -555,13 +683,18 @@ internal class PhysicalPlanCompilerImpl(
             }
         }
 
+    private fun compileDivide(
+        expr: PartiqlPhysical.Expr.Divide,
+        metas: MetaContainer,
+        argThunks: List<PhysicalPlanThunk> = compileAstExprs(expr.operands)
+    ): PhysicalPlanThunk {
+        val computeThunk = thunkFactory.thunkFold(metas, argThunks, divideOperator(expr, metas))
+
         return checkIntegerOverflow(computeThunk, metas)
     }
 
-    private fun compileModulo(expr: PartiqlPhysical.Expr.Modulo, metas: MetaContainer): PhysicalPlanThunk {
-        val argThunks = compileAstExprs(expr.operands)
-
-        val computeThunk = thunkFactory.thunkFold(metas, argThunks) { lValue, rValue ->
+    private fun moduloOperator(expr: PartiqlPhysical.Expr.Modulo, metas: MetaContainer) =
+        numericOperator(staticTypesOf(expr.operands), ::moduloPrimitive) { lValue, rValue ->
             val denominator = rValue.numberValue()
             if (denominator.isZero()) {
                 err("% by zero", ErrorCode.EVALUATOR_MODULO_BY_ZERO, errorContextFrom(metas), internal = false)
@@ -570,6 +703,13 @@ internal class PhysicalPlanCompilerImpl(
             (lValue.numberValue() % denominator).exprValue()
         }
 
+    private fun compileModulo(
+        expr: PartiqlPhysical.Expr.Modulo,
+        metas: MetaContainer,
+        argThunks: List<PhysicalPlanThunk> = compileAstExprs(expr.operands)
+    ): PhysicalPlanThunk {
+        val computeThunk = thunkFactory.thunkFold(metas, argThunks, moduloOperator(expr, metas))
+
         return checkIntegerOverflow(computeThunk, metas)
     }
 
@@ -581,44 +721,88 @@ internal class PhysicalPlanCompilerImpl(
         }
     }
 
-    private fun compileEq(expr: PartiqlPhysical.Expr.Eq, metas: MetaContainer): PhysicalPlanThunk {
-        val argThunks = compileAstExprs(expr.operands)
-
-        return thunkFactory.thunkAndMap(metas, argThunks) { lValue, rValue ->
-            (lValue.exprEquals(rValue))
-        }
+    private fun eqOperator(expr: PartiqlPhysical.Expr.Eq) =
+        numericOperator(
+            staticTypesOf(expr.operands),
+            { lValue, rValue -> comparePrimitive(lValue, rValue)?.let { it == 0 } }
+        ) { lValue, rValue -> lValue.exprEquals(rValue) }
+
+    private fun compileEq(
+        expr: PartiqlPhysical.Expr.Eq,
+        metas: MetaContainer,
+        argThunks: List<PhysicalPlanThunk> = compileAstExprs(expr.operands)
+    ): PhysicalPlanThunk {
+        return thunkFactory.thunkAndMap(metas, argThunks, eqOperator(expr))
     }
 
-    private fun compileNe(expr: PartiqlPhysical.Expr.Ne, metas: MetaContainer): PhysicalPlanThunk {
-        val argThunks = compileAstExprs(expr.operands)
-
-        return thunkFactory.thunkFold(metas, argThunks) { lValue, rValue ->
-            ((!lValue.exprEquals(rValue)).exprValue())
-        }
+    private fun neOperator(expr: PartiqlPhysical.Expr.Ne) =
+        numericOperator(
+            staticTypesOf(expr.operands),
+            { lValue, rValue -> comparePrimitive(lValue, rValue)?.let { (it != 0).exprValue() } }
+        ) { lValue, rValue -> (!lValue.exprEquals(rValue)).exprValue() }
+
+    private fun compileNe(
+        expr: PartiqlPhysical.Expr.Ne,
+        metas: MetaContainer,
+        argThunks: List<PhysicalPlanThunk> = compileAstExprs(expr.operands)
+    ): PhysicalPlanThunk {
+        return thunkFactory.thunkFold(metas, argThunks, neOperator(expr))
     }
 
-    private fun compileLt(expr: PartiqlPhysical.Expr.Lt, metas: MetaContainer): PhysicalPlanThunk {
-        val argThunks = compileAstExprs(expr.operands)
-
-        return thunkFactory.thunkAndMap(metas, argThunks) { lValue, rValue -> lValue < rValue }
+    private fun ltOperator(expr: PartiqlPhysical.Expr.Lt) =
+        numericOperator(
+            staticTypesOf(expr.operands),
+            { lValue, rValue -> comparePrimitive(lValue, rValue)?.let { it < 0 } }
+        ) { lValue, rValue -> lValue < rValue }
+
+    private fun compileLt(
+        expr: PartiqlPhysical.Expr.Lt,
+        metas: MetaContainer,
+        argThunks: List<PhysicalPlanThunk> = compileAstExprs(expr.operands)
+    ): PhysicalPlanThunk {
+        return thunkFactory.thunkAndMap(metas, argThunks, ltOperator(expr))
     }
 
-    private fun compileLte(expr: PartiqlPhysical.Expr.Lte, metas: MetaContainer): PhysicalPlanThunk {
-        val argThunks = compileAstExprs(expr.operands)
-
-        return thunkFactory.thunkAndMap(metas, argThunks) { lValue, rValue -> lValue <= rValue }
+    private fun lteOperator(expr: PartiqlPhysical.Expr.Lte) =
+        numericOperator(
+            staticTypesOf(expr.operands),
+            { lValue, rValue -> comparePrimitive(lValue, rValue)?.let { it <= 0 } }
+        ) { lValue, rValue -> lValue <= rValue }
+
+    private fun compileLte(
+        expr: PartiqlPhysical.Expr.Lte,
+        metas: MetaContainer,
+        argThunks: List<PhysicalPlanThunk> = compileAstExprs(expr.operands)
+    ): PhysicalPlanThunk {
+        return thunkFactory.thunkAndMap(metas, argThunks, lteOperator(expr))
     }
 
-    private fun compileGt(expr: PartiqlPhysical.Expr.Gt, metas: MetaContainer): PhysicalPlanThunk {
-        val argThunks = compileAstExprs(expr.operands)
-
-        return thunkFactory.thunkAndMap(metas, argThunks) { lValue, rValue -> lValue > rValue }
+    private fun gtOperator(expr: PartiqlPhysical.Expr.Gt) =
+        numericOperator(
+            staticTypesOf(expr.operands),
+            { lValue, rValue -> comparePrimitive(lValue, rValue)?.let { it > 0 } }
+        ) { lValue, rValue -> lValue > rValue }
+
+    private fun compileGt(
+        expr: PartiqlPhysical.Expr.Gt,
+        metas: MetaContainer,
+        argThunks: List<PhysicalPlanThunk> = compileAstExprs(expr.operands)
+    ): PhysicalPlanThunk {
+        return thunkFactory.thunkAndMap(metas, argThunks, gtOperator(expr))
     }
 
-    private fun compileGte(expr: PartiqlPhysical.Expr.Gte, metas: MetaContainer): PhysicalPlanThunk {
-        val argThunks = compileAstExprs(expr.operands)
-
-        return thunkFactory.thunkAndMap(metas, argThunks) { lValue, rValue -> lValue >= rValue }
+    private fun gteOperator(expr: PartiqlPhysical.Expr.Gte) =
+        numericOperator(
+            staticTypesOf(expr.operands),
+            { lValue, rValue -> comparePrimitive(lValue, rValue)?.let { it >= 0 } }
+        ) { lValue, rValue -> lValue >= rValue }
+
+    private fun compileGte(
+        expr: PartiqlPhysical.Expr.Gte,
+        metas: MetaContainer,
+        argThunks: List<PhysicalPlanThunk> = compileAstExprs(expr.operands)
+    ): PhysicalPlanThunk {
+        return thunkFactory.thunkAndMap(metas, argThunks, gteOperator(expr))
     }
 
     private fun compileBetween(expr: PartiqlPhysical.Expr.Between, metas: MetaContainer): PhysicalPlanThunk {
@@ -659,13 +843,13 @@ internal class PhysicalPlanCompilerImpl(
             // If the left-hand value is one of these we can short-circuit with a result of TRUE.
             // This is the fastest possible case and allows for hundreds of literal values (or more) in the
             // sequence without a huge performance penalty.
-            // NOTE: we cannot use a [HashSet<>] here because [ExprValue] does not implement [Object.hashCode] or
-            // [Object.equals].
             val precomputedLiteralsMap = values
                 .filterIsInstance<PartiqlPhysical.Expr.Lit>()
-                .mapTo(TreeSet<ExprValue>(DEFAULT_COMPARATOR)) {
-                    ExprValue.of(
-                        it.value.toIonValue(ion)
+                .mapTo(HashSet<ExprValueKey>()) {
+                    ExprValueKey(
+                        ExprValue.of(
+                            it.value.toIonValue(ion)
+                        )
                     )
                 }
 
@@ -673,7 +857,7 @@ internal class PhysicalPlanCompilerImpl(
             // thunkEnvOperands takes care of unknown propagation for the left side; for the right,
             // this unknown propagation does not apply since we've eliminated the possibility of unknowns above.
             return thunkFactory.thunkEnvOperands(metas, leftThunk) { _, leftValue ->
-                precomputedLiteralsMap.contains(leftValue).exprValue()
+                precomputedLiteralsMap.contains(ExprValueKey(leftValue)).exprValue()
             }
         }
 
@@ -733,17 +917,21 @@ internal class PhysicalPlanCompilerImpl(
         }
     }
 
-    private fun compileNot(expr: PartiqlPhysical.Expr.Not, metas: MetaContainer): PhysicalPlanThunk {
-        val argThunk = compileAstExpr(expr.expr)
-
+    private fun compileNot(
+        expr: PartiqlPhysical.Expr.Not,
+        metas: MetaContainer,
+        argThunk: PhysicalPlanThunk = compileAstExpr(expr.expr)
+    ): PhysicalPlanThunk {
         return thunkFactory.thunkEnvOperands(metas, argThunk) { _, value ->
             (!value.booleanValue()).exprValue()
         }
     }
 
-    private fun compileAnd(expr: PartiqlPhysical.Expr.And, metas: MetaContainer): PhysicalPlanThunk {
-        val argThunks = compileAstExprs(expr.operands)
-
+    private fun compileAnd(
+        expr: PartiqlPhysical.Expr.And,
+        metas: MetaContainer,
+        argThunks: List<PhysicalPlanThunk> = compileAstExprs(expr.operands)
+    ): PhysicalPlanThunk {
         // can't use the null propagation supplied by [ThunkFactory.thunkEnv] here because AND short-circuits on
         // false values and *NOT* on NULL or MISSING
         return when (evaluatorOptions.typingMode) {
@@ -786,9 +974,11 @@ internal class PhysicalPlanCompilerImpl(
         }
     }
 
-    private fun compileOr(expr: PartiqlPhysical.Expr.Or, metas: MetaContainer): PhysicalPlanThunk {
-        val argThunks = compileAstExprs(expr.operands)
-
+    private fun compileOr(
+        expr: PartiqlPhysical.Expr.Or,
+        metas: MetaContainer,
+        argThunks: List<PhysicalPlanThunk> = compileAstExprs(expr.operands)
+    ): PhysicalPlanThunk {
         // can't use the null propagation supplied by [ThunkFactory.thunkEnv] here because OR short-circuits on
         // true values and *NOT* on NULL or MISSING
         return when (evaluatorOptions.typingMode) {
@@ -863,20 +1053,19 @@ internal class PhysicalPlanCompilerImpl(
         val funcArgThunks = compileAstExprs(expr.args)
         val arity = funcArgThunks.size
         val name = expr.funcName.text
-        return thunkFactory.thunkEnv(metas) { env ->
+        val callSite = FunctionCallSite(
+            functionManager,
+            name,
+            arity,
+            argStaticTypes = expr.args.map { it.metas.staticType?.type },
+            literals = expr.args.map { arg ->
+                (arg as? PartiqlPhysical.Expr.Lit)?.let { ExprValue.of(it.value.toIonValue(ion)) }
+            }
+        )
+        val computeThunk = thunkFactory.thunkEnv(metas) { env ->
             val args = funcArgThunks.map { thunk -> thunk(env) }
-            val argTypes = args.map { staticTypeFromExprValue(it) }
-            try {
-                val func = functionManager.get(name = name, arity = arity, args = argTypes)
-                val computeThunk = when (func.signature.unknownArguments) {
-                    UnknownArguments.PROPAGATE -> thunkFactory.thunkEnvOperands(metas, funcArgThunks) { env, values ->
-                        func.call(env.session, args)
-                    }
-                    UnknownArguments.PASS_THRU -> thunkFactory.thunkEnv(metas) { env ->
-                        func.call(env.session, args)
-                    }
-                }
-                checkIntegerOverflow(computeThunk, metas)(env)
+            val func = try {
+                callSite.resolve(args)
             } catch (e: FunctionNotFoundException) {
                 err(
                     "No such function: $name",
@@ -901,7 +1090,15 @@ internal class PhysicalPlanCompilerImpl(
                     internal = false
                 )
             }
+            when (func.signature.unknownArguments) {
+                // The arguments are not evaluated again to propagate unknowns.
+                UnknownArguments.PROPAGATE -> thunkFactory.propagateUnknowns(args.asSequence()) { values ->
+                    func.call(env.session, values)
+                }
+                UnknownArguments.PASS_THRU -> func.call(env.session, args)
+            }
         }
+        return checkIntegerOverflow(computeThunk, metas)
     }
 
     private fun compileLit(expr: PartiqlPhysical.Expr.Lit, metas: MetaContainer): PhysicalPlanThunk {
@@ -1546,6 +1743,7 @@ internal class PhysicalPlanCompilerImpl(
      * 1. All arguments are literals, then compile and run the pattern
      * 1. Search pattern and escape pattern are literals, compile the pattern. Running the pattern deferred to evaluation time.
      * 1. Pattern or escape (or both) are *not* literals, compile and running of pattern deferred to evaluation time.
+     * The compiled patterns are kept in a [LikePatternCache], such that recurring patterns are only compiled once.
      *
      * ```
      * <valueExpr> LIKE <patternExpr> [ESCAPE <escapeExpr>]
@@ -1562,7 +1760,7 @@ internal class PhysicalPlanCompilerImpl(
         val escapeLocationMeta = escapeExpr?.metas?.sourceLocation
 
         // This is so that null short-circuits can be supported.
-        fun getRegexPattern(pattern: ExprValue, escape: ExprValue?): (() -> Pattern)? {
+        fun getLikePattern(pattern: ExprValue, escape: ExprValue?, cache: LikePatternCache? = null): (() -> LikePattern)? {
             val patternArgs = listOfNotNull(pattern, escape)
             when {
                 patternArgs.any { it.type.isUnknown } -> return null
@@ -1578,18 +1776,18 @@ internal class PhysicalPlanCompilerImpl(
                     )
                 }
                 else -> {
-                    val (patternString: String, escapeChar: Int?) =
-                        checkPattern(pattern.stringValue(), patternLocationMeta, escape?.stringValue(), escapeLocationMeta)
-                    val likeRegexPattern = when {
-                        patternString.isEmpty() -> Pattern.compile("")
-                        else -> parsePattern(patternString, escapeChar)
+                    val compile = {
+                        val (patternString: String, escapeChar: Int?) =
+                            checkPattern(pattern.stringValue(), patternLocationMeta, escape?.stringValue(), escapeLocationMeta)
+                        LikePattern.compile(patternString, escapeChar)
                     }
-                    return { likeRegexPattern }
+                    val likePattern = cache?.getOrCompile(pattern.stringValue(), escape?.stringValue(), compile) ?: compile()
+                    return { likePattern }
                 }
             }
         }
 
-        fun matchRegexPattern(value: ExprValue, likePattern: (() -> Pattern)?): ExprValue {
+        fun matchLikePattern(value: ExprValue, likePattern: (() -> LikePattern)?): ExprValue {
             return when {
                 likePattern == null || value.type.isUnknown -> ExprValue.nullValue
                 !value.type.isText -> err(
@@ -1600,17 +1798,17 @@ internal class PhysicalPlanCompilerImpl(
                     },
                     internal = false
                 )
-                else -> ExprValue.newBoolean(likePattern().matcher(value.stringValue()).matches())
+                else -> ExprValue.newBoolean(likePattern().matches(value.stringValue()))
             }
         }
 
         val valueThunk = compileAstExpr(valueExpr)
 
         // If the pattern and escape expressions are literals then we can compile the pattern now and
-        // re-use it with every execution. Otherwise, we must re-compile the pattern every time.
+        // re-use it with every execution. Otherwise, we must compile the patterns as they are evaluated.
         return when {
             patternExpr is PartiqlPhysical.Expr.Lit && (escapeExpr == null || escapeExpr is PartiqlPhysical.Expr.Lit) -> {
-                val patternParts = getRegexPattern(
+                val patternParts = getLikePattern(
                     ExprValue.of(patternExpr.value.toIonValue(ion)),
                     (escapeExpr as? PartiqlPhysical.Expr.Lit)?.value?.toIonValue(ion)
                         ?.let { ExprValue.of(it) }
@@ -1618,29 +1816,30 @@ internal class PhysicalPlanCompilerImpl(
 
                 // If valueExpr is also a literal then we can evaluate this at compile time and return a constant.
                 if (valueExpr is PartiqlPhysical.Expr.Lit) {
-                    val resultValue = matchRegexPattern(
+                    val resultValue = matchLikePattern(
                         ExprValue.of(valueExpr.value.toIonValue(ion)),
                         patternParts
                     )
                     return thunkFactory.thunkEnv(metas) { resultValue }
                 } else {
                     thunkFactory.thunkEnvOperands(metas, valueThunk) { _, value ->
-                        matchRegexPattern(value, patternParts)
+                        matchLikePattern(value, patternParts)
                     }
                 }
             }
             else -> {
                 val patternThunk = compileAstExpr(patternExpr)
+                val patternCache = LikePatternCache()
                 when (escapeExpr) {
                     null -> {
-                        // thunk that re-compiles the DFA every evaluation without a custom escape sequence
+                        // thunk that compiles (or gets from the cache) the pattern every evaluation without a custom escape sequence
                         thunkFactory.thunkEnvOperands(metas, valueThunk, patternThunk) { _, value, pattern ->
-                            val pps = getRegexPattern(pattern, null)
-                            matchRegexPattern(value, pps)
+                            val pps = getLikePattern(pattern, null, patternCache)
+                            matchLikePattern(value, pps)
                         }
                     }
                     else -> {
-                        // thunk that re-compiles the pattern every evaluation but *with* a custom escape sequence
+                        // thunk that compiles (or gets from the cache) the pattern every evaluation but *with* a custom escape sequence
                         val escapeThunk = compileAstExpr(escapeExpr)
                         thunkFactory.thunkEnvOperands(
                             metas,
@@ -1648,8 +1847,8 @@ internal class PhysicalPlanCompilerImpl(
                             patternThunk,
                             escapeThunk
                         ) { _, value, pattern, escape ->
-                            val pps = getRegexPattern(pattern, escape)
-                            matchRegexPattern(value, pps)
+                            val pps = getLikePattern(pattern, escape, patternCache)
+                            matchLikePattern(value, pps)
                         }
                     }
                 }
@@ -1825,12 +2024,16 @@ internal class PhysicalPlanCompilerImpl(
         val lhs = compileAstExpr(node.operands[0])
         val rhs = compileAstExpr(node.operands[1])
         val op = ExprValueBagOp.create(node.op, metas)
+        // The owners of the reservations of the operator and of DISTINCT, see [EvaluatorState.reserveMemory].
+        val opMemory = Any()
+        val distinctMemory = Any()
         return thunkFactory.thunkEnv(metas) { env ->
             val l = lhs(env)
             val r = rhs(env)
             val result = when (node.quantifier) {
-                is PartiqlPhysical.SetQuantifier.All -> op.eval(l, r)
-                is PartiqlPhysical.SetQuantifier.Distinct -> op.eval(l, r).distinct()
+                is PartiqlPhysical.SetQuantifier.All -> op.eval(l, r, env.reserveMemory(opMemory))
+                is PartiqlPhysical.SetQuantifier.Distinct ->
+                    op.eval(l, r, env.reserveMemory(opMemory)).distinct(env.reserveMemory(distinctMemory))
             }
             ExprValue.newBag(result)
         }
@@ -0,0 +1,197 @@
+package org.partiql.lang.eval.physical
+
+import org.partiql.lang.domains.PartiqlPhysical
+import org.partiql.lang.eval.OperatorProfile
+import org.partiql.lang.eval.QueryProfile
+import org.partiql.lang.eval.physical.operators.BatchRelationExpressionAsync
+import org.partiql.lang.eval.physical.operators.RelationExpressionAsync
+import org.partiql.lang.eval.relation.BatchRelationIterator
+import org.partiql.lang.eval.relation.RelationIterator
+import org.partiql.lang.eval.relation.RowBatch
+import java.util.concurrent.atomic.AtomicLong
+import kotlin.coroutines.AbstractCoroutineContextElement
+import kotlin.coroutines.CoroutineContext
+
+/** A relational operator of a [ProfiledPlan], and the operators converted while converting it. */
+internal class ProfiledOperator(val id: Int, val node: PartiqlPhysical.Bexpr, val children: List<ProfiledOperator>)
+
+/**
+ * Records the tree of relational operators of a plan as they are converted by [PhysicalBexprToThunkConverterAsync],
+ * which profiles the operators it converts when this element is in the coroutine context of the conversion.
+ *
+ * The operators converted while converting an operator (its inputs and the operators of its sub-queries) become its
+ * children, and the [id] of an operator is its index in [operators].
+ */
+internal class ProfiledPlan : AbstractCoroutineContextElement(Key) {
+    companion object Key : CoroutineContext.Key<ProfiledPlan>
+
+    private val operators = ArrayList<ProfiledOperator>()
+    private val children = ArrayDeque<MutableList<ProfiledOperator>>().apply { addLast(ArrayList()) }
+
+    /** The operators which are not the children of another operator. */
+    val roots: List<ProfiledOperator>
+        get() = children.first()
+
+    val size: Int
+        get() = operators.size
+
+    /** Must be called before converting [node], and followed by [exit] once it is converted. */
+    fun enter() {
+        children.addLast(ArrayList())
+    }
+
+    /** Records the converted [node] and returns its id. */
+    fun exit(node: PartiqlPhysical.Bexpr): Int {
+        val operator = ProfiledOperator(operators.size, node, children.removeLast())
+        operators.add(operator)
+        children.last().add(operator)
+        return operator.id
+    }
+}
+
+/** The counters of one profiled operator, which may be updated concurrently by the copies of an [EvaluatorState]. */
+private class OperatorCounters {
+    val invocations = AtomicLong()
+    val rows = AtomicLong()
+    val nanos = AtomicLong()
+    val peakMaterializedRows = AtomicLong()
+}
+
+/** Collects the runtime statistics of the operators of a [ProfiledPlan] during one evaluation of a query. */
+internal class QueryProfiler(private val plan: ProfiledPlan) {
+    private val counters = Array(plan.size) { OperatorCounters() }
+
+    fun invoked(id: Int) {
+        counters[id].invocations.incrementAndGet()
+    }
+
+    fun produced(id: Int, rows: Int, nanos: Long) {
+        val operator = counters[id]
+        operator.rows.addAndGet(rows.toLong())
+        operator.nanos.addAndGet(nanos)
+    }
+
+    fun elapsed(id: Int, nanos: Long) {
+        counters[id].nanos.addAndGet(nanos)
+    }
+
+    fun materialized(id: Int, rows: Long) {
+        counters[id].peakMaterializedRows.accumulateAndGet(rows) { peak, current -> maxOf(peak, current) }
+    }
+
+    /** Returns the statistics collected so far. */
+    fun profile(): QueryProfile = QueryProfile(plan.roots.map { it.toProfile() })
+
+    private fun ProfiledOperator.toProfile(): OperatorProfile {
+        val sources = node.sources()
+        val (inputs, subqueries) = children.partition { child -> sources.any { it === child.node } }
+        val operator = counters[id]
+        return OperatorProfile(
+            operator = node,
+            inputs = inputs.map { it.toProfile() },
+            subqueries = subqueries.map { it.toProfile() },
+            invocations = operator.invocations.get(),
+            rowsOut = operator.rows.get(),
+            elapsedNanos = operator.nanos.get(),
+            peakMaterializedRows = operator.peakMaterializedRows.get()
+        )
+    }
+
+    private fun PartiqlPhysical.Bexpr.sources(): List<PartiqlPhysical.Bexpr> = when (this) {
+        is PartiqlPhysical.Bexpr.Project, is PartiqlPhysical.Bexpr.Scan, is PartiqlPhysical.Bexpr.Unpivot -> emptyList()
+        is PartiqlPhysical.Bexpr.Filter -> listOf(source)
+        is PartiqlPhysical.Bexpr.Join -> listOf(left, right)
+        is PartiqlPhysical.Bexpr.Sort -> listOf(source)
+        is PartiqlPhysical.Bexpr.Aggregate -> listOf(source)
+        is PartiqlPhysical.Bexpr.Offset -> listOf(source)
+        is PartiqlPhysical.Bexpr.Limit -> listOf(source)
+        is PartiqlPhysical.Bexpr.Let -> listOf(source)
+        is PartiqlPhysical.Bexpr.Window -> listOf(source)
+    }
+}
+
+/**
+ * Records that the operator being evaluated holds [rows] rows in memory, e.g. the rows it sorts, such that the largest
+ * such number is reported as its [OperatorProfile.peakMaterializedRows].  Does nothing unless the query is profiled.
+ */
+internal fun EvaluatorState.recordMaterializedRows(rows: Int) {
+    val profiler = profiler ?: return
+    if (profiledOperator >= 0) {
+        profiler.materialized(profiledOperator, rows.toLong())
+    }
+}
+
+/**
+ * Wraps this [RelationExpressionAsync] such that the evaluations of the operator [id], the rows it produces and the
+ * time spent producing them are recorded by the [EvaluatorState.profiler], if any.
+ *
+ * While the operator is being evaluated, [EvaluatorState.profiledOperator] is [id], see [recordMaterializedRows].
+ */
+internal fun RelationExpressionAsync.profiled(id: Int): RelationExpressionAsync {
+    val expr = this
+    return when (expr) {
+        is BatchRelationExpressionAsync -> object : BatchRelationExpressionAsync {
+            override suspend fun evaluate(state: EvaluatorState): RelationIterator =
+                profileEvaluation(state, id) { expr.evaluate(state) }.profiled(state, id)
+
+            override suspend fun evaluateBatches(state: EvaluatorState): BatchRelationIterator =
+                profileEvaluation(state, id) { expr.evaluateBatches(state) }.profiled(state, id)
+        }
+        else -> RelationExpressionAsync { state ->
+            profileEvaluation(state, id) { expr.evaluate(state) }.profiled(state, id)
+        }
+    }
+}
+
+private inline fun <T> profileEvaluation(state: EvaluatorState, id: Int, evaluate: () -> T): T {
+    val profiler = state.profiler ?: return evaluate()
+    profiler.invoked(id)
+    return state.withProfiledOperator(id) {
+        val start = System.nanoTime()
+        try {
+            evaluate()
+        } finally {
+            profiler.elapsed(id, System.nanoTime() - start)
+        }
+    }
+}
+
+private inline fun <T> EvaluatorState.withProfiledOperator(id: Int, block: () -> T): T {
+    val previous = profiledOperator
+    profiledOperator = id
+    try {
+        return block()
+    } finally {
+        profiledOperator = previous
+    }
+}
+
+private fun RelationIterator.profiled(state: EvaluatorState, id: Int): RelationIterator {
+    val profiler = state.profiler ?: return this
+    val rows = this
+    return object : RelationIterator {
+        override val relType = rows.relType
+
+        override fun nextRow(): Boolean = state.withProfiledOperator(id) {
+            val start = System.nanoTime()
+            val found = rows.nextRow()
+            profiler.produced(id, if (found) 1 else 0, System.nanoTime() - start)
+            found
+        }
+    }
+}
+
+private fun BatchRelationIterator.profiled(state: EvaluatorState, id: Int): BatchRelationIterator {
+    val profiler = state.profiler ?: return this
+    val batches = this
+    return object : BatchRelationIterator {
+        override val relType = batches.relType
+
+        override suspend fun nextBatch(batch: RowBatch): Boolean = state.withProfiledOperator(id) {
+            val start = System.nanoTime()
+            val found = batches.nextBatch(batch)
+            profiler.produced(id, if (found) batch.size else 0, System.nanoTime() - start)
+            found
+        }
+    }
+}
@@ -11,7 +11,7 @@ import org.partiql.lang.eval.fillErrorContext
 import org.partiql.lang.eval.relation.RelationIterator
 
 /** A thunk that returns a [RelationIterator], which is the result of evaluating a relational operator. */
-@Deprecated("To be removed in the next major version.", replaceWith = ReplaceWith("RelationThunkEnvAsync"))
+@Deprecated("To be removed in the next major version.", replaceWith = ReplaceWith("RelationExpressionAsync"))
 internal typealias RelationThunkEnv = (EvaluatorState) -> RelationIterator
 
 /**
@@ -20,7 +20,7 @@ internal typealias RelationThunkEnv = (EvaluatorState) -> RelationIterator
  * This function is not currently in [ThunkFactory] to avoid complicating it further.  If a need arises, it could be
  * moved.
  */
-@Deprecated("To be removed in the next major version.", replaceWith = ReplaceWith("relationThunkAsync"))
+@Deprecated("To be removed in the next major version.", replaceWith = ReplaceWith("withErrorHandling"))
 internal inline fun relationThunk(metas: MetaContainer, crossinline t: RelationThunkEnv): RelationThunkEnv {
     val sourceLocationMeta = metas[SourceLocationMeta.TAG] as? SourceLocationMeta
     return { env: EvaluatorState ->
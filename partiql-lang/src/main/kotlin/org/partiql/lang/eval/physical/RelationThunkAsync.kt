@@ -8,38 +8,50 @@ import org.partiql.lang.eval.EvaluationException
 import org.partiql.lang.eval.ThunkFactory
 import org.partiql.lang.eval.errorContextFrom
 import org.partiql.lang.eval.fillErrorContext
+import org.partiql.lang.eval.physical.operators.BatchRelationExpressionAsync
+import org.partiql.lang.eval.physical.operators.RelationExpressionAsync
+import org.partiql.lang.eval.relation.BatchRelationIterator
 import org.partiql.lang.eval.relation.RelationIterator
 
-/** A thunk that returns a [RelationIterator], which is the result of evaluating a relational operator. */
-internal typealias RelationThunkEnvAsync = suspend (EvaluatorState) -> RelationIterator
-
 /**
- * Invokes [t] with error handling like is supplied by [ThunkFactory].
+ * Wraps this [RelationExpressionAsync] such that its evaluation has error handling like is supplied by
+ * [ThunkFactory].  The wrapper implements [BatchRelationExpressionAsync] if (and only if) this does.
  *
  * This function is not currently in [ThunkFactory] to avoid complicating it further.  If a need arises, it could be
  * moved.
  */
-internal suspend inline fun relationThunkAsync(metas: MetaContainer, crossinline t: RelationThunkEnvAsync): RelationThunkEnvAsync {
+internal fun RelationExpressionAsync.withErrorHandling(metas: MetaContainer): RelationExpressionAsync {
     val sourceLocationMeta = metas[SourceLocationMeta.TAG] as? SourceLocationMeta
-    return { env: EvaluatorState ->
-        try {
-            t(env)
-        } catch (e: EvaluationException) {
-            // Only add source location data to the error context if it doesn't already exist
-            // in [errorContext].
-            if (!e.errorContext.hasProperty(Property.LINE_NUMBER)) {
-                sourceLocationMeta?.let { fillErrorContext(e.errorContext, sourceLocationMeta) }
-            }
-            throw e
-        } catch (e: Exception) {
-            val message = e.message ?: "<NO MESSAGE>"
-            throw EvaluationException(
-                "Generic exception, $message",
-                errorCode = ErrorCode.EVALUATOR_GENERIC_EXCEPTION,
-                errorContext = errorContextFrom(sourceLocationMeta),
-                cause = e,
-                internal = true
-            )
+    val expr = this
+    return when (expr) {
+        is BatchRelationExpressionAsync -> object : BatchRelationExpressionAsync {
+            override suspend fun evaluate(state: EvaluatorState): RelationIterator =
+                handleErrors(sourceLocationMeta) { expr.evaluate(state) }
+
+            override suspend fun evaluateBatches(state: EvaluatorState): BatchRelationIterator =
+                handleErrors(sourceLocationMeta) { expr.evaluateBatches(state) }
         }
+        else -> RelationExpressionAsync { state -> handleErrors(sourceLocationMeta) { expr.evaluate(state) } }
     }
 }
+
+private inline fun <T> handleErrors(sourceLocationMeta: SourceLocationMeta?, block: () -> T): T =
+    try {
+        block()
+    } catch (e: EvaluationException) {
+        // Only add source location data to the error context if it doesn't already exist
+        // in [errorContext].
+        if (!e.errorContext.hasProperty(Property.LINE_NUMBER)) {
+            sourceLocationMeta?.let { fillErrorContext(e.errorContext, sourceLocationMeta) }
+        }
+        throw e
+    } catch (e: Exception) {
+        val message = e.message ?: "<NO MESSAGE>"
+        throw EvaluationException(
+            "Generic exception, $message",
+            errorCode = ErrorCode.EVALUATOR_GENERIC_EXCEPTION,
+            errorContext = errorContextFrom(sourceLocationMeta),
+            cause = e,
+            internal = true
+        )
+    }
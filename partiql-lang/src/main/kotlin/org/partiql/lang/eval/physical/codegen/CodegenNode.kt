@@ -0,0 +1,58 @@
+package org.partiql.lang.eval.physical.codegen
+
+import org.partiql.lang.ast.SourceLocationMeta
+import org.partiql.lang.eval.ExprValue
+import org.partiql.lang.eval.physical.PhysicalPlanThunk
+
+/**
+ * An expression lowered for the [ExpressionCodegen], by the compiler which also provides the semantics of its
+ * operators, such that the generated code evaluates it exactly as the thunks the compiler would have created.
+ */
+internal sealed class CodegenNode {
+
+    /** A literal [value]. */
+    class Constant(val value: ExprValue) : CodegenNode()
+
+    /** Reads the register at [index] of the [org.partiql.lang.eval.physical.EvaluatorState]. */
+    class Register(val index: Int) : CodegenNode()
+
+    /** An expression which is not supported by the code generator, and which is evaluated by its [thunk] instead. */
+    class Fallback(val thunk: PhysicalPlanThunk) : CodegenNode()
+
+    /** The nodes with operands, for which exceptions are handled as by the thunks of the compiler. */
+    sealed class Operator : CodegenNode() {
+        abstract val operands: List<CodegenNode>
+        abstract val sourceLocation: SourceLocationMeta?
+    }
+
+    /**
+     * Folds the [operands] with [op] after propagating unknowns, as [org.partiql.lang.eval.ThunkFactory.thunkFold],
+     * e.g. for the arithmetic operators.
+     */
+    class Fold(
+        override val operands: List<CodegenNode>,
+        val op: (ExprValue, ExprValue) -> ExprValue,
+        override val sourceLocation: SourceLocationMeta?
+    ) : Operator()
+
+    /**
+     * Tests [op] on each pair of consecutive [operands] after propagating unknowns, as
+     * [org.partiql.lang.eval.ThunkFactory.thunkAndMap], e.g. for the comparison operators.
+     */
+    class AndMap(
+        override val operands: List<CodegenNode>,
+        val op: (ExprValue, ExprValue) -> Boolean,
+        override val sourceLocation: SourceLocationMeta?
+    ) : Operator()
+
+    /** The `NOT` operator. */
+    class Not(operand: CodegenNode, override val sourceLocation: SourceLocationMeta?) : Operator() {
+        override val operands = listOf(operand)
+    }
+
+    /** The `AND` operator, which short-circuits on `false`. */
+    class And(override val operands: List<CodegenNode>, override val sourceLocation: SourceLocationMeta?) : Operator()
+
+    /** The `OR` operator, which short-circuits on `true`. */
+    class Or(override val operands: List<CodegenNode>, override val sourceLocation: SourceLocationMeta?) : Operator()
+}
@@ -0,0 +1,452 @@
+package org.partiql.lang.eval.physical.codegen
+
+import org.objectweb.asm.ClassWriter
+import org.objectweb.asm.Label
+import org.objectweb.asm.MethodVisitor
+import org.objectweb.asm.Opcodes
+import org.objectweb.asm.Type
+import org.partiql.lang.ast.SourceLocationMeta
+import org.partiql.lang.eval.ExprValue
+import org.partiql.lang.eval.ThunkFactory
+import org.partiql.lang.eval.TypingMode
+import org.partiql.lang.eval.physical.EvaluatorState
+import org.partiql.lang.eval.physical.PhysicalPlanThunk
+import java.util.concurrent.atomic.AtomicLong
+
+/**
+ * Compiles an expression tree of operators to the bytecode of a single JVM class, instead of a tree of nested thunks.
+ *
+ * The thunks of an expression call each other through the same few lambda classes for every query, thus the JIT sees
+ * megamorphic call sites which it cannot inline.  In the generated class, each operator is a static method calling the
+ * methods of its operands directly, and the call sites of the operators provided by the compiler are unique to the
+ * expression: the JIT can inline the whole expression.
+ *
+ * The operators have the same semantics as the thunks of the compiler, from which the operations themselves (e.g. the
+ * addition of two values) are taken as [CodegenNode]s.  The operands which are not supported are evaluated by their
+ * thunks.
+ *
+ * Each class is defined by its own class loader, such that it is unloaded with the compiled expression.
+ */
+internal class ExpressionCodegen(
+    private val typingMode: TypingMode,
+    private val thunkFactory: ThunkFactory<EvaluatorState>
+) {
+    /**
+     * Returns an instance of the class generated for [root], or `null` if the class cannot be defined, e.g. when the
+     * security manager forbids creating class loaders, in which case the compiler falls back to thunks.
+     */
+    fun generate(root: CodegenNode.Operator): PhysicalPlanThunk? {
+        val generator = ClassGenerator("$PACKAGE/Expression\$${counter.incrementAndGet()}")
+        val bytes = generator.generate(root)
+        return try {
+            val loader = GeneratedClassLoader(GeneratedThunk::class.java.classLoader)
+            val generatedClass = loader.define(generator.className.replace('/', '.'), bytes)
+            generatedClass.getConstructor(GeneratedThunk.Resources::class.java)
+                .newInstance(generator.resources()) as GeneratedThunk
+        } catch (e: LinkageError) {
+            null
+        } catch (e: ReflectiveOperationException) {
+            null
+        } catch (e: SecurityException) {
+            null
+        }
+    }
+
+    private class GeneratedClassLoader(parent: ClassLoader) : ClassLoader(parent) {
+        fun define(name: String, bytes: ByteArray): Class<*> = defineClass(name, bytes, 0, bytes.size)
+    }
+
+    /** Generates the class of one expression, and collects the [resources] referenced by its code. */
+    private inner class ClassGenerator(val className: String) {
+        private val constants = mutableListOf<ExprValue>()
+        private val thunks = mutableListOf<PhysicalPlanThunk>()
+        private val folds = mutableListOf<(ExprValue, ExprValue) -> ExprValue>()
+        private val predicates = mutableListOf<(ExprValue, ExprValue) -> Boolean>()
+        private val sourceLocations = mutableListOf<SourceLocationMeta?>()
+
+        /** The operators whose method is yet to be generated, by index. */
+        private val pending = ArrayDeque<Pair<Int, CodegenNode.Operator>>()
+
+        // The generated classes only reference classes known to be unrelated, thus frames never merge distinct types.
+        private val writer = object : ClassWriter(COMPUTE_FRAMES) {
+            override fun getCommonSuperClass(type1: String, type2: String): String = OBJECT
+        }
+
+        fun resources() = GeneratedThunk.Resources(
+            constants = constants.toTypedArray(),
+            thunks = thunks.toTypedArray(),
+            folds = folds.toTypedArray(),
+            predicates = predicates.toTypedArray(),
+            sourceLocations = sourceLocations.toTypedArray(),
+            thunkFactory = thunkFactory
+        )
+
+        fun generate(root: CodegenNode.Operator): ByteArray {
+            writer.visit(
+                Opcodes.V1_8,
+                Opcodes.ACC_PUBLIC or Opcodes.ACC_FINAL or Opcodes.ACC_SUPER,
+                className,
+                null,
+                BASE,
+                null
+            )
+            generateConstructor()
+            generateInvoke(operatorIndex(root))
+            while (pending.isNotEmpty()) {
+                val (index, operator) = pending.removeFirst()
+                generateOperator(index, operator)
+            }
+            writer.visitEnd()
+            return writer.toByteArray()
+        }
+
+        private fun generateConstructor() {
+            val mv = writer.visitMethod(Opcodes.ACC_PUBLIC, "<init>", CONSTRUCTOR_DESCRIPTOR, null, null)
+            mv.visitCode()
+            mv.visitVarInsn(Opcodes.ALOAD, 0)
+            mv.visitVarInsn(Opcodes.ALOAD, 1)
+            mv.visitMethodInsn(Opcodes.INVOKESPECIAL, BASE, "<init>", CONSTRUCTOR_DESCRIPTOR, false)
+            mv.visitInsn(Opcodes.RETURN)
+            mv.visitMaxs(0, 0)
+            mv.visitEnd()
+        }
+
+        private fun generateInvoke(rootIndex: Int) {
+            val mv = writer.visitMethod(Opcodes.ACC_PUBLIC, "invoke", INVOKE_DESCRIPTOR, null, null)
+            mv.visitCode()
+            mv.visitVarInsn(Opcodes.ALOAD, 0)
+            mv.visitVarInsn(Opcodes.ALOAD, 1)
+            mv.visitMethodInsn(Opcodes.INVOKESTATIC, className, operatorMethod(rootIndex), OPERATOR_DESCRIPTOR, false)
+            mv.visitInsn(Opcodes.ARETURN)
+            mv.visitMaxs(0, 0)
+            mv.visitEnd()
+
+            // The erased `Function1.invoke`, which the callers of the thunk invoke.
+            val bridge = writer.visitMethod(
+                Opcodes.ACC_PUBLIC or Opcodes.ACC_BRIDGE or Opcodes.ACC_SYNTHETIC,
+                "invoke",
+                FUNCTION1_DESCRIPTOR,
+                null,
+                null
+            )
+            bridge.visitCode()
+            bridge.visitVarInsn(Opcodes.ALOAD, 0)
+            bridge.visitVarInsn(Opcodes.ALOAD, 1)
+            bridge.visitTypeInsn(Opcodes.CHECKCAST, Type.getInternalName(EvaluatorState::class.java))
+            bridge.visitMethodInsn(Opcodes.INVOKEVIRTUAL, className, "invoke", INVOKE_DESCRIPTOR, false)
+            bridge.visitInsn(Opcodes.ARETURN)
+            bridge.visitMaxs(0, 0)
+            bridge.visitEnd()
+        }
+
+        /** Assigns the index of [operator], which names its method and indexes its source location. */
+        private fun operatorIndex(operator: CodegenNode.Operator): Int {
+            val index = sourceLocations.size
+            sourceLocations.add(operator.sourceLocation)
+            pending.add(index to operator)
+            return index
+        }
+
+        /**
+         * Generates `private static ExprValue op<index>(GeneratedThunk self, EvaluatorState state)`, whose body is
+         * guarded as [ThunkFactory.thunkEnv] guards the thunks of the compiler.
+         */
+        private fun generateOperator(index: Int, operator: CodegenNode.Operator) {
+            val mv = writer.visitMethod(
+                Opcodes.ACC_PRIVATE or Opcodes.ACC_STATIC,
+                operatorMethod(index),
+                OPERATOR_DESCRIPTOR,
+                null,
+                null
+            )
+            mv.visitCode()
+            val start = Label()
+            val end = Label()
+            val handler = Label()
+            mv.visitTryCatchBlock(start, end, handler, EXCEPTION)
+            mv.visitLabel(start)
+            when (operator) {
+                is CodegenNode.Fold -> generateFold(mv, operator)
+                is CodegenNode.AndMap -> generateAndMap(mv, operator)
+                is CodegenNode.Not -> generateNot(mv, operator)
+                is CodegenNode.And -> generateLogical(mv, operator.operands, shortCircuit = false)
+                is CodegenNode.Or -> generateLogical(mv, operator.operands, shortCircuit = true)
+            }
+            mv.visitLabel(end)
+            mv.visitLabel(handler)
+            mv.visitVarInsn(Opcodes.ASTORE, FIRST_LOCAL)
+            mv.visitVarInsn(Opcodes.ALOAD, SELF)
+            mv.visitVarInsn(Opcodes.ALOAD, FIRST_LOCAL)
+            pushInt(mv, index)
+            mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, BASE, "handleException", HANDLE_EXCEPTION_DESCRIPTOR, false)
+            mv.visitInsn(Opcodes.ARETURN)
+            mv.visitMaxs(0, 0)
+            mv.visitEnd()
+        }
+
+        /** See [org.partiql.lang.eval.LegacyThunkFactory.thunkFold] and its permissive counterpart. */
+        private fun generateFold(mv: MethodVisitor, fold: CodegenNode.Fold) {
+            val op = folds.size
+            folds.add(fold.op)
+            val acc = FIRST_LOCAL
+            when (typingMode) {
+                TypingMode.LEGACY -> {
+                    val current = FIRST_LOCAL + 1
+                    generateOperand(mv, fold.operands.first())
+                    mv.visitVarInsn(Opcodes.ASTORE, acc)
+                    returnIf(mv, acc, "isUnknown", "nullValue")
+                    fold.operands.drop(1).forEach { operand ->
+                        generateOperand(mv, operand)
+                        mv.visitVarInsn(Opcodes.ASTORE, current)
+                        returnIf(mv, current, "isUnknown", "nullValue")
+                        generateFoldOp(mv, op, acc, current)
+                        mv.visitVarInsn(Opcodes.ASTORE, acc)
+                    }
+                }
+                TypingMode.PERMISSIVE -> {
+                    val values = generatePermissiveOperands(mv, fold.operands)
+                    values.drop(1).forEach { value ->
+                        generateFoldOp(mv, op, acc, value)
+                        mv.visitVarInsn(Opcodes.ASTORE, acc)
+                    }
+                }
+            }
+            mv.visitVarInsn(Opcodes.ALOAD, acc)
+            mv.visitInsn(Opcodes.ARETURN)
+        }
+
+        /** See [org.partiql.lang.eval.LegacyThunkFactory.thunkAndMap] and its permissive counterpart. */
+        private fun generateAndMap(mv: MethodVisitor, andMap: CodegenNode.AndMap) {
+            val op = predicates.size
+            predicates.add(andMap.op)
+            when (typingMode) {
+                TypingMode.LEGACY -> {
+                    val last = FIRST_LOCAL
+                    val current = FIRST_LOCAL + 1
+                    generateOperand(mv, andMap.operands.first())
+                    mv.visitVarInsn(Opcodes.ASTORE, last)
+                    returnIf(mv, last, "isUnknown", "nullValue")
+                    andMap.operands.drop(1).forEach { operand ->
+                        generateOperand(mv, operand)
+                        mv.visitVarInsn(Opcodes.ASTORE, current)
+                        returnIf(mv, current, "isUnknown", "nullValue")
+                        generatePredicateOp(mv, op, last, current)
+                        mv.visitVarInsn(Opcodes.ALOAD, current)
+                        mv.visitVarInsn(Opcodes.ASTORE, last)
+                    }
+                }
+                TypingMode.PERMISSIVE -> {
+                    val values = generatePermissiveOperands(mv, andMap.operands)
+                    values.zipWithNext().forEach { (left, right) -> generatePredicateOp(mv, op, left, right) }
+                }
+            }
+            mv.visitInsn(Opcodes.ICONST_1)
+            mv.visitMethodInsn(Opcodes.INVOKESTATIC, INTRINSICS, "newBoolean", NEW_BOOLEAN_DESCRIPTOR, false)
+            mv.visitInsn(Opcodes.ARETURN)
+        }
+
+        /** See [ThunkFactory.thunkEnvOperands] with one operand. */
+        private fun generateNot(mv: MethodVisitor, not: CodegenNode.Not) {
+            val value = FIRST_LOCAL
+            generateOperand(mv, not.operands.single())
+            mv.visitVarInsn(Opcodes.ASTORE, value)
+            when (typingMode) {
+                TypingMode.LEGACY -> returnIf(mv, value, "isUnknown", "nullValue")
+                TypingMode.PERMISSIVE -> {
+                    returnIf(mv, value, "isMissing", "missingValue")
+                    returnIf(mv, value, "isNull", "nullValue")
+                }
+            }
+            mv.visitVarInsn(Opcodes.ALOAD, value)
+            mv.visitMethodInsn(Opcodes.INVOKESTATIC, INTRINSICS, "not", UNARY_DESCRIPTOR, false)
+            mv.visitInsn(Opcodes.ARETURN)
+        }
+
+        /**
+         * Generates `AND` (which returns `false` on the first `false` operand) or `OR` (which returns `true` on the
+         * first `true` operand), where [shortCircuit] is the value of the operand on which it returns.
+         */
+        private fun generateLogical(mv: MethodVisitor, operands: List<CodegenNode>, shortCircuit: Boolean) {
+            val term = FIRST_LOCAL
+            val terms = FIRST_LOCAL + 1
+            val termFunction = when (typingMode) {
+                TypingMode.LEGACY -> "legacyTerm"
+                TypingMode.PERMISSIVE -> "permissiveTerm"
+            }
+            mv.visitInsn(Opcodes.ICONST_0)
+            mv.visitVarInsn(Opcodes.ISTORE, terms)
+            operands.forEach { operand ->
+                generateOperand(mv, operand)
+                mv.visitMethodInsn(Opcodes.INVOKESTATIC, INTRINSICS, termFunction, TERM_DESCRIPTOR, false)
+                mv.visitVarInsn(Opcodes.ISTORE, term)
+                val next = Label()
+                mv.visitVarInsn(Opcodes.ILOAD, term)
+                pushInt(mv, if (shortCircuit) CodegenIntrinsics.TRUE else CodegenIntrinsics.FALSE)
+                mv.visitJumpInsn(Opcodes.IF_ICMPNE, next)
+                mv.visitInsn(if (shortCircuit) Opcodes.ICONST_1 else Opcodes.ICONST_0)
+                mv.visitMethodInsn(Opcodes.INVOKESTATIC, INTRINSICS, "newBoolean", NEW_BOOLEAN_DESCRIPTOR, false)
+                mv.visitInsn(Opcodes.ARETURN)
+                mv.visitLabel(next)
+                // terms |= 1 << term
+                mv.visitInsn(Opcodes.ICONST_1)
+                mv.visitVarInsn(Opcodes.ILOAD, term)
+                mv.visitInsn(Opcodes.ISHL)
+                mv.visitVarInsn(Opcodes.ILOAD, terms)
+                mv.visitInsn(Opcodes.IOR)
+                mv.visitVarInsn(Opcodes.ISTORE, terms)
+            }
+            mv.visitVarInsn(Opcodes.ILOAD, terms)
+            mv.visitInsn(if (shortCircuit) Opcodes.ICONST_0 else Opcodes.ICONST_1)
+            mv.visitMethodInsn(Opcodes.INVOKESTATIC, INTRINSICS, "logicalResult", LOGICAL_RESULT_DESCRIPTOR, false)
+            mv.visitInsn(Opcodes.ARETURN)
+        }
+
+        /**
+         * Evaluates the [operands] in order into consecutive locals, as the permissive
+         * [org.partiql.lang.eval.ThunkFactory.thunkFold] and [org.partiql.lang.eval.ThunkFactory.thunkAndMap] do: it
+         * returns `MISSING` on the first `MISSING` operand without evaluating the operands after it, and once all the
+         * operands are evaluated, returns `NULL` if any of them is `NULL`.  Returns the locals.
+         */
+        private fun generatePermissiveOperands(mv: MethodVisitor, operands: List<CodegenNode>): List<Int> {
+            val values = operands.indices.map { FIRST_LOCAL + it }
+            operands.zip(values).forEach { (operand, value) ->
+                generateOperand(mv, operand)
+                mv.visitVarInsn(Opcodes.ASTORE, value)
+                returnIf(mv, value, "isMissing", "missingValue")
+            }
+            values.forEach { value -> returnIf(mv, value, "isNull", "nullValue") }
+            return values
+        }
+
+        /** Returns the value of the intrinsic [result] if the intrinsic [test] of the local [value] is true. */
+        private fun returnIf(mv: MethodVisitor, value: Int, test: String, result: String) {
+            val next = Label()
+            mv.visitVarInsn(Opcodes.ALOAD, value)
+            mv.visitMethodInsn(Opcodes.INVOKESTATIC, INTRINSICS, test, TEST_DESCRIPTOR, false)
+            mv.visitJumpInsn(Opcodes.IFEQ, next)
+            mv.visitMethodInsn(Opcodes.INVOKESTATIC, INTRINSICS, result, VALUE_DESCRIPTOR, false)
+            mv.visitInsn(Opcodes.ARETURN)
+            mv.visitLabel(next)
+        }
+
+        /** Pushes `folds[op](left, right)`. */
+        private fun generateFoldOp(mv: MethodVisitor, op: Int, left: Int, right: Int) {
+            loadElement(mv, "folds", FUNCTION2_ARRAY, op)
+            mv.visitVarInsn(Opcodes.ALOAD, left)
+            mv.visitVarInsn(Opcodes.ALOAD, right)
+            mv.visitMethodInsn(Opcodes.INVOKEINTERFACE, FUNCTION2, "invoke", FUNCTION2_DESCRIPTOR, true)
+            mv.visitTypeInsn(Opcodes.CHECKCAST, EXPR_VALUE)
+        }
+
+        /** Returns `false` unless `predicates[op](left, right)`. */
+        private fun generatePredicateOp(mv: MethodVisitor, op: Int, left: Int, right: Int) {
+            val next = Label()
+            loadElement(mv, "predicates", FUNCTION2_ARRAY, op)
+            mv.visitVarInsn(Opcodes.ALOAD, left)
+            mv.visitVarInsn(Opcodes.ALOAD, right)
+            mv.visitMethodInsn(Opcodes.INVOKEINTERFACE, FUNCTION2, "invoke", FUNCTION2_DESCRIPTOR, true)
+            mv.visitTypeInsn(Opcodes.CHECKCAST, BOOLEAN)
+            mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, BOOLEAN, "booleanValue", "()Z", false)
+            mv.visitJumpInsn(Opcodes.IFNE, next)
+            mv.visitInsn(Opcodes.ICONST_0)
+            mv.visitMethodInsn(Opcodes.INVOKESTATIC, INTRINSICS, "newBoolean", NEW_BOOLEAN_DESCRIPTOR, false)
+            mv.visitInsn(Opcodes.ARETURN)
+            mv.visitLabel(next)
+        }
+
+        /** Pushes the value of [operand]. */
+        private fun generateOperand(mv: MethodVisitor, operand: CodegenNode) {
+            when (operand) {
+                is CodegenNode.Constant -> {
+                    loadElement(mv, "constants", EXPR_VALUE_ARRAY, constants.size)
+                    constants.add(operand.value)
+                }
+                is CodegenNode.Register -> {
+                    mv.visitVarInsn(Opcodes.ALOAD, STATE)
+                    pushInt(mv, operand.index)
+                    mv.visitMethodInsn(Opcodes.INVOKESTATIC, INTRINSICS, "register", REGISTER_DESCRIPTOR, false)
+                }
+                is CodegenNode.Fallback -> {
+                    loadElement(mv, "thunks", FUNCTION1_ARRAY, thunks.size)
+                    thunks.add(operand.thunk)
+                    mv.visitVarInsn(Opcodes.ALOAD, STATE)
+                    mv.visitMethodInsn(Opcodes.INVOKEINTERFACE, FUNCTION1, "invoke", FUNCTION1_DESCRIPTOR, true)
+                    mv.visitTypeInsn(Opcodes.CHECKCAST, EXPR_VALUE)
+                }
+                is CodegenNode.Operator -> {
+                    val index = operatorIndex(operand)
+                    mv.visitVarInsn(Opcodes.ALOAD, SELF)
+                    mv.visitVarInsn(Opcodes.ALOAD, STATE)
+                    mv.visitMethodInsn(
+                        Opcodes.INVOKESTATIC, className, operatorMethod(index), OPERATOR_DESCRIPTOR, false
+                    )
+                }
+            }
+        }
+
+        /** Pushes `self.<field>[index]`. */
+        private fun loadElement(mv: MethodVisitor, field: String, descriptor: String, index: Int) {
+            mv.visitVarInsn(Opcodes.ALOAD, SELF)
+            mv.visitFieldInsn(Opcodes.GETFIELD, BASE, field, descriptor)
+            pushInt(mv, index)
+            mv.visitInsn(Opcodes.AALOAD)
+        }
+
+        private fun pushInt(mv: MethodVisitor, value: Int) {
+            when (value) {
+                in -1..5 -> mv.visitInsn(Opcodes.ICONST_0 + value)
+                in Byte.MIN_VALUE..Byte.MAX_VALUE -> mv.visitIntInsn(Opcodes.BIPUSH, value)
+                in Short.MIN_VALUE..Short.MAX_VALUE -> mv.visitIntInsn(Opcodes.SIPUSH, value)
+                else -> mv.visitLdcInsn(value)
+            }
+        }
+
+        private fun operatorMethod(index: Int) = "op$index"
+    }
+
+    companion object {
+        private val counter = AtomicLong()
+
+        /** The locals of the operator methods. */
+        private const val SELF = 0
+        private const val STATE = 1
+        private const val FIRST_LOCAL = 2
+
+        private val PACKAGE = Type.getInternalName(GeneratedThunk::class.java).substringBeforeLast('/')
+        private val BASE = Type.getInternalName(GeneratedThunk::class.java)
+        private val INTRINSICS = Type.getInternalName(CodegenIntrinsics::class.java)
+        private val OBJECT = Type.getInternalName(Any::class.java)
+        private val BOOLEAN = Type.getInternalName(Boolean::class.javaObjectType)
+        private val EXCEPTION = Type.getInternalName(Exception::class.java)
+        private val EXPR_VALUE = Type.getInternalName(ExprValue::class.java)
+        private val FUNCTION1 = Type.getInternalName(Function1::class.java)
+        private val FUNCTION2 = Type.getInternalName(Function2::class.java)
+
+        private val EXPR_VALUE_TYPE = Type.getType(ExprValue::class.java)
+        private val STATE_TYPE = Type.getType(EvaluatorState::class.java)
+        private val OBJECT_TYPE = Type.getType(Any::class.java)
+
+        private val EXPR_VALUE_ARRAY = Type.getDescriptor(Array<ExprValue>::class.java)
+        private val FUNCTION1_ARRAY = Type.getDescriptor(Array<Function1<*, *>>::class.java)
+        private val FUNCTION2_ARRAY = Type.getDescriptor(Array<Function2<*, *, *>>::class.java)
+
+        private val CONSTRUCTOR_DESCRIPTOR =
+            Type.getMethodDescriptor(Type.VOID_TYPE, Type.getType(GeneratedThunk.Resources::class.java))
+        private val INVOKE_DESCRIPTOR = Type.getMethodDescriptor(EXPR_VALUE_TYPE, STATE_TYPE)
+        private val OPERATOR_DESCRIPTOR =
+            Type.getMethodDescriptor(EXPR_VALUE_TYPE, Type.getType(GeneratedThunk::class.java), STATE_TYPE)
+        private val HANDLE_EXCEPTION_DESCRIPTOR =
+            Type.getMethodDescriptor(EXPR_VALUE_TYPE, Type.getType(Exception::class.java), Type.INT_TYPE)
+        private val FUNCTION1_DESCRIPTOR = Type.getMethodDescriptor(OBJECT_TYPE, OBJECT_TYPE)
+        private val FUNCTION2_DESCRIPTOR = Type.getMethodDescriptor(OBJECT_TYPE, OBJECT_TYPE, OBJECT_TYPE)
+
+        private val REGISTER_DESCRIPTOR = Type.getMethodDescriptor(EXPR_VALUE_TYPE, STATE_TYPE, Type.INT_TYPE)
+        private val TEST_DESCRIPTOR = Type.getMethodDescriptor(Type.BOOLEAN_TYPE, EXPR_VALUE_TYPE)
+        private val VALUE_DESCRIPTOR = Type.getMethodDescriptor(EXPR_VALUE_TYPE)
+        private val NEW_BOOLEAN_DESCRIPTOR = Type.getMethodDescriptor(EXPR_VALUE_TYPE, Type.BOOLEAN_TYPE)
+        private val UNARY_DESCRIPTOR = Type.getMethodDescriptor(EXPR_VALUE_TYPE, EXPR_VALUE_TYPE)
+        private val TERM_DESCRIPTOR = Type.getMethodDescriptor(Type.INT_TYPE, EXPR_VALUE_TYPE)
+        private val LOGICAL_RESULT_DESCRIPTOR =
+            Type.getMethodDescriptor(EXPR_VALUE_TYPE, Type.INT_TYPE, Type.BOOLEAN_TYPE)
+    }
+}
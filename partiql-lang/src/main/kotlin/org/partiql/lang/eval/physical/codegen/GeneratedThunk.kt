@@ -0,0 +1,117 @@
+package org.partiql.lang.eval.physical.codegen
+
+import org.partiql.lang.ast.SourceLocationMeta
+import org.partiql.lang.eval.ExprValue
+import org.partiql.lang.eval.ExprValueType
+import org.partiql.lang.eval.ThunkFactory
+import org.partiql.lang.eval.booleanValue
+import org.partiql.lang.eval.physical.EvaluatorState
+import org.partiql.lang.eval.physical.PhysicalPlanThunk
+
+/**
+ * The base class of the classes generated by [ExpressionCodegen], which implement [invoke].
+ *
+ * The values that the generated code cannot embed as constants are held by the fields of this class, and are
+ * referenced by their index in these arrays.  They are public since the generated classes are defined by another
+ * class loader, and thus belong to another runtime package.
+ */
+internal abstract class GeneratedThunk(resources: Resources) : PhysicalPlanThunk {
+
+    /** The values of the fields of a [GeneratedThunk], collected while its class is generated. */
+    class Resources(
+        val constants: Array<ExprValue>,
+        val thunks: Array<PhysicalPlanThunk>,
+        val folds: Array<(ExprValue, ExprValue) -> ExprValue>,
+        val predicates: Array<(ExprValue, ExprValue) -> Boolean>,
+        val sourceLocations: Array<SourceLocationMeta?>,
+        val thunkFactory: ThunkFactory<EvaluatorState>
+    )
+
+    @JvmField
+    val constants: Array<ExprValue> = resources.constants
+
+    @JvmField
+    val thunks: Array<PhysicalPlanThunk> = resources.thunks
+
+    @JvmField
+    val folds: Array<(ExprValue, ExprValue) -> ExprValue> = resources.folds
+
+    @JvmField
+    val predicates: Array<(ExprValue, ExprValue) -> Boolean> = resources.predicates
+
+    private val sourceLocations = resources.sourceLocations
+    private val thunkFactory = resources.thunkFactory
+
+    abstract override fun invoke(state: EvaluatorState): ExprValue
+
+    /**
+     * Handles the exception thrown by the evaluation of the operator [node], as the thunk created by the compiler
+     * for this operator would: e.g. returns `MISSING` in [org.partiql.lang.eval.TypingMode.PERMISSIVE].
+     */
+    fun handleException(e: Exception, node: Int): ExprValue =
+        thunkFactory.handleException(sourceLocations[node]) { throw e }
+}
+
+/**
+ * The functions invoked by the classes generated by [ExpressionCodegen], which would be verbose to generate.  The JIT
+ * inlines these small static functions in the generated code.
+ */
+internal object CodegenIntrinsics {
+    /** A value of `AND` and `OR` operands, see [legacyTerm] and [permissiveTerm]. */
+    const val FALSE = 0
+    const val TRUE = 1
+    const val NULL = 2
+    const val MISSING = 3
+
+    @JvmStatic
+    fun register(state: EvaluatorState, index: Int): ExprValue = state.registers[index]
+
+    @JvmStatic
+    fun isUnknown(value: ExprValue): Boolean = value.type.isUnknown
+
+    @JvmStatic
+    fun isMissing(value: ExprValue): Boolean = value.type == ExprValueType.MISSING
+
+    @JvmStatic
+    fun isNull(value: ExprValue): Boolean = value.type == ExprValueType.NULL
+
+    @JvmStatic
+    fun nullValue(): ExprValue = ExprValue.nullValue
+
+    @JvmStatic
+    fun missingValue(): ExprValue = ExprValue.missingValue
+
+    @JvmStatic
+    fun newBoolean(value: Boolean): ExprValue = ExprValue.newBoolean(value)
+
+    @JvmStatic
+    fun not(value: ExprValue): ExprValue = ExprValue.newBoolean(!value.booleanValue())
+
+    /** Classifies an operand of `AND` and `OR` in [org.partiql.lang.eval.TypingMode.LEGACY]. */
+    @JvmStatic
+    fun legacyTerm(value: ExprValue): Int = when {
+        value.type.isUnknown -> NULL
+        value.booleanValue() -> TRUE
+        else -> FALSE
+    }
+
+    /** Classifies an operand of `AND` and `OR` in [org.partiql.lang.eval.TypingMode.PERMISSIVE]. */
+    @JvmStatic
+    fun permissiveTerm(value: ExprValue): Int = when (value.type) {
+        ExprValueType.BOOL -> if (value.booleanValue()) TRUE else FALSE
+        ExprValueType.NULL -> NULL
+        // type mismatch
+        else -> MISSING
+    }
+
+    /**
+     * Returns the value of an `AND` or `OR` which did not short-circuit, where bit `1 << term` of [terms] is set for
+     * each term of its operands.
+     */
+    @JvmStatic
+    fun logicalResult(terms: Int, default: Boolean): ExprValue = when {
+        terms and (1 shl MISSING) != 0 -> ExprValue.missingValue
+        terms and (1 shl NULL) != 0 -> ExprValue.nullValue
+        else -> ExprValue.newBoolean(default)
+    }
+}
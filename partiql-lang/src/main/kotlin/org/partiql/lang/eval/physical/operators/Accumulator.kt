@@ -18,7 +18,9 @@ import org.partiql.errors.ErrorCode
 import org.partiql.lang.domains.PartiqlPhysical
 import org.partiql.lang.eval.ExprAggregator
 import org.partiql.lang.eval.ExprValue
+import org.partiql.lang.eval.ExprValueKey
 import org.partiql.lang.eval.ExprValueType
+import org.partiql.lang.eval.MemoryReservation
 import org.partiql.lang.eval.NaturalExprValueComparators
 import org.partiql.lang.eval.booleanValue
 import org.partiql.lang.eval.createUniqueExprValueFilter
@@ -34,9 +36,21 @@ internal sealed class Accumulator(
     internal open val filter: (ExprValue) -> Boolean
 ) : ExprAggregator {
     companion object {
-        internal fun create(funcName: String, quantifier: PartiqlPhysical.SetQuantifier): Accumulator {
+        /**
+         * Creates the accumulator of the aggregate function [funcName].  The values retained by the accumulator (the
+         * distinct values seen by a `DISTINCT` aggregate and the values of a `GROUP AS`) are reserved in [memory].
+         */
+        internal fun create(
+            funcName: String,
+            quantifier: PartiqlPhysical.SetQuantifier,
+            memory: MemoryReservation = MemoryReservation.NONE
+        ): Accumulator {
             val filter = when (quantifier) {
-                is PartiqlPhysical.SetQuantifier.Distinct -> createUniqueExprValueFilter()
+                is PartiqlPhysical.SetQuantifier.Distinct -> {
+                    val unique = createUniqueExprValueFilter()
+                    val distinct = { value: ExprValue -> unique(value).also { if (it) memory.add(value) } }
+                    distinct
+                }
                 is PartiqlPhysical.SetQuantifier.All -> { _: ExprValue -> true }
             }
             return when (funcName.trim().lowercase()) {
@@ -45,7 +59,7 @@ internal sealed class Accumulator(
                 "avg" -> AccumulatorAvg(filter)
                 "count" -> AccumulatorCount(filter)
                 "sum" -> AccumulatorSum(filter)
-                "group_as" -> AccumulatorGroupAs(filter)
+                "group_as" -> AccumulatorGroupAs(filter, memory)
                 "every" -> AccumulatorEvery(filter)
                 "any" -> AccumulatorAnySome(filter)
                 "some" -> AccumulatorAnySome(filter)
@@ -60,6 +74,33 @@ internal sealed class Accumulator(
     }
 
     abstract fun nextValue(value: ExprValue)
+
+    /**
+     * Merges [other], an accumulator of the same aggregate function that accumulated a disjoint subset of the values,
+     * into this accumulator.  This is used to combine the partial aggregates computed for each partition of a parallel
+     * aggregation.
+     *
+     * The values seen by the [filter] of [other] are not merged, thus accumulators with the `DISTINCT` quantifier
+     * cannot be merged.
+     */
+    abstract fun merge(other: Accumulator)
+}
+
+/**
+ * The groups of an aggregation: maps the values of the group keys of each group to the accumulators of its aggregate
+ * functions.
+ */
+internal typealias AggregationMap = LinkedHashMap<ExprValueKey, List<Accumulator>>
+
+/**
+ * Merges the groups of [other] into this map.  The accumulators of the groups present in both maps are merged, and
+ * the other groups are added after the groups of this map.
+ */
+internal fun AggregationMap.mergeWith(other: AggregationMap) {
+    other.forEach { (groupKey, accumulators) ->
+        val existing = putIfAbsent(groupKey, accumulators)
+        existing?.forEachIndexed { index, acc -> acc.merge(accumulators[index]) }
+    }
 }
 
 internal class AccumulatorSum(
@@ -74,6 +115,11 @@ internal class AccumulatorSum(
         this.sum = value.numberValue() + this.sum!!
     }
 
+    override fun merge(other: Accumulator) {
+        val otherSum = (other as AccumulatorSum).sum ?: return
+        this.sum = otherSum + (this.sum ?: 0L)
+    }
+
     override fun compute(): ExprValue {
         return sum?.exprValue() ?: ExprValue.nullValue
     }
@@ -92,6 +138,12 @@ internal class AccumulatorAvg(
         this.count += 1L
     }
 
+    override fun merge(other: Accumulator) {
+        other as AccumulatorAvg
+        this.sum += other.sum
+        this.count += other.count
+    }
+
     override fun compute(): ExprValue = when (count) {
         0L -> ExprValue.nullValue
         else -> (sum / bigDecimalOf(count)).exprValue()
@@ -108,6 +160,10 @@ internal class AccumulatorMax(
         max = comparisonAccumulator(NaturalExprValueComparators.NULLS_LAST_DESC)(max, value)
     }
 
+    override fun merge(other: Accumulator) {
+        nextValue((other as AccumulatorMax).max)
+    }
+
     override fun compute(): ExprValue = max
 }
 
@@ -121,6 +177,10 @@ internal class AccumulatorMin(
         min = comparisonAccumulator(NaturalExprValueComparators.NULLS_LAST_ASC)(min, value)
     }
 
+    override fun merge(other: Accumulator) {
+        nextValue((other as AccumulatorMin).min)
+    }
+
     override fun compute(): ExprValue = min
 }
 
@@ -134,6 +194,10 @@ internal class AccumulatorCount(
         this.count += 1L
     }
 
+    override fun merge(other: Accumulator) {
+        this.count += (other as AccumulatorCount).count
+    }
+
     override fun compute(): ExprValue = count.exprValue()
 }
 
@@ -147,6 +211,10 @@ internal class AccumulatorEvery(
         res = res?.let { ExprValue.newBoolean(it.booleanValue() && value.booleanValue()) } ?: value
     }
 
+    override fun merge(other: Accumulator) {
+        (other as AccumulatorEvery).res?.let { nextValue(it) }
+    }
+
     override fun compute(): ExprValue = res ?: ExprValue.nullValue
 }
 
@@ -160,19 +228,29 @@ internal class AccumulatorAnySome(
         res = res?.let { ExprValue.newBoolean(it.booleanValue() || value.booleanValue()) } ?: value
     }
 
+    override fun merge(other: Accumulator) {
+        (other as AccumulatorAnySome).res?.let { nextValue(it) }
+    }
+
     override fun compute(): ExprValue = res ?: ExprValue.nullValue
 }
 
 internal class AccumulatorGroupAs(
-    internal override val filter: (ExprValue) -> Boolean
+    internal override val filter: (ExprValue) -> Boolean,
+    private val memory: MemoryReservation = MemoryReservation.NONE
 ) : Accumulator(filter = filter) {
 
     val exprValues = mutableListOf<ExprValue>()
 
     override fun nextValue(value: ExprValue) {
+        memory.add(value)
         exprValues.add(value)
     }
 
+    override fun merge(other: Accumulator) {
+        exprValues.addAll((other as AccumulatorGroupAs).exprValues)
+    }
+
     override fun compute(): ExprValue = ExprValue.newBag(exprValues)
 }
 
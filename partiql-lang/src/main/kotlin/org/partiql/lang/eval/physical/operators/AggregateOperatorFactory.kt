@@ -14,15 +14,16 @@
 package org.partiql.lang.eval.physical.operators
 
 import org.partiql.lang.domains.PartiqlPhysical
-import org.partiql.lang.eval.DEFAULT_COMPARATOR
 import org.partiql.lang.eval.ExprValue
+import org.partiql.lang.eval.ExprValueKey
+import org.partiql.lang.eval.MemoryReservation
 import org.partiql.lang.eval.physical.EvaluatorState
 import org.partiql.lang.eval.physical.SetVariableFunc
 import org.partiql.lang.eval.relation.RelationIterator
+import org.partiql.lang.eval.relation.RelationScope
 import org.partiql.lang.eval.relation.RelationType
 import org.partiql.lang.eval.relation.relation
 import org.partiql.lang.planner.transforms.DEFAULT_IMPL_NAME
-import java.util.TreeMap
 
 /**
  * Provides an implementation of the [PartiqlPhysical.Bexpr.Aggregate] operator.
@@ -75,17 +76,28 @@ internal class AggregateOperatorDefault(
     val functions: List<CompiledAggregateFunction>
 ) : RelationExpression {
     override fun evaluate(state: EvaluatorState): RelationIterator = relation(RelationType.BAG) {
-        val aggregationMap = TreeMap<ExprValue, List<Accumulator>>(DEFAULT_COMPARATOR)
+        val memory = state.reserveMemory(this@AggregateOperatorDefault)
+        val aggregationMap = aggregate(source.evaluate(state), state, memory)
+        yieldGroups(this, aggregationMap, state)
+        memory.release()
+    }
+
+    /**
+     * Aggregates the rows of [rows], which are read into the registers of [state], into an [AggregationMap].  The group
+     * keys and the values retained by the accumulators are reserved in [memory].
+     */
+    fun aggregate(rows: RelationIterator, state: EvaluatorState, memory: MemoryReservation): AggregationMap {
+        val aggregationMap = AggregationMap()
 
-        val sourceIter = source.evaluate(state)
-        while (sourceIter.nextRow()) {
+        while (rows.nextRow()) {
 
             // Initialize the AggregationMap
             val evaluatedGroupByKeys =
                 keys.map { it.value.invoke(state) }.let { ExprValue.newList(it) }
-            val accumulators = aggregationMap.getOrPut(evaluatedGroupByKeys) {
+            val accumulators = aggregationMap.getOrPut(ExprValueKey(evaluatedGroupByKeys)) {
+                memory.add(evaluatedGroupByKeys)
                 functions.map { function ->
-                    Accumulator.create(function.name, function.quantifier)
+                    Accumulator.create(function.name, function.quantifier, memory)
                 }
             }
 
@@ -95,22 +107,26 @@ internal class AggregateOperatorDefault(
                 accumulators[index].next(valueToAggregate)
             }
         }
+        return aggregationMap
+    }
 
+    /** Yields one row per group of [aggregationMap] from [scope], setting the group keys and aggregates in [state]. */
+    suspend fun yieldGroups(scope: RelationScope, aggregationMap: AggregationMap, state: EvaluatorState) {
         // No Aggregations Created
         if (keys.isEmpty() && aggregationMap.isEmpty()) {
             functions.forEach { function ->
                 val accumulator = Accumulator.create(function.name, function.quantifier)
                 function.setAggregateVal(state, accumulator.compute())
             }
-            yield()
-            return@relation
+            scope.yield()
+            return
         }
 
         // Place Aggregated Values into Result State
-        aggregationMap.forEach { (exprList, accumulators) ->
-            exprList.forEachIndexed { index, exprValue -> keys[index].setGroupKeyVal(state, exprValue) }
+        aggregationMap.forEach { (groupKey, accumulators) ->
+            groupKey.value.forEachIndexed { index, exprValue -> keys[index].setGroupKeyVal(state, exprValue) }
             accumulators.forEachIndexed { index, acc -> functions[index].setAggregateVal(state, acc.compute()) }
-            yield()
+            scope.yield()
         }
     }
 }
@@ -14,15 +14,17 @@
 package org.partiql.lang.eval.physical.operators
 
 import org.partiql.lang.domains.PartiqlPhysical
-import org.partiql.lang.eval.DEFAULT_COMPARATOR
 import org.partiql.lang.eval.ExprValue
+import org.partiql.lang.eval.ExprValueKey
+import org.partiql.lang.eval.MemoryReservation
 import org.partiql.lang.eval.physical.EvaluatorState
 import org.partiql.lang.eval.physical.SetVariableFunc
+import org.partiql.lang.eval.physical.recordMaterializedRows
 import org.partiql.lang.eval.relation.RelationIterator
+import org.partiql.lang.eval.relation.RelationScope
 import org.partiql.lang.eval.relation.RelationType
 import org.partiql.lang.eval.relation.relation
 import org.partiql.lang.planner.transforms.DEFAULT_IMPL_NAME
-import java.util.TreeMap
 
 /**
  * Provides an implementation of the [PartiqlPhysical.Bexpr.Aggregate] operator.
@@ -70,18 +72,36 @@ internal class AggregateOperatorDefaultAsync(
     val keys: List<CompiledGroupKeyAsync>,
     val functions: List<CompiledAggregateFunctionAsync>
 ) : RelationExpressionAsync {
-    override suspend fun evaluate(state: EvaluatorState): RelationIterator = relation(RelationType.BAG) {
-        val aggregationMap = TreeMap<ExprValue, List<Accumulator>>(DEFAULT_COMPARATOR)
+    override suspend fun evaluate(state: EvaluatorState): RelationIterator {
+        val memory = state.reserveMemory(this@AggregateOperatorDefaultAsync)
+        val aggregationMap = aggregate(source, state, memory)
+        state.recordMaterializedRows(aggregationMap.size)
+        return relation(RelationType.BAG) {
+            yieldGroups(this, aggregationMap, state)
+            memory.release()
+        }
+    }
 
-        val sourceIter = source.evaluate(state)
-        while (sourceIter.nextRow()) {
+    /**
+     * Aggregates the rows of [rows], which are read in batches into the registers of [state], into an
+     * [AggregationMap].  The group keys and the values retained by the accumulators are reserved in [memory].
+     */
+    suspend fun aggregate(
+        rows: RelationExpressionAsync,
+        state: EvaluatorState,
+        memory: MemoryReservation
+    ): AggregationMap {
+        val aggregationMap = AggregationMap()
+
+        rows.forEachRow(state) {
 
             // Initialize the AggregationMap
             val evaluatedGroupByKeys =
                 keys.map { it.value.invoke(state) }.let { ExprValue.newList(it) }
-            val accumulators = aggregationMap.getOrPut(evaluatedGroupByKeys) {
+            val accumulators = aggregationMap.getOrPut(ExprValueKey(evaluatedGroupByKeys)) {
+                memory.add(evaluatedGroupByKeys)
                 functions.map { function ->
-                    Accumulator.create(function.name, function.quantifier)
+                    Accumulator.create(function.name, function.quantifier, memory)
                 }
             }
 
@@ -91,22 +111,26 @@ internal class AggregateOperatorDefaultAsync(
                 accumulators[index].next(valueToAggregate)
             }
         }
+        return aggregationMap
+    }
 
+    /** Yields one row per group of [aggregationMap] from [scope], setting the group keys and aggregates in [state]. */
+    suspend fun yieldGroups(scope: RelationScope, aggregationMap: AggregationMap, state: EvaluatorState) {
         // No Aggregations Created
         if (keys.isEmpty() && aggregationMap.isEmpty()) {
             functions.forEach { function ->
                 val accumulator = Accumulator.create(function.name, function.quantifier)
                 function.setAggregateVal(state, accumulator.compute())
             }
-            yield()
-            return@relation
+            scope.yield()
+            return
         }
 
         // Place Aggregated Values into Result State
-        aggregationMap.forEach { (exprList, accumulators) ->
-            exprList.forEachIndexed { index, exprValue -> keys[index].setGroupKeyVal(state, exprValue) }
+        aggregationMap.forEach { (groupKey, accumulators) ->
+            groupKey.value.forEachIndexed { index, exprValue -> keys[index].setGroupKeyVal(state, exprValue) }
             accumulators.forEachIndexed { index, acc -> functions[index].setAggregateVal(state, acc.compute()) }
-            yield()
+            scope.yield()
         }
     }
 }
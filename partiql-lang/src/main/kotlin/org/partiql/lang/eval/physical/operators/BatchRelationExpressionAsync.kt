@@ -0,0 +1,44 @@
+package org.partiql.lang.eval.physical.operators
+
+import org.partiql.lang.eval.physical.EvaluatorState
+import org.partiql.lang.eval.relation.BatchRelationIterator
+import org.partiql.lang.eval.relation.RelationIterator
+import org.partiql.lang.eval.relation.RowBatch
+import org.partiql.lang.eval.relation.toBatchRelationIterator
+
+/**
+ * A [RelationExpressionAsync] that can also produce its rows in batches, see [BatchRelationIterator].
+ *
+ * Operators supporting batches should implement this interface, and consume the rows of their inputs with
+ * [evaluateAsBatches].  The rows of a batch are processed without resuming a coroutine per row, which makes chains of
+ * batch operators (e.g. scan, filter and limit) cheaper to evaluate.  [evaluate] remains available for consumers which
+ * process rows one at a time.
+ */
+interface BatchRelationExpressionAsync : RelationExpressionAsync {
+    suspend fun evaluateBatches(state: EvaluatorState): BatchRelationIterator
+}
+
+/**
+ * Evaluates this [RelationExpressionAsync] as a [BatchRelationIterator], adapting its [RelationIterator] if it does
+ * not implement [BatchRelationExpressionAsync].
+ */
+suspend fun RelationExpressionAsync.evaluateAsBatches(state: EvaluatorState): BatchRelationIterator =
+    when (this) {
+        is BatchRelationExpressionAsync -> evaluateBatches(state)
+        else -> evaluate(state).toBatchRelationIterator(state)
+    }
+
+/**
+ * Evaluates this [RelationExpressionAsync] and calls [consume] once [state] is loaded with each of its rows, which are
+ * read in batches (see [evaluateAsBatches]).  This is how operators materializing their input (e.g. sorts) consume it.
+ */
+internal suspend fun RelationExpressionAsync.forEachRow(state: EvaluatorState, consume: suspend () -> Unit) {
+    val rows = evaluateAsBatches(state)
+    val batch = RowBatch()
+    while (rows.nextBatch(batch)) {
+        for (i in 0 until batch.size) {
+            state.load(batch[i])
+            consume()
+        }
+    }
+}
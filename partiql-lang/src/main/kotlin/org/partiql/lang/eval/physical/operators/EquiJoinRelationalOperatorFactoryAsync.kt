@@ -0,0 +1,65 @@
+package org.partiql.lang.eval.physical.operators
+
+import org.partiql.lang.domains.PartiqlPhysical
+import org.partiql.lang.eval.physical.BoundVariables
+import org.partiql.lang.eval.physical.EvaluatorState
+
+/**
+ * Provides an implementation of the [PartiqlPhysical.Bexpr.Join] operator for joins whose predicate contains at least
+ * one equality between an expression over the left side of the join and an expression over the right side (i.e. an
+ * equi-join).
+ *
+ * Instead of a single predicate, implementations are given the compiled expressions on both sides of each such
+ * equality as join keys, and the remaining conjuncts of the predicate as a residual predicate.
+ *
+ * If the predicate of the join does not contain any equi-join conjuncts, the compiler falls back to the inherited
+ * [JoinRelationalOperatorFactoryAsync.create] function, which by default creates a nested loop join.
+ *
+ * @param name
+ */
+abstract class EquiJoinRelationalOperatorFactoryAsync(name: String) : JoinRelationalOperatorFactoryAsync(name) {
+
+    /**
+     * Creates a [RelationExpressionAsync] instance for [PartiqlPhysical.Bexpr.Join].
+     *
+     * @param impl static arguments
+     * @param joinType inner, left, right, outer
+     * @param leftBexpr left-hand-side of the join
+     * @param rightBexpr right-hand-side of the join
+     * @param leftKeys the left-hand-side of each equi-join conjunct; references only variables of [leftBexpr]
+     * @param rightKeys the right-hand-side of each equi-join conjunct; references only variables of [rightBexpr]
+     * @param residualPredicateExpr the remaining conjuncts of the join condition, if any
+     * @param leftVariables the variables bound by [leftBexpr]
+     * @param rightVariables the variables bound by [rightBexpr]
+     * @return
+     */
+    abstract fun create(
+        impl: PartiqlPhysical.Impl,
+        joinType: PartiqlPhysical.JoinType,
+        leftBexpr: RelationExpressionAsync,
+        rightBexpr: RelationExpressionAsync,
+        leftKeys: List<ValueExpressionAsync>,
+        rightKeys: List<ValueExpressionAsync>,
+        residualPredicateExpr: ValueExpressionAsync?,
+        leftVariables: BoundVariables,
+        rightVariables: BoundVariables
+    ): RelationExpressionAsync
+
+    override fun create(
+        impl: PartiqlPhysical.Impl,
+        joinType: PartiqlPhysical.JoinType,
+        leftBexpr: RelationExpressionAsync,
+        rightBexpr: RelationExpressionAsync,
+        predicateExpr: ValueExpressionAsync?,
+        setLeftSideVariablesToNull: (EvaluatorState) -> Unit,
+        setRightSideVariablesToNull: (EvaluatorState) -> Unit
+    ): RelationExpressionAsync = JoinRelationalOperatorFactoryDefaultAsync.create(
+        impl = impl,
+        joinType = joinType,
+        leftBexpr = leftBexpr,
+        rightBexpr = rightBexpr,
+        predicateExpr = predicateExpr,
+        setLeftSideVariablesToNull = setLeftSideVariablesToNull,
+        setRightSideVariablesToNull = setRightSideVariablesToNull
+    )
+}
@@ -0,0 +1,75 @@
+package org.partiql.lang.eval.physical.operators
+
+import org.partiql.lang.domains.PartiqlPhysical
+import org.partiql.lang.eval.physical.EvaluatorState
+import org.partiql.lang.eval.relation.RelationIterator
+import org.partiql.lang.eval.relation.RelationType
+import org.partiql.lang.eval.relation.relation
+import org.partiql.lang.planner.transforms.optimizations.EXTERNAL_SORT_IMPL_NAME
+import java.io.File
+
+/**
+ * Provides an implementation of the [PartiqlPhysical.Bexpr.Sort] operator that performs an external merge sort, such
+ * that relations larger than the available heap can be sorted.
+ *
+ * At most [maxRowsInMemory] rows are buffered in memory.  When the buffer is full, it is sorted and written to a
+ * temporary file in the Ion binary format.  Once the input is exhausted, the temporary files are merged while they are
+ * read.  Relations containing values of type `GRAPH` are not spilled once such a value is found, thus they are
+ * only sorted if they fit in the memory budget of the query.
+ *
+ * This implementation is not part of the default operator implementations; it must be supplied to
+ * [org.partiql.lang.compiler.PartiQLCompilerAsyncBuilder.customOperatorFactories] and is selected by
+ * [org.partiql.lang.planner.transforms.optimizations.createSortToExternalSortPass].
+ *
+ * @param maxRowsInMemory the maximum number of rows to buffer in memory before spilling them to a temporary file.
+ * @param tempDirectory the directory in which temporary files are created, or `null` to use the default temporary
+ * directory.
+ */
+class ExternalSortOperatorFactoryAsync(
+    private val maxRowsInMemory: Int = DEFAULT_EXTERNAL_SORT_MAX_ROWS_IN_MEMORY,
+    private val tempDirectory: File? = null
+) : SortOperatorFactoryAsync(EXTERNAL_SORT_IMPL_NAME) {
+
+    init {
+        require(maxRowsInMemory > 0) { "maxRowsInMemory must be greater than zero" }
+    }
+
+    override fun create(
+        sortKeys: List<CompiledSortKeyAsync>,
+        sourceRelation: RelationExpressionAsync
+    ): RelationExpressionAsync = ExternalSortOperatorAsync(sortKeys, sourceRelation, maxRowsInMemory, tempDirectory)
+}
+
+internal class ExternalSortOperatorAsync(
+    private val sortKeys: List<CompiledSortKeyAsync>,
+    private val sourceRelation: RelationExpressionAsync,
+    private val maxRowsInMemory: Int,
+    private val tempDirectory: File?
+) : RelationExpressionAsync {
+    override suspend fun evaluate(state: EvaluatorState): RelationIterator {
+        val memory = state.reserveMemory(this@ExternalSortOperatorAsync)
+        val sorter = ExternalSorter(sortKeys.map { it.comparator }, maxRowsInMemory, tempDirectory, memory)
+
+        // Consume Input
+        try {
+            sourceRelation.forEachRow(state) {
+                val keys = Array(sortKeys.size) { sortKeys[it].value(state) }
+                sorter.add(SortRow(keys, state.registers.clone()))
+            }
+        } catch (e: Throwable) {
+            sorter.close()
+            throw e
+        }
+
+        // Yield Sorted Rows
+        return relation(RelationType.LIST) {
+            sorter.use {
+                val iterator = it.sortedRows()
+                while (iterator.hasNext()) {
+                    state.load(iterator.next().registers)
+                    yield()
+                }
+            }
+        }
+    }
+}
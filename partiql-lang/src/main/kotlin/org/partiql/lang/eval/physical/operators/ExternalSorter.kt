@@ -0,0 +1,304 @@
+package org.partiql.lang.eval.physical.operators
+
+import com.amazon.ion.IonReader
+import com.amazon.ion.IonSystem
+import com.amazon.ion.IonType
+import com.amazon.ion.IonWriter
+import com.amazon.ion.system.IonSystemBuilder
+import org.partiql.errors.ErrorCode
+import org.partiql.lang.eval.Addressed
+import org.partiql.lang.eval.ExprValue
+import org.partiql.lang.eval.ExprValueType
+import org.partiql.lang.eval.MemoryReservation
+import org.partiql.lang.eval.NaturalExprValueComparators
+import org.partiql.lang.eval.StructOrdering
+import org.partiql.lang.eval.address
+import org.partiql.lang.eval.errNoContext
+import org.partiql.lang.eval.name
+import org.partiql.lang.eval.namedValue
+import org.partiql.lang.eval.orderedNames
+import org.partiql.lang.eval.toIonValue
+import org.partiql.lang.util.downcast
+import java.io.BufferedInputStream
+import java.io.BufferedOutputStream
+import java.io.Closeable
+import java.io.File
+import java.io.IOException
+import java.util.PriorityQueue
+
+/** The default value of the `maxRowsInMemory` parameter of [ExternalSortOperatorFactoryAsync]. */
+const val DEFAULT_EXTERNAL_SORT_MAX_ROWS_IN_MEMORY: Int = 100_000
+
+/**
+ * A row to be sorted: the values of its sort keys, which are evaluated only once, and the registers of the row.
+ */
+internal class SortRow(val keys: Array<ExprValue>, val registers: Array<ExprValue>)
+
+/** Returns a [Comparator] of [SortRow]s that compares their sort keys with the corresponding [comparators]. */
+internal fun sortRowComparator(comparators: List<NaturalExprValueComparators>) = Comparator<SortRow> { l, r ->
+    comparators.forEachIndexed { index, comparator ->
+        val cmp = comparator.compare(l.keys[index], r.keys[index])
+        if (cmp != 0) {
+            return@Comparator cmp
+        }
+    }
+    0
+}
+
+/**
+ * Sorts rows with an external merge sort, i.e. using at most [maxRowsInMemory] rows of heap (plus one row per sorted run
+ * during the merge).
+ *
+ * Rows are buffered until [maxRowsInMemory] is reached, at which point the buffer is sorted and written to a temporary
+ * file (a sorted run) in the Ion binary format.  Once all rows have been [add]ed, the runs are merged by [sortedRows]
+ * with a k-way merge that reads each run sequentially.  If the rows never exceed [maxRowsInMemory], no file is
+ * created and the rows are sorted entirely in memory.
+ *
+ * The sort is stable: rows with equal sort keys are returned in the order in which they were added.
+ *
+ * The values written to a sorted run are read back with their type, their name and address (e.g. the names of the
+ * fields of a struct and the ordinals of the elements of a list), and the ordering of structs.  Values of type `GRAPH`
+ * cannot be written to a sorted run, thus once a run containing such a value would be written, the sorter stops
+ * spilling and keeps all the remaining rows in memory.
+ *
+ * The buffered rows are reserved in [memory], and they are also spilled when reserving another row would exceed the
+ * memory budget of the query.  The budget is only exceeded when a single row does not fit in it.
+ *
+ * [close] must be called once the sorted rows are no longer needed to delete the temporary files.
+ */
+internal class ExternalSorter(
+    comparators: List<NaturalExprValueComparators>,
+    private val maxRowsInMemory: Int,
+    private val tempDirectory: File?,
+    private val memory: MemoryReservation = MemoryReservation.NONE
+) : Closeable {
+
+    init {
+        require(maxRowsInMemory > 0) { "maxRowsInMemory must be greater than zero" }
+    }
+
+    private val rowComparator = sortRowComparator(comparators)
+
+    private val buffer = ArrayList<SortRow>()
+    private val runs = ArrayList<File>()
+    private val readers = ArrayList<Closeable>()
+
+    /** False once the buffered rows could not be written to a sorted run, after which they are kept in memory. */
+    private var spillable = true
+
+    /**
+     * Adds a row to be sorted, spilling the buffered rows to a sorted run if [maxRowsInMemory] is reached or if the row
+     * does not fit in the memory budget.
+     */
+    fun add(row: SortRow) {
+        if (!memory.tryAdd(row.registers)) {
+            if (buffer.isNotEmpty()) {
+                spill()
+            }
+            memory.add(row.registers)
+        }
+        buffer.add(row)
+        if (buffer.size >= maxRowsInMemory) {
+            spill()
+        }
+    }
+
+    /** Returns an iterator over the added rows, in sorted order. */
+    fun sortedRows(): Iterator<SortRow> {
+        buffer.sortWith(rowComparator)
+        if (runs.isEmpty()) {
+            return buffer.iterator()
+        }
+        // The rows which have not been spilled are the last run.
+        val sources = runs.map { readRun(it) } + buffer.iterator()
+        return mergeRuns(sources)
+    }
+
+    override fun close() {
+        readers.forEach { it.close() }
+        readers.clear()
+        runs.forEach { it.delete() }
+        runs.clear()
+        buffer.clear()
+        memory.release()
+    }
+
+    private fun spill() {
+        if (!spillable) {
+            return
+        }
+        buffer.sortWith(rowComparator)
+        if (buffer.any { row -> row.keys.any(::containsGraph) || row.registers.any(::containsGraph) }) {
+            // The buffered rows, which are sorted, and the rows added afterwards are the last run.
+            spillable = false
+            return
+        }
+        val file = try {
+            File.createTempFile("partiql-sort-", ".ion", tempDirectory).also { it.deleteOnExit() }
+        } catch (e: IOException) {
+            errNoContext(
+                "Unable to create a temporary file for sorting: ${e.message}",
+                errorCode = ErrorCode.EVALUATOR_GENERIC_EXCEPTION,
+                internal = false
+            )
+        }
+        runs.add(file)
+        ION.newBinaryWriter(BufferedOutputStream(file.outputStream())).use { writer ->
+            buffer.forEach { row ->
+                writer.stepIn(IonType.LIST)
+                writer.writeValues(row.keys)
+                writer.writeValues(row.registers)
+                writer.stepOut()
+            }
+        }
+        buffer.clear()
+        memory.release()
+    }
+
+    private fun IonWriter.writeValues(values: Array<ExprValue>) {
+        stepIn(IonType.LIST)
+        values.forEach { writeValue(it) }
+        stepOut()
+    }
+
+    /** True if [value] is or contains a value of type `GRAPH`, which cannot be written to a sorted run. */
+    private fun containsGraph(value: ExprValue): Boolean = when (value.type) {
+        ExprValueType.GRAPH -> true
+        ExprValueType.LIST, ExprValueType.SEXP, ExprValueType.BAG, ExprValueType.STRUCT -> value.any(::containsGraph)
+        else -> false
+    }
+
+    /**
+     * Writes [value], which does not contain a `GRAPH`, as a struct holding its type (`t`), whether it is an ordered
+     * struct (`o`), its content (`v`), and its name (`n`) and address (`a`) if any.  The elements of containers and the
+     * fields of structs are written likewise, such that no Ion annotation is interpreted when they are read by
+     * [readValue].
+     */
+    private fun IonWriter.writeValue(value: ExprValue) {
+        stepIn(IonType.STRUCT)
+        setFieldName("t")
+        writeSymbol(value.type.name)
+        when (value.type) {
+            ExprValueType.LIST, ExprValueType.SEXP, ExprValueType.BAG, ExprValueType.STRUCT -> {
+                if (value.type == ExprValueType.STRUCT && value.orderedNames != null) {
+                    setFieldName("o")
+                    writeBool(true)
+                }
+                setFieldName("v")
+                stepIn(IonType.LIST)
+                value.forEach { writeValue(it) }
+                stepOut()
+            }
+            else -> {
+                setFieldName("v")
+                value.toIonValue(ION).writeTo(this)
+            }
+        }
+        value.name?.let {
+            setFieldName("n")
+            writeValue(it)
+        }
+        value.address?.let {
+            setFieldName("a")
+            writeValue(it)
+        }
+        stepOut()
+    }
+
+    private fun readRun(file: File): Iterator<SortRow> {
+        val reader: IonReader = ION.newReader(BufferedInputStream(file.inputStream()))
+        readers.add(reader)
+        return generateSequence {
+            when (reader.next()) {
+                null -> null
+                else -> {
+                    reader.stepIn()
+                    reader.next()
+                    val keys = reader.readValues()
+                    reader.next()
+                    val registers = reader.readValues()
+                    reader.stepOut()
+                    SortRow(keys, registers)
+                }
+            }
+        }.iterator()
+    }
+
+    private fun IonReader.readValues(): Array<ExprValue> {
+        val values = ArrayList<ExprValue>()
+        stepIn()
+        while (next() != null) {
+            values.add(readValue())
+        }
+        stepOut()
+        return values.toTypedArray()
+    }
+
+    /** Reads a value written by [writeValue]. */
+    private fun IonReader.readValue(): ExprValue {
+        var type = ExprValueType.MISSING
+        var ordering = StructOrdering.UNORDERED
+        var value = ExprValue.missingValue
+        var name: ExprValue? = null
+        var address: ExprValue? = null
+        stepIn()
+        while (next() != null) {
+            when (fieldName) {
+                "t" -> type = ExprValueType.valueOf(stringValue())
+                "o" -> ordering = StructOrdering.ORDERED
+                "v" -> value = when (type) {
+                    ExprValueType.LIST -> ExprValue.newList(readValues().asIterable())
+                    ExprValueType.SEXP -> ExprValue.newSexp(readValues().asIterable())
+                    ExprValueType.BAG -> ExprValue.newBag(readValues().asIterable())
+                    ExprValueType.STRUCT -> ExprValue.newStruct(readValues().asIterable(), ordering)
+                    else -> ExprValue.of(ION.newValue(this))
+                }
+                "n" -> name = readValue()
+                "a" -> address = readValue()
+            }
+        }
+        stepOut()
+        val addressed = address?.let { AddressedExprValue(it, value) } ?: value
+        return name?.let { addressed.namedValue(it) } ?: addressed
+    }
+
+    /**
+     * Merges the sorted [sources] with a priority queue holding the current row of each source.  Ties are broken by
+     * the index of the source, which keeps the merge stable since earlier sources contain earlier rows.
+     */
+    private fun mergeRuns(sources: List<Iterator<SortRow>>): Iterator<SortRow> {
+        class Head(val row: SortRow, val source: Int)
+
+        val queue = PriorityQueue<Head>(sources.size.coerceAtLeast(1)) { l, r ->
+            val cmp = rowComparator.compare(l.row, r.row)
+            if (cmp != 0) cmp else l.source.compareTo(r.source)
+        }
+        sources.forEachIndexed { index, source ->
+            if (source.hasNext()) {
+                queue.add(Head(source.next(), index))
+            }
+        }
+        return iterator {
+            while (queue.isNotEmpty()) {
+                val head = queue.poll()
+                val source = sources[head.source]
+                if (source.hasNext()) {
+                    queue.add(Head(source.next(), head.source))
+                }
+                yield(head.row)
+            }
+        }
+    }
+
+    /** A value read from a sorted run, with the address it had when it was written. */
+    private class AddressedExprValue(
+        override val address: ExprValue,
+        val value: ExprValue
+    ) : ExprValue by value, Addressed {
+        override fun <T : Any?> asFacet(type: Class<T>?): T? = downcast(type) ?: value.asFacet(type)
+    }
+
+    private companion object {
+        val ION: IonSystem = IonSystemBuilder.standard().build()
+    }
+}
@@ -4,8 +4,10 @@ import org.partiql.lang.domains.PartiqlPhysical
 import org.partiql.lang.eval.booleanValue
 import org.partiql.lang.eval.isNotUnknown
 import org.partiql.lang.eval.physical.EvaluatorState
+import org.partiql.lang.eval.relation.BatchRelationIterator
 import org.partiql.lang.eval.relation.RelationIterator
 import org.partiql.lang.eval.relation.RelationType
+import org.partiql.lang.eval.relation.batchRelation
 import org.partiql.lang.eval.relation.relation
 import org.partiql.lang.planner.transforms.DEFAULT_IMPL_NAME
 
@@ -49,7 +51,7 @@ internal object FilterRelationalOperatorFactoryDefaultAsync : FilterRelationalOp
 internal class SelectOperatorDefaultAsync(
     val input: RelationExpressionAsync,
     val predicate: ValueExpressionAsync,
-) : RelationExpressionAsync {
+) : BatchRelationExpressionAsync {
 
     override suspend fun evaluate(state: EvaluatorState): RelationIterator {
         val input = input.evaluate(state)
@@ -66,4 +68,26 @@ internal class SelectOperatorDefaultAsync(
             }
         }
     }
+
+    override suspend fun evaluateBatches(state: EvaluatorState): BatchRelationIterator {
+        val input = input.evaluateAsBatches(state)
+        return batchRelation(RelationType.BAG) { batch ->
+            var hasRows = false
+            // Keep reading batches until at least one row matches, or the input is exhausted.
+            while (!hasRows && input.nextBatch(batch)) {
+                // Move the matching rows to the front of the batch, preserving their order.
+                var matching = 0
+                for (i in 0 until batch.size) {
+                    state.load(batch[i])
+                    val matches = predicate.invoke(state)
+                    if (matches.isNotUnknown() && matches.booleanValue()) {
+                        batch.swap(i, matching++)
+                    }
+                }
+                batch.truncate(matching)
+                hasRows = matching > 0
+            }
+            hasRows
+        }
+    }
 }
@@ -0,0 +1,192 @@
+package org.partiql.lang.eval.physical.operators
+
+import org.partiql.lang.domains.PartiqlPhysical
+import org.partiql.lang.eval.ExprValue
+import org.partiql.lang.eval.MemoryReservation
+import org.partiql.lang.eval.booleanValue
+import org.partiql.lang.eval.exprEquals
+import org.partiql.lang.eval.exprHashCode
+import org.partiql.lang.eval.isNotUnknown
+import org.partiql.lang.eval.isUnknown
+import org.partiql.lang.eval.physical.BoundVariables
+import org.partiql.lang.eval.physical.EvaluatorState
+import org.partiql.lang.eval.relation.RelationType
+import org.partiql.lang.eval.relation.relation
+import org.partiql.lang.planner.transforms.optimizations.HASH_JOIN_IMPL_NAME
+
+/**
+ * Provides a hash join implementation of the [PartiqlPhysical.Bexpr.Join] operator.
+ *
+ * The rows of one side of the join (the build side) are materialized into a hash table keyed on the values of the
+ * equi-join keys of that side.  The other side (the probe side) is streamed and each of its rows is matched against
+ * the hash table using its own key values.  The residual predicate, if any, is applied to each matched pair of rows.
+ *
+ * For `INNER` and `LEFT` joins the right side is the build side; for `RIGHT` joins the left side is the build side,
+ * such that the side whose rows are preserved by the outer join is always the probe side.
+ *
+ * This implementation is selected by [org.partiql.lang.planner.transforms.optimizations.createEquiJoinToHashJoinPass].
+ */
+internal object HashJoinRelationalOperatorFactory : EquiJoinRelationalOperatorFactory(HASH_JOIN_IMPL_NAME) {
+    override fun create(
+        impl: PartiqlPhysical.Impl,
+        joinType: PartiqlPhysical.JoinType,
+        leftBexpr: RelationExpression,
+        rightBexpr: RelationExpression,
+        leftKeys: List<ValueExpression>,
+        rightKeys: List<ValueExpression>,
+        residualPredicateExpr: ValueExpression?,
+        leftVariables: BoundVariables,
+        rightVariables: BoundVariables
+    ): RelationExpression = when (joinType) {
+        is PartiqlPhysical.JoinType.Inner -> {
+            HashJoinOperator(
+                probe = leftBexpr,
+                probeKeys = leftKeys,
+                build = rightBexpr,
+                buildKeys = rightKeys,
+                buildVariables = rightVariables,
+                residual = residualPredicateExpr?.closure() ?: { true },
+                preserveProbeRows = false
+            )
+        }
+        is PartiqlPhysical.JoinType.Left -> {
+            HashJoinOperator(
+                probe = leftBexpr,
+                probeKeys = leftKeys,
+                build = rightBexpr,
+                buildKeys = rightKeys,
+                buildVariables = rightVariables,
+                residual = residualPredicateExpr?.closure() ?: { true },
+                preserveProbeRows = true
+            )
+        }
+        is PartiqlPhysical.JoinType.Right -> {
+            HashJoinOperator(
+                probe = rightBexpr,
+                probeKeys = rightKeys,
+                build = leftBexpr,
+                buildKeys = leftKeys,
+                buildVariables = leftVariables,
+                residual = residualPredicateExpr?.closure() ?: { true },
+                preserveProbeRows = true
+            )
+        }
+        is PartiqlPhysical.JoinType.Full -> TODO("Full join")
+    }
+
+    private fun ValueExpression.closure() = { state: EvaluatorState ->
+        val v = invoke(state)
+        v.isNotUnknown() && v.booleanValue()
+    }
+}
+
+/**
+ * See specification 5.6
+ *
+ * @param preserveProbeRows when true, probe rows without any match are emitted once with the variables of the build
+ * side set to `NULL` (i.e. the probe side is the preserved side of an outer join).
+ */
+private class HashJoinOperator(
+    private val probe: RelationExpression,
+    private val probeKeys: List<ValueExpression>,
+    private val build: RelationExpression,
+    private val buildKeys: List<ValueExpression>,
+    private val buildVariables: BoundVariables,
+    private val residual: (EvaluatorState) -> Boolean,
+    private val preserveProbeRows: Boolean
+) : RelationExpression {
+
+    override fun evaluate(state: EvaluatorState) = relation(RelationType.BAG) {
+        val memory = state.reserveMemory(this@HashJoinOperator)
+        val probeItr = probe.evaluate(state)
+        var hashTable: Map<HashJoinKey, List<Array<ExprValue>>>? = null
+        while (probeItr.nextRow()) {
+            // The build side is only evaluated once the probe side is known to have at least one row, which mirrors
+            // the nested loop implementation.
+            val table = hashTable ?: buildHashTable(state, memory).also { hashTable = it }
+            val matches = HashJoinKey.of(state, probeKeys)?.let { table[it] }
+            var yieldedSomething = false
+            if (matches != null) {
+                for (row in matches) {
+                    buildVariables.restore(state, row)
+                    if (residual(state)) {
+                        yield()
+                        yieldedSomething = true
+                    }
+                }
+            }
+            if (!yieldedSomething && preserveProbeRows) {
+                buildVariables.setToNull(state)
+                yield()
+            }
+        }
+        memory.release()
+    }
+
+    /** Reads the rows of the build side into a hash table, reserving them in [memory]. */
+    private fun buildHashTable(
+        state: EvaluatorState,
+        memory: MemoryReservation
+    ): Map<HashJoinKey, List<Array<ExprValue>>> {
+        val table = HashMap<HashJoinKey, MutableList<Array<ExprValue>>>()
+        val buildItr = build.evaluate(state)
+        while (buildItr.nextRow()) {
+            // Rows with a NULL or MISSING key can never satisfy the equi-join predicate.
+            val key = HashJoinKey.of(state, buildKeys) ?: continue
+            val row = buildVariables.capture(state)
+            memory.add(row)
+            table.getOrPut(key) { ArrayList(1) }.add(row)
+        }
+        return table
+    }
+}
+
+/**
+ * The values of the equi-join keys of a row, usable as the key of a hash table.
+ *
+ * Two [HashJoinKey]s are equal when all of their values are equal according to [exprEquals], which is how the `=`
+ * operator compares values that are not `NULL` or `MISSING`.
+ */
+internal class HashJoinKey(private val values: Array<ExprValue>) {
+
+    private val hashCode = values.fold(1) { acc, value -> 31 * acc + value.exprHashCode() }
+
+    override fun hashCode(): Int = hashCode
+
+    override fun equals(other: Any?): Boolean {
+        if (other !is HashJoinKey || other.hashCode != hashCode || other.values.size != values.size) {
+            return false
+        }
+        return values.indices.all { values[it].exprEquals(other.values[it]) }
+    }
+
+    companion object {
+        /** Evaluates [keys], returning `null` if any of the key values is `NULL` or `MISSING`. */
+        fun of(state: EvaluatorState, keys: List<ValueExpression>): HashJoinKey? {
+            val values = arrayOfNulls<ExprValue>(keys.size)
+            keys.forEachIndexed { i, key ->
+                val value = key(state)
+                if (value.isUnknown()) {
+                    return null
+                }
+                values[i] = value
+            }
+            @Suppress("UNCHECKED_CAST")
+            return HashJoinKey(values as Array<ExprValue>)
+        }
+
+        /** Evaluates [keys], returning `null` if any of the key values is `NULL` or `MISSING`. */
+        suspend fun ofAsync(state: EvaluatorState, keys: List<ValueExpressionAsync>): HashJoinKey? {
+            val values = arrayOfNulls<ExprValue>(keys.size)
+            keys.forEachIndexed { i, key ->
+                val value = key(state)
+                if (value.isUnknown()) {
+                    return null
+                }
+                values[i] = value
+            }
+            @Suppress("UNCHECKED_CAST")
+            return HashJoinKey(values as Array<ExprValue>)
+        }
+    }
+}
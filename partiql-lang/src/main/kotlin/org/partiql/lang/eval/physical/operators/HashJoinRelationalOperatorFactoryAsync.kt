@@ -0,0 +1,157 @@
+package org.partiql.lang.eval.physical.operators
+
+import org.partiql.lang.domains.PartiqlPhysical
+import org.partiql.lang.eval.ExprValue
+import org.partiql.lang.eval.MemoryReservation
+import org.partiql.lang.eval.booleanValue
+import org.partiql.lang.eval.isNotUnknown
+import org.partiql.lang.eval.physical.BoundVariables
+import org.partiql.lang.eval.physical.EvaluatorState
+import org.partiql.lang.eval.physical.recordMaterializedRows
+import org.partiql.lang.eval.physical.start
+import org.partiql.lang.eval.relation.RelationIterator
+import org.partiql.lang.eval.relation.RelationType
+import org.partiql.lang.eval.relation.relation
+import org.partiql.lang.planner.transforms.optimizations.HASH_JOIN_IMPL_NAME
+
+/**
+ * Provides a hash join implementation of the [PartiqlPhysical.Bexpr.Join] operator.
+ *
+ * The rows of one side of the join (the build side) are materialized into a hash table keyed on the values of the
+ * equi-join keys of that side.  The other side (the probe side) is streamed and each of its rows is matched against
+ * the hash table using its own key values.  The residual predicate, if any, is applied to each matched pair of rows.
+ *
+ * For `INNER` and `LEFT` joins the right side is the build side; for `RIGHT` joins the left side is the build side,
+ * such that the side whose rows are preserved by the outer join is always the probe side.
+ *
+ * When concurrent execution is enabled (see [org.partiql.lang.compiler.PartiQLCompilerAsyncBuilder.concurrentExecution]),
+ * the build side is evaluated on the dispatcher while the probe side is evaluated (e.g. while the value scanned by the
+ * probe side is computed).
+ *
+ * This implementation is selected by [org.partiql.lang.planner.transforms.optimizations.createEquiJoinToHashJoinPass].
+ */
+internal object HashJoinRelationalOperatorFactoryAsync : EquiJoinRelationalOperatorFactoryAsync(HASH_JOIN_IMPL_NAME) {
+    override fun create(
+        impl: PartiqlPhysical.Impl,
+        joinType: PartiqlPhysical.JoinType,
+        leftBexpr: RelationExpressionAsync,
+        rightBexpr: RelationExpressionAsync,
+        leftKeys: List<ValueExpressionAsync>,
+        rightKeys: List<ValueExpressionAsync>,
+        residualPredicateExpr: ValueExpressionAsync?,
+        leftVariables: BoundVariables,
+        rightVariables: BoundVariables
+    ): RelationExpressionAsync = when (joinType) {
+        is PartiqlPhysical.JoinType.Inner -> {
+            HashJoinOperatorAsync(
+                probe = leftBexpr,
+                probeKeys = leftKeys,
+                build = rightBexpr,
+                buildKeys = rightKeys,
+                buildVariables = rightVariables,
+                residual = residualPredicateExpr?.closure() ?: { true },
+                preserveProbeRows = false
+            )
+        }
+        is PartiqlPhysical.JoinType.Left -> {
+            HashJoinOperatorAsync(
+                probe = leftBexpr,
+                probeKeys = leftKeys,
+                build = rightBexpr,
+                buildKeys = rightKeys,
+                buildVariables = rightVariables,
+                residual = residualPredicateExpr?.closure() ?: { true },
+                preserveProbeRows = true
+            )
+        }
+        is PartiqlPhysical.JoinType.Right -> {
+            HashJoinOperatorAsync(
+                probe = rightBexpr,
+                probeKeys = rightKeys,
+                build = leftBexpr,
+                buildKeys = leftKeys,
+                buildVariables = leftVariables,
+                residual = residualPredicateExpr?.closure() ?: { true },
+                preserveProbeRows = true
+            )
+        }
+        is PartiqlPhysical.JoinType.Full -> TODO("Full join")
+    }
+
+    private fun ValueExpressionAsync.closure(): suspend (EvaluatorState) -> Boolean = { state: EvaluatorState ->
+        val v = invoke(state)
+        v.isNotUnknown() && v.booleanValue()
+    }
+}
+
+/**
+ * See specification 5.6
+ *
+ * @param preserveProbeRows when true, probe rows without any match are emitted once with the variables of the build
+ * side set to `NULL` (i.e. the probe side is the preserved side of an outer join).
+ */
+private class HashJoinOperatorAsync(
+    private val probe: RelationExpressionAsync,
+    private val probeKeys: List<ValueExpressionAsync>,
+    private val build: RelationExpressionAsync,
+    private val buildKeys: List<ValueExpressionAsync>,
+    private val buildVariables: BoundVariables,
+    private val residual: suspend (EvaluatorState) -> Boolean,
+    private val preserveProbeRows: Boolean
+) : RelationExpressionAsync {
+
+    override suspend fun evaluate(state: EvaluatorState): RelationIterator {
+        // The build side is evaluated with its own copy of the state, whose variables are restored from the captured
+        // rows as they are matched.
+        val memory = state.reserveMemory(this@HashJoinOperatorAsync)
+        val pendingHashTable = state.start { buildHashTable(it, memory) }
+        val probeItr = probe.evaluate(state)
+        // The rows are yielded by a coroutine which cannot suspend, thus a build side started concurrently is awaited
+        // once the probe side is evaluated.
+        val startedHashTable = pendingHashTable?.await()
+        return relation(RelationType.BAG) {
+            var hashTable: Map<HashJoinKey, List<Array<ExprValue>>>? = null
+            while (probeItr.nextRow()) {
+                // The build side is only evaluated once the probe side is known to have at least one row, which
+                // mirrors the nested loop implementation.  When it was started concurrently, its result (or its error)
+                // is only used in this case.
+                val table = hashTable
+                    ?: (startedHashTable?.getOrThrow() ?: buildHashTable(state, memory)).also { hashTable = it }
+                val matches = HashJoinKey.ofAsync(state, probeKeys)?.let { table[it] }
+                var yieldedSomething = false
+                if (matches != null) {
+                    for (row in matches) {
+                        buildVariables.restore(state, row)
+                        if (residual(state)) {
+                            yield()
+                            yieldedSomething = true
+                        }
+                    }
+                }
+                if (!yieldedSomething && preserveProbeRows) {
+                    buildVariables.setToNull(state)
+                    yield()
+                }
+            }
+            memory.release()
+        }
+    }
+
+    /** Reads the rows of the build side into a hash table, reserving them in [memory]. */
+    private suspend fun buildHashTable(
+        state: EvaluatorState,
+        memory: MemoryReservation
+    ): Map<HashJoinKey, List<Array<ExprValue>>> {
+        val table = HashMap<HashJoinKey, MutableList<Array<ExprValue>>>()
+        val buildItr = build.evaluate(state)
+        while (buildItr.nextRow()) {
+            // Rows with a NULL or MISSING key can never satisfy the equi-join predicate.
+            val key = HashJoinKey.ofAsync(state, buildKeys) ?: continue
+            val row = buildVariables.capture(state)
+            memory.add(row)
+            table.getOrPut(key) { ArrayList(1) }.add(row)
+        }
+        state.recordMaterializedRows(table.values.sumOf { it.size })
+        return table
+    }
+}
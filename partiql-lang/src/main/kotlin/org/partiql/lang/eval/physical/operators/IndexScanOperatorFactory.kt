@@ -0,0 +1,47 @@
+package org.partiql.lang.eval.physical.operators
+
+import org.partiql.lang.domains.PartiqlPhysical
+import org.partiql.lang.eval.physical.EvaluatorState
+import org.partiql.lang.eval.physical.IndexRegistry
+import org.partiql.lang.eval.physical.SetVariableFunc
+import org.partiql.lang.eval.relation.RelationIterator
+import org.partiql.lang.eval.relation.RelationType
+import org.partiql.lang.eval.relation.relation
+import org.partiql.lang.planner.transforms.optimizations.INDEX_SCAN_IMPL_NAME
+
+/**
+ * Provides the index scan implementation of the [PartiqlPhysical.Bexpr.Project] operator, which binds the rows of a
+ * table found with one of its indexes in [registry].  If the index is not registered, all of the rows of the table are
+ * read instead.
+ *
+ * This implementation is not part of the default operator implementations; it must be supplied to
+ * [org.partiql.lang.compiler.PartiQLCompilerBuilder.customOperatorFactories] and is selected by
+ * [org.partiql.lang.planner.transforms.optimizations.createFilterScanToIndexScanPass].
+ *
+ * @param registry the indexes of the tables.
+ */
+@Deprecated("To be removed in the next major version.", replaceWith = ReplaceWith("IndexScanOperatorFactoryAsync"))
+class IndexScanOperatorFactory(
+    private val registry: IndexRegistry
+) : ProjectRelationalOperatorFactory(INDEX_SCAN_IMPL_NAME) {
+
+    @Deprecated("To be removed in the next major version.", replaceWith = ReplaceWith("IndexScanOperatorFactoryAsync.create"))
+    override fun create(
+        impl: PartiqlPhysical.Impl,
+        setVar: SetVariableFunc,
+        args: List<ValueExpression>
+    ): RelationExpression = IndexScanOperator(IndexScan(impl, registry), setVar, args)
+}
+
+private class IndexScanOperator(
+    private val scan: IndexScan,
+    private val setVar: SetVariableFunc,
+    private val args: List<ValueExpression>
+) : RelationExpression {
+    override fun evaluate(state: EvaluatorState): RelationIterator = relation(RelationType.BAG) {
+        for (row in scan.rows(args.map { it(state) })) {
+            setVar(state, row)
+            yield()
+        }
+    }
+}
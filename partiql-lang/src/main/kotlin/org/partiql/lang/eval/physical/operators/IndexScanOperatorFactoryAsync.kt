@@ -0,0 +1,108 @@
+package org.partiql.lang.eval.physical.operators
+
+import org.partiql.lang.domains.PartiqlPhysical
+import org.partiql.lang.eval.ExprValue
+import org.partiql.lang.eval.physical.EvaluatorState
+import org.partiql.lang.eval.physical.IndexBound
+import org.partiql.lang.eval.physical.IndexRegistry
+import org.partiql.lang.eval.physical.SetVariableFunc
+import org.partiql.lang.eval.relation.BatchRelationIterator
+import org.partiql.lang.eval.relation.RelationIterator
+import org.partiql.lang.eval.relation.RelationType
+import org.partiql.lang.eval.relation.batchRelation
+import org.partiql.lang.eval.relation.relation
+import org.partiql.lang.planner.transforms.optimizations.INDEX_SCAN_IMPL_NAME
+import org.partiql.lang.planner.transforms.optimizations.IndexScanBound
+
+/**
+ * Provides the index scan implementation of the [PartiqlPhysical.Bexpr.Project] operator, which binds the rows of a
+ * table found with one of its indexes in [registry].  If the index is not registered, all of the rows of the table are
+ * read instead.
+ *
+ * This implementation is not part of the default operator implementations; it must be supplied to
+ * [org.partiql.lang.compiler.PartiQLCompilerAsyncBuilder.customOperatorFactories] and is selected by
+ * [org.partiql.lang.planner.transforms.optimizations.createFilterScanToIndexScanPass].
+ *
+ * @param registry the indexes of the tables.
+ */
+class IndexScanOperatorFactoryAsync(
+    private val registry: IndexRegistry
+) : ProjectRelationalOperatorFactoryAsync(INDEX_SCAN_IMPL_NAME) {
+    override fun create(
+        impl: PartiqlPhysical.Impl,
+        setVar: SetVariableFunc,
+        args: List<ValueExpressionAsync>
+    ): RelationExpressionAsync = IndexScanOperatorAsync(IndexScan(impl, registry), setVar, args)
+}
+
+private class IndexScanOperatorAsync(
+    private val scan: IndexScan,
+    private val setVar: SetVariableFunc,
+    private val args: List<ValueExpressionAsync>
+) : BatchRelationExpressionAsync {
+    override suspend fun evaluate(state: EvaluatorState): RelationIterator {
+        val values = args.map { it.invoke(state) }
+        return relation(RelationType.BAG) {
+            for (row in scan.rows(values)) {
+                setVar(state, row)
+                yield()
+            }
+        }
+    }
+
+    override suspend fun evaluateBatches(state: EvaluatorState): BatchRelationIterator {
+        val values = args.map { it.invoke(state) }
+        val rows = scan.rows(values).iterator()
+        return batchRelation(RelationType.BAG) { batch ->
+            batch.clear()
+            while (!batch.isFull && rows.hasNext()) {
+                setVar(state, rows.next())
+                batch.add(state)
+            }
+            batch.size > 0
+        }
+    }
+}
+
+/**
+ * The static arguments of an index scan (see [INDEX_SCAN_IMPL_NAME]), which finds rows given the values of its
+ * arguments: the table, the values of the key prefix and the values of the bounds of the range.
+ */
+internal class IndexScan(impl: PartiqlPhysical.Impl, private val registry: IndexRegistry) {
+    private val uniqueId: String
+    private val indexName: String
+    private val prefixSize: Int
+    private val lower: IndexScanBound
+    private val upper: IndexScanBound
+
+    init {
+        // Sanity check the static arguments. If this check fails, it would indicate a bug in the rewrite which created
+        // this (project ...) operator.
+        require(impl.staticArgs.size == 5) {
+            "Expected five static arguments to $INDEX_SCAN_IMPL_NAME but found ${impl.staticArgs.size}"
+        }
+        uniqueId = impl.staticArgs[0].textValue
+        indexName = impl.staticArgs[1].textValue
+        prefixSize = impl.staticArgs[2].longValue.toInt()
+        lower = IndexScanBound.valueOf(impl.staticArgs[3].textValue.uppercase())
+        upper = IndexScanBound.valueOf(impl.staticArgs[4].textValue.uppercase())
+    }
+
+    /** Returns the rows of the table whose key is within the range given by [values], the values of the arguments. */
+    fun rows(values: List<ExprValue>): Iterable<ExprValue> {
+        val table = values[0]
+        val index = registry[uniqueId, indexName]
+            ?: return if (table.type.isSequence) table else listOf(table)
+        var next = 1 + prefixSize
+        val prefix = values.subList(1, next)
+        val lowerBound = when (lower) {
+            IndexScanBound.NONE -> null
+            else -> IndexBound(values[next++], inclusive = lower == IndexScanBound.INCLUSIVE)
+        }
+        val upperBound = when (upper) {
+            IndexScanBound.NONE -> null
+            else -> IndexBound(values[next], inclusive = upper == IndexScanBound.INCLUSIVE)
+        }
+        return index.lookup(prefix, lowerBound, upperBound)
+    }
+}
@@ -1,10 +1,13 @@
 package org.partiql.lang.eval.physical.operators
 
 import org.partiql.lang.domains.PartiqlPhysical
+import org.partiql.lang.eval.ExprValue
 import org.partiql.lang.eval.booleanValue
 import org.partiql.lang.eval.isNotUnknown
 import org.partiql.lang.eval.physical.EvaluatorState
+import org.partiql.lang.eval.relation.BatchRelationIterator
 import org.partiql.lang.eval.relation.RelationType
+import org.partiql.lang.eval.relation.RowBatch
 import org.partiql.lang.eval.relation.relation
 import org.partiql.lang.planner.transforms.DEFAULT_IMPL_NAME
 
@@ -91,7 +94,7 @@ private class InnerJoinOperatorAsync(
     private val lhs: RelationExpressionAsync,
     private val rhs: RelationExpressionAsync,
     private val condition: suspend (EvaluatorState) -> Boolean
-) : RelationExpressionAsync {
+) : BatchRelationExpressionAsync {
 
     override suspend fun evaluate(state: EvaluatorState) = relation(RelationType.BAG) {
         val leftItr = lhs.evaluate(state)
@@ -104,6 +107,9 @@ private class InnerJoinOperatorAsync(
             }
         }
     }
+
+    override suspend fun evaluateBatches(state: EvaluatorState): BatchRelationIterator =
+        NestedLoopJoinBatchIterator(state, lhs.evaluateAsBatches(state), rhs, condition, setInnerVariablesToNull = null)
 }
 
 /**
@@ -114,7 +120,7 @@ private class LeftJoinOperatorAsync(
     private val rhs: RelationExpressionAsync,
     private val condition: suspend (EvaluatorState) -> Boolean,
     private val setRightSideVariablesToNull: (EvaluatorState) -> Unit
-) : RelationExpressionAsync {
+) : BatchRelationExpressionAsync {
 
     override suspend fun evaluate(state: EvaluatorState) = relation(RelationType.BAG) {
         val leftItr = lhs.evaluate(state)
@@ -133,6 +139,9 @@ private class LeftJoinOperatorAsync(
             }
         }
     }
+
+    override suspend fun evaluateBatches(state: EvaluatorState): BatchRelationIterator =
+        NestedLoopJoinBatchIterator(state, lhs.evaluateAsBatches(state), rhs, condition, setRightSideVariablesToNull)
 }
 
 /**
@@ -143,7 +152,7 @@ private class RightJoinOperatorAsync(
     private val rhs: RelationExpressionAsync,
     private val condition: suspend (EvaluatorState) -> Boolean,
     private val setLeftSideVariablesToNull: (EvaluatorState) -> Unit
-) : RelationExpressionAsync {
+) : BatchRelationExpressionAsync {
 
     override suspend fun evaluate(state: EvaluatorState) = relation(RelationType.BAG) {
         val rightItr = rhs.evaluate(state)
@@ -162,4 +171,92 @@ private class RightJoinOperatorAsync(
             }
         }
     }
+
+    override suspend fun evaluateBatches(state: EvaluatorState): BatchRelationIterator =
+        NestedLoopJoinBatchIterator(state, rhs.evaluateAsBatches(state), lhs, condition, setLeftSideVariablesToNull)
+}
+
+/**
+ * Evaluates a nested loop join in batches: [inner] is evaluated for every row of [outer] (thus it may reference the
+ * variables of the outer row), and each inner row satisfying [condition] is added to the output.  If
+ * [setInnerVariablesToNull] is not null (i.e. for outer joins), outer rows without any matching inner row are also
+ * added to the output, with the variables of the inner side set to NULL.
+ *
+ * The state of the nested loops is kept between calls to [nextBatch], since the output batch may fill up at any point.
+ */
+private class NestedLoopJoinBatchIterator(
+    private val state: EvaluatorState,
+    private val outer: BatchRelationIterator,
+    private val inner: RelationExpressionAsync,
+    private val condition: suspend (EvaluatorState) -> Boolean,
+    private val setInnerVariablesToNull: ((EvaluatorState) -> Unit)?
+) : BatchRelationIterator {
+
+    override val relType: RelationType = RelationType.BAG
+
+    private val outerBatch = RowBatch()
+    private var outerIndex = 0
+    private var outerExhausted = false
+
+    /** The outer row for which [innerRows] are being read, if any. */
+    private var outerRow: Array<ExprValue>? = null
+    private var innerRows: BatchRelationIterator? = null
+    private val innerBatch = RowBatch()
+    private var innerIndex = 0
+    private var matched = false
+
+    override suspend fun nextBatch(batch: RowBatch): Boolean {
+        batch.clear()
+        while (!batch.isFull) {
+            val innerRows = innerRows
+            if (innerRows != null) {
+                // Continue with the current outer row.
+                if (innerIndex < innerBatch.size) {
+                    state.load(innerBatch[innerIndex++])
+                    if (condition(state)) {
+                        batch.add(state)
+                        matched = true
+                    }
+                    continue
+                }
+                // The registers may have been modified by the consumer since the inner rows were last read.
+                state.load(outerRow!!)
+                innerBatch.maxSize = batch.remaining().coerceAtMost(innerBatch.capacity)
+                if (innerRows.nextBatch(innerBatch)) {
+                    innerIndex = 0
+                    continue
+                }
+                this.innerRows = null
+                if (!matched && setInnerVariablesToNull != null) {
+                    state.load(outerRow!!)
+                    setInnerVariablesToNull.invoke(state)
+                    batch.add(state)
+                }
+                continue
+            }
+
+            // Move to the next outer row.
+            if (outerIndex >= outerBatch.size) {
+                if (outerExhausted) {
+                    break
+                }
+                outerBatch.maxSize = batch.remaining().coerceAtMost(outerBatch.capacity)
+                if (!outer.nextBatch(outerBatch)) {
+                    outerExhausted = true
+                    break
+                }
+                outerIndex = 0
+            }
+            val row = outerBatch[outerIndex++]
+            state.load(row)
+            outerRow = row
+            this.innerRows = inner.evaluateAsBatches(state)
+            innerBatch.clear()
+            innerIndex = 0
+            matched = false
+        }
+        return batch.size > 0
+    }
+
+    private fun RowBatch.remaining() = maxSize - size
 }
@@ -1,9 +1,13 @@
 package org.partiql.lang.eval.physical.operators
 
 import org.partiql.lang.domains.PartiqlPhysical
+import org.partiql.lang.eval.ExprValue
 import org.partiql.lang.eval.physical.EvaluatorState
 import org.partiql.lang.eval.physical.VariableBindingAsync
+import org.partiql.lang.eval.physical.evaluateAll
+import org.partiql.lang.eval.relation.BatchRelationIterator
 import org.partiql.lang.eval.relation.RelationIterator
+import org.partiql.lang.eval.relation.batchRelation
 import org.partiql.lang.eval.relation.relation
 import org.partiql.lang.planner.transforms.DEFAULT_IMPL_NAME
 
@@ -43,22 +47,68 @@ internal object LetRelationalOperatorFactoryDefaultAsync : LetRelationalOperator
         input = sourceBexpr,
         bindings = bindings,
     )
+
+    /**
+     * Creates a `LET` whose [bindings] are evaluated concurrently when concurrent execution is enabled, which requires
+     * that the value of each binding does not depend on the other bindings.
+     */
+    fun createConcurrent(
+        sourceBexpr: RelationExpressionAsync,
+        bindings: List<VariableBindingAsync>
+    ) = LetOperatorAsync(
+        input = sourceBexpr,
+        bindings = bindings,
+        concurrent = true
+    )
 }
 
+/**
+ * @param concurrent when true, the values of the [bindings] are evaluated with
+ * [org.partiql.lang.eval.physical.evaluateAll], which only evaluates them concurrently when the rows are read in
+ * batches (see [evaluateBatches]).
+ */
 internal class LetOperatorAsync(
     private val input: RelationExpressionAsync,
-    private val bindings: List<VariableBindingAsync>
-) : RelationExpressionAsync {
+    private val bindings: List<VariableBindingAsync>,
+    private val concurrent: Boolean = false
+) : BatchRelationExpressionAsync {
+
+    private val values = bindings.map<VariableBindingAsync, suspend (EvaluatorState) -> ExprValue> { binding ->
+        { state -> binding.expr(state) }
+    }
 
     override suspend fun evaluate(state: EvaluatorState): RelationIterator {
         val rows = input.evaluate(state)
         return relation(rows.relType) {
             while (rows.nextRow()) {
-                bindings.forEach {
-                    it.setFunc(state, it.expr(state))
-                }
+                bind(state)
                 yield()
             }
         }
     }
+
+    override suspend fun evaluateBatches(state: EvaluatorState): BatchRelationIterator {
+        val rows = input.evaluateAsBatches(state)
+        return batchRelation(rows.relType) { batch ->
+            val hasRows = rows.nextBatch(batch)
+            for (i in 0 until batch.size) {
+                val row = batch[i]
+                state.load(row)
+                bind(state)
+                state.registers.copyInto(row)
+            }
+            hasRows
+        }
+    }
+
+    private suspend fun bind(state: EvaluatorState) {
+        when {
+            concurrent -> state.evaluateAll(values).forEachIndexed { i, value ->
+                bindings[i].setFunc(state, value)
+            }
+            else -> bindings.forEach {
+                it.setFunc(state, it.expr(state))
+            }
+        }
+    }
 }
@@ -8,7 +8,9 @@ import org.partiql.lang.eval.err
 import org.partiql.lang.eval.errorContextFrom
 import org.partiql.lang.eval.numberValue
 import org.partiql.lang.eval.physical.EvaluatorState
+import org.partiql.lang.eval.relation.BatchRelationIterator
 import org.partiql.lang.eval.relation.RelationIterator
+import org.partiql.lang.eval.relation.batchRelation
 import org.partiql.lang.eval.relation.relation
 import org.partiql.lang.planner.transforms.DEFAULT_IMPL_NAME
 
@@ -53,7 +55,7 @@ internal object LimitRelationalOperatorFactoryDefaultAsync : LimitRelationalOper
 internal class LimitOperatorAsync(
     private val input: RelationExpressionAsync,
     private val limit: ValueExpressionAsync,
-) : RelationExpressionAsync {
+) : BatchRelationExpressionAsync {
 
     override suspend fun evaluate(state: EvaluatorState): RelationIterator {
         val limit = evalLimitRowCount(limit, state)
@@ -66,6 +68,27 @@ internal class LimitOperatorAsync(
         }
     }
 
+    override suspend fun evaluateBatches(state: EvaluatorState): BatchRelationIterator {
+        var remaining = evalLimitRowCount(limit, state)
+        val rows = input.evaluateAsBatches(state)
+        return batchRelation(rows.relType) { batch ->
+            if (remaining == 0L) {
+                batch.clear()
+                return@batchRelation false
+            }
+            // Request no more rows than needed, such that the input does not evaluate rows beyond the limit.
+            val maxSize = batch.maxSize
+            batch.maxSize = minOf(remaining, maxSize.toLong()).toInt()
+            val hasRows = try {
+                rows.nextBatch(batch)
+            } finally {
+                batch.maxSize = maxSize
+            }
+            remaining -= batch.size
+            hasRows
+        }
+    }
+
     private suspend fun evalLimitRowCount(rowCountExpr: ValueExpressionAsync, env: EvaluatorState): Long {
         val limitExprValue = rowCountExpr(env)
         if (limitExprValue.type != ExprValueType.INT) {
@@ -0,0 +1,203 @@
+package org.partiql.lang.eval.physical.operators
+
+import org.partiql.lang.domains.PartiqlPhysical
+import org.partiql.lang.eval.ExprValue
+import org.partiql.lang.eval.booleanValue
+import org.partiql.lang.eval.isNotUnknown
+import org.partiql.lang.eval.isUnknown
+import org.partiql.lang.eval.physical.BoundVariables
+import org.partiql.lang.eval.physical.EvaluatorState
+import org.partiql.lang.eval.relation.RelationIterator
+import org.partiql.lang.eval.relation.RelationType
+import org.partiql.lang.eval.relation.relation
+import org.partiql.lang.planner.transforms.optimizations.MERGE_JOIN_IMPL_NAME
+
+/**
+ * Provides a sort-merge join implementation of the [PartiqlPhysical.Bexpr.Join] operator, for inputs which are both
+ * sorted in ascending order (see [org.partiql.lang.eval.DEFAULT_COMPARATOR]) on the equi-join keys given by the static
+ * arguments of the implementation (the merge keys).
+ *
+ * Both sides are read once and in step: one side (the streamed side) is read row by row, and the rows of the other side
+ * (the buffered side) are buffered only as long as they have the same merge key values as the current streamed row.
+ * The remaining equi-join keys and the residual predicate, if any, are applied to each pair of rows with equal merge
+ * key values.  Rows whose merge key values are `NULL` or `MISSING` never match and may appear anywhere in their input.
+ *
+ * For `INNER` and `LEFT` joins the left side is the streamed side; for `RIGHT` joins the right side is the streamed
+ * side, such that the side whose rows are preserved by the outer join is always the streamed side.  The rows are
+ * produced in the order of the streamed side.
+ *
+ * An error is raised if a side turns out not to be sorted.
+ *
+ * This implementation is selected by [org.partiql.lang.planner.transforms.optimizations.createEquiJoinToMergeJoinPass].
+ */
+internal object MergeJoinRelationalOperatorFactoryAsync : EquiJoinRelationalOperatorFactoryAsync(MERGE_JOIN_IMPL_NAME) {
+    override fun create(
+        impl: PartiqlPhysical.Impl,
+        joinType: PartiqlPhysical.JoinType,
+        leftBexpr: RelationExpressionAsync,
+        rightBexpr: RelationExpressionAsync,
+        leftKeys: List<ValueExpressionAsync>,
+        rightKeys: List<ValueExpressionAsync>,
+        residualPredicateExpr: ValueExpressionAsync?,
+        leftVariables: BoundVariables,
+        rightVariables: BoundVariables
+    ): RelationExpressionAsync {
+        val mergeKeys = impl.mergeKeyPositions()
+        val otherKeys = leftKeys.indices.filter { it !in mergeKeys }
+        val residual: suspend (EvaluatorState) -> Boolean = residualPredicateExpr?.closure() ?: { true }
+        return when (joinType) {
+            is PartiqlPhysical.JoinType.Inner, is PartiqlPhysical.JoinType.Left -> MergeJoinOperatorAsync(
+                streamed = leftBexpr,
+                streamedMergeKeys = mergeKeys.map { leftKeys[it] },
+                streamedOtherKeys = otherKeys.map { leftKeys[it] },
+                buffered = rightBexpr,
+                bufferedMergeKeys = mergeKeys.map { rightKeys[it] },
+                bufferedOtherKeys = otherKeys.map { rightKeys[it] },
+                bufferedVariables = rightVariables,
+                residual = residual,
+                preserveStreamedRows = joinType is PartiqlPhysical.JoinType.Left
+            )
+            is PartiqlPhysical.JoinType.Right -> MergeJoinOperatorAsync(
+                streamed = rightBexpr,
+                streamedMergeKeys = mergeKeys.map { rightKeys[it] },
+                streamedOtherKeys = otherKeys.map { rightKeys[it] },
+                buffered = leftBexpr,
+                bufferedMergeKeys = mergeKeys.map { leftKeys[it] },
+                bufferedOtherKeys = otherKeys.map { leftKeys[it] },
+                bufferedVariables = leftVariables,
+                residual = residual,
+                preserveStreamedRows = true
+            )
+            is PartiqlPhysical.JoinType.Full -> TODO("Full join")
+        }
+    }
+
+    private fun ValueExpressionAsync.closure(): suspend (EvaluatorState) -> Boolean = { state: EvaluatorState ->
+        val v = invoke(state)
+        v.isNotUnknown() && v.booleanValue()
+    }
+}
+
+/**
+ * See specification 5.6
+ *
+ * @param preserveStreamedRows when true, streamed rows without any match are emitted once with the variables of the
+ * buffered side set to `NULL` (i.e. the streamed side is the preserved side of an outer join).
+ */
+private class MergeJoinOperatorAsync(
+    private val streamed: RelationExpressionAsync,
+    private val streamedMergeKeys: List<ValueExpressionAsync>,
+    private val streamedOtherKeys: List<ValueExpressionAsync>,
+    private val buffered: RelationExpressionAsync,
+    private val bufferedMergeKeys: List<ValueExpressionAsync>,
+    private val bufferedOtherKeys: List<ValueExpressionAsync>,
+    private val bufferedVariables: BoundVariables,
+    private val residual: suspend (EvaluatorState) -> Boolean,
+    private val preserveStreamedRows: Boolean
+) : RelationExpressionAsync {
+
+    override suspend fun evaluate(state: EvaluatorState) = relation(RelationType.BAG) {
+        val streamedItr = streamed.evaluate(state)
+        var bufferedSide: BufferedSide? = null
+        var previousKey: Array<ExprValue>? = null
+        while (streamedItr.nextRow()) {
+            // The buffered side is only evaluated once the streamed side is known to have at least one row, which
+            // mirrors the nested loop implementation.
+            val side = bufferedSide ?: BufferedSide(state, buffered.evaluate(state)).also { bufferedSide = it }
+            val key = mergeKeyOf(state, streamedMergeKeys)
+            var yieldedSomething = false
+            if (key != null) {
+                checkMergeKeyOrder(previousKey, key, "streamed")
+                previousKey = key
+                val matches = side.rowsWithKey(key)
+                val otherKeys = if (matches.isEmpty()) null else HashJoinKey.ofAsync(state, streamedOtherKeys)
+                if (otherKeys != null) {
+                    for (row in matches) {
+                        if (row.otherKeys != otherKeys) {
+                            continue
+                        }
+                        bufferedVariables.restore(state, row.variables)
+                        if (residual(state)) {
+                            yield()
+                            yieldedSomething = true
+                        }
+                    }
+                }
+            }
+            if (!yieldedSomething && preserveStreamedRows) {
+                bufferedVariables.setToNull(state)
+                yield()
+            }
+        }
+    }
+
+    /** Reads the rows of the buffered side as the merge key values of the streamed side increase. */
+    private inner class BufferedSide(private val state: EvaluatorState, private val rows: RelationIterator) {
+        private var started = false
+        private var exhausted = false
+        private var previousKey: Array<ExprValue>? = null
+        private var nextKey: Array<ExprValue>? = null
+        private var nextRow: MergeJoinRow? = null
+        private var runKey: Array<ExprValue>? = null
+        private var run: List<MergeJoinRow> = emptyList()
+
+        /** Returns the buffered rows whose merge key values are equal to [key], which may not decrease between calls. */
+        suspend fun rowsWithKey(key: Array<ExprValue>): List<MergeJoinRow> {
+            val runKey = runKey
+            if (runKey != null && compareMergeKeys(runKey, key) == 0) {
+                return run
+            }
+            if (!started) {
+                started = true
+                readNext()
+            }
+            while (nextKey != null && compareMergeKeys(nextKey!!, key) < 0) {
+                readNext()
+            }
+            val rows = ArrayList<MergeJoinRow>()
+            while (nextKey != null && compareMergeKeys(nextKey!!, key) == 0) {
+                rows.add(nextRow!!)
+                readNext()
+            }
+            this.runKey = key
+            this.run = rows
+            return rows
+        }
+
+        /**
+         * Reads the next buffered row whose key values are not `NULL` or `MISSING`, since other rows can never satisfy
+         * the equi-join predicate, or sets [nextKey] to `null` once the buffered side is exhausted.
+         */
+        private suspend fun readNext() {
+            nextKey = null
+            nextRow = null
+            while (!exhausted) {
+                if (!rows.nextRow()) {
+                    exhausted = true
+                    return
+                }
+                val key = mergeKeyOf(state, bufferedMergeKeys) ?: continue
+                checkMergeKeyOrder(previousKey, key, "buffered")
+                previousKey = key
+                val otherKeys = HashJoinKey.ofAsync(state, bufferedOtherKeys) ?: continue
+                nextKey = key
+                nextRow = MergeJoinRow(otherKeys, bufferedVariables.capture(state))
+                return
+            }
+        }
+    }
+
+    /** Evaluates [keys], returning `null` if any of the key values is `NULL` or `MISSING`. */
+    private suspend fun mergeKeyOf(state: EvaluatorState, keys: List<ValueExpressionAsync>): Array<ExprValue>? {
+        val values = arrayOfNulls<ExprValue>(keys.size)
+        keys.forEachIndexed { i, key ->
+            val value = key(state)
+            if (value.isUnknown()) {
+                return null
+            }
+            values[i] = value
+        }
+        @Suppress("UNCHECKED_CAST")
+        return values as Array<ExprValue>
+    }
+}
@@ -8,7 +8,9 @@ import org.partiql.lang.eval.err
 import org.partiql.lang.eval.errorContextFrom
 import org.partiql.lang.eval.numberValue
 import org.partiql.lang.eval.physical.EvaluatorState
+import org.partiql.lang.eval.relation.BatchRelationIterator
 import org.partiql.lang.eval.relation.RelationIterator
+import org.partiql.lang.eval.relation.batchRelation
 import org.partiql.lang.eval.relation.relation
 import org.partiql.lang.planner.transforms.DEFAULT_IMPL_NAME
 
@@ -53,7 +55,7 @@ internal object OffsetRelationalOperatorFactoryDefaultAsync : OffsetRelationalOp
 internal class OffsetOperatorAsync(
     private val input: RelationExpressionAsync,
     private val offset: ValueExpressionAsync,
-) : RelationExpressionAsync {
+) : BatchRelationExpressionAsync {
 
     override suspend fun evaluate(state: EvaluatorState): RelationIterator {
         val skipCount: Long = evalOffsetRowCount(offset, state)
@@ -70,6 +72,28 @@ internal class OffsetOperatorAsync(
         }
     }
 
+    override suspend fun evaluateBatches(state: EvaluatorState): BatchRelationIterator {
+        var skipCount: Long = evalOffsetRowCount(offset, state)
+        val rows = input.evaluateAsBatches(state)
+        return batchRelation(rows.relType) { batch ->
+            while (rows.nextBatch(batch)) {
+                if (skipCount >= batch.size) {
+                    skipCount -= batch.size
+                    continue
+                }
+                // Drop the first `skipCount` rows of the batch, preserving the order of the others.
+                val skipped = skipCount.toInt()
+                for (i in skipped until batch.size) {
+                    batch.swap(i, i - skipped)
+                }
+                batch.truncate(batch.size - skipped)
+                skipCount = 0
+                return@batchRelation true
+            }
+            false
+        }
+    }
+
     private suspend fun evalOffsetRowCount(rowCountExpr: ValueExpressionAsync, state: EvaluatorState): Long {
         val offsetExprValue = rowCountExpr(state)
         if (offsetExprValue.type != ExprValueType.INT) {
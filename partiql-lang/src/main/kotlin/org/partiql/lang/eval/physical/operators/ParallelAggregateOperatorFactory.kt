@@ -0,0 +1,71 @@
+package org.partiql.lang.eval.physical.operators
+
+import org.partiql.lang.domains.PartiqlPhysical
+import org.partiql.lang.eval.MemoryReservation
+import org.partiql.lang.eval.physical.DEFAULT_PARALLELISM
+import org.partiql.lang.eval.physical.EvaluatorState
+import org.partiql.lang.eval.physical.mapPartitions
+import org.partiql.lang.eval.relation.RelationIterator
+import org.partiql.lang.eval.relation.RelationType
+import org.partiql.lang.eval.relation.relation
+import org.partiql.lang.planner.transforms.optimizations.PARALLEL_IMPL_NAME
+import java.util.concurrent.Executor
+import java.util.concurrent.ForkJoinPool
+
+/**
+ * Provides the parallel implementation of the [PartiqlPhysical.Bexpr.Aggregate] operator, which aggregates
+ * [parallelism] partitions of its input on [executor] and merges the partial aggregates of each group.
+ *
+ * The input of the aggregation must read its rows with a partitioned scan, such that each partition only reads its
+ * share of the scanned value.  Each partition is evaluated with its own copy of the
+ * [org.partiql.lang.eval.physical.EvaluatorState].  Aggregate functions with the `DISTINCT` quantifier are not
+ * supported.  Since the values are summed in a different order, `SUM` and `AVG` of floating point values may differ in
+ * their least significant digits from the result of the default implementation.
+ *
+ * This implementation is not part of the default operator implementations; it must be supplied to
+ * [org.partiql.lang.compiler.PartiQLCompilerBuilder.customOperatorFactories] and is selected by
+ * [org.partiql.lang.planner.transforms.optimizations.createParallelExecutionPass].
+ *
+ * @param executor the executor evaluating the partitions.
+ * @param parallelism the number of partitions.
+ */
+@Deprecated("To be removed in the next major version.", replaceWith = ReplaceWith("ParallelAggregateOperatorFactoryAsync"))
+class ParallelAggregateOperatorFactory(
+    private val executor: Executor = ForkJoinPool.commonPool(),
+    private val parallelism: Int = DEFAULT_PARALLELISM
+) : AggregateOperatorFactory(PARALLEL_IMPL_NAME) {
+
+    init {
+        require(parallelism > 0) { "parallelism must be greater than zero" }
+    }
+
+    @Deprecated("To be removed in the next major version.", replaceWith = ReplaceWith("ParallelAggregateOperatorFactoryAsync.create"))
+    override fun create(
+        source: RelationExpression,
+        strategy: PartiqlPhysical.GroupingStrategy,
+        keys: List<CompiledGroupKey>,
+        functions: List<CompiledAggregateFunction>
+    ): RelationExpression = ParallelAggregateOperator(
+        aggregation = AggregateOperatorDefault(source, keys, functions),
+        executor = executor,
+        parallelism = parallelism
+    )
+}
+
+internal class ParallelAggregateOperator(
+    private val aggregation: AggregateOperatorDefault,
+    private val executor: Executor,
+    private val parallelism: Int
+) : RelationExpression {
+    override fun evaluate(state: EvaluatorState): RelationIterator = relation(RelationType.BAG) {
+        val partialAggregates = executor.mapPartitions(state, parallelism) { partitionState ->
+            // Each partition has its own reservation since they are not thread-safe, but they share the account.
+            val memory = MemoryReservation(partitionState.memory)
+            aggregation.aggregate(aggregation.source.evaluate(partitionState), partitionState, memory) to memory
+        }
+        val aggregationMap = partialAggregates.map { it.first }
+            .reduce { merged, partial -> merged.apply { mergeWith(partial) } }
+        aggregation.yieldGroups(this, aggregationMap, state)
+        partialAggregates.forEach { it.second.release() }
+    }
+}
@@ -0,0 +1,92 @@
+package org.partiql.lang.eval.physical.operators
+
+import kotlinx.coroutines.asCoroutineDispatcher
+import kotlinx.coroutines.runBlocking
+import org.partiql.lang.domains.PartiqlPhysical
+import org.partiql.lang.eval.ExprValue
+import org.partiql.lang.eval.physical.DEFAULT_PARALLELISM
+import org.partiql.lang.eval.physical.EvaluatorState
+import org.partiql.lang.eval.physical.PARTITION_CHUNK_SIZE
+import org.partiql.lang.eval.physical.streamPartitions
+import org.partiql.lang.eval.relation.RelationIterator
+import org.partiql.lang.eval.relation.RelationType
+import org.partiql.lang.eval.relation.relation
+import org.partiql.lang.planner.transforms.optimizations.PARALLEL_IMPL_NAME
+import java.util.concurrent.Executor
+import java.util.concurrent.ForkJoinPool
+
+/**
+ * Provides the parallel implementation of the [PartiqlPhysical.Bexpr.Filter] operator, which evaluates its input and
+ * its predicate over [parallelism] partitions on [executor] and gathers the matching rows.
+ *
+ * The input of the filter must read its rows with a partitioned scan, such that each partition only reads its share
+ * of the scanned value.  Each partition is evaluated with its own copy of the
+ * [org.partiql.lang.eval.physical.EvaluatorState].  The matching rows are returned in chunks as soon as a partition
+ * has found them, thus the order of the input is not preserved, and the partitions stop once the rows are no longer
+ * read (e.g. because of a `LIMIT`).
+ *
+ * This implementation is not part of the default operator implementations; it must be supplied to
+ * [org.partiql.lang.compiler.PartiQLCompilerBuilder.customOperatorFactories] and is selected by
+ * [org.partiql.lang.planner.transforms.optimizations.createParallelExecutionPass].
+ *
+ * @param executor the executor evaluating the partitions.
+ * @param parallelism the number of partitions.
+ */
+@Deprecated("To be removed in the next major version.", replaceWith = ReplaceWith("ParallelFilterOperatorFactoryAsync"))
+class ParallelFilterOperatorFactory(
+    private val executor: Executor = ForkJoinPool.commonPool(),
+    private val parallelism: Int = DEFAULT_PARALLELISM
+) : FilterRelationalOperatorFactory(PARALLEL_IMPL_NAME) {
+
+    init {
+        require(parallelism > 0) { "parallelism must be greater than zero" }
+    }
+
+    @Deprecated("To be removed in the next major version.", replaceWith = ReplaceWith("ParallelFilterOperatorFactoryAsync.create"))
+    override fun create(
+        impl: PartiqlPhysical.Impl,
+        predicate: ValueExpression,
+        sourceBexpr: RelationExpression
+    ): RelationExpression = ParallelFilterOperator(
+        filter = SelectOperatorDefault(sourceBexpr, predicate),
+        executor = executor,
+        parallelism = parallelism
+    )
+}
+
+internal class ParallelFilterOperator(
+    private val filter: SelectOperatorDefault,
+    executor: Executor,
+    private val parallelism: Int
+) : RelationExpression {
+
+    private val dispatcher = executor.asCoroutineDispatcher()
+
+    override fun evaluate(state: EvaluatorState): RelationIterator = relation(RelationType.BAG) {
+        val chunks = dispatcher.streamPartitions(state, parallelism) { partitionState, channel ->
+            var rows = ArrayList<Array<ExprValue>>(PARTITION_CHUNK_SIZE)
+            val input = filter.evaluate(partitionState)
+            while (input.nextRow()) {
+                rows.add(partitionState.registers.clone())
+                if (rows.size == PARTITION_CHUNK_SIZE) {
+                    channel.send(rows)
+                    rows = ArrayList(PARTITION_CHUNK_SIZE)
+                }
+            }
+            if (rows.isNotEmpty()) {
+                channel.send(rows)
+            }
+        }
+
+        // Gather the rows of the partitions as they are found, waiting for the partitions as this evaluator does
+        while (true) {
+            val result = runBlocking { chunks.receiveCatching() }
+            result.exceptionOrNull()?.let { throw it }
+            val rows = result.getOrNull() ?: break
+            rows.forEach { row ->
+                state.load(row)
+                yield()
+            }
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package org.partiql.lang.eval.physical.operators
+
+import kotlinx.coroutines.CoroutineDispatcher
+import kotlinx.coroutines.asCoroutineDispatcher
+import kotlinx.coroutines.channels.ReceiveChannel
+import org.partiql.lang.domains.PartiqlPhysical
+import org.partiql.lang.eval.ExprValue
+import org.partiql.lang.eval.physical.DEFAULT_PARALLELISM
+import org.partiql.lang.eval.physical.EvaluatorState
+import org.partiql.lang.eval.physical.PARTITION_CHUNK_SIZE
+import org.partiql.lang.eval.physical.streamPartitions
+import org.partiql.lang.eval.relation.BatchRelationIterator
+import org.partiql.lang.eval.relation.RelationIterator
+import org.partiql.lang.eval.relation.RelationType
+import org.partiql.lang.eval.relation.RowBatch
+import org.partiql.lang.eval.relation.batchRelation
+import org.partiql.lang.eval.relation.relation
+import org.partiql.lang.planner.transforms.optimizations.PARALLEL_IMPL_NAME
+import java.util.concurrent.Executor
+import java.util.concurrent.ForkJoinPool
+
+/**
+ * Provides the parallel implementation of the [PartiqlPhysical.Bexpr.Filter] operator, which evaluates its input and
+ * its predicate over [parallelism] partitions on [executor] and gathers the matching rows.
+ *
+ * The input of the filter must read its rows with a partitioned scan, such that each partition only reads its share
+ * of the scanned value.  Each partition is evaluated with its own copy of the
+ * [org.partiql.lang.eval.physical.EvaluatorState].  The matching rows are returned in batches as soon as a partition
+ * has found them, thus the order of the input is not preserved, and the partitions stop once the batches are no
+ * longer read (e.g. because of a `LIMIT`).  Since a [RelationIterator] cannot suspend, a consumer reading the rows
+ * one at a time rather than in batches waits for all the partitions before reading the first row.
+ *
+ * This implementation is not part of the default operator implementations; it must be supplied to
+ * [org.partiql.lang.compiler.PartiQLCompilerAsyncBuilder.customOperatorFactories] and is selected by
+ * [org.partiql.lang.planner.transforms.optimizations.createParallelExecutionPass].
+ *
+ * @param executor the executor evaluating the partitions.
+ * @param parallelism the number of partitions.
+ */
+class ParallelFilterOperatorFactoryAsync(
+    executor: Executor = ForkJoinPool.commonPool(),
+    private val parallelism: Int = DEFAULT_PARALLELISM
+) : FilterRelationalOperatorFactoryAsync(PARALLEL_IMPL_NAME) {
+
+    init {
+        require(parallelism > 0) { "parallelism must be greater than zero" }
+    }
+
+    private val dispatcher = executor.asCoroutineDispatcher()
+
+    override fun create(
+        impl: PartiqlPhysical.Impl,
+        predicate: ValueExpressionAsync,
+        sourceBexpr: RelationExpressionAsync
+    ): RelationExpressionAsync = ParallelFilterOperatorAsync(
+        filter = SelectOperatorDefaultAsync(sourceBexpr, predicate),
+        dispatcher = dispatcher,
+        parallelism = parallelism
+    )
+}
+
+internal class ParallelFilterOperatorAsync(
+    private val filter: SelectOperatorDefaultAsync,
+    private val dispatcher: CoroutineDispatcher,
+    private val parallelism: Int
+) : BatchRelationExpressionAsync {
+
+    override suspend fun evaluate(state: EvaluatorState): RelationIterator {
+        val rows = ArrayList<Array<ExprValue>>()
+        for (chunk in stream(state)) {
+            rows.addAll(chunk)
+        }
+        return relation(RelationType.BAG) {
+            rows.forEach { row ->
+                state.load(row)
+                yield()
+            }
+        }
+    }
+
+    override suspend fun evaluateBatches(state: EvaluatorState): BatchRelationIterator {
+        val chunks = stream(state)
+        var chunk: List<Array<ExprValue>> = emptyList()
+        var next = 0
+        return batchRelation(RelationType.BAG) { batch ->
+            batch.clear()
+            while (!batch.isFull) {
+                if (next == chunk.size) {
+                    // Only wait for the partitions if no row has been found yet
+                    val result = if (batch.size == 0) chunks.receiveCatching() else chunks.tryReceive()
+                    result.exceptionOrNull()?.let { throw it }
+                    chunk = result.getOrNull() ?: break
+                    next = 0
+                }
+                state.load(chunk[next++])
+                batch.add(state)
+            }
+            batch.size > 0
+        }
+    }
+
+    /** Evaluates the partitions, which send the matching rows of each of their batches. */
+    private fun stream(state: EvaluatorState): ReceiveChannel<List<Array<ExprValue>>> =
+        dispatcher.streamPartitions(state, parallelism) { partitionState, channel ->
+            val input = filter.evaluateBatches(partitionState)
+            val batch = RowBatch(PARTITION_CHUNK_SIZE)
+            while (input.nextBatch(batch)) {
+                channel.send(List(batch.size) { i -> batch[i].clone() })
+            }
+        }
+}
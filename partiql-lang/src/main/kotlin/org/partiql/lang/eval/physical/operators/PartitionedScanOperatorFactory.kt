@@ -0,0 +1,23 @@
+package org.partiql.lang.eval.physical.operators
+
+import org.partiql.lang.domains.PartiqlPhysical
+import org.partiql.lang.eval.physical.SetVariableFunc
+import org.partiql.lang.planner.transforms.optimizations.PARTITIONED_SCAN_IMPL_NAME
+
+/**
+ * Provides the partitioned implementation of the [PartiqlPhysical.Bexpr.Scan] operator, which only reads the
+ * partition of its input assigned to the thread evaluating it by a parallel operator (see
+ * [ParallelFilterOperatorFactory] and [ParallelAggregateOperatorFactory]).  Outside of a parallel operator, it reads
+ * all of its input like the default implementation.
+ *
+ * @see org.partiql.lang.planner.transforms.optimizations.createParallelExecutionPass
+ */
+internal object PartitionedScanOperatorFactory : ScanRelationalOperatorFactory(PARTITIONED_SCAN_IMPL_NAME) {
+    override fun create(
+        impl: PartiqlPhysical.Impl,
+        expr: ValueExpression,
+        setAsVar: SetVariableFunc,
+        setAtVar: SetVariableFunc?,
+        setByVar: SetVariableFunc?
+    ): RelationExpression = ScanOperator(expr, setAsVar, setAtVar, setByVar, partitioned = true)
+}
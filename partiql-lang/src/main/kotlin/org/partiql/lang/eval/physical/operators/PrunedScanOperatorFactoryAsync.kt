@@ -0,0 +1,22 @@
+package org.partiql.lang.eval.physical.operators
+
+import org.partiql.lang.domains.PartiqlPhysical
+import org.partiql.lang.eval.physical.SetVariableFunc
+import org.partiql.lang.planner.transforms.optimizations.PRUNED_SCAN_IMPL_NAME
+
+/**
+ * Provides the pruned implementation of the [PartiqlPhysical.Bexpr.Scan] operator, which prunes the structs it scans to
+ * the fields given by the static arguments of the implementation, such that the other fields are not materialized.
+ *
+ * @see org.partiql.lang.planner.transforms.optimizations.createProjectionPruningPass
+ */
+internal object PrunedScanOperatorFactoryAsync : ScanRelationalOperatorFactoryAsync(PRUNED_SCAN_IMPL_NAME) {
+    override fun create(
+        impl: PartiqlPhysical.Impl,
+        expr: ValueExpressionAsync,
+        setAsVar: SetVariableFunc,
+        setAtVar: SetVariableFunc?,
+        setByVar: SetVariableFunc?
+    ): RelationExpressionAsync =
+        ScanOperatorAsync(expr, setAsVar, setAtVar, setByVar, requiredFields = impl.requiredFields())
+}
@@ -3,6 +3,7 @@ package org.partiql.lang.eval.physical.operators
 import org.partiql.lang.domains.PartiqlPhysical
 import org.partiql.lang.eval.ExprValue
 import org.partiql.lang.eval.ExprValueType
+import org.partiql.lang.eval.StructExprValue
 import org.partiql.lang.eval.address
 import org.partiql.lang.eval.name
 import org.partiql.lang.eval.physical.EvaluatorState
@@ -55,30 +56,49 @@ internal object ScanRelationalOperatorFactoryDefault : ScanRelationalOperatorFac
     ) = ScanOperator(expr, setAsVar, setAtVar, setByVar)
 }
 
+/**
+ * Scans the items of the value of [expr].  If [partitioned] and the [EvaluatorState.partition] is set, only the items
+ * of that partition are scanned.  If [requiredFields] is non-null, the structs scanned are pruned to those fields (see
+ * [StructExprValue.prune]).
+ */
 internal class ScanOperator(
     private val expr: ValueExpression,
     private val setAsVar: SetVariableFunc,
     private val setAtVar: SetVariableFunc?,
-    private val setByVar: SetVariableFunc?
+    private val setByVar: SetVariableFunc?,
+    private val partitioned: Boolean = false,
+    private val requiredFields: Set<String>? = null
 ) : RelationExpression {
 
     override fun evaluate(state: EvaluatorState): RelationIterator {
-        val value = expr(state)
-        val sequence: Sequence<ExprValue> = when (value.type) {
-            ExprValueType.LIST,
-            ExprValueType.BAG -> value.asSequence()
-            else -> sequenceOf(value)
+        val partition = if (partitioned) state.partition else null
+        val sequence: Sequence<ExprValue> = when (partition) {
+            null -> {
+                val value = expr(state)
+                when (value.type) {
+                    ExprValueType.LIST,
+                    ExprValueType.BAG -> value.asSequence()
+                    else -> sequenceOf(value)
+                }
+            }
+            // The value is evaluated by the first partition only, then shared with the other partitions
+            else -> partition.items(this) { expr(state) }
         }
         return relation(RelationType.BAG) {
             val rows: Iterator<ExprValue> = sequence.iterator()
             while (rows.hasNext()) {
                 val item = rows.next()
                 // .unnamedValue() removes any ordinal that might exist on item
-                setAsVar(state, item.unnamedValue())
+                setAsVar(state, item.unnamedValue().pruned())
                 setAtVar?.let { it(state, item.name ?: ExprValue.missingValue) }
                 setByVar?.let { it(state, item.address ?: ExprValue.missingValue) }
                 yield()
             }
         }
     }
+
+    private fun ExprValue.pruned(): ExprValue = when {
+        requiredFields != null && this is StructExprValue -> prune(requiredFields)
+        else -> this
+    }
 }
@@ -3,12 +3,15 @@ package org.partiql.lang.eval.physical.operators
 import org.partiql.lang.domains.PartiqlPhysical
 import org.partiql.lang.eval.ExprValue
 import org.partiql.lang.eval.ExprValueType
+import org.partiql.lang.eval.StructExprValue
 import org.partiql.lang.eval.address
 import org.partiql.lang.eval.name
 import org.partiql.lang.eval.physical.EvaluatorState
 import org.partiql.lang.eval.physical.SetVariableFunc
+import org.partiql.lang.eval.relation.BatchRelationIterator
 import org.partiql.lang.eval.relation.RelationIterator
 import org.partiql.lang.eval.relation.RelationType
+import org.partiql.lang.eval.relation.batchRelation
 import org.partiql.lang.eval.relation.relation
 import org.partiql.lang.eval.unnamedValue
 import org.partiql.lang.planner.transforms.DEFAULT_IMPL_NAME
@@ -53,30 +56,66 @@ internal object ScanRelationalOperatorFactoryDefaultAsync : ScanRelationalOperat
     ) = ScanOperatorAsync(expr, setAsVar, setAtVar, setByVar)
 }
 
+/**
+ * Scans the items of the value of [expr].  If [partitioned] and the [EvaluatorState.partition] is set, only the items
+ * of that partition are scanned.  If [requiredFields] is non-null, the structs scanned are pruned to those fields (see
+ * [StructExprValue.prune]).
+ */
 internal class ScanOperatorAsync(
     private val expr: ValueExpressionAsync,
     private val setAsVar: SetVariableFunc,
     private val setAtVar: SetVariableFunc?,
-    private val setByVar: SetVariableFunc?
-) : RelationExpressionAsync {
+    private val setByVar: SetVariableFunc?,
+    private val partitioned: Boolean = false,
+    private val requiredFields: Set<String>? = null
+) : BatchRelationExpressionAsync {
 
     override suspend fun evaluate(state: EvaluatorState): RelationIterator {
+        val rows = evaluateItems(state)
+        return relation(RelationType.BAG) {
+            while (rows.hasNext()) {
+                setVariables(state, rows.next())
+                yield()
+            }
+        }
+    }
+
+    override suspend fun evaluateBatches(state: EvaluatorState): BatchRelationIterator {
+        val rows = evaluateItems(state)
+        return batchRelation(RelationType.BAG) { batch ->
+            batch.clear()
+            while (!batch.isFull && rows.hasNext()) {
+                setVariables(state, rows.next())
+                batch.add(state)
+            }
+            batch.size > 0
+        }
+    }
+
+    private suspend fun evaluateItems(state: EvaluatorState): Iterator<ExprValue> {
+        val partition = if (partitioned) state.partition else null
+        if (partition != null) {
+            // The value is evaluated by the first partition only, then shared with the other partitions
+            return partition.itemsAsync(this) { expr(state) }.iterator()
+        }
         val value = expr(state)
         val sequence: Sequence<ExprValue> = when (value.type) {
             ExprValueType.LIST,
             ExprValueType.BAG -> value.asSequence()
             else -> sequenceOf(value)
         }
-        return relation(RelationType.BAG) {
-            val rows: Iterator<ExprValue> = sequence.iterator()
-            while (rows.hasNext()) {
-                val item = rows.next()
-                // .unnamedValue() removes any ordinal that might exist on item
-                setAsVar(state, item.unnamedValue())
-                setAtVar?.let { it(state, item.name ?: ExprValue.missingValue) }
-                setByVar?.let { it(state, item.address ?: ExprValue.missingValue) }
-                yield()
-            }
-        }
+        return sequence.iterator()
+    }
+
+    private fun setVariables(state: EvaluatorState, item: ExprValue) {
+        // .unnamedValue() removes any ordinal that might exist on item
+        setAsVar(state, item.unnamedValue().pruned())
+        setAtVar?.let { it(state, item.name ?: ExprValue.missingValue) }
+        setByVar?.let { it(state, item.address ?: ExprValue.missingValue) }
+    }
+
+    private fun ExprValue.pruned(): ExprValue = when {
+        requiredFields != null && this is StructExprValue -> prune(requiredFields)
+        else -> this
     }
 }
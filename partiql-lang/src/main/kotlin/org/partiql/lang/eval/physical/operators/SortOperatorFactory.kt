@@ -12,6 +12,19 @@ public abstract class SortOperatorFactory(name: String) : RelationalOperatorFact
         sortKeys: List<CompiledSortKey>,
         sourceRelation: RelationExpression
     ): RelationExpression
+
+    /**
+     * Creates a [RelationExpression] instance for [PartiqlPhysical.Bexpr.Sort].
+     *
+     * Implementations which make use of [PartiqlPhysical.Impl.staticArgs] should override this function.  By default,
+     * the static arguments are ignored.
+     */
+    @Deprecated("To be removed in the next major version.", replaceWith = ReplaceWith("SortOperatorFactoryAsync.create"))
+    public open fun create(
+        impl: PartiqlPhysical.Impl,
+        sortKeys: List<CompiledSortKey>,
+        sourceRelation: RelationExpression
+    ): RelationExpression = create(sortKeys, sourceRelation)
 }
 
 @Deprecated("To be removed in the next major version.", replaceWith = ReplaceWith("CompiledSortKeyAsync"))
@@ -10,6 +10,18 @@ public abstract class SortOperatorFactoryAsync(name: String) : RelationalOperato
         sortKeys: List<CompiledSortKeyAsync>,
         sourceRelation: RelationExpressionAsync
     ): RelationExpressionAsync
+
+    /**
+     * Creates a [RelationExpressionAsync] instance for [PartiqlPhysical.Bexpr.Sort].
+     *
+     * Implementations which make use of [PartiqlPhysical.Impl.staticArgs] should override this function.  By default,
+     * the static arguments are ignored.
+     */
+    public open fun create(
+        impl: PartiqlPhysical.Impl,
+        sortKeys: List<CompiledSortKeyAsync>,
+        sourceRelation: RelationExpressionAsync
+    ): RelationExpressionAsync = create(sortKeys, sourceRelation)
 }
 
 public class CompiledSortKeyAsync(val comparator: NaturalExprValueComparators, val value: ValueExpressionAsync)
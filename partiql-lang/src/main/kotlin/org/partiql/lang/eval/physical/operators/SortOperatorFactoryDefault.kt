@@ -37,9 +37,11 @@ internal class SortOperatorDefault(private val sortKeys: List<CompiledSortKey>,
         return relation(RelationType.LIST) {
             val rows = mutableListOf<Array<ExprValue>>()
             val comparator = getSortingComparator(sortKeys, state)
+            val memory = state.reserveMemory(this@SortOperatorDefault)
 
             // Consume Input
             while (source.nextRow()) {
+                memory.add(state.registers)
                 rows.add(state.registers.clone())
             }
 
@@ -52,6 +54,7 @@ internal class SortOperatorDefault(private val sortKeys: List<CompiledSortKey>,
                 state.load(iterator.next())
                 yield()
             }
+            memory.release()
         }
     }
 }
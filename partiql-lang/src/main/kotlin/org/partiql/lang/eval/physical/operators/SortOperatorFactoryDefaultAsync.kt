@@ -17,6 +17,7 @@ package org.partiql.lang.eval.physical.operators
 import org.partiql.lang.eval.ExprValue
 import org.partiql.lang.eval.NaturalExprValueComparators
 import org.partiql.lang.eval.physical.EvaluatorState
+import org.partiql.lang.eval.physical.recordMaterializedRows
 import org.partiql.lang.eval.relation.RelationIterator
 import org.partiql.lang.eval.relation.RelationType
 import org.partiql.lang.eval.relation.relation
@@ -31,32 +32,35 @@ internal object SortOperatorFactoryDefaultAsync : SortOperatorFactoryAsync(DEFAU
 
 internal class SortOperatorDefaultAsync(private val sortKeys: List<CompiledSortKeyAsync>, private val sourceRelation: RelationExpressionAsync) : RelationExpressionAsync {
     override suspend fun evaluate(state: EvaluatorState): RelationIterator {
-        val source = sourceRelation.evaluate(state)
-        return relation(RelationType.LIST) {
-            val rows = mutableListOf<Array<ExprValue>>()
+        val rows = mutableListOf<Array<ExprValue>>()
+        val memory = state.reserveMemory(this@SortOperatorDefaultAsync)
 
-            // Consume Input
-            while (source.nextRow()) {
-                rows.add(state.registers.clone())
-            }
+        // Consume Input
+        sourceRelation.forEachRow(state) {
+            memory.add(state.registers)
+            rows.add(state.registers.clone())
+        }
+        state.recordMaterializedRows(rows.size)
 
-            val rowWithValues = rows.map { row ->
-                state.load(row)
-                row to sortKeys.map { sk ->
-                    sk.value(state)
-                }
-            }.toMutableList()
-            val comparator = getSortingComparator(sortKeys.map { it.comparator })
+        val rowWithValues = rows.map { row ->
+            state.load(row)
+            row to sortKeys.map { sk ->
+                sk.value(state)
+            }
+        }.toMutableList()
+        val comparator = getSortingComparator(sortKeys.map { it.comparator })
 
-            // Perform Sort
-            val sortedRows = rowWithValues.sortedWith(comparator)
+        // Perform Sort
+        val sortedRows = rowWithValues.sortedWith(comparator)
 
-            // Yield Sorted Rows
+        // Yield Sorted Rows
+        return relation(RelationType.LIST) {
             val iterator = sortedRows.iterator()
             while (iterator.hasNext()) {
                 state.load(iterator.next().first)
                 yield()
             }
+            memory.release()
         }
     }
 }
@@ -0,0 +1,69 @@
+package org.partiql.lang.eval.physical.operators
+
+import org.partiql.lang.domains.PartiqlPhysical
+import org.partiql.lang.eval.physical.EvaluatorState
+import org.partiql.lang.eval.relation.RelationIterator
+import org.partiql.lang.eval.relation.RelationType
+import org.partiql.lang.eval.relation.relation
+import org.partiql.lang.planner.transforms.optimizations.TOP_N_SORT_IMPL_NAME
+import org.partiql.lang.util.TopNCollector
+import org.partiql.lang.util.topNCount
+
+/**
+ * Provides the top-N implementation of the [PartiqlPhysical.Bexpr.Sort] operator, i.e. a sort fused with the `LIMIT`
+ * and `OFFSET` that follow it, which are given as the static arguments of the implementation.
+ *
+ * Only `LIMIT + OFFSET` rows are kept in memory, in a bounded heap.
+ *
+ * @see org.partiql.lang.planner.transforms.optimizations.createSortLimitToTopNPass
+ */
+internal object TopNSortOperatorFactory : SortOperatorFactory(TOP_N_SORT_IMPL_NAME) {
+
+    override fun create(
+        sortKeys: List<CompiledSortKey>,
+        sourceRelation: RelationExpression
+    ): RelationExpression = SortOperatorDefault(sortKeys, sourceRelation)
+
+    override fun create(
+        impl: PartiqlPhysical.Impl,
+        sortKeys: List<CompiledSortKey>,
+        sourceRelation: RelationExpression
+    ): RelationExpression {
+        val (limit, offset) = impl.topNRowCounts()
+        return TopNSortOperator(sortKeys, sourceRelation, limit, offset)
+    }
+}
+
+internal class TopNSortOperator(
+    private val sortKeys: List<CompiledSortKey>,
+    private val sourceRelation: RelationExpression,
+    private val limit: Long,
+    private val offset: Long
+) : RelationExpression {
+    override fun evaluate(state: EvaluatorState): RelationIterator {
+        val source = sourceRelation.evaluate(state)
+        return relation(RelationType.LIST) {
+            val collector = TopNCollector(sortRowComparator(sortKeys.map { it.comparator }), topNCount(limit, offset))
+
+            // Consume Input
+            while (source.nextRow()) {
+                val keys = Array(sortKeys.size) { sortKeys[it].value(state) }
+                collector.add(SortRow(keys, state.registers.clone()))
+            }
+
+            // Yield Sorted Rows, skipping the first `offset` ones
+            val sortedRows = collector.toSortedList()
+            // The collector holds at most `limit + offset` rows, thus only the rows it kept are accounted.
+            val memory = state.reserveMemory(this@TopNSortOperator)
+            sortedRows.forEach { memory.add(it.registers) }
+            var index = 0L
+            sortedRows.forEach { row ->
+                if (index++ >= offset) {
+                    state.load(row.registers)
+                    yield()
+                }
+            }
+            memory.release()
+        }
+    }
+}
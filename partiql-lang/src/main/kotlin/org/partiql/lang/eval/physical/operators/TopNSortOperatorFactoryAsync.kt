@@ -0,0 +1,87 @@
+package org.partiql.lang.eval.physical.operators
+
+import org.partiql.lang.domains.PartiqlPhysical
+import org.partiql.lang.eval.physical.EvaluatorState
+import org.partiql.lang.eval.physical.recordMaterializedRows
+import org.partiql.lang.eval.relation.RelationIterator
+import org.partiql.lang.eval.relation.RelationType
+import org.partiql.lang.eval.relation.relation
+import org.partiql.lang.planner.transforms.optimizations.TOP_N_SORT_IMPL_NAME
+import org.partiql.lang.util.TopNCollector
+import org.partiql.lang.util.topNCount
+
+/**
+ * Provides the top-N implementation of the [PartiqlPhysical.Bexpr.Sort] operator, i.e. a sort fused with the `LIMIT`
+ * and `OFFSET` that follow it, which are given as the static arguments of the implementation.
+ *
+ * Only `LIMIT + OFFSET` rows are kept in memory, in a bounded heap.
+ *
+ * @see org.partiql.lang.planner.transforms.optimizations.createSortLimitToTopNPass
+ */
+internal object TopNSortOperatorFactoryAsync : SortOperatorFactoryAsync(TOP_N_SORT_IMPL_NAME) {
+
+    override fun create(
+        sortKeys: List<CompiledSortKeyAsync>,
+        sourceRelation: RelationExpressionAsync
+    ): RelationExpressionAsync = SortOperatorDefaultAsync(sortKeys, sourceRelation)
+
+    override fun create(
+        impl: PartiqlPhysical.Impl,
+        sortKeys: List<CompiledSortKeyAsync>,
+        sourceRelation: RelationExpressionAsync
+    ): RelationExpressionAsync {
+        val (limit, offset) = impl.topNRowCounts()
+        return TopNSortOperatorAsync(sortKeys, sourceRelation, limit, offset)
+    }
+}
+
+internal class TopNSortOperatorAsync(
+    private val sortKeys: List<CompiledSortKeyAsync>,
+    private val sourceRelation: RelationExpressionAsync,
+    private val limit: Long,
+    private val offset: Long
+) : RelationExpressionAsync {
+    override suspend fun evaluate(state: EvaluatorState): RelationIterator {
+        val collector = TopNCollector(sortRowComparator(sortKeys.map { it.comparator }), topNCount(limit, offset))
+
+        // Consume Input
+        sourceRelation.forEachRow(state) {
+            val keys = Array(sortKeys.size) { sortKeys[it].value(state) }
+            collector.add(SortRow(keys, state.registers.clone()))
+        }
+
+        // Yield Sorted Rows, skipping the first `offset` ones
+        val sortedRows = collector.toSortedList()
+        state.recordMaterializedRows(sortedRows.size)
+        // The collector holds at most `limit + offset` rows, thus only the rows it kept are accounted.
+        val memory = state.reserveMemory(this@TopNSortOperatorAsync)
+        sortedRows.forEach { memory.add(it.registers) }
+        return relation(RelationType.LIST) {
+            var index = 0L
+            sortedRows.forEach { row ->
+                if (index++ >= offset) {
+                    state.load(row.registers)
+                    yield()
+                }
+            }
+            memory.release()
+        }
+    }
+}
+
+/**
+ * Returns the `LIMIT` and `OFFSET` static arguments of the top-N implementation of the
+ * [PartiqlPhysical.Bexpr.Sort] operator.
+ */
+internal fun PartiqlPhysical.Impl.topNRowCounts(): Pair<Long, Long> {
+    // Sanity check the static arguments. If this check fails, it would indicate a bug in the rewrite which created
+    // this (sort ...) operator.
+    require(staticArgs.size == 2) {
+        "Expected two static arguments to $TOP_N_SORT_IMPL_NAME but found ${staticArgs.size}"
+    }
+    val (limit, offset) = staticArgs.map { it.longValue }
+    require(limit >= 0 && offset >= 0) {
+        "Expected non-negative static arguments to $TOP_N_SORT_IMPL_NAME but found $limit and $offset"
+    }
+    return limit to offset
+}
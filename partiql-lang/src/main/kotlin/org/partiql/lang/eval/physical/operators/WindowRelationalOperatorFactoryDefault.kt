@@ -37,8 +37,10 @@ internal class WindowOperatorDefault(
     override fun evaluate(state: EvaluatorState): RelationIterator {
         // the following corresponding to materialization process
         val sourceIter = source.evaluate(state)
+        val memory = state.reserveMemory(this@WindowOperatorDefault)
         val registers = sequence {
             while (sourceIter.nextRow()) {
+                memory.add(state.registers)
                 yield(state.registers.clone())
             }
         }
@@ -107,6 +109,7 @@ internal class WindowOperatorDefault(
                     yield()
                 }
             }
+            memory.release()
         }
     }
 }
@@ -5,6 +5,7 @@ import org.partiql.lang.eval.ExprValue
 import org.partiql.lang.eval.NaturalExprValueComparators
 import org.partiql.lang.eval.exprEquals
 import org.partiql.lang.eval.physical.EvaluatorState
+import org.partiql.lang.eval.physical.recordMaterializedRows
 import org.partiql.lang.eval.relation.RelationIterator
 import org.partiql.lang.eval.relation.RelationType
 import org.partiql.lang.eval.relation.relation
@@ -36,11 +37,11 @@ internal class WindowOperatorDefaultAsync(
 ) : RelationExpressionAsync {
     override suspend fun evaluate(state: EvaluatorState): RelationIterator {
         // the following corresponding to materialization process
-        val sourceIter = source.evaluate(state)
-        val registers = sequence {
-            while (sourceIter.nextRow()) {
-                yield(state.registers.clone())
-            }
+        val memory = state.reserveMemory(this@WindowOperatorDefaultAsync)
+        val registers = mutableListOf<Array<ExprValue>>()
+        source.forEachRow(state) {
+            memory.add(state.registers)
+            registers.add(state.registers.clone())
         }
 
         val partitionSortSpec = windowPartitionList.map {
@@ -49,12 +50,13 @@ internal class WindowOperatorDefaultAsync(
 
         val sortKeys = partitionSortSpec + windowSortSpecList
 
-        val newRegisters = registers.toList().map { row ->
+        val newRegisters = registers.map { row ->
             state.load(row)
             row to sortKeys.map { sk ->
                 sk.value(state)
             }
         }.toMutableList()
+        state.recordMaterializedRows(newRegisters.size)
 
         val sortedRegisters = newRegisters.sortedWith(getSortingComparator(sortKeys.map { it.comparator })).map { it.first }
 
@@ -114,6 +116,7 @@ internal class WindowOperatorDefaultAsync(
                     yield()
                 }
             }
+            memory.release()
         }
     }
 }
@@ -0,0 +1,67 @@
+package org.partiql.lang.eval.relation
+
+import org.partiql.lang.eval.physical.EvaluatorState
+
+/**
+ * Represents an iterator over the rows of a relation that produces the rows in batches, as an alternative to
+ * [RelationIterator], which produces the rows one at a time.
+ *
+ * Each call to [nextBatch] processes up to [RowBatch.maxSize] rows with plain loops, where [RelationIterator]s built by
+ * [relation] resume a coroutine for every row.
+ */
+interface BatchRelationIterator {
+    val relType: RelationType
+
+    /**
+     * Clears [batch] and fills it with the next rows of the relation, up to [RowBatch.maxSize] rows.
+     *
+     * Returns true if at least one row was added to [batch].  False if there are no more rows, in which case this
+     * function should not be called again.
+     */
+    suspend fun nextBatch(batch: RowBatch): Boolean
+}
+
+/** Creates a [BatchRelationIterator] whose [BatchRelationIterator.nextBatch] invokes [nextBatch]. */
+internal inline fun batchRelation(
+    relType: RelationType,
+    crossinline nextBatch: suspend (RowBatch) -> Boolean
+): BatchRelationIterator = object : BatchRelationIterator {
+    override val relType: RelationType = relType
+    override suspend fun nextBatch(batch: RowBatch): Boolean = nextBatch(batch)
+}
+
+/**
+ * Adapts this [RelationIterator] to a [BatchRelationIterator] by copying the [EvaluatorState.registers] of [state] to
+ * the batch after every row.
+ */
+internal fun RelationIterator.toBatchRelationIterator(state: EvaluatorState): BatchRelationIterator {
+    var exhausted = false
+    return batchRelation(relType) { batch ->
+        batch.clear()
+        while (!exhausted && !batch.isFull) {
+            if (nextRow()) {
+                batch.add(state)
+            } else {
+                exhausted = true
+            }
+        }
+        batch.size > 0
+    }
+}
+
+/**
+ * Adapts this [BatchRelationIterator] to a [RelationIterator] by loading each row of each batch into the
+ * [EvaluatorState.registers] of [state].
+ */
+internal fun BatchRelationIterator.toRelationIterator(state: EvaluatorState): RelationIterator {
+    val batches = this
+    return relation(relType) {
+        val batch = RowBatch()
+        while (batches.nextBatch(batch)) {
+            for (i in 0 until batch.size) {
+                state.load(batch[i])
+                yield()
+            }
+        }
+    }
+}
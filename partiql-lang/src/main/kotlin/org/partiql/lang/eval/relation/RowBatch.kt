@@ -0,0 +1,83 @@
+package org.partiql.lang.eval.relation
+
+import org.partiql.lang.eval.ExprValue
+import org.partiql.lang.eval.physical.EvaluatorState
+
+/** The default [RowBatch.capacity]. */
+const val DEFAULT_ROW_BATCH_CAPACITY: Int = 1024
+
+/**
+ * A batch of rows produced by a [BatchRelationIterator].
+ *
+ * Each row is a copy of the [EvaluatorState.registers] taken when the row was [add]ed.  The arrays holding the rows are
+ * owned by the batch and are reused once the batch is [clear]ed, thus a consumer must copy a row if it needs the row
+ * to outlive the current batch.
+ *
+ * @param capacity the maximum number of rows the batch can hold.
+ */
+class RowBatch(val capacity: Int = DEFAULT_ROW_BATCH_CAPACITY) {
+
+    init {
+        require(capacity > 0) { "capacity must be greater than zero" }
+    }
+
+    private val rows = arrayOfNulls<Array<ExprValue>>(capacity)
+
+    /** The number of rows in the batch. */
+    var size: Int = 0
+        private set
+
+    /**
+     * The number of rows after which the batch is considered [isFull], at most [capacity].
+     *
+     * Consumers which only need a few more rows (e.g. `LIMIT`) lower this, such that producers do not evaluate rows
+     * that will not be consumed.
+     */
+    var maxSize: Int = capacity
+        set(value) {
+            require(value in 1..capacity) { "maxSize must be between 1 and $capacity" }
+            field = value
+        }
+
+    /** True if no more rows should be [add]ed to the batch. */
+    val isFull: Boolean
+        get() = size >= maxSize
+
+    /** Returns the registers of the row at [index]. */
+    operator fun get(index: Int): Array<ExprValue> {
+        if (index !in 0 until size) {
+            throw IndexOutOfBoundsException("Index $index is out of bounds for a batch of $size rows")
+        }
+        return rows[index]!!
+    }
+
+    /** Adds a row to the batch containing a copy of the current [EvaluatorState.registers] of [state]. */
+    fun add(state: EvaluatorState) {
+        check(size < capacity) { "The batch is full" }
+        val row = rows[size]
+        if (row == null || row.size != state.registers.size) {
+            rows[size] = state.registers.copyOf()
+        } else {
+            System.arraycopy(state.registers, 0, row, 0, row.size)
+        }
+        size++
+    }
+
+    /** Exchanges the rows at [i] and [j]. */
+    fun swap(i: Int, j: Int) {
+        val row = this[i]
+        rows[i] = this[j]
+        rows[j] = row
+    }
+
+    /** Removes the rows at and after [newSize]. */
+    fun truncate(newSize: Int) {
+        require(newSize in 0..size) { "newSize must be between 0 and $size" }
+        size = newSize
+    }
+
+    /** Removes all rows from the batch. */
+    fun clear() {
+        size = 0
+    }
+}
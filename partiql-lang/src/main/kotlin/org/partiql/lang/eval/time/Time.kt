@@ -16,7 +16,6 @@ import java.time.OffsetTime
 import java.time.ZoneOffset
 import java.time.format.DateTimeFormatter
 import java.time.temporal.ChronoField
-import kotlin.math.min
 
 // Constants related to the TIME
 
@@ -62,6 +61,15 @@ data class Time private constructor(val localTime: LocalTime, val precision: Int
         private const val LESS = -1
         private const val MORE = 1
 
+        /**
+         * The formatters of [toString] for each precision, which are compiled once.
+         * These patterns are subject to change based on the java's [DateTimeFormatter]. [java doc](https://docs.oracle.com/javase/8/docs/api/java/time/format/DateTimeFormatter.html)
+         * Check here if there are issues with the output format pattern.
+         */
+        private val FORMATTERS = Array(MAX_PRECISION_FOR_TIME + 1) { precision ->
+            DateTimeFormatter.ofPattern("HH:mm:ss" + if (precision > 0) "." + "S".repeat(precision) else "")
+        }
+
         /** Returns an instance of [Time] for the given hour, minute, second, precision and tz_minutes.
          * @param hour  the hour of a day of 24 hours to represent, from 0 to 23
          * @param minute  the minute of hour of 60 minutes to represent, from 0 to 59
@@ -171,17 +179,8 @@ data class Time private constructor(val localTime: LocalTime, val precision: Int
             addTypeAnnotation(TIME_ANNOTATION)
         }
 
-    /**
-     + Generates a formatter pattern at run time depending on the precision value.
-     * This pattern is subject to change based on the java's [DateTimeFormatter]. [java doc](https://docs.oracle.com/javase/8/docs/api/java/time/format/DateTimeFormatter.html)
-     * Check here if there are issues with the output format pattern.
-     */
-    private fun formatterPattern(): String {
-        return "HH:mm:ss" + if (precision > 0) "." + "S".repeat(min(9, precision)) else ""
-    }
-
     override fun toString(): String =
-        localTime.format(DateTimeFormatter.ofPattern(formatterPattern())) +
+        localTime.format(FORMATTERS[precision]) +
             (zoneOffset?.getOffsetHHmm() ?: "")
 
     /**
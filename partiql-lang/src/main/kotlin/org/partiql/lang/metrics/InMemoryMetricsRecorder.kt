@@ -0,0 +1,86 @@
+package org.partiql.lang.metrics
+
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.LongAccumulator
+import java.util.concurrent.atomic.LongAdder
+
+/**
+ * A [MetricsRecorder] which keeps the metrics in memory, e.g. to verify them in tests or to expose them without a
+ * metrics library.  It does not take locks: the metrics are kept in concurrent maps of [LongAdder]s and
+ * [LongAccumulator]s, thus a snapshot taken while metrics are recorded is not necessarily consistent.
+ */
+class InMemoryMetricsRecorder : MetricsRecorder {
+
+    /** Identifies a metric by its [name] and [tags]. */
+    data class MetricKey(val name: String, val tags: Map<String, String>)
+
+    /**
+     * A snapshot of a distribution.
+     *
+     * @property count The number of samples.
+     * @property sum The sum of the samples.
+     * @property min The smallest sample, or 0 if there is none.
+     * @property max The largest sample, or 0 if there is none.
+     */
+    data class DistributionSnapshot(val count: Long, val sum: Long, val min: Long, val max: Long) {
+        /** The mean of the samples, or 0 if there is none. */
+        val mean: Double
+            get() = if (count == 0L) 0.0 else sum.toDouble() / count
+    }
+
+    private class Distribution {
+        val count = LongAdder()
+        val sum = LongAdder()
+        val min = LongAccumulator({ a, b -> minOf(a, b) }, Long.MAX_VALUE)
+        val max = LongAccumulator({ a, b -> maxOf(a, b) }, Long.MIN_VALUE)
+
+        fun snapshot(): DistributionSnapshot {
+            val count = count.sum()
+            return when (count) {
+                0L -> DistributionSnapshot(0, 0, 0, 0)
+                else -> DistributionSnapshot(count, sum.sum(), min.get(), max.get())
+            }
+        }
+    }
+
+    private val counters = ConcurrentHashMap<MetricKey, LongAdder>()
+    private val distributions = ConcurrentHashMap<MetricKey, Distribution>()
+
+    override fun increment(name: String, tags: Map<String, String>, amount: Long) {
+        counters.computeIfAbsent(MetricKey(name, tags)) { LongAdder() }.add(amount)
+    }
+
+    override fun record(name: String, tags: Map<String, String>, value: Long) {
+        val distribution = distributions.computeIfAbsent(MetricKey(name, tags)) { Distribution() }
+        distribution.count.increment()
+        distribution.sum.add(value)
+        distribution.min.accumulate(value)
+        distribution.max.accumulate(value)
+    }
+
+    /** Returns the value of the counter [name] with exactly the given [tags], or 0 if it was never incremented. */
+    @JvmOverloads
+    fun counter(name: String, tags: Map<String, String> = emptyMap()): Long =
+        counters[MetricKey(name, tags)]?.sum() ?: 0
+
+    /** Returns the sum of the counters [name], whatever their tags. */
+    fun counterTotal(name: String): Long =
+        counters.entries.filter { it.key.name == name }.sumOf { it.value.sum() }
+
+    /** Returns a snapshot of the distribution [name] with exactly the given [tags]. */
+    @JvmOverloads
+    fun distribution(name: String, tags: Map<String, String> = emptyMap()): DistributionSnapshot =
+        distributions[MetricKey(name, tags)]?.snapshot() ?: DistributionSnapshot(0, 0, 0, 0)
+
+    /** Returns a snapshot of all counters. */
+    fun counters(): Map<MetricKey, Long> = counters.mapValues { it.value.sum() }
+
+    /** Returns a snapshot of all distributions. */
+    fun distributions(): Map<MetricKey, DistributionSnapshot> = distributions.mapValues { it.value.snapshot() }
+
+    /** Removes all metrics. */
+    fun clear() {
+        counters.clear()
+        distributions.clear()
+    }
+}
@@ -0,0 +1,114 @@
+package org.partiql.lang.metrics
+
+import org.partiql.lang.SqlException
+
+/**
+ * Receives the metrics of the parser, planner, compilers and evaluators, such that they can be reported to a metrics
+ * library (e.g. Micrometer) without PartiQL depending on it.  The names and tags of the metrics are listed in
+ * [PartiQLMetrics].
+ *
+ * Implementations must be thread-safe and should not block: they are called on the threads compiling and evaluating
+ * statements.  See [InMemoryMetricsRecorder] for an implementation keeping the metrics in memory.
+ */
+interface MetricsRecorder {
+
+    /** Adds [amount] to the counter [name] with the given [tags]. */
+    fun increment(name: String, tags: Map<String, String>, amount: Long)
+
+    /**
+     * Records a sample of the distribution [name] with the given [tags], e.g. the number of rows produced by a query or
+     * a duration in nanoseconds.
+     */
+    fun record(name: String, tags: Map<String, String>, value: Long)
+
+    companion object {
+        /** A [MetricsRecorder] which discards all metrics, the default of the pipelines. */
+        @JvmField
+        val NONE: MetricsRecorder = object : MetricsRecorder {
+            override fun increment(name: String, tags: Map<String, String>, amount: Long) {}
+            override fun record(name: String, tags: Map<String, String>, value: Long) {}
+        }
+    }
+}
+
+/** The names of the metrics reported to a [MetricsRecorder], and of their tags. */
+object PartiQLMetrics {
+    /** The time spent parsing a statement, in nanoseconds. */
+    const val PARSE_TIME = "partiql.parse.time"
+
+    /** The time spent planning a statement, in nanoseconds. */
+    const val PLAN_TIME = "partiql.plan.time"
+
+    /** The time spent compiling a statement (or its plan), in nanoseconds. */
+    const val COMPILE_TIME = "partiql.compile.time"
+
+    /**
+     * The time spent evaluating a statement, in nanoseconds.  The statements of [org.partiql.lang.CompilerPipeline]
+     * return lazily evaluated values, thus only the time spent until the value is returned is measured for them.
+     */
+    const val EVAL_TIME = "partiql.eval.time"
+
+    /**
+     * The number of rows (the elements of the bag or list) produced by a query evaluated by
+     * [org.partiql.lang.compiler.PartiQLCompilerPipelineAsync].
+     */
+    const val ROWS_PRODUCED = "partiql.eval.rows"
+
+    /**
+     * The number of failed statements, tagged with [TAG_PHASE] and [TAG_ERROR_CODE]: the name of the
+     * [org.partiql.errors.ErrorCode] of the exception, the kind of planning problem, or [UNKNOWN_ERROR_CODE].
+     */
+    const val ERRORS = "partiql.errors"
+
+    /** The number of statements interrupted (see [Thread.interrupt]), tagged with [TAG_PHASE]. */
+    const val INTERRUPTS = "partiql.interrupts"
+
+    /** The number of statements returned by the compiled-statement cache of a pipeline. */
+    const val STATEMENT_CACHE_HITS = "partiql.statement_cache.hits"
+
+    /** The number of statements compiled on a miss of the compiled-statement cache of a pipeline. */
+    const val STATEMENT_CACHE_MISSES = "partiql.statement_cache.misses"
+
+    /** The tag of the phase of an error or interrupt: [PHASE_PARSE], [PHASE_PLAN], [PHASE_COMPILE] or [PHASE_EVAL]. */
+    const val TAG_PHASE = "phase"
+
+    /** The tag of the error code of an error. */
+    const val TAG_ERROR_CODE = "error_code"
+
+    const val PHASE_PARSE = "parse"
+    const val PHASE_PLAN = "plan"
+    const val PHASE_COMPILE = "compile"
+    const val PHASE_EVAL = "eval"
+
+    /** The [TAG_ERROR_CODE] of the exceptions without an error code. */
+    const val UNKNOWN_ERROR_CODE = "UNKNOWN"
+}
+
+internal fun MetricsRecorder.recordError(phase: String, errorCode: String) =
+    increment(
+        PartiQLMetrics.ERRORS,
+        mapOf(PartiQLMetrics.TAG_PHASE to phase, PartiQLMetrics.TAG_ERROR_CODE to errorCode),
+        1
+    )
+
+/**
+ * Evaluates [block] and records its duration as a sample of the distribution [timer], and its errors and interrupts as
+ * those of [phase].  Does not measure anything for [MetricsRecorder.NONE].
+ */
+internal inline fun <T> MetricsRecorder.measure(phase: String, timer: String, block: () -> T): T {
+    if (this === MetricsRecorder.NONE) {
+        return block()
+    }
+    val start = System.nanoTime()
+    try {
+        return block()
+    } catch (e: InterruptedException) {
+        increment(PartiQLMetrics.INTERRUPTS, mapOf(PartiQLMetrics.TAG_PHASE to phase), 1)
+        throw e
+    } catch (e: Exception) {
+        recordError(phase, (e as? SqlException)?.errorCode?.name ?: PartiQLMetrics.UNKNOWN_ERROR_CODE)
+        throw e
+    } finally {
+        record(timer, emptyMap(), System.nanoTime() - start)
+    }
+}
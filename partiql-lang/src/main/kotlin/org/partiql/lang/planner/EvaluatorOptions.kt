@@ -24,6 +24,11 @@ compatibility on behalf of a customer we don't have anymore.  Internal bug numbe
  *
  * @param defaultTimezoneOffset Default timezone offset to be used when TIME WITH TIME ZONE does not explicitly
  * specify the time zone. Defaults to [ZoneOffset.UTC].
+ * @param profiling If true, runtime statistics are collected for each relational operator of the queries compiled by
+ * the asynchronous compiler, and returned by [org.partiql.lang.eval.PartiQLResult.getProfile].  Defaults to false.
+ * @param codegen If true, the scalar operators of the queries compiled by the synchronous compiler (arithmetic,
+ * comparisons, `AND`, `OR` and `NOT`) are compiled to the bytecode of JVM classes instead of nested thunks, which the JIT
+ * optimizes better.  Experimental; defaults to false.
  */
 @Suppress("DataClassPrivateConstructor")
 data class EvaluatorOptions private constructor (
@@ -31,7 +36,9 @@ data class EvaluatorOptions private constructor (
     val thunkOptions: ThunkOptions = ThunkOptions.standard(),
     val typingMode: TypingMode = TypingMode.LEGACY,
     val typedOpBehavior: TypedOpBehavior = TypedOpBehavior.HONOR_PARAMETERS,
-    val defaultTimezoneOffset: ZoneOffset = ZoneOffset.UTC
+    val defaultTimezoneOffset: ZoneOffset = ZoneOffset.UTC,
+    val profiling: Boolean = false,
+    val codegen: Boolean = false
 ) {
     companion object {
 
@@ -74,6 +81,8 @@ data class EvaluatorOptions private constructor (
         fun typedOpBehavior(value: TypedOpBehavior) = set { copy(typedOpBehavior = value) }
         fun thunkOptions(value: ThunkOptions) = set { copy(thunkOptions = value) }
         fun defaultTimezoneOffset(value: ZoneOffset) = set { copy(defaultTimezoneOffset = value) }
+        fun profiling(value: Boolean) = set { copy(profiling = value) }
+        fun codegen(value: Boolean) = set { copy(codegen = value) }
 
         private inline fun set(block: EvaluatorOptions.() -> EvaluatorOptions): Builder {
             options = block(options)
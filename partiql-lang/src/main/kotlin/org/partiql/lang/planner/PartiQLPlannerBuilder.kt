@@ -15,6 +15,7 @@
 package org.partiql.lang.planner
 
 import org.partiql.annotations.ExperimentalPartiQLCompilerPipeline
+import org.partiql.lang.metrics.MetricsRecorder
 
 /**
  * Builder class to instantiate a [PartiQLPlanner].
@@ -26,6 +27,7 @@ class PartiQLPlannerBuilder private constructor() {
     private var physicalPlanPasses: List<PartiQLPhysicalPass> = emptyList()
     private var callback: PlannerEventCallback? = null
     private var options = PartiQLPlanner.Options()
+    private var metrics = MetricsRecorder.NONE
 
     companion object {
 
@@ -49,10 +51,16 @@ class PartiQLPlannerBuilder private constructor() {
         this.callback = callback
     }
 
+    /** Reports the planning time and the planning errors to [metrics]. */
+    fun metrics(metrics: MetricsRecorder) = this.apply {
+        this.metrics = metrics
+    }
+
     fun build(): PartiQLPlanner = PartiQLPlannerDefault(
         globalVariableResolver = globalVariableResolver,
         physicalPlanPasses = physicalPlanPasses,
         callback = callback,
-        options = options
+        options = options,
+        metrics = metrics
     )
 }
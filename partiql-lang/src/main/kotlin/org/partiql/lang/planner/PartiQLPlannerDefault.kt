@@ -15,6 +15,7 @@
 package org.partiql.lang.planner
 
 import org.partiql.annotations.ExperimentalPartiQLCompilerPipeline
+import org.partiql.errors.ProblemSeverity
 import org.partiql.lang.domains.PartiqlAst
 import org.partiql.lang.domains.PartiqlLogical
 import org.partiql.lang.domains.PartiqlLogicalResolved
@@ -30,6 +31,10 @@ import org.partiql.lang.eval.visitors.PipelinedVisitorTransform
 import org.partiql.lang.eval.visitors.SelectListItemAliasVisitorTransform
 import org.partiql.lang.eval.visitors.SelectStarVisitorTransform
 import org.partiql.lang.eval.visitors.SubqueryCoercionVisitorTransform
+import org.partiql.lang.metrics.MetricsRecorder
+import org.partiql.lang.metrics.PartiQLMetrics
+import org.partiql.lang.metrics.measure
+import org.partiql.lang.metrics.recordError
 import org.partiql.lang.planner.transforms.AstToLogicalVisitorTransform
 import org.partiql.lang.planner.transforms.LogicalResolvedToDefaultPhysicalVisitorTransform
 import org.partiql.lang.planner.transforms.LogicalToLogicalResolvedVisitorTransform
@@ -43,11 +48,22 @@ internal class PartiQLPlannerDefault(
     private val globalVariableResolver: GlobalVariableResolver,
     private val physicalPlanPasses: List<PartiQLPhysicalPass>,
     private val callback: PlannerEventCallback?,
-    private val options: PartiQLPlanner.Options
+    private val options: PartiQLPlanner.Options,
+    private val metrics: MetricsRecorder = MetricsRecorder.NONE
 ) : PartiQLPlanner {
 
     override fun plan(statement: PartiqlAst.Statement): PartiQLPlanner.Result {
+        val result = metrics.measure(PartiQLMetrics.PHASE_PLAN, PartiQLMetrics.PLAN_TIME) { planStatement(statement) }
+        if (result is PartiQLPlanner.Result.Error) {
+            result.problems.filter { it.details.severity == ProblemSeverity.ERROR }.forEach {
+                val errorCode = it.details::class.simpleName ?: PartiQLMetrics.UNKNOWN_ERROR_CODE
+                metrics.recordError(PartiQLMetrics.PHASE_PLAN, errorCode)
+            }
+        }
+        return result
+    }
 
+    private fun planStatement(statement: PartiqlAst.Statement): PartiQLPlanner.Result {
         val problemHandler = ProblemCollector()
 
         // Step 1. Normalize the AST
@@ -0,0 +1,128 @@
+package org.partiql.lang.planner.transforms
+
+import org.partiql.lang.domains.PartiqlPhysical
+
+/**
+ * The decomposition of a join predicate into its equi-join conjuncts and the remaining (residual) conjuncts.
+ *
+ * For example, given a join of `l` and `r` with the predicate `l.a = r.b AND r.c = l.d + 1 AND l.e < r.f`:
+ *
+ * - [leftKeys] is `[l.a, l.d + 1]`,
+ * - [rightKeys] is `[r.b, r.c]`, and
+ * - [residual] is `l.e < r.f`.
+ *
+ * [leftKeys] and [rightKeys] always have the same size and are ordered such that `leftKeys[n] = rightKeys[n]` is one
+ * of the conjuncts of the original predicate.  Each element of [leftKeys] references only variables declared by the
+ * left side of the join (and perhaps variables from an outer scope) but never any variable declared by the right side,
+ * and vice versa.
+ */
+internal data class EquiJoinPredicate(
+    val leftKeys: List<PartiqlPhysical.Expr>,
+    val rightKeys: List<PartiqlPhysical.Expr>,
+    val residual: PartiqlPhysical.Expr?
+)
+
+/**
+ * Attempts to decompose the receiving join predicate into an [EquiJoinPredicate] given the variables declared by the
+ * left ([leftVariables]) and right ([rightVariables]) sides of the join.
+ *
+ * Only the conjuncts at the root of the predicate (or nested at any level within a tree of `and` expressions) are
+ * considered.  Returns `null` if no conjunct is an equality between an expression over the left side only and an
+ * expression over the right side only.
+ */
+internal fun PartiqlPhysical.Expr.toEquiJoinPredicate(
+    leftVariables: Set<Long>,
+    rightVariables: Set<Long>
+): EquiJoinPredicate? {
+    val leftKeys = ArrayList<PartiqlPhysical.Expr>()
+    val rightKeys = ArrayList<PartiqlPhysical.Expr>()
+    val residuals = ArrayList<PartiqlPhysical.Expr>()
+
+    this.conjuncts().forEach { conjunct ->
+        val operands = (conjunct as? PartiqlPhysical.Expr.Eq)?.operands
+        if (operands == null || operands.size != 2) {
+            residuals.add(conjunct)
+            return@forEach
+        }
+        val (first, second) = operands
+        val firstVariables = first.referencedVariables()
+        val secondVariables = second.referencedVariables()
+        when {
+            firstVariables.isOver(leftVariables, rightVariables) && secondVariables.isOver(rightVariables, leftVariables) -> {
+                leftKeys.add(first)
+                rightKeys.add(second)
+            }
+            firstVariables.isOver(rightVariables, leftVariables) && secondVariables.isOver(leftVariables, rightVariables) -> {
+                leftKeys.add(second)
+                rightKeys.add(first)
+            }
+            else -> residuals.add(conjunct)
+        }
+    }
+
+    if (leftKeys.isEmpty()) {
+        return null
+    }
+
+    val residual = when (residuals.size) {
+        0 -> null
+        1 -> residuals.single()
+        else -> PartiqlPhysical.Expr.And(residuals, this.metas)
+    }
+    return EquiJoinPredicate(leftKeys, rightKeys, residual)
+}
+
+/**
+ * Returns the variables declared by the receiving [PartiqlPhysical.Bexpr], i.e. the variables which are accessible to
+ * the parent of the receiver.
+ *
+ * Variables declared within sub-queries are not included.
+ */
+internal fun PartiqlPhysical.Bexpr.extractAccessibleVarDecls(): List<PartiqlPhysical.VarDecl> =
+    // This fold traverses a [PartiqlPhysical.Bexpr] node and extracts all variable declarations within
+    // It avoids recursing into sub-queries.
+    object : PartiqlPhysical.VisitorFold<List<PartiqlPhysical.VarDecl>>() {
+        override fun visitVarDecl(
+            node: PartiqlPhysical.VarDecl,
+            accumulator: List<PartiqlPhysical.VarDecl>
+        ): List<PartiqlPhysical.VarDecl> = accumulator + node
+
+        /**
+         * Avoids recursion into expressions, since these may contain sub-queries with other var-decls that we don't
+         * care about here.
+         */
+        override fun walkExpr(
+            node: PartiqlPhysical.Expr,
+            accumulator: List<PartiqlPhysical.VarDecl>
+        ): List<PartiqlPhysical.VarDecl> {
+            return accumulator
+        }
+    }.walkBexpr(this, emptyList())
+
+/**
+ * Returns the indexes of all local variables referenced anywhere within the receiving [PartiqlPhysical.Bexpr],
+ * including references from within sub-queries.
+ */
+internal fun PartiqlPhysical.Bexpr.referencedVariables(): Set<Long> =
+    object : PartiqlPhysical.VisitorFold<Set<Long>>() {
+        override fun visitExprLocalId(node: PartiqlPhysical.Expr.LocalId, accumulator: Set<Long>): Set<Long> =
+            accumulator + node.index.value
+    }.walkBexpr(this, emptySet())
+
+/** Returns the indexes of all local variables referenced anywhere within the receiving [PartiqlPhysical.Expr]. */
+internal fun PartiqlPhysical.Expr.referencedVariables(): Set<Long> =
+    object : PartiqlPhysical.VisitorFold<Set<Long>>() {
+        override fun visitExprLocalId(node: PartiqlPhysical.Expr.LocalId, accumulator: Set<Long>): Set<Long> =
+            accumulator + node.index.value
+    }.walkExpr(this, emptySet())
+
+/** Flattens a tree of `and` expressions into a list of its conjuncts. */
+internal fun PartiqlPhysical.Expr.conjuncts(): List<PartiqlPhysical.Expr> =
+    when (this) {
+        is PartiqlPhysical.Expr.And -> this.operands.flatMap { it.conjuncts() }
+        else -> listOf(this)
+    }
+
+/** True if the receiver references at least one variable of [side] and none of [otherSide]. */
+private fun Set<Long>.isOver(side: Set<Long>, otherSide: Set<Long>): Boolean =
+    this.any { it in side } && this.none { it in otherSide }
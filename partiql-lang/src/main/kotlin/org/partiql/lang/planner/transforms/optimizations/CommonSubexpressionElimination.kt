@@ -0,0 +1,451 @@
+package org.partiql.lang.planner.transforms.optimizations
+
+import com.amazon.ion.system.IonSystemBuilder
+import com.amazon.ionelement.api.toIonElement
+import org.partiql.errors.ProblemHandler
+import org.partiql.lang.SqlException
+import org.partiql.lang.domains.PartiqlPhysical
+import org.partiql.lang.eval.EvaluationSession
+import org.partiql.lang.eval.ExprValueType
+import org.partiql.lang.eval.TypingMode
+import org.partiql.lang.eval.builtins.ExprFunctionCurrentUser
+import org.partiql.lang.eval.builtins.ExprFunctionUtcNow
+import org.partiql.lang.eval.builtins.SCALAR_BUILTINS_DEFAULT
+import org.partiql.lang.eval.builtins.definitionalBuiltins
+import org.partiql.lang.eval.physical.PhysicalBexprToThunkConverter
+import org.partiql.lang.eval.physical.PhysicalPlanCompiler
+import org.partiql.lang.eval.physical.PhysicalPlanCompilerImpl
+import org.partiql.lang.eval.physical.PhysicalPlanThunk
+import org.partiql.lang.eval.toIonValue
+import org.partiql.lang.planner.EvaluatorOptions
+import org.partiql.lang.planner.PartiQLPhysicalPass
+import org.partiql.lang.planner.transforms.DEFAULT_IMPL
+import org.partiql.lang.planner.transforms.DEFAULT_IMPL_NAME
+import org.partiql.lang.planner.transforms.extractAccessibleVarDecls
+import org.partiql.lang.planner.transforms.referencedVariables
+
+/**
+ * The names of the built-in functions whose result only depends on their arguments, i.e. all of them except those
+ * reading the current time or user from the session.
+ */
+val DETERMINISTIC_BUILTIN_FUNCTIONS: Set<String> =
+    (definitionalBuiltins(TypingMode.LEGACY) + SCALAR_BUILTINS_DEFAULT).map { it.signature.name }.toSet() -
+        setOf(ExprFunctionUtcNow.signature.name, ExprFunctionCurrentUser.FUNCTION_NAME)
+
+/**
+ * Creates a pass that avoids evaluating the same expression more than needed, by:
+ *
+ * - Folding constant expressions: an expression whose operands are all literals, and which only calls deterministic
+ * built-in functions with at least one argument, is evaluated once during planning and replaced with its result,
+ * provided that the evaluation succeeds and that the result is a scalar value.  For example, `UPPER('a') || 'b'`
+ * becomes `'Ab'`, while `1 / 0` is left to fail at evaluation time.
+ * - Eliminating common subexpressions: a deterministic expression which references variables and occurs more than
+ * once in the projection of a `(bindings_to_values ...)` or the predicate of a `(filter ...)` is computed once per row
+ * by a `(let ...)` over the input of that operator, and its occurrences are replaced with the variable of the `let`.
+ * For example, `SELECT CAST(x.ts AS TIMESTAMP) AS a, CAST(x.ts AS TIMESTAMP) < y AS b FROM ...` casts `x.ts` once per
+ * row.
+ * - Hoisting loop-invariant expressions: a deterministic expression evaluated for every row of the inner side of a
+ * nested loop `(join ...)` (in its predicate, or in a `(filter ...)` or `(let ...)` of the inner side), but which only
+ * references variables of the outer side, is computed once per row of the outer side by a `(let ...)` over the outer
+ * side.  For example, `x.address.city` in `SELECT ... FROM t AS x LEFT JOIN x.stores AS s ON s.city = x.address.city`.
+ *
+ * An expression is only computed ahead of time when at least one of its occurrences is always evaluated, i.e. is not
+ * within an operand of `AND`, `OR`, `COALESCE` or `CASE` that may be skipped, such that an error raised by the
+ * expression would have been raised anyway.  Since a hoisted expression is also evaluated for the outer rows for which
+ * the inner side has no rows, only expressions which cannot raise an error (paths with literal steps, made of
+ * variables and literals) are hoisted.
+ *
+ * Expressions within sub-queries are considered separately for each sub-query.  Since this pass introduces `(let ...)`
+ * operators, it should be placed after the passes which match specific patterns of operators, such as
+ * [createFilterScanToKeyLookupPass].
+ *
+ * @param deterministicFunctions the names of the functions whose calls may be computed ahead of time and shared; only
+ * those that are built-in functions are folded.
+ * @param evaluatorOptions the options with which constant expressions are evaluated, which should be the same as the
+ * options of the compiler.
+ */
+fun createCommonSubexpressionEliminationPass(
+    deterministicFunctions: Set<String> = DETERMINISTIC_BUILTIN_FUNCTIONS,
+    evaluatorOptions: EvaluatorOptions = EvaluatorOptions.standard()
+): PartiQLPhysicalPass = CommonSubexpressionEliminationPass(deterministicFunctions, evaluatorOptions)
+
+/** The types of the values that can be represented by a `(lit ...)` or `(missing)`. */
+private val LITERAL_TYPES = setOf(
+    ExprValueType.MISSING,
+    ExprValueType.NULL,
+    ExprValueType.BOOL,
+    ExprValueType.INT,
+    ExprValueType.FLOAT,
+    ExprValueType.DECIMAL,
+    ExprValueType.TIMESTAMP,
+    ExprValueType.SYMBOL,
+    ExprValueType.STRING,
+    ExprValueType.CLOB,
+    ExprValueType.BLOB
+)
+
+private class CommonSubexpressionEliminationPass(
+    private val deterministicFunctions: Set<String>,
+    private val evaluatorOptions: EvaluatorOptions
+) : PartiQLPhysicalPass {
+    private val ion = IonSystemBuilder.standard().build()
+
+    override fun apply(plan: PartiqlPhysical.Plan, problemHandler: ProblemHandler): PartiqlPhysical.Plan {
+        val locals = plan.locals.toMutableList()
+        val folded = ConstantFolder().transformPlan(plan)
+        val rewritten = SubexpressionSharing(locals).transformPlan(folded)
+        return rewritten.copy(locals = locals)
+    }
+
+    /** True if the receiver only calls [deterministicFunctions] and does not contain sub-queries. */
+    private fun PartiqlPhysical.Expr.isDeterministic(): Boolean =
+        object : PartiqlPhysical.VisitorFold<Boolean>() {
+            override fun walkExpr(node: PartiqlPhysical.Expr, accumulator: Boolean): Boolean = when (node) {
+                is PartiqlPhysical.Expr.BindingsToValues, is PartiqlPhysical.Expr.Pivot -> false
+                is PartiqlPhysical.Expr.Call ->
+                    node.funcName.text in deterministicFunctions && super.walkExpr(node, accumulator)
+                else -> super.walkExpr(node, accumulator)
+            }
+        }.walkExpr(this, true)
+
+    /** True if the receiver is made of literals and operators whose result only depends on their operands. */
+    private fun PartiqlPhysical.Expr.isConstant(): Boolean =
+        object : PartiqlPhysical.VisitorFold<Boolean>() {
+            override fun walkExpr(node: PartiqlPhysical.Expr, accumulator: Boolean): Boolean = when (node) {
+                is PartiqlPhysical.Expr.Missing, is PartiqlPhysical.Expr.Lit, is PartiqlPhysical.Expr.Not,
+                is PartiqlPhysical.Expr.Pos, is PartiqlPhysical.Expr.Neg, is PartiqlPhysical.Expr.Plus,
+                is PartiqlPhysical.Expr.Minus, is PartiqlPhysical.Expr.Times, is PartiqlPhysical.Expr.Divide,
+                is PartiqlPhysical.Expr.Modulo, is PartiqlPhysical.Expr.Concat, is PartiqlPhysical.Expr.BitwiseAnd,
+                is PartiqlPhysical.Expr.And, is PartiqlPhysical.Expr.Or, is PartiqlPhysical.Expr.Eq,
+                is PartiqlPhysical.Expr.Ne, is PartiqlPhysical.Expr.Gt, is PartiqlPhysical.Expr.Gte,
+                is PartiqlPhysical.Expr.Lt, is PartiqlPhysical.Expr.Lte, is PartiqlPhysical.Expr.Like,
+                is PartiqlPhysical.Expr.Between, is PartiqlPhysical.Expr.InCollection, is PartiqlPhysical.Expr.IsType,
+                is PartiqlPhysical.Expr.SimpleCase, is PartiqlPhysical.Expr.SearchedCase,
+                is PartiqlPhysical.Expr.Struct, is PartiqlPhysical.Expr.Bag, is PartiqlPhysical.Expr.List,
+                is PartiqlPhysical.Expr.Sexp, is PartiqlPhysical.Expr.Date, is PartiqlPhysical.Expr.LitTime,
+                is PartiqlPhysical.Expr.Timestamp, is PartiqlPhysical.Expr.Path, is PartiqlPhysical.Expr.Cast,
+                is PartiqlPhysical.Expr.CanCast, is PartiqlPhysical.Expr.CanLosslessCast,
+                is PartiqlPhysical.Expr.NullIf, is PartiqlPhysical.Expr.Coalesce -> super.walkExpr(node, accumulator)
+                // Functions without arguments, such as `unix_timestamp()`, may read the session.
+                is PartiqlPhysical.Expr.Call ->
+                    node.args.isNotEmpty() && node.funcName.text in deterministicFunctions &&
+                        super.walkExpr(node, accumulator)
+                else -> false
+            }
+        }.walkExpr(this, true)
+
+    /** Replaces constant expressions with their values, see [createCommonSubexpressionEliminationPass]. */
+    private inner class ConstantFolder : PartiqlPhysical.VisitorTransform() {
+        private val compiler = PhysicalPlanCompilerImpl(
+            functions = definitionalBuiltins(evaluatorOptions.typingMode) + SCALAR_BUILTINS_DEFAULT,
+            customTypedOpParameters = emptyMap(),
+            procedures = emptyMap(),
+            evaluatorOptions = evaluatorOptions,
+            // Constant expressions do not contain relational operators.
+            bexperConverter = PhysicalBexprToThunkConverter(
+                exprConverter = object : PhysicalPlanCompiler {
+                    override fun convert(expr: PartiqlPhysical.Expr): PhysicalPlanThunk =
+                        error("Constant expressions do not contain sub-queries")
+                },
+                relationalOperatorFactory = emptyMap()
+            )
+        )
+
+        private val session = EvaluationSession.standard()
+
+        override fun transformExpr(node: PartiqlPhysical.Expr): PartiqlPhysical.Expr {
+            if (node !is PartiqlPhysical.Expr.Lit && node !is PartiqlPhysical.Expr.Missing && node.isConstant()) {
+                fold(node)?.let { return it }
+            }
+            return super.transformExpr(node)
+        }
+
+        /** Returns the literal value of [expr], or `null` if it cannot be evaluated or is not a scalar value. */
+        private fun fold(expr: PartiqlPhysical.Expr): PartiqlPhysical.Expr? {
+            val value = try {
+                compiler.compile(expr, localsSize = 0).eval(session)
+            } catch (e: SqlException) {
+                // Left for the evaluator to report (or, in permissive mode, to turn into `MISSING`).
+                return null
+            }
+            return when (value.type) {
+                ExprValueType.MISSING -> PartiqlPhysical.build { missing(expr.metas) }
+                in LITERAL_TYPES -> PartiqlPhysical.build { lit(value.toIonValue(ion).toIonElement(), expr.metas) }
+                else -> null
+            }
+        }
+    }
+
+    /**
+     * Shares common subexpressions and hoists loop-invariant expressions, see
+     * [createCommonSubexpressionEliminationPass].
+     * The variables it declares are added to [locals].
+     */
+    private inner class SubexpressionSharing(
+        private val locals: MutableList<PartiqlPhysical.LocalVariable>
+    ) : PartiqlPhysical.VisitorTransform() {
+
+        override fun transformExprBindingsToValues(node: PartiqlPhysical.Expr.BindingsToValues): PartiqlPhysical.Expr {
+            // Rewrite sub-queries first.
+            val rewritten = super.transformExprBindingsToValues(node) as PartiqlPhysical.Expr.BindingsToValues
+            val shared = share(listOf(rewritten.exp), minOccurrences = 2) { !it.isPathOfVariable() }
+            if (shared.bindings.isEmpty()) {
+                return rewritten
+            }
+            return PartiqlPhysical.build {
+                bindingsToValues(
+                    shared.exprs.single(),
+                    let(DEFAULT_IMPL, rewritten.query, shared.bindings),
+                    rewritten.metas
+                )
+            }
+        }
+
+        override fun transformBexprFilter(node: PartiqlPhysical.Bexpr.Filter): PartiqlPhysical.Bexpr {
+            val rewritten = super.transformBexprFilter(node) as PartiqlPhysical.Bexpr.Filter
+            val shared = share(listOf(rewritten.predicate), minOccurrences = 2) { !it.isPathOfVariable() }
+            if (shared.bindings.isEmpty()) {
+                return rewritten
+            }
+            return PartiqlPhysical.build {
+                filter(
+                    rewritten.i,
+                    shared.exprs.single(),
+                    let(DEFAULT_IMPL, rewritten.source, shared.bindings),
+                    rewritten.metas
+                )
+            }
+        }
+
+        override fun transformBexprJoin(node: PartiqlPhysical.Bexpr.Join): PartiqlPhysical.Bexpr {
+            val rewritten = super.transformBexprJoin(node) as PartiqlPhysical.Bexpr.Join
+            if (rewritten.i.name.text != DEFAULT_IMPL_NAME || rewritten.joinType is PartiqlPhysical.JoinType.Full) {
+                return rewritten
+            }
+            // The nested loop implementation evaluates the inner side once for every row of the outer side.
+            val rightIsInner = rewritten.joinType !is PartiqlPhysical.JoinType.Right
+            val outer = if (rightIsInner) rewritten.left else rewritten.right
+            val inner = if (rightIsInner) rewritten.right else rewritten.left
+            val outerVariables = outer.extractAccessibleVarDecls().map { it.index.value }.toSet()
+
+            val perRowExprs = listOfNotNull(rewritten.predicate) + inner.perRowExprs()
+            // Hoisted expressions are evaluated even if the inner side has no rows, thus must not raise errors.  A path
+            // of several steps, unlike a field of a variable, is worth computing once per row of the outer side.
+            val shared = share(perRowExprs, minOccurrences = 1) { expr ->
+                expr.isInfallible() && !expr.isFieldOfVariable() &&
+                    expr.referencedVariables().all { it in outerVariables }
+            }
+            if (shared.bindings.isEmpty()) {
+                return rewritten
+            }
+            val newOuter = PartiqlPhysical.build { let(DEFAULT_IMPL, outer, shared.bindings) }
+            val newInner = shared.replacers.fold(inner) { bexpr, replacer -> replacer.transformBexpr(bexpr) }
+            return PartiqlPhysical.build {
+                join(
+                    i = rewritten.i,
+                    joinType = rewritten.joinType,
+                    left = if (rightIsInner) newOuter else newInner,
+                    right = if (rightIsInner) newInner else newOuter,
+                    // The predicate, if any, is the first of the expressions evaluated for each pair of rows.
+                    predicate = rewritten.predicate?.let { shared.exprs.first() },
+                    metas = rewritten.metas
+                )
+            }
+        }
+
+        /**
+         * Selects the subexpressions of [exprs] to compute ahead of time, largest first, among those accepted by
+         * [accept] which occur at least [minOccurrences] times.
+         */
+        private fun share(
+            exprs: List<PartiqlPhysical.Expr>,
+            minOccurrences: Int,
+            accept: (PartiqlPhysical.Expr) -> Boolean
+        ): SharedSubexpressions {
+            var current = exprs
+            val bindings = ArrayList<PartiqlPhysical.LetBinding>()
+            val replacers = ArrayList<Replacer>()
+            while (true) {
+                // The values of the bindings may contain smaller common subexpressions.
+                val occurrences = Occurrences().apply {
+                    current.forEach { add(it, inScope = true) }
+                    bindings.forEach { add(it.value, inScope = false) }
+                }
+                val selected = occurrences.entries
+                    .filter { (expr, occurrence) ->
+                        // Subexpressions of the values of the bindings are only worth sharing if they occur elsewhere.
+                        occurrence.unconditional &&
+                            (occurrence.countInScope >= minOccurrences || occurrence.count >= 2) &&
+                            bindings.none { it.value == expr } && expr.isShareable() && accept(expr)
+                    }
+                    .maxByOrNull { it.value.size }
+                    ?.key
+                    ?: break
+                val decl = newVariable()
+                val replacer = Replacer(selected, decl)
+                current = current.map { replacer.transformExpr(it) }
+                bindings.replaceAll { PartiqlPhysical.build { letBinding(replacer.transformExpr(it.value), it.decl) } }
+                bindings.add(PartiqlPhysical.build { letBinding(selected, decl) })
+                replacers.add(replacer)
+            }
+            // A binding may reference the variables of the bindings selected after it.
+            return SharedSubexpressions(current, bindings.reversed(), replacers)
+        }
+
+        private fun newVariable(): PartiqlPhysical.VarDecl {
+            val index = locals.size.toLong()
+            locals.add(PartiqlPhysical.build { localVariable("\$__subexpression_$index", index) })
+            return PartiqlPhysical.build { varDecl(index) }
+        }
+
+        /**
+         * True if the receiver may be computed ahead of time: a deterministic expression which references variables
+         * (others are folded if possible) and is more than a variable.  Each caller of [share] further excludes the
+         * paths which are not worth computing ahead of time in its context.
+         */
+        private fun PartiqlPhysical.Expr.isShareable(): Boolean =
+            this !is PartiqlPhysical.Expr.LocalId && this.referencedVariables().isNotEmpty() && this.isDeterministic()
+    }
+
+    /** True if the receiver is a path from a variable whose steps are all literals, e.g. `x.address.city`. */
+    private fun PartiqlPhysical.Expr.isPathOfVariable(): Boolean =
+        this is PartiqlPhysical.Expr.Path && this.root is PartiqlPhysical.Expr.LocalId && this.steps.all {
+            it is PartiqlPhysical.PathStep.PathExpr && it.index is PartiqlPhysical.Expr.Lit
+        }
+
+    /** True if the receiver is a field of a variable, i.e. a path from a variable with a single literal step. */
+    private fun PartiqlPhysical.Expr.isFieldOfVariable(): Boolean =
+        this.isPathOfVariable() && (this as PartiqlPhysical.Expr.Path).steps.size == 1
+
+    /**
+     * True if the receiver cannot raise an error in any typing mode: a variable, a literal, or a path whose steps are
+     * literals or wildcards, since navigating into a value that has no such field or element returns `MISSING`.
+     */
+    private fun PartiqlPhysical.Expr.isInfallible(): Boolean = when (this) {
+        is PartiqlPhysical.Expr.LocalId, is PartiqlPhysical.Expr.Lit, is PartiqlPhysical.Expr.Missing -> true
+        is PartiqlPhysical.Expr.Path -> this.root.isInfallible() && this.steps.all {
+            when (it) {
+                is PartiqlPhysical.PathStep.PathExpr -> it.index is PartiqlPhysical.Expr.Lit
+                is PartiqlPhysical.PathStep.PathWildcard, is PartiqlPhysical.PathStep.PathUnpivot -> true
+            }
+        }
+        else -> false
+    }
+
+    /** Returns the expressions of the receiver that are evaluated for each of its rows. */
+    private fun PartiqlPhysical.Bexpr.perRowExprs(): List<PartiqlPhysical.Expr> =
+        object : PartiqlPhysical.VisitorFold<List<PartiqlPhysical.Expr>>() {
+            override fun visitBexprFilter(node: PartiqlPhysical.Bexpr.Filter, accumulator: List<PartiqlPhysical.Expr>) =
+                accumulator + node.predicate
+
+            override fun visitBexprLet(node: PartiqlPhysical.Bexpr.Let, accumulator: List<PartiqlPhysical.Expr>) =
+                accumulator + node.bindings.map { it.value }
+
+            override fun visitBexprJoin(node: PartiqlPhysical.Bexpr.Join, accumulator: List<PartiqlPhysical.Expr>) =
+                accumulator + listOfNotNull(node.predicate)
+
+            // Avoids recursion into sub-queries.
+            override fun walkExpr(node: PartiqlPhysical.Expr, accumulator: List<PartiqlPhysical.Expr>) = accumulator
+        }.walkBexpr(this, emptyList())
+}
+
+/**
+ * Counts the occurrences of the subexpressions of expressions evaluated together, outside of sub-queries, and whether
+ * at least one of these occurrences is always evaluated.
+ */
+private class Occurrences {
+    class Occurrence(val size: Int) {
+        var count = 0
+        var countInScope = 0
+        var unconditional = false
+    }
+
+    val entries = LinkedHashMap<PartiqlPhysical.Expr, Occurrence>()
+
+    private var conditionalDepth = 0
+    private var inScope = false
+
+    /** Adds the subexpressions of [expr], which are counted by [Occurrence.countInScope] if [inScope] is true. */
+    fun add(expr: PartiqlPhysical.Expr, inScope: Boolean) {
+        this.inScope = inScope
+        walker.walkExpr(expr, Unit)
+    }
+
+    private val walker = object : PartiqlPhysical.VisitorFold<Unit>() {
+        override fun walkExpr(node: PartiqlPhysical.Expr, accumulator: Unit) {
+            val occurrence = entries.getOrPut(node) { Occurrence(node.size()) }
+            occurrence.count++
+            if (inScope) {
+                occurrence.countInScope++
+            }
+            occurrence.unconditional = occurrence.unconditional || conditionalDepth == 0
+            when (node) {
+                is PartiqlPhysical.Expr.And -> walk(node.operands.take(1), node.operands.drop(1))
+                is PartiqlPhysical.Expr.Or -> walk(node.operands.take(1), node.operands.drop(1))
+                is PartiqlPhysical.Expr.Coalesce -> walk(node.args.take(1), node.args.drop(1))
+                is PartiqlPhysical.Expr.SimpleCase -> {
+                    val pairs = node.cases.pairs
+                    walk(
+                        listOf(node.expr, pairs.first().first),
+                        listOf(pairs.first().second) + pairs.drop(1).flatMap { listOf(it.first, it.second) } +
+                            listOfNotNull(node.default)
+                    )
+                }
+                is PartiqlPhysical.Expr.SearchedCase -> {
+                    val pairs = node.cases.pairs
+                    walk(
+                        listOf(pairs.first().first),
+                        listOf(pairs.first().second) + pairs.drop(1).flatMap { listOf(it.first, it.second) } +
+                            listOfNotNull(node.default)
+                    )
+                }
+                // Sub-queries are evaluated in their own scope.
+                is PartiqlPhysical.Expr.BindingsToValues, is PartiqlPhysical.Expr.Pivot -> Unit
+                else -> super.walkExpr(node, accumulator)
+            }
+        }
+
+        private fun walk(always: List<PartiqlPhysical.Expr>, sometimes: List<PartiqlPhysical.Expr>) {
+            always.forEach { walkExpr(it, Unit) }
+            conditionalDepth++
+            sometimes.forEach { walkExpr(it, Unit) }
+            conditionalDepth--
+        }
+    }
+}
+
+/**
+ * The result of selecting subexpressions to compute ahead of time.
+ *
+ * @param exprs the expressions with the selected subexpressions replaced by variables.
+ * @param bindings the bindings of these variables, in the order in which they must be evaluated.
+ * @param replacers the replacements of the selected subexpressions, which must be applied in this order to other
+ * expressions evaluated in the scope of the bindings.
+ */
+private class SharedSubexpressions(
+    val exprs: List<PartiqlPhysical.Expr>,
+    val bindings: List<PartiqlPhysical.LetBinding>,
+    val replacers: List<Replacer>
+)
+
+/** Replaces the occurrences of [expr] with the variable [decl], outside of sub-queries. */
+private class Replacer(
+    private val expr: PartiqlPhysical.Expr,
+    private val decl: PartiqlPhysical.VarDecl
+) : PartiqlPhysical.VisitorTransform() {
+    override fun transformExpr(node: PartiqlPhysical.Expr): PartiqlPhysical.Expr {
+        if (node == expr) {
+            return PartiqlPhysical.build { localId(decl.index.value, node.metas) }
+        }
+        return when (node) {
+            is PartiqlPhysical.Expr.BindingsToValues, is PartiqlPhysical.Expr.Pivot -> node
+            else -> super.transformExpr(node)
+        }
+    }
+}
+
+/** Returns the number of expression nodes of the receiver. */
+private fun PartiqlPhysical.Expr.size(): Int =
+    object : PartiqlPhysical.VisitorFold<Int>() {
+        override fun visitExpr(node: PartiqlPhysical.Expr, accumulator: Int): Int = accumulator + 1
+    }.walkExpr(this, 0)
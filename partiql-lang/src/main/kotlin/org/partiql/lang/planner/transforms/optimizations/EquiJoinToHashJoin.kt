@@ -0,0 +1,84 @@
+package org.partiql.lang.planner.transforms.optimizations
+
+import org.partiql.errors.ProblemHandler
+import org.partiql.lang.domains.PartiqlPhysical
+import org.partiql.lang.planner.PartiQLPhysicalPass
+import org.partiql.lang.planner.transforms.DEFAULT_IMPL_NAME
+import org.partiql.lang.planner.transforms.extractAccessibleVarDecls
+import org.partiql.lang.planner.transforms.referencedVariables
+import org.partiql.lang.planner.transforms.toEquiJoinPredicate
+
+/** The name of the hash join implementation of the `join` operator. */
+const val HASH_JOIN_IMPL_NAME = "hash_join"
+
+/**
+ * Creates a pass that selects the hash join implementation ([HASH_JOIN_IMPL_NAME]) for every `(join ...)` that uses
+ * the default (nested loop) implementation and for which a hash join is applicable.
+ *
+ * A hash join is applicable when:
+ *
+ * - The join is an `INNER`, `LEFT` or `RIGHT` join.
+ * - The join predicate contains at least one equi-join conjunct, i.e. an `=` expression where one operand references
+ * only variables of the left side of the join and the other operand only variables of the right side.  Such conjuncts
+ * must be at the root of the predicate or nested at any level within a tree of `and` expressions.  The remaining
+ * conjuncts are evaluated after the hash table is probed.
+ * - The side of the join that is materialized into the hash table (the right side, or the left side for `RIGHT` joins)
+ * does not reference any variable of the other side, as is the case for lateral joins such as
+ * `FROM t AS x LEFT JOIN x.items AS y ON ...`.
+ *
+ * Only the `impl` of each rewritten `(join ...)` node is changed. For example:
+ *
+ * ```
+ * (join (impl default) (inner) <left> <right> (eq <left-key> <right-key>))
+ * ```
+ *
+ * Becomes:
+ *
+ * ```
+ * (join (impl hash_join) (inner) <left> <right> (eq <left-key> <right-key>))
+ * ```
+ */
+fun createEquiJoinToHashJoinPass(): PartiQLPhysicalPass =
+    EquiJoinToHashJoinPass()
+
+private class EquiJoinToHashJoinPass : PartiQLPhysicalPass {
+    override fun apply(plan: PartiqlPhysical.Plan, problemHandler: ProblemHandler): PartiqlPhysical.Plan =
+        object : PartiqlPhysical.VisitorTransform() {
+            override fun transformBexprJoin(node: PartiqlPhysical.Bexpr.Join): PartiqlPhysical.Bexpr {
+                // Rewrite children first.
+                val rewritten = super.transformBexprJoin(node) as PartiqlPhysical.Bexpr.Join
+                return when {
+                    rewritten.isHashJoinApplicable() -> PartiqlPhysical.build {
+                        join(
+                            i = impl(HASH_JOIN_IMPL_NAME),
+                            joinType = rewritten.joinType,
+                            left = rewritten.left,
+                            right = rewritten.right,
+                            predicate = rewritten.predicate,
+                            metas = rewritten.metas
+                        )
+                    }
+                    else -> rewritten
+                }
+            }
+        }.transformPlan(plan)
+}
+
+private fun PartiqlPhysical.Bexpr.Join.isHashJoinApplicable(): Boolean {
+    if (this.i.name.text != DEFAULT_IMPL_NAME) {
+        return false
+    }
+    val predicate = this.predicate ?: return false
+    val leftVariables = this.left.extractAccessibleVarDecls().map { it.index.value }.toSet()
+    val rightVariables = this.right.extractAccessibleVarDecls().map { it.index.value }.toSet()
+    val (build, probeVariables) = when (this.joinType) {
+        is PartiqlPhysical.JoinType.Inner, is PartiqlPhysical.JoinType.Left -> this.right to leftVariables
+        is PartiqlPhysical.JoinType.Right -> this.left to rightVariables
+        is PartiqlPhysical.JoinType.Full -> return false
+    }
+    // The build side is evaluated only once, therefore it must not be correlated with the probe side.
+    if (build.referencedVariables().any { it in probeVariables }) {
+        return false
+    }
+    return predicate.toEquiJoinPredicate(leftVariables, rightVariables) != null
+}
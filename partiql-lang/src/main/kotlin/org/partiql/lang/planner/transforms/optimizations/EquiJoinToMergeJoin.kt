@@ -0,0 +1,208 @@
+package org.partiql.lang.planner.transforms.optimizations
+
+import com.amazon.ionelement.api.ionInt
+import org.partiql.errors.ProblemHandler
+import org.partiql.lang.domains.PartiqlPhysical
+import org.partiql.lang.planner.PartiQLPhysicalPass
+import org.partiql.lang.planner.transforms.DEFAULT_IMPL_NAME
+import org.partiql.lang.planner.transforms.extractAccessibleVarDecls
+import org.partiql.lang.planner.transforms.referencedVariables
+import org.partiql.lang.planner.transforms.toEquiJoinPredicate
+import org.partiql.types.BagType
+import org.partiql.types.ListType
+import org.partiql.types.StaticType
+import org.partiql.types.StructType
+
+/** The name of the sort-merge join implementation of the `join` operator. */
+const val MERGE_JOIN_IMPL_NAME = "merge_join"
+
+/** The key of the [StructType.metas] entry holding the fields by which the rows of a table are sorted. */
+const val ORDERED_BY_META_KEY = "partiql.orderedBy"
+
+/**
+ * The top-level fields by which the rows of a table with this row type are known to be sorted in ascending order (see
+ * [org.partiql.lang.eval.DEFAULT_COMPARATOR]), from the most to the least significant; `NULL` and `MISSING` values may
+ * appear anywhere.  See [withOrderedBy].
+ */
+val StructType.orderedBy: List<String>
+    get() = (metas[ORDERED_BY_META_KEY] as? List<*>)?.filterIsInstance<String>() ?: emptyList()
+
+/** Returns a copy of this row type which declares that the rows are sorted by [fields], see [orderedBy]. */
+fun StructType.withOrderedBy(vararg fields: String): StructType =
+    copy(metas = metas + (ORDERED_BY_META_KEY to fields.toList()))
+
+/**
+ * Creates a pass that selects the sort-merge join implementation ([MERGE_JOIN_IMPL_NAME]) for every `(join ...)` that
+ * uses the default (nested loop) implementation and whose inputs are both known to be sorted on equi-join keys.
+ *
+ * A merge join is applicable when:
+ *
+ * - The join is an `INNER`, `LEFT` or `RIGHT` join.
+ * - The join predicate contains equi-join conjuncts as described by [createEquiJoinToHashJoinPass].
+ * - Neither side of the join references a variable of the other side, since both are read only once.
+ * - Both sides are sorted in ascending order on the operands of at least one of the equi-join conjuncts, such that the
+ * conjunct is of the form `<left-variable>.<field> = <right-variable>.<field>` (or compares the variables themselves).
+ *
+ * The ordering of a side is derived from:
+ *
+ * - A `(scan ...)` of a global variable whose row type, as given by [staticTypeResolver], declares [orderedBy].
+ * - A `(sort ...)` whose leading sort specifications are ascending.
+ * - The input of a `(filter ...)`, `(let ...)`, `(limit ...)` or `(offset ...)`, and the left side of an `INNER` or
+ * `LEFT` join, which preserve the order of their input.
+ *
+ * Only the default implementations of the scans and of the operators above are known to preserve the order (e.g. the
+ * parallel `(filter ...)` does not), thus the ordering of any other implementation is unknown, and this pass should be
+ * placed after the passes selecting other implementations (such as [createParallelExecutionPass]).
+ *
+ * The positions of the equi-join conjuncts on which both sides are sorted (the merge keys) are the static arguments of
+ * the implementation, from the most to the least significant.  The remaining conjuncts are evaluated for each pair of
+ * rows with equal merge keys.  For example, where both tables are sorted by `a`:
+ *
+ * ```
+ * (join (impl default) (inner) (scan (impl default) (global_id l) (var_decl 0)) (scan (impl default) (global_id r) (var_decl 1))
+ *     (and (eq (path (local_id 0) (path_expr (lit "b") ...)) (path (local_id 1) (path_expr (lit "b") ...)))
+ *          (eq (path (local_id 0) (path_expr (lit "a") ...)) (path (local_id 1) (path_expr (lit "a") ...)))))
+ * ```
+ *
+ * Becomes:
+ *
+ * ```
+ * (join (impl merge_join 1) (inner) ...)
+ * ```
+ *
+ * This pass should be placed before [createEquiJoinToHashJoinPass], such that the merge join is preferred.
+ *
+ * @param staticTypeResolver returns the static type of the global variable with the given unique id.
+ */
+fun createEquiJoinToMergeJoinPass(staticTypeResolver: (String) -> StaticType): PartiQLPhysicalPass =
+    EquiJoinToMergeJoinPass(staticTypeResolver)
+
+private class EquiJoinToMergeJoinPass(private val staticTypeResolver: (String) -> StaticType) : PartiQLPhysicalPass {
+    override fun apply(plan: PartiqlPhysical.Plan, problemHandler: ProblemHandler): PartiqlPhysical.Plan =
+        object : PartiqlPhysical.VisitorTransform() {
+            override fun transformBexprJoin(node: PartiqlPhysical.Bexpr.Join): PartiqlPhysical.Bexpr {
+                // Rewrite children first.
+                val rewritten = super.transformBexprJoin(node) as PartiqlPhysical.Bexpr.Join
+                val mergeKeys = rewritten.mergeKeys() ?: return rewritten
+                return PartiqlPhysical.build {
+                    join(
+                        i = impl(MERGE_JOIN_IMPL_NAME, mergeKeys.map { ionInt(it.toLong()) }),
+                        joinType = rewritten.joinType,
+                        left = rewritten.left,
+                        right = rewritten.right,
+                        predicate = rewritten.predicate,
+                        metas = rewritten.metas
+                    )
+                }
+            }
+        }.transformPlan(plan)
+
+    /**
+     * Returns the positions of the equi-join conjuncts on which both sides of the join are sorted, or `null` if a merge
+     * join is not applicable.
+     */
+    private fun PartiqlPhysical.Bexpr.Join.mergeKeys(): List<Int>? {
+        if (this.i.name.text != DEFAULT_IMPL_NAME || this.joinType is PartiqlPhysical.JoinType.Full) {
+            return null
+        }
+        val predicate = this.predicate ?: return null
+        val leftVariables = this.left.extractAccessibleVarDecls().map { it.index.value }.toSet()
+        val rightVariables = this.right.extractAccessibleVarDecls().map { it.index.value }.toSet()
+        // Both sides are evaluated only once, therefore they must not be correlated with each other.
+        if (this.left.referencedVariables().any { it in rightVariables } ||
+            this.right.referencedVariables().any { it in leftVariables }
+        ) {
+            return null
+        }
+        val equiJoin = predicate.toEquiJoinPredicate(leftVariables, rightVariables) ?: return null
+        val leftOrdering = this.left.ordering()
+        val rightOrdering = this.right.ordering()
+        val mergeKeys = ArrayList<Int>()
+        for (i in 0 until minOf(leftOrdering.size, rightOrdering.size)) {
+            val position = equiJoin.leftKeys.indices.firstOrNull {
+                it !in mergeKeys &&
+                    equiJoin.leftKeys[it].toSortKey()?.matches(leftOrdering[i]) == true &&
+                    equiJoin.rightKeys[it].toSortKey()?.matches(rightOrdering[i]) == true
+            } ?: break
+            mergeKeys.add(position)
+        }
+        return mergeKeys.takeIf { it.isNotEmpty() }
+    }
+
+    /** Returns the keys by which the rows of this relation are known to be sorted in ascending order. */
+    private fun PartiqlPhysical.Bexpr.ordering(): List<SortKey> = when (this) {
+        is PartiqlPhysical.Bexpr.Sort -> when (this.i.name.text) {
+            // Every implementation of the sort sorts its input.
+            DEFAULT_IMPL_NAME, EXTERNAL_SORT_IMPL_NAME, TOP_N_SORT_IMPL_NAME -> this.sortSpecs
+                .takeWhile { it.orderingSpec == null || it.orderingSpec is PartiqlPhysical.OrderingSpec.Asc }
+                .map { it.expr.toSortKey() }
+                .takeWhile { it != null }
+                .filterNotNull()
+            else -> emptyList()
+        }
+        else -> when {
+            // Other implementations may not preserve the order of their input, e.g. the parallel filter.
+            this.implName() != DEFAULT_IMPL_NAME -> emptyList()
+            this is PartiqlPhysical.Bexpr.Scan -> when (val expr = this.expr) {
+                is PartiqlPhysical.Expr.GlobalId -> {
+                    val rowType = when (val type = staticTypeResolver(expr.uniqueId.text)) {
+                        is BagType -> type.elementType
+                        is ListType -> type.elementType
+                        else -> null
+                    }
+                    (rowType as? StructType)?.orderedBy
+                        ?.map { SortKey(this.asDecl.index.value, it, caseSensitive = true) }
+                        ?: emptyList()
+                }
+                else -> emptyList()
+            }
+            this is PartiqlPhysical.Bexpr.Filter -> this.source.ordering()
+            this is PartiqlPhysical.Bexpr.Let -> this.source.ordering()
+            this is PartiqlPhysical.Bexpr.Limit -> this.source.ordering()
+            this is PartiqlPhysical.Bexpr.Offset -> this.source.ordering()
+            this is PartiqlPhysical.Bexpr.Join -> when (this.joinType) {
+                is PartiqlPhysical.JoinType.Inner, is PartiqlPhysical.JoinType.Left -> this.left.ordering()
+                else -> emptyList()
+            }
+            else -> emptyList()
+        }
+    }
+
+    private fun PartiqlPhysical.Bexpr.implName(): String? = when (this) {
+        is PartiqlPhysical.Bexpr.Scan -> this.i.name.text
+        is PartiqlPhysical.Bexpr.Filter -> this.i.name.text
+        is PartiqlPhysical.Bexpr.Let -> this.i.name.text
+        is PartiqlPhysical.Bexpr.Limit -> this.i.name.text
+        is PartiqlPhysical.Bexpr.Offset -> this.i.name.text
+        is PartiqlPhysical.Bexpr.Join -> this.i.name.text
+        else -> null
+    }
+}
+
+/**
+ * A key by which rows are sorted: the top-level [field] of the value of the variable [variable], or the value of the
+ * variable itself if [field] is `null`.
+ */
+private class SortKey(val variable: Long, val field: String?, val caseSensitive: Boolean) {
+    /** True if both keys denote the same value; field names are compared case-sensitively only if both keys are. */
+    fun matches(other: SortKey): Boolean =
+        other.variable == variable && other.field.equals(field, ignoreCase = !(caseSensitive && other.caseSensitive))
+}
+
+private fun PartiqlPhysical.Expr.toSortKey(): SortKey? = when (this) {
+    is PartiqlPhysical.Expr.LocalId -> SortKey(this.index.value, null, caseSensitive = true)
+    is PartiqlPhysical.Expr.Path -> {
+        val root = this.root as? PartiqlPhysical.Expr.LocalId
+        val step = this.steps.singleOrNull() as? PartiqlPhysical.PathStep.PathExpr
+        val name = step?.index as? PartiqlPhysical.Expr.Lit
+        when {
+            root == null || name == null || !name.value.type.isText -> null
+            else -> SortKey(
+                root.index.value,
+                name.value.textValue,
+                caseSensitive = step.case is PartiqlPhysical.CaseSensitivity.CaseSensitive
+            )
+        }
+    }
+    else -> null
+}
@@ -2,18 +2,24 @@ package org.partiql.lang.planner.transforms.optimizations
 
 import com.amazon.ionelement.api.TextElement
 import com.amazon.ionelement.api.ionBool
+import com.amazon.ionelement.api.ionInt
 import com.amazon.ionelement.api.ionSymbol
 import org.partiql.errors.ProblemHandler
 import org.partiql.lang.compiler.PartiQLCompilerBuilder
 import org.partiql.lang.domains.PartiqlPhysical
 import org.partiql.lang.domains.toBindingCase
+import org.partiql.lang.eval.BindingCase
 import org.partiql.lang.eval.BindingName
+import org.partiql.lang.eval.physical.IndexDefinition
+import org.partiql.lang.eval.physical.IndexKind
+import org.partiql.lang.eval.physical.indexes
 import org.partiql.lang.planner.PartiQLPhysicalPass
 import org.partiql.lang.planner.StaticTypeResolver
 import org.partiql.lang.planner.transforms.DEFAULT_IMPL
 import org.partiql.types.BagType
 import org.partiql.types.ListType
 import org.partiql.types.StructType
+import org.partiql.types.TupleConstraint
 
 /**
  * The "filter scan to key lookup" pass identifies all equality expressions where either side is a primary key
@@ -269,14 +275,7 @@ private fun PartiqlPhysical.Expr.rewriteFilterPredicate(
 
                     // lastly, we need to ensure that operand2 doesn't reference the candidate row.  operand2 executes
                     // a context that doesn't have access to the candidate row.
-                    val referencesCandidateRow = object : PartiqlPhysical.VisitorFold<Boolean>() {
-                        override fun visitExprLocalId(
-                            node: PartiqlPhysical.Expr.LocalId,
-                            accumulator: Boolean
-                        ): Boolean = accumulator || node.index.value == variableIndexId
-                    }.walkExpr(operand2, false)
-
-                    if (referencesCandidateRow) {
+                    if (operand2.referencesVariable(variableIndexId)) {
                         return false
                     }
 
@@ -297,6 +296,15 @@ private fun PartiqlPhysical.Expr.rewriteFilterPredicate(
     }
 }
 
+/** Returns true if the receiver references the local variable [variableIndexId]. */
+private fun PartiqlPhysical.Expr.referencesVariable(variableIndexId: Long): Boolean =
+    object : PartiqlPhysical.VisitorFold<Boolean>() {
+        override fun visitExprLocalId(
+            node: PartiqlPhysical.Expr.LocalId,
+            accumulator: Boolean
+        ): Boolean = accumulator || node.index.value == variableIndexId
+    }.walkExpr(this, false)
+
 private data class FieldReference(
     val variableId: Long,
     val referencedKey: String,
@@ -332,3 +340,248 @@ private fun PartiqlPhysical.Expr.getKeyFieldReference(): FieldReference? {
         else -> return null
     }
 }
+
+/** The name of the implementation of the `project` operator which finds the rows of a table with a secondary index. */
+const val INDEX_SCAN_IMPL_NAME = "index_scan"
+
+/** How one end of the key range of an index scan is bounded. */
+internal enum class IndexScanBound { NONE, INCLUSIVE, EXCLUSIVE }
+
+/**
+ * Creates a pass that changes a `filter` operator with a nested `scan` of a table into a `filter` of an index scan, if
+ * the filter predicate constrains the key fields of one of the indexes declared on the table's row type (see
+ * [org.partiql.lang.eval.physical.withIndexes]):
+ *
+ * - a [org.partiql.lang.eval.physical.IndexKind.HASH] index applies if `x.keyField = <expr>` for all of its key fields,
+ * - a [org.partiql.lang.eval.physical.IndexKind.SORTED] index applies if `x.keyField = <expr>` for a prefix of its key
+ * fields, possibly followed by a range on the next key field: `<`, `<=`, `>`, `>=` or `BETWEEN`.
+ *
+ * As with [createFilterScanToKeyLookupPass], such predicates must be at the root of the filter predicate or nested
+ * within `and` expressions only, and `<expr>` must not reference the row.  If several indexes apply, the one that
+ * constrains the most key fields is used.
+ *
+ * The key fields of an index are found case-sensitively in the rows, thus `x.keyField` must be case-sensitive (e.g.
+ * `x."keyField"`), unless the row type is closed and declares no other field whose name only differs from the key
+ * field by its case, such that a case-insensitive reference finds the same field in each row.
+ *
+ * For example, given a table `t` whose rows declare a sorted index `by_date` on `(customer, date)`:
+ *
+ * ```
+ * (filter (impl default)
+ *     (and (eq (path (local_id 0) (path_expr (lit "customer") ...)) (lit 42))
+ *          (gt (path (local_id 0) (path_expr (lit "date") ...)) (lit 2023)))
+ *     (scan (impl default) (global_id <t-id>) (var_decl 0)))
+ * ```
+ *
+ * Becomes:
+ *
+ * ```
+ * (filter (impl default)
+ *     <the same predicate>
+ *     (project (impl index_scan (<t-id> by_date 1 none exclusive))
+ *         (var_decl 0)
+ *         (global_id <t-id>) (lit 42) (lit 2023)))
+ * ```
+ *
+ * The static arguments of the [INDEX_SCAN_IMPL_NAME] implementation are the unique id of the table, the name of the
+ * index, the number of key fields in the prefix, and how the lower and upper ends of the range are bounded.  Its
+ * arguments are the table, the values of the prefix and the values of the bounds.
+ *
+ * The predicate is kept: the index scan only reads the rows which may satisfy it.  Thus, the rows of the table whose
+ * key fields cannot be compared with the given values are not read, and do not raise errors in the
+ * [org.partiql.lang.eval.TypingMode.LEGACY] mode.
+ *
+ * The index scan is not part of the default operator implementations, thus an instance of
+ * [org.partiql.lang.eval.physical.operators.IndexScanOperatorFactoryAsync], which holds the
+ * [org.partiql.lang.eval.physical.IndexRegistry] of the built indexes, must also be supplied to the compiler as a
+ * custom operator factory.
+ */
+fun createFilterScanToIndexScanPass(staticTypeResolver: StaticTypeResolver): PartiQLPhysicalPass =
+    FilterScanToIndexScanPass(staticTypeResolver)
+
+private class FilterScanToIndexScanPass(
+    private val staticTypeResolver: StaticTypeResolver
+) : PartiQLPhysicalPass {
+    override fun apply(plan: PartiqlPhysical.Plan, problemHandler: ProblemHandler): PartiqlPhysical.Plan {
+        return object : PartiqlPhysical.VisitorTransform() {
+            override fun transformBexprFilter(node: PartiqlPhysical.Bexpr.Filter): PartiqlPhysical.Bexpr {
+                val rewritten = super.transformBexprFilter(node) as PartiqlPhysical.Bexpr.Filter
+                val scan = rewritten.source as? PartiqlPhysical.Bexpr.Scan ?: return rewritten
+                val table = scan.expr as? PartiqlPhysical.Expr.GlobalId ?: return rewritten
+                // The index scan only binds the row variable.
+                if (scan.atDecl != null || scan.byDecl != null) {
+                    return rewritten
+                }
+                val rowStaticType = when (val tableType = staticTypeResolver.getVariableStaticType(table.uniqueId.text)) {
+                    is BagType -> tableType.elementType
+                    is ListType -> tableType.elementType
+                    else -> return rewritten
+                } as? StructType ?: return rewritten
+
+                val variableIndexId = scan.asDecl.index.value
+                val keyPredicates = rewritten.predicate.conjuncts().mapNotNull { it.toKeyPredicate(variableIndexId) }
+                val indexScan = rowStaticType.indexes
+                    .mapNotNull { it.planScan(rowStaticType, keyPredicates) }
+                    .maxByOrNull { it.score }
+                    ?: return rewritten
+
+                return PartiqlPhysical.build {
+                    filter(
+                        rewritten.i,
+                        rewritten.predicate,
+                        project(
+                            impl(
+                                INDEX_SCAN_IMPL_NAME,
+                                listOf(
+                                    ionSymbol(table.uniqueId.text),
+                                    ionSymbol(indexScan.index.name),
+                                    ionInt(indexScan.prefix.size.toLong()),
+                                    ionSymbol(indexScan.lower.kind.name.lowercase()),
+                                    ionSymbol(indexScan.upper.kind.name.lowercase())
+                                )
+                            ),
+                            scan.asDecl,
+                            listOf<PartiqlPhysical.Expr>(table) + indexScan.prefix + listOfNotNull(indexScan.lower.value, indexScan.upper.value)
+                        )
+                    )
+                }
+            }
+        }.transformPlan(plan)
+    }
+}
+
+/** Returns the operands of the tree of `and` expressions at the root of the receiver. */
+private fun PartiqlPhysical.Expr.conjuncts(): List<PartiqlPhysical.Expr> = when (this) {
+    is PartiqlPhysical.Expr.And -> operands.flatMap { it.conjuncts() }
+    else -> listOf(this)
+}
+
+/** A comparison of a field of the row with values that do not reference the row. */
+private class KeyPredicate(
+    val field: BindingName,
+    val equal: PartiqlPhysical.Expr? = null,
+    val lower: ScanBound = ScanBound.NONE,
+    val upper: ScanBound = ScanBound.NONE
+)
+
+private class ScanBound(val kind: IndexScanBound, val value: PartiqlPhysical.Expr?) {
+    companion object {
+        val NONE = ScanBound(IndexScanBound.NONE, null)
+    }
+}
+
+private class IndexScanPlan(
+    val index: IndexDefinition,
+    val prefix: List<PartiqlPhysical.Expr>,
+    val lower: ScanBound,
+    val upper: ScanBound
+) {
+    /** Prefers the scans which constrain more key fields, with a range counting as half a field. */
+    val score: Int = prefix.size * 2 + if (lower.value != null || upper.value != null) 1 else 0
+}
+
+/**
+ * If the receiver compares a field of the variable [variableIndexId] with values that do not reference it, returns
+ * the equivalent [KeyPredicate], where the field is on the left side.
+ */
+private fun PartiqlPhysical.Expr.toKeyPredicate(variableIndexId: Long): KeyPredicate? {
+    fun fieldOf(expr: PartiqlPhysical.Expr): BindingName? =
+        expr.getKeyFieldReference()?.takeIf { it.variableId == variableIndexId }?.fieldBindingName
+
+    fun comparison(
+        operands: List<PartiqlPhysical.Expr>,
+        create: (BindingName, PartiqlPhysical.Expr) -> KeyPredicate,
+        createReversed: (BindingName, PartiqlPhysical.Expr) -> KeyPredicate
+    ): KeyPredicate? {
+        if (operands.size != 2) {
+            return null
+        }
+        val (left, right) = operands
+        val leftField = fieldOf(left)
+        val rightField = fieldOf(right)
+        return when {
+            leftField != null && !right.referencesVariable(variableIndexId) -> create(leftField, right)
+            rightField != null && !left.referencesVariable(variableIndexId) -> createReversed(rightField, left)
+            else -> null
+        }
+    }
+
+    fun inclusive(value: PartiqlPhysical.Expr) = ScanBound(IndexScanBound.INCLUSIVE, value)
+    fun exclusive(value: PartiqlPhysical.Expr) = ScanBound(IndexScanBound.EXCLUSIVE, value)
+
+    return when (this) {
+        is PartiqlPhysical.Expr.Eq -> comparison(
+            operands,
+            { f, v -> KeyPredicate(f, equal = v) },
+            { f, v -> KeyPredicate(f, equal = v) }
+        )
+        is PartiqlPhysical.Expr.Lt -> comparison(
+            operands,
+            { f, v -> KeyPredicate(f, upper = exclusive(v)) },
+            { f, v -> KeyPredicate(f, lower = exclusive(v)) }
+        )
+        is PartiqlPhysical.Expr.Lte -> comparison(
+            operands,
+            { f, v -> KeyPredicate(f, upper = inclusive(v)) },
+            { f, v -> KeyPredicate(f, lower = inclusive(v)) }
+        )
+        is PartiqlPhysical.Expr.Gt -> comparison(
+            operands,
+            { f, v -> KeyPredicate(f, lower = exclusive(v)) },
+            { f, v -> KeyPredicate(f, upper = exclusive(v)) }
+        )
+        is PartiqlPhysical.Expr.Gte -> comparison(
+            operands,
+            { f, v -> KeyPredicate(f, lower = inclusive(v)) },
+            { f, v -> KeyPredicate(f, upper = inclusive(v)) }
+        )
+        is PartiqlPhysical.Expr.Between -> {
+            val field = fieldOf(value)
+            when {
+                field == null || from.referencesVariable(variableIndexId) || to.referencesVariable(variableIndexId) -> null
+                else -> KeyPredicate(field, lower = inclusive(from), upper = inclusive(to))
+            }
+        }
+        else -> null
+    }
+}
+
+/**
+ * Returns how this index of the rows of [rowType] can find the rows satisfying [predicates], or null if it cannot
+ * narrow the scan.
+ */
+private fun IndexDefinition.planScan(rowType: StructType, predicates: List<KeyPredicate>): IndexScanPlan? {
+    fun predicatesOf(keyField: String) = predicates.filter { rowType.findsKeyField(it.field, keyField) }
+
+    val prefix = keyFields.asSequence()
+        .map { keyField -> predicatesOf(keyField).firstNotNullOfOrNull { it.equal } }
+        .takeWhile { it != null }
+        .filterNotNull()
+        .toList()
+    return when (kind) {
+        IndexKind.HASH -> when (prefix.size) {
+            keyFields.size -> IndexScanPlan(this, prefix, ScanBound.NONE, ScanBound.NONE)
+            else -> null
+        }
+        IndexKind.SORTED -> {
+            val range = keyFields.getOrNull(prefix.size)?.let { predicatesOf(it) } ?: emptyList()
+            val lower = range.firstOrNull { it.lower.value != null }?.lower ?: ScanBound.NONE
+            val upper = range.firstOrNull { it.upper.value != null }?.upper ?: ScanBound.NONE
+            IndexScanPlan(this, prefix, lower, upper).takeIf { it.score > 0 }
+        }
+    }
+}
+
+/**
+ * Returns true if [field] finds the same field as the case-sensitive [keyField] in each row of this type, i.e. if
+ * [field] is case-sensitive, or if this type is closed and declares no other field whose name only differs from
+ * [keyField] by its case.
+ */
+private fun StructType.findsKeyField(field: BindingName, keyField: String): Boolean = when (field.bindingCase) {
+    BindingCase.SENSITIVE -> field.name == keyField
+    BindingCase.INSENSITIVE -> {
+        val closed = contentClosed || constraints.contains(TupleConstraint.Open(false))
+        closed && field.isEquivalentTo(keyField) &&
+            fields.all { !it.key.equals(keyField, ignoreCase = true) || it.key == keyField }
+    }
+}
@@ -0,0 +1,156 @@
+package org.partiql.lang.planner.transforms.optimizations
+
+import org.partiql.errors.ProblemHandler
+import org.partiql.lang.domains.PartiqlPhysical
+import org.partiql.lang.planner.PartiQLPhysicalPass
+import org.partiql.lang.planner.transforms.DEFAULT_IMPL_NAME
+
+/** The name of the parallel implementations of the `filter` and `aggregate` operators. */
+const val PARALLEL_IMPL_NAME = "parallel"
+
+/** The name of the implementation of the `scan` operator which reads one partition of its input. */
+const val PARTITIONED_SCAN_IMPL_NAME = "partitioned_scan"
+
+/**
+ * Creates a pass that selects the parallel implementations ([PARALLEL_IMPL_NAME]) of the `filter` and `aggregate`
+ * operators whose input is a pipeline that can be split into partitions, i.e. a `(scan ...)` followed by any number of
+ * `(filter ...)` and `(let ...)` operators, all using their default implementations.  The `scan` of such a pipeline
+ * is changed to the partitioned scan ([PARTITIONED_SCAN_IMPL_NAME]), such that each partition reads a share of the
+ * scanned value.
+ *
+ * Aggregations are only parallelized if none of their aggregate functions has the `DISTINCT` quantifier.
+ *
+ * Operators that may be evaluated once per row of another relation are not parallelized: those within subqueries, and
+ * those on the right side of a `(join ...)`.  Operators within a parallelized pipeline are not parallelized either.
+ *
+ * The parallel implementations are not part of the default operator implementations, thus instances of
+ * [org.partiql.lang.eval.physical.operators.ParallelFilterOperatorFactoryAsync] and
+ * [org.partiql.lang.eval.physical.operators.ParallelAggregateOperatorFactoryAsync], which specify the executor and the
+ * number of partitions, must also be supplied to the compiler as custom operator factories.
+ *
+ * For example:
+ *
+ * ```
+ * (aggregate (impl default)
+ *     (filter (impl default) <predicate>
+ *         (scan (impl default) <expr> <as-decl>))
+ *     <strategy> <group-keys> <aggregate-functions>)
+ * ```
+ *
+ * Becomes:
+ *
+ * ```
+ * (aggregate (impl parallel)
+ *     (filter (impl default) <predicate>
+ *         (scan (impl partitioned_scan) <expr> <as-decl>))
+ *     <strategy> <group-keys> <aggregate-functions>)
+ * ```
+ */
+fun createParallelExecutionPass(): PartiQLPhysicalPass =
+    ParallelExecutionPass()
+
+private class ParallelExecutionPass : PartiQLPhysicalPass {
+    override fun apply(plan: PartiqlPhysical.Plan, problemHandler: ProblemHandler): PartiqlPhysical.Plan =
+        object : PartiqlPhysical.VisitorTransform() {
+            /** True while transforming the relational operators of the outermost query. */
+            private var inQuery = false
+
+            override fun transformExprBindingsToValues(node: PartiqlPhysical.Expr.BindingsToValues): PartiqlPhysical.Expr =
+                transformQuery(node) { super.transformExprBindingsToValues(node) }
+
+            override fun transformExprPivot(node: PartiqlPhysical.Expr.Pivot): PartiqlPhysical.Expr =
+                transformQuery(node) { super.transformExprPivot(node) }
+
+            private fun transformQuery(node: PartiqlPhysical.Expr, transform: () -> PartiqlPhysical.Expr): PartiqlPhysical.Expr {
+                // Subqueries may be evaluated once per row of the enclosing query.
+                if (inQuery) {
+                    return node
+                }
+                inQuery = true
+                try {
+                    return transform()
+                } finally {
+                    inQuery = false
+                }
+            }
+
+            override fun transformBexprFilter(node: PartiqlPhysical.Bexpr.Filter): PartiqlPhysical.Bexpr =
+                when {
+                    node.i.name.text == DEFAULT_IMPL_NAME && node.source.isPartitionable() -> PartiqlPhysical.build {
+                        filter(
+                            i = impl(PARALLEL_IMPL_NAME),
+                            predicate = node.predicate,
+                            source = node.source.toPartitioned(),
+                            metas = node.metas
+                        )
+                    }
+                    else -> super.transformBexprFilter(node)
+                }
+
+            override fun transformBexprAggregate(node: PartiqlPhysical.Bexpr.Aggregate): PartiqlPhysical.Bexpr {
+                val hasDistinct = node.functionList.functions.any {
+                    it.quantifier is PartiqlPhysical.SetQuantifier.Distinct
+                }
+                return when {
+                    node.i.name.text == DEFAULT_IMPL_NAME && !hasDistinct && node.source.isPartitionable() ->
+                        PartiqlPhysical.build {
+                            aggregate(
+                                i = impl(PARALLEL_IMPL_NAME),
+                                source = node.source.toPartitioned(),
+                                strategy = node.strategy,
+                                groupList = node.groupList,
+                                functionList = node.functionList,
+                                metas = node.metas
+                            )
+                        }
+                    else -> super.transformBexprAggregate(node)
+                }
+            }
+
+            override fun transformBexprJoin(node: PartiqlPhysical.Bexpr.Join): PartiqlPhysical.Bexpr {
+                // The right side of a join may be evaluated once per row of the left side.
+                val left = transformBexpr(node.left)
+                return PartiqlPhysical.build {
+                    join(
+                        i = node.i,
+                        joinType = node.joinType,
+                        left = left,
+                        right = node.right,
+                        predicate = node.predicate,
+                        metas = node.metas
+                    )
+                }
+            }
+        }.transformPlan(plan)
+
+    private fun PartiqlPhysical.Bexpr.isPartitionable(): Boolean = when (this) {
+        is PartiqlPhysical.Bexpr.Scan -> i.name.text == DEFAULT_IMPL_NAME
+        is PartiqlPhysical.Bexpr.Filter -> i.name.text == DEFAULT_IMPL_NAME && source.isPartitionable()
+        is PartiqlPhysical.Bexpr.Let -> i.name.text == DEFAULT_IMPL_NAME && source.isPartitionable()
+        else -> false
+    }
+
+    /** Replaces the scan of a pipeline for which [isPartitionable] is true with a partitioned scan. */
+    private fun PartiqlPhysical.Bexpr.toPartitioned(): PartiqlPhysical.Bexpr {
+        val node = this
+        return when (node) {
+            is PartiqlPhysical.Bexpr.Scan -> PartiqlPhysical.build {
+                scan(
+                    i = impl(PARTITIONED_SCAN_IMPL_NAME),
+                    expr = node.expr,
+                    asDecl = node.asDecl,
+                    atDecl = node.atDecl,
+                    byDecl = node.byDecl,
+                    metas = node.metas
+                )
+            }
+            is PartiqlPhysical.Bexpr.Filter -> PartiqlPhysical.build {
+                filter(i = node.i, predicate = node.predicate, source = node.source.toPartitioned(), metas = node.metas)
+            }
+            is PartiqlPhysical.Bexpr.Let -> PartiqlPhysical.build {
+                let(i = node.i, source = node.source.toPartitioned(), bindings = node.bindings, metas = node.metas)
+            }
+            else -> error("Unexpected operator in a partitionable pipeline: $node")
+        }
+    }
+}
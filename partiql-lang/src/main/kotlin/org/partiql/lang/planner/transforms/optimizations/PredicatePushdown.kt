@@ -0,0 +1,220 @@
+package org.partiql.lang.planner.transforms.optimizations
+
+import com.amazon.ionelement.api.MetaContainer
+import com.amazon.ionelement.api.emptyMetaContainer
+import org.partiql.errors.ProblemHandler
+import org.partiql.lang.domains.PartiqlPhysical
+import org.partiql.lang.planner.PartiQLPhysicalPass
+import org.partiql.lang.planner.transforms.DEFAULT_IMPL
+import org.partiql.lang.planner.transforms.DEFAULT_IMPL_NAME
+import org.partiql.lang.planner.transforms.conjuncts
+import org.partiql.lang.planner.transforms.extractAccessibleVarDecls
+import org.partiql.lang.planner.transforms.isLitTrue
+import org.partiql.lang.planner.transforms.referencedVariables
+
+/**
+ * Creates a pass that moves the conjuncts of `(filter ...)` predicates and join predicates as close as possible to the
+ * operators declaring the variables they reference, such that rows are discarded before they are joined with others.
+ *
+ * The predicates of `(filter ...)` operators and of `INNER` joins are split into their conjuncts (the operands of
+ * nested `AND`s), and each conjunct is moved:
+ *
+ * - Below an `INNER` join, into the side whose variables it references, if it only references the variables of one
+ * side.  Conjuncts referencing the variables of both sides become (or remain) the predicate of the join; equalities
+ * between both sides may then be used as equi-join keys, see [createEquiJoinToHashJoinPass].
+ * - Below a `LEFT` join, into the left side if it references no variable of the right side.  Conjuncts of the join
+ * predicate which reference no variable of the left side are moved into the right side.  `RIGHT` joins are handled
+ * symmetrically, and `FULL` joins are left as they are.
+ * - Below a `(let ...)` if it references none of the variables declared by the `let`, and below a `(sort ...)`.
+ * - Down to a `(filter ...)` directly over the `(scan ...)` (or other operator) declaring the variables it references,
+ * which is the form expected by [createFilterScanToKeyLookupPass].
+ *
+ * Consecutive `(filter ...)` operators are merged, and the conjuncts of the resulting predicates are ordered by their
+ * estimated selectivity and cost: equalities first, then other comparisons, and conjuncts containing sub-queries last.
+ * The conjuncts that are `(lit true)` are removed.  For example, given:
+ *
+ * ```
+ * SELECT ... FROM l, r WHERE l.a = r.b AND r.c > 10 AND l.d = 1
+ * ```
+ *
+ * ```
+ * (filter (impl default) (and (eq <l.a> <r.b>) (gt <r.c> 10) (eq <l.d> 1))
+ *     (join (impl default) (inner) (scan ... (var_decl 0)) (scan ... (var_decl 1)) (lit true)))
+ * ```
+ *
+ * Becomes:
+ *
+ * ```
+ * (join (impl default) (inner)
+ *     (filter (impl default) (eq <l.d> 1) (scan ... (var_decl 0)))
+ *     (filter (impl default) (gt <r.c> 10) (scan ... (var_decl 1)))
+ *     (eq <l.a> <r.b>))
+ * ```
+ *
+ * Only the `(filter ...)` and `(join ...)` operators with the default implementation are rewritten, therefore this
+ * pass should be placed before the passes selecting other implementations.  Note that since a conjunct may be
+ * evaluated for rows which would otherwise have been discarded beforehand, a query may raise an evaluation error (in
+ * the legacy typing mode) that it would not have raised without this pass.
+ */
+fun createPredicatePushdownPass(): PartiQLPhysicalPass = PredicatePushdownPass()
+
+private class PredicatePushdownPass : PartiQLPhysicalPass {
+    override fun apply(plan: PartiqlPhysical.Plan, problemHandler: ProblemHandler): PartiqlPhysical.Plan =
+        PredicatePushdown().transformPlan(plan)
+}
+
+private class PredicatePushdown : PartiqlPhysical.VisitorTransform() {
+
+    override fun transformBexprFilter(node: PartiqlPhysical.Bexpr.Filter): PartiqlPhysical.Bexpr =
+        when (node.i.name.text) {
+            DEFAULT_IMPL_NAME -> push(node.source, transformExpr(node.predicate).conjuncts())
+            else -> super.transformBexprFilter(node)
+        }
+
+    override fun transformBexprJoin(node: PartiqlPhysical.Bexpr.Join): PartiqlPhysical.Bexpr =
+        when (node.i.name.text) {
+            DEFAULT_IMPL_NAME -> push(node, emptyList())
+            else -> super.transformBexprJoin(node)
+        }
+
+    /** Returns [node] with [conjuncts] applied to its rows, pushed as far down as possible. */
+    private fun push(node: PartiqlPhysical.Bexpr, conjuncts: List<PartiqlPhysical.Expr>): PartiqlPhysical.Bexpr =
+        when {
+            node is PartiqlPhysical.Bexpr.Filter && node.i.name.text == DEFAULT_IMPL_NAME ->
+                push(node.source, conjuncts + transformExpr(node.predicate).conjuncts())
+            node is PartiqlPhysical.Bexpr.Join && node.i.name.text == DEFAULT_IMPL_NAME -> pushIntoJoin(node, conjuncts)
+            node is PartiqlPhysical.Bexpr.Let -> {
+                val declared = node.bindings.map { it.decl.index.value }.toSet()
+                val (below, above) = conjuncts.partition { conjunct ->
+                    conjunct.referencedVariables().none { it in declared }
+                }
+                filter(
+                    above,
+                    PartiqlPhysical.build {
+                        let(node.i, push(node.source, below), node.bindings.map { transformLetBinding(it) }, node.metas)
+                    }
+                )
+            }
+            // Filtering the rows before sorting them does not change their order.
+            node is PartiqlPhysical.Bexpr.Sort -> PartiqlPhysical.build {
+                sort(node.i, push(node.source, conjuncts), node.sortSpecs.map { transformSortSpec(it) }, node.metas)
+            }
+            else -> filter(conjuncts, transformBexpr(node))
+        }
+
+    private fun pushIntoJoin(
+        node: PartiqlPhysical.Bexpr.Join,
+        conjuncts: List<PartiqlPhysical.Expr>
+    ): PartiqlPhysical.Bexpr {
+        val leftVariables = node.left.extractAccessibleVarDecls().map { it.index.value }.toSet()
+        val rightVariables = node.right.extractAccessibleVarDecls().map { it.index.value }.toSet()
+        val predicate = node.predicate?.let { transformExpr(it).conjuncts() } ?: emptyList()
+
+        /** Splits the conjuncts into those which reference none of [variables], and the others. */
+        fun List<PartiqlPhysical.Expr>.over(variables: Set<Long>) = this
+            .filterNot { it.isLitTrue() }
+            .partition { conjunct -> conjunct.referencedVariables().none { it in variables } }
+
+        return when (node.joinType) {
+            is PartiqlPhysical.JoinType.Inner -> {
+                val (leftOnly, others) = (conjuncts + predicate).over(rightVariables)
+                val (rightOnly, both) = others.over(leftVariables)
+                join(node, push(node.left, leftOnly), push(node.right, rightOnly), both)
+            }
+            is PartiqlPhysical.JoinType.Left -> {
+                // The conjuncts of the predicate cannot discard rows of the left side, nor can the conjuncts above
+                // the join over the right side, which may be `NULL`.
+                val (leftOnly, above) = conjuncts.over(rightVariables)
+                val (rightOnly, both) = predicate.over(leftVariables)
+                filter(above, join(node, push(node.left, leftOnly), push(node.right, rightOnly), both))
+            }
+            is PartiqlPhysical.JoinType.Right -> {
+                val (rightOnly, above) = conjuncts.over(leftVariables)
+                val (leftOnly, both) = predicate.over(rightVariables)
+                filter(above, join(node, push(node.left, leftOnly), push(node.right, rightOnly), both))
+            }
+            is PartiqlPhysical.JoinType.Full -> filter(
+                conjuncts,
+                PartiqlPhysical.build {
+                    join(
+                        i = node.i,
+                        joinType = node.joinType,
+                        left = push(node.left, emptyList()),
+                        right = push(node.right, emptyList()),
+                        predicate = node.predicate?.let { transformExpr(it) },
+                        metas = node.metas
+                    )
+                }
+            )
+        }
+    }
+
+    private fun join(
+        node: PartiqlPhysical.Bexpr.Join,
+        left: PartiqlPhysical.Bexpr,
+        right: PartiqlPhysical.Bexpr,
+        conjuncts: List<PartiqlPhysical.Expr>
+    ) = PartiqlPhysical.build {
+        join(
+            i = node.i,
+            joinType = node.joinType,
+            left = left,
+            right = right,
+            predicate = conjuncts.toPredicate(node.predicate?.metas ?: emptyMetaContainer()),
+            metas = node.metas
+        )
+    }
+
+    /** Returns a `(filter ...)` of [source] with the predicate [conjuncts], or [source] if there are none. */
+    private fun filter(
+        conjuncts: List<PartiqlPhysical.Expr>,
+        source: PartiqlPhysical.Bexpr
+    ): PartiqlPhysical.Bexpr {
+        val predicate = conjuncts.filterNot { it.isLitTrue() }.toPredicate(emptyMetaContainer()) ?: return source
+        return PartiqlPhysical.build { filter(DEFAULT_IMPL, predicate, source) }
+    }
+}
+
+/** Returns the `AND` of the receiving conjuncts, ordered by [conjunctOrder], or `null` if there are none. */
+private fun List<PartiqlPhysical.Expr>.toPredicate(metas: MetaContainer): PartiqlPhysical.Expr? =
+    when (this.size) {
+        0 -> null
+        1 -> this.single()
+        else -> PartiqlPhysical.build { and(this@toPredicate.sortedWith(conjunctOrder), metas) }
+    }
+
+/**
+ * Orders conjuncts such that those expected to discard the most rows for the lowest cost are evaluated first (`AND`
+ * stops at the first `FALSE` operand).  In the absence of statistics, equalities are assumed to be the most selective
+ * conjuncts, followed by `IS` and `IN`, range comparisons and `LIKE`.  Conjuncts containing sub-queries are always
+ * evaluated last, and conjuncts are otherwise ordered by their size.
+ */
+private val conjunctOrder: Comparator<PartiqlPhysical.Expr> = compareBy(
+    { it.containsSubquery() },
+    { it.selectivityRank() },
+    { it.estimatedCost() }
+)
+
+private fun PartiqlPhysical.Expr.selectivityRank(): Int = when (this) {
+    is PartiqlPhysical.Expr.Eq -> 0
+    is PartiqlPhysical.Expr.IsType, is PartiqlPhysical.Expr.InCollection -> 1
+    is PartiqlPhysical.Expr.Between, is PartiqlPhysical.Expr.Lt, is PartiqlPhysical.Expr.Lte,
+    is PartiqlPhysical.Expr.Gt, is PartiqlPhysical.Expr.Gte -> 2
+    is PartiqlPhysical.Expr.Like -> 3
+    else -> 4
+}
+
+private fun PartiqlPhysical.Expr.containsSubquery(): Boolean =
+    object : PartiqlPhysical.VisitorFold<Boolean>() {
+        override fun visitExpr(node: PartiqlPhysical.Expr, accumulator: Boolean): Boolean =
+            accumulator || node is PartiqlPhysical.Expr.BindingsToValues || node is PartiqlPhysical.Expr.Pivot
+    }.walkExpr(this, false)
+
+/** Returns the number of expression nodes of the receiver, where function calls count as several nodes. */
+private fun PartiqlPhysical.Expr.estimatedCost(): Int =
+    object : PartiqlPhysical.VisitorFold<Int>() {
+        override fun visitExpr(node: PartiqlPhysical.Expr, accumulator: Int): Int =
+            accumulator + if (node is PartiqlPhysical.Expr.Call) FUNCTION_CALL_COST else 1
+    }.walkExpr(this, 0)
+
+private const val FUNCTION_CALL_COST = 10
@@ -0,0 +1,99 @@
+package org.partiql.lang.planner.transforms.optimizations
+
+import com.amazon.ionelement.api.TextElement
+import com.amazon.ionelement.api.ionString
+import org.partiql.errors.ProblemHandler
+import org.partiql.lang.domains.PartiqlPhysical
+import org.partiql.lang.planner.PartiQLPhysicalPass
+import org.partiql.lang.planner.transforms.DEFAULT_IMPL_NAME
+
+/** The name of the implementation of the `scan` operator which prunes the structs it scans to the required fields. */
+const val PRUNED_SCAN_IMPL_NAME = "pruned_scan"
+
+/**
+ * Creates a pass that selects the pruned implementation of the `scan` operator ([PRUNED_SCAN_IMPL_NAME]) for every
+ * `(scan ...)` whose variable is only used to access fields by name, i.e. only appears as the root of paths whose first
+ * step is a literal field name, anywhere in the plan (including sub-queries).  The names of the fields accessed become
+ * the static arguments of the implementation, and the structs scanned are pruned to those fields, such that the other
+ * fields are never materialized.  Scans whose variable is used as a whole (e.g. by `SELECT *`, `SELECT VALUE l` or
+ * `l[x]`) are left as they are.
+ *
+ * For example, given:
+ *
+ * ```
+ * SELECT l.a, l.b FROM l WHERE l.c > 0
+ * ```
+ *
+ * ```
+ * (scan (impl default) (global_id l) (var_decl 0))
+ * ```
+ *
+ * Becomes:
+ *
+ * ```
+ * (scan (impl pruned_scan "a" "b" "c") (global_id l) (var_decl 0))
+ * ```
+ *
+ * The field names are lower case, and fields are matched ignoring case, such that case-insensitive paths and the
+ * ambiguity of case-insensitive paths are not affected by the pruning.
+ *
+ * Only the `(scan ...)` operators with the default implementation are rewritten, therefore this pass should be placed
+ * after the passes matching such scans, e.g. [createFilterScanToKeyLookupPass] and [createParallelExecutionPass].
+ */
+fun createProjectionPruningPass(): PartiQLPhysicalPass = ProjectionPruningPass()
+
+private class ProjectionPruningPass : PartiQLPhysicalPass {
+    override fun apply(plan: PartiqlPhysical.Plan, problemHandler: ProblemHandler): PartiqlPhysical.Plan {
+        val references = FieldReferences().apply { walkPlan(plan, Unit) }
+        return object : PartiqlPhysical.VisitorTransform() {
+            override fun transformBexprScan(node: PartiqlPhysical.Bexpr.Scan): PartiqlPhysical.Bexpr {
+                val fields = references.requiredFields(node.asDecl.index.value)
+                return when {
+                    node.i.name.text != DEFAULT_IMPL_NAME || fields == null -> super.transformBexprScan(node)
+                    else -> PartiqlPhysical.build {
+                        scan(
+                            i = impl(PRUNED_SCAN_IMPL_NAME, fields.sorted().map { ionString(it) }),
+                            expr = transformExpr(node.expr),
+                            asDecl = node.asDecl,
+                            atDecl = node.atDecl,
+                            byDecl = node.byDecl,
+                            metas = node.metas
+                        )
+                    }
+                }
+            }
+        }.transformPlan(plan)
+    }
+}
+
+/** Collects the names of the fields accessed on each local variable, and the variables used as a whole. */
+private class FieldReferences : PartiqlPhysical.VisitorFold<Unit>() {
+    private val fields = HashMap<Long, MutableSet<String>>()
+    private val wholeVariables = HashSet<Long>()
+
+    /** Returns the lower case names of the fields accessed on a variable, or `null` if it is used as a whole. */
+    fun requiredFields(index: Long): Set<String>? = when (index) {
+        in wholeVariables -> null
+        else -> fields[index] ?: emptySet()
+    }
+
+    override fun walkExpr(node: PartiqlPhysical.Expr, accumulator: Unit) {
+        val path = node as? PartiqlPhysical.Expr.Path
+        val root = path?.root as? PartiqlPhysical.Expr.LocalId
+        val firstStep = path?.steps?.first() as? PartiqlPhysical.PathStep.PathExpr
+        val fieldName = ((firstStep?.index as? PartiqlPhysical.Expr.Lit)?.value as? TextElement)?.textValue
+        when {
+            path != null && root != null && fieldName != null -> {
+                fields.getOrPut(root.index.value) { HashSet() }.add(fieldName.lowercase())
+                // The root and the first step are not walked: the root is not used as a whole.
+                path.steps.drop(1).forEach { walkPathStep(it, accumulator) }
+            }
+            else -> {
+                if (node is PartiqlPhysical.Expr.LocalId) {
+                    wholeVariables.add(node.index.value)
+                }
+                super.walkExpr(node, accumulator)
+            }
+        }
+    }
+}
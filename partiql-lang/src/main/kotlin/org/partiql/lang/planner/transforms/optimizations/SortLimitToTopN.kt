@@ -0,0 +1,93 @@
+package org.partiql.lang.planner.transforms.optimizations
+
+import com.amazon.ionelement.api.IntElement
+import com.amazon.ionelement.api.IntElementSize
+import com.amazon.ionelement.api.ionInt
+import org.partiql.errors.ProblemHandler
+import org.partiql.lang.domains.PartiqlPhysical
+import org.partiql.lang.planner.PartiQLPhysicalPass
+import org.partiql.lang.planner.transforms.DEFAULT_IMPL_NAME
+
+/**
+ * The name of the bounded-heap (top-N) implementation of the `sort` operator.
+ *
+ * The implementation has two static arguments: the number of rows to return (the `LIMIT`) and the number of rows to
+ * skip before those (the `OFFSET`).
+ */
+const val TOP_N_SORT_IMPL_NAME = "top_n"
+
+/**
+ * Creates a pass that fuses a `(limit ...)` of a `(sort ...)`, optionally with an `(offset ...)` in between, into a
+ * single `(sort ...)` using the top-N implementation ([TOP_N_SORT_IMPL_NAME]).  Instead of sorting all of its input,
+ * the top-N implementation only keeps the `LIMIT + OFFSET` first rows in memory.
+ *
+ * Only the operators using the default implementations, and whose row counts are non-negative integer literals, are
+ * fused.
+ *
+ * For example:
+ *
+ * ```
+ * (limit (impl default) (lit 10)
+ *     (offset (impl default) (lit 5)
+ *         (sort (impl default) <source> <sort-specs>...)))
+ * ```
+ *
+ * Becomes:
+ *
+ * ```
+ * (sort (impl top_n 10 5) <source> <sort-specs>...)
+ * ```
+ */
+fun createSortLimitToTopNPass(): PartiQLPhysicalPass =
+    SortLimitToTopNPass()
+
+private class SortLimitToTopNPass : PartiQLPhysicalPass {
+    override fun apply(plan: PartiqlPhysical.Plan, problemHandler: ProblemHandler): PartiqlPhysical.Plan =
+        object : PartiqlPhysical.VisitorTransform() {
+            override fun transformBexprLimit(node: PartiqlPhysical.Bexpr.Limit): PartiqlPhysical.Bexpr {
+                // Rewrite children first.
+                val rewritten = super.transformBexprLimit(node) as PartiqlPhysical.Bexpr.Limit
+                if (rewritten.i.name.text != DEFAULT_IMPL_NAME) {
+                    return rewritten
+                }
+                val limit = rewritten.rowCount.rowCountLiteral() ?: return rewritten
+
+                // Skip over the (offset ...), if any.
+                val (offset, sortCandidate) = when (val source = rewritten.source) {
+                    is PartiqlPhysical.Bexpr.Offset -> {
+                        if (source.i.name.text != DEFAULT_IMPL_NAME) {
+                            return rewritten
+                        }
+                        (source.rowCount.rowCountLiteral() ?: return rewritten) to source.source
+                    }
+                    else -> 0L to source
+                }
+
+                if (sortCandidate !is PartiqlPhysical.Bexpr.Sort || sortCandidate.i.name.text != DEFAULT_IMPL_NAME) {
+                    return rewritten
+                }
+
+                return PartiqlPhysical.build {
+                    sort(
+                        i = impl(TOP_N_SORT_IMPL_NAME, listOf(ionInt(limit), ionInt(offset))),
+                        source = sortCandidate.source,
+                        sortSpecs = sortCandidate.sortSpecs,
+                        metas = sortCandidate.metas
+                    )
+                }
+            }
+        }.transformPlan(plan)
+
+    /**
+     * Returns the value of this row count expression if it is a non-negative integer literal (other row counts must be
+     * validated at evaluation time, by the `limit` and `offset` operators), or `null` otherwise.
+     */
+    private fun PartiqlPhysical.Expr.rowCountLiteral(): Long? {
+        val value = (this as? PartiqlPhysical.Expr.Lit)?.value as? IntElement ?: return null
+        return when {
+            value.integerSize == IntElementSize.BIG_INTEGER -> null
+            value.longValue < 0 -> null
+            else -> value.longValue
+        }
+    }
+}
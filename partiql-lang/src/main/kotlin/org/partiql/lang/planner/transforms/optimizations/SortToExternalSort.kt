@@ -0,0 +1,53 @@
+package org.partiql.lang.planner.transforms.optimizations
+
+import org.partiql.errors.ProblemHandler
+import org.partiql.lang.domains.PartiqlPhysical
+import org.partiql.lang.planner.PartiQLPhysicalPass
+import org.partiql.lang.planner.transforms.DEFAULT_IMPL_NAME
+
+/** The name of the external merge sort implementation of the `sort` operator. */
+const val EXTERNAL_SORT_IMPL_NAME = "external_sort"
+
+/**
+ * Creates a pass that selects the external merge sort implementation ([EXTERNAL_SORT_IMPL_NAME]) for every `(sort ...)`
+ * that uses the default (in-memory) implementation.
+ *
+ * The external sort implementation is not one of the default operator implementations, thus an instance of
+ * [org.partiql.lang.eval.physical.operators.ExternalSortOperatorFactoryAsync] must also be supplied to the compiler as
+ * a custom operator factory.
+ *
+ * For example:
+ *
+ * ```
+ * (sort (impl default) <source> <sort-specs>...)
+ * ```
+ *
+ * Becomes:
+ *
+ * ```
+ * (sort (impl external_sort) <source> <sort-specs>...)
+ * ```
+ */
+fun createSortToExternalSortPass(): PartiQLPhysicalPass =
+    SortToExternalSortPass()
+
+private class SortToExternalSortPass : PartiQLPhysicalPass {
+    override fun apply(plan: PartiqlPhysical.Plan, problemHandler: ProblemHandler): PartiqlPhysical.Plan =
+        object : PartiqlPhysical.VisitorTransform() {
+            override fun transformBexprSort(node: PartiqlPhysical.Bexpr.Sort): PartiqlPhysical.Bexpr {
+                // Rewrite children first.
+                val rewritten = super.transformBexprSort(node) as PartiqlPhysical.Bexpr.Sort
+                return when (rewritten.i.name.text) {
+                    DEFAULT_IMPL_NAME -> PartiqlPhysical.build {
+                        sort(
+                            i = impl(EXTERNAL_SORT_IMPL_NAME),
+                            source = rewritten.source,
+                            sortSpecs = rewritten.sortSpecs,
+                            metas = rewritten.metas
+                        )
+                    }
+                    else -> rewritten
+                }
+            }
+        }.transformPlan(plan)
+}
@@ -14,6 +14,8 @@
 
 package org.partiql.lang.syntax
 
+import org.partiql.lang.metrics.MetricsRecorder
+import org.partiql.lang.syntax.impl.MeasuredParser
 import org.partiql.lang.syntax.impl.PartiQLPigParser
 import org.partiql.lang.syntax.impl.PartiQLShimParser
 import org.partiql.lang.types.CustomType
@@ -57,7 +59,18 @@ class PartiQLParserBuilder {
         this.customTypes = types
     }
 
+    private var metrics: MetricsRecorder = MetricsRecorder.NONE
+
+    /** Reports the parse time, errors and interrupts of the parser to [metrics]. */
+    fun metrics(metrics: MetricsRecorder): PartiQLParserBuilder = this.apply {
+        this.metrics = metrics
+    }
+
     fun build(): Parser {
-        return constructor(this.customTypes)
+        val parser = constructor(this.customTypes)
+        return when (metrics) {
+            MetricsRecorder.NONE -> parser
+            else -> MeasuredParser(parser, metrics)
+        }
     }
 }
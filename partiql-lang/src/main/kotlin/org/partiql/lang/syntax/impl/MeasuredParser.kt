@@ -0,0 +1,17 @@
+package org.partiql.lang.syntax.impl
+
+import org.partiql.lang.domains.PartiqlAst
+import org.partiql.lang.metrics.MetricsRecorder
+import org.partiql.lang.metrics.PartiQLMetrics
+import org.partiql.lang.metrics.measure
+import org.partiql.lang.syntax.Parser
+
+/** A [Parser] reporting the parse time, errors and interrupts of [delegate] to [metrics]. */
+internal class MeasuredParser(
+    private val delegate: Parser,
+    private val metrics: MetricsRecorder
+) : Parser {
+
+    override fun parseAstStatement(source: String): PartiqlAst.Statement =
+        metrics.measure(PartiQLMetrics.PHASE_PARSE, PartiQLMetrics.PARSE_TIME) { delegate.parseAstStatement(source) }
+}
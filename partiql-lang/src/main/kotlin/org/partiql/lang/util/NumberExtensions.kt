@@ -146,7 +146,7 @@ operator fun Number.unaryMinus(): Number {
     }
 }
 
-private fun Long.checkOverflowPlus(other: Long): Number {
+internal fun Long.checkOverflowPlus(other: Long): Long {
     // uses to XOR to check if
     // this and other are >= 0 then if result < 0 means overflow
     // this and other are < 0 then if result > 0 means underflow
@@ -160,7 +160,7 @@ private fun Long.checkOverflowPlus(other: Long): Number {
     }
 }
 
-private fun Long.checkOverflowMinus(other: Long): Number {
+internal fun Long.checkOverflowMinus(other: Long): Long {
     // uses XOR for a similar logic than plus
 
     val result: Long = this - other
@@ -171,7 +171,7 @@ private fun Long.checkOverflowMinus(other: Long): Number {
     }
 }
 
-private fun Long.checkOverflowTimes(other: Long): Number {
+internal fun Long.checkOverflowTimes(other: Long): Long {
     fun Long.numberOfLeadingZeros() = java.lang.Long.numberOfLeadingZeros(this)
 
     // Hacker's Delight, Section 2-12
@@ -194,7 +194,7 @@ private fun Long.checkOverflowTimes(other: Long): Number {
     errIntOverflow(8)
 }
 
-private fun Long.checkOverflowDivision(other: Long): Number {
+internal fun Long.checkOverflowDivision(other: Long): Long {
     // division can only underflow Long.MIN_VALUE / -1
     // because abs(Long.MIN_VALUE) == abs(Long.MAX_VALUE) + 1
     if (this == Long.MIN_VALUE && other == -1L) {
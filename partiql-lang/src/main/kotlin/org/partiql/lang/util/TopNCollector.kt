@@ -0,0 +1,66 @@
+package org.partiql.lang.util
+
+import java.util.PriorityQueue
+
+/**
+ * Collects the first [count] elements, according to [comparator], of the elements it is given, using a bounded heap.
+ *
+ * This is equivalent to `sortedWith(comparator).take(count)` but uses O([count]) memory and O(n log [count]) time.
+ * Like [sortedWith], it is stable: elements which compare equal are kept in the order in which they were [add]ed.
+ */
+internal class TopNCollector<T>(
+    private val comparator: Comparator<in T>,
+    private val count: Long
+) {
+    init {
+        require(count >= 0) { "count must not be negative" }
+    }
+
+    private class Entry<T>(val value: T, val sequence: Long)
+
+    private val entryComparator = Comparator<Entry<T>> { l, r ->
+        val cmp = comparator.compare(l.value, r.value)
+        if (cmp != 0) cmp else l.sequence.compareTo(r.sequence)
+    }
+
+    /** The collected elements, with the last one (in sorted order) at the head of the queue. */
+    private val heap = PriorityQueue(count.coerceIn(1, INITIAL_CAPACITY).toInt(), entryComparator.reversed())
+
+    private var sequence = 0L
+
+    /** Adds [value], evicting the last of the collected elements if more than [count] elements would be kept. */
+    fun add(value: T) {
+        if (count == 0L) {
+            return
+        }
+        val entry = Entry(value, sequence++)
+        if (heap.size < count) {
+            heap.add(entry)
+        } else if (entryComparator.compare(entry, heap.peek()) < 0) {
+            heap.poll()
+            heap.add(entry)
+        }
+    }
+
+    /** Returns the collected elements in sorted order. */
+    fun toSortedList(): List<T> = heap.sortedWith(entryComparator).map { it.value }
+
+    private companion object {
+        const val INITIAL_CAPACITY = 1024L
+    }
+}
+
+/**
+ * Returns the first [count] elements of this [Sequence] sorted according to [comparator], i.e. the equivalent of
+ * `sortedWith(comparator).take(count)`, without sorting (or keeping in memory) the elements which are not returned.
+ */
+internal fun <T> Sequence<T>.sortedTopN(comparator: Comparator<in T>, count: Long): Sequence<T> =
+    Sequence {
+        val collector = TopNCollector(comparator, count)
+        this.forEach { collector.add(it) }
+        collector.toSortedList().iterator()
+    }
+
+/** Returns the number of sorted rows needed to evaluate `LIMIT` [limit] `OFFSET` [offset], i.e. their saturated sum. */
+internal fun topNCount(limit: Long, offset: Long): Long =
+    if (limit > Long.MAX_VALUE - offset) Long.MAX_VALUE else limit + offset
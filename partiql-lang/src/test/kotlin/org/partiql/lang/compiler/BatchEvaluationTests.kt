@@ -0,0 +1,102 @@
+package org.partiql.lang.compiler
+
+import kotlinx.coroutines.runBlocking
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.params.ParameterizedTest
+import org.junit.jupiter.params.provider.ArgumentsSource
+import org.partiql.annotations.ExperimentalPartiQLCompilerPipeline
+import org.partiql.lang.ION
+import org.partiql.lang.eval.BAG_ANNOTATION
+import org.partiql.lang.eval.Bindings
+import org.partiql.lang.eval.EvaluationSession
+import org.partiql.lang.eval.ExprValue
+import org.partiql.lang.eval.PartiQLResult
+import org.partiql.lang.eval.StructOrdering
+import org.partiql.lang.eval.namedValue
+import org.partiql.lang.eval.relation.DEFAULT_ROW_BATCH_CAPACITY
+import org.partiql.lang.eval.toIonValue
+import org.partiql.lang.planner.GlobalResolutionResult
+import org.partiql.lang.planner.GlobalVariableResolver
+import org.partiql.lang.util.ArgumentsProviderBase
+
+/**
+ * Verifies that the asynchronous evaluator, whose scan, filter, limit, offset and join operators produce rows in
+ * batches, produces the same results as the synchronous evaluator, which produces rows one at a time, over a relation
+ * spanning several batches.
+ */
+@OptIn(ExperimentalPartiQLCompilerPipeline::class)
+class BatchEvaluationTests {
+
+    data class TestCase(val query: String)
+
+    private val session = EvaluationSession.build {
+        globals(
+            Bindings.ofMap(
+                mapOf(
+                    "t" to ExprValue.newBag(
+                        (0 until NUM_ROWS).map { id ->
+                            ExprValue.newStruct(
+                                listOf(ExprValue.newInt(id).namedValue(ExprValue.newString("id"))),
+                                StructOrdering.ORDERED
+                            )
+                        }
+                    ),
+                    "s" to ExprValue.of(
+                        ION.singleValue("$BAG_ANNOTATION::[{ k: 0, xs: [1, 2] }, { k: 1, xs: [] }, { k: 2, xs: [3] }]")
+                    )
+                )
+            )
+        )
+    }
+
+    private val pipeline = PartiQLCompilerPipeline.build {
+        planner.globalVariableResolver(globals)
+    }
+
+    private val pipelineAsync = PartiQLCompilerPipelineAsync.build {
+        planner.globalVariableResolver(globals)
+    }
+
+    private fun PartiQLResult.toIon() = (this as PartiQLResult.Value).value.toIonValue(ION)
+
+    @ParameterizedTest
+    @ArgumentsSource(Arguments::class)
+    fun batchEvaluation(tc: TestCase) = runBlocking {
+        val expected = pipeline.compile(tc.query).eval(session).toIon()
+        assertEquals(expected, pipelineAsync.compile(tc.query).eval(session).toIon())
+    }
+
+    class Arguments : ArgumentsProviderBase() {
+        override fun getParameters() = listOf(
+            TestCase("SELECT t.id FROM t"),
+            TestCase("SELECT t.id FROM t WHERE t.id % 7 = 0"),
+            TestCase("SELECT t.id FROM t WHERE t.id > 5000"),
+            TestCase("SELECT t.id FROM t LIMIT ${DEFAULT_ROW_BATCH_CAPACITY + 3}"),
+            TestCase("SELECT t.id FROM t WHERE t.id % 3 = 0 LIMIT 500 OFFSET ${DEFAULT_ROW_BATCH_CAPACITY - 1}"),
+            TestCase("SELECT t.id FROM t OFFSET ${NUM_ROWS - 2}"),
+            TestCase("SELECT t.id FROM t LIMIT 0"),
+            // Joins, with filters on both sides.
+            TestCase("SELECT s.k, t.id FROM s, t WHERE t.id % 1000 = s.k"),
+            TestCase("SELECT s.k, t.id FROM s INNER JOIN t ON t.id % 1000 = s.k WHERE t.id > 1000"),
+            TestCase("SELECT s.k, t.id FROM s LEFT JOIN t ON t.id = s.k * 2000"),
+            TestCase("SELECT s.k, t.id FROM t RIGHT JOIN s ON t.id = s.k * 2000"),
+            TestCase("SELECT s.k, t.id FROM s, t LIMIT ${DEFAULT_ROW_BATCH_CAPACITY * 2 + 1}"),
+            // Lateral joins, where the right side is evaluated for each row of the left side.
+            TestCase("SELECT s.k, x FROM s, s.xs AS x"),
+            TestCase("SELECT s.k, x FROM s LEFT JOIN s.xs AS x ON true"),
+            // Sub-queries evaluated for each row.
+            TestCase("SELECT s.k, (SELECT VALUE t.id FROM t WHERE t.id < s.k) AS ids FROM s"),
+        )
+    }
+
+    companion object {
+        private const val NUM_ROWS = DEFAULT_ROW_BATCH_CAPACITY * 2 + 500
+
+        private val globals = GlobalVariableResolver {
+            when (it.name.lowercase()) {
+                "s", "t" -> GlobalResolutionResult.GlobalVariable(it.name.lowercase())
+                else -> GlobalResolutionResult.Undefined
+            }
+        }
+    }
+}
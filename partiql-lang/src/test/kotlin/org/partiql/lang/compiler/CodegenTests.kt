@@ -0,0 +1,150 @@
+package org.partiql.lang.compiler
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.params.ParameterizedTest
+import org.junit.jupiter.params.provider.ArgumentsSource
+import org.partiql.annotations.ExperimentalPartiQLCompilerPipeline
+import org.partiql.lang.ION
+import org.partiql.lang.eval.BAG_ANNOTATION
+import org.partiql.lang.eval.Bindings
+import org.partiql.lang.eval.EvaluationException
+import org.partiql.lang.eval.EvaluationSession
+import org.partiql.lang.eval.ExprValue
+import org.partiql.lang.eval.PartiQLResult
+import org.partiql.lang.eval.ThunkOptions
+import org.partiql.lang.eval.TypingMode
+import org.partiql.lang.eval.createThunkFactory
+import org.partiql.lang.eval.numberValue
+import org.partiql.lang.eval.physical.EvaluatorState
+import org.partiql.lang.eval.physical.codegen.CodegenNode
+import org.partiql.lang.eval.physical.codegen.ExpressionCodegen
+import org.partiql.lang.eval.physical.codegen.GeneratedThunk
+import org.partiql.lang.eval.toIonValue
+import org.partiql.lang.planner.EvaluatorOptions
+import org.partiql.lang.planner.GlobalResolutionResult
+import org.partiql.lang.planner.GlobalVariableResolver
+import org.partiql.lang.util.ArgumentsProviderBase
+
+/**
+ * Verifies that the expressions compiled to bytecode by [ExpressionCodegen] evaluate to the same results, and raise the
+ * same errors, as the thunks of the synchronous evaluator, in both typing modes.
+ */
+@OptIn(ExperimentalPartiQLCompilerPipeline::class)
+class CodegenTests {
+
+    data class TestCase(val query: String)
+
+    private val session = EvaluationSession.build {
+        globals(
+            Bindings.ofMap(
+                mapOf(
+                    "t" to ExprValue.of(
+                        ION.singleValue(
+                            """
+                            $BAG_ANNOTATION::[
+                                { id: 1, a: 3, b: 2e0, c: true, s: "x" },
+                                { id: 2, a: 0, b: -1.5e0, c: false, s: "y" },
+                                { id: 3, a: 2.5, b: 0e0, c: null, s: "x" },
+                                { id: 4, a: null, b: 1e0, c: true },
+                                { id: 5, b: 4e0, c: false, s: 1 },
+                                { id: 6, a: 9223372036854775807, b: 1e0, c: "true", s: "z" }
+                            ]
+                            """
+                        )
+                    )
+                )
+            )
+        )
+    }
+
+    private fun pipeline(typingMode: TypingMode, codegen: Boolean) = PartiQLCompilerPipeline.build {
+        planner.globalVariableResolver(globals)
+        compiler.options(
+            EvaluatorOptions.build {
+                typingMode(typingMode)
+                codegen(codegen)
+            }
+        )
+    }
+
+    /** Evaluates [query] to its Ion value, or to the code of the error it raises. */
+    private fun PartiQLCompilerPipeline.evaluate(query: String): Any = try {
+        (compile(query).eval(session) as PartiQLResult.Value).value.toIonValue(ION)
+    } catch (e: EvaluationException) {
+        e.errorCode
+    }
+
+    private fun assertSameResults(tc: TestCase, typingMode: TypingMode) {
+        val expected = pipeline(typingMode, codegen = false).evaluate(tc.query)
+        assertEquals(expected, pipeline(typingMode, codegen = true).evaluate(tc.query))
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(Arguments::class)
+    fun legacy(tc: TestCase) = assertSameResults(tc, TypingMode.LEGACY)
+
+    @ParameterizedTest
+    @ArgumentsSource(Arguments::class)
+    fun permissive(tc: TestCase) = assertSameResults(tc, TypingMode.PERMISSIVE)
+
+    @Test
+    fun generatesClass() {
+        val thunkFactory = TypingMode.LEGACY.createThunkFactory<EvaluatorState>(ThunkOptions.standard())
+        val root = CodegenNode.Fold(
+            listOf(
+                CodegenNode.Constant(ExprValue.newInt(1)),
+                CodegenNode.Register(0),
+                CodegenNode.Constant(ExprValue.newInt(3))
+            ),
+            { l, r -> ExprValue.newInt(l.numberValue().toLong() + r.numberValue().toLong()) },
+            null
+        )
+        val thunk = ExpressionCodegen(TypingMode.LEGACY, thunkFactory).generate(root)
+        assertTrue(thunk is GeneratedThunk)
+
+        val state = EvaluatorState(session, arrayOf(ExprValue.newInt(2)))
+        assertEquals(6L, thunk!!(state).numberValue())
+        state.registers[0] = ExprValue.missingValue
+        assertEquals(ExprValue.nullValue, thunk(state))
+    }
+
+    class Arguments : ArgumentsProviderBase() {
+        override fun getParameters() = listOf(
+            // Arithmetic, including nested operators and unknown operands.
+            TestCase("SELECT t.id, t.a + t.b AS x, t.a - 1 AS y, t.b * t.b / 2 AS z FROM t"),
+            TestCase("SELECT t.id, (t.b + 1) * (t.b - 1) % 3 AS x FROM t"),
+            TestCase("SELECT t.id, t.a + t.b + t.a + 1 AS x FROM t"),
+            // Comparisons, which are compared numerically across INT, DECIMAL and FLOAT.
+            TestCase("SELECT t.id, t.a < t.b AS lt, t.a <= t.b AS lte, t.a > t.b AS gt, t.a >= t.b AS gte FROM t"),
+            TestCase("SELECT t.id, t.a = t.b AS eq, t.a <> t.b AS ne, t.s = 'x' AS s FROM t"),
+            // Logical operators, including their short-circuits and non-boolean operands.
+            TestCase("SELECT t.id, t.c AND t.a > 1 AS x, t.c OR t.a > 1 AS y, NOT t.c AS z FROM t"),
+            TestCase("SELECT t.id FROM t WHERE t.a > 0 AND t.b > 0 OR NOT (t.c AND t.s = 'x')"),
+            TestCase("SELECT t.id, (t.c OR t.c) AND NOT (t.c AND t.c) AS x FROM t"),
+            // Operands which are not supported by the code generator.
+            TestCase("SELECT t.id, UPPER(t.s) = 'X' AND CHAR_LENGTH(t.s) + 1 > 1 AS x FROM t"),
+            // Unknown operands, after which the operands raising an error are not evaluated.
+            TestCase("SELECT t.id, t.z + 1 / t.a AS x FROM t"),
+            TestCase("SELECT t.id, t.z < 1 / t.a AS x FROM t"),
+            TestCase("SELECT t.id, 1 / t.a = t.z AS x FROM t"),
+            // Errors: division by zero, type mismatches and overflow.
+            TestCase("SELECT t.id, 1 / t.a AS x FROM t"),
+            TestCase("SELECT t.id, t.b % 0e0 AS x FROM t"),
+            TestCase("SELECT t.id, t.s + 1 AS x FROM t"),
+            TestCase("SELECT t.id, t.s < 1 AS x FROM t"),
+            TestCase("SELECT t.id, t.a + 1 AS x FROM t WHERE t.id = 6"),
+            TestCase("SELECT t.id, NOT t.s AS x FROM t"),
+        )
+    }
+
+    companion object {
+        private val globals = GlobalVariableResolver {
+            when (it.name.lowercase()) {
+                "t" -> GlobalResolutionResult.GlobalVariable(it.name.lowercase())
+                else -> GlobalResolutionResult.Undefined
+            }
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package org.partiql.lang.compiler
+
+import kotlinx.coroutines.runBlocking
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.params.ParameterizedTest
+import org.junit.jupiter.params.provider.ArgumentsSource
+import org.partiql.annotations.ExperimentalPartiQLCompilerPipeline
+import org.partiql.lang.ION
+import org.partiql.lang.eval.BAG_ANNOTATION
+import org.partiql.lang.eval.Bindings
+import org.partiql.lang.eval.EvaluationSession
+import org.partiql.lang.eval.ExprValue
+import org.partiql.lang.eval.PartiQLResult
+import org.partiql.lang.eval.toIonValue
+import org.partiql.lang.planner.GlobalResolutionResult
+import org.partiql.lang.planner.GlobalVariableResolver
+import org.partiql.lang.planner.transforms.optimizations.createCommonSubexpressionEliminationPass
+import org.partiql.lang.util.ArgumentsProviderBase
+
+/**
+ * Verifies that constant folding, common subexpression elimination and hoisting do not change the results of queries,
+ * on both the synchronous and the asynchronous evaluators.
+ */
+@OptIn(ExperimentalPartiQLCompilerPipeline::class)
+class CommonSubexpressionEliminationTests {
+
+    data class TestCase(val query: String)
+
+    private val session = EvaluationSession.build {
+        globals(
+            Bindings.ofMap(
+                mapOf(
+                    "l" to ExprValue.of(
+                        ION.singleValue(
+                            """
+                            $BAG_ANNOTATION::[
+                                { id: 1, a: 1, ts: "2020-01-01T" },
+                                { id: 2, a: 0, ts: "2021-06-01T" },
+                                { id: 3, a: null, ts: "2022-12-31T" },
+                                { id: 4 }
+                            ]
+                            """
+                        )
+                    ),
+                    "r" to ExprValue.of(
+                        ION.singleValue("$BAG_ANNOTATION::[{ id: 10, b: 1 }, { id: 20, b: 2 }, { id: 30, b: 5 }]")
+                    ),
+                    // The `a` of the second row is not a number, which only matters if it has items.
+                    "o" to ExprValue.of(
+                        ION.singleValue(
+                            """
+                            $BAG_ANNOTATION::[
+                                { id: 1, a: 1, d: { e: 2 }, items: [{ b: 2 }, { b: 3 }] },
+                                { id: 2, a: "x", items: [] }
+                            ]
+                            """
+                        )
+                    )
+                )
+            )
+        )
+    }
+
+    private val defaultPipeline = PartiQLCompilerPipeline.build {
+        planner.globalVariableResolver(globals)
+    }
+
+    private val defaultPipelineAsync = PartiQLCompilerPipelineAsync.build {
+        planner.globalVariableResolver(globals)
+    }
+
+    private val optimizedPipeline = PartiQLCompilerPipeline.build {
+        planner.physicalPlannerPasses(listOf(createCommonSubexpressionEliminationPass()))
+            .globalVariableResolver(globals)
+    }
+
+    private val optimizedPipelineAsync = PartiQLCompilerPipelineAsync.build {
+        planner.physicalPlannerPasses(listOf(createCommonSubexpressionEliminationPass()))
+            .globalVariableResolver(globals)
+    }
+
+    private fun PartiQLResult.toIon() = (this as PartiQLResult.Value).value.toIonValue(ION)
+
+    @ParameterizedTest
+    @ArgumentsSource(Arguments::class)
+    fun commonSubexpressionElimination(tc: TestCase) {
+        val expected = defaultPipeline.compile(tc.query).eval(session).toIon()
+        assertEquals(expected, optimizedPipeline.compile(tc.query).eval(session).toIon())
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(Arguments::class)
+    fun commonSubexpressionEliminationAsync(tc: TestCase) = runBlocking {
+        val expected = defaultPipelineAsync.compile(tc.query).eval(session).toIon()
+        assertEquals(expected, optimizedPipelineAsync.compile(tc.query).eval(session).toIon())
+    }
+
+    class Arguments : ArgumentsProviderBase() {
+        override fun getParameters() = listOf(
+            TestCase("SELECT UPPER('a') || 'b' AS s, 1 + 2 * 3 AS n FROM l ORDER BY l.id"),
+            TestCase(
+                "SELECT l.id, CAST(l.ts AS TIMESTAMP) AS t, CAST(l.ts AS TIMESTAMP) > `2021T` AS later " +
+                    "FROM l ORDER BY l.id"
+            ),
+            TestCase(
+                "SELECT l.id, l.a * 2 AS x, l.a * 2 + 1 AS y FROM l WHERE l.a * 2 >= 0 AND l.a * 2 < 10 ORDER BY l.id"
+            ),
+            // Divisions by zero are only evaluated when the query evaluates them.
+            TestCase(
+                "SELECT l.id, CASE WHEN l.a = 0 THEN 0 ELSE 10 / l.a END AS q, " +
+                    "CASE WHEN l.a = 0 THEN -1 ELSE 10 / l.a END AS r FROM l ORDER BY l.id"
+            ),
+            TestCase("SELECT l.id FROM l WHERE l.a = 0 OR 10 / l.a > 5 OR 10 / l.a < 0 ORDER BY l.id"),
+            // Hoisting out of nested loop joins.
+            TestCase("SELECT l.id AS lid, r.id AS rid FROM l INNER JOIN r ON r.b > l.a * 2 ORDER BY l.id, r.id"),
+            TestCase("SELECT l.id AS lid, r.id AS rid FROM l LEFT JOIN r ON r.b = l.a + 1 ORDER BY l.id, r.id"),
+            TestCase("SELECT l.id AS lid, r.id AS rid FROM l RIGHT JOIN r ON r.b < l.a * 10 ORDER BY r.id, l.id"),
+            TestCase("SELECT o.id AS oid, i.b AS b FROM o LEFT JOIN o.items AS i ON i.b = o.d.e ORDER BY o.id, i.b"),
+            // Expressions which may raise an error are not evaluated for outer rows without inner rows.
+            TestCase("SELECT o.id AS oid, i.b AS b FROM o LEFT JOIN o.items AS i ON i.b = o.a * 2 ORDER BY o.id, i.b"),
+            // Sub-queries.
+            TestCase(
+                "SELECT l.id, (SELECT VALUE r.id * 2 FROM r WHERE r.id * 2 > l.id * 15) AS rs FROM l ORDER BY l.id"
+            ),
+        )
+    }
+
+    companion object {
+        private val globals = GlobalVariableResolver {
+            when (it.name.lowercase()) {
+                "l", "r", "o" -> GlobalResolutionResult.GlobalVariable(it.name.lowercase())
+                else -> GlobalResolutionResult.Undefined
+            }
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package org.partiql.lang.compiler
+
+import kotlinx.coroutines.CoroutineDispatcher
+import kotlinx.coroutines.asCoroutineDispatcher
+import kotlinx.coroutines.runBlocking
+import org.junit.jupiter.api.AfterAll
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assumptions.assumeTrue
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import org.junit.jupiter.params.ParameterizedTest
+import org.junit.jupiter.params.provider.ArgumentsSource
+import org.partiql.annotations.ExperimentalPartiQLCompilerPipeline
+import org.partiql.errors.ErrorCode
+import org.partiql.lang.ION
+import org.partiql.lang.eval.EvaluationException
+import org.partiql.lang.eval.EvaluationSession
+import org.partiql.lang.eval.ExprFunction
+import org.partiql.lang.eval.ExprValue
+import org.partiql.lang.eval.PartiQLResult
+import org.partiql.lang.eval.physical.newVirtualThreadDispatcher
+import org.partiql.lang.eval.toIonValue
+import org.partiql.lang.planner.transforms.optimizations.createEquiJoinToHashJoinPass
+import org.partiql.lang.types.FunctionSignature
+import org.partiql.lang.util.ArgumentsProviderBase
+import org.partiql.types.StaticType
+import java.util.concurrent.CyclicBarrier
+import java.util.concurrent.Executors
+import java.util.concurrent.TimeUnit
+
+/**
+ * Verifies that independent subtrees of queries are evaluated concurrently when the async compiler is given a
+ * dispatcher, and that the results are the same as with sequential evaluation.
+ */
+@OptIn(ExperimentalPartiQLCompilerPipeline::class)
+class ConcurrentExecutionTests {
+
+    data class TestCase(val query: String, val expected: String)
+
+    /**
+     * Returns its argument once two calls are waiting at the same time, which only happens when they are evaluated
+     * concurrently; a call evaluated without a concurrent peer fails after a timeout.
+     */
+    private class Rendezvous : ExprFunction {
+        private val barrier = CyclicBarrier(2)
+
+        override val signature = FunctionSignature("rendezvous", listOf(StaticType.ANY), returnType = StaticType.ANY)
+
+        override fun callWithRequired(session: EvaluationSession, required: List<ExprValue>): ExprValue {
+            barrier.await(TIMEOUT_SECONDS, TimeUnit.SECONDS)
+            return required[0]
+        }
+    }
+
+    /** Returns its argument. */
+    private object Echo : ExprFunction {
+        override val signature = FunctionSignature("echo", listOf(StaticType.ANY), returnType = StaticType.ANY)
+
+        override fun callWithRequired(session: EvaluationSession, required: List<ExprValue>): ExprValue = required[0]
+    }
+
+    private val session = EvaluationSession.standard()
+
+    private val defaultPipeline = PartiQLCompilerPipelineAsync.build {
+        planner.physicalPlannerPasses(listOf(createEquiJoinToHashJoinPass()))
+        compiler.customFunctions(listOf(Rendezvous(), Echo))
+    }
+
+    private fun concurrentPipeline(dispatcher: CoroutineDispatcher) = PartiQLCompilerPipelineAsync.build {
+        planner.physicalPlannerPasses(listOf(createEquiJoinToHashJoinPass()))
+        compiler.customFunctions(listOf(Rendezvous(), Echo)).concurrentExecution(dispatcher)
+    }
+
+    private fun PartiQLResult.toIon() = (this as PartiQLResult.Value).value.toIonValue(ION)
+
+    @ParameterizedTest
+    @ArgumentsSource(RendezvousArguments::class)
+    fun concurrentSubtrees(tc: TestCase) = runBlocking {
+        val actual = concurrentPipeline(dispatcher).compile(tc.query).eval(session).toIon()
+        assertEquals(ION.singleValue(tc.expected), actual)
+    }
+
+    class RendezvousArguments : ArgumentsProviderBase() {
+        override fun getParameters() = listOf(
+            // Items of collection constructors
+            TestCase("[rendezvous(1), rendezvous(2)]", "[1, 2]"),
+            TestCase("<<rendezvous(1), 2, rendezvous(3)>>", "\$bag::[1, 2, 3]"),
+            // Arguments of function calls
+            TestCase("substring(rendezvous('abc'), rendezvous(2))", "\"bc\""),
+            // Operands of bag operators
+            TestCase(
+                "SELECT VALUE rendezvous(x) FROM <<1>> AS x OUTER UNION ALL SELECT VALUE rendezvous(x) FROM <<2>> AS x",
+                "\$bag::[1, 2]"
+            ),
+            // Independent bindings of a LET, for each row
+            TestCase(
+                "SELECT a, b FROM <<1, 2>> AS x LET rendezvous(x) AS a, rendezvous(x * 10) AS b ORDER BY a",
+                "[{a: 1, b: 10}, {a: 2, b: 20}]"
+            ),
+            // The build side of a hash join, with the scan of the probe side
+            TestCase(
+                """
+                SELECT l.v AS l, r.v AS r
+                FROM (SELECT VALUE {'k': x, 'v': rendezvous(x)} FROM <<1>> AS x) AS l
+                JOIN (SELECT VALUE {'k': x, 'v': rendezvous(x * 10)} FROM <<1>> AS x) AS r ON l.k = r.k
+                """,
+                "\$bag::[{l: 1, r: 10}]"
+            ),
+        )
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(SameResultArguments::class)
+    fun sameResults(query: String) = runBlocking {
+        val expected = defaultPipeline.compile(query).eval(session).toIon()
+        assertEquals(expected, concurrentPipeline(dispatcher).compile(query).eval(session).toIon())
+    }
+
+    class SameResultArguments : ArgumentsProviderBase() {
+        override fun getParameters() = listOf(
+            "[echo(1), echo(NULL), echo(MISSING), 4]",
+            "SELECT VALUE echo(x) FROM <<1, 2, 2>> AS x UNION SELECT VALUE echo(x) FROM <<2, 3>> AS x",
+            "SELECT VALUE echo(x) FROM <<1, 2, 2>> AS x INTERSECT ALL SELECT VALUE echo(x) FROM <<2, 2, 3>> AS x",
+            "SELECT VALUE echo(x) FROM <<1, 2, 2>> AS x EXCEPT SELECT VALUE echo(x) FROM <<2>> AS x",
+            "echo(echo(NULL)) || echo('a')",
+            // The value of the second binding depends on the first one.
+            "SELECT a, b FROM <<1, 2>> AS x LET echo(x) AS a, echo(a + 1) AS b ORDER BY a",
+            // The subqueries reference the variables of the outer query.
+            "SELECT x, [(SELECT VALUE echo(x + y) FROM <<1>> AS y), echo(x)] AS s FROM <<1, 2>> AS x ORDER BY x",
+            """
+            SELECT l.v AS l, r.v AS r
+            FROM (SELECT VALUE {'k': x % 2, 'v': echo(x)} FROM <<1, 2, 3>> AS x) AS l
+            LEFT JOIN (SELECT VALUE {'k': x, 'v': echo(x * 10)} FROM <<1, 4>> AS x) AS r ON l.k = r.k
+            ORDER BY l
+            """,
+            // The probe side of the hash join is empty.
+            """
+            SELECT l.v AS l, r.v AS r
+            FROM (SELECT VALUE {'k': x, 'v': echo(x)} FROM <<>> AS x) AS l
+            JOIN (SELECT VALUE {'k': x, 'v': echo(1 / (x - x))} FROM <<1>> AS x) AS r ON l.k = r.k
+            """,
+        )
+    }
+
+    @Test
+    fun errorInConcurrentSubtree() {
+        val error = assertThrows<EvaluationException> {
+            runBlocking { concurrentPipeline(dispatcher).compile("[echo(1), echo(1 / 0)]").eval(session) }
+        }
+        assertEquals(ErrorCode.EVALUATOR_DIVIDE_BY_ZERO, error.errorCode)
+    }
+
+    @Test
+    fun virtualThreads() = runBlocking {
+        val virtualThreadDispatcher = try {
+            newVirtualThreadDispatcher()
+        } catch (e: UnsupportedOperationException) {
+            assumeTrue(false, "Virtual threads are not supported")
+            return@runBlocking
+        }
+        virtualThreadDispatcher.use {
+            val actual = concurrentPipeline(it).compile("[rendezvous(1), rendezvous(2)]").eval(session).toIon()
+            assertEquals(ION.singleValue("[1, 2]"), actual)
+        }
+    }
+
+    companion object {
+        private const val TIMEOUT_SECONDS = 10L
+
+        private val executor = Executors.newFixedThreadPool(4)
+
+        private val dispatcher = executor.asCoroutineDispatcher()
+
+        @JvmStatic
+        @AfterAll
+        fun shutdownExecutor() {
+            executor.shutdown()
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package org.partiql.lang.compiler
+
+import kotlinx.coroutines.runBlocking
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.io.TempDir
+import org.junit.jupiter.params.ParameterizedTest
+import org.junit.jupiter.params.provider.ArgumentsSource
+import org.partiql.annotations.ExperimentalPartiQLCompilerPipeline
+import org.partiql.lang.ION
+import org.partiql.lang.eval.BAG_ANNOTATION
+import org.partiql.lang.eval.Bindings
+import org.partiql.lang.eval.EvaluationSession
+import org.partiql.lang.eval.ExprValue
+import org.partiql.lang.eval.PartiQLResult
+import org.partiql.lang.eval.physical.operators.ExternalSortOperatorFactory
+import org.partiql.lang.eval.physical.operators.ExternalSortOperatorFactoryAsync
+import org.partiql.lang.eval.toIonValue
+import org.partiql.lang.planner.GlobalResolutionResult
+import org.partiql.lang.planner.GlobalVariableResolver
+import org.partiql.lang.planner.transforms.optimizations.createSortToExternalSortPass
+import org.partiql.lang.util.ArgumentsProviderBase
+import java.io.File
+
+/**
+ * Verifies that the external sort implementation of the `sort` operator produces the same results as the default
+ * in-memory implementation, on both the synchronous and the asynchronous evaluators.
+ *
+ * The external sort is configured to hold at most 2 rows in memory such that every query spills several sorted runs.
+ */
+@OptIn(ExperimentalPartiQLCompilerPipeline::class)
+class ExternalSortTests {
+
+    data class TestCase(val query: String)
+
+    @TempDir
+    lateinit var tempDirectory: File
+
+    private val session = EvaluationSession.build {
+        globals(
+            Bindings.ofMap(
+                mapOf(
+                    "t" to ExprValue.of(
+                        ION.singleValue(
+                            """
+                            $BAG_ANNOTATION::[
+                                { id: 1, a: 3, b: "c", c: { x: 1 } },
+                                { id: 2, a: 1, b: "b", c: [1, 2] },
+                                { id: 3, a: 2.5, b: "a", c: $BAG_ANNOTATION::[1] },
+                                { id: 4, a: null, b: "c", c: 2007-02-23T12:14Z },
+                                { id: 5, b: "b", c: "text" },
+                                { id: 6, a: 1e0, b: "a", c: null },
+                                { id: 7, a: 3, b: "a", c: {{ aGVsbG8= }} },
+                                { id: 8, a: -1, b: "b" }
+                            ]
+                            """
+                        )
+                    )
+                )
+            )
+        )
+    }
+
+    private val defaultPipeline = PartiQLCompilerPipeline.build {
+        planner.globalVariableResolver(globals)
+    }
+
+    private val defaultPipelineAsync = PartiQLCompilerPipelineAsync.build {
+        planner.globalVariableResolver(globals)
+    }
+
+    private fun externalSortPipeline() = PartiQLCompilerPipeline.build {
+        planner.physicalPlannerPasses(listOf(createSortToExternalSortPass()))
+            .globalVariableResolver(globals)
+        compiler.customOperatorFactories(listOf(ExternalSortOperatorFactory(maxRowsInMemory = 2, tempDirectory = tempDirectory)))
+    }
+
+    private fun externalSortPipelineAsync() = PartiQLCompilerPipelineAsync.build {
+        planner.physicalPlannerPasses(listOf(createSortToExternalSortPass()))
+            .globalVariableResolver(globals)
+        compiler.customOperatorFactories(listOf(ExternalSortOperatorFactoryAsync(maxRowsInMemory = 2, tempDirectory = tempDirectory)))
+    }
+
+    private fun PartiQLResult.toIon() = (this as PartiQLResult.Value).value.toIonValue(ION)
+
+    @ParameterizedTest
+    @ArgumentsSource(Arguments::class)
+    fun externalSort(tc: TestCase) {
+        val expected = defaultPipeline.compile(tc.query).eval(session).toIon()
+        assertEquals(expected, externalSortPipeline().compile(tc.query).eval(session).toIon())
+        assertTrue(tempDirectory.listFiles()!!.isEmpty(), "Temporary files were not deleted")
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(Arguments::class)
+    fun externalSortAsync(tc: TestCase) = runBlocking {
+        val expected = defaultPipelineAsync.compile(tc.query).eval(session).toIon()
+        assertEquals(expected, externalSortPipelineAsync().compile(tc.query).eval(session).toIon())
+        assertTrue(tempDirectory.listFiles()!!.isEmpty(), "Temporary files were not deleted")
+    }
+
+    class Arguments : ArgumentsProviderBase() {
+        override fun getParameters() = listOf(
+            TestCase("SELECT t.id FROM t ORDER BY t.a"),
+            TestCase("SELECT t.id FROM t ORDER BY t.a DESC NULLS LAST"),
+            // Ties are resolved in input order (the sort is stable).
+            TestCase("SELECT t.id FROM t ORDER BY t.b"),
+            TestCase("SELECT t.id FROM t ORDER BY t.b DESC, t.a ASC NULLS FIRST"),
+            // Rows of all types are written to and read from the sorted runs.
+            TestCase("SELECT t.id, t.c FROM t ORDER BY t.id DESC"),
+            TestCase("SELECT t.id, t.c FROM t ORDER BY t.c"),
+            // Fewer rows than the in-memory limit.
+            TestCase("SELECT t.id FROM t WHERE t.id < 3 ORDER BY t.id DESC"),
+            TestCase("SELECT t.id FROM t WHERE t.id > 100 ORDER BY t.id DESC"),
+        )
+    }
+
+    companion object {
+        private val globals = GlobalVariableResolver {
+            when (it.name.lowercase()) {
+                "t" -> GlobalResolutionResult.GlobalVariable(it.name.lowercase())
+                else -> GlobalResolutionResult.Undefined
+            }
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package org.partiql.lang.compiler
+
+import kotlinx.coroutines.runBlocking
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.params.ParameterizedTest
+import org.junit.jupiter.params.provider.ArgumentsSource
+import org.partiql.annotations.ExperimentalPartiQLCompilerPipeline
+import org.partiql.lang.ION
+import org.partiql.lang.eval.BAG_ANNOTATION
+import org.partiql.lang.eval.Bindings
+import org.partiql.lang.eval.EvaluationSession
+import org.partiql.lang.eval.ExprValue
+import org.partiql.lang.eval.PartiQLResult
+import org.partiql.lang.eval.toIonValue
+import org.partiql.lang.planner.GlobalResolutionResult
+import org.partiql.lang.planner.GlobalVariableResolver
+import org.partiql.lang.planner.transforms.optimizations.createEquiJoinToHashJoinPass
+import org.partiql.lang.util.ArgumentsProviderBase
+
+/**
+ * Verifies that the hash join implementation of the `join` operator produces the same results as the default nested
+ * loop implementation, on both the synchronous and the asynchronous evaluators.
+ */
+@OptIn(ExperimentalPartiQLCompilerPipeline::class)
+class HashJoinTests {
+
+    data class TestCase(val query: String)
+
+    private val session = EvaluationSession.build {
+        globals(
+            Bindings.ofMap(
+                mapOf(
+                    "l" to ExprValue.of(
+                        ION.singleValue(
+                            """
+                            $BAG_ANNOTATION::[
+                                { id: 1, a: 1, n: "one" },
+                                { id: 2, a: 2, n: "two" },
+                                { id: 3, a: 2.0, n: "two again" },
+                                { id: 4, a: null, n: "null" },
+                                { id: 5, n: "missing" },
+                                { id: 6, a: 6, n: "six" }
+                            ]
+                            """
+                        )
+                    ),
+                    "r" to ExprValue.of(
+                        ION.singleValue(
+                            """
+                            $BAG_ANNOTATION::[
+                                { id: 10, b: 1, c: 10 },
+                                { id: 20, b: 2e0, c: 20 },
+                                { id: 21, b: 2, c: 21 },
+                                { id: 30, b: null, c: 30 },
+                                { id: 40, b: 4, c: 40 }
+                            ]
+                            """
+                        )
+                    )
+                )
+            )
+        )
+    }
+
+    private val defaultPipeline = PartiQLCompilerPipeline.build {
+        planner.globalVariableResolver(globals)
+    }
+
+    private val defaultPipelineAsync = PartiQLCompilerPipelineAsync.build {
+        planner.globalVariableResolver(globals)
+    }
+
+    private val hashJoinPipeline = PartiQLCompilerPipeline.build {
+        planner.physicalPlannerPasses(listOf(createEquiJoinToHashJoinPass()))
+            .globalVariableResolver(globals)
+    }
+
+    private val hashJoinPipelineAsync = PartiQLCompilerPipelineAsync.build {
+        planner.physicalPlannerPasses(listOf(createEquiJoinToHashJoinPass()))
+            .globalVariableResolver(globals)
+    }
+
+    private fun PartiQLResult.toIon() = (this as PartiQLResult.Value).value.toIonValue(ION)
+
+    @ParameterizedTest
+    @ArgumentsSource(Arguments::class)
+    fun hashJoin(tc: TestCase) {
+        val expected = defaultPipeline.compile(tc.query).eval(session).toIon()
+        assertEquals(expected, hashJoinPipeline.compile(tc.query).eval(session).toIon())
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(Arguments::class)
+    fun hashJoinAsync(tc: TestCase) = runBlocking {
+        val expected = defaultPipelineAsync.compile(tc.query).eval(session).toIon()
+        assertEquals(expected, hashJoinPipelineAsync.compile(tc.query).eval(session).toIon())
+    }
+
+    class Arguments : ArgumentsProviderBase() {
+        override fun getParameters() = listOf(
+            TestCase("SELECT l.id AS lid, r.id AS rid FROM l INNER JOIN r ON l.a = r.b ORDER BY l.id, r.id"),
+            // Keys in either order, and a residual predicate.
+            TestCase("SELECT l.id AS lid, r.id AS rid FROM l INNER JOIN r ON r.b = l.a AND r.c > 20 ORDER BY l.id, r.id"),
+            // Rows of the left side without a match (including those with NULL and MISSING keys) are preserved.
+            TestCase("SELECT l.id AS lid, r.id AS rid FROM l LEFT JOIN r ON l.a = r.b AND r.c < 21 ORDER BY l.id, r.id"),
+            // Rows of the right side without a match (including those with NULL keys) are preserved.
+            TestCase("SELECT l.id AS lid, r.id AS rid FROM l RIGHT JOIN r ON l.a = r.b AND l.id <> 3 ORDER BY r.id, l.id"),
+            // Composite keys.
+            TestCase("SELECT l.id AS lid, r.id AS rid FROM l INNER JOIN r ON l.a = r.b AND l.id * 10 = r.c ORDER BY l.id"),
+        )
+    }
+
+    companion object {
+        private val globals = GlobalVariableResolver {
+            when (it.name.lowercase()) {
+                "l", "r" -> GlobalResolutionResult.GlobalVariable(it.name.lowercase())
+                else -> GlobalResolutionResult.Undefined
+            }
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package org.partiql.lang.compiler
+
+import kotlinx.coroutines.runBlocking
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import org.junit.jupiter.api.io.TempDir
+import org.junit.jupiter.params.ParameterizedTest
+import org.junit.jupiter.params.provider.ValueSource
+import org.partiql.annotations.ExperimentalPartiQLCompilerPipeline
+import org.partiql.errors.ErrorCode
+import org.partiql.errors.Property
+import org.partiql.lang.CompilerPipeline
+import org.partiql.lang.ION
+import org.partiql.lang.eval.BAG_ANNOTATION
+import org.partiql.lang.eval.Bindings
+import org.partiql.lang.eval.EvaluationException
+import org.partiql.lang.eval.EvaluationSession
+import org.partiql.lang.eval.ExprValue
+import org.partiql.lang.eval.PartiQLResult
+import org.partiql.lang.eval.physical.operators.ExternalSortOperatorFactoryAsync
+import org.partiql.lang.eval.toIonValue
+import org.partiql.lang.planner.GlobalResolutionResult
+import org.partiql.lang.planner.GlobalVariableResolver
+import org.partiql.lang.planner.transforms.optimizations.createEquiJoinToHashJoinPass
+import org.partiql.lang.planner.transforms.optimizations.createSortToExternalSortPass
+import java.io.File
+
+/**
+ * Verifies that the operators buffering rows fail with [ErrorCode.EVALUATOR_MEMORY_BUDGET_EXCEEDED] once they hold
+ * more than the [EvaluationSession.memoryBudget], on both the physical plan and the legacy evaluators.
+ */
+@OptIn(ExperimentalPartiQLCompilerPipeline::class)
+class MemoryBudgetTests {
+
+    @TempDir
+    lateinit var tempDirectory: File
+
+    private val rows = ION.singleValue(
+        (1..200).joinToString(prefix = "$BAG_ANNOTATION::[", postfix = "]") {
+            """{ id: $it, k: ${it % 3}, s: "${"x".repeat(50)}$it" }"""
+        }
+    )
+
+    private fun session(memoryBudget: Long? = null) = EvaluationSession.build {
+        globals(Bindings.ofMap(mapOf("t" to ExprValue.of(rows))))
+        memoryBudget?.let { memoryBudget(it) }
+    }
+
+    private val pipeline = PartiQLCompilerPipelineAsync.build {
+        planner.physicalPlannerPasses(listOf(createEquiJoinToHashJoinPass()))
+            .globalVariableResolver(globals)
+    }
+
+    private val legacyPipeline = CompilerPipeline.standard()
+
+    private fun evalAsync(query: String, session: EvaluationSession) = runBlocking {
+        (pipeline.compile(query).eval(session) as PartiQLResult.Value).value.toIonValue(ION)
+    }
+
+    private fun evalLegacy(query: String, session: EvaluationSession) =
+        legacyPipeline.compile(query).eval(session).toIonValue(ION)
+
+    private fun assertBudgetExceeded(budget: Long, evaluate: () -> Unit) {
+        val e = assertThrows<EvaluationException> { evaluate() }
+        assertEquals(ErrorCode.EVALUATOR_MEMORY_BUDGET_EXCEEDED, e.errorCode)
+        assertEquals(budget, e.errorContext[Property.MEMORY_BUDGET]?.longValue())
+    }
+
+    @ParameterizedTest
+    @ValueSource(
+        strings = [
+            "SELECT t.id FROM t ORDER BY t.s DESC",
+            "SELECT t.s, COUNT(*) AS n FROM t GROUP BY t.s",
+            "SELECT DISTINCT t.s FROM t",
+            "SELECT a.id FROM t AS a JOIN t AS b ON a.id = b.id",
+            "SELECT t.k, SUM(DISTINCT t.id) AS ids FROM t GROUP BY t.k",
+            "t OUTER EXCEPT ALL t"
+        ]
+    )
+    fun budgetExceeded(query: String) {
+        assertBudgetExceeded(BUDGET) { evalAsync(query, session(BUDGET)) }
+        // The same query fits in a larger budget.
+        assertEquals(evalAsync(query, session()), evalAsync(query, session(LARGE_BUDGET)))
+    }
+
+    @ParameterizedTest
+    @ValueSource(
+        strings = [
+            "SELECT t.id FROM t ORDER BY t.s DESC",
+            "SELECT t.s, COUNT(*) AS n FROM t GROUP BY t.s",
+            "SELECT DISTINCT t.s FROM t",
+            "t OUTER UNION DISTINCT t"
+        ]
+    )
+    fun budgetExceededLegacy(query: String) {
+        assertBudgetExceeded(BUDGET) { evalLegacy(query, session(BUDGET)) }
+        assertEquals(evalLegacy(query, session()), evalLegacy(query, session(LARGE_BUDGET)))
+    }
+
+    @Test
+    fun streamingOperatorsAreNotAccounted() {
+        val query = "SELECT t.id FROM t WHERE t.k = 1"
+        assertEquals(evalAsync(query, session()), evalAsync(query, session(BUDGET)))
+    }
+
+    @Test
+    fun partiallyReadOperatorsDoNotAccumulateReservations() {
+        // The sort of the subquery is evaluated for every row of `t`, and is never read to the end by EXISTS.
+        val query = "SELECT t.id FROM t WHERE EXISTS (SELECT u.id FROM t AS u WHERE u.k = t.k ORDER BY u.s)"
+        assertEquals(evalAsync(query, session()), evalAsync(query, session(SUBQUERY_BUDGET)))
+        assertEquals(evalLegacy(query, session()), evalLegacy(query, session(SUBQUERY_BUDGET)))
+    }
+
+    @Test
+    fun externalSortSpillsInsteadOfFailing() = runBlocking {
+        val externalSortPipeline = PartiQLCompilerPipelineAsync.build {
+            planner.physicalPlannerPasses(listOf(createSortToExternalSortPass()))
+                .globalVariableResolver(globals)
+            // The rows always fit in maxRowsInMemory, thus the runs are only spilled because of the budget.
+            compiler.customOperatorFactories(
+                listOf(ExternalSortOperatorFactoryAsync(maxRowsInMemory = 1000, tempDirectory = tempDirectory))
+            )
+        }
+        val query = "SELECT t.id FROM t ORDER BY t.s DESC"
+        val result = externalSortPipeline.compile(query).eval(session(BUDGET)) as PartiQLResult.Value
+        assertEquals(evalAsync(query, session()), result.value.toIonValue(ION))
+    }
+
+    companion object {
+        private const val BUDGET = 8_000L
+        private const val LARGE_BUDGET = 100_000_000L
+
+        /** Fits the rows sorted by one evaluation of a subquery, but not by every evaluation. */
+        private const val SUBQUERY_BUDGET = 200_000L
+
+        private val globals = GlobalVariableResolver {
+            when (it.name.lowercase()) {
+                "t" -> GlobalResolutionResult.GlobalVariable("t")
+                else -> GlobalResolutionResult.Undefined
+            }
+        }
+    }
+}
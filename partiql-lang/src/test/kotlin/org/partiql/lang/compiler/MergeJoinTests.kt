@@ -0,0 +1,149 @@
+package org.partiql.lang.compiler
+
+import kotlinx.coroutines.runBlocking
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import org.junit.jupiter.params.ParameterizedTest
+import org.junit.jupiter.params.provider.ArgumentsSource
+import org.partiql.annotations.ExperimentalPartiQLCompilerPipeline
+import org.partiql.lang.ION
+import org.partiql.lang.eval.BAG_ANNOTATION
+import org.partiql.lang.eval.Bindings
+import org.partiql.lang.eval.EvaluationSession
+import org.partiql.lang.eval.ExprValue
+import org.partiql.lang.eval.PartiQLResult
+import org.partiql.lang.eval.toIonValue
+import org.partiql.lang.planner.GlobalResolutionResult
+import org.partiql.lang.planner.GlobalVariableResolver
+import org.partiql.lang.planner.transforms.optimizations.createEquiJoinToMergeJoinPass
+import org.partiql.lang.planner.transforms.optimizations.withOrderedBy
+import org.partiql.lang.util.ArgumentsProviderBase
+import org.partiql.types.BagType
+import org.partiql.types.StaticType
+import org.partiql.types.StructType
+
+/**
+ * Verifies that the sort-merge join implementation of the `join` operator produces the same results as the default
+ * nested loop implementation, on both the synchronous and the asynchronous evaluators.
+ */
+@OptIn(ExperimentalPartiQLCompilerPipeline::class)
+class MergeJoinTests {
+
+    data class TestCase(val query: String)
+
+    /** The tables are sorted as declared by [staticTypes], with `NULL` and `MISSING` keys anywhere. */
+    private val session = session(
+        l = """
+            { id: 1, a: 1, n: "one" },
+            { id: 4, a: null, n: "null" },
+            { id: 2, a: 2, n: "two" },
+            { id: 3, a: 2.0, n: "two again" },
+            { id: 5, n: "missing" },
+            { id: 6, a: 6, n: "six" }
+        """,
+        r = """
+            { id: 10, b: 1, c: 10 },
+            { id: 30, b: null, c: 30 },
+            { id: 20, b: 2e0, c: 20 },
+            { id: 21, b: 2, c: 21 },
+            { id: 22, b: 2, c: 22 },
+            { id: 40, b: 4, c: 40 },
+            { id: 60, b: 6, c: 60 }
+        """
+    )
+
+    private fun session(l: String, r: String) = EvaluationSession.build {
+        globals(
+            Bindings.ofMap(
+                mapOf(
+                    "l" to ExprValue.of(ION.singleValue("$BAG_ANNOTATION::[$l]")),
+                    "r" to ExprValue.of(ION.singleValue("$BAG_ANNOTATION::[$r]"))
+                )
+            )
+        )
+    }
+
+    private val defaultPipeline = PartiQLCompilerPipeline.build {
+        planner.globalVariableResolver(globals)
+    }
+
+    private val defaultPipelineAsync = PartiQLCompilerPipelineAsync.build {
+        planner.globalVariableResolver(globals)
+    }
+
+    private val mergeJoinPipeline = PartiQLCompilerPipeline.build {
+        planner.physicalPlannerPasses(listOf(createEquiJoinToMergeJoinPass(staticTypes)))
+            .globalVariableResolver(globals)
+    }
+
+    private val mergeJoinPipelineAsync = PartiQLCompilerPipelineAsync.build {
+        planner.physicalPlannerPasses(listOf(createEquiJoinToMergeJoinPass(staticTypes)))
+            .globalVariableResolver(globals)
+    }
+
+    private fun PartiQLResult.toIon() = (this as PartiQLResult.Value).value.toIonValue(ION)
+
+    @ParameterizedTest
+    @ArgumentsSource(Arguments::class)
+    fun mergeJoin(tc: TestCase) {
+        val expected = defaultPipeline.compile(tc.query).eval(session).toIon()
+        assertEquals(expected, mergeJoinPipeline.compile(tc.query).eval(session).toIon())
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(Arguments::class)
+    fun mergeJoinAsync(tc: TestCase) = runBlocking {
+        val expected = defaultPipelineAsync.compile(tc.query).eval(session).toIon()
+        assertEquals(expected, mergeJoinPipelineAsync.compile(tc.query).eval(session).toIon())
+    }
+
+    class Arguments : ArgumentsProviderBase() {
+        override fun getParameters() = listOf(
+            TestCase("SELECT l.id AS lid, r.id AS rid FROM l INNER JOIN r ON l.a = r.b ORDER BY l.id, r.id"),
+            // Keys in either order, and a residual predicate.
+            TestCase("SELECT l.id AS lid, r.id AS rid FROM l INNER JOIN r ON r.b = l.a AND r.c > 20 ORDER BY l.id, r.id"),
+            // Rows of the left side without a match (including those with NULL and MISSING keys) are preserved.
+            TestCase("SELECT l.id AS lid, r.id AS rid FROM l LEFT JOIN r ON l.a = r.b AND r.c < 21 ORDER BY l.id, r.id"),
+            // Rows of the right side without a match (including those with NULL keys) are preserved.
+            TestCase("SELECT l.id AS lid, r.id AS rid FROM l RIGHT JOIN r ON l.a = r.b AND l.id <> 3 ORDER BY r.id, l.id"),
+            // An equi-join key which is not a merge key.
+            TestCase("SELECT l.id AS lid, r.id AS rid FROM l INNER JOIN r ON l.a = r.b AND l.id * 10 = r.c ORDER BY l.id"),
+            // A filter over the join.
+            TestCase(
+                "SELECT l.id AS lid, r.id AS rid FROM l INNER JOIN r ON l.a = r.b WHERE l.id > 1 AND r.c < 60 ORDER BY l.id, r.id"
+            ),
+        )
+    }
+
+    @Test
+    fun unsortedInput() {
+        val unsorted = session(
+            l = "{ id: 1, a: 2 }, { id: 2, a: 1 }",
+            r = "{ id: 10, b: 1 }, { id: 20, b: 2 }"
+        )
+        val query = "SELECT l.id AS lid, r.id AS rid FROM l INNER JOIN r ON l.a = r.b"
+        val error = assertThrows<Exception> {
+            mergeJoinPipeline.compile(query).eval(unsorted).toIon()
+        }
+        assertTrue(generateSequence<Throwable>(error) { it.cause }.any { it.message?.contains("not sorted") == true })
+    }
+
+    companion object {
+        private val globals = GlobalVariableResolver {
+            when (it.name.lowercase()) {
+                "l", "r" -> GlobalResolutionResult.GlobalVariable(it.name.lowercase())
+                else -> GlobalResolutionResult.Undefined
+            }
+        }
+
+        private val staticTypes = { uniqueId: String ->
+            when (uniqueId) {
+                "l" -> BagType(StructType(fields = emptyMap()).withOrderedBy("a"))
+                "r" -> BagType(StructType(fields = emptyMap()).withOrderedBy("b", "c"))
+                else -> StaticType.ANY
+            }
+        }
+    }
+}
@@ -0,0 +1,230 @@
+package org.partiql.lang.compiler
+
+import com.amazon.ion.IonSequence
+import kotlinx.coroutines.runBlocking
+import org.junit.jupiter.api.AfterAll
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import org.junit.jupiter.params.ParameterizedTest
+import org.junit.jupiter.params.provider.ArgumentsSource
+import org.partiql.annotations.ExperimentalPartiQLCompilerPipeline
+import org.partiql.errors.ErrorCode
+import org.partiql.lang.ION
+import org.partiql.lang.eval.Bindings
+import org.partiql.lang.eval.EvaluationException
+import org.partiql.lang.eval.EvaluationSession
+import org.partiql.lang.eval.ExprValue
+import org.partiql.lang.eval.PartiQLResult
+import org.partiql.lang.eval.StructOrdering
+import org.partiql.lang.eval.namedValue
+import org.partiql.lang.eval.physical.SplittableExprValue
+import org.partiql.lang.eval.physical.operators.ParallelAggregateOperatorFactory
+import org.partiql.lang.eval.physical.operators.ParallelAggregateOperatorFactoryAsync
+import org.partiql.lang.eval.physical.operators.ParallelFilterOperatorFactory
+import org.partiql.lang.eval.physical.operators.ParallelFilterOperatorFactoryAsync
+import org.partiql.lang.eval.toIonValue
+import org.partiql.lang.planner.GlobalResolutionResult
+import org.partiql.lang.planner.GlobalVariableResolver
+import org.partiql.lang.planner.transforms.optimizations.createParallelExecutionPass
+import org.partiql.lang.util.ArgumentsProviderBase
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Verifies that the parallel implementations of the `filter` and `aggregate` operators produce the same results as the
+ * default implementations, on both the synchronous and the asynchronous evaluators.
+ */
+@OptIn(ExperimentalPartiQLCompilerPipeline::class)
+class ParallelExecutionTests {
+
+    data class TestCase(val query: String)
+
+    /** A bag which records whether it was read with [split]. */
+    private class SplittableBag(private val values: List<ExprValue>) :
+        SplittableExprValue, ExprValue by ExprValue.newBag(values) {
+        @Volatile
+        var wasSplit = false
+
+        override fun split(index: Int, count: Int): Sequence<ExprValue> {
+            wasSplit = true
+            val size = (values.size + count - 1) / count
+            return values.drop(index * size).take(size).asSequence()
+        }
+    }
+
+    /** A bag which records how many times it was read. */
+    private class CountingBag(private val values: List<ExprValue>) : ExprValue by ExprValue.newBag(values) {
+        val reads = AtomicInteger()
+
+        override fun iterator(): Iterator<ExprValue> {
+            reads.incrementAndGet()
+            return values.iterator()
+        }
+    }
+
+    private val splittable = SplittableBag(rows())
+
+    private val counting = CountingBag(rows())
+
+    private val session = EvaluationSession.build {
+        globals(Bindings.ofMap(mapOf("t" to ExprValue.newBag(rows()), "s" to splittable, "c" to counting)))
+    }
+
+    private val defaultPipeline = PartiQLCompilerPipeline.build {
+        planner.globalVariableResolver(globals)
+    }
+
+    private val defaultPipelineAsync = PartiQLCompilerPipelineAsync.build {
+        planner.globalVariableResolver(globals)
+    }
+
+    private val parallelPipeline = PartiQLCompilerPipeline.build {
+        planner.physicalPlannerPasses(listOf(createParallelExecutionPass()))
+            .globalVariableResolver(globals)
+        compiler.customOperatorFactories(
+            listOf(
+                ParallelFilterOperatorFactory(executor, PARALLELISM),
+                ParallelAggregateOperatorFactory(executor, PARALLELISM)
+            )
+        )
+    }
+
+    private val parallelPipelineAsync = PartiQLCompilerPipelineAsync.build {
+        planner.physicalPlannerPasses(listOf(createParallelExecutionPass()))
+            .globalVariableResolver(globals)
+        compiler.customOperatorFactories(
+            listOf(
+                ParallelFilterOperatorFactoryAsync(executor, PARALLELISM),
+                ParallelAggregateOperatorFactoryAsync(executor, PARALLELISM)
+            )
+        )
+    }
+
+    private fun PartiQLResult.toIon() = (this as PartiQLResult.Value).value.toIonValue(ION) as IonSequence
+
+    @ParameterizedTest
+    @ArgumentsSource(Arguments::class)
+    fun parallelExecution(tc: TestCase) {
+        val expected = defaultPipeline.compile(tc.query).eval(session).toIon()
+        assertEquals(expected, parallelPipeline.compile(tc.query).eval(session).toIon())
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(Arguments::class)
+    fun parallelExecutionAsync(tc: TestCase) = runBlocking {
+        val expected = defaultPipelineAsync.compile(tc.query).eval(session).toIon()
+        assertEquals(expected, parallelPipelineAsync.compile(tc.query).eval(session).toIon())
+    }
+
+    @Test
+    fun splittableValue() = runBlocking {
+        val query = "SELECT COUNT(*) AS c, SUM(s.v) AS total FROM s WHERE s.id % 2 = 0"
+        val expected = defaultPipelineAsync.compile(query).eval(session).toIon()
+        assertEquals(expected, parallelPipelineAsync.compile(query).eval(session).toIon())
+        assertTrue(splittable.wasSplit, "The value was not split")
+    }
+
+    @Test
+    fun singleRead() {
+        val query = "SELECT COUNT(*) AS c FROM c WHERE c.id % 2 = 0"
+        val expected = defaultPipeline.compile(query).eval(session).toIon()
+        counting.reads.set(0)
+        assertEquals(expected, parallelPipeline.compile(query).eval(session).toIon())
+        assertEquals(1, counting.reads.get(), "The value was not read once by the partitions")
+    }
+
+    @Test
+    fun singleReadAsync() = runBlocking {
+        val query = "SELECT c.id FROM c WHERE c.id % 2 = 0"
+        counting.reads.set(0)
+        val result = parallelPipelineAsync.compile(query).eval(session).toIon()
+        assertEquals(NUM_ROWS / 2, result.size)
+        assertEquals(1, counting.reads.get(), "The value was not read once by the partitions")
+    }
+
+    @Test
+    fun limit() {
+        // The rows of the partitions are returned as they are found, in no particular order
+        val query = "SELECT t.id FROM t WHERE t.v > 500 LIMIT 5"
+        assertEquals(5, parallelPipeline.compile(query).eval(session).toIon().size)
+    }
+
+    @Test
+    fun limitAsync() = runBlocking {
+        val query = "SELECT t.id FROM t WHERE t.v > 500 LIMIT 5"
+        assertEquals(5, parallelPipelineAsync.compile(query).eval(session).toIon().size)
+    }
+
+    @Test
+    fun errorInPartition() {
+        val query = "SELECT t.id FROM t WHERE t.id / (t.id - 500) > 1"
+        val error = assertThrows<EvaluationException> {
+            parallelPipeline.compile(query).eval(session).toIon()
+        }
+        assertEquals(ErrorCode.EVALUATOR_DIVIDE_BY_ZERO, error.errorCode)
+    }
+
+    @Test
+    fun errorInPartitionAsync() {
+        val query = "SELECT t.id FROM t WHERE t.id / (t.id - 500) > 1"
+        val error = assertThrows<EvaluationException> {
+            runBlocking { parallelPipelineAsync.compile(query).eval(session).toIon() }
+        }
+        assertEquals(ErrorCode.EVALUATOR_DIVIDE_BY_ZERO, error.errorCode)
+    }
+
+    class Arguments : ArgumentsProviderBase() {
+        override fun getParameters() = listOf(
+            // Filters
+            TestCase("SELECT t.id FROM t WHERE t.v > 500 ORDER BY t.id"),
+            TestCase("SELECT t.id, t.k FROM t WHERE t.k = 3 AND t.v IS NOT NULL ORDER BY t.id"),
+            TestCase("SELECT t.id FROM t WHERE t.id < 0"),
+            // Aggregations
+            TestCase("SELECT COUNT(*) AS c, SUM(t.v) AS s, MIN(t.v) AS mn, MAX(t.v) AS mx FROM t"),
+            TestCase("SELECT k, COUNT(t.v) AS c, SUM(t.v) AS s, AVG(t.v) AS a FROM t GROUP BY t.k AS k ORDER BY k"),
+            TestCase("SELECT k, MIN(t.id) AS mn, MAX(t.id) AS mx FROM t WHERE t.v > 100 GROUP BY t.k AS k ORDER BY k"),
+            TestCase("SELECT k, EVERY(t.id > 10) AS e, ANY(t.id > 990) AS an FROM t GROUP BY t.k AS k ORDER BY k"),
+            // Aggregations of an empty input
+            TestCase("SELECT COUNT(*) AS c, SUM(t.v) AS s, MAX(t.v) AS mx FROM t WHERE t.id < 0"),
+            TestCase("SELECT k, COUNT(*) AS c FROM t WHERE t.id < 0 GROUP BY t.k AS k"),
+            // DISTINCT aggregate functions are evaluated by the default implementation.
+            TestCase("SELECT k, COUNT(DISTINCT t.v % 10) AS c FROM t GROUP BY t.k AS k ORDER BY k"),
+        )
+    }
+
+    companion object {
+        private const val NUM_ROWS = 1000
+        private const val PARALLELISM = 4
+
+        private val executor = Executors.newFixedThreadPool(PARALLELISM)
+
+        @JvmStatic
+        @AfterAll
+        fun shutdownExecutor() {
+            executor.shutdown()
+        }
+
+        /** Rows with an `id`, a group key `k`, and a value `v` which is sometimes `NULL` or `MISSING`. */
+        private fun rows(): List<ExprValue> = (0 until NUM_ROWS).map { id ->
+            val fields = listOfNotNull(
+                ExprValue.newInt(id).namedValue(ExprValue.newString("id")),
+                ExprValue.newInt(id % 7).namedValue(ExprValue.newString("k")),
+                when {
+                    id % 11 == 0 -> null
+                    id % 13 == 0 -> ExprValue.nullValue.namedValue(ExprValue.newString("v"))
+                    else -> ExprValue.newInt(id).namedValue(ExprValue.newString("v"))
+                }
+            )
+            ExprValue.newStruct(fields, StructOrdering.ORDERED)
+        }
+
+        private val globals = GlobalVariableResolver {
+            when (it.name.lowercase()) {
+                "t", "s", "c" -> GlobalResolutionResult.GlobalVariable(it.name.lowercase())
+                else -> GlobalResolutionResult.Undefined
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package org.partiql.lang.compiler
+
+import kotlinx.coroutines.runBlocking
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.params.ParameterizedTest
+import org.junit.jupiter.params.provider.ArgumentsSource
+import org.partiql.annotations.ExperimentalPartiQLCompilerPipeline
+import org.partiql.lang.ION
+import org.partiql.lang.eval.BAG_ANNOTATION
+import org.partiql.lang.eval.Bindings
+import org.partiql.lang.eval.EvaluationSession
+import org.partiql.lang.eval.ExprValue
+import org.partiql.lang.eval.PartiQLResult
+import org.partiql.lang.eval.toIonValue
+import org.partiql.lang.planner.GlobalResolutionResult
+import org.partiql.lang.planner.GlobalVariableResolver
+import org.partiql.lang.planner.transforms.optimizations.createPredicatePushdownPass
+import org.partiql.lang.util.ArgumentsProviderBase
+
+/**
+ * Verifies that moving predicates below joins does not change the results of queries, on both the synchronous and the
+ * asynchronous evaluators.
+ */
+@OptIn(ExperimentalPartiQLCompilerPipeline::class)
+class PredicatePushdownTests {
+
+    data class TestCase(val query: String)
+
+    private val session = EvaluationSession.build {
+        globals(
+            Bindings.ofMap(
+                mapOf(
+                    "l" to ExprValue.of(
+                        ION.singleValue(
+                            """
+                            $BAG_ANNOTATION::[
+                                { id: 1, a: 1, xs: [1, 2] },
+                                { id: 2, a: 2, xs: [] },
+                                { id: 3, a: null, xs: [3] },
+                                { id: 4, a: 5, xs: [4, 5] }
+                            ]
+                            """
+                        )
+                    ),
+                    "r" to ExprValue.of(
+                        ION.singleValue("$BAG_ANNOTATION::[{ id: 10, b: 1 }, { id: 20, b: 2 }, { id: 30, b: 3 }]")
+                    )
+                )
+            )
+        )
+    }
+
+    private val defaultPipeline = PartiQLCompilerPipeline.build {
+        planner.globalVariableResolver(globals)
+    }
+
+    private val defaultPipelineAsync = PartiQLCompilerPipelineAsync.build {
+        planner.globalVariableResolver(globals)
+    }
+
+    private val optimizedPipeline = PartiQLCompilerPipeline.build {
+        planner.physicalPlannerPasses(listOf(createPredicatePushdownPass()))
+            .globalVariableResolver(globals)
+    }
+
+    private val optimizedPipelineAsync = PartiQLCompilerPipelineAsync.build {
+        planner.physicalPlannerPasses(listOf(createPredicatePushdownPass()))
+            .globalVariableResolver(globals)
+    }
+
+    private fun PartiQLResult.toIon() = (this as PartiQLResult.Value).value.toIonValue(ION)
+
+    @ParameterizedTest
+    @ArgumentsSource(Arguments::class)
+    fun predicatePushdown(tc: TestCase) {
+        val expected = defaultPipeline.compile(tc.query).eval(session).toIon()
+        assertEquals(expected, optimizedPipeline.compile(tc.query).eval(session).toIon())
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(Arguments::class)
+    fun predicatePushdownAsync(tc: TestCase) = runBlocking {
+        val expected = defaultPipelineAsync.compile(tc.query).eval(session).toIon()
+        assertEquals(expected, optimizedPipelineAsync.compile(tc.query).eval(session).toIon())
+    }
+
+    class Arguments : ArgumentsProviderBase() {
+        override fun getParameters() = listOf(
+            // Implicit (comma) joins.
+            TestCase("SELECT l.id AS lid, r.id AS rid FROM l, r WHERE l.a = r.b AND r.b > 1 ORDER BY l.id, r.id"),
+            TestCase("SELECT l.id AS lid, r.id AS rid FROM l, r WHERE l.id < 3 AND r.id > 10 ORDER BY l.id, r.id"),
+            TestCase(
+                "SELECT l.id AS lid, r.id AS rid, s.id AS sid FROM l, r, r AS s " +
+                    "WHERE l.a = r.b AND s.b = r.b + 1 AND l.id <> 2 ORDER BY l.id, r.id, s.id"
+            ),
+            // Outer joins.
+            TestCase(
+                "SELECT l.id AS lid, r.id AS rid FROM l LEFT JOIN r ON l.a = r.b AND r.id > 10 ORDER BY l.id, r.id"
+            ),
+            TestCase(
+                "SELECT l.id AS lid, r.id AS rid FROM l LEFT JOIN r ON l.a = r.b AND l.id > 1 " +
+                    "WHERE r.id IS NULL OR l.id < 3 ORDER BY l.id, r.id"
+            ),
+            TestCase(
+                "SELECT l.id AS lid, r.id AS rid FROM l RIGHT JOIN r ON l.a = r.b AND l.id > 1 ORDER BY r.id, l.id"
+            ),
+            // Correlated (lateral) joins and sub-queries.
+            TestCase(
+                "SELECT l.id AS lid, x AS x FROM l, l.xs AS x WHERE x > 1 AND l.id < 4 ORDER BY l.id, x"
+            ),
+            TestCase(
+                "SELECT l.id AS lid FROM l " +
+                    "WHERE l.id IN (SELECT VALUE r.b FROM r, l AS m WHERE r.b = m.a AND r.id > 10) ORDER BY l.id"
+            ),
+        )
+    }
+
+    companion object {
+        private val globals = GlobalVariableResolver {
+            when (it.name.lowercase()) {
+                "l", "r" -> GlobalResolutionResult.GlobalVariable(it.name.lowercase())
+                else -> GlobalResolutionResult.Undefined
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package org.partiql.lang.compiler
+
+import com.amazon.ion.IonList
+import kotlinx.coroutines.runBlocking
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.params.ParameterizedTest
+import org.junit.jupiter.params.provider.ArgumentsSource
+import org.partiql.annotations.ExperimentalPartiQLCompilerPipeline
+import org.partiql.lang.ION
+import org.partiql.lang.eval.BAG_ANNOTATION
+import org.partiql.lang.eval.Bindings
+import org.partiql.lang.eval.EvaluationSession
+import org.partiql.lang.eval.ExprValue
+import org.partiql.lang.eval.PartiQLResult
+import org.partiql.lang.eval.StructOrdering
+import org.partiql.lang.eval.toIonValue
+import org.partiql.lang.planner.GlobalResolutionResult
+import org.partiql.lang.planner.GlobalVariableResolver
+import org.partiql.lang.planner.transforms.optimizations.createProjectionPruningPass
+import org.partiql.lang.util.ArgumentsProviderBase
+
+/**
+ * Verifies that pruning the structs scanned to the fields referenced by a query does not change its results, on both
+ * the synchronous and the asynchronous evaluators.  The rows of `l` are backed by an Ion DOM, and those of `r` are
+ * lazily materialized structs.
+ */
+@OptIn(ExperimentalPartiQLCompilerPipeline::class)
+class ProjectionPruningTests {
+
+    data class TestCase(val query: String)
+
+    private val session = EvaluationSession.build {
+        globals(
+            Bindings.ofMap(
+                mapOf(
+                    "l" to ExprValue.of(
+                        ION.singleValue(
+                            """
+                            $BAG_ANNOTATION::[
+                                { id: 1, a: 1, B: "x", c: { d: 10 } },
+                                { id: 2, a: 0, B: "y", c: { d: 20 } },
+                                { id: 3, a: null }
+                            ]
+                            """
+                        )
+                    ),
+                    "r" to ExprValue.newBag(
+                        (ION.singleValue("[{ id: 1, b: 1, e: 5 }, { id: 2, b: 2, f: 6 }, { id: 3, B: 3 }]") as IonList)
+                            .map { ExprValue.newStruct(ExprValue.of(it).asSequence(), StructOrdering.ORDERED) }
+                    )
+                )
+            )
+        )
+    }
+
+    private val defaultPipeline = PartiQLCompilerPipeline.build {
+        planner.globalVariableResolver(globals)
+    }
+
+    private val defaultPipelineAsync = PartiQLCompilerPipelineAsync.build {
+        planner.globalVariableResolver(globals)
+    }
+
+    private val prunedPipeline = PartiQLCompilerPipeline.build {
+        planner.physicalPlannerPasses(listOf(createProjectionPruningPass()))
+            .globalVariableResolver(globals)
+    }
+
+    private val prunedPipelineAsync = PartiQLCompilerPipelineAsync.build {
+        planner.physicalPlannerPasses(listOf(createProjectionPruningPass()))
+            .globalVariableResolver(globals)
+    }
+
+    private fun PartiQLResult.toIon() = (this as PartiQLResult.Value).value.toIonValue(ION)
+
+    @ParameterizedTest
+    @ArgumentsSource(Arguments::class)
+    fun projectionPruning(tc: TestCase) {
+        val expected = defaultPipeline.compile(tc.query).eval(session).toIon()
+        assertEquals(expected, prunedPipeline.compile(tc.query).eval(session).toIon())
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(Arguments::class)
+    fun projectionPruningAsync(tc: TestCase) = runBlocking {
+        val expected = defaultPipelineAsync.compile(tc.query).eval(session).toIon()
+        assertEquals(expected, prunedPipelineAsync.compile(tc.query).eval(session).toIon())
+    }
+
+    class Arguments : ArgumentsProviderBase() {
+        override fun getParameters() = listOf(
+            TestCase("SELECT l.id, l.b, l.c.d FROM l WHERE l.a >= 0 ORDER BY l.id"),
+            TestCase("SELECT r.id, r.b, r.e FROM r ORDER BY r.id"),
+            TestCase("SELECT r.id, r.\"b\" AS b FROM r ORDER BY r.id"),
+            TestCase("SELECT l.id AS lid, r.id AS rid FROM l INNER JOIN r ON l.a = r.b ORDER BY l.id, r.id"),
+            TestCase("SELECT l.id, (SELECT VALUE r.f FROM r WHERE r.id = l.id) AS fs FROM l ORDER BY l.id"),
+            TestCase("SELECT r.b AS b, COUNT(*) AS n FROM r GROUP BY r.b"),
+            // Variables used as a whole are not pruned.
+            TestCase("SELECT * FROM r ORDER BY r.id"),
+            TestCase("SELECT VALUE r FROM r WHERE r.id = 2"),
+            TestCase("SELECT l.id, r FROM l, r WHERE l.id = r.id ORDER BY l.id"),
+        )
+    }
+
+    companion object {
+        private val globals = GlobalVariableResolver {
+            when (it.name.lowercase()) {
+                "l", "r" -> GlobalResolutionResult.GlobalVariable(it.name.lowercase())
+                else -> GlobalResolutionResult.Undefined
+            }
+        }
+    }
+}
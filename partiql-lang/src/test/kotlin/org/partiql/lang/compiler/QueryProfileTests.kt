@@ -0,0 +1,136 @@
+package org.partiql.lang.compiler
+
+import kotlinx.coroutines.runBlocking
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertNull
+import org.junit.jupiter.api.Assertions.assertThrows
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import org.partiql.annotations.ExperimentalPartiQLCompilerPipeline
+import org.partiql.lang.ION
+import org.partiql.lang.errors.PartiQLException
+import org.partiql.lang.eval.BAG_ANNOTATION
+import org.partiql.lang.eval.Bindings
+import org.partiql.lang.eval.EvaluationSession
+import org.partiql.lang.eval.ExprValue
+import org.partiql.lang.eval.OperatorProfile
+import org.partiql.lang.eval.PartiQLResult
+import org.partiql.lang.eval.QueryProfile
+import org.partiql.lang.eval.toIonValue
+import org.partiql.lang.planner.EvaluatorOptions
+import org.partiql.lang.planner.GlobalResolutionResult
+import org.partiql.lang.planner.GlobalVariableResolver
+
+/** Verifies the runtime statistics reported for the relational operators of profiled queries. */
+@OptIn(ExperimentalPartiQLCompilerPipeline::class)
+class QueryProfileTests {
+
+    private val session = EvaluationSession.build {
+        globals(
+            Bindings.ofMap(
+                mapOf(
+                    "t" to ExprValue.of(
+                        ION.singleValue("$BAG_ANNOTATION::[{ a: 1 }, { a: 2 }, { a: 3 }, { a: 4 }, { a: 5 }]")
+                    )
+                )
+            )
+        )
+    }
+
+    private val pipeline = PartiQLCompilerPipelineAsync.build {
+        planner.globalVariableResolver(globals)
+    }
+
+    private val profilingPipeline = PartiQLCompilerPipelineAsync.build {
+        planner.globalVariableResolver(globals)
+        compiler.options(EvaluatorOptions.build { profiling(true) })
+    }
+
+    private fun profile(query: String): QueryProfile = runBlocking {
+        val result = profilingPipeline.compile(query).eval(session) as PartiQLResult.Value
+        // The operators are only evaluated as the result is materialized.
+        assertEquals(pipeline.compile(query).eval(session).toIon(), result.toIon())
+        result.getProfile()!!
+    }
+
+    private fun PartiQLResult.toIon() = (this as PartiQLResult.Value).value.toIonValue(ION)
+
+    private fun OperatorProfile.assertCounts(name: String, invocations: Long, rowsIn: Long, rowsOut: Long) {
+        assertEquals(name, this.name)
+        assertEquals(invocations, this.invocations, "invocations of $name")
+        assertEquals(rowsIn, this.rowsIn, "rows in of $name")
+        assertEquals(rowsOut, this.rowsOut, "rows out of $name")
+    }
+
+    @Test
+    fun notProfiledByDefault() = runBlocking {
+        assertNull(pipeline.compile("SELECT t.a FROM t").eval(session).getProfile())
+    }
+
+    @Test
+    fun operatorPipeline() {
+        val sort = profile("SELECT t.a FROM t WHERE t.a > 1 ORDER BY t.a DESC").operators.single()
+        sort.assertCounts("sort", invocations = 1, rowsIn = 4, rowsOut = 4)
+        assertEquals(4, sort.peakMaterializedRows)
+        assertEquals("default", sort.implementation)
+
+        val filter = sort.inputs.single()
+        filter.assertCounts("filter", invocations = 1, rowsIn = 5, rowsOut = 4)
+        assertEquals(0, filter.peakMaterializedRows)
+
+        val scan = filter.inputs.single()
+        scan.assertCounts("scan", invocations = 1, rowsIn = 0, rowsOut = 5)
+        assertTrue(sort.elapsedNanos >= filter.elapsedNanos && filter.elapsedNanos >= scan.elapsedNanos)
+    }
+
+    @Test
+    fun aggregate() {
+        val aggregate = profile("SELECT t.a % 2 AS k, COUNT(*) AS n FROM t GROUP BY t.a % 2").operators.single()
+        aggregate.assertCounts("aggregate", invocations = 1, rowsIn = 5, rowsOut = 2)
+        assertEquals(2, aggregate.peakMaterializedRows)
+    }
+
+    @Test
+    fun correlatedSubqueries() {
+        val filter = profile("SELECT VALUE t.a FROM t WHERE EXISTS (SELECT VALUE u FROM t AS u WHERE u.a = t.a + 1)")
+            .operators.single()
+        filter.assertCounts("filter", invocations = 1, rowsIn = 5, rowsOut = 4)
+
+        // The sub-query is evaluated once per row of the outer scan.
+        val subquery = filter.subqueries.single()
+        subquery.assertCounts("filter", invocations = 5, rowsIn = 25, rowsOut = 4)
+        subquery.inputs.single().assertCounts("scan", invocations = 5, rowsIn = 0, rowsOut = 25)
+    }
+
+    @Test
+    fun explainAnalyze() = runBlocking {
+        val result = pipeline.compile("EXPLAIN (TYPE analyze, FORMAT tree) SELECT t.a FROM t WHERE t.a > 3")
+            .eval(session)
+        assertTrue(result is PartiQLResult.Explain.Profile)
+        result as PartiQLResult.Explain.Profile
+        assertEquals("tree", result.format)
+        val filter = result.profile.operators.single()
+        filter.assertCounts("filter", invocations = 1, rowsIn = 5, rowsOut = 2)
+    }
+
+    @Test
+    @Suppress("DEPRECATION")
+    fun explainAnalyzeRejectedBySynchronousCompiler() {
+        val synchronousPipeline = PartiQLCompilerPipeline.build {
+            planner.globalVariableResolver(globals)
+        }
+        val ex = assertThrows(PartiQLException::class.java) {
+            synchronousPipeline.compile("EXPLAIN (TYPE analyze) SELECT t.a FROM t")
+        }
+        assertTrue(ex.message!!.contains("PartiQLCompilerPipelineAsync"))
+    }
+
+    companion object {
+        private val globals = GlobalVariableResolver {
+            when (it.name.lowercase()) {
+                "t" -> GlobalResolutionResult.GlobalVariable("t")
+                else -> GlobalResolutionResult.Undefined
+            }
+        }
+    }
+}
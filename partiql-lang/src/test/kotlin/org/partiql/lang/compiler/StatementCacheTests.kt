@@ -0,0 +1,148 @@
+package org.partiql.lang.compiler
+
+import kotlinx.coroutines.runBlocking
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertNotEquals
+import org.junit.jupiter.api.Assertions.assertNotSame
+import org.junit.jupiter.api.Assertions.assertNull
+import org.junit.jupiter.api.Assertions.assertSame
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.params.ParameterizedTest
+import org.junit.jupiter.params.provider.ArgumentsSource
+import org.partiql.annotations.ExperimentalPartiQLCompilerPipeline
+import org.partiql.lang.ION
+import org.partiql.lang.eval.BAG_ANNOTATION
+import org.partiql.lang.eval.EvaluationSession
+import org.partiql.lang.eval.ExprValue
+import org.partiql.lang.eval.PartiQLResult
+import org.partiql.lang.eval.toIonValue
+import org.partiql.lang.util.ArgumentsProviderBase
+import java.time.Duration
+
+@OptIn(ExperimentalPartiQLCompilerPipeline::class)
+class StatementCacheTests {
+
+    private var now = 0L
+
+    private fun cache(options: StatementCacheOptions) = StatementCache<String>(options) { now }
+
+    private fun StatementCache<String>.compile(text: String): String {
+        val key = keyOf(text)
+        return this[key] ?: "compiled: $text".also { this[key] = it }
+    }
+
+    @Test
+    fun hitsAndMisses() {
+        val cache = cache(StatementCacheOptions())
+        assertEquals("compiled: SELECT 1", cache.compile("SELECT 1"))
+        assertEquals("compiled: SELECT 1", cache.compile("  SELECT\n\t1 "))
+        cache.compile("SELECT 2")
+        assertEquals(StatementCacheStats(hits = 1, misses = 2, evictions = 0, size = 2), cache.stats())
+    }
+
+    @Test
+    fun evictsLeastRecentlyUsed() {
+        val cache = cache(StatementCacheOptions(maximumSize = 2))
+        cache.compile("a")
+        cache.compile("b")
+        cache.compile("a")
+        cache.compile("c")
+        // "b" was evicted, "a" was not
+        cache.compile("a")
+        assertEquals(StatementCacheStats(hits = 2, misses = 3, evictions = 1, size = 2), cache.stats())
+        cache.compile("b")
+        assertEquals(StatementCacheStats(hits = 2, misses = 4, evictions = 2, size = 2), cache.stats())
+    }
+
+    @Test
+    fun expiresAfterWrite() {
+        val cache = cache(StatementCacheOptions(expireAfterWrite = Duration.ofSeconds(10)))
+        cache.compile("a")
+        now += Duration.ofSeconds(9).toNanos()
+        cache.compile("a")
+        now += Duration.ofSeconds(1).toNanos()
+        cache.compile("a")
+        assertEquals(StatementCacheStats(hits = 1, misses = 2, evictions = 1, size = 1), cache.stats())
+    }
+
+    @Test
+    fun catalogVersion() {
+        var version = 1
+        val cache = cache(StatementCacheOptions(catalogVersion = { version }))
+        cache.compile("a")
+        cache.compile("a")
+        version = 2
+        cache.compile("a")
+        assertEquals(StatementCacheStats(hits = 1, misses = 2, evictions = 0, size = 2), cache.stats())
+    }
+
+    data class NormalizeTestCase(val first: String, val second: String, val isSameKey: Boolean)
+
+    @ParameterizedTest
+    @ArgumentsSource(NormalizeArguments::class)
+    fun normalize(tc: NormalizeTestCase) {
+        val first = normalizeStatementText(tc.first)
+        val second = normalizeStatementText(tc.second)
+        when {
+            tc.isSameKey -> assertEquals(first, second)
+            else -> assertNotEquals(first, second)
+        }
+    }
+
+    class NormalizeArguments : ArgumentsProviderBase() {
+        override fun getParameters() = listOf(
+            NormalizeTestCase("SELECT a FROM t", " SELECT  a\nFROM\tt\n", true),
+            NormalizeTestCase("SELECT a FROM t", "SELECT a FROM T", false),
+            // Whitespace within string literals and quoted identifiers is kept.
+            NormalizeTestCase("SELECT 'a  b' FROM t", "SELECT 'a b' FROM t", false),
+            NormalizeTestCase("SELECT 'it''s  a' FROM t", "SELECT 'it''s a' FROM t", false),
+            NormalizeTestCase("SELECT \"a  b\" FROM t", "SELECT \"a b\" FROM t", false),
+            NormalizeTestCase("SELECT 'a  b'  FROM t", "SELECT 'a  b' FROM  t", true),
+            // Whitespace is kept after an Ion literal or a comment.
+            NormalizeTestCase("SELECT `{a: \"`  \"}` FROM t", "SELECT `{a: \"` \"}` FROM t", false),
+            NormalizeTestCase("SELECT a -- c\nFROM t", "SELECT a -- c FROM t", false),
+            NormalizeTestCase("SELECT a /* c */  FROM t", "SELECT a /* c */ FROM t", false),
+            NormalizeTestCase("SELECT a  - 1 FROM t", "SELECT a - 1 FROM t", true),
+        )
+    }
+
+    @Test
+    fun pipelineReusesStatements() {
+        val pipeline = PartiQLCompilerPipeline.build {
+            statementCache = StatementCacheOptions()
+        }
+        val query = "SELECT VALUE x + ? FROM <<1, 2>> AS x"
+        val statement = pipeline.compile(query)
+        assertSame(statement, pipeline.compile("SELECT VALUE x + ?\nFROM <<1, 2>> AS x"))
+        assertNotSame(statement, pipeline.compile("SELECT VALUE x - ? FROM <<1, 2>> AS x"))
+        assertEquals(StatementCacheStats(hits = 1, misses = 2, evictions = 0, size = 2), pipeline.statementCacheStats())
+
+        // The parameters are bound for each evaluation.
+        assertEquals(ION.singleValue("$BAG_ANNOTATION::[11, 12]"), statement.eval(sessionWithParameter(10)).toIon())
+        assertEquals(ION.singleValue("$BAG_ANNOTATION::[21, 22]"), statement.eval(sessionWithParameter(20)).toIon())
+    }
+
+    @Test
+    fun pipelineAsyncReusesStatements() = runBlocking {
+        val pipeline = PartiQLCompilerPipelineAsync.build {
+            statementCache = StatementCacheOptions()
+        }
+        val query = "SELECT VALUE x + ? FROM <<1, 2>> AS x"
+        val statement = pipeline.compile(query)
+        assertSame(statement, pipeline.compile(query))
+        assertEquals(StatementCacheStats(hits = 1, misses = 1, evictions = 0, size = 1), pipeline.statementCacheStats())
+        assertEquals(ION.singleValue("$BAG_ANNOTATION::[11, 12]"), statement.eval(sessionWithParameter(10)).toIon())
+    }
+
+    @Test
+    fun cacheIsDisabledByDefault() {
+        val pipeline = PartiQLCompilerPipelineAsync.standard()
+        assertNull(pipeline.statementCacheStats())
+    }
+
+    private fun sessionWithParameter(value: Int) = EvaluationSession.build {
+        parameters(listOf(ExprValue.newInt(value)))
+    }
+
+    private fun PartiQLResult.toIon() = (this as PartiQLResult.Value).value.toIonValue(ION)
+}
@@ -0,0 +1,126 @@
+package org.partiql.lang.compiler
+
+import kotlinx.coroutines.runBlocking
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.params.ParameterizedTest
+import org.junit.jupiter.params.provider.ArgumentsSource
+import org.partiql.annotations.ExperimentalPartiQLCompilerPipeline
+import org.partiql.lang.CompilerPipeline
+import org.partiql.lang.ION
+import org.partiql.lang.eval.BAG_ANNOTATION
+import org.partiql.lang.eval.Bindings
+import org.partiql.lang.eval.EvaluationSession
+import org.partiql.lang.eval.ExprValue
+import org.partiql.lang.eval.PartiQLResult
+import org.partiql.lang.eval.toIonValue
+import org.partiql.lang.planner.GlobalResolutionResult
+import org.partiql.lang.planner.GlobalVariableResolver
+import org.partiql.lang.planner.transforms.optimizations.createSortLimitToTopNPass
+import org.partiql.lang.util.ArgumentsProviderBase
+
+/**
+ * Verifies that the top-N implementation of the `sort` operator produces the same results as the default `sort`,
+ * `offset` and `limit` operators, on both the synchronous and the asynchronous evaluators, and that the legacy
+ * evaluator (which fuses ORDER BY and LIMIT in the same way) agrees with them.
+ */
+@OptIn(ExperimentalPartiQLCompilerPipeline::class)
+class TopNSortTests {
+
+    data class TestCase(val query: String)
+
+    private val session = EvaluationSession.build {
+        globals(
+            Bindings.ofMap(
+                mapOf(
+                    "t" to ExprValue.of(
+                        ION.singleValue(
+                            """
+                            $BAG_ANNOTATION::[
+                                { id: 1, a: 3, b: "c" },
+                                { id: 2, a: 1, b: "b" },
+                                { id: 3, a: 2.5, b: "a" },
+                                { id: 4, a: null, b: "c" },
+                                { id: 5, b: "b" },
+                                { id: 6, a: 1e0, b: "a" },
+                                { id: 7, a: 3, b: "a" },
+                                { id: 8, a: -1, b: "b" }
+                            ]
+                            """
+                        )
+                    )
+                )
+            )
+        )
+    }
+
+    private val defaultPipeline = PartiQLCompilerPipeline.build {
+        planner.globalVariableResolver(globals)
+    }
+
+    private val defaultPipelineAsync = PartiQLCompilerPipelineAsync.build {
+        planner.globalVariableResolver(globals)
+    }
+
+    private val topNPipeline = PartiQLCompilerPipeline.build {
+        planner.physicalPlannerPasses(listOf(createSortLimitToTopNPass()))
+            .globalVariableResolver(globals)
+    }
+
+    private val topNPipelineAsync = PartiQLCompilerPipelineAsync.build {
+        planner.physicalPlannerPasses(listOf(createSortLimitToTopNPass()))
+            .globalVariableResolver(globals)
+    }
+
+    private val legacyPipeline = CompilerPipeline.standard()
+
+    private fun PartiQLResult.toIon() = (this as PartiQLResult.Value).value.toIonValue(ION)
+
+    @ParameterizedTest
+    @ArgumentsSource(Arguments::class)
+    fun topN(tc: TestCase) {
+        val expected = defaultPipeline.compile(tc.query).eval(session).toIon()
+        assertEquals(expected, topNPipeline.compile(tc.query).eval(session).toIon())
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(Arguments::class)
+    fun topNAsync(tc: TestCase) = runBlocking {
+        val expected = defaultPipelineAsync.compile(tc.query).eval(session).toIon()
+        assertEquals(expected, topNPipelineAsync.compile(tc.query).eval(session).toIon())
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(Arguments::class)
+    fun topNLegacy(tc: TestCase) {
+        val expected = defaultPipeline.compile(tc.query).eval(session).toIon()
+        assertEquals(expected, legacyPipeline.compile(tc.query).eval(session).toIonValue(ION))
+    }
+
+    class Arguments : ArgumentsProviderBase() {
+        override fun getParameters() = listOf(
+            TestCase("SELECT t.id FROM t ORDER BY t.a LIMIT 3"),
+            TestCase("SELECT t.id FROM t ORDER BY t.a DESC NULLS LAST LIMIT 3"),
+            TestCase("SELECT t.id FROM t ORDER BY t.a LIMIT 3 OFFSET 2"),
+            // Ties are resolved in input order (the sort is stable), including at the boundary of the LIMIT.
+            TestCase("SELECT t.id FROM t ORDER BY t.b LIMIT 4"),
+            TestCase("SELECT t.id FROM t ORDER BY t.b DESC, t.a LIMIT 2 OFFSET 1"),
+            // LIMIT 0, and LIMIT and OFFSET larger than the input.
+            TestCase("SELECT t.id FROM t ORDER BY t.a LIMIT 0"),
+            TestCase("SELECT t.id FROM t ORDER BY t.a LIMIT 100"),
+            TestCase("SELECT t.id FROM t ORDER BY t.a LIMIT 2 OFFSET 100"),
+            TestCase("SELECT t.id FROM t ORDER BY t.a LIMIT 9223372036854775807 OFFSET 1"),
+            // Not fused: OFFSET without LIMIT, and a LIMIT which is not a literal.
+            TestCase("SELECT t.id FROM t ORDER BY t.a OFFSET 5"),
+            TestCase("SELECT t.id FROM t ORDER BY t.a LIMIT 1 + 1"),
+        )
+    }
+
+    companion object {
+        private val globals = GlobalVariableResolver {
+            when (it.name.lowercase()) {
+                "t" -> GlobalResolutionResult.GlobalVariable(it.name.lowercase())
+                else -> GlobalResolutionResult.Undefined
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package org.partiql.lang.eval
+
+import com.amazon.ion.system.IonReaderBuilder
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertNull
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import org.junit.jupiter.params.ParameterizedTest
+import org.junit.jupiter.params.provider.ArgumentsSource
+import org.partiql.errors.ErrorCode
+import org.partiql.lang.CompilerPipeline
+import org.partiql.lang.ION
+import org.partiql.lang.util.ArgumentsProviderBase
+
+class LazyIonExprValueTest {
+
+    /** Encodes the Ion [text] as binary Ion. */
+    private fun binary(text: String): ByteArray = ION.loader.load(text).bytes
+
+    @ParameterizedTest
+    @ArgumentsSource(RoundTripArguments::class)
+    fun sameAsIonDom(text: String) {
+        val expected = ExprValue.of(ION.singleValue(text))
+        val actual = ExprValue.newFromIonBytes(ION, binary(text))
+        assertEquals(expected.type, actual.type)
+        assertEquals(expected.toIonValue(ION), actual.toIonValue(ION))
+    }
+
+    class RoundTripArguments : ArgumentsProviderBase() {
+        override fun getParameters() = listOf(
+            "1",
+            "null.int",
+            "\$missing::null",
+            "[1, 2.5, 3e0, \"a\", b, true, 2023-01-01T]",
+            "\$bag::[{a: 1}, {a: [1, (2 3)]}]",
+            "(a b {c: d})",
+            "{a: 1, b: {c: [1, 2], d: {e: null}}, f: \$date::2022-01-01}",
+            "{t: \$time::{hour: 17, minute: 40, second: 1.5, timezone_hour: 1, timezone_minute: 5}}",
+            "annotated::{a: 1}",
+        )
+    }
+
+    @Test
+    fun emptyBuffer() {
+        assertEquals(ExprValueType.MISSING, ExprValue.newFromIonBytes(ION, ByteArray(0)).type)
+    }
+
+    @Test
+    fun structLookup() {
+        val struct = ExprValue.newFromIonBytes(ION, binary("{a: 1, b: {c: 2}, B: 3, d: [1, 2]}"))
+        assertEquals(ION.singleValue("1"), struct.bindings[BindingName("A", BindingCase.INSENSITIVE)]!!.toIonValue(ION))
+        assertEquals("a", struct.bindings[BindingName("a", BindingCase.SENSITIVE)]!!.name!!.stringValue())
+        assertEquals(ION.singleValue("3"), struct.bindings[BindingName("B", BindingCase.SENSITIVE)]!!.toIonValue(ION))
+        assertEquals(
+            ION.singleValue("2"),
+            struct.bindings[BindingName("b", BindingCase.SENSITIVE)]!!.bindings[BindingName("c", BindingCase.SENSITIVE)]!!.toIonValue(ION)
+        )
+        assertEquals(ION.singleValue("2"), struct.bindings[BindingName("d", BindingCase.SENSITIVE)]!!.ordinalBindings[1]!!.toIonValue(ION))
+        assertNull(struct.bindings[BindingName("e", BindingCase.SENSITIVE)])
+        val error = assertThrows<EvaluationException> {
+            struct.bindings[BindingName("b", BindingCase.INSENSITIVE)]
+        }
+        assertEquals(ErrorCode.EVALUATOR_AMBIGUOUS_BINDING, error.errorCode)
+    }
+
+    @Test
+    fun streamedBag() {
+        val text = (0 until 100).joinToString(" ") { "{id: $it, v: {w: ${it * 2}}}" }
+        IonReaderBuilder.standard().build(binary(text)).use { reader ->
+            val bag = ExprValue.newBagFromIonReader(ION, reader)
+            assertEquals(ExprValueType.BAG, bag.type)
+            assertEquals(ION.singleValue("\$bag::[$text]"), bag.toIonValue(ION))
+            // The reader is consumed by the first iteration.
+            assertThrows<IllegalStateException> { bag.iterator() }
+        }
+    }
+
+    @Test
+    fun queryStreamedBag() {
+        val text = (0 until 100).joinToString(" ") { "{id: $it, v: {w: ${it * 2}}}" }
+        IonReaderBuilder.standard().build(binary(text)).use { reader ->
+            val session = EvaluationSession.build {
+                globals(Bindings.ofMap(mapOf("t" to ExprValue.newBagFromIonReader(ION, reader))))
+            }
+            val result = CompilerPipeline.standard().compile("SELECT VALUE t.v.w FROM t WHERE t.id > 97").eval(session)
+            assertEquals(ION.singleValue("\$bag::[196, 198]"), result.toIonValue(ION))
+        }
+    }
+}
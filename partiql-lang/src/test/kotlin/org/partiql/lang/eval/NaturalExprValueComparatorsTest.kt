@@ -377,6 +377,18 @@ class NaturalExprValueComparatorsTest : EvaluatorTestBase() {
         assertFalse("Too many elements", orderedIter.hasNext())
     }
 
+    @Test
+    fun equivalentValuesHaveSameHashCode() {
+        basicExprs.eval().forEach { equivs ->
+            val hashCodes = equivs.map { it.exprHashCode() }.distinct()
+            assertTrue("Equivalent values $equivs have different hash codes $hashCodes", hashCodes.size == 1)
+            assertTrue(
+                "Equivalent values $equivs have unequal keys",
+                equivs.all { ExprValueKey(it) == ExprValueKey(equivs.first()) }
+            )
+        }
+    }
+
     // value pairs for each equality set
     fun parametersForNonNullEqualityTests(): List<Pair<String, String>> = nonNullExpr.map { equivalentExprs ->
         val pairs = mutableListOf<Pair<String, String>>()
@@ -0,0 +1,123 @@
+package org.partiql.lang.eval
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertNotSame
+import org.junit.jupiter.api.Assertions.assertNull
+import org.junit.jupiter.api.Assertions.assertSame
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import org.partiql.errors.ErrorCode
+import org.partiql.lang.util.exprValue
+import org.partiql.lang.util.isNaN
+import org.partiql.lang.util.minus
+import org.partiql.lang.util.plus
+import org.partiql.lang.util.times
+import org.partiql.types.StaticType
+import kotlin.math.sign
+
+class NumericFastPathsTest {
+
+    private val ints = listOf(Long.MIN_VALUE, -1025L, -128L, -1L, 0L, 1L, 7L, 1024L, 1025L, Long.MAX_VALUE)
+        .map { ExprValue.newInt(it) }
+
+    private val floats = listOf(
+        Double.NEGATIVE_INFINITY, -1.5, -0.0, 0.0, 0.25, 7.0, Double.MAX_VALUE, Double.POSITIVE_INFINITY, Double.NaN
+    ).map { ExprValue.newFloat(it) }
+
+    @Test
+    fun smallIntsAreMemoized() {
+        assertSame(ExprValue.newInt(0), ExprValue.newInt(0L))
+        assertSame(ExprValue.newInt(-128), ExprValue.newInt(-128))
+        assertSame(ExprValue.newInt(1024), ExprValue.newInt(1024))
+        assertNotSame(ExprValue.newInt(1025), ExprValue.newInt(1025))
+        assertEquals(1024L, ExprValue.newInt(1024).numberValue())
+        assertEquals(-128L, ExprValue.newInt(-128).numberValue())
+    }
+
+    @Test
+    fun arithmeticMatchesNumbers() {
+        for (values in listOf(ints, floats)) {
+            for (l in values) {
+                for (r in values) {
+                    listOf(
+                        ::plusPrimitive to { a: Number, b: Number -> a + b },
+                        ::minusPrimitive to { a: Number, b: Number -> a - b },
+                        ::timesPrimitive to { a: Number, b: Number -> a * b }
+                    ).forEach { (primitive, generic) ->
+                        val expected = try {
+                            generic(l.numberValue(), r.numberValue()).exprValue()
+                        } catch (e: EvaluationException) {
+                            assertThrows<EvaluationException> { primitive(l, r) }
+                            null
+                        }
+                        expected?.let { assertEquals(0, DEFAULT_COMPARATOR.compare(it, primitive(l, r)!!)) }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    fun integerOverflow() {
+        val e = assertThrows<EvaluationException> {
+            plusPrimitive(ExprValue.newInt(Long.MAX_VALUE), ExprValue.newInt(1))
+        }
+        assertEquals(ErrorCode.EVALUATOR_INTEGER_OVERFLOW, e.errorCode)
+        assertThrows<EvaluationException> { dividePrimitive(ExprValue.newInt(Long.MIN_VALUE), ExprValue.newInt(-1)) }
+    }
+
+    @Test
+    fun divisionByZeroIsLeftToTheGenericImplementation() {
+        assertNull(dividePrimitive(ExprValue.newInt(1), ExprValue.newInt(0)))
+        assertNull(moduloPrimitive(ExprValue.newInt(1), ExprValue.newInt(0)))
+        assertNull(dividePrimitive(ExprValue.newFloat(1.0), ExprValue.newFloat(-0.0)))
+        assertNull(moduloPrimitive(ExprValue.newFloat(1.0), ExprValue.newFloat(0.0)))
+        assertEquals(-3L, dividePrimitive(ExprValue.newInt(-7), ExprValue.newInt(2))!!.numberValue())
+        assertEquals(-1L, moduloPrimitive(ExprValue.newInt(-7), ExprValue.newInt(2))!!.numberValue())
+    }
+
+    @Test
+    fun comparisonMatchesComparator() {
+        for (values in listOf(ints, floats)) {
+            for (l in values) {
+                for (r in values) {
+                    val actual = comparePrimitive(l, r)
+                    if (l.numberValue().isNaN || r.numberValue().isNaN) {
+                        assertNull(actual)
+                    } else {
+                        assertEquals(DEFAULT_COMPARATOR.compare(l, r).sign, actual!!.sign, "$l <=> $r")
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    fun otherOperandsAreLeftToTheGenericImplementation() {
+        val decimal = ExprValue.newDecimal(1)
+        assertNull(plusPrimitive(ExprValue.newInt(1), ExprValue.newFloat(1.0)))
+        assertNull(plusPrimitive(ExprValue.newInt(1), decimal))
+        assertNull(comparePrimitive(ExprValue.newString("a"), ExprValue.newString("b")))
+        assertNull(comparePrimitive(ExprValue.nullValue, ExprValue.newInt(1)))
+    }
+
+    @Test
+    fun namedOperands() {
+        val named = ExprValue.newInt(2).namedValue(ExprValue.newString("a"))
+        assertEquals(3L, plusPrimitive(named, ExprValue.newInt(1))!!.numberValue())
+    }
+
+    @Test
+    fun operatorIsChosenFromStaticTypes() {
+        val generic = { _: ExprValue, _: ExprValue -> ExprValue.nullValue }
+        val primitive = { l: ExprValue, r: ExprValue -> plusPrimitive(l, r) }
+
+        assertSame(generic, numericOperator(listOf(StaticType.STRING, null), primitive, generic))
+        assertSame(generic, numericOperator(listOf(StaticType.DECIMAL, StaticType.INT), primitive, generic))
+
+        val intOrDecimal = StaticType.unionOf(StaticType.INT, StaticType.DECIMAL)
+        val guarded = numericOperator(listOf(intOrDecimal, null), primitive, generic)
+        assertEquals(2L, guarded(ExprValue.newInt(1), ExprValue.newInt(1)).numberValue())
+        assertSame(ExprValue.nullValue, guarded(ExprValue.newDecimal(1), ExprValue.newInt(1)))
+    }
+}
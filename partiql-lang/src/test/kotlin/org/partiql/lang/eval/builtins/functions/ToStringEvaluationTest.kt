@@ -46,7 +46,9 @@ class ToStringEvaluationTest : EvaluatorTestBase() {
             ExprFunctionTestCase("to_string(`1969-07-20T20:18Z`, 'y-MM-dd''T''H:m:ssX')", "\"1969-07-20T20:18:00Z\""),
             ExprFunctionTestCase("to_string(`1969-07-20T20:18+08:00`, 'y-MM-dd''T''H:m:ssX')", "\"1969-07-20T20:18:00+08\""),
             ExprFunctionTestCase("to_string(`1969-07-20T20:18+08:00`, 'y-MM-dd''T''H:m:ssXXXX')", "\"1969-07-20T20:18:00+0800\""),
-            ExprFunctionTestCase("to_string(`1969-07-20T20:18+08:00`, 'y-MM-dd''T''H:m:ssXXXXX')", "\"1969-07-20T20:18:00+08:00\"")
+            ExprFunctionTestCase("to_string(`1969-07-20T20:18+08:00`, 'y-MM-dd''T''H:m:ssXXXXX')", "\"1969-07-20T20:18:00+08:00\""),
+            // The pattern is not a literal, thus it is compiled when the function is called.
+            ExprFunctionTestCase("to_string(`1969-07-20T20:18Z`, 'MM-d' || '-y')", "\"07-20-1969\"")
         )
     }
 
@@ -77,7 +79,8 @@ class ToStringEvaluationTest : EvaluatorTestBase() {
 
             // Symbol 'VV' is known to Java's DateTimeFormatter but is not handled by TimestampTemporalAccessor
             // *and* causes a different exception to be thrown by DateTimeFormatter.format() than 'z'
-            InvalidArgTestCase("to_string(`2017-01-01`, 'VV')", "VV")
+            InvalidArgTestCase("to_string(`2017-01-01`, 'VV')", "VV"),
+            InvalidArgTestCase("to_string(`2017-01-01`, 'V' || 'V')", "VV")
         )
     }
 
@@ -49,6 +49,8 @@ class ToTimestampEvaluationTest : EvaluatorTestBase() {
             ExprFunctionTestCase("to_timestamp(missing)", "null", "$MISSING_ANNOTATION::null"),
             ExprFunctionTestCase("to_timestamp(missing, 'M-d-yyyy')", "null", "$MISSING_ANNOTATION::null"),
             ExprFunctionTestCase("to_timestamp('07-20-1969', missing)", "null", "$MISSING_ANNOTATION::null"),
+            // The pattern is not a literal, thus it is compiled when the function is called.
+            ExprFunctionTestCase("to_timestamp('July 20, 1969', 'MMMM d' || ', y')", "1969-07-20T"),
             ExprFunctionTestCase("to_timestamp(null, null)", "null")
         )
     }
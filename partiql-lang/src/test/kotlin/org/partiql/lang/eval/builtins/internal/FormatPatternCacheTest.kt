@@ -0,0 +1,57 @@
+package org.partiql.lang.eval.builtins.internal
+
+import com.amazon.ion.Timestamp
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertSame
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import org.partiql.errors.ErrorCode
+import org.partiql.lang.eval.EvaluationException
+
+internal class FormatPatternCacheTest {
+
+    @Test
+    fun leastRecentlyUsedPatternIsEvicted() {
+        val cache = FormatPatternCache<TimestampParser>(capacity = 2)
+        var compilations = 0
+        fun get(pattern: String) = cache.getOrCompile(pattern) {
+            compilations++
+            TimestampParser.of(pattern)
+        }
+
+        val y = get("y")
+        assertSame(y, get("y"))
+        get("y-M")
+        assertEquals(2, compilations)
+        // "y" is the most recently used, thus "y-M" is evicted
+        get("y")
+        get("y-M-d")
+        get("y")
+        assertEquals(3, compilations)
+        get("y-M")
+        assertEquals(4, compilations)
+    }
+
+    @Test
+    fun errorsAreNotCached() {
+        val cache = FormatPatternCache<TimestampParser>()
+        var compilations = 0
+        repeat(2) {
+            val e = assertThrows<EvaluationException> {
+                cache.getOrCompile("") {
+                    compilations++
+                    TimestampParser.of("")
+                }
+            }
+            assertEquals(ErrorCode.EVALUATOR_INCOMPLETE_TIMESTAMP_FORMAT_PATTERN, e.errorCode)
+        }
+        assertEquals(2, compilations)
+    }
+
+    @Test
+    fun parserIsReusable() {
+        val parser = TimestampParser.of("yyyy-MM-dd")
+        assertEquals(Timestamp.valueOf("1969-07-20T"), parser.parse("1969-07-20"))
+        assertEquals(Timestamp.valueOf("2007-02-23T"), parser.parse("2007-02-23"))
+    }
+}
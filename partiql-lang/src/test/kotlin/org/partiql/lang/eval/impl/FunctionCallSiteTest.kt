@@ -0,0 +1,116 @@
+package org.partiql.lang.eval.impl
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertNotSame
+import org.junit.jupiter.api.Assertions.assertSame
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import org.partiql.lang.eval.ArityMismatchException
+import org.partiql.lang.eval.EvaluationException
+import org.partiql.lang.eval.EvaluationSession
+import org.partiql.lang.eval.ExprFunction
+import org.partiql.lang.eval.ExprValue
+import org.partiql.lang.eval.FunctionNotFoundException
+import org.partiql.lang.eval.builtins.SCALAR_BUILTINS_DEFAULT
+import org.partiql.lang.types.FunctionSignature
+import org.partiql.types.StaticType
+
+class FunctionCallSiteTest {
+
+    /** Accepts an argument of any type. */
+    private val identity = object : ExprFunction {
+        override val signature = FunctionSignature(
+            name = "identity",
+            requiredParameters = listOf(StaticType.ANY),
+            returnType = StaticType.ANY
+        )
+
+        override fun callWithRequired(session: EvaluationSession, required: List<ExprValue>): ExprValue = required[0]
+    }
+
+    private val functionManager = FunctionManager(SCALAR_BUILTINS_DEFAULT + identity)
+
+    private fun callSite(name: String, arity: Int, argStaticTypes: List<StaticType?> = List(arity) { null }) =
+        FunctionCallSite(functionManager, name, arity, argStaticTypes)
+
+    @Test
+    fun resolvesAsFunctionManager() {
+        val callSite = callSite("trim", 2)
+        val args = listOf(ExprValue.newString("both"), ExprValue.newString(" a "))
+        val function = callSite.resolve(args)
+
+        assertEquals(functionManager.get("trim", 2, listOf(StaticType.STRING, StaticType.STRING)), function)
+        // The second resolution is a hit of the cache.
+        assertSame(function, callSite.resolve(args))
+    }
+
+    @Test
+    fun resolvesEachCombinationOfTypes() {
+        val callSite = callSite("upper", 1)
+
+        assertEquals("upper", callSite.resolve(listOf(ExprValue.newString("a"))).signature.name)
+        assertEquals("upper", callSite.resolve(listOf(ExprValue.nullValue)).signature.name)
+        assertEquals("upper", callSite.resolve(listOf(ExprValue.missingValue)).signature.name)
+        assertThrows<EvaluationException> { callSite.resolve(listOf(ExprValue.newInt(1))) }
+        // A failed resolution is not cached.
+        assertThrows<EvaluationException> { callSite.resolve(listOf(ExprValue.newInt(1))) }
+    }
+
+    @Test
+    fun resolvesMoreCombinationsThanCached() {
+        val callSite = callSite("identity", 1)
+        val args = listOf(
+            ExprValue.newInt(1), ExprValue.newString("a"), ExprValue.newSymbol("a"), ExprValue.newBoolean(true),
+            ExprValue.newFloat(1.0), ExprValue.nullValue, ExprValue.missingValue, ExprValue.newList(emptyList()),
+            ExprValue.newBag(emptyList()), ExprValue.emptyStruct
+        )
+        assert(args.size > FunctionCallSite.MAX_ENTRIES)
+        repeat(2) {
+            args.forEach { arg -> assertSame(identity, callSite.resolve(listOf(arg))) }
+        }
+    }
+
+    @Test
+    fun resolvesStaticTypes() {
+        val callSite = callSite("upper", 1, listOf(StaticType.unionOf(StaticType.STRING, StaticType.NULL)))
+
+        assertEquals(
+            functionManager.get("upper", 1, listOf(StaticType.STRING)),
+            callSite.resolve(listOf(ExprValue.newString("a")))
+        )
+    }
+
+    @Test
+    fun invalidStaticTypesAreReportedWhenEvaluated() {
+        // Compiling the call site does not fail, as a call which is never evaluated must not fail.
+        val callSite = callSite("upper", 1, listOf(StaticType.INT))
+
+        assertThrows<EvaluationException> { callSite.resolve(listOf(ExprValue.newInt(1))) }
+    }
+
+    @Test
+    fun specializesForLiterals() {
+        val pattern = ExprValue.newString("y")
+        val callSite = FunctionCallSite(functionManager, "to_timestamp", 2, listOf(null, null), listOf(null, pattern))
+        val function = callSite.resolve(listOf(ExprValue.newString("2007"), pattern))
+
+        assertNotSame(functionManager.get("to_timestamp", 2, listOf(StaticType.STRING, StaticType.STRING)), function)
+        // The overload resolved for other types is specialized once.
+        assertSame(function, callSite.resolve(listOf(ExprValue.nullValue, pattern)))
+    }
+
+    @Test
+    fun invalidLiteralsAreReportedWhenEvaluated() {
+        val pattern = ExprValue.newString("")
+        val callSite = FunctionCallSite(functionManager, "to_timestamp", 2, listOf(null, null), listOf(null, pattern))
+        val function = callSite.resolve(listOf(ExprValue.newString("2007"), pattern))
+
+        assertEquals(functionManager.get("to_timestamp", 2, listOf(StaticType.STRING, StaticType.STRING)), function)
+    }
+
+    @Test
+    fun invalidNameAndArity() {
+        assertThrows<FunctionNotFoundException> { callSite("upper_", 1).resolve(listOf(ExprValue.newString("a"))) }
+        assertThrows<ArityMismatchException> { callSite("upper", 0, emptyList()).resolve(emptyList()) }
+    }
+}
@@ -6,6 +6,9 @@ import org.junit.Assert
 import org.junit.Test
 import org.junit.runner.RunWith
 import kotlin.test.assertEquals
+import kotlin.test.assertFalse
+import kotlin.test.assertSame
+import kotlin.test.assertTrue
 
 @RunWith(JUnitParamsRunner::class)
 class PatternTests {
@@ -150,8 +153,8 @@ class PatternTests {
     @Test
     @Parameters
     fun patternTest(tc: TestCase) {
-        val pat = parsePattern(tc.pattern, tc.escapeChar)
-        val actualMatches = pat.matcher(tc.input).matches()
+        val pat = LikePattern.compile(tc.pattern, tc.escapeChar)
+        val actualMatches = pat.matches(tc.input)
 
         Assert.assertEquals(tc.shouldMatch, actualMatches)
     }
@@ -159,57 +162,116 @@ class PatternTests {
     @Test
     fun patternParserTest() {
         // the parser should consider multiple consecutive % to be the same as one
-        val pattern = parsePattern("%%a%%%_%%% %%", escapeChar = null)
-        assertEquals("^.*?\\Qa\\E.+?\\Q \\E.*?$", pattern.pattern())
+        val pattern = LikePattern.compile("%%a%%%_%%% %%", escapeChar = null)
+        assertTrue(pattern.matches("a1 "))
+        assertTrue(pattern.matches("xa1x x"))
+        assertFalse(pattern.matches("a "))
+        assertFalse(pattern.matches("a1"))
     }
 
     @Test
     fun stressTest() {
         // makes absolutely certain we do not stack overflow on too many consecutive `%` characters
-        assertEquals(true, parsePattern("%".repeat(10000) + "a", escapeChar = null).matcher("aaaa").matches())
+        assertEquals(true, LikePattern.compile("%".repeat(10000) + "a", escapeChar = null).matches("aaaa"))
+    }
+
+    @Test
+    fun noBacktracking() {
+        // a backtracking matcher takes exponential time with this pattern on a value that almost matches
+        val pattern = LikePattern.compile("%a".repeat(50) + "%b", escapeChar = null)
+        assertFalse(pattern.matches("a".repeat(100_000)))
+        assertTrue(pattern.matches("a".repeat(100_000) + "b"))
     }
 
     @Test
     fun like() {
         val escape = '\\'.toInt()
 
-        assertEquals("^\\Qfoo\\E$", parsePattern("foo", escape).pattern())
-
-        assertEquals("^.*?\\Qfoo\\E$", parsePattern("%foo", escape).pattern())
-        assertEquals("^\\Qfoo\\E.*?$", parsePattern("foo%", escape).pattern())
-        assertEquals("^\\Qfoo\\E.*?\\Qbar\\E$", parsePattern("foo%bar", escape).pattern())
-        assertEquals("^\\Qfoo\\E.*?\\Qbar\\E$", parsePattern("foo%%bar", escape).pattern())
-        assertEquals("^\\Qfoo\\E.*?\\Qbar\\E$", parsePattern("foo%%%bar", escape).pattern())
-        assertEquals("^\\Qfoo\\E.*?\\Qbar\\E$", parsePattern("foo%%%%bar", escape).pattern())
-        assertEquals(
-            "^.*?\\Qfoo\\E.*?\\Qbar\\E.*?$",
-            parsePattern("%foo%%%%bar%", escape).pattern(),
-        )
-        assertEquals(
-            "^.*?\\Qfoo\\E.*?\\Qbar%baz\\E.*?$",
-            parsePattern("%foo%%%%bar\\%baz%", escape).pattern(),
-        )
-        assertEquals(
-            "^.*?\\Qfoo\\E.*?\\Qbar%baz\\E.*?$",
-            parsePattern("%foo%%%%bar*%baz%", '*'.toInt()).pattern(),
-        )
-        assertEquals("^.\\Qfoo\\E$", parsePattern("_foo", escape).pattern())
-        assertEquals("^\\Qfoo\\E.$", parsePattern("foo_", escape).pattern())
-        assertEquals("^\\Qfoo\\E.\\Qbar\\E$", parsePattern("foo_bar", escape).pattern())
-        assertEquals("^\\Qfoo\\E.{2,2}\\Qbar\\E$", parsePattern("foo__bar", escape).pattern())
-        assertEquals("^\\Qfoo\\E.{2,}?\\Qbar\\E$", parsePattern("foo_%_bar", escape).pattern())
-        assertEquals("^\\Qfoo\\E.{2,}?\\Qbar\\E$", parsePattern("foo_%_%bar", escape).pattern())
-        assertEquals("^\\Qfoo\\E.{2,}?\\Qbar\\E$", parsePattern("foo%_%%_%bar", escape).pattern())
-        assertEquals(
-            "^\\Qfoo\\E.\\Q.*?\\E.\\Qbar\\E$",
-            parsePattern("foo_.*?_bar", escape).pattern(),
-        )
+        fun assertMatches(pattern: String, value: String, escapeChar: Int? = escape) =
+            assertTrue(LikePattern.compile(pattern, escapeChar).matches(value), "'$pattern' should match '$value'")
+
+        fun assertNotMatches(pattern: String, value: String, escapeChar: Int? = escape) =
+            assertFalse(LikePattern.compile(pattern, escapeChar).matches(value), "'$pattern' should not match '$value'")
+
+        assertMatches("foo", "foo")
+        assertNotMatches("foo", "foo ")
+
+        assertMatches("%foo", "a foo")
+        assertNotMatches("%foo", "foo a")
+        assertMatches("foo%", "foo a")
+        assertNotMatches("foo%", "a foo")
+        assertMatches("foo%bar", "foobar")
+        assertMatches("foo%%bar", "foo and bar")
+        assertMatches("foo%%%bar", "foo and bar")
+        assertMatches("foo%%%%bar", "foo and bar")
+        assertNotMatches("foo%bar", "fobar")
+        // the prefix and the suffix must not overlap
+        assertNotMatches("foo%oob", "foob")
+        assertMatches("%foo%%%%bar%", "a foo and a bar!")
+        assertNotMatches("%foo%%%%bar%", "a bar and a foo!")
+        assertMatches("%foo%%%%bar\\%baz%", "a foo and a bar%baz!")
+        assertNotMatches("%foo%%%%bar\\%baz%", "a foo and a bar baz!")
+        assertMatches("%foo%%%%bar*%baz%", "a foo and a bar%baz!", '*'.toInt())
+        assertMatches("_foo", "afoo")
+        assertNotMatches("_foo", "foo")
+        assertMatches("foo_", "fooa")
+        assertMatches("foo_bar", "foo-bar")
+        assertNotMatches("foo_bar", "foobar")
+        assertMatches("foo__bar", "foo--bar")
+        assertNotMatches("foo__bar", "foo-bar")
+        assertMatches("foo_%_bar", "foo--bar")
+        assertMatches("foo_%_%bar", "foo---bar")
+        assertMatches("foo%_%%_%bar", "foo--bar")
+        assertNotMatches("foo%_%%_%bar", "foo-bar")
+        assertMatches("%a_c%", "xxabxabcxx")
+        assertNotMatches("%a_c%", "xxabxabxx")
+        assertMatches("%_c", "abc")
+        assertNotMatches("a%_c", "ac")
+        assertMatches("", "")
+        assertNotMatches("", "a")
+    }
+
+    @Test
+    fun likeMatchesAnyCodePoint() {
+        // `_` is one code point, even if it is represented by a surrogate pair
+        assertTrue(LikePattern.compile("a_b", escapeChar = null).matches("a\uD83D\uDE00b"))
+        assertTrue(LikePattern.compile("%_", escapeChar = null).matches("\uD83D\uDE00"))
+        assertFalse(LikePattern.compile("%__", escapeChar = null).matches("\uD83D\uDE00"))
+        assertTrue(LikePattern.compile("%\uD83D\uDE00_%", escapeChar = null).matches("x\uD83D\uDE00\uD83D\uDE00x"))
+        // line terminators are characters like any other
+        assertTrue(LikePattern.compile("a_b", escapeChar = null).matches("a\nb"))
+        assertTrue(LikePattern.compile("a%b", escapeChar = null).matches("a\r\n\nb"))
     }
 
     @Test
     fun likeMatch() {
-        val pat = parsePattern("foo_.*?_bar", '\\'.toInt())
+        val pat = LikePattern.compile("foo_.*?_bar", '\\'.toInt())
+
+        assert(pat.matches("foos.*?qbar"))
+    }
+
+    @Test
+    fun patternCache() {
+        val cache = LikePatternCache(capacity = 2)
+        var compilations = 0
+        fun get(pattern: String) = cache.getOrCompile(pattern, null) {
+            compilations++
+            LikePattern.compile(pattern, null)
+        }
 
-        assert(pat.matcher("foos.*?qbar").matches())
+        val a = get("a%")
+        assertSame(a, get("a%"))
+        get("b%")
+        assertEquals(2, compilations)
+        // "a%" is the most recently used, thus "b%" is evicted
+        get("a%")
+        get("c%")
+        get("a%")
+        assertEquals(3, compilations)
+        get("b%")
+        assertEquals(4, compilations)
+        // the escape is part of the key
+        cache.getOrCompile("b%", "\\") { compilations++; LikePattern.compile("b%", '\\'.toInt()) }
+        assertEquals(5, compilations)
     }
 }
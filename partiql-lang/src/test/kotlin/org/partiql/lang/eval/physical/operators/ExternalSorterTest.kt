@@ -0,0 +1,78 @@
+package org.partiql.lang.eval.physical.operators
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.io.TempDir
+import org.partiql.lang.eval.Addressed
+import org.partiql.lang.eval.ExprValue
+import org.partiql.lang.eval.ExprValueType
+import org.partiql.lang.eval.NaturalExprValueComparators
+import org.partiql.lang.eval.StructOrdering
+import org.partiql.lang.eval.address
+import org.partiql.lang.eval.name
+import org.partiql.lang.eval.namedValue
+import org.partiql.lang.eval.orderedNames
+import org.partiql.lang.eval.stringValue
+import java.io.File
+
+class ExternalSorterTest {
+
+    @TempDir
+    lateinit var tempDirectory: File
+
+    private fun struct(id: Long) = ExprValue.newStruct(
+        listOf(
+            ExprValue.newInt(id).namedValue(ExprValue.newString("id")),
+            ExprValue.missingValue.namedValue(ExprValue.newString("m")),
+            ExprValue.newList(listOf(ExprValue.newSymbol("\$bag"))).namedValue(ExprValue.newString("l")),
+        ),
+        StructOrdering.ORDERED
+    )
+
+    private fun addressed(value: ExprValue, addressValue: ExprValue): ExprValue = object : ExprValue by value, Addressed {
+        override val address = addressValue
+
+        @Suppress("UNCHECKED_CAST")
+        override fun <T : Any?> asFacet(type: Class<T>?): T? = when (type) {
+            Addressed::class.java -> this as T
+            else -> value.asFacet(type)
+        }
+    }
+
+    private fun ExprValue.field(name: String) = single { it.name!!.stringValue() == name }
+
+    private fun ExprValue.long() = scalar.numberValue()!!.toLong()
+
+    @Test
+    fun spilledRowsKeepNamesAddressesAndOrdering() {
+        val sorter = ExternalSorter(listOf(NaturalExprValueComparators.NULLS_FIRST_ASC), 1, tempDirectory)
+        listOf(3L, 1L, 2L).forEach { id ->
+            val named = addressed(ExprValue.newString("v$id"), ExprValue.newInt(id * 10))
+                .namedValue(ExprValue.newString("n"))
+            sorter.add(SortRow(arrayOf(ExprValue.newInt(id)), arrayOf(struct(id), named)))
+        }
+        val rows = sorter.sortedRows().asSequence().toList()
+        assertTrue(tempDirectory.listFiles()!!.isNotEmpty(), "The rows were not spilled")
+
+        assertEquals(listOf(1L, 2L, 3L), rows.map { it.keys[0].long() })
+        rows.forEach { row ->
+            val struct = row.registers[0]
+            assertEquals(ExprValueType.STRUCT, struct.type)
+            assertEquals(listOf("id", "m", "l"), struct.orderedNames)
+            assertEquals(listOf("id", "m", "l"), struct.map { it.name!!.stringValue() })
+            assertEquals(ExprValueType.MISSING, struct.field("m").type)
+            val list = struct.field("l")
+            assertEquals(ExprValueType.LIST, list.type)
+            assertEquals(ExprValueType.SYMBOL, list.single().type)
+            assertEquals("\$bag", list.single().stringValue())
+
+            val named = row.registers[1]
+            assertEquals("n", named.name!!.stringValue())
+            assertEquals(row.keys[0].long() * 10, named.address!!.long())
+        }
+
+        sorter.close()
+        assertTrue(tempDirectory.listFiles()!!.isEmpty(), "Temporary files were not deleted")
+    }
+}
@@ -0,0 +1,90 @@
+package org.partiql.lang.eval.relation
+
+import kotlinx.coroutines.runBlocking
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
+import org.partiql.lang.eval.EvaluationSession
+import org.partiql.lang.eval.ExprValue
+import org.partiql.lang.eval.intValue
+import org.partiql.lang.eval.physical.EvaluatorState
+
+class BatchRelationTests {
+
+    private val state = EvaluatorState(EvaluationSession.standard(), Array(1) { ExprValue.missingValue })
+
+    /** A relation yielding the integers `0 until count` in register 0. */
+    private fun ints(count: Int) = relation(RelationType.LIST) {
+        repeat(count) {
+            state.registers[0] = ExprValue.newInt(it)
+            yield()
+        }
+    }
+
+    private fun RowBatch.values() = (0 until size).map { this[it][0].intValue() }
+
+    @Test
+    fun addCopiesRegisters() {
+        val batch = RowBatch(2)
+        state.registers[0] = ExprValue.newInt(1)
+        batch.add(state)
+        state.registers[0] = ExprValue.newInt(2)
+        batch.add(state)
+        assertEquals(listOf(1, 2), batch.values())
+        assertTrue(batch.isFull)
+        assertThrows<IllegalStateException> { batch.add(state) }
+    }
+
+    @Test
+    fun swapAndTruncate() {
+        val batch = RowBatch(3)
+        (1..3).forEach {
+            state.registers[0] = ExprValue.newInt(it)
+            batch.add(state)
+        }
+        batch.swap(0, 2)
+        assertEquals(listOf(3, 2, 1), batch.values())
+        batch.truncate(1)
+        assertEquals(listOf(3), batch.values())
+        assertThrows<IndexOutOfBoundsException> { batch[1] }
+        batch.clear()
+        assertEquals(0, batch.size)
+    }
+
+    @Test
+    fun maxSize() {
+        val batch = RowBatch(4)
+        batch.maxSize = 1
+        batch.add(state)
+        assertTrue(batch.isFull)
+        assertThrows<IllegalArgumentException> { batch.maxSize = 0 }
+        assertThrows<IllegalArgumentException> { batch.maxSize = 5 }
+    }
+
+    @Test
+    fun rowsToBatches() = runBlocking {
+        val batches = ints(5).toBatchRelationIterator(state)
+        assertEquals(RelationType.LIST, batches.relType)
+        val batch = RowBatch(2)
+        assertTrue(batches.nextBatch(batch))
+        assertEquals(listOf(0, 1), batch.values())
+        assertTrue(batches.nextBatch(batch))
+        assertEquals(listOf(2, 3), batch.values())
+        assertTrue(batches.nextBatch(batch))
+        assertEquals(listOf(4), batch.values())
+        assertFalse(batches.nextBatch(batch))
+    }
+
+    @Test
+    fun batchesToRows() {
+        val rows = runBlocking { ints(DEFAULT_ROW_BATCH_CAPACITY + 1).toBatchRelationIterator(state) }
+            .toRelationIterator(state)
+        val values = mutableListOf<Int>()
+        while (rows.nextRow()) {
+            values.add(state.registers[0].intValue())
+        }
+        assertEquals((0..DEFAULT_ROW_BATCH_CAPACITY).toList(), values)
+    }
+}
@@ -0,0 +1,104 @@
+package org.partiql.lang.metrics
+
+import kotlinx.coroutines.runBlocking
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Assertions.assertThrows
+import org.junit.jupiter.api.Test
+import org.partiql.annotations.ExperimentalPartiQLCompilerPipeline
+import org.partiql.lang.CompilerPipeline
+import org.partiql.lang.compiler.PartiQLCompilerPipelineAsync
+import org.partiql.lang.compiler.StatementCacheOptions
+import org.partiql.lang.errors.PartiQLException
+import org.partiql.lang.eval.EvaluationException
+import org.partiql.lang.eval.EvaluationSession
+import org.partiql.lang.syntax.ParserException
+
+@OptIn(ExperimentalPartiQLCompilerPipeline::class)
+class MetricsRecorderTests {
+    private val metrics = InMemoryMetricsRecorder()
+    private val session = EvaluationSession.standard()
+
+    private val pipeline = PartiQLCompilerPipelineAsync.build {
+        metrics = this@MetricsRecorderTests.metrics
+        statementCache = StatementCacheOptions()
+    }
+
+    private fun errors(phase: String, errorCode: String) = metrics.counter(
+        PartiQLMetrics.ERRORS,
+        mapOf(PartiQLMetrics.TAG_PHASE to phase, PartiQLMetrics.TAG_ERROR_CODE to errorCode)
+    )
+
+    @Test
+    fun phasesAndRowsAreMeasured() = runBlocking {
+        pipeline.compile("SELECT VALUE x FROM <<1, 2, 3>> AS x WHERE x > 1").eval(session)
+
+        listOf(
+            PartiQLMetrics.PARSE_TIME,
+            PartiQLMetrics.PLAN_TIME,
+            PartiQLMetrics.COMPILE_TIME,
+            PartiQLMetrics.EVAL_TIME
+        ).forEach { assertEquals(1, metrics.distribution(it).count, it) }
+        val rows = metrics.distribution(PartiQLMetrics.ROWS_PRODUCED)
+        assertEquals(1, rows.count)
+        assertEquals(2, rows.sum)
+        assertEquals(0, metrics.counterTotal(PartiQLMetrics.ERRORS))
+    }
+
+    @Test
+    fun statementCacheHitsAndMisses() = runBlocking {
+        repeat(3) { pipeline.compile("SELECT VALUE 1 FROM <<1>>") }
+        assertEquals(1, metrics.counter(PartiQLMetrics.STATEMENT_CACHE_MISSES))
+        assertEquals(2, metrics.counter(PartiQLMetrics.STATEMENT_CACHE_HITS))
+        // Hits are neither parsed nor planned again.
+        assertEquals(1, metrics.distribution(PartiQLMetrics.PARSE_TIME).count)
+    }
+
+    @Test
+    fun errorsAreCountedByPhaseAndErrorCode() = runBlocking {
+        val parseError = assertThrows(ParserException::class.java) { runBlocking { pipeline.compile("SELECT FROM") } }
+        assertEquals(1, errors(PartiQLMetrics.PHASE_PARSE, parseError.errorCode.name))
+
+        assertThrows(PartiQLException::class.java) {
+            runBlocking { pipeline.compile("SELECT VALUE x FROM undefined_table") }
+        }
+        assertEquals(1, errors(PartiQLMetrics.PHASE_PLAN, "UndefinedVariable"))
+
+        val statement = pipeline.compile("SELECT VALUE 1 / x FROM <<0>> AS x")
+        assertThrows(EvaluationException::class.java) { runBlocking { statement.eval(session) } }
+        assertEquals(1, errors(PartiQLMetrics.PHASE_EVAL, "EVALUATOR_DIVIDE_BY_ZERO"))
+        assertEquals(3, metrics.counterTotal(PartiQLMetrics.ERRORS))
+    }
+
+    @Test
+    fun compilerPipeline() {
+        val pipeline = CompilerPipeline.build { metrics(metrics) }
+        pipeline.compile("1 + 1").eval(session)
+        assertThrows(EvaluationException::class.java) { pipeline.compile("1 / 0").eval(session) }
+
+        assertEquals(2, metrics.distribution(PartiQLMetrics.PARSE_TIME).count)
+        assertEquals(2, metrics.distribution(PartiQLMetrics.COMPILE_TIME).count)
+        assertEquals(2, metrics.distribution(PartiQLMetrics.EVAL_TIME).count)
+        assertEquals(1, errors(PartiQLMetrics.PHASE_EVAL, "EVALUATOR_DIVIDE_BY_ZERO"))
+    }
+
+    @Test
+    fun interruptsAreCounted() {
+        assertThrows(InterruptedException::class.java) {
+            metrics.measure(PartiQLMetrics.PHASE_EVAL, PartiQLMetrics.EVAL_TIME) { throw InterruptedException() }
+        }
+        val phase = mapOf(PartiQLMetrics.TAG_PHASE to PartiQLMetrics.PHASE_EVAL)
+        assertEquals(1, metrics.counter(PartiQLMetrics.INTERRUPTS, phase))
+        assertEquals(1, metrics.distribution(PartiQLMetrics.EVAL_TIME).count)
+        assertEquals(0, metrics.counterTotal(PartiQLMetrics.ERRORS))
+    }
+
+    @Test
+    fun distributions() {
+        listOf(5L, 1L, 9L).forEach { metrics.record("d", mapOf("k" to "v"), it) }
+        assertEquals(
+            InMemoryMetricsRecorder.DistributionSnapshot(count = 3, sum = 15, min = 1, max = 9),
+            metrics.distribution("d", mapOf("k" to "v"))
+        )
+        assertEquals(0, metrics.distribution("d").count)
+    }
+}
@@ -0,0 +1,299 @@
+package org.partiql.lang.planner.transforms.optimizations
+
+import com.amazon.ionelement.api.ionString
+import com.amazon.ionelement.api.ionSymbol
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.params.ParameterizedTest
+import org.junit.jupiter.params.provider.ArgumentsSource
+import org.partiql.errors.Problem
+import org.partiql.errors.ProblemHandler
+import org.partiql.lang.domains.PartiqlPhysical
+import org.partiql.lang.planner.litInt
+import org.partiql.lang.planner.litTrue
+import org.partiql.lang.planner.transforms.DEFAULT_IMPL
+import org.partiql.lang.planner.transforms.PLAN_VERSION_NUMBER
+import org.partiql.lang.util.ArgumentsProviderBase
+
+class CommonSubexpressionEliminationPassTests {
+    private val pass = createCommonSubexpressionEliminationPass()
+
+    @ParameterizedTest
+    @ArgumentsSource(ConstantFoldingArguments::class)
+    fun constantFolding(tc: PhysicalPlanPassExprTestCase) = tc.runTest(pass)
+
+    class ConstantFoldingArguments : ArgumentsProviderBase() {
+        override fun getParameters() = listOf(
+            PhysicalPlanPassExprTestCase(
+                PartiqlPhysical.build { plus(litInt(1), times(litInt(2), litInt(3))) },
+                PartiqlPhysical.build { litInt(7) }
+            ),
+            // Deterministic functions are evaluated.
+            PhysicalPlanPassExprTestCase(
+                PartiqlPhysical.build { concat(call("upper", lit(ionString("a"))), lit(ionString("b"))) },
+                PartiqlPhysical.build { lit(ionString("Ab")) }
+            ),
+            // Constant operands of expressions referencing variables.
+            PhysicalPlanPassExprTestCase(
+                PartiqlPhysical.build { plus(localId(0), times(litInt(2), litInt(3))) },
+                PartiqlPhysical.build { plus(localId(0), litInt(6)) }
+            ),
+            PhysicalPlanPassExprTestCase(
+                PartiqlPhysical.build { plus(litInt(1), missing()) },
+                PartiqlPhysical.build { missing() }
+            ),
+            // Errors are left to the evaluator.
+            PhysicalPlanPassExprTestCase(
+                PartiqlPhysical.build { divide(litInt(1), litInt(0)) },
+                PartiqlPhysical.build { divide(litInt(1), litInt(0)) }
+            ),
+            // Functions reading the session are not evaluated.
+            PhysicalPlanPassExprTestCase(
+                PartiqlPhysical.build { call("utcnow", emptyList()) },
+                PartiqlPhysical.build { call("utcnow", emptyList()) }
+            ),
+            PhysicalPlanPassExprTestCase(
+                PartiqlPhysical.build { call("unix_timestamp", emptyList()) },
+                PartiqlPhysical.build { call("unix_timestamp", emptyList()) }
+            ),
+            // Values which are not scalars are left as they are.
+            PhysicalPlanPassExprTestCase(
+                PartiqlPhysical.build { list(litInt(1), plus(litInt(1), litInt(1))) },
+                PartiqlPhysical.build { list(litInt(1), litInt(2)) }
+            ),
+        )
+    }
+
+    private val a = PartiqlPhysical.build { field(0, "a") }
+    private val b = PartiqlPhysical.build { field(1, "b") }
+    private val twiceA = PartiqlPhysical.build { times(a, litInt(2)) }
+    private val aC = PartiqlPhysical.build { path(localId(0), listOf(step("a"), step("c"))) }
+    private val bC = PartiqlPhysical.build { path(localId(1), listOf(step("b"), step("c"))) }
+
+    private fun PartiqlPhysical.Builder.field(index: Long, name: String) = path(localId(index), listOf(step(name)))
+
+    private fun PartiqlPhysical.Builder.step(name: String) = pathExpr(lit(ionSymbol(name)), caseInsensitive())
+
+    private fun scan(name: String, index: Long) = PartiqlPhysical.build {
+        scan(DEFAULT_IMPL, globalId(name), varDecl(index))
+    }
+
+    private fun subexpression(index: Long) = PartiqlPhysical.build {
+        localVariable("\$__subexpression_$index", index)
+    }
+
+    private fun plan(expr: PartiqlPhysical.Expr, locals: List<PartiqlPhysical.LocalVariable>) = PartiqlPhysical.build {
+        plan(query(expr), locals = locals, version = PLAN_VERSION_NUMBER)
+    }
+
+    private fun runTest(input: PartiqlPhysical.Plan, expected: PartiqlPhysical.Plan) {
+        val actual = pass.apply(
+            input,
+            object : ProblemHandler {
+                override fun handleProblem(problem: Problem) {
+                    error("no errors were expected")
+                }
+            }
+        )
+        assertEquals(expected, actual)
+    }
+
+    private val x = PartiqlPhysical.build { localVariable("x", 0) }
+    private val y = PartiqlPhysical.build { localVariable("y", 1) }
+
+    @Test
+    fun projection() = runTest(
+        plan(
+            PartiqlPhysical.build { bindingsToValues(list(twiceA, plus(twiceA, litInt(1))), scan("foo", 0)) },
+            listOf(x)
+        ),
+        plan(
+            PartiqlPhysical.build {
+                bindingsToValues(
+                    list(localId(1), plus(localId(1), litInt(1))),
+                    let(DEFAULT_IMPL, scan("foo", 0), listOf(letBinding(twiceA, varDecl(1))))
+                )
+            },
+            listOf(x, subexpression(1))
+        )
+    )
+
+    @Test
+    fun nestedSubexpressions() {
+        val plusOne = PartiqlPhysical.build { plus(twiceA, litInt(1)) }
+        runTest(
+            plan(
+                PartiqlPhysical.build {
+                    bindingsToValues(list(plusOne, plusOne, minus(twiceA, litInt(1))), scan("foo", 0))
+                },
+                listOf(x)
+            ),
+            plan(
+                PartiqlPhysical.build {
+                    bindingsToValues(
+                        list(localId(1), localId(1), minus(localId(2), litInt(1))),
+                        let(
+                            DEFAULT_IMPL,
+                            scan("foo", 0),
+                            // The smaller subexpression is evaluated first.
+                            listOf(
+                                letBinding(twiceA, varDecl(2)),
+                                letBinding(plus(localId(2), litInt(1)), varDecl(1))
+                            )
+                        )
+                    )
+                },
+                listOf(x, subexpression(1), subexpression(2))
+            )
+        )
+    }
+
+    @Test
+    fun filter() = runTest(
+        plan(
+            PartiqlPhysical.build {
+                bindingsToValues(
+                    localId(0),
+                    filter(DEFAULT_IMPL, and(gt(twiceA, litInt(1)), lt(twiceA, litInt(10))), scan("foo", 0))
+                )
+            },
+            listOf(x)
+        ),
+        plan(
+            PartiqlPhysical.build {
+                bindingsToValues(
+                    localId(0),
+                    filter(
+                        DEFAULT_IMPL,
+                        and(gt(localId(1), litInt(1)), lt(localId(1), litInt(10))),
+                        let(DEFAULT_IMPL, scan("foo", 0), listOf(letBinding(twiceA, varDecl(1))))
+                    )
+                )
+            },
+            listOf(x, subexpression(1))
+        )
+    )
+
+    @Test
+    fun conditionalOccurrences() {
+        // Neither occurrence is always evaluated, therefore evaluating the expression ahead of time could raise an
+        // error that the query would not raise.
+        val input = plan(
+            PartiqlPhysical.build {
+                bindingsToValues(
+                    or(field(0, "b"), eq(twiceA, litInt(1)), eq(twiceA, litInt(2))),
+                    scan("foo", 0)
+                )
+            },
+            listOf(x)
+        )
+        runTest(input, input)
+    }
+
+    @Test
+    fun pathsAreNotShared() {
+        val input = plan(PartiqlPhysical.build { bindingsToValues(list(a, a), scan("foo", 0)) }, listOf(x))
+        runTest(input, input)
+    }
+
+    @Test
+    fun nondeterministicFunctions() {
+        val now = PartiqlPhysical.build { call("utcnow", emptyList()) }
+        val input = plan(
+            PartiqlPhysical.build { bindingsToValues(list(lt(a, now), gt(a, now)), scan("foo", 0)) },
+            listOf(x)
+        )
+        runTest(input, input)
+    }
+
+    @Test
+    fun hoisting() = runTest(
+        plan(
+            PartiqlPhysical.build {
+                bindingsToValues(
+                    localId(0),
+                    join(DEFAULT_IMPL, inner(), scan("foo", 0), scan("bar", 1), gt(b, aC))
+                )
+            },
+            listOf(x, y)
+        ),
+        plan(
+            PartiqlPhysical.build {
+                bindingsToValues(
+                    localId(0),
+                    join(
+                        DEFAULT_IMPL,
+                        inner(),
+                        let(DEFAULT_IMPL, scan("foo", 0), listOf(letBinding(aC, varDecl(2)))),
+                        scan("bar", 1),
+                        gt(b, localId(2))
+                    )
+                )
+            },
+            listOf(x, y, subexpression(2))
+        )
+    )
+
+    @Test
+    fun hoistingFromTheInnerSide() = runTest(
+        plan(
+            PartiqlPhysical.build {
+                bindingsToValues(
+                    localId(0),
+                    join(
+                        DEFAULT_IMPL,
+                        right(),
+                        filter(DEFAULT_IMPL, gt(a, bC), scan("foo", 0)),
+                        scan("bar", 1),
+                        litTrue()
+                    )
+                )
+            },
+            listOf(x, y)
+        ),
+        plan(
+            PartiqlPhysical.build {
+                bindingsToValues(
+                    localId(0),
+                    join(
+                        DEFAULT_IMPL,
+                        right(),
+                        filter(DEFAULT_IMPL, gt(a, localId(2)), scan("foo", 0)),
+                        let(DEFAULT_IMPL, scan("bar", 1), listOf(letBinding(bC, varDecl(2)))),
+                        litTrue()
+                    )
+                )
+            },
+            listOf(x, y, subexpression(2))
+        )
+    )
+
+    /** An expression which may raise an error is not evaluated for outer rows without inner rows. */
+    @Test
+    fun fallibleExpressionsAreNotHoisted() {
+        val input = plan(
+            PartiqlPhysical.build {
+                bindingsToValues(
+                    localId(0),
+                    join(DEFAULT_IMPL, left(), scan("foo", 0), scan("bar", 1), gt(b, twiceA))
+                )
+            },
+            listOf(x, y)
+        )
+        runTest(input, input)
+    }
+
+    @Test
+    fun fullJoinsAreNotHoisted() {
+        val input = plan(
+            PartiqlPhysical.build {
+                bindingsToValues(
+                    localId(0),
+                    join(DEFAULT_IMPL, full(), scan("foo", 0), scan("bar", 1), gt(b, twiceA))
+                )
+            },
+            listOf(x, y)
+        )
+        runTest(input, input)
+    }
+}
@@ -0,0 +1,94 @@
+package org.partiql.lang.planner.transforms.optimizations
+
+import com.amazon.ionelement.api.ionSymbol
+import org.junit.jupiter.params.ParameterizedTest
+import org.junit.jupiter.params.provider.ArgumentsSource
+import org.partiql.lang.domains.PartiqlPhysical
+import org.partiql.lang.planner.litInt
+import org.partiql.lang.planner.transforms.DEFAULT_IMPL
+import org.partiql.lang.util.ArgumentsProviderBase
+
+class EquiJoinToHashJoinPassTests {
+    @ParameterizedTest
+    @ArgumentsSource(Arguments::class)
+    fun runTestCase(tc: PhysicalPlanPassBexprTestCase) = tc.runTest(createEquiJoinToHashJoinPass())
+
+    class Arguments : ArgumentsProviderBase() {
+        private val hashJoinImpl = PartiqlPhysical.build { impl(HASH_JOIN_IMPL_NAME) }
+
+        private fun join(
+            impl: PartiqlPhysical.Impl,
+            joinType: PartiqlPhysical.JoinType,
+            predicate: PartiqlPhysical.Expr,
+            right: PartiqlPhysical.Bexpr = PartiqlPhysical.build { scan(DEFAULT_IMPL, globalId("bar"), varDecl(1)) }
+        ) = PartiqlPhysical.build {
+            join(
+                impl,
+                joinType,
+                scan(DEFAULT_IMPL, globalId("foo"), varDecl(0)),
+                right,
+                predicate
+            )
+        }
+
+        private fun eqKeys(left: PartiqlPhysical.Expr, right: PartiqlPhysical.Expr) = PartiqlPhysical.build {
+            eq(left, right)
+        }
+
+        private val l = PartiqlPhysical.build { path(localId(0), listOf(pathExpr(lit(ionSymbol("a")), PartiqlPhysical.CaseSensitivity.CaseInsensitive()))) }
+        private val r = PartiqlPhysical.build { path(localId(1), listOf(pathExpr(lit(ionSymbol("b")), PartiqlPhysical.CaseSensitivity.CaseInsensitive()))) }
+
+        override fun getParameters() = listOf(
+            // Simple equi-join
+            PhysicalPlanPassBexprTestCase(
+                join(DEFAULT_IMPL, PartiqlPhysical.build { inner() }, eqKeys(l, r)),
+                join(hashJoinImpl, PartiqlPhysical.build { inner() }, eqKeys(l, r))
+            ),
+            // Operands in either order
+            PhysicalPlanPassBexprTestCase(
+                join(DEFAULT_IMPL, PartiqlPhysical.build { left() }, eqKeys(r, l)),
+                join(hashJoinImpl, PartiqlPhysical.build { left() }, eqKeys(r, l))
+            ),
+            // Equi-join conjunct with a residual predicate
+            PhysicalPlanPassBexprTestCase(
+                join(DEFAULT_IMPL, PartiqlPhysical.build { right() }, PartiqlPhysical.build { and(eqKeys(l, r), lt(l, r)) }),
+                join(hashJoinImpl, PartiqlPhysical.build { right() }, PartiqlPhysical.build { and(eqKeys(l, r), lt(l, r)) })
+            ),
+            // No equi-join conjunct: left unchanged
+            PhysicalPlanPassBexprTestCase(
+                join(DEFAULT_IMPL, PartiqlPhysical.build { inner() }, PartiqlPhysical.build { lt(l, r) }),
+                join(DEFAULT_IMPL, PartiqlPhysical.build { inner() }, PartiqlPhysical.build { lt(l, r) })
+            ),
+            // Equality referencing only one side: left unchanged
+            PhysicalPlanPassBexprTestCase(
+                join(DEFAULT_IMPL, PartiqlPhysical.build { inner() }, eqKeys(l, PartiqlPhysical.build { litInt(42) })),
+                join(DEFAULT_IMPL, PartiqlPhysical.build { inner() }, eqKeys(l, PartiqlPhysical.build { litInt(42) }))
+            ),
+            // Equality within a disjunction: left unchanged
+            PhysicalPlanPassBexprTestCase(
+                join(DEFAULT_IMPL, PartiqlPhysical.build { inner() }, PartiqlPhysical.build { or(eqKeys(l, r), lt(l, r)) }),
+                join(DEFAULT_IMPL, PartiqlPhysical.build { inner() }, PartiqlPhysical.build { or(eqKeys(l, r), lt(l, r)) })
+            ),
+            // FULL joins are not supported: left unchanged
+            PhysicalPlanPassBexprTestCase(
+                join(DEFAULT_IMPL, PartiqlPhysical.build { full() }, eqKeys(l, r)),
+                join(DEFAULT_IMPL, PartiqlPhysical.build { full() }, eqKeys(l, r))
+            ),
+            // Lateral join (the build side references the probe side): left unchanged
+            PhysicalPlanPassBexprTestCase(
+                join(
+                    DEFAULT_IMPL,
+                    PartiqlPhysical.build { inner() },
+                    eqKeys(l, r),
+                    PartiqlPhysical.build { scan(DEFAULT_IMPL, localId(0), varDecl(1)) }
+                ),
+                join(
+                    DEFAULT_IMPL,
+                    PartiqlPhysical.build { inner() },
+                    eqKeys(l, r),
+                    PartiqlPhysical.build { scan(DEFAULT_IMPL, localId(0), varDecl(1)) }
+                )
+            ),
+        )
+    }
+}
@@ -0,0 +1,156 @@
+package org.partiql.lang.planner.transforms.optimizations
+
+import com.amazon.ionelement.api.ionInt
+import com.amazon.ionelement.api.ionSymbol
+import org.junit.jupiter.params.ParameterizedTest
+import org.junit.jupiter.params.provider.ArgumentsSource
+import org.partiql.lang.domains.PartiqlPhysical
+import org.partiql.lang.planner.transforms.DEFAULT_IMPL
+import org.partiql.lang.planner.transforms.DEFAULT_IMPL_NAME
+import org.partiql.lang.util.ArgumentsProviderBase
+import org.partiql.types.BagType
+import org.partiql.types.StaticType
+import org.partiql.types.StructType
+
+class EquiJoinToMergeJoinPassTests {
+    @ParameterizedTest
+    @ArgumentsSource(Arguments::class)
+    fun runTestCase(tc: PhysicalPlanPassBexprTestCase) = tc.runTest(
+        createEquiJoinToMergeJoinPass { uniqueId ->
+            when (uniqueId) {
+                "foo" -> BagType(StructType(fields = emptyMap()).withOrderedBy("a", "id"))
+                "bar" -> BagType(StructType(fields = emptyMap()).withOrderedBy("b", "c"))
+                else -> StaticType.ANY
+            }
+        }
+    )
+
+    class Arguments : ArgumentsProviderBase() {
+        private fun mergeJoinImpl(vararg mergeKeys: Long) = PartiqlPhysical.build {
+            impl(MERGE_JOIN_IMPL_NAME, mergeKeys.map { ionInt(it) })
+        }
+
+        private val foo = PartiqlPhysical.build { scan(DEFAULT_IMPL, globalId("foo"), varDecl(0)) }
+
+        private val bar = PartiqlPhysical.build { scan(DEFAULT_IMPL, globalId("bar"), varDecl(1)) }
+
+        private fun join(
+            impl: PartiqlPhysical.Impl,
+            joinType: PartiqlPhysical.JoinType,
+            predicate: PartiqlPhysical.Expr,
+            right: PartiqlPhysical.Bexpr = bar,
+            left: PartiqlPhysical.Bexpr = foo
+        ) = PartiqlPhysical.build {
+            join(
+                impl,
+                joinType,
+                left,
+                right,
+                predicate
+            )
+        }
+
+        /** A filter of `foo` with the given implementation, whose scan is partitioned if the filter is parallel. */
+        private fun filterFoo(implName: String) = PartiqlPhysical.build {
+            filter(
+                impl(implName),
+                gt(fieldOf(0, "id"), lit(ionInt(0))),
+                when (implName) {
+                    PARALLEL_IMPL_NAME -> scan(impl(PARTITIONED_SCAN_IMPL_NAME), globalId("foo"), varDecl(0))
+                    else -> foo
+                }
+            )
+        }
+
+        private fun fieldOf(
+            index: Long,
+            name: String,
+            case: PartiqlPhysical.CaseSensitivity = PartiqlPhysical.CaseSensitivity.CaseInsensitive()
+        ) = PartiqlPhysical.build { path(localId(index), listOf(pathExpr(lit(ionSymbol(name)), case))) }
+
+        private fun sortBar(orderingSpec: PartiqlPhysical.OrderingSpec) = PartiqlPhysical.build {
+            sort(DEFAULT_IMPL, bar, listOf(sortSpec(fieldOf(1, "b"), orderingSpec, nullsFirst())))
+        }
+
+        private val eqAB = PartiqlPhysical.build { eq(fieldOf(0, "a"), fieldOf(1, "b")) }
+        private val eqIdC = PartiqlPhysical.build { eq(fieldOf(0, "id"), fieldOf(1, "c")) }
+
+        override fun getParameters() = listOf(
+            // Both sides are sorted on the equi-join key.
+            PhysicalPlanPassBexprTestCase(
+                join(DEFAULT_IMPL, PartiqlPhysical.build { inner() }, eqAB),
+                join(mergeJoinImpl(0), PartiqlPhysical.build { inner() }, eqAB)
+            ),
+            // Both sides are sorted on both equi-join keys, in the order of the sort keys.
+            PhysicalPlanPassBexprTestCase(
+                join(DEFAULT_IMPL, PartiqlPhysical.build { left() }, PartiqlPhysical.build { and(eqIdC, eqAB) }),
+                join(mergeJoinImpl(1, 0), PartiqlPhysical.build { left() }, PartiqlPhysical.build { and(eqIdC, eqAB) })
+            ),
+            // The sides are not sorted on the leading equi-join key.
+            PhysicalPlanPassBexprTestCase(
+                join(DEFAULT_IMPL, PartiqlPhysical.build { inner() }, eqIdC),
+                join(DEFAULT_IMPL, PartiqlPhysical.build { inner() }, eqIdC)
+            ),
+            // Case-insensitive field names match the declared sort keys, case-sensitive ones only if equal.
+            PhysicalPlanPassBexprTestCase(
+                join(DEFAULT_IMPL, PartiqlPhysical.build { right() }, PartiqlPhysical.build { eq(fieldOf(0, "A"), fieldOf(1, "b")) }),
+                join(mergeJoinImpl(0), PartiqlPhysical.build { right() }, PartiqlPhysical.build { eq(fieldOf(0, "A"), fieldOf(1, "b")) })
+            ),
+            PhysicalPlanPassBexprTestCase(
+                join(
+                    DEFAULT_IMPL,
+                    PartiqlPhysical.build { inner() },
+                    PartiqlPhysical.build { eq(fieldOf(0, "A", PartiqlPhysical.CaseSensitivity.CaseSensitive()), fieldOf(1, "b")) }
+                ),
+                join(
+                    DEFAULT_IMPL,
+                    PartiqlPhysical.build { inner() },
+                    PartiqlPhysical.build { eq(fieldOf(0, "A", PartiqlPhysical.CaseSensitivity.CaseSensitive()), fieldOf(1, "b")) }
+                )
+            ),
+            // An ascending sort orders its input.
+            PhysicalPlanPassBexprTestCase(
+                join(DEFAULT_IMPL, PartiqlPhysical.build { inner() }, eqAB, sortBar(PartiqlPhysical.build { asc() })),
+                join(mergeJoinImpl(0), PartiqlPhysical.build { inner() }, eqAB, sortBar(PartiqlPhysical.build { asc() }))
+            ),
+            PhysicalPlanPassBexprTestCase(
+                join(DEFAULT_IMPL, PartiqlPhysical.build { inner() }, eqAB, sortBar(PartiqlPhysical.build { desc() })),
+                join(DEFAULT_IMPL, PartiqlPhysical.build { inner() }, eqAB, sortBar(PartiqlPhysical.build { desc() }))
+            ),
+            // A filter preserves the order of its input, unless it is evaluated in parallel.
+            PhysicalPlanPassBexprTestCase(
+                join(DEFAULT_IMPL, PartiqlPhysical.build { inner() }, eqAB, left = filterFoo(DEFAULT_IMPL_NAME)),
+                join(mergeJoinImpl(0), PartiqlPhysical.build { inner() }, eqAB, left = filterFoo(DEFAULT_IMPL_NAME))
+            ),
+            PhysicalPlanPassBexprTestCase(
+                join(DEFAULT_IMPL, PartiqlPhysical.build { inner() }, eqAB, left = filterFoo(PARALLEL_IMPL_NAME)),
+                join(DEFAULT_IMPL, PartiqlPhysical.build { inner() }, eqAB, left = filterFoo(PARALLEL_IMPL_NAME))
+            ),
+            // A side whose order is unknown
+            PhysicalPlanPassBexprTestCase(
+                join(
+                    DEFAULT_IMPL,
+                    PartiqlPhysical.build { inner() },
+                    eqAB,
+                    PartiqlPhysical.build { scan(DEFAULT_IMPL, globalId("baz"), varDecl(1)) }
+                ),
+                join(
+                    DEFAULT_IMPL,
+                    PartiqlPhysical.build { inner() },
+                    eqAB,
+                    PartiqlPhysical.build { scan(DEFAULT_IMPL, globalId("baz"), varDecl(1)) }
+                )
+            ),
+            // FULL joins are not supported: left unchanged
+            PhysicalPlanPassBexprTestCase(
+                join(DEFAULT_IMPL, PartiqlPhysical.build { full() }, eqAB),
+                join(DEFAULT_IMPL, PartiqlPhysical.build { full() }, eqAB)
+            ),
+            // Another implementation was already selected: left unchanged
+            PhysicalPlanPassBexprTestCase(
+                join(PartiqlPhysical.build { impl(HASH_JOIN_IMPL_NAME) }, PartiqlPhysical.build { inner() }, eqAB),
+                join(PartiqlPhysical.build { impl(HASH_JOIN_IMPL_NAME) }, PartiqlPhysical.build { inner() }, eqAB)
+            ),
+        )
+    }
+}
@@ -0,0 +1,213 @@
+package org.partiql.lang.planner.transforms.optimizations
+
+import kotlinx.coroutines.runBlocking
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.fail
+import org.junit.jupiter.params.ParameterizedTest
+import org.junit.jupiter.params.provider.ArgumentsSource
+import org.partiql.annotations.ExperimentalPartiQLCompilerPipeline
+import org.partiql.errors.Problem
+import org.partiql.errors.ProblemHandler
+import org.partiql.lang.ION
+import org.partiql.lang.compiler.PartiQLCompilerPipelineAsync
+import org.partiql.lang.domains.PartiqlPhysical
+import org.partiql.lang.eval.Bindings
+import org.partiql.lang.eval.EvaluationSession
+import org.partiql.lang.eval.ExprValue
+import org.partiql.lang.eval.PartiQLResult
+import org.partiql.lang.eval.physical.IndexDefinition
+import org.partiql.lang.eval.physical.IndexKind
+import org.partiql.lang.eval.physical.IndexRegistry
+import org.partiql.lang.eval.physical.operators.IndexScanOperatorFactoryAsync
+import org.partiql.lang.eval.physical.withIndexes
+import org.partiql.lang.eval.toIonValue
+import org.partiql.lang.planner.PartiQLPlanner
+import org.partiql.lang.planner.PartiQLPlannerBuilder
+import org.partiql.lang.planner.createFakeGlobalsResolver
+import org.partiql.lang.syntax.PartiQLParserBuilder
+import org.partiql.lang.util.ArgumentsProviderBase
+import org.partiql.types.BagType
+import org.partiql.types.StaticType
+import org.partiql.types.StructType
+
+private const val TABLE = "orders"
+private const val TABLE_UUID = "uuid_for_orders"
+private const val OPEN_TABLE = "events"
+private const val OPEN_TABLE_UUID = "uuid_for_events"
+
+@OptIn(ExperimentalPartiQLCompilerPipeline::class)
+class FilterScanToIndexScanTests {
+
+    /**
+     * @param expectedStaticArgs the static arguments of the index scan as Ion text, i.e. the index name, the prefix size
+     * and the bounds, or `null` if the pass should not apply.
+     * @param uuid the unique id of the table scanned by the query.
+     */
+    data class TestCase(val query: String, val expectedStaticArgs: String?, val uuid: String = TABLE_UUID)
+
+    @ParameterizedTest
+    @ArgumentsSource(Arguments::class)
+    fun rewrite(tc: TestCase) {
+        val plan = when (val result = planner.plan(PartiQLParserBuilder.standard().build().parseAstStatement(tc.query))) {
+            is PartiQLPlanner.Result.Success -> result.plan
+            is PartiQLPlanner.Result.Error -> fail("Expected no errors but found ${result.problems}")
+        }
+        val rewritten = pass.apply(plan, problemHandler)
+        val indexScans = object : PartiqlPhysical.VisitorFold<List<PartiqlPhysical.Impl>>() {
+            override fun visitBexprProject(node: PartiqlPhysical.Bexpr.Project, accumulator: List<PartiqlPhysical.Impl>) =
+                accumulator + node.i
+        }.walkPlan(rewritten, emptyList())
+
+        when (tc.expectedStaticArgs) {
+            null -> assertEquals(plan, rewritten)
+            else -> {
+                val impl = indexScans.single()
+                assertEquals(INDEX_SCAN_IMPL_NAME, impl.name.text)
+                assertEquals(
+                    ION.loader.load("${tc.uuid} ${tc.expectedStaticArgs}").toList(),
+                    impl.staticArgs.map { ION.singleValue(it.toString()) }
+                )
+            }
+        }
+    }
+
+    class Arguments : ArgumentsProviderBase() {
+        override fun getParameters() = listOf(
+            // The hash index requires both of its key fields.
+            TestCase("SELECT * FROM $TABLE AS o WHERE o.region = 'eu' AND o.id = 42", "by_region_id 2 none none"),
+            TestCase("SELECT * FROM $TABLE AS o WHERE 42 = o.id AND 'eu' = o.REGION", "by_region_id 2 none none"),
+            // A prefix of the sorted index
+            TestCase("SELECT * FROM $TABLE AS o WHERE o.customer = 7", "by_customer_date 1 none none"),
+            // A prefix and a range
+            TestCase("SELECT * FROM $TABLE AS o WHERE o.customer = 7 AND o.\"date\" > 2020", "by_customer_date 1 exclusive none"),
+            TestCase("SELECT * FROM $TABLE AS o WHERE o.customer = 7 AND 2020 >= o.\"date\"", "by_customer_date 1 none inclusive"),
+            TestCase("SELECT * FROM $TABLE AS o WHERE o.customer BETWEEN 1 AND 7", "by_customer_date 0 inclusive inclusive"),
+            TestCase("SELECT * FROM $TABLE AS o WHERE o.customer < 7 AND o.customer >= 1 AND o.total > 0", "by_customer_date 0 inclusive exclusive"),
+            // The scan which constrains the most key fields is preferred.
+            TestCase("SELECT * FROM $TABLE AS o WHERE o.customer = 7 AND o.id = 42 AND o.region = 'eu'", "by_region_id 2 none none"),
+            TestCase("SELECT * FROM $TABLE AS o WHERE o.customer = 7 AND o.\"date\" = 2020 AND o.id = 42", "by_customer_date 2 none none"),
+            // A range on a key field which does not follow the prefix
+            TestCase("SELECT * FROM $TABLE AS o WHERE o.\"date\" > 2020", null),
+            // A partial key of the hash index
+            TestCase("SELECT * FROM $TABLE AS o WHERE o.id = 42", null),
+            // Predicates not at the root of the predicate or within `and` expressions
+            TestCase("SELECT * FROM $TABLE AS o WHERE o.customer = 7 OR o.id = 42", null),
+            TestCase("SELECT * FROM $TABLE AS o WHERE NOT (o.customer BETWEEN 1 AND 7)", null),
+            // Values referencing the row
+            TestCase("SELECT * FROM $TABLE AS o WHERE o.customer < o.total", null),
+            // The index scan does not bind the position of the row.
+            TestCase("SELECT * FROM $TABLE AS o AT i WHERE o.customer = 7", null),
+            // The rows of an open type may have a field which only differs from the key field by its case.
+            TestCase("SELECT * FROM $OPEN_TABLE AS e WHERE e.kind = 'a'", null),
+            TestCase("SELECT * FROM $OPEN_TABLE AS e WHERE e.\"kind\" = 'a'", "by_kind 1 none none", OPEN_TABLE_UUID),
+            TestCase("SELECT * FROM $OPEN_TABLE AS e WHERE e.\"KIND\" = 'a'", null),
+        )
+    }
+
+    @ParameterizedTest
+    @ArgumentsSource(EvaluationArguments::class)
+    fun evaluation(query: String) = runBlocking {
+        val registry = IndexRegistry()
+        indexes.forEach { registry.register(TABLE_UUID, it, rows) }
+        registry.register(OPEN_TABLE_UUID, openIndex, openRows)
+        val indexed = PartiQLCompilerPipelineAsync.build {
+            planner.globalVariableResolver(globals).physicalPlannerPasses(listOf(pass))
+            compiler.customOperatorFactories(listOf(IndexScanOperatorFactoryAsync(registry)))
+        }
+        // Without registered indexes, the index scan reads the whole table.
+        val unregistered = PartiQLCompilerPipelineAsync.build {
+            planner.globalVariableResolver(globals).physicalPlannerPasses(listOf(pass))
+            compiler.customOperatorFactories(listOf(IndexScanOperatorFactoryAsync(IndexRegistry())))
+        }
+        val expected = default.compile(query).eval(session).toIon()
+        assertEquals(expected, indexed.compile(query).eval(session).toIon())
+        assertEquals(expected, unregistered.compile(query).eval(session).toIon())
+    }
+
+    class EvaluationArguments : ArgumentsProviderBase() {
+        override fun getParameters() = listOf(
+            "SELECT VALUE o.n FROM $TABLE AS o WHERE o.region = 'eu' AND o.id = 4",
+            "SELECT VALUE o.n FROM $TABLE AS o WHERE o.region = 'eu' AND o.id = 4.0",
+            "SELECT VALUE o.n FROM $TABLE AS o WHERE o.region = NULL AND o.id = 4",
+            "SELECT VALUE o.n FROM $TABLE AS o WHERE o.customer = 2 ORDER BY o.n",
+            "SELECT VALUE o.n FROM $TABLE AS o WHERE o.customer = 2 AND o.\"date\" > 2021 ORDER BY o.n",
+            "SELECT VALUE o.n FROM $TABLE AS o WHERE o.customer = 2 AND o.\"date\" <= 2021 ORDER BY o.n",
+            "SELECT VALUE o.n FROM $TABLE AS o WHERE o.customer BETWEEN 1 AND 2 AND o.total > 3 ORDER BY o.n",
+            "SELECT VALUE o.n FROM $TABLE AS o WHERE o.customer < 2 ORDER BY o.n",
+            "SELECT VALUE o.n FROM $TABLE AS o WHERE o.customer > 100",
+            "SELECT VALUE e.n FROM $OPEN_TABLE AS e WHERE e.kind = 'a' ORDER BY e.n",
+            "SELECT VALUE e.n FROM $OPEN_TABLE AS e WHERE e.\"kind\" = 'a' ORDER BY e.n",
+        )
+    }
+
+    private fun PartiQLResult.toIon() = (this as PartiQLResult.Value).value.toIonValue(ION)
+
+    companion object {
+        private val indexes = listOf(
+            IndexDefinition("by_region_id", listOf("region", "id"), IndexKind.HASH),
+            IndexDefinition("by_customer_date", listOf("customer", "date"), IndexKind.SORTED),
+        )
+
+        /** A closed row type, thus case-insensitive references to its key fields use the indexes. */
+        private val rowType = StructType(
+            fields = listOf("n", "id", "region", "customer", "date", "total").associateWith { StaticType.ANY },
+            contentClosed = true
+        ).withIndexes(*indexes.toTypedArray())
+
+        private val openIndex = IndexDefinition("by_kind", listOf("kind"), IndexKind.HASH)
+
+        private val openRowType = StructType(fields = emptyMap()).withIndexes(openIndex)
+
+        private val globals = createFakeGlobalsResolver(TABLE to TABLE_UUID, OPEN_TABLE to OPEN_TABLE_UUID)
+
+        private val pass = createFilterScanToIndexScanPass { uniqueId ->
+            when (uniqueId) {
+                TABLE_UUID -> BagType(rowType)
+                OPEN_TABLE_UUID -> BagType(openRowType)
+                else -> error("Unexpected global variable $uniqueId")
+            }
+        }
+
+        private val planner = PartiQLPlannerBuilder.standard().globalVariableResolver(globals).build()
+
+        private val default = PartiQLCompilerPipelineAsync.build { planner.globalVariableResolver(globals) }
+
+        /** Rows with keys of mixed numeric types, and NULL or MISSING keys. */
+        private val rows = ExprValue.of(
+            ION.singleValue(
+                """
+                [
+                    {n: 1, id: 4, region: "eu", customer: 1, date: 2020, total: 5},
+                    {n: 2, id: 4, region: "us", customer: 2, date: 2021, total: 1},
+                    {n: 3, id: 4.0, region: "eu", customer: 2, date: 2022, total: 4},
+                    {n: 4, id: 5, region: null, customer: 2.5e0, date: 2021},
+                    {n: 5, id: 6, date: 2023},
+                    {n: 6, region: "eu", customer: null, total: 9},
+                    {n: 7, id: 7, region: "eu", customer: 2, date: 2024, total: 2}
+                ]
+                """
+            )
+        )
+
+        /** Rows whose key field is named with different cases. */
+        private val openRows = ExprValue.of(
+            ION.singleValue(
+                """
+                [
+                    {n: 1, kind: "a"},
+                    {n: 2, KIND: "a"},
+                    {n: 3, Kind: "b"}
+                ]
+                """
+            )
+        )
+
+        private val session = EvaluationSession.build {
+            globals(Bindings.ofMap(mapOf(TABLE_UUID to rows, OPEN_TABLE_UUID to openRows)))
+        }
+
+        private val problemHandler = object : ProblemHandler {
+            override fun handleProblem(problem: Problem): Unit = error("didn't expect any problems")
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package org.partiql.lang.planner.transforms.optimizations
+
+import com.amazon.ionelement.api.ionSymbol
+import org.junit.jupiter.params.ParameterizedTest
+import org.junit.jupiter.params.provider.ArgumentsSource
+import org.partiql.lang.domains.PartiqlPhysical
+import org.partiql.lang.planner.litInt
+import org.partiql.lang.planner.transforms.DEFAULT_IMPL
+import org.partiql.lang.util.ArgumentsProviderBase
+
+class ParallelExecutionPassTests {
+    @ParameterizedTest
+    @ArgumentsSource(Arguments::class)
+    fun runTestCase(tc: PhysicalPlanPassBexprTestCase) = tc.runTest(createParallelExecutionPass())
+
+    class Arguments : ArgumentsProviderBase() {
+        private val parallelImpl = PartiqlPhysical.build { impl(PARALLEL_IMPL_NAME) }
+        private val partitionedScanImpl = PartiqlPhysical.build { impl(PARTITIONED_SCAN_IMPL_NAME) }
+        private val otherImpl = PartiqlPhysical.build { impl("other") }
+
+        private val a = PartiqlPhysical.build {
+            path(localId(0), listOf(pathExpr(lit(ionSymbol("a")), PartiqlPhysical.CaseSensitivity.CaseInsensitive())))
+        }
+        private val predicate = PartiqlPhysical.build { gt(a, litInt(1)) }
+
+        private fun scan(impl: PartiqlPhysical.Impl, name: String = "foo", index: Int = 0) = PartiqlPhysical.build {
+            scan(impl, globalId(name), varDecl(index.toLong()))
+        }
+
+        private fun filter(impl: PartiqlPhysical.Impl, source: PartiqlPhysical.Bexpr) = PartiqlPhysical.build {
+            filter(impl, predicate, source)
+        }
+
+        private fun let(source: PartiqlPhysical.Bexpr) = PartiqlPhysical.build {
+            let(DEFAULT_IMPL, source, listOf(letBinding(a, varDecl(1))))
+        }
+
+        private fun aggregate(
+            impl: PartiqlPhysical.Impl,
+            source: PartiqlPhysical.Bexpr,
+            quantifier: PartiqlPhysical.SetQuantifier = PartiqlPhysical.build { all() }
+        ) = PartiqlPhysical.build {
+            aggregate(
+                i = impl,
+                source = source,
+                strategy = groupFull(),
+                groupList = groupKeyList(listOf(groupKey(a, varDecl(2)))),
+                functionList = aggregateFunctionList(listOf(aggregateFunction(quantifier, "sum", a, varDecl(3))))
+            )
+        }
+
+        private fun sort(source: PartiqlPhysical.Bexpr) = PartiqlPhysical.build {
+            sort(DEFAULT_IMPL, source, listOf(sortSpec(a, asc(), nullsLast())))
+        }
+
+        private fun join(left: PartiqlPhysical.Bexpr, right: PartiqlPhysical.Bexpr) = PartiqlPhysical.build {
+            join(DEFAULT_IMPL, inner(), left, right, predicate)
+        }
+
+        /** A filter whose predicate contains a subquery with a partitionable pipeline. */
+        private fun filterBySubquery(source: PartiqlPhysical.Bexpr): PartiqlPhysical.Bexpr {
+            val subquery = filter(DEFAULT_IMPL, scan(DEFAULT_IMPL, "bar", 1))
+            return PartiqlPhysical.build {
+                filter(DEFAULT_IMPL, inCollection(a, bindingsToValues(a, subquery)), source)
+            }
+        }
+
+        override fun getParameters() = listOf(
+            // Filter of a scan
+            PhysicalPlanPassBexprTestCase(
+                filter(DEFAULT_IMPL, scan(DEFAULT_IMPL)),
+                filter(parallelImpl, scan(partitionedScanImpl))
+            ),
+            // Only the outermost filter of a pipeline is parallelized
+            PhysicalPlanPassBexprTestCase(
+                filter(DEFAULT_IMPL, let(filter(DEFAULT_IMPL, scan(DEFAULT_IMPL)))),
+                filter(parallelImpl, let(filter(DEFAULT_IMPL, scan(partitionedScanImpl))))
+            ),
+            // Aggregation of a pipeline
+            PhysicalPlanPassBexprTestCase(
+                aggregate(DEFAULT_IMPL, filter(DEFAULT_IMPL, scan(DEFAULT_IMPL))),
+                aggregate(parallelImpl, filter(DEFAULT_IMPL, scan(partitionedScanImpl)))
+            ),
+            PhysicalPlanPassBexprTestCase(
+                aggregate(DEFAULT_IMPL, scan(DEFAULT_IMPL)),
+                aggregate(parallelImpl, scan(partitionedScanImpl))
+            ),
+            // Operators above the parallelized pipeline are unchanged
+            PhysicalPlanPassBexprTestCase(
+                sort(filter(DEFAULT_IMPL, scan(DEFAULT_IMPL))),
+                sort(filter(parallelImpl, scan(partitionedScanImpl)))
+            ),
+            // DISTINCT aggregate functions: the filter below the aggregation is parallelized instead
+            PhysicalPlanPassBexprTestCase(
+                aggregate(DEFAULT_IMPL, filter(DEFAULT_IMPL, scan(DEFAULT_IMPL)), PartiqlPhysical.build { distinct() }),
+                aggregate(DEFAULT_IMPL, filter(parallelImpl, scan(partitionedScanImpl)), PartiqlPhysical.build { distinct() })
+            ),
+            // Other implementations: left unchanged
+            PhysicalPlanPassBexprTestCase(
+                filter(otherImpl, scan(DEFAULT_IMPL)),
+                filter(otherImpl, scan(DEFAULT_IMPL))
+            ),
+            PhysicalPlanPassBexprTestCase(
+                filter(DEFAULT_IMPL, scan(otherImpl)),
+                filter(DEFAULT_IMPL, scan(otherImpl))
+            ),
+            // Not a partitionable pipeline: left unchanged
+            PhysicalPlanPassBexprTestCase(
+                aggregate(DEFAULT_IMPL, sort(scan(DEFAULT_IMPL))),
+                aggregate(DEFAULT_IMPL, sort(scan(DEFAULT_IMPL)))
+            ),
+            // Only the left side of a join is parallelized
+            PhysicalPlanPassBexprTestCase(
+                join(filter(DEFAULT_IMPL, scan(DEFAULT_IMPL)), filter(DEFAULT_IMPL, scan(DEFAULT_IMPL, "bar", 1))),
+                join(filter(parallelImpl, scan(partitionedScanImpl)), filter(DEFAULT_IMPL, scan(DEFAULT_IMPL, "bar", 1)))
+            ),
+            // Subqueries: left unchanged
+            PhysicalPlanPassBexprTestCase(
+                filterBySubquery(scan(otherImpl)),
+                filterBySubquery(scan(otherImpl))
+            ),
+        )
+    }
+}
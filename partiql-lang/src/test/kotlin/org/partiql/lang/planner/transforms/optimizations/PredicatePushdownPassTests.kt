@@ -0,0 +1,130 @@
+package org.partiql.lang.planner.transforms.optimizations
+
+import com.amazon.ionelement.api.ionSymbol
+import org.junit.jupiter.params.ParameterizedTest
+import org.junit.jupiter.params.provider.ArgumentsSource
+import org.partiql.lang.domains.PartiqlPhysical
+import org.partiql.lang.planner.litInt
+import org.partiql.lang.planner.litTrue
+import org.partiql.lang.planner.transforms.DEFAULT_IMPL
+import org.partiql.lang.util.ArgumentsProviderBase
+
+class PredicatePushdownPassTests {
+    @ParameterizedTest
+    @ArgumentsSource(Arguments::class)
+    fun runTestCase(tc: PhysicalPlanPassBexprTestCase) = tc.runTest(createPredicatePushdownPass())
+
+    class Arguments : ArgumentsProviderBase() {
+        private fun fieldOf(index: Long, name: String) = PartiqlPhysical.build {
+            path(localId(index), listOf(pathExpr(lit(ionSymbol(name)), caseInsensitive())))
+        }
+
+        private fun scan(name: String, index: Long) = PartiqlPhysical.build {
+            scan(DEFAULT_IMPL, globalId(name), varDecl(index))
+        }
+
+        private fun filter(predicate: PartiqlPhysical.Expr, source: PartiqlPhysical.Bexpr) = PartiqlPhysical.build {
+            filter(DEFAULT_IMPL, predicate, source)
+        }
+
+        private fun join(
+            joinType: PartiqlPhysical.JoinType,
+            left: PartiqlPhysical.Bexpr,
+            right: PartiqlPhysical.Bexpr,
+            predicate: PartiqlPhysical.Expr?
+        ) = PartiqlPhysical.build { join(DEFAULT_IMPL, joinType, left, right, predicate) }
+
+        private val inner = PartiqlPhysical.build { inner() }
+        private val left = PartiqlPhysical.build { left() }
+        private val full = PartiqlPhysical.build { full() }
+
+        // l.a = r.b
+        private val eqAB = PartiqlPhysical.build { eq(fieldOf(0, "a"), fieldOf(1, "b")) }
+
+        // l.d = 1
+        private val eqD = PartiqlPhysical.build { eq(fieldOf(0, "d"), litInt(1)) }
+
+        // r.c > 10
+        private val gtC = PartiqlPhysical.build { gt(fieldOf(1, "c"), litInt(10)) }
+
+        // r.c LIKE 'x%'
+        private val likeC = PartiqlPhysical.build { like(fieldOf(1, "c"), lit(ionSymbol("x%"))) }
+
+        override fun getParameters() = listOf(
+            // A filter over an implicit (comma) join.
+            PhysicalPlanPassBexprTestCase(
+                filter(
+                    PartiqlPhysical.build { and(eqAB, gtC, eqD) },
+                    join(inner, scan("l", 0), scan("r", 1), PartiqlPhysical.build { litTrue() })
+                ),
+                join(inner, filter(eqD, scan("l", 0)), filter(gtC, scan("r", 1)), eqAB)
+            ),
+            // The conjuncts of the join predicate are pushed down too, and conjuncts are ordered by selectivity.
+            PhysicalPlanPassBexprTestCase(
+                join(inner, scan("l", 0), scan("r", 1), PartiqlPhysical.build { and(likeC, eqAB, gtC) }),
+                join(inner, scan("l", 0), filter(PartiqlPhysical.build { and(gtC, likeC) }, scan("r", 1)), eqAB)
+            ),
+            // Nested filters are merged.
+            PhysicalPlanPassBexprTestCase(
+                filter(gtC, filter(likeC, scan("r", 1))),
+                filter(PartiqlPhysical.build { and(gtC, likeC) }, scan("r", 1))
+            ),
+            // Nested joins.
+            PhysicalPlanPassBexprTestCase(
+                filter(
+                    PartiqlPhysical.build { and(eqD, gtC) },
+                    join(inner, join(inner, scan("l", 0), scan("r", 1), eqAB), scan("s", 2), null)
+                ),
+                join(
+                    inner,
+                    join(inner, filter(eqD, scan("l", 0)), filter(gtC, scan("r", 1)), eqAB),
+                    scan("s", 2),
+                    null
+                )
+            ),
+            // LEFT join: conjuncts above the join over the right side stay above it, and conjuncts of the join
+            // predicate over the left side stay in the predicate.
+            PhysicalPlanPassBexprTestCase(
+                filter(
+                    PartiqlPhysical.build { and(eqD, gtC) },
+                    join(left, scan("l", 0), scan("r", 1), PartiqlPhysical.build { and(eqAB, eqD, likeC) })
+                ),
+                filter(
+                    gtC,
+                    join(
+                        left,
+                        filter(eqD, scan("l", 0)),
+                        filter(likeC, scan("r", 1)),
+                        // The smaller equality first.
+                        PartiqlPhysical.build { and(eqD, eqAB) }
+                    )
+                )
+            ),
+            // FULL join: left as it is.
+            PhysicalPlanPassBexprTestCase(
+                filter(eqD, join(full, scan("l", 0), scan("r", 1), PartiqlPhysical.build { and(eqAB, gtC) })),
+                filter(eqD, join(full, scan("l", 0), scan("r", 1), PartiqlPhysical.build { and(eqAB, gtC) }))
+            ),
+            // Conjuncts referencing the variables of a let stay above it.
+            PhysicalPlanPassBexprTestCase(
+                filter(
+                    PartiqlPhysical.build { and(eqD, eq(localId(2), litInt(2))) },
+                    PartiqlPhysical.build {
+                        let(DEFAULT_IMPL, scan("l", 0), listOf(letBinding(fieldOf(0, "a"), varDecl(2))))
+                    }
+                ),
+                filter(
+                    PartiqlPhysical.build { eq(localId(2), litInt(2)) },
+                    PartiqlPhysical.build {
+                        let(DEFAULT_IMPL, filter(eqD, scan("l", 0)), listOf(letBinding(fieldOf(0, "a"), varDecl(2))))
+                    }
+                )
+            ),
+            // Filters are not pushed below a limit.
+            PhysicalPlanPassBexprTestCase(
+                filter(eqD, PartiqlPhysical.build { limit(DEFAULT_IMPL, litInt(1), scan("l", 0)) }),
+                filter(eqD, PartiqlPhysical.build { limit(DEFAULT_IMPL, litInt(1), scan("l", 0)) })
+            ),
+        )
+    }
+}
@@ -0,0 +1,138 @@
+package org.partiql.lang.planner.transforms.optimizations
+
+import com.amazon.ionelement.api.ionString
+import com.amazon.ionelement.api.ionSymbol
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Test
+import org.partiql.errors.Problem
+import org.partiql.errors.ProblemHandler
+import org.partiql.lang.domains.PartiqlPhysical
+import org.partiql.lang.planner.litInt
+import org.partiql.lang.planner.transforms.DEFAULT_IMPL
+import org.partiql.lang.planner.transforms.PLAN_VERSION_NUMBER
+
+class ProjectionPruningPassTests {
+    private val pass = createProjectionPruningPass()
+
+    private fun PartiqlPhysical.Builder.field(index: Long, name: String) =
+        path(localId(index), listOf(pathExpr(lit(ionSymbol(name)), caseInsensitive())))
+
+    private fun scan(name: String, index: Long) = PartiqlPhysical.build {
+        scan(DEFAULT_IMPL, globalId(name), varDecl(index))
+    }
+
+    private fun prunedScan(name: String, index: Long, vararg fields: String) = PartiqlPhysical.build {
+        scan(impl(PRUNED_SCAN_IMPL_NAME, fields.map { ionString(it) }), globalId(name), varDecl(index))
+    }
+
+    private fun plan(expr: PartiqlPhysical.Expr) = PartiqlPhysical.build {
+        plan(query(expr), version = PLAN_VERSION_NUMBER)
+    }
+
+    private fun runTest(input: PartiqlPhysical.Expr, expected: PartiqlPhysical.Expr) {
+        val actual = pass.apply(
+            plan(input),
+            object : ProblemHandler {
+                override fun handleProblem(problem: Problem) {
+                    error("no errors were expected")
+                }
+            }
+        )
+        assertEquals(plan(expected), actual)
+    }
+
+    @Test
+    fun fieldsAreCollectedFromAllOperators() = runTest(
+        PartiqlPhysical.build {
+            bindingsToValues(
+                struct(structField(lit(ionSymbol("b")), field(0, "B"))),
+                filter(DEFAULT_IMPL, gt(field(0, "c"), litInt(0)), scan("foo", 0))
+            )
+        },
+        PartiqlPhysical.build {
+            bindingsToValues(
+                struct(structField(lit(ionSymbol("b")), field(0, "B"))),
+                filter(DEFAULT_IMPL, gt(field(0, "c"), litInt(0)), prunedScan("foo", 0, "b", "c"))
+            )
+        }
+    )
+
+    @Test
+    fun nestedPaths() = runTest(
+        PartiqlPhysical.build {
+            bindingsToValues(
+                path(localId(0), listOf(pathExpr(lit(ionSymbol("a")), caseInsensitive()), pathWildcard())),
+                scan("foo", 0)
+            )
+        },
+        PartiqlPhysical.build {
+            bindingsToValues(
+                path(localId(0), listOf(pathExpr(lit(ionSymbol("a")), caseInsensitive()), pathWildcard())),
+                prunedScan("foo", 0, "a")
+            )
+        }
+    )
+
+    @Test
+    fun subqueries() = runTest(
+        PartiqlPhysical.build {
+            bindingsToValues(
+                bindingsToValues(
+                    field(1, "b"),
+                    filter(DEFAULT_IMPL, eq(field(1, "a"), field(0, "a")), scan("bar", 1))
+                ),
+                scan("foo", 0)
+            )
+        },
+        PartiqlPhysical.build {
+            bindingsToValues(
+                bindingsToValues(
+                    field(1, "b"),
+                    filter(DEFAULT_IMPL, eq(field(1, "a"), field(0, "a")), prunedScan("bar", 1, "a", "b"))
+                ),
+                prunedScan("foo", 0, "a")
+            )
+        }
+    )
+
+    @Test
+    fun variablesUsedAsAWholeAreNotPruned() {
+        val input = PartiqlPhysical.build {
+            bindingsToValues(
+                struct(structFields(localId(0)), structField(lit(ionSymbol("b")), field(1, "b"))),
+                join(DEFAULT_IMPL, inner(), scan("foo", 0), scan("bar", 1), null)
+            )
+        }
+        runTest(
+            input,
+            PartiqlPhysical.build {
+                bindingsToValues(
+                    struct(structFields(localId(0)), structField(lit(ionSymbol("b")), field(1, "b"))),
+                    join(DEFAULT_IMPL, inner(), scan("foo", 0), prunedScan("bar", 1, "b"), null)
+                )
+            }
+        )
+    }
+
+    @Test
+    fun dynamicPathsAreNotPruned() {
+        val input = PartiqlPhysical.build {
+            bindingsToValues(
+                path(localId(0), listOf(pathExpr(field(0, "key"), caseSensitive()))),
+                scan("foo", 0)
+            )
+        }
+        runTest(input, input)
+    }
+
+    @Test
+    fun otherImplementationsAreNotPruned() {
+        val input = PartiqlPhysical.build {
+            bindingsToValues(
+                field(0, "a"),
+                scan(impl(PARTITIONED_SCAN_IMPL_NAME), globalId("foo"), varDecl(0))
+            )
+        }
+        runTest(input, input)
+    }
+}
@@ -0,0 +1,104 @@
+package org.partiql.lang.planner.transforms.optimizations
+
+import com.amazon.ionelement.api.ionInt
+import com.amazon.ionelement.api.ionSymbol
+import org.junit.jupiter.params.ParameterizedTest
+import org.junit.jupiter.params.provider.ArgumentsSource
+import org.partiql.lang.domains.PartiqlPhysical
+import org.partiql.lang.planner.litInt
+import org.partiql.lang.planner.transforms.DEFAULT_IMPL
+import org.partiql.lang.util.ArgumentsProviderBase
+
+class SortLimitToTopNPassTests {
+    @ParameterizedTest
+    @ArgumentsSource(Arguments::class)
+    fun runTestCase(tc: PhysicalPlanPassBexprTestCase) = tc.runTest(createSortLimitToTopNPass())
+
+    class Arguments : ArgumentsProviderBase() {
+        private val otherImpl = PartiqlPhysical.build { impl("other") }
+
+        private fun topNImpl(limit: Long, offset: Long) = PartiqlPhysical.build {
+            impl(TOP_N_SORT_IMPL_NAME, listOf(ionInt(limit), ionInt(offset)))
+        }
+
+        private val scan = PartiqlPhysical.build { scan(DEFAULT_IMPL, globalId("foo"), varDecl(0)) }
+
+        private fun sort(impl: PartiqlPhysical.Impl = DEFAULT_IMPL) = PartiqlPhysical.build {
+            sort(
+                impl,
+                scan,
+                listOf(
+                    sortSpec(
+                        path(localId(0), listOf(pathExpr(lit(ionSymbol("a")), PartiqlPhysical.CaseSensitivity.CaseInsensitive()))),
+                        desc(),
+                        nullsLast()
+                    )
+                )
+            )
+        }
+
+        private fun limit(rowCount: PartiqlPhysical.Expr, source: PartiqlPhysical.Bexpr, impl: PartiqlPhysical.Impl = DEFAULT_IMPL) =
+            PartiqlPhysical.build { limit(impl, rowCount, source) }
+
+        private fun offset(rowCount: PartiqlPhysical.Expr, source: PartiqlPhysical.Bexpr, impl: PartiqlPhysical.Impl = DEFAULT_IMPL) =
+            PartiqlPhysical.build { offset(impl, rowCount, source) }
+
+        private fun int(value: Int) = PartiqlPhysical.build { litInt(value) }
+
+        override fun getParameters() = listOf(
+            // LIMIT
+            PhysicalPlanPassBexprTestCase(
+                limit(int(10), sort()),
+                sort(topNImpl(10, 0))
+            ),
+            // LIMIT with OFFSET
+            PhysicalPlanPassBexprTestCase(
+                limit(int(10), offset(int(5), sort())),
+                sort(topNImpl(10, 5))
+            ),
+            // LIMIT 0
+            PhysicalPlanPassBexprTestCase(
+                limit(int(0), sort()),
+                sort(topNImpl(0, 0))
+            ),
+            // OFFSET without LIMIT: left unchanged
+            PhysicalPlanPassBexprTestCase(
+                offset(int(5), sort()),
+                offset(int(5), sort())
+            ),
+            // LIMIT without sort: left unchanged
+            PhysicalPlanPassBexprTestCase(
+                limit(int(10), offset(int(5), scan)),
+                limit(int(10), offset(int(5), scan))
+            ),
+            // Negative LIMIT (an evaluation-time error): left unchanged
+            PhysicalPlanPassBexprTestCase(
+                limit(int(-1), sort()),
+                limit(int(-1), sort())
+            ),
+            // LIMIT which is not a literal: left unchanged
+            PhysicalPlanPassBexprTestCase(
+                limit(PartiqlPhysical.build { plus(int(1), int(1)) }, sort()),
+                limit(PartiqlPhysical.build { plus(int(1), int(1)) }, sort())
+            ),
+            // OFFSET which is not a literal: left unchanged
+            PhysicalPlanPassBexprTestCase(
+                limit(int(10), offset(PartiqlPhysical.build { parameter(0) }, sort())),
+                limit(int(10), offset(PartiqlPhysical.build { parameter(0) }, sort()))
+            ),
+            // Other implementations: left unchanged
+            PhysicalPlanPassBexprTestCase(
+                limit(int(10), sort(otherImpl)),
+                limit(int(10), sort(otherImpl))
+            ),
+            PhysicalPlanPassBexprTestCase(
+                limit(int(10), offset(int(5), sort(), otherImpl)),
+                limit(int(10), offset(int(5), sort(), otherImpl))
+            ),
+            PhysicalPlanPassBexprTestCase(
+                limit(int(10), sort(), otherImpl),
+                limit(int(10), sort(), otherImpl)
+            ),
+        )
+    }
+}
@@ -0,0 +1,51 @@
+package org.partiql.lang.planner.transforms.optimizations
+
+import com.amazon.ionelement.api.ionSymbol
+import org.junit.jupiter.params.ParameterizedTest
+import org.junit.jupiter.params.provider.ArgumentsSource
+import org.partiql.lang.domains.PartiqlPhysical
+import org.partiql.lang.planner.transforms.DEFAULT_IMPL
+import org.partiql.lang.util.ArgumentsProviderBase
+
+class SortToExternalSortPassTests {
+    @ParameterizedTest
+    @ArgumentsSource(Arguments::class)
+    fun runTestCase(tc: PhysicalPlanPassBexprTestCase) = tc.runTest(createSortToExternalSortPass())
+
+    class Arguments : ArgumentsProviderBase() {
+        private val externalSortImpl = PartiqlPhysical.build { impl(EXTERNAL_SORT_IMPL_NAME) }
+        private val otherImpl = PartiqlPhysical.build { impl("other") }
+
+        private val sortSpec = PartiqlPhysical.build {
+            sortSpec(
+                path(localId(0), listOf(pathExpr(lit(ionSymbol("a")), PartiqlPhysical.CaseSensitivity.CaseInsensitive()))),
+                desc(),
+                nullsLast()
+            )
+        }
+
+        private fun sort(impl: PartiqlPhysical.Impl, source: PartiqlPhysical.Bexpr) = PartiqlPhysical.build {
+            sort(impl, source, listOf(sortSpec))
+        }
+
+        private val scan = PartiqlPhysical.build { scan(DEFAULT_IMPL, globalId("foo"), varDecl(0)) }
+
+        override fun getParameters() = listOf(
+            // Default implementation
+            PhysicalPlanPassBexprTestCase(
+                sort(DEFAULT_IMPL, scan),
+                sort(externalSortImpl, scan)
+            ),
+            // Nested sorts
+            PhysicalPlanPassBexprTestCase(
+                sort(DEFAULT_IMPL, sort(DEFAULT_IMPL, scan)),
+                sort(externalSortImpl, sort(externalSortImpl, scan))
+            ),
+            // Other implementation: left unchanged
+            PhysicalPlanPassBexprTestCase(
+                sort(otherImpl, scan),
+                sort(otherImpl, scan)
+            ),
+        )
+    }
+}
@@ -0,0 +1,35 @@
+package org.partiql.lang.util
+
+import org.junit.jupiter.api.Assertions.assertEquals
+import org.junit.jupiter.api.Test
+
+class TopNCollectorTest {
+    private val values = listOf(5 to "a", 3 to "b", 8 to "c", 3 to "d", 1 to "e", 5 to "f", 3 to "g", 9 to "h")
+    private val byKey = compareBy<Pair<Int, String>> { it.first }
+
+    @Test
+    fun sameAsSortThenTake() {
+        (0L..values.size + 1L).forEach { count ->
+            assertEquals(
+                values.sortedWith(byKey).take(count.toInt()),
+                values.asSequence().sortedTopN(byKey, count).toList(),
+                "count = $count"
+            )
+        }
+    }
+
+    @Test
+    fun reversedComparator() {
+        assertEquals(
+            values.sortedWith(byKey.reversed()).take(3),
+            values.asSequence().sortedTopN(byKey.reversed(), 3).toList()
+        )
+    }
+
+    @Test
+    fun topNCountSaturates() {
+        assertEquals(15L, topNCount(10, 5))
+        assertEquals(Long.MAX_VALUE, topNCount(Long.MAX_VALUE, 1))
+        assertEquals(Long.MAX_VALUE, topNCount(1, Long.MAX_VALUE))
+    }
+}
@@ -0,0 +1,17 @@
+package org.partiql.planner
+
+import org.partiql.planner.internal.passes.ConditionalSimplificationPass
+
+/**
+ * The [PartiQLPlannerPass]es provided by the planner, which may be added with [PartiQLPlannerBuilder.addPass].
+ */
+public object PartiQLPlannerPasses {
+
+    /**
+     * Returns a pass which simplifies the boolean operators, `CASE` and `COALESCE` expressions whose result is known
+     * from their literal operands, e.g. `WHERE FALSE OR t.a` becomes `WHERE t.a` if `t.a` is a `BOOL`. It does not fold
+     * function calls nor share common subexpressions.
+     */
+    @JvmStatic
+    public fun conditionalSimplification(): PartiQLPlannerPass = ConditionalSimplificationPass
+}
@@ -168,6 +168,7 @@ internal object PartiQLHeader : Header() {
             name = "not",
             returns = BOOL,
             isNullCall = true,
+            isMissingCall = false,
             isNullable = false,
             parameters = listOf(FunctionParameter("value", BOOL)),
         ),
@@ -175,6 +176,7 @@ internal object PartiQLHeader : Header() {
             name = "not",
             returns = BOOL,
             isNullCall = true,
+            isMissingCall = false,
             isNullable = false,
             parameters = listOf(FunctionParameter("value", MISSING)),
         ),
@@ -195,6 +197,7 @@ internal object PartiQLHeader : Header() {
             parameters = listOf(FunctionParameter("lhs", t), FunctionParameter("rhs", t)),
             isNullable = false,
             isNullCall = true,
+            isMissingCall = false,
         )
     }
 
@@ -203,6 +206,7 @@ internal object PartiQLHeader : Header() {
             name = "and",
             returns = BOOL,
             isNullCall = false,
+            isMissingCall = false,
             isNullable = true,
             parameters = listOf(FunctionParameter("lhs", BOOL), FunctionParameter("rhs", BOOL)),
         ),
@@ -210,6 +214,7 @@ internal object PartiQLHeader : Header() {
             name = "and",
             returns = BOOL,
             isNullCall = false,
+            isMissingCall = false,
             isNullable = true,
             parameters = listOf(FunctionParameter("lhs", MISSING), FunctionParameter("rhs", BOOL)),
         ),
@@ -217,6 +222,7 @@ internal object PartiQLHeader : Header() {
             name = "and",
             returns = BOOL,
             isNullCall = false,
+            isMissingCall = false,
             isNullable = true,
             parameters = listOf(FunctionParameter("lhs", BOOL), FunctionParameter("rhs", MISSING)),
         ),
@@ -224,6 +230,7 @@ internal object PartiQLHeader : Header() {
             name = "and",
             returns = BOOL,
             isNullCall = false,
+            isMissingCall = false,
             isNullable = true,
             parameters = listOf(FunctionParameter("lhs", MISSING), FunctionParameter("rhs", MISSING)),
         ),
@@ -234,6 +241,7 @@ internal object PartiQLHeader : Header() {
             name = "or",
             returns = BOOL,
             isNullCall = false,
+            isMissingCall = false,
             isNullable = true,
             parameters = listOf(FunctionParameter("lhs", BOOL), FunctionParameter("rhs", BOOL)),
         ),
@@ -241,6 +249,7 @@ internal object PartiQLHeader : Header() {
             name = "or",
             returns = BOOL,
             isNullCall = false,
+            isMissingCall = false,
             isNullable = true,
             parameters = listOf(FunctionParameter("lhs", MISSING), FunctionParameter("rhs", BOOL)),
         ),
@@ -248,6 +257,7 @@ internal object PartiQLHeader : Header() {
             name = "or",
             returns = BOOL,
             isNullCall = false,
+            isMissingCall = false,
             isNullable = true,
             parameters = listOf(FunctionParameter("lhs", BOOL), FunctionParameter("rhs", MISSING)),
         ),
@@ -255,6 +265,7 @@ internal object PartiQLHeader : Header() {
             name = "or",
             returns = BOOL,
             isNullCall = false,
+            isMissingCall = false,
             isNullable = true,
             parameters = listOf(FunctionParameter("lhs", MISSING), FunctionParameter("rhs", MISSING)),
         ),
@@ -390,6 +401,7 @@ internal object PartiQLHeader : Header() {
                 FunctionParameter("value", ANY) // TODO: Decide if we need to further segment this
             ),
             isNullCall = false,
+            isMissingCall = false,
             isNullable = false
         )
     )
@@ -402,6 +414,7 @@ internal object PartiQLHeader : Header() {
                 FunctionParameter("value", ANY) // TODO: Decide if we need to further segment this
             ),
             isNullCall = false,
+            isMissingCall = false,
             isNullable = false
         )
     )
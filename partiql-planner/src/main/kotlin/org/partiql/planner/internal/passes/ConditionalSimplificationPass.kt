@@ -0,0 +1,135 @@
+package org.partiql.planner.internal.passes
+
+import org.partiql.errors.ProblemCallback
+import org.partiql.plan.PartiQLPlan
+import org.partiql.plan.PlanNode
+import org.partiql.plan.Rex
+import org.partiql.plan.util.PlanRewriter
+import org.partiql.planner.PartiQLPlannerPass
+import org.partiql.types.StaticType
+import org.partiql.value.BoolValue
+import org.partiql.value.MissingValue
+import org.partiql.value.PartiQLValueExperimental
+import org.partiql.value.boolValue
+
+/**
+ * Simplifies the expressions of a plan whose result is known from their literal operands:
+ *
+ * - `NOT` of a boolean literal is replaced with the negated literal.
+ * - `AND` with a `FALSE` operand is replaced with `FALSE`, and `OR` with a `TRUE` operand with `TRUE`, provided that
+ * the other operand, which would have been evaluated, cannot raise an error; an operand which is `TRUE` (resp. `FALSE`)
+ * is dropped from an `AND` (resp. `OR`) whose other operand is a `BOOL`.
+ * - `CASE` branches whose condition is a `FALSE`, `NULL` or `MISSING` literal are dropped, and the first branch whose
+ * condition is `TRUE` replaces the `ELSE` of the `CASE` (or the `CASE` itself, if it is the first remaining branch).
+ * - `COALESCE` arguments which are `NULL` or `MISSING` literals are dropped, up to the first literal which is neither.
+ *
+ * Unlike the common subexpression elimination pass of `partiql-lang`, this pass neither folds calls of deterministic
+ * functions nor shares common subexpressions; both are deferred, as the plan is not tied to a particular
+ * implementation of the functions.
+ */
+@OptIn(PartiQLValueExperimental::class)
+internal object ConditionalSimplificationPass : PartiQLPlannerPass {
+
+    override fun apply(plan: PartiQLPlan, onProblem: ProblemCallback): PartiQLPlan =
+        Simplifier.visitPartiQLPlan(plan, Unit) as PartiQLPlan
+
+    private object Simplifier : PlanRewriter<Unit>() {
+
+        override fun visitRex(node: Rex, ctx: Unit): PlanNode {
+            // Fold the operands first.
+            val rex = super.visitRex(node, ctx) as Rex
+            return when (val op = rex.op) {
+                is Rex.Op.Call.Static -> foldCall(rex, op)
+                is Rex.Op.Case -> foldCase(rex, op)
+                is Rex.Op.Coalesce -> foldCoalesce(rex, op)
+                else -> rex
+            }
+        }
+
+        private fun foldCall(rex: Rex, op: Rex.Op.Call.Static): Rex {
+            val args = op.args
+            return when (op.fn.signature.name) {
+                "not" -> when (val value = args.single().booleanLiteral()) {
+                    null -> rex
+                    else -> bool(!value)
+                }
+                "and" -> foldJunction(rex, args, dominant = false)
+                "or" -> foldJunction(rex, args, dominant = true)
+                else -> rex
+            }
+        }
+
+        /**
+         * Folds an `AND` (if [dominant] is `false`) or an `OR` (if [dominant] is `true`), whose result is [dominant] if
+         * either operand is [dominant], and the other operand if one operand is `!dominant`.
+         */
+        private fun foldJunction(rex: Rex, args: List<Rex>, dominant: Boolean): Rex {
+            if (args.size != 2) {
+                return rex
+            }
+            val (lhs, rhs) = args
+            val lhsValue = lhs.booleanLiteral()
+            val rhsValue = rhs.booleanLiteral()
+            return when {
+                // The discarded operand would have been evaluated, thus it must not raise an error.
+                lhsValue == dominant && rhs.isInfallible() -> bool(dominant)
+                rhsValue == dominant && lhs.isInfallible() -> bool(dominant)
+                // `TRUE AND NULL` is `NULL`, hence the other operand must be a non-null boolean.
+                lhsValue == !dominant && rhs.type == StaticType.BOOL -> rhs
+                rhsValue == !dominant && lhs.type == StaticType.BOOL -> lhs
+                else -> rex
+            }
+        }
+
+        private fun foldCase(rex: Rex, op: Rex.Op.Case): Rex {
+            // A condition which is not `TRUE` does not select its branch.
+            val branches = op.branches.filterNot {
+                it.condition.isUnknownLiteral() || it.condition.booleanLiteral() == false
+            }
+            val first = branches.firstOrNull() ?: return op.default
+            if (first.condition.booleanLiteral() == true) {
+                return first.rex
+            }
+            val selected = branches.indexOfFirst { it.condition.booleanLiteral() == true }
+            return when {
+                selected >= 0 -> Rex(rex.type, Rex.Op.Case(branches.subList(0, selected), branches[selected].rex))
+                branches.size != op.branches.size -> Rex(rex.type, Rex.Op.Case(branches, op.default))
+                else -> rex
+            }
+        }
+
+        private fun foldCoalesce(rex: Rex, op: Rex.Op.Coalesce): Rex {
+            val args = op.args.dropWhile { it.isUnknownLiteral() }
+            return when {
+                // All arguments are `NULL` or `MISSING`.
+                args.isEmpty() -> rex
+                args.first().op is Rex.Op.Lit -> args.first()
+                args.size != op.args.size -> Rex(rex.type, Rex.Op.Coalesce(args))
+                else -> rex
+            }
+        }
+
+        /** Returns the value of a non-null boolean literal, or `null` if the receiver is not one. */
+        private fun Rex.booleanLiteral(): Boolean? = ((op as? Rex.Op.Lit)?.value as? BoolValue)?.value
+
+        /**
+         * True if the receiver cannot raise an error in any typing mode: a literal, a variable, or a path whose keys
+         * are literals, since navigating into a value that has no such field or element returns `MISSING`.
+         */
+        private fun Rex.isInfallible(): Boolean = when (val op = op) {
+            is Rex.Op.Lit, is Rex.Op.Var -> true
+            is Rex.Op.Path.Symbol -> op.root.isInfallible()
+            is Rex.Op.Path.Key -> op.root.isInfallible() && op.key.op is Rex.Op.Lit
+            is Rex.Op.Path.Index -> op.root.isInfallible() && op.key.op is Rex.Op.Lit
+            else -> false
+        }
+
+        /** True if the receiver is a `NULL` or `MISSING` literal. */
+        private fun Rex.isUnknownLiteral(): Boolean {
+            val value = (op as? Rex.Op.Lit)?.value ?: return false
+            return value.isNull || value is MissingValue
+        }
+
+        private fun bool(value: Boolean) = Rex(StaticType.BOOL, Rex.Op.Lit(boolValue(value)))
+    }
+}
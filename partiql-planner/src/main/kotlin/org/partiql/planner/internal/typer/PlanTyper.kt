@@ -124,10 +124,6 @@ internal class PlanTyper(
         return statementQuery(root)
     }
 
-    private companion object {
-        private val FUNCTIONS_HANDLING_MISSING = setOf<String>("is_null", "is_missing", "eq", "and", "or", "not")
-    }
-
     /**
      * Types the relational operators of a query expression.
      *
@@ -627,13 +623,8 @@ internal class PlanTyper(
                 val op = it.op as? Rex.Op.Lit ?: return@any false
                 op.value is MissingValue
             }
-            if (argAlwaysMissing) {
-                // TODO: The V1 branch has support for isMissable and isMissingCall. This codebase, however, does not
-                //  have support for these concepts yet. This specific commit (see Git blame) does not seek to add this
-                //  functionality. Below is a work-around for the lack of "isMissable" and "isMissingCall"
-                if (match.signature.name !in FUNCTIONS_HANDLING_MISSING) {
-                    handleAlwaysMissing()
-                }
+            if (argAlwaysMissing && match.signature.isMissingCall) {
+                handleAlwaysMissing()
             }
 
             // TODO we have to pull out decimal type parameters here because V0 drops the type in CAST.
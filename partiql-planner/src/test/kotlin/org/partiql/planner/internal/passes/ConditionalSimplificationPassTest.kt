@@ -0,0 +1,90 @@
+package org.partiql.planner.internal.passes
+
+import org.junit.jupiter.params.ParameterizedTest
+import org.junit.jupiter.params.provider.MethodSource
+import org.partiql.parser.PartiQLParser
+import org.partiql.plan.PartiQLPlan
+import org.partiql.plan.debug.PlanPrinter
+import org.partiql.planner.PartiQLPlanner
+import org.partiql.planner.PartiQLPlannerBuilder
+import org.partiql.planner.PartiQLPlannerPasses
+import org.partiql.planner.util.PlanNodeEquivalentVisitor
+import org.partiql.planner.util.ProblemCollector
+import org.partiql.plugins.memory.MemoryConnector
+import org.partiql.types.BagType
+import org.partiql.types.StaticType
+import org.partiql.types.StructType
+import org.partiql.types.TupleConstraint
+import java.time.Instant
+
+class ConditionalSimplificationPassTest {
+
+    /** The plan of [input] with the pass must be equivalent to the plan of [expected] without it. */
+    data class Case(val input: String, val expected: String)
+
+    @ParameterizedTest
+    @MethodSource("cases")
+    fun conditionalSimplification(case: Case) {
+        val planner = PartiQLPlannerBuilder().addPass(PartiQLPlannerPasses.conditionalSimplification()).build()
+        val actual = plan(case.input, planner)
+        val expected = plan(case.expected, PartiQLPlannerBuilder().build())
+        assert(PlanNodeEquivalentVisitor().visit(actual, expected)) {
+            buildString {
+                this.appendLine("expect plan equivalence")
+                PlanPrinter.append(this, actual)
+                PlanPrinter.append(this, expected)
+            }
+        }
+    }
+
+    private fun plan(query: String, planner: PartiQLPlanner): PartiQLPlan {
+        val ast = PartiQLParser.default().parse(query).root
+        return planner.plan(ast, session, ProblemCollector()).plan
+    }
+
+    private val metadata = MemoryConnector.Metadata.of(
+        "default.t" to BagType(
+            StructType(
+                listOf(
+                    StructType.Field("a", StaticType.BOOL),
+                    StructType.Field("b", StaticType.INT4),
+                ),
+                contentClosed = true,
+                emptyList(),
+                setOf(TupleConstraint.Open(false)),
+                emptyMap()
+            )
+        )
+    )
+
+    private val session = PartiQLPlanner.Session(
+        queryId = "conditional_simplification",
+        userId = "user_id",
+        currentCatalog = "default",
+        currentDirectory = listOf(),
+        catalogs = mapOf("default" to metadata),
+        instant = Instant.now(),
+    )
+
+    companion object {
+        @JvmStatic
+        fun cases() = listOf(
+            Case("SELECT t.b FROM t WHERE TRUE AND t.a", "SELECT t.b FROM t WHERE t.a"),
+            Case("SELECT t.b FROM t WHERE t.a OR FALSE", "SELECT t.b FROM t WHERE t.a"),
+            Case("SELECT t.b FROM t WHERE t.a OR TRUE", "SELECT t.b FROM t WHERE TRUE"),
+            Case("SELECT t.b FROM t WHERE FALSE AND t.a", "SELECT t.b FROM t WHERE FALSE"),
+            Case("SELECT t.b FROM t WHERE NOT FALSE AND t.a", "SELECT t.b FROM t WHERE t.a"),
+            Case(
+                "SELECT t.b FROM t " +
+                    "WHERE CASE WHEN FALSE THEN t.a WHEN NULL THEN t.a WHEN TRUE THEN NOT t.a ELSE t.a END",
+                "SELECT t.b FROM t WHERE NOT t.a"
+            ),
+            Case("SELECT t.b FROM t WHERE COALESCE(NULL, MISSING, TRUE, t.a)", "SELECT t.b FROM t WHERE TRUE"),
+            // Not a literal: left unchanged.
+            Case("SELECT t.b FROM t WHERE t.a AND t.b > 1", "SELECT t.b FROM t WHERE t.a AND t.b > 1"),
+            // The other operand may raise an error, thus is still evaluated.
+            Case("SELECT t.b FROM t WHERE 1 / t.b > 0 OR TRUE", "SELECT t.b FROM t WHERE 1 / t.b > 0 OR TRUE"),
+            Case("SELECT t.b FROM t WHERE FALSE AND 1 / t.b > 0", "SELECT t.b FROM t WHERE FALSE AND 1 / t.b > 0"),
+        )
+    }
+}
@@ -30,6 +30,15 @@ public interface Connector {
      */
     public fun getMetadata(session: ConnectorSession): ConnectorMetadata
 
+    /**
+     * Returns a [ConnectorRecordSource] for the given [ConnectorSession]. The [ConnectorRecordSource] is responsible
+     * for reading the records of the catalog's objects. Connectors which only provide catalog metadata return null.
+     *
+     * @param session
+     * @return
+     */
+    public fun getRecordSource(session: ConnectorSession): ConnectorRecordSource? = null
+
     /**
      * A Plugin leverages a [Factory] to produce a [Connector] which is used for catalog metadata and data access.
      */
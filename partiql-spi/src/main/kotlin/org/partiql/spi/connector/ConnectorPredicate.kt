@@ -0,0 +1,158 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates.  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License").
+ *  You may not use this file except in compliance with the License.
+ *  A copy of the License is located at:
+ *
+ *       http://aws.amazon.com/apache2.0/
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific
+ *  language governing permissions and limitations under the License.
+ */
+
+
+package org.partiql.spi.connector
+
+import org.partiql.spi.BindingName
+import org.partiql.value.BoolValue
+import org.partiql.value.CharValue
+import org.partiql.value.DecimalValue
+import org.partiql.value.Float32Value
+import org.partiql.value.Float64Value
+import org.partiql.value.Int16Value
+import org.partiql.value.Int32Value
+import org.partiql.value.Int64Value
+import org.partiql.value.Int8Value
+import org.partiql.value.IntValue
+import org.partiql.value.NumericValue
+import org.partiql.value.PartiQLValue
+import org.partiql.value.PartiQLValueExperimental
+import org.partiql.value.StringValue
+import org.partiql.value.StructValue
+import org.partiql.value.SymbolValue
+import java.math.BigDecimal
+
+/**
+ * A predicate on the records of an object, which the engine pushes down to a [ConnectorRecordSource] through a
+ * [ConnectorScan]: a comparison between a field of the records and a value, or a conjunction of predicates.
+ */
+@OptIn(PartiQLValueExperimental::class)
+public sealed interface ConnectorPredicate {
+
+    /**
+     * Evaluates this predicate on [record].  Returns true or false if the record satisfies this predicate or not, or null
+     * if it cannot be determined here (e.g. a comparison of values of different types, other than numbers), in which
+     * case the record must be kept.
+     */
+    public fun test(record: PartiQLValue): Boolean?
+
+    /**
+     * `<field> <operator> <value>`, where the field is a field of the records, which are structs.  A comparison with
+     * a `NULL` or `MISSING` operand is not satisfied.
+     */
+    public class Comparison(
+        public val field: BindingName,
+        public val operator: Operator,
+        public val value: PartiQLValue,
+    ) : ConnectorPredicate {
+
+        override fun test(record: PartiQLValue): Boolean? {
+            if (record !is StructValue<*> || record.isNull) {
+                return false
+            }
+            // Looks up the matching fields by name, such that records which decode their values lazily only decode them.
+            val matches = record.fields.filter { field.isEquivalentTo(it) }.distinct().flatMap { record.getAll(it) }
+            val actual = when (matches.size) {
+                0 -> return false
+                1 -> matches.single()
+                // An ambiguous field is reported by the engine.
+                else -> return null
+            }
+            if (actual.isNull || value.isNull) {
+                return false
+            }
+            val cmp = compare(actual, value) ?: return null
+            return when (operator) {
+                Operator.EQ -> cmp == 0
+                Operator.NE -> cmp != 0
+                Operator.LT -> cmp < 0
+                Operator.LE -> cmp <= 0
+                Operator.GT -> cmp > 0
+                Operator.GE -> cmp >= 0
+            }
+        }
+
+        override fun toString(): String = "${field.name} $operator $value"
+    }
+
+    /**
+     * The conjunction of [predicates].
+     */
+    public class And(public val predicates: List<ConnectorPredicate>) : ConnectorPredicate {
+
+        override fun test(record: PartiQLValue): Boolean? {
+            var result: Boolean? = true
+            for (predicate in predicates) {
+                when (predicate.test(record)) {
+                    false -> return false
+                    null -> result = null
+                    true -> {}
+                }
+            }
+            return result
+        }
+
+        override fun toString(): String = predicates.joinToString(" AND ", "(", ")")
+    }
+
+    public enum class Operator {
+        EQ,
+        NE,
+        LT,
+        LE,
+        GT,
+        GE,
+    }
+}
+
+/**
+ * Compares two non-null values of the same kind: numbers, strings or booleans.  Returns null for other values.
+ */
+@OptIn(PartiQLValueExperimental::class)
+private fun compare(lhs: PartiQLValue, rhs: PartiQLValue): Int? = when {
+    lhs is NumericValue<*> && rhs is NumericValue<*> -> when {
+        lhs.isApproximate() || rhs.isApproximate() -> {
+            val l = lhs.double!!
+            val r = rhs.double!!
+            if (l.isNaN() || r.isNaN()) null else l.compareTo(r)
+        }
+        else -> lhs.toBigDecimal()?.compareTo(rhs.toBigDecimal() ?: return null)
+    }
+    lhs.isString() && rhs.isString() -> lhs.stringValue().compareTo(rhs.stringValue())
+    lhs is BoolValue && rhs is BoolValue -> lhs.value!!.compareTo(rhs.value!!)
+    else -> null
+}
+
+@OptIn(PartiQLValueExperimental::class)
+private fun NumericValue<*>.isApproximate() = this is Float32Value || this is Float64Value
+
+@OptIn(PartiQLValueExperimental::class)
+private fun NumericValue<*>.toBigDecimal(): BigDecimal? = when (this) {
+    is Int8Value, is Int16Value, is Int32Value, is Int64Value -> BigDecimal.valueOf(long!!)
+    is IntValue -> value?.toBigDecimal()
+    is DecimalValue -> value
+    else -> null
+}
+
+@OptIn(PartiQLValueExperimental::class)
+private fun PartiQLValue.isString() = this is StringValue || this is SymbolValue || this is CharValue
+
+@OptIn(PartiQLValueExperimental::class)
+private fun PartiQLValue.stringValue(): String = when (this) {
+    is StringValue -> value!!
+    is SymbolValue -> value!!
+    is CharValue -> value!!.toString()
+    else -> error("Not a string: $this")
+}
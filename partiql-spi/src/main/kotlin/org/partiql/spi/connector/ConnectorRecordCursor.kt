@@ -0,0 +1,40 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates.  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License").
+ *  You may not use this file except in compliance with the License.
+ *  A copy of the License is located at:
+ *
+ *       http://aws.amazon.com/apache2.0/
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific
+ *  language governing permissions and limitations under the License.
+ */
+
+
+package org.partiql.spi.connector
+
+import org.partiql.value.PartiQLValue
+import org.partiql.value.PartiQLValueExperimental
+
+/**
+ * An iterator over the records of a [ConnectorSplit]. It must be closed once the records are no longer needed, such
+ * that the connector can release the underlying resources (e.g. files).
+ */
+@OptIn(PartiQLValueExperimental::class)
+public interface ConnectorRecordCursor : Iterator<PartiQLValue>, AutoCloseable {
+
+    public companion object {
+
+        /**
+         * Returns a cursor over [records], which calls [onClose] when it is closed.
+         */
+        @JvmStatic
+        @JvmOverloads
+        public fun of(records: Iterator<PartiQLValue>, onClose: () -> Unit = {}): ConnectorRecordCursor =
+            object : ConnectorRecordCursor, Iterator<PartiQLValue> by records {
+                override fun close() = onClose()
+            }
+    }
+}
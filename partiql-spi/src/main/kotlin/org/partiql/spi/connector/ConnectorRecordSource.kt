@@ -0,0 +1,52 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates.  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License").
+ *  You may not use this file except in compliance with the License.
+ *  A copy of the License is located at:
+ *
+ *       http://aws.amazon.com/apache2.0/
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific
+ *  language governing permissions and limitations under the License.
+ */
+
+
+package org.partiql.spi.connector
+
+/**
+ * Gives access to the records of a catalog's objects, such that the engine reads an object while a query is evaluated,
+ * rather than requiring every object to be loaded into memory beforehand.
+ *
+ * The records of an object are its items if it is a collection (e.g. the rows of a table), or the object itself
+ * otherwise.  They are read split by split, see [getSplits].
+ */
+public interface ConnectorRecordSource {
+
+    /**
+     * Returns the splits of the object [handle], in the order of its records.  The engine may read them in parallel,
+     * thus a connector should return more than one split for large objects, if it can.
+     *
+     * @param session
+     * @param handle
+     * @return
+     */
+    public fun getSplits(session: ConnectorSession, handle: ConnectorObjectHandle): List<ConnectorSplit>
+
+    /**
+     * Returns a cursor over the records of [split], which the caller must close.
+     *
+     * The [scan] describes the parts of the records that the query uses.  It is only a hint, see [ConnectorScan].
+     *
+     * @param session
+     * @param split
+     * @param scan
+     * @return
+     */
+    public fun getRecords(
+        session: ConnectorSession,
+        split: ConnectorSplit,
+        scan: ConnectorScan = ConnectorScan.ALL,
+    ): ConnectorRecordCursor
+}
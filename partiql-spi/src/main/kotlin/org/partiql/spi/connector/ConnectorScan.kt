@@ -0,0 +1,108 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates.  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License").
+ *  You may not use this file except in compliance with the License.
+ *  A copy of the License is located at:
+ *
+ *       http://aws.amazon.com/apache2.0/
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific
+ *  language governing permissions and limitations under the License.
+ */
+
+
+package org.partiql.spi.connector
+
+import org.partiql.spi.BindingName
+import org.partiql.value.PartiQLValue
+import org.partiql.value.PartiQLValueExperimental
+import org.partiql.value.StructValue
+import org.partiql.value.structValue
+
+/**
+ * Describes which parts of an object's records a query uses, such that a [ConnectorRecordSource] can avoid reading or
+ * producing the others.
+ *
+ * These are hints: the engine still projects, filters and limits the records it receives, thus a connector may ignore
+ * any of them.  However, [limit] applies to the records which satisfy [predicate], so a connector must not apply the
+ * limit unless it also applies the whole predicate.
+ *
+ * @property columns    The fields of the records (structs) that the query uses, or null if it may use any field.
+ * @property predicate  A predicate which the records must satisfy, or null.
+ * @property limit      The maximum number of records of each split that the query needs, or null.
+ */
+public class ConnectorScan(
+    public val columns: List<BindingName>? = null,
+    public val predicate: ConnectorPredicate? = null,
+    public val limit: Long? = null,
+) {
+
+    init {
+        require(limit == null || limit >= 0) { "limit must not be negative" }
+    }
+
+    /**
+     * Applies this scan to [records], for connectors which hold or read whole records: drops the records which do not
+     * satisfy [predicate], stops once [limit] records are known to satisfy it, and removes the fields which are not in
+     * [columns].  The records for which the predicate cannot be determined are kept.
+     */
+    @PartiQLValueExperimental
+    public fun apply(records: Sequence<PartiQLValue>): Sequence<PartiQLValue> {
+        val filtered = filter(records)
+        return when (columns) {
+            null -> filtered
+            else -> filtered.map { project(it) }
+        }
+    }
+
+    /**
+     * Drops the [records] which do not satisfy [predicate], and stops once [limit] records are known to satisfy it.  The
+     * records for which the predicate cannot be determined are kept.
+     */
+    @PartiQLValueExperimental
+    public fun filter(records: Sequence<PartiQLValue>): Sequence<PartiQLValue> = when {
+        predicate == null && limit == null -> records
+        else -> sequence {
+            var matches = 0L
+            if (limit == 0L) {
+                return@sequence
+            }
+            for (record in records) {
+                val satisfies = if (predicate != null) predicate.test(record) else true
+                when (satisfies) {
+                    false -> continue
+                    true -> matches++
+                    // Kept for the engine to evaluate the predicate, thus it does not count towards the limit.
+                    null -> {}
+                }
+                yield(record)
+                if (limit != null && matches >= limit) {
+                    break
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes the fields of [record] which are not in [columns], if it is a struct.
+     */
+    @PartiQLValueExperimental
+    public fun project(record: PartiQLValue): PartiQLValue = when {
+        columns != null && record is StructValue<*> && !record.isNull -> structValue(
+            record.entries.filter { (name, _) -> columns.any { it.isEquivalentTo(name) } },
+            record.annotations
+        )
+        else -> record
+    }
+
+    public companion object {
+
+        /**
+         * Reads all fields of all records.
+         */
+        @JvmField
+        public val ALL: ConnectorScan = ConnectorScan()
+    }
+}
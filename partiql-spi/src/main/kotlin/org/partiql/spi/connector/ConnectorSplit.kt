@@ -0,0 +1,30 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates.  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License").
+ *  You may not use this file except in compliance with the License.
+ *  A copy of the License is located at:
+ *
+ *       http://aws.amazon.com/apache2.0/
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific
+ *  language governing permissions and limitations under the License.
+ */
+
+
+package org.partiql.spi.connector
+
+/**
+ * A part of an object's records which can be read independently of the other parts, e.g. a file or a range of rows.
+ * The splits of an object are disjoint and together contain all of its records, thus they may be read in parallel.
+ *
+ * Like a [ConnectorObject], a split holds whatever its [ConnectorRecordSource] needs to read it.
+ */
+public interface ConnectorSplit {
+
+    /**
+     * The object this split is part of.
+     */
+    public val handle: ConnectorObjectHandle
+}
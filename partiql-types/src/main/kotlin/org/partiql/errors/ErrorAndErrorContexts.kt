@@ -70,7 +70,8 @@ public enum class Property(public val propertyName: String, public val propertyT
     INT_SIZE_IN_BYTES("INT_SIZE", PropertyType.INTEGER_CLASS),
     EXPECTED_STATIC_TYPE("EXPECTED_STATIC_TYPE", PropertyType.STRING_CLASS),
     CONSTANT("CONSTANT", PropertyType.STRING_CLASS),
-    MESSAGE("MESSAGE", PropertyType.STRING_CLASS)
+    MESSAGE("MESSAGE", PropertyType.STRING_CLASS),
+    MEMORY_BUDGET("memory_budget", PropertyType.LONG_CLASS)
 }
 
 /**
@@ -708,6 +708,15 @@ public enum class ErrorCode(
         ErrorBehaviorInPermissiveMode.RETURN_MISSING
     ),
 
+    EVALUATOR_MEMORY_BUDGET_EXCEEDED(
+        ErrorCategory.EVALUATOR,
+        LOCATION + setOf(Property.MEMORY_BUDGET),
+        ""
+    ) {
+        override fun getErrorMessage(errorContext: PropertyValueMap?): String =
+            "Query exceeded its memory budget of ${errorContext.getProperty(Property.MEMORY_BUDGET)} bytes"
+    },
+
     SEMANTIC_NON_TEXT_STRUCT_FIELD_KEY(
         ErrorCategory.SEMANTIC,
         LOCATION + setOf(Property.ACTUAL_TYPE),
@@ -47,6 +47,9 @@ public sealed class FunctionSignature(
      *
      * @property isDeterministic    Flag indicating this function always produces the same output given the same input.
      * @property isNullCall         Flag indicating if any of the call arguments is NULL, then return NULL.
+     * @property isMissingCall      Flag indicating if any of the call arguments is MISSING, then return MISSING,
+     *                              unless the parameter is typed ANY or MISSING. Otherwise, the function handles
+     *                              MISSING itself.
      * @constructor
      */
     public class Scalar(
@@ -57,8 +60,22 @@ public sealed class FunctionSignature(
         isNullable: Boolean = true,
         @JvmField public val isDeterministic: Boolean = true,
         @JvmField public val isNullCall: Boolean = false,
+        @JvmField public val isMissingCall: Boolean = true,
     ) : FunctionSignature(name, returns, parameters, description, isNullable) {
 
+        /**
+         * The constructor of the signatures which predate [isMissingCall], kept for binary compatibility.
+         */
+        public constructor(
+            name: String,
+            returns: PartiQLValueType,
+            parameters: List<FunctionParameter>,
+            description: String?,
+            isNullable: Boolean,
+            isDeterministic: Boolean,
+            isNullCall: Boolean,
+        ) : this(name, returns, parameters, description, isNullable, isDeterministic, isNullCall, isMissingCall = true)
+
         override fun equals(other: Any?): Boolean {
             if (other !is Scalar) return false
             if (
@@ -67,6 +84,7 @@ public sealed class FunctionSignature(
                 other.parameters.size != parameters.size ||
                 other.isDeterministic != isDeterministic ||
                 other.isNullCall != isNullCall ||
+                other.isMissingCall != isMissingCall ||
                 other.isNullable != isNullable
             ) {
                 return false
@@ -86,6 +104,7 @@ public sealed class FunctionSignature(
             result = 31 * result + parameters.hashCode()
             result = 31 * result + isDeterministic.hashCode()
             result = 31 * result + isNullCall.hashCode()
+            result = 31 * result + isMissingCall.hashCode()
             result = 31 * result + isNullable.hashCode()
             result = 31 * result + (description?.hashCode() ?: 0)
             return result
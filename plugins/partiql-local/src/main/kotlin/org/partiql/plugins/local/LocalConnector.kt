@@ -20,6 +20,7 @@ import org.partiql.spi.connector.Connector
 import org.partiql.spi.connector.ConnectorMetadata
 import org.partiql.spi.connector.ConnectorObjectHandle
 import org.partiql.spi.connector.ConnectorObjectPath
+import org.partiql.spi.connector.ConnectorRecordSource
 import org.partiql.spi.connector.ConnectorSession
 import org.partiql.types.StaticType
 import java.nio.file.Path
@@ -30,11 +31,13 @@ import kotlin.io.path.notExists
  * An implementation of a PartiQL [Connector] backed by a catalog in a local directory.
  *
  * Set to the "root" key to specify the root of the local database.
+ * Set to the optional "data" key to specify the root of the records of the database, see [LocalRecordSource].
  *
  * ```ion
  * {
  *   connector_name: "local",
- *   root: "/Users/me/some/root/directory"
+ *   root: "/Users/me/some/root/directory",
+ *   data: "/Users/me/some/data/directory"
  * }
  * ```
  *
@@ -51,15 +54,20 @@ class LocalConnector(
     companion object {
         const val CONNECTOR_NAME = "local"
         const val ROOT_KEY = "root"
+        const val DATA_KEY = "data"
     }
 
     private val metadata = Metadata(catalogRoot)
 
+    private val recordSource = config.getOptional(DATA_KEY)?.stringValueOrNull?.let { LocalRecordSource(Paths.get(it)) }
+
     // not yet defined in SPI
     public fun listObjects(): List<BindingPath> = metadata.listObjects()
 
     override fun getMetadata(session: ConnectorSession): ConnectorMetadata = metadata
 
+    override fun getRecordSource(session: ConnectorSession): ConnectorRecordSource? = recordSource
+
     class Factory : Connector.Factory {
 
         private val default: Path = Paths.get(System.getProperty("user.home")).resolve(".partiql/local")
@@ -0,0 +1,81 @@
+/*
+ * Copyright Amazon.com, Inc. or its affiliates.  All rights reserved.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License").
+ *  You may not use this file except in compliance with the License.
+ *  A copy of the License is located at:
+ *
+ *       http://aws.amazon.com/apache2.0/
+ *
+ *  or in the "license" file accompanying this file. This file is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the License for the specific
+ *  language governing permissions and limitations under the License.
+ */
+
+
+package org.partiql.plugins.local
+
+import org.partiql.spi.connector.ConnectorObjectHandle
+import org.partiql.spi.connector.ConnectorRecordCursor
+import org.partiql.spi.connector.ConnectorRecordSource
+import org.partiql.spi.connector.ConnectorScan
+import org.partiql.spi.connector.ConnectorSession
+import org.partiql.spi.connector.ConnectorSplit
+import org.partiql.value.PartiQLValue
+import org.partiql.value.PartiQLValueExperimental
+import org.partiql.value.io.PartiQLValueIonReaderBuilder
+import org.partiql.value.io.PartiQLValueReader
+import java.io.IOException
+import java.nio.file.Path
+import kotlin.io.path.inputStream
+import kotlin.io.path.isDirectory
+import kotlin.io.path.isRegularFile
+import kotlin.io.path.listDirectoryEntries
+
+/**
+ * Reads the records of the objects of a [LocalConnector] from Ion files in a directory which mirrors the catalog.
+ *
+ * The records of the object `a.b.c` are the top-level values of the file `<root>/a/b/c.ion`, or of the `.ion` files
+ * in the directory `<root>/a/b/c/`, ordered by name.  Each file is a split, and it is read as its records are consumed.
+ *
+ * @property root   Records root path
+ */
+class LocalRecordSource(private val root: Path) : ConnectorRecordSource {
+
+    override fun getSplits(session: ConnectorSession, handle: ConnectorObjectHandle): List<ConnectorSplit> {
+        val obj = handle.value as LocalObject
+        val base = obj.path.fold(root) { dir, step -> dir.resolve(step) }
+        val files = when {
+            base.isDirectory() -> base.listDirectoryEntries("*.ion").filter { it.isRegularFile() }.sorted()
+            else -> listOf(base.resolveSibling("${base.fileName}.ion")).filter { it.isRegularFile() }
+        }
+        return files.map { Split(handle, it) }
+    }
+
+    @OptIn(PartiQLValueExperimental::class)
+    override fun getRecords(session: ConnectorSession, split: ConnectorSplit, scan: ConnectorScan): ConnectorRecordCursor {
+        val file = (split as Split).file
+        val reader = PartiQLValueIonReaderBuilder.standard().build(file.inputStream().buffered())
+        val records = generateSequence { reader.readOrNull() }
+        return ConnectorRecordCursor.of(scan.apply(records).iterator()) { reader.close() }
+    }
+
+    /**
+     * Returns the next value, or null at the end of the file.
+     */
+    @OptIn(PartiQLValueExperimental::class)
+    private fun PartiQLValueReader.readOrNull(): PartiQLValue? = try {
+        read()
+    } catch (e: IOException) {
+        // Errors of the underlying Ion reader are IonExceptions, thus an IOException signals the end of the file.
+        null
+    }
+
+    /**
+     * An Ion file containing records of an object.
+     */
+    class Split(
+        override val handle: ConnectorObjectHandle,
+        val file: Path,
+    ) : ConnectorSplit
+}
@@ -0,0 +1,90 @@
+package org.partiql.plugins.local
+
+import com.amazon.ionelement.api.ionString
+import com.amazon.ionelement.api.ionStructOf
+import org.junit.jupiter.api.Test
+import org.partiql.spi.BindingCase
+import org.partiql.spi.BindingName
+import org.partiql.spi.BindingPath
+import org.partiql.spi.connector.ConnectorPredicate
+import org.partiql.spi.connector.ConnectorScan
+import org.partiql.spi.connector.ConnectorSession
+import org.partiql.value.NumericValue
+import org.partiql.value.PartiQLValue
+import org.partiql.value.PartiQLValueExperimental
+import org.partiql.value.StructValue
+import org.partiql.value.stringValue
+import java.nio.file.Paths
+import kotlin.test.assertEquals
+import kotlin.test.assertNull
+
+@OptIn(PartiQLValueExperimental::class)
+class LocalRecordSourceTests {
+
+    private val catalogUrl =
+        LocalRecordSourceTests::class.java.classLoader.getResource("catalogs/local") ?: error("Couldn't be found")
+    private val recordsUrl =
+        LocalRecordSourceTests::class.java.classLoader.getResource("records/local") ?: error("Couldn't be found")
+    private val session = object : ConnectorSession {
+        override fun getQueryId(): String = "mock_query_id"
+        override fun getUserId(): String = "mock_user"
+    }
+
+    private val connector = LocalConnector.Factory().create(
+        "local",
+        ionStructOf(
+            LocalConnector.ROOT_KEY to ionString(Paths.get(catalogUrl.path).toString()),
+            LocalConnector.DATA_KEY to ionString(Paths.get(recordsUrl.path).toString()),
+        )
+    )
+
+    private fun read(vararg path: String, scan: ConnectorScan = ConnectorScan.ALL): List<List<PartiQLValue>> {
+        val handle = connector.getMetadata(session).getObjectHandle(
+            session,
+            BindingPath(path.map { BindingName(it, BindingCase.INSENSITIVE) })
+        )!!
+        val source = connector.getRecordSource(session)!!
+        return source.getSplits(session, handle).map { split ->
+            source.getRecords(session, split, scan).use { it.asSequence().toList() }
+        }
+    }
+
+    private fun PartiQLValue.id() = ((this as StructValue<*>)["id"] as NumericValue<*>).long
+
+    @Test
+    fun readSplits() {
+        // One split per file of the object's directory
+        val splits = read("data", "records")
+        assertEquals(listOf(listOf(1L, 2L), listOf(3L)), splits.map { split -> split.map { it.id() } })
+    }
+
+    @Test
+    fun readFile() {
+        val splits = read("data", "struct")
+        assertEquals(listOf(listOf(1L)), splits.map { split -> split.map { it.id() } })
+    }
+
+    @Test
+    fun readWithScan() {
+        val scan = ConnectorScan(
+            columns = listOf(BindingName("id", BindingCase.INSENSITIVE)),
+            predicate = ConnectorPredicate.Comparison(
+                BindingName("path", BindingCase.INSENSITIVE),
+                ConnectorPredicate.Operator.NE,
+                stringValue("a")
+            ),
+        )
+        val records = read("data", "records", scan = scan).flatten()
+        assertEquals(listOf(2L, 3L), records.map { it.id() })
+        assertEquals(listOf(listOf("id"), listOf("id")), records.map { (it as StructValue<*>).fields.toList() })
+    }
+
+    @Test
+    fun noRecords() {
+        val metadataOnly = LocalConnector.Factory().create(
+            "local",
+            ionStructOf(LocalConnector.ROOT_KEY to ionString(Paths.get(catalogUrl.path).toString()))
+        )
+        assertNull(metadataOnly.getRecordSource(session))
+    }
+}
@@ -0,0 +1,139 @@
+package org.partiql.plugins.memory
+
+import org.partiql.value.PartiQLValue
+import org.partiql.value.PartiQLValueExperimental
+import org.partiql.value.PartiQLValueType
+import org.partiql.value.boolValue
+import org.partiql.value.float32Value
+import org.partiql.value.float64Value
+import org.partiql.value.int16Value
+import org.partiql.value.int32Value
+import org.partiql.value.int64Value
+import org.partiql.value.int8Value
+import org.partiql.value.intValue
+import org.partiql.value.nullValue
+import org.partiql.value.stringValue
+import org.partiql.value.symbolValue
+import java.math.BigInteger
+import java.util.BitSet
+
+/**
+ * The values of a field for every row of a [ColumnarTable].
+ *
+ * @property present    The rows which have the field, i.e. the field is MISSING for the other rows
+ * @property nulls      The rows for which the field is (an untyped) NULL
+ */
+@OptIn(PartiQLValueExperimental::class)
+internal sealed class Column(
+    private val present: BitSet,
+    private val nulls: BitSet,
+) {
+
+    fun isPresent(row: Int): Boolean = present[row]
+
+    /**
+     * Returns the value of [row], or null if the field is MISSING.
+     */
+    fun get(row: Int): PartiQLValue? = when {
+        !present[row] -> null
+        nulls[row] -> nullValue()
+        else -> valueAt(row)
+    }
+
+    /**
+     * Returns the value of a row which is neither MISSING nor NULL.
+     */
+    protected abstract fun valueAt(row: Int): PartiQLValue
+
+    /**
+     * Integers which fit in a long, of the same [type].
+     */
+    class Longs(
+        present: BitSet,
+        nulls: BitSet,
+        private val type: PartiQLValueType,
+        private val values: LongArray,
+    ) : Column(present, nulls) {
+
+        override fun valueAt(row: Int): PartiQLValue {
+            val value = values[row]
+            return when (type) {
+                PartiQLValueType.INT8 -> int8Value(value.toByte())
+                PartiQLValueType.INT16 -> int16Value(value.toShort())
+                PartiQLValueType.INT32 -> int32Value(value.toInt())
+                PartiQLValueType.INT64 -> int64Value(value)
+                else -> intValue(BigInteger.valueOf(value))
+            }
+        }
+    }
+
+    /**
+     * Floating point numbers of the same [type].
+     */
+    class Doubles(
+        present: BitSet,
+        nulls: BitSet,
+        private val type: PartiQLValueType,
+        private val values: DoubleArray,
+    ) : Column(present, nulls) {
+
+        override fun valueAt(row: Int): PartiQLValue = when (type) {
+            PartiQLValueType.FLOAT32 -> float32Value(values[row].toFloat())
+            else -> float64Value(values[row])
+        }
+    }
+
+    class Bools(
+        present: BitSet,
+        nulls: BitSet,
+        private val values: BitSet,
+    ) : Column(present, nulls) {
+
+        override fun valueAt(row: Int): PartiQLValue = boolValue(values[row])
+    }
+
+    /**
+     * Strings (or symbols) of the same [type], dictionary-encoded: each row holds the index of its value in [dictionary].
+     */
+    class Strings(
+        present: BitSet,
+        nulls: BitSet,
+        private val type: PartiQLValueType,
+        private val dictionary: Array<String>,
+        private val codes: IntArray,
+    ) : Column(present, nulls) {
+
+        override fun valueAt(row: Int): PartiQLValue {
+            val value = dictionary[codes[row]]
+            return when (type) {
+                PartiQLValueType.SYMBOL -> symbolValue(value)
+                else -> stringValue(value)
+            }
+        }
+    }
+
+    /**
+     * Structs, whose fields are stored as the child [columns].  The values are [ColumnarStruct]s, which decode the fields
+     * when they are accessed.
+     */
+    class Structs(
+        present: BitSet,
+        nulls: BitSet,
+        val columns: Map<String, Column>,
+    ) : Column(present, nulls) {
+
+        override fun valueAt(row: Int): PartiQLValue = ColumnarStruct(this, row, columns.keys)
+    }
+
+    /**
+     * Values which have no columnar encoding, e.g. collections, annotated or typed NULL values, or a mix of types.
+     */
+    class Values(
+        present: BitSet,
+        nulls: BitSet,
+        private val values: Array<PartiQLValue?>,
+    ) : Column(present, nulls) {
+
+        override fun valueAt(row: Int): PartiQLValue = values[row]!!
+    }
+}
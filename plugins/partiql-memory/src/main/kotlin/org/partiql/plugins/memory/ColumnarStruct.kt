@@ -0,0 +1,56 @@
+package org.partiql.plugins.memory
+
+import org.partiql.value.PartiQLValue
+import org.partiql.value.PartiQLValueExperimental
+import org.partiql.value.StructValue
+import org.partiql.value.structValue
+import org.partiql.value.util.PartiQLValueVisitor
+
+/**
+ * A row of a [Column.Structs], which decodes its fields from the child columns only when they are accessed.
+ *
+ * @property column The column of the struct
+ * @property row    The row of the struct
+ * @property names  The fields of the column which are part of this struct, i.e. the projected fields
+ */
+@OptIn(PartiQLValueExperimental::class)
+internal class ColumnarStruct(
+    private val column: Column.Structs,
+    private val row: Int,
+    private val names: Set<String>,
+) : StructValue<PartiQLValue>() {
+
+    override val annotations: List<String> = emptyList()
+
+    override val isNull: Boolean = false
+
+    override val fields: Iterable<String>
+        get() = names.filter { column.columns.getValue(it).isPresent(row) }
+
+    override val values: Iterable<PartiQLValue>
+        get() = entries.map { it.second }
+
+    override val entries: Iterable<Pair<String, PartiQLValue>>
+        get() = names.mapNotNull { name -> column.columns.getValue(name).get(row)?.let { name to it } }
+
+    override fun get(key: String): PartiQLValue? = when (key) {
+        in names -> column.columns.getValue(key).get(row)
+        else -> null
+    }
+
+    override fun getAll(key: String): Iterable<PartiQLValue> = listOfNotNull(get(key))
+
+    /**
+     * Returns this struct restricted to the fields [names], without decoding any field.
+     */
+    fun select(names: Set<String>): ColumnarStruct = ColumnarStruct(column, row, names.filterTo(LinkedHashSet()) { it in this.names })
+
+    override fun copy(annotations: List<String>): StructValue<PartiQLValue> = structValue(entries, annotations)
+
+    override fun withAnnotations(annotations: List<String>): StructValue<PartiQLValue> =
+        structValue(entries, this.annotations + annotations)
+
+    override fun withoutAnnotations(): StructValue<PartiQLValue> = this
+
+    override fun <R, C> accept(visitor: PartiQLValueVisitor<R, C>, ctx: C): R = visitor.visitStruct(this, ctx)
+}
@@ -0,0 +1,242 @@
+package org.partiql.plugins.memory
+
+import org.partiql.value.BoolValue
+import org.partiql.value.Float32Value
+import org.partiql.value.Float64Value
+import org.partiql.value.Int16Value
+import org.partiql.value.Int32Value
+import org.partiql.value.Int64Value
+import org.partiql.value.Int8Value
+import org.partiql.value.IntValue
+import org.partiql.value.NullValue
+import org.partiql.value.NumericValue
+import org.partiql.value.PartiQLValue
+import org.partiql.value.PartiQLValueExperimental
+import org.partiql.value.PartiQLValueType
+import org.partiql.value.StringValue
+import org.partiql.value.StructValue
+import org.partiql.value.SymbolValue
+import org.partiql.value.TextValue
+import org.partiql.value.io.PartiQLValueIonReaderBuilder
+import org.partiql.value.io.PartiQLValueReader
+import java.io.IOException
+import java.io.InputStream
+import java.util.BitSet
+
+/**
+ * An in-memory table which stores its records (rows) by column, for a [MemoryConnector] to serve large objects without
+ * holding each record as a tree of values.
+ *
+ * The fields of the records are stored in columns of primitive arrays: integers (which fit in a long), floats and
+ * booleans as such, and strings as indexes into a dictionary of the distinct strings.  Bitmaps record which rows have
+ * the field (it is MISSING for the other rows) and which rows have a NULL value.  The fields of nested structs are
+ * stored as child columns.  The values without such an encoding, e.g. collections or a field whose type differs across
+ * rows, are stored as is.
+ *
+ * The rows are structs which decode their fields only when they are accessed.
+ *
+ * @property size The number of rows
+ */
+@OptIn(PartiQLValueExperimental::class)
+public class ColumnarTable private constructor(
+    private val root: Column,
+    public val size: Int,
+) {
+
+    /**
+     * Returns the row at [index].
+     */
+    public operator fun get(index: Int): PartiQLValue {
+        if (index < 0 || index >= size) {
+            throw IndexOutOfBoundsException("Row $index is out of bounds for a table of $size rows")
+        }
+        return root.get(index)!!
+    }
+
+    /**
+     * Returns the rows [from] (inclusive) [to] (exclusive).
+     */
+    @JvmOverloads
+    public fun rows(from: Int = 0, to: Int = size): Sequence<PartiQLValue> = (from until to).asSequence().map { get(it) }
+
+    /**
+     * The top-level fields of the rows, if the rows are structs.
+     */
+    internal val fields: Set<String>
+        get() = (root as? Column.Structs)?.columns?.keys ?: emptySet()
+
+    /**
+     * Builds a [ColumnarTable] by adding its rows one by one.
+     */
+    public class Builder {
+
+        private val root = ColumnBuilder()
+        private var size = 0
+
+        public fun add(row: PartiQLValue): Builder = this.apply {
+            root.append(size++, row)
+        }
+
+        public fun addAll(rows: Iterable<PartiQLValue>): Builder = this.apply {
+            rows.forEach { add(it) }
+        }
+
+        public fun build(): ColumnarTable = ColumnarTable(root.build(size), size)
+    }
+
+    public companion object {
+
+        @JvmStatic
+        public fun builder(): Builder = Builder()
+
+        @JvmStatic
+        public fun of(rows: Iterable<PartiQLValue>): ColumnarTable = Builder().addAll(rows).build()
+
+        /**
+         * Loads the top-level Ion values of [input] as the rows of a table.  The values are read one at a time, thus
+         * the rows are never all held as values.
+         */
+        @JvmStatic
+        public fun load(input: InputStream): ColumnarTable {
+            val builder = Builder()
+            PartiQLValueIonReaderBuilder.standard().build(input).use { reader ->
+                while (true) {
+                    builder.add(reader.readOrNull() ?: break)
+                }
+            }
+            return builder.build()
+        }
+
+        /**
+         * Returns the next value, or null at the end of the input.
+         */
+        private fun PartiQLValueReader.readOrNull(): PartiQLValue? = try {
+            read()
+        } catch (e: IOException) {
+            // Errors of the underlying Ion reader are IonExceptions, thus an IOException signals the end of the input.
+            null
+        }
+    }
+}
+
+/**
+ * Accumulates the values of a column, row by row.
+ *
+ * The encoding of a column is chosen by its first non-NULL value.  Once a value does not fit the encoding, e.g. a
+ * string after integers, the values accumulated so far are decoded and the column stores its values as is.
+ */
+@OptIn(PartiQLValueExperimental::class)
+private class ColumnBuilder {
+
+    private enum class Kind { LONGS, DOUBLES, BOOLS, STRINGS, STRUCTS, VALUES }
+
+    private var kind: Kind? = null
+    private var type: PartiQLValueType? = null
+
+    private val present = BitSet()
+    private val nulls = BitSet()
+
+    private var longs = LongArray(0)
+    private var doubles = DoubleArray(0)
+    private val bools = BitSet()
+    private var codes = IntArray(0)
+    private val dictionary = LinkedHashMap<String, Int>()
+    private val columns = LinkedHashMap<String, ColumnBuilder>()
+    private var values = arrayOfNulls<PartiQLValue>(0)
+
+    /**
+     * Sets the value of [row], which must be after the rows appended so far.
+     */
+    fun append(row: Int, value: PartiQLValue) {
+        present.set(row)
+        if (value is NullValue && value.annotations.isEmpty()) {
+            nulls.set(row)
+            return
+        }
+        val kind = kindOf(value)
+        when {
+            this.kind == null -> {
+                this.kind = kind
+                this.type = value.type
+            }
+            this.kind != Kind.VALUES && (this.kind != kind || this.type != value.type) -> promote(row)
+        }
+        when (this.kind!!) {
+            Kind.LONGS -> {
+                longs = longs.ensureCapacity(row)
+                longs[row] = (value as NumericValue<*>).long!!
+            }
+            Kind.DOUBLES -> {
+                doubles = doubles.ensureCapacity(row)
+                doubles[row] = (value as NumericValue<*>).double!!
+            }
+            Kind.BOOLS -> bools[row] = (value as BoolValue).value!!
+            Kind.STRINGS -> {
+                codes = codes.ensureCapacity(row)
+                codes[row] = dictionary.getOrPut((value as TextValue<*>).value as String) { dictionary.size }
+            }
+            Kind.STRUCTS -> (value as StructValue<*>).entries.forEach { (name, v) ->
+                columns.getOrPut(name) { ColumnBuilder() }.append(row, v)
+            }
+            Kind.VALUES -> {
+                if (row >= values.size) {
+                    values = values.copyOf(maxOf(row + 1, values.size * 2))
+                }
+                values[row] = value
+            }
+        }
+    }
+
+    /**
+     * Returns the column of the first [size] rows.
+     */
+    fun build(size: Int): Column {
+        val present = present.clone() as BitSet
+        val nulls = nulls.clone() as BitSet
+        return when (kind) {
+            null, Kind.VALUES -> Column.Values(present, nulls, values.copyOf(size))
+            Kind.LONGS -> Column.Longs(present, nulls, type!!, longs.copyOf(size))
+            Kind.DOUBLES -> Column.Doubles(present, nulls, type!!, doubles.copyOf(size))
+            Kind.BOOLS -> Column.Bools(present, nulls, bools.clone() as BitSet)
+            Kind.STRINGS -> Column.Strings(present, nulls, type!!, dictionary.keys.toTypedArray(), codes.copyOf(size))
+            Kind.STRUCTS -> Column.Structs(present, nulls, columns.mapValues { it.value.build(size) })
+        }
+    }
+
+    /**
+     * Decodes the rows before [row] and stores them as is from now on.
+     */
+    private fun promote(row: Int) {
+        val column = build(row)
+        values = Array(row) { column.get(it) }
+        kind = Kind.VALUES
+        longs = LongArray(0)
+        doubles = DoubleArray(0)
+        bools.clear()
+        codes = IntArray(0)
+        dictionary.clear()
+        columns.clear()
+    }
+
+    private fun kindOf(value: PartiQLValue): Kind = when {
+        // Annotations and typed NULL values are not encoded.
+        value.annotations.isNotEmpty() || value.isNull -> Kind.VALUES
+        value is Int8Value || value is Int16Value || value is Int32Value || value is Int64Value -> Kind.LONGS
+        value is IntValue -> if (value.value!!.bitLength() < Long.SIZE_BITS) Kind.LONGS else Kind.VALUES
+        value is Float32Value || value is Float64Value -> Kind.DOUBLES
+        value is BoolValue -> Kind.BOOLS
+        value is StringValue || value is SymbolValue -> Kind.STRINGS
+        // A field of a column holds one value per row, thus structs with repeated fields are not encoded.
+        value is StructValue<*> -> {
+            val fields = value.fields.toList()
+            if (fields.size == fields.toSet().size) Kind.STRUCTS else Kind.VALUES
+        }
+        else -> Kind.VALUES
+    }
+
+    private fun LongArray.ensureCapacity(index: Int) = if (index < size) this else copyOf(maxOf(index + 1, size * 2))
+
+    private fun DoubleArray.ensureCapacity(index: Int) = if (index < size) this else copyOf(maxOf(index + 1, size * 2))
+
+    private fun IntArray.ensureCapacity(index: Int) = if (index < size) this else copyOf(maxOf(index + 1, size * 2))
+}
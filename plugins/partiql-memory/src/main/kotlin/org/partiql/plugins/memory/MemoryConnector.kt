@@ -7,20 +7,39 @@ import org.partiql.spi.connector.Connector
 import org.partiql.spi.connector.ConnectorMetadata
 import org.partiql.spi.connector.ConnectorObjectHandle
 import org.partiql.spi.connector.ConnectorObjectPath
+import org.partiql.spi.connector.ConnectorRecordSource
 import org.partiql.spi.connector.ConnectorSession
 import org.partiql.types.StaticType
+import org.partiql.value.PartiQLValue
+import org.partiql.value.PartiQLValueExperimental
 
 /**
  * This is a plugin used for testing and is not a versioned API per semver.
+ *
+ * @property metadata   Catalog metadata
+ * @property records    The records of the catalog's objects, keyed by the same dot-delimited paths as [Metadata]
+ * @property splitSize  The maximum number of records of a split
+ * @property tables     The records of the catalog's objects which are stored in columnar tables, keyed like [records]
  */
-public class MemoryConnector(private val metadata: ConnectorMetadata) : Connector {
+@OptIn(PartiQLValueExperimental::class)
+public class MemoryConnector @JvmOverloads constructor(
+    private val metadata: ConnectorMetadata,
+    private val records: Map<String, List<PartiQLValue>> = emptyMap(),
+    private val splitSize: Int = DEFAULT_SPLIT_SIZE,
+    private val tables: Map<String, ColumnarTable> = emptyMap(),
+) : Connector {
 
     companion object {
         const val CONNECTOR_NAME = "memory"
+        const val DEFAULT_SPLIT_SIZE = 1024
     }
 
+    private val recordSource = MemoryRecordSource(records, splitSize, tables)
+
     override fun getMetadata(session: ConnectorSession): ConnectorMetadata = metadata
 
+    override fun getRecordSource(session: ConnectorSession): ConnectorRecordSource = recordSource
+
     class Factory(private val catalogs: Map<String, MemoryConnector>) : Connector.Factory {
 
         override val name: String = CONNECTOR_NAME
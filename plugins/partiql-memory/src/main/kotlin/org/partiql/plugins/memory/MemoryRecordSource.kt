@@ -0,0 +1,78 @@
+package org.partiql.plugins.memory
+
+import org.partiql.spi.connector.ConnectorObjectHandle
+import org.partiql.spi.connector.ConnectorRecordCursor
+import org.partiql.spi.connector.ConnectorRecordSource
+import org.partiql.spi.connector.ConnectorScan
+import org.partiql.spi.connector.ConnectorSession
+import org.partiql.spi.connector.ConnectorSplit
+import org.partiql.value.PartiQLValue
+import org.partiql.value.PartiQLValueExperimental
+
+/**
+ * Reads the records held in memory by a [MemoryConnector], keyed by the dot-delimited path of their object.
+ *
+ * The records of an object are split into ranges of at most [splitSize] records.  The records of a [ColumnarTable] are
+ * decoded while they are read, and only the fields which the scan uses are decoded.
+ *
+ * @property records
+ * @property splitSize
+ * @property tables
+ */
+@OptIn(PartiQLValueExperimental::class)
+class MemoryRecordSource(
+    private val records: Map<String, List<PartiQLValue>>,
+    private val splitSize: Int,
+    private val tables: Map<String, ColumnarTable> = emptyMap(),
+) : ConnectorRecordSource {
+
+    init {
+        require(splitSize > 0) { "splitSize must be greater than zero" }
+    }
+
+    override fun getSplits(session: ConnectorSession, handle: ConnectorObjectHandle): List<ConnectorSplit> {
+        val obj = handle.value as MemoryObject
+        val key = obj.path.joinToString(".")
+        val objectRecords = records[key] ?: emptyList()
+        val splits = objectRecords.chunked(splitSize).map { Split(handle, it) }
+        val table = tables[key] ?: return splits
+        return splits + (0 until table.size step splitSize).map { TableSplit(handle, table, it, minOf(it + splitSize, table.size)) }
+    }
+
+    override fun getRecords(session: ConnectorSession, split: ConnectorSplit, scan: ConnectorScan): ConnectorRecordCursor {
+        val records = when (split) {
+            is Split -> scan.apply(split.records.asSequence())
+            is TableSplit -> {
+                // The predicate is tested before the projection, since it may use fields which are not projected.
+                val rows = scan.filter(split.table.rows(split.from, split.to))
+                when (val columns = scan.columns) {
+                    null -> rows
+                    else -> {
+                        val fields = split.table.fields.filterTo(LinkedHashSet()) { name -> columns.any { it.isEquivalentTo(name) } }
+                        rows.map { if (it is ColumnarStruct) it.select(fields) else scan.project(it) }
+                    }
+                }
+            }
+            else -> error("Split $split is not a split of the MemoryRecordSource")
+        }
+        return ConnectorRecordCursor.of(records.iterator())
+    }
+
+    /**
+     * A range of the records of an object.
+     */
+    class Split(
+        override val handle: ConnectorObjectHandle,
+        val records: List<PartiQLValue>,
+    ) : ConnectorSplit
+
+    /**
+     * A range of the rows of a [ColumnarTable], from [from] (inclusive) to [to] (exclusive).
+     */
+    class TableSplit(
+        override val handle: ConnectorObjectHandle,
+        val table: ColumnarTable,
+        val from: Int,
+        val to: Int,
+    ) : ConnectorSplit
+}
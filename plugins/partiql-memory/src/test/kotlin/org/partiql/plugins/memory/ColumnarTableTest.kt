@@ -0,0 +1,123 @@
+package org.partiql.plugins.memory
+
+import org.junit.jupiter.api.Test
+import org.partiql.spi.BindingCase
+import org.partiql.spi.BindingName
+import org.partiql.spi.BindingPath
+import org.partiql.spi.connector.ConnectorPredicate
+import org.partiql.spi.connector.ConnectorScan
+import org.partiql.spi.connector.ConnectorSession
+import org.partiql.types.StaticType
+import org.partiql.value.PartiQLValue
+import org.partiql.value.PartiQLValueExperimental
+import org.partiql.value.StructValue
+import org.partiql.value.boolValue
+import org.partiql.value.float64Value
+import org.partiql.value.int32Value
+import org.partiql.value.int64Value
+import org.partiql.value.intValue
+import org.partiql.value.listValue
+import org.partiql.value.missingValue
+import org.partiql.value.nullValue
+import org.partiql.value.stringValue
+import org.partiql.value.structValue
+import org.partiql.value.symbolValue
+import java.math.BigInteger
+import kotlin.test.assertEquals
+import kotlin.test.assertTrue
+
+@OptIn(PartiQLValueExperimental::class)
+class ColumnarTableTest {
+
+    companion object {
+
+        private val session = object : ConnectorSession {
+            override fun getQueryId(): String = "mock_query_id"
+            override fun getUserId(): String = "mock_user"
+        }
+
+        private val rows: List<PartiQLValue> = (0 until 10).map {
+            structValue(
+                listOfNotNull(
+                    "i" to int64Value(it.toLong()),
+                    "f" to float64Value(it / 2.0),
+                    "b" to boolValue(it % 2 == 0),
+                    // Dictionary-encoded, with NULL and MISSING values
+                    when (it % 3) {
+                        0 -> null
+                        1 -> "s" to nullValue()
+                        else -> "s" to stringValue("s${it % 2}")
+                    },
+                    "nested" to structValue("x" to int32Value(it), "y" to symbolValue("y")),
+                )
+            )
+        }
+    }
+
+    @Test
+    fun roundTrip() {
+        val table = ColumnarTable.of(rows)
+        assertEquals(rows.size, table.size)
+        assertEquals(rows, table.rows().toList())
+    }
+
+    @Test
+    fun valuesWithoutEncoding() {
+        val values = listOf(
+            // A field whose type changes after the first rows
+            structValue("a" to int32Value(1), "c" to listValue(int32Value(1))),
+            structValue("a" to int32Value(2), "c" to nullValue(listOf("annotation"))),
+            structValue("a" to stringValue("3"), "c" to intValue(BigInteger.TEN.pow(20))),
+            // A struct with a repeated field
+            structValue("a" to int32Value(4), "nested" to structValue("x" to int32Value(1), "x" to int32Value(2))),
+            // Rows which are not structs
+            int32Value(5),
+            missingValue(),
+        )
+        assertEquals(values, ColumnarTable.of(values).rows().toList())
+    }
+
+    @Test
+    fun load() {
+        val ion = "{a: 1, b: \"x\"} {a: 2.5e0} {a: 3, b: \"x\", c: {d: true}}"
+        val table = ColumnarTable.load(ion.byteInputStream())
+        val expected = listOf(
+            structValue("a" to intValue(BigInteger.ONE), "b" to stringValue("x")),
+            structValue("a" to float64Value(2.5)),
+            structValue("a" to intValue(BigInteger.valueOf(3)), "b" to stringValue("x"), "c" to structValue("d" to boolValue(true))),
+        )
+        assertEquals(expected, table.rows().toList())
+    }
+
+    @Test
+    fun scan() {
+        val connector = MemoryConnector(
+            metadata = MemoryConnector.Metadata.of("tbl" to StaticType.ANY),
+            splitSize = 4,
+            tables = mapOf("tbl" to ColumnarTable.of(rows)),
+        )
+        val handle = connector.getMetadata(session).getObjectHandle(
+            session,
+            BindingPath(listOf(BindingName("tbl", BindingCase.INSENSITIVE)))
+        )!!
+        val source = connector.getRecordSource(session)
+        val splits = source.getSplits(session, handle)
+        assertEquals(3, splits.size)
+
+        // The predicate uses a field which is not projected.
+        val scan = ConnectorScan(
+            columns = listOf(BindingName("NESTED", BindingCase.INSENSITIVE), BindingName("s", BindingCase.SENSITIVE)),
+            predicate = ConnectorPredicate.Comparison(
+                BindingName("i", BindingCase.SENSITIVE),
+                ConnectorPredicate.Operator.GE,
+                int32Value(5),
+            ),
+        )
+        val actual = splits.flatMap { split -> source.getRecords(session, split, scan).use { it.asSequence().toList() } }
+        val expected = rows.drop(5).map { row ->
+            structValue((row as StructValue<*>).entries.filter { (name, _) -> name == "nested" || name == "s" })
+        }
+        assertEquals(expected, actual)
+        assertTrue(actual.all { it is ColumnarStruct })
+    }
+}
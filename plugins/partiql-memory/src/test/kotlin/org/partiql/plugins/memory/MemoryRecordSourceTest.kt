@@ -0,0 +1,105 @@
+package org.partiql.plugins.memory
+
+import org.junit.jupiter.api.Test
+import org.partiql.spi.BindingCase
+import org.partiql.spi.BindingName
+import org.partiql.spi.BindingPath
+import org.partiql.spi.connector.ConnectorPredicate
+import org.partiql.spi.connector.ConnectorScan
+import org.partiql.spi.connector.ConnectorSession
+import org.partiql.types.BagType
+import org.partiql.types.StaticType
+import org.partiql.types.StructType
+import org.partiql.value.PartiQLValue
+import org.partiql.value.PartiQLValueExperimental
+import org.partiql.value.StructValue
+import org.partiql.value.int32Value
+import org.partiql.value.int64Value
+import org.partiql.value.nullValue
+import org.partiql.value.stringValue
+import org.partiql.value.structValue
+import kotlin.test.assertEquals
+
+@OptIn(PartiQLValueExperimental::class)
+class MemoryRecordSourceTest {
+
+    companion object {
+
+        private val session = object : ConnectorSession {
+            override fun getQueryId(): String = "mock_query_id"
+            override fun getUserId(): String = "mock_user"
+        }
+
+        private val rows: List<PartiQLValue> = (0 until 10).map {
+            structValue(
+                "a" to int32Value(it),
+                "b" to if (it % 3 == 0) nullValue() else stringValue("b$it"),
+            )
+        }
+
+        private val connector = MemoryConnector(
+            metadata = MemoryConnector.Metadata.of(
+                "schema.tbl" to BagType(
+                    StructType(
+                        fields = listOf(StructType.Field("a", StaticType.INT4), StructType.Field("b", StaticType.STRING))
+                    )
+                )
+            ),
+            records = mapOf("schema.tbl" to rows),
+            splitSize = 4,
+        )
+
+        private val a = BindingName("a", BindingCase.INSENSITIVE)
+        private val b = BindingName("B", BindingCase.INSENSITIVE)
+    }
+
+    private fun read(scan: ConnectorScan): List<PartiQLValue> {
+        val handle = connector.getMetadata(session).getObjectHandle(
+            session,
+            BindingPath(listOf(BindingName("schema", BindingCase.INSENSITIVE), BindingName("tbl", BindingCase.INSENSITIVE)))
+        )!!
+        val source = connector.getRecordSource(session)
+        return source.getSplits(session, handle).flatMap { split ->
+            source.getRecords(session, split, scan).use { it.asSequence().toList() }
+        }
+    }
+
+    @Test
+    fun splits() {
+        assertEquals(rows, read(ConnectorScan.ALL))
+    }
+
+    @Test
+    fun projection() {
+        val expected = rows.map { structValue("a" to (it as StructValue<*>)["a"]!!) }
+        assertEquals(expected, read(ConnectorScan(columns = listOf(a))))
+    }
+
+    @Test
+    fun predicate() {
+        val predicate = ConnectorPredicate.And(
+            listOf(
+                // Numbers of different types are compared by value
+                ConnectorPredicate.Comparison(a, ConnectorPredicate.Operator.GE, int64Value(2)),
+                ConnectorPredicate.Comparison(b, ConnectorPredicate.Operator.NE, stringValue("b5")),
+            )
+        )
+        // The rows where b is null do not satisfy the comparison
+        assertEquals(listOf(2, 4, 7, 8).map { rows[it] }, read(ConnectorScan(predicate = predicate)))
+    }
+
+    @Test
+    fun limit() {
+        // The limit applies to each split
+        assertEquals(listOf(0, 4, 8).map { rows[it] }, read(ConnectorScan(limit = 1)))
+        val predicate = ConnectorPredicate.Comparison(a, ConnectorPredicate.Operator.GT, int32Value(4))
+        assertEquals(listOf(5, 6, 8, 9).map { rows[it] }, read(ConnectorScan(predicate = predicate, limit = 2)))
+    }
+
+    @Test
+    fun undeterminedPredicate() {
+        // Comparisons of values of different types are left to the engine, and do not count towards the limit
+        val predicate = ConnectorPredicate.Comparison(a, ConnectorPredicate.Operator.EQ, stringValue("1"))
+        assertEquals(rows, read(ConnectorScan(predicate = predicate, limit = 1)))
+    }
+}